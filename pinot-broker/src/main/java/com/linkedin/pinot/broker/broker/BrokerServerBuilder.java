@@ -160,7 +160,7 @@ public class BrokerServerBuilder {
     }
 
     // Setup ScatterGather
-    _scatterGather = new ScatterGatherImpl(_connPool, _requestSenderPool);
+    _scatterGather = new ScatterGatherImpl(_connPool, _requestSenderPool, _poolTimeoutExecutor, transportConfigs);
 
     // Setup the broker pruner service
     String[] prunerNames = _config.getStringArray(BROKER_SEGMENT_PRUNERS);
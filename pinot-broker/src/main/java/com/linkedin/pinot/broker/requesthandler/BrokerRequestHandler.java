@@ -19,8 +19,10 @@ import com.google.common.base.Splitter;
 import com.linkedin.pinot.broker.api.RequesterIdentity;
 import com.linkedin.pinot.broker.broker.AccessControlFactory;
 import com.linkedin.pinot.broker.pruner.SegmentZKMetadataPrunerService;
+import com.linkedin.pinot.broker.routing.HelixExternalViewBasedRouting;
 import com.linkedin.pinot.broker.routing.RoutingTable;
 import com.linkedin.pinot.broker.routing.RoutingTableLookupRequest;
+import com.linkedin.pinot.broker.routing.ServerLatencyTracker;
 import com.linkedin.pinot.broker.routing.TimeBoundaryService;
 import com.linkedin.pinot.broker.routing.TimeBoundaryService.TimeBoundaryInfo;
 import com.linkedin.pinot.common.config.TableNameBuilder;
@@ -30,6 +32,7 @@ import com.linkedin.pinot.common.metrics.BrokerMetrics;
 import com.linkedin.pinot.common.metrics.BrokerQueryPhase;
 import com.linkedin.pinot.common.query.ReduceService;
 import com.linkedin.pinot.common.query.ReduceServiceRegistry;
+import com.linkedin.pinot.common.query.StreamingReducer;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.request.FilterOperator;
 import com.linkedin.pinot.common.request.FilterQuery;
@@ -43,6 +46,7 @@ import com.linkedin.pinot.common.response.ServerInstance;
 import com.linkedin.pinot.common.utils.CommonConstants;
 import com.linkedin.pinot.common.utils.DataTable;
 import com.linkedin.pinot.core.common.datatable.DataTableFactory;
+import com.linkedin.pinot.core.common.datatable.DataTableImplV2;
 import com.linkedin.pinot.pql.parsers.Pql2Compiler;
 import com.linkedin.pinot.serde.SerDe;
 import com.linkedin.pinot.transport.common.CompositeFuture;
@@ -57,6 +61,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nonnull;
@@ -82,12 +87,33 @@ public class BrokerRequestHandler {
   private static final String BROKER_QUERY_SPLIT_IN_CLAUSE = "pinot.broker.query.split.in.clause";
   private static final String BROKER_QUERY_LOG_LENGTH = "pinot.broker.query.log.length";
   private static final String BROKER_ACCESS_CONTROL_PREFIX = "pinot.broker.access.control";
+  private static final String BROKER_QUERY_STREAMING_REDUCE = "pinot.broker.query.streaming.reduce";
+  // Data table version to ask the servers to respond with
+  private static final String BROKER_DATA_TABLE_VERSION = "pinot.broker.data.table.version";
+  private static final String BROKER_RESULT_CACHE_ENABLED = "pinot.broker.result.cache.enabled";
+  private static final String BROKER_RESULT_CACHE_MAX_ENTRIES = "pinot.broker.result.cache.max.entries";
+  private static final String BROKER_RESULT_CACHE_REALTIME_TTL_MS = "pinot.broker.result.cache.realtime.ttl.ms";
+  // Maximum number of query templates in the compiled query cache, 0 to disable the cache
+  private static final String BROKER_COMPILED_QUERY_CACHE_MAX_ENTRIES = "pinot.broker.compiled.query.cache.max.entries";
   private static final ResponseType DEFAULT_BROKER_RESPONSE_TYPE = ResponseType.BROKER_RESPONSE_TYPE_NATIVE;
   private static final boolean DEFAULT_BROKER_QUERY_SPLIT_IN_CLAUSE = false;
   private static final int DEFAULT_QUERY_LOG_LENGTH = Integer.MAX_VALUE;
+  private static final boolean DEFAULT_BROKER_QUERY_STREAMING_REDUCE = false;
+  private static final int DEFAULT_BROKER_DATA_TABLE_VERSION = DataTableImplV2.VERSION;
+  private static final boolean DEFAULT_BROKER_RESULT_CACHE_ENABLED = false;
+  private static final long DEFAULT_BROKER_RESULT_CACHE_MAX_ENTRIES = 10000L;
+  private static final long DEFAULT_BROKER_RESULT_CACHE_REALTIME_TTL_MS = 30000L;
+  private static final long DEFAULT_BROKER_COMPILED_QUERY_CACHE_MAX_ENTRIES = 10000L;
+  // Time slice to wait for a response when gathering from more than one composite future in streaming reduce mode
+  private static final long STREAMING_REDUCE_POLL_INTERVAL_MS = 1L;
+  private static final long STREAMING_REDUCE_MAX_POLL_INTERVAL_MS = 100L;
 
   private final SegmentZKMetadataPrunerService _segmentPrunerService;
   private final boolean _splitInClause;
+  private final boolean _streamingReduce;
+  private final int _dataTableVersion;
+  private final BrokerResultCache _resultCache;
+  private final CompiledQueryCache _compiledQueryCache;
   private final int _queryLogLength;
   private final AccessControlFactory _accessControlFactory;
   private final RoutingTable _routingTable;
@@ -115,6 +141,30 @@ public class BrokerRequestHandler {
         CommonConstants.Broker.DEFAULT_BROKER_QUERY_RESPONSE_LIMIT);
     _splitInClause = config.getBoolean(BROKER_QUERY_SPLIT_IN_CLAUSE, DEFAULT_BROKER_QUERY_SPLIT_IN_CLAUSE);
     _queryLogLength = config.getInt(BROKER_QUERY_LOG_LENGTH, DEFAULT_QUERY_LOG_LENGTH);
+    _streamingReduce = config.getBoolean(BROKER_QUERY_STREAMING_REDUCE, DEFAULT_BROKER_QUERY_STREAMING_REDUCE);
+    _dataTableVersion = config.getInt(BROKER_DATA_TABLE_VERSION, DEFAULT_BROKER_DATA_TABLE_VERSION);
+    // The cached results can only be invalidated when the routing table signals the routing and time boundary changes
+    if (config.getBoolean(BROKER_RESULT_CACHE_ENABLED, DEFAULT_BROKER_RESULT_CACHE_ENABLED)) {
+      if (table instanceof HelixExternalViewBasedRouting) {
+        _resultCache = new BrokerResultCache(
+            config.getLong(BROKER_RESULT_CACHE_MAX_ENTRIES, DEFAULT_BROKER_RESULT_CACHE_MAX_ENTRIES),
+            config.getLong(BROKER_RESULT_CACHE_REALTIME_TTL_MS, DEFAULT_BROKER_RESULT_CACHE_REALTIME_TTL_MS));
+        ((HelixExternalViewBasedRouting) table).addRoutingTableChangeListener(_resultCache);
+      } else {
+        LOGGER.warn("Broker result cache is disabled because routing table: {} does not signal routing changes",
+            table.getClass().getSimpleName());
+        _resultCache = null;
+      }
+    } else {
+      _resultCache = null;
+    }
+    long compiledQueryCacheMaxEntries =
+        config.getLong(BROKER_COMPILED_QUERY_CACHE_MAX_ENTRIES, DEFAULT_BROKER_COMPILED_QUERY_CACHE_MAX_ENTRIES);
+    if (compiledQueryCacheMaxEntries > 0) {
+      _compiledQueryCache = new CompiledQueryCache(compiledQueryCacheMaxEntries, _splitInClause, brokerMetrics);
+    } else {
+      _compiledQueryCache = null;
+    }
     _brokerTimeOutMs = config.getLong(CommonConstants.Broker.CONFIG_OF_BROKER_TIMEOUT_MS,
         CommonConstants.Broker.DEFAULT_BROKER_TIMEOUT_MS);
     _brokerId = config.getString(CommonConstants.Broker.CONFIG_OF_BROKER_ID, getDefaultBrokerId());
@@ -124,6 +174,10 @@ public class BrokerRequestHandler {
     LOGGER.info("Broker response limit is: " + _queryResponseLimit);
     LOGGER.info("Broker timeout is - " + _brokerTimeOutMs + " ms");
     LOGGER.info("Broker id: " + _brokerId);
+    LOGGER.info("Broker streaming reduce: " + _streamingReduce);
+    LOGGER.info("Broker data table version: " + _dataTableVersion);
+    LOGGER.info("Broker result cache enabled: " + (_resultCache != null));
+    LOGGER.info("Broker compiled query cache max entries: " + compiledQueryCacheMaxEntries);
   }
 
   private String getDefaultBrokerId() {
@@ -168,7 +222,11 @@ public class BrokerRequestHandler {
     final long compilationStartTime = System.nanoTime();
     BrokerRequest brokerRequest;
     try {
-      brokerRequest = REQUEST_COMPILER.compileToBrokerRequest(pql, _splitInClause);
+      if (_compiledQueryCache != null) {
+        brokerRequest = _compiledQueryCache.compileToBrokerRequest(pql);
+      } else {
+        brokerRequest = REQUEST_COMPILER.compileToBrokerRequest(pql, _splitInClause);
+      }
     } catch (Exception e) {
       LOGGER.info("Parsing error on requestId {}: {}, {}", requestId, pql, e.getMessage());
       _brokerMetrics.addMeteredGlobalValue(BrokerMeter.REQUEST_COMPILATION_EXCEPTIONS, 1L);
@@ -342,8 +400,25 @@ public class BrokerRequestHandler {
     }
 
     ReduceService reduceService = _reduceServiceRegistry.get(responseType);
-    return processOptimizedBrokerRequests(brokerRequest, offlineBrokerRequest, realtimeBrokerRequest, reduceService,
-        scatterGatherStats, requestId);
+    if (_resultCache == null || brokerRequest.isEnableTrace()) {
+      return processOptimizedBrokerRequests(brokerRequest, offlineBrokerRequest, realtimeBrokerRequest, reduceService,
+          scatterGatherStats, requestId);
+    }
+
+    // Serve the request from the result cache if the routing tables and the time boundary did not change.
+    String rawTableName = TableNameBuilder.extractRawTableName(brokerRequest.getQuerySource().getTableName());
+    BrokerResultCache.CacheKey cacheKey = _resultCache.getCacheKey(offlineBrokerRequest, realtimeBrokerRequest);
+    BrokerResponse cachedBrokerResponse = _resultCache.get(cacheKey);
+    if (cachedBrokerResponse != null) {
+      _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.RESULT_CACHE_HITS, 1L);
+      return cachedBrokerResponse;
+    }
+    _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.RESULT_CACHE_MISSES, 1L);
+    BrokerResponse brokerResponse =
+        processOptimizedBrokerRequests(brokerRequest, offlineBrokerRequest, realtimeBrokerRequest, reduceService,
+            scatterGatherStats, requestId);
+    _resultCache.put(cacheKey, brokerResponse);
+    return brokerResponse;
   }
 
   /**
@@ -487,50 +562,75 @@ public class BrokerRequestHandler {
       return BrokerResponseFactory.getStaticEmptyBrokerResponse(serverResponseType);
     }
 
-    // Step 3: gather response from the servers.
     int numServersQueried = 0;
-    long gatherStartTime = System.nanoTime();
-    List<ProcessingException> processingExceptions = new ArrayList<>();
-    Map<ServerInstance, byte[]> offlineServerResponseMap = null;
-    Map<ServerInstance, byte[]> realtimeServerResponseMap = null;
     if (offlineCompositeFuture != null) {
       numServersQueried += offlineCompositeFuture.getNumFutures();
-      offlineServerResponseMap =
-          gatherServerResponses(offlineCompositeFuture, scatterGatherStats, true, offlineTableName,
-              processingExceptions);
     }
     if (realtimeCompositeFuture != null) {
       numServersQueried += realtimeCompositeFuture.getNumFutures();
-      realtimeServerResponseMap =
-          gatherServerResponses(realtimeCompositeFuture, scatterGatherStats, false, realtimeTableName,
-              processingExceptions);
-    }
-    phaseTimes.addToGatherTime(System.nanoTime() - gatherStartTime);
-    if ((offlineServerResponseMap == null) && (realtimeServerResponseMap == null)) {
-      // No response gathered.
-      return BrokerResponseFactory.getBrokerResponseWithExceptions(serverResponseType, processingExceptions);
     }
+    List<ProcessingException> processingExceptions = new ArrayList<>();
+    int numServersResponded;
+    BrokerResponse brokerResponse;
+
+    if (_streamingReduce) {
+      // Step 3-5: gather, deserialize and reduce each server response as soon as it arrives.
+      StreamingReducer streamingReducer = reduceService.getStreamingReducer(originalBrokerRequest, _brokerMetrics);
+      List<ServerResponseStream> serverResponseStreams = new ArrayList<>(2);
+      if (offlineCompositeFuture != null) {
+        serverResponseStreams.add(new ServerResponseStream(offlineCompositeFuture, true, offlineTableName));
+      }
+      if (realtimeCompositeFuture != null) {
+        serverResponseStreams.add(new ServerResponseStream(realtimeCompositeFuture, false, realtimeTableName));
+      }
+      numServersResponded =
+          gatherAndReduceServerResponses(serverResponseStreams, streamingReducer, scatterGatherStats, phaseTimes,
+              processingExceptions);
+      long reduceStartTime = System.nanoTime();
+      brokerResponse = streamingReducer.getBrokerResponse();
+      phaseTimes.addToReduceTime(System.nanoTime() - reduceStartTime);
+    } else {
+      // Step 3: gather response from the servers.
+      long gatherStartTime = System.nanoTime();
+      Map<ServerInstance, byte[]> offlineServerResponseMap = null;
+      Map<ServerInstance, byte[]> realtimeServerResponseMap = null;
+      if (offlineCompositeFuture != null) {
+        offlineServerResponseMap =
+            gatherServerResponses(offlineCompositeFuture, scatterGatherStats, true, offlineTableName,
+                processingExceptions);
+      }
+      if (realtimeCompositeFuture != null) {
+        realtimeServerResponseMap =
+            gatherServerResponses(realtimeCompositeFuture, scatterGatherStats, false, realtimeTableName,
+                processingExceptions);
+      }
+      phaseTimes.addToGatherTime(System.nanoTime() - gatherStartTime);
+      if ((offlineServerResponseMap == null) && (realtimeServerResponseMap == null)) {
+        // No response gathered.
+        return BrokerResponseFactory.getBrokerResponseWithExceptions(serverResponseType, processingExceptions);
+      }
 
-    //Step 4: deserialize the server responses.
-    int numServersResponded = 0;
-    long deserializationStartTime = System.nanoTime();
-    Map<ServerInstance, DataTable> dataTableMap = new HashMap<>();
-    if (offlineServerResponseMap != null) {
-      numServersResponded += offlineServerResponseMap.size();
-      deserializeServerResponses(offlineServerResponseMap, true, dataTableMap, offlineTableName, processingExceptions);
-    }
-    if (realtimeServerResponseMap != null) {
-      numServersResponded += realtimeServerResponseMap.size();
-      deserializeServerResponses(realtimeServerResponseMap, false, dataTableMap, realtimeTableName,
-          processingExceptions);
-    }
-    phaseTimes.addToDeserializationTime(System.nanoTime() - deserializationStartTime);
+      //Step 4: deserialize the server responses.
+      numServersResponded = 0;
+      long deserializationStartTime = System.nanoTime();
+      Map<ServerInstance, DataTable> dataTableMap = new HashMap<>();
+      if (offlineServerResponseMap != null) {
+        numServersResponded += offlineServerResponseMap.size();
+        deserializeServerResponses(offlineServerResponseMap, true, dataTableMap, offlineTableName,
+            processingExceptions);
+      }
+      if (realtimeServerResponseMap != null) {
+        numServersResponded += realtimeServerResponseMap.size();
+        deserializeServerResponses(realtimeServerResponseMap, false, dataTableMap, realtimeTableName,
+            processingExceptions);
+      }
+      phaseTimes.addToDeserializationTime(System.nanoTime() - deserializationStartTime);
 
-    // Step 5: reduce (merge) the server responses and create a broker response to be returned.
-    long reduceStartTime = System.nanoTime();
-    BrokerResponse brokerResponse =
-        reduceService.reduceOnDataTable(originalBrokerRequest, dataTableMap, _brokerMetrics);
-    phaseTimes.addToReduceTime(System.nanoTime() - reduceStartTime);
+      // Step 5: reduce (merge) the server responses and create a broker response to be returned.
+      long reduceStartTime = System.nanoTime();
+      brokerResponse = reduceService.reduceOnDataTable(originalBrokerRequest, dataTableMap, _brokerMetrics);
+      phaseTimes.addToReduceTime(System.nanoTime() - reduceStartTime);
+    }
 
     // Set processing exceptions and number of servers queried/responded.
     brokerResponse.setExceptions(processingExceptions);
@@ -576,13 +676,58 @@ public class BrokerRequestHandler {
     // Step 2: select servers for each segment set and scatter request to the servers.
     long scatterStartTime = System.nanoTime();
     ScatterGatherRequestImpl scatterRequest =
-        new ScatterGatherRequestImpl(brokerRequest, routingTable, requestId, _brokerTimeOutMs, _brokerId);
+        new ScatterGatherRequestImpl(brokerRequest, routingTable, _routingTable, requestId, _brokerTimeOutMs,
+            _brokerId, _dataTableVersion);
     CompositeFuture<byte[]> compositeFuture =
         _scatterGatherer.scatterGather(scatterRequest, scatterGatherStats, isOfflineTable, _brokerMetrics);
+    ServerLatencyTracker serverLatencyTracker = getServerLatencyTracker(brokerRequest.getQuerySource().getTableName());
+    if (serverLatencyTracker != null) {
+      trackServerLatency(serverLatencyTracker, routingTable.keySet(), compositeFuture);
+    }
     phaseTimes.addToScatterTime(System.nanoTime() - scatterStartTime);
     return compositeFuture;
   }
 
+  /**
+   * Get the server latency tracker if the routing of the given table depends on the server latencies, null otherwise.
+   */
+  @Nullable
+  private ServerLatencyTracker getServerLatencyTracker(@Nonnull String tableNameWithType) {
+    if (_routingTable instanceof HelixExternalViewBasedRouting) {
+      return ((HelixExternalViewBasedRouting) _routingTable).getServerLatencyTracker(tableNameWithType);
+    }
+    return null;
+  }
+
+  /**
+   * Record the requests sent to the servers, and record the response time of each server into the server latency
+   * tracker once all responses are gathered. Failed servers are penalized with the broker timeout. Responses served by
+   * hedged requests to other servers do not reflect the latency of the original servers, so they are not recorded.
+   */
+  private void trackServerLatency(@Nonnull final ServerLatencyTracker serverLatencyTracker,
+      @Nonnull final Set<String> servers, @Nonnull final CompositeFuture<byte[]> compositeFuture) {
+    serverLatencyTracker.recordRequestsSent(servers);
+    compositeFuture.addListener(new Runnable() {
+      @Override
+      public void run() {
+        Map<ServerInstance, Long> responseTimes = compositeFuture.getResponseTimes();
+        Map<ServerInstance, Throwable> errors = compositeFuture.getError();
+        Set<ServerInstance> hedgedServers = compositeFuture.getHedgedServers();
+        for (String server : servers) {
+          ServerInstance serverInstance = ServerInstance.forInstanceName(server);
+          Long responseTime = responseTimes.get(serverInstance);
+          if (hedgedServers.contains(serverInstance)) {
+            serverLatencyTracker.recordRequestFinished(server);
+          } else if (responseTime == null || (errors != null && errors.containsKey(serverInstance))) {
+            serverLatencyTracker.recordResponse(server, _brokerTimeOutMs);
+          } else {
+            serverLatencyTracker.recordResponse(server, responseTime);
+          }
+        }
+      }
+    }, null);
+  }
+
   /**
    * Gather responses from servers, append processing exceptions to the processing exception list passed in.
    *
@@ -649,6 +794,105 @@ public class BrokerRequestHandler {
     }
   }
 
+  /**
+   * Gather the server responses from all the composite futures, deserialize and reduce each of them with the streaming
+   * reducer passed in as soon as it arrives, append processing exceptions to the processing exception list passed in.
+   * <p>When gathering from more than one composite future (hybrid table), wait on each of them in short time slices so
+   * that responses from either of them get reduced without waiting for the other one.
+   *
+   * @param serverResponseStreams server response streams for the composite futures returned from scatter phase.
+   * @param streamingReducer streaming reducer.
+   * @param scatterGatherStats scatter-gather statistics.
+   * @param phaseTimes phase times.
+   * @param processingExceptions list of processing exceptions.
+   * @return number of servers responded.
+   * @throws InterruptedException
+   */
+  @SuppressWarnings("unchecked")
+  private int gatherAndReduceServerResponses(@Nonnull List<ServerResponseStream> serverResponseStreams,
+      @Nonnull StreamingReducer streamingReducer, @Nonnull ScatterGatherStats scatterGatherStats,
+      @Nonnull PhaseTimes phaseTimes, @Nonnull List<ProcessingException> processingExceptions)
+      throws InterruptedException {
+    int numServersResponded = 0;
+    int numStreams = serverResponseStreams.size();
+    int numStreamsFinished = 0;
+    long pollIntervalMs = (numStreams > 1) ? STREAMING_REDUCE_POLL_INTERVAL_MS : STREAMING_REDUCE_MAX_POLL_INTERVAL_MS;
+    while (numStreamsFinished < numStreams) {
+      for (ServerResponseStream serverResponseStream : serverResponseStreams) {
+        if (serverResponseStream._finished) {
+          continue;
+        }
+        CompositeFuture<byte[]> compositeFuture = serverResponseStream._compositeFuture;
+        String tableNameWithType = serverResponseStream._tableNameWithType;
+
+        // Once the composite future is done, all the remaining responses are available without waiting.
+        boolean done = compositeFuture.isDone();
+        long gatherStartTime = System.nanoTime();
+        ServerInstance serverInstance =
+            compositeFuture.pollCompletedServer(done ? 0L : pollIntervalMs, TimeUnit.MILLISECONDS);
+        phaseTimes.addToGatherTime(System.nanoTime() - gatherStartTime);
+
+        if (serverInstance == null) {
+          if (done) {
+            serverResponseStream._finished = true;
+            numStreamsFinished++;
+            scatterGatherStats.setResponseTimeMillis(compositeFuture.getResponseTimes(),
+                serverResponseStream._isOfflineTable);
+          }
+          continue;
+        }
+        byte[] response = compositeFuture.getResponse(serverInstance);
+        if (response.length == 0) {
+          LOGGER.warn("Got empty response from server: {}", serverInstance.getShortHostName());
+          continue;
+        }
+        numServersResponded++;
+
+        // For hybrid use case, multiple responses might be from the same instance. Use response sequence to distinguish
+        // them.
+        if (!serverResponseStream._isOfflineTable) {
+          serverInstance = serverInstance.withSeq(1);
+        }
+        DataTable dataTable;
+        long deserializationStartTime = System.nanoTime();
+        try {
+          dataTable = DataTableFactory.getDataTable(response);
+        } catch (Exception e) {
+          LOGGER.error("Caught exceptions while deserializing response for table: {} from server: {}",
+              tableNameWithType, serverInstance, e);
+          _brokerMetrics.addMeteredTableValue(tableNameWithType, BrokerMeter.DATA_TABLE_DESERIALIZATION_EXCEPTIONS,
+              1L);
+          processingExceptions.add(QueryException.getException(QueryException.DATA_TABLE_DESERIALIZATION_ERROR, e));
+          continue;
+        } finally {
+          phaseTimes.addToDeserializationTime(System.nanoTime() - deserializationStartTime);
+        }
+
+        long reduceStartTime = System.nanoTime();
+        streamingReducer.reduce(serverInstance, dataTable);
+        phaseTimes.addToReduceTime(System.nanoTime() - reduceStartTime);
+      }
+    }
+    return numServersResponded;
+  }
+
+  /**
+   * Container for the state of gathering responses from one composite future in streaming reduce mode.
+   */
+  private static class ServerResponseStream {
+    private final CompositeFuture<byte[]> _compositeFuture;
+    private final boolean _isOfflineTable;
+    private final String _tableNameWithType;
+    private boolean _finished = false;
+
+    public ServerResponseStream(CompositeFuture<byte[]> compositeFuture, boolean isOfflineTable,
+        String tableNameWithType) {
+      _compositeFuture = compositeFuture;
+      _isOfflineTable = isOfflineTable;
+      _tableNameWithType = tableNameWithType;
+    }
+  }
+
   /**
    * Container for time statistics in all phases.
    */
@@ -690,17 +934,21 @@ public class BrokerRequestHandler {
   private static class ScatterGatherRequestImpl implements ScatterGatherRequest {
     private final BrokerRequest _brokerRequest;
     private final Map<String, List<String>> _routingTable;
+    private final RoutingTable _routing;
     private final long _requestId;
     private final long _requestTimeoutMs;
     private final String _brokerId;
+    private final int _dataTableVersion;
 
-    public ScatterGatherRequestImpl(BrokerRequest request, Map<String, List<String>> routingTable, long requestId,
-        long requestTimeoutMs, String brokerId) {
+    public ScatterGatherRequestImpl(BrokerRequest request, Map<String, List<String>> routingTable,
+        RoutingTable routing, long requestId, long requestTimeoutMs, String brokerId, int dataTableVersion) {
       _brokerRequest = request;
       _routingTable = routingTable;
+      _routing = routing;
       _requestId = requestId;
       _requestTimeoutMs = requestTimeoutMs;
       _brokerId = brokerId;
+      _dataTableVersion = dataTableVersion;
     }
 
     @Override
@@ -708,6 +956,11 @@ public class BrokerRequestHandler {
       return _routingTable;
     }
 
+    @Override
+    public String getAlternativeServer(String server, List<String> segments) {
+      return _routing.getAlternativeServer(_brokerRequest.getQuerySource().getTableName(), server, segments);
+    }
+
     @Override
     public byte[] getRequestForService(List<String> segments) {
       InstanceRequest r = new InstanceRequest();
@@ -716,6 +969,7 @@ public class BrokerRequestHandler {
       r.setQuery(_brokerRequest);
       r.setSearchSegments(segments);
       r.setBrokerId(_brokerId);
+      r.setDataTableVersion(_dataTableVersion);
       // _serde is not threadsafe.
       return new SerDe(new TCompactProtocol.Factory()).serialize(r);
     }
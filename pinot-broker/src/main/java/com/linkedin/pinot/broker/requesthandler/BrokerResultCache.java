@@ -0,0 +1,210 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.broker.requesthandler;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.linkedin.pinot.broker.routing.RoutingTableChangeListener;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.BrokerResponse;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.common.utils.EqualityUtils;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>BrokerResultCache</code> class caches broker responses keyed on the optimized OFFLINE and REALTIME broker
+ * requests, which already contain the time boundary for hybrid tables.
+ * <p>Each table has a generation which gets bumped whenever its routing table or time boundary changes. A cached
+ * response is only served if the generations of the tables it was computed from did not change, so responses computed
+ * against a stale routing table are never served, even if they got cached after the change. Responses involving a
+ * REALTIME table also expire after the configured TTL because consuming segments keep changing.
+ * <p>Only complete responses (no processing exception, all queried servers responded) are cached.
+ */
+@ThreadSafe
+public class BrokerResultCache implements RoutingTableChangeListener {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BrokerResultCache.class);
+
+  private final Cache<CacheKey, CacheEntry> _cache;
+  private final long _realtimeTtlMs;
+  private final ConcurrentHashMap<String, AtomicLong> _tableGenerations = new ConcurrentHashMap<>();
+
+  public BrokerResultCache(long maxNumEntries, long realtimeTtlMs) {
+    _cache = CacheBuilder.newBuilder().maximumSize(maxNumEntries).build();
+    _realtimeTtlMs = realtimeTtlMs;
+  }
+
+  /**
+   * Get the cache key for the given optimized broker requests, capturing the current generations of the tables hit.
+   * <p>The key should be obtained before executing the query, and used both to look up and to put the response.
+   */
+  @Nonnull
+  public CacheKey getCacheKey(@Nullable BrokerRequest offlineBrokerRequest,
+      @Nullable BrokerRequest realtimeBrokerRequest) {
+    return new CacheKey(offlineBrokerRequest, realtimeBrokerRequest);
+  }
+
+  /**
+   * Get the cached broker response for the given key, or null if there is no valid cached response.
+   * <p>A new broker response is returned for each call, so the caller can modify it.
+   */
+  @Nullable
+  public BrokerResponseNative get(@Nonnull CacheKey cacheKey) {
+    CacheEntry cacheEntry = _cache.getIfPresent(cacheKey);
+    if (cacheEntry == null) {
+      return null;
+    }
+    if (cacheEntry._offlineGeneration != cacheKey._offlineGeneration
+        || cacheEntry._realtimeGeneration != cacheKey._realtimeGeneration || (cacheKey._realtimeTableName != null
+        && System.currentTimeMillis() - cacheEntry._creationTimeMs > _realtimeTtlMs)) {
+      _cache.asMap().remove(cacheKey, cacheEntry);
+      return null;
+    }
+    try {
+      return BrokerResponseNative.fromJsonString(cacheEntry._brokerResponseJson);
+    } catch (IOException e) {
+      LOGGER.error("Caught exception while de-serializing cached broker response", e);
+      _cache.asMap().remove(cacheKey, cacheEntry);
+      return null;
+    }
+  }
+
+  /**
+   * Put the broker response into the cache if it is a complete response.
+   */
+  public void put(@Nonnull CacheKey cacheKey, @Nonnull BrokerResponse brokerResponse) {
+    if (!(brokerResponse instanceof BrokerResponseNative)) {
+      return;
+    }
+    BrokerResponseNative brokerResponseNative = (BrokerResponseNative) brokerResponse;
+    if (brokerResponseNative.getExceptionsSize() > 0
+        || brokerResponseNative.getNumServersResponded() < brokerResponseNative.getNumServersQueried()) {
+      return;
+    }
+    try {
+      _cache.put(cacheKey, new CacheEntry(brokerResponseNative.toJsonString(), cacheKey._offlineGeneration,
+          cacheKey._realtimeGeneration));
+    } catch (IOException e) {
+      LOGGER.error("Caught exception while serializing broker response to be cached", e);
+    }
+  }
+
+  public long size() {
+    return _cache.size();
+  }
+
+  @Override
+  public void onRoutingTableChange(String tableNameWithType) {
+    getGeneration(tableNameWithType).incrementAndGet();
+
+    // Eagerly drop the responses for the table, they can never be served again.
+    Iterator<CacheKey> iterator = _cache.asMap().keySet().iterator();
+    while (iterator.hasNext()) {
+      CacheKey cacheKey = iterator.next();
+      if (tableNameWithType.equals(cacheKey._offlineTableName) || tableNameWithType.equals(
+          cacheKey._realtimeTableName)) {
+        iterator.remove();
+      }
+    }
+    LOGGER.info("Invalidated cached broker responses for table: {}", tableNameWithType);
+  }
+
+  private AtomicLong getGeneration(@Nonnull String tableNameWithType) {
+    AtomicLong generation = _tableGenerations.get(tableNameWithType);
+    if (generation == null) {
+      _tableGenerations.putIfAbsent(tableNameWithType, new AtomicLong());
+      generation = _tableGenerations.get(tableNameWithType);
+    }
+    return generation;
+  }
+
+  /**
+   * Key of the cache. Only the broker requests take part in equality, the table generations are captured at creation
+   * time to validate the cache entries.
+   */
+  public class CacheKey {
+    private final BrokerRequest _offlineBrokerRequest;
+    private final BrokerRequest _realtimeBrokerRequest;
+    private final String _offlineTableName;
+    private final String _realtimeTableName;
+    private final long _offlineGeneration;
+    private final long _realtimeGeneration;
+    private final int _hashCode;
+
+    private CacheKey(@Nullable BrokerRequest offlineBrokerRequest, @Nullable BrokerRequest realtimeBrokerRequest) {
+      // Make a copy of the broker requests because they might get modified while processing the query.
+      if (offlineBrokerRequest != null) {
+        _offlineBrokerRequest = offlineBrokerRequest.deepCopy();
+        _offlineTableName = offlineBrokerRequest.getQuerySource().getTableName();
+        _offlineGeneration = getGeneration(_offlineTableName).get();
+      } else {
+        _offlineBrokerRequest = null;
+        _offlineTableName = null;
+        _offlineGeneration = 0L;
+      }
+      if (realtimeBrokerRequest != null) {
+        _realtimeBrokerRequest = realtimeBrokerRequest.deepCopy();
+        _realtimeTableName = realtimeBrokerRequest.getQuerySource().getTableName();
+        _realtimeGeneration = getGeneration(_realtimeTableName).get();
+      } else {
+        _realtimeBrokerRequest = null;
+        _realtimeTableName = null;
+        _realtimeGeneration = 0L;
+      }
+      _hashCode = EqualityUtils.hashCodeOf(EqualityUtils.hashCodeOf(_offlineBrokerRequest), _realtimeBrokerRequest);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (EqualityUtils.isSameReference(this, o)) {
+        return true;
+      }
+      if (EqualityUtils.isNullOrNotSameClass(this, o)) {
+        return false;
+      }
+      CacheKey that = (CacheKey) o;
+      return EqualityUtils.isEqual(_offlineBrokerRequest, that._offlineBrokerRequest) && EqualityUtils.isEqual(
+          _realtimeBrokerRequest, that._realtimeBrokerRequest);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hashCode;
+    }
+  }
+
+  private static class CacheEntry {
+    private final String _brokerResponseJson;
+    private final long _offlineGeneration;
+    private final long _realtimeGeneration;
+    private final long _creationTimeMs;
+
+    private CacheEntry(@Nonnull String brokerResponseJson, long offlineGeneration, long realtimeGeneration) {
+      _brokerResponseJson = brokerResponseJson;
+      _offlineGeneration = offlineGeneration;
+      _realtimeGeneration = realtimeGeneration;
+      _creationTimeMs = System.currentTimeMillis();
+    }
+  }
+}
@@ -0,0 +1,318 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.broker.requesthandler;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.linkedin.pinot.common.metrics.BrokerMeter;
+import com.linkedin.pinot.common.metrics.BrokerMetrics;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.FilterOperator;
+import com.linkedin.pinot.common.request.FilterQuery;
+import com.linkedin.pinot.common.utils.StringUtil;
+import com.linkedin.pinot.pql.parsers.PQL2Lexer;
+import com.linkedin.pinot.pql.parsers.Pql2CompilationException;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>CompiledQueryCache</code> class caches compiled broker requests for PQL queries which only differ by the
+ * constants inside the WHERE clause.
+ * <p>The literals inside the WHERE clause are replaced with placeholders to form a query template, which gets compiled
+ * only once. The broker request for a query is then generated from the compiled template by substituting the
+ * placeholders inside the filter values with the query literals.
+ * <p>A template is only cached if the broker request generated from it is identical to the one compiled directly from
+ * the query. Templates not passing this check are remembered and always compiled directly.
+ */
+@ThreadSafe
+public class CompiledQueryCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(CompiledQueryCache.class);
+  private static final char PLACEHOLDER_MARKER = '\u0001';
+  private static final String IN_CLAUSE_DELIMITER = "\t\t";
+  private static final BrokerRequest NOT_PARAMETERIZABLE = new BrokerRequest();
+
+  private static final BaseErrorListener ERROR_LISTENER = new BaseErrorListener() {
+    @Override
+    public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line, int charPositionInLine,
+        String msg, RecognitionException e) {
+      throw new Pql2CompilationException(msg);
+    }
+  };
+
+  private final Pql2Compiler _compiler = new Pql2Compiler();
+  private final Cache<String, BrokerRequest> _cache;
+  private final boolean _splitInClause;
+  private final BrokerMetrics _brokerMetrics;
+
+  public CompiledQueryCache(long maxNumEntries, boolean splitInClause, @Nullable BrokerMetrics brokerMetrics) {
+    _cache = CacheBuilder.newBuilder().maximumSize(maxNumEntries).build();
+    _splitInClause = splitInClause;
+    _brokerMetrics = brokerMetrics;
+  }
+
+  /**
+   * Compile the given PQL query into {@link BrokerRequest}, using the cached template if available.
+   * <p>A new broker request is returned for each call, so the caller can modify it.
+   */
+  @Nonnull
+  public BrokerRequest compileToBrokerRequest(@Nonnull String pql) throws Pql2CompilationException {
+    QueryTemplate queryTemplate = getQueryTemplate(pql);
+    if (queryTemplate == null) {
+      markMeter(BrokerMeter.COMPILED_QUERY_CACHE_MISSES);
+      return _compiler.compileToBrokerRequest(pql, _splitInClause);
+    }
+
+    BrokerRequest compiledTemplate = _cache.getIfPresent(queryTemplate._template);
+    if (compiledTemplate != null && compiledTemplate != NOT_PARAMETERIZABLE) {
+      try {
+        BrokerRequest brokerRequest = instantiate(compiledTemplate, queryTemplate._values);
+        markMeter(BrokerMeter.COMPILED_QUERY_CACHE_HITS);
+        return brokerRequest;
+      } catch (Exception e) {
+        LOGGER.warn("Caught exception while instantiating query template: {}", queryTemplate._template, e);
+        _cache.put(queryTemplate._template, NOT_PARAMETERIZABLE);
+      }
+    }
+
+    markMeter(BrokerMeter.COMPILED_QUERY_CACHE_MISSES);
+    BrokerRequest brokerRequest = _compiler.compileToBrokerRequest(pql, _splitInClause);
+    if (compiledTemplate == null) {
+      _cache.put(queryTemplate._template, compileTemplate(queryTemplate, brokerRequest));
+    }
+    return brokerRequest;
+  }
+
+  public long size() {
+    return _cache.size();
+  }
+
+  /**
+   * Return whether a usable compiled template is cached for the given PQL query.
+   */
+  boolean isTemplateCached(@Nonnull String pql) {
+    QueryTemplate queryTemplate = getQueryTemplate(pql);
+    if (queryTemplate == null) {
+      return false;
+    }
+    BrokerRequest compiledTemplate = _cache.getIfPresent(queryTemplate._template);
+    return compiledTemplate != null && compiledTemplate != NOT_PARAMETERIZABLE;
+  }
+
+  private void markMeter(BrokerMeter meter) {
+    if (_brokerMetrics != null) {
+      _brokerMetrics.addMeteredGlobalValue(meter, 1L);
+    }
+  }
+
+  /**
+   * Compile the query template and check that the broker request generated from it matches the one compiled from the
+   * query. Return {@link #NOT_PARAMETERIZABLE} if the template cannot be used.
+   */
+  @Nonnull
+  private BrokerRequest compileTemplate(@Nonnull QueryTemplate queryTemplate, @Nonnull BrokerRequest brokerRequest) {
+    try {
+      BrokerRequest compiledTemplate = _compiler.compileToBrokerRequest(queryTemplate._template, _splitInClause);
+      if (instantiate(compiledTemplate, queryTemplate._values).equals(brokerRequest)) {
+        return compiledTemplate;
+      }
+    } catch (Exception e) {
+      // Fall through to return NOT_PARAMETERIZABLE.
+    }
+    LOGGER.debug("Query template cannot be parameterized: {}", queryTemplate._template);
+    return NOT_PARAMETERIZABLE;
+  }
+
+  /**
+   * Get the query template for the given PQL query by replacing the literals inside the WHERE clause with placeholders,
+   * or null if the query cannot be tokenized.
+   */
+  @Nullable
+  static QueryTemplate getQueryTemplate(@Nonnull String pql) {
+    if (pql.indexOf(PLACEHOLDER_MARKER) != -1) {
+      return null;
+    }
+    try {
+      PQL2Lexer lexer = new PQL2Lexer(new ANTLRInputStream(pql));
+      lexer.removeErrorListeners();
+      lexer.addErrorListener(ERROR_LISTENER);
+
+      StringBuilder template = new StringBuilder();
+      List<String> values = new ArrayList<>();
+      int templateEnd = 0;
+      boolean inWhereClause = false;
+      Token token;
+      while ((token = lexer.nextToken()).getType() != Token.EOF) {
+        switch (token.getType()) {
+          case PQL2Lexer.WHERE:
+            inWhereClause = true;
+            break;
+          case PQL2Lexer.GROUP:
+          case PQL2Lexer.HAVING:
+          case PQL2Lexer.ORDER:
+          case PQL2Lexer.TOP:
+          case PQL2Lexer.LIMIT:
+          case PQL2Lexer.OPTION:
+            inWhereClause = false;
+            break;
+          case PQL2Lexer.STRING_LITERAL:
+          case PQL2Lexer.INTEGER_LITERAL:
+          case PQL2Lexer.FLOATING_POINT_LITERAL:
+            if (inWhereClause) {
+              template.append(pql, templateEnd, token.getStartIndex())
+                  .append('\'')
+                  .append(PLACEHOLDER_MARKER)
+                  .append(values.size())
+                  .append(PLACEHOLDER_MARKER)
+                  .append('\'');
+              templateEnd = token.getStopIndex() + 1;
+              values.add(getLiteralValue(token));
+            }
+            break;
+          default:
+            break;
+        }
+      }
+      template.append(pql, templateEnd, pql.length());
+      return new QueryTemplate(template.toString(), values);
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  /**
+   * Get the value of the literal token, in the same format as the compiler puts into the filter values.
+   */
+  @Nonnull
+  private static String getLiteralValue(@Nonnull Token token) {
+    String text = token.getText();
+    switch (token.getType()) {
+      case PQL2Lexer.INTEGER_LITERAL:
+        return Long.toString(Long.parseLong(text));
+      case PQL2Lexer.FLOATING_POINT_LITERAL:
+        return Double.toString(Double.valueOf(text));
+      default:
+        char quote = text.charAt(0);
+        String literalWithoutQuotes = text.substring(1, text.length() - 1);
+        String doubledQuote = new String(new char[]{quote, quote});
+        if (literalWithoutQuotes.contains(doubledQuote)) {
+          literalWithoutQuotes = literalWithoutQuotes.replace(doubledQuote, String.valueOf(quote));
+        }
+        return literalWithoutQuotes;
+    }
+  }
+
+  /**
+   * Generate a new broker request from the compiled template by substituting the placeholders with the given values.
+   */
+  @Nonnull
+  private BrokerRequest instantiate(@Nonnull BrokerRequest compiledTemplate, @Nonnull List<String> values) {
+    BrokerRequest brokerRequest = new BrokerRequest(compiledTemplate);
+    if (brokerRequest.isSetFilterQuery()) {
+      substitute(brokerRequest.getFilterQuery(), values);
+    }
+    if (brokerRequest.isSetFilterSubQueryMap()) {
+      for (FilterQuery filterQuery : brokerRequest.getFilterSubQueryMap().getFilterQueryMap().values()) {
+        substitute(filterQuery, values);
+      }
+    }
+    return brokerRequest;
+  }
+
+  private void substitute(@Nonnull FilterQuery filterQuery, @Nonnull List<String> values) {
+    List<String> templateValues = filterQuery.getValue();
+    if (templateValues == null || templateValues.isEmpty()) {
+      return;
+    }
+
+    FilterOperator filterOperator = filterQuery.getOperator();
+    if (filterOperator == FilterOperator.IN || filterOperator == FilterOperator.NOT_IN) {
+      // The compiler puts IN values into a hash set, so insert the values in the query order to get the same order.
+      Set<Integer> placeholderIds = new TreeSet<>();
+      for (String templateValue : templateValues) {
+        collectPlaceholderIds(templateValue, placeholderIds);
+      }
+      Set<String> valueSet = new HashSet<>();
+      for (int placeholderId : placeholderIds) {
+        valueSet.add(values.get(placeholderId));
+      }
+      if (_splitInClause) {
+        filterQuery.setValue(new ArrayList<>(valueSet));
+      } else {
+        filterQuery.setValue(Collections.singletonList(
+            StringUtil.join(IN_CLAUSE_DELIMITER, valueSet.toArray(new String[valueSet.size()]))));
+      }
+    } else {
+      List<String> substitutedValues = new ArrayList<>(templateValues.size());
+      for (String templateValue : templateValues) {
+        substitutedValues.add(substitute(templateValue, values));
+      }
+      filterQuery.setValue(substitutedValues);
+    }
+  }
+
+  private static void collectPlaceholderIds(@Nonnull String templateValue, @Nonnull Set<Integer> placeholderIds) {
+    int start = templateValue.indexOf(PLACEHOLDER_MARKER);
+    while (start != -1) {
+      int end = templateValue.indexOf(PLACEHOLDER_MARKER, start + 1);
+      placeholderIds.add(Integer.parseInt(templateValue.substring(start + 1, end)));
+      start = templateValue.indexOf(PLACEHOLDER_MARKER, end + 1);
+    }
+  }
+
+  @Nonnull
+  private static String substitute(@Nonnull String templateValue, @Nonnull List<String> values) {
+    int start = templateValue.indexOf(PLACEHOLDER_MARKER);
+    if (start == -1) {
+      return templateValue;
+    }
+    StringBuilder stringBuilder = new StringBuilder();
+    int copied = 0;
+    while (start != -1) {
+      int end = templateValue.indexOf(PLACEHOLDER_MARKER, start + 1);
+      stringBuilder.append(templateValue, copied, start)
+          .append(values.get(Integer.parseInt(templateValue.substring(start + 1, end))));
+      copied = end + 1;
+      start = templateValue.indexOf(PLACEHOLDER_MARKER, copied);
+    }
+    return stringBuilder.append(templateValue, copied, templateValue.length()).toString();
+  }
+
+  static class QueryTemplate {
+    final String _template;
+    final List<String> _values;
+
+    QueryTemplate(@Nonnull String template, @Nonnull List<String> values) {
+      _template = template;
+      _values = values;
+    }
+  }
+}
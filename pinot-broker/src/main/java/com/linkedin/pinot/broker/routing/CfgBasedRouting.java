@@ -53,6 +53,11 @@ public class CfgBasedRouting implements RoutingTable {
     return _cfg.getPerTableRoutingCfg().containsKey(tableName);
   }
 
+  @Override
+  public String getAlternativeServer(String tableName, String server, List<String> segments) {
+    return null;
+  }
+
   @Override
   public String dumpSnapshot(String tableName) throws Exception {
     return null;
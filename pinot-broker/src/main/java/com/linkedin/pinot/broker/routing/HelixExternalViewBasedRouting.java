@@ -17,7 +17,9 @@
 package com.linkedin.pinot.broker.routing;
 
 import com.google.common.collect.Sets;
+import com.linkedin.pinot.broker.routing.builder.AdaptiveRoutingTableBuilder;
 import com.linkedin.pinot.broker.routing.builder.RoutingTableBuilder;
+import com.linkedin.pinot.broker.routing.builder.RoutingTableInstancePruner;
 import com.linkedin.pinot.common.config.TableConfig;
 import com.linkedin.pinot.common.config.TableNameBuilder;
 import com.linkedin.pinot.common.metrics.BrokerMeter;
@@ -33,9 +35,12 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 import org.apache.commons.configuration.Configuration;
 import org.apache.helix.AccessOption;
 import org.apache.helix.HelixDataAccessor;
@@ -68,6 +73,10 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
   private final Map<String, Map<String, InstanceConfig>> _lastKnownInstanceConfigsForTable = new ConcurrentHashMap<>();
   private final Map<String, InstanceConfig> _lastKnownInstanceConfigs = new ConcurrentHashMap<>();
   private final Map<String, Set<String>> _tablesForInstance = new ConcurrentHashMap<>();
+  // Map from table name to map from segment name to the active servers serving the segment
+  private final Map<String, Map<String, List<String>>> _segmentToServersMapForTable = new ConcurrentHashMap<>();
+  private final Random _random = new Random();
+  private final List<RoutingTableChangeListener> _routingTableChangeListeners = new CopyOnWriteArrayList<>();
 
   private final HelixExternalViewBasedTimeBoundaryService _timeBoundaryService;
   private final HelixManager _helixManager;
@@ -81,6 +90,8 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
 
   private RoutingTableBuilderFactory _routingTableBuilderFactory;
 
+  private final ServerLatencyTracker _serverLatencyTracker;
+
   public HelixExternalViewBasedRouting(ZkHelixPropertyStore<ZNRecord> propertyStore, HelixManager helixManager,
       Configuration configuration) {
     _propertyStore = propertyStore;
@@ -88,7 +99,8 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
     _timeBoundaryService = new HelixExternalViewBasedTimeBoundaryService(propertyStore);
     _routingTableBuilderMap = new HashMap<>();
     _helixManager = helixManager;
-    _routingTableBuilderFactory = new RoutingTableBuilderFactory(_configuration, propertyStore);
+    _serverLatencyTracker = new ServerLatencyTracker(configuration);
+    _routingTableBuilderFactory = new RoutingTableBuilderFactory(_configuration, propertyStore, _serverLatencyTracker);
   }
 
   @Override
@@ -103,11 +115,83 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
     return _routingTableBuilderMap.containsKey(tableName);
   }
 
+  @Nullable
+  @Override
+  public String getAlternativeServer(String tableName, String server, List<String> segments) {
+    Map<String, List<String>> segmentToServersMap = _segmentToServersMapForTable.get(tableName);
+    if (segmentToServersMap == null || segments.isEmpty()) {
+      return null;
+    }
+    List<String> candidates = segmentToServersMap.get(segments.get(0));
+    if (candidates == null) {
+      return null;
+    }
+
+    // Start from a random candidate to spread the load among the replicas
+    int numCandidates = candidates.size();
+    int startIndex = _random.nextInt(numCandidates);
+    for (int i = 0; i < numCandidates; i++) {
+      String candidate = candidates.get((startIndex + i) % numCandidates);
+      if (candidate.equals(server)) {
+        continue;
+      }
+      boolean servesAllSegments = true;
+      for (String segment : segments) {
+        List<String> servers = segmentToServersMap.get(segment);
+        if (servers == null || !servers.contains(candidate)) {
+          servesAllSegments = false;
+          break;
+        }
+      }
+      if (servesAllSegments) {
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Compute the map from segment name to the active servers with the segment ONLINE.
+   */
+  private static Map<String, List<String>> computeSegmentToServersMap(ExternalView externalView,
+      List<InstanceConfig> instanceConfigs) {
+    Map<String, List<String>> segmentToServersMap = new HashMap<>();
+    RoutingTableInstancePruner instancePruner = new RoutingTableInstancePruner(instanceConfigs);
+    for (String segmentName : externalView.getPartitionSet()) {
+      List<String> servers = new ArrayList<>();
+      for (Map.Entry<String, String> entry : externalView.getStateMap(segmentName).entrySet()) {
+        String serverName = entry.getKey();
+        if (entry.getValue().equals(CommonConstants.Helix.StateModel.SegmentOnlineOfflineStateModel.ONLINE)
+            && !instancePruner.isInactive(serverName)) {
+          servers.add(serverName);
+        }
+      }
+      if (!servers.isEmpty()) {
+        segmentToServersMap.put(segmentName, servers);
+      }
+    }
+    return segmentToServersMap;
+  }
+
 
   public void setBrokerMetrics(BrokerMetrics brokerMetrics) {
     _brokerMetrics = brokerMetrics;
   }
 
+  public void addRoutingTableChangeListener(RoutingTableChangeListener routingTableChangeListener) {
+    _routingTableChangeListeners.add(routingTableChangeListener);
+  }
+
+  private void notifyRoutingTableChange(String tableNameWithType) {
+    for (RoutingTableChangeListener routingTableChangeListener : _routingTableChangeListeners) {
+      try {
+        routingTableChangeListener.onRoutingTableChange(tableNameWithType);
+      } catch (Exception e) {
+        LOGGER.error("Caught exception while notifying routing table change for table {}", tableNameWithType, e);
+      }
+    }
+  }
+
   public void markDataResourceOnline(TableConfig tableConfig, ExternalView externalView,
       List<InstanceConfig> instanceConfigList) {
     String tableName = tableConfig.getTableName();
@@ -237,6 +321,8 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
       Map<String, InstanceConfig> relevantInstanceConfigs = new HashMap<>();
 
       routingTableBuilder.computeRoutingTableFromExternalView(tableNameWithType, externalView, instanceConfigs);
+      _segmentToServersMapForTable.put(tableNameWithType,
+          computeSegmentToServersMap(externalView, instanceConfigs));
 
       // Keep track of the instance configs that are used in that routing table
       updateInstanceConfigsMapFromExternalView(relevantInstanceConfigs, instanceConfigs, externalView);
@@ -308,6 +394,9 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
 
       if (tableForTimeBoundaryUpdate != null) {
         updateTimeBoundary(tableForTimeBoundaryUpdate, externalViewForTimeBoundaryUpdate);
+        if (!tableForTimeBoundaryUpdate.equals(tableNameWithType)) {
+          notifyRoutingTableChange(tableForTimeBoundaryUpdate);
+        }
       } else {
         LOGGER.info("No need to update time boundary for table {}", tableNameWithType);
       }
@@ -322,6 +411,7 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
     }
 
     LOGGER.info("Routing table update for table {} completed in {} ms", tableNameWithType, updateTime);
+    notifyRoutingTableChange(tableNameWithType);
   }
 
   protected void updateTimeBoundary(String tableName, ExternalView externalView) {
@@ -360,7 +450,9 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
     _routingTableBuilderMap.remove(tableName);
     _lastKnownExternalViewVersionMap.remove(tableName);
     _lastKnownInstanceConfigsForTable.remove(tableName);
+    _segmentToServersMapForTable.remove(tableName);
     _timeBoundaryService.remove(tableName);
+    notifyRoutingTableChange(tableName);
 
     // Remove table from all instances
     synchronized (_tablesForInstance) {
@@ -545,6 +637,18 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
         evFetchTime, rebuildCheckTime, buildTime, routingTablesRebuiltCount, _lastKnownExternalViewVersionMap.size());
   }
 
+  /**
+   * Get the server latency tracker if the routing table of the given table is built from the tracked server latencies
+   * (i.e. the table uses the adaptive routing table builder), null otherwise.
+   */
+  @Nullable
+  public ServerLatencyTracker getServerLatencyTracker(String tableNameWithType) {
+    if (_routingTableBuilderMap.get(tableNameWithType) instanceof AdaptiveRoutingTableBuilder) {
+      return _serverLatencyTracker;
+    }
+    return null;
+  }
+
   public TimeBoundaryService getTimeBoundaryService() {
     return _timeBoundaryService;
   }
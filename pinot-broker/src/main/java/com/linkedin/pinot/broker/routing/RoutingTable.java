@@ -17,6 +17,7 @@ package com.linkedin.pinot.broker.routing;
 
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 
 /**
@@ -40,6 +41,18 @@ public interface RoutingTable {
    */
   boolean routingTableExists(String tableName);
 
+  /**
+   * Get another server (other than the given one) serving all the given segments of the table, or null if there is no
+   * such server. Used to re-send the request for the segments to another replica.
+   *
+   * @param tableName Table name
+   * @param server Server currently queried for the segments
+   * @param segments List of segments
+   * @return Another server serving all the segments, or null if there is no such server
+   */
+  @Nullable
+  String getAlternativeServer(String tableName, String server, List<String> segments);
+
   /**
    * Dump a snapshot of all the routing tables for the given table.
    *
@@ -15,6 +15,8 @@
  */
 package com.linkedin.pinot.broker.routing;
 
+import com.linkedin.pinot.broker.routing.builder.AdaptiveRoutingTableBuilder;
+import com.linkedin.pinot.broker.routing.builder.ConsistentHashRoutingTableBuilder;
 import com.linkedin.pinot.broker.routing.builder.PartitionAwareOfflineRoutingTableBuilder;
 import com.linkedin.pinot.broker.routing.builder.PartitionAwareRealtimeRoutingTableBuilder;
 import com.linkedin.pinot.common.config.SegmentsValidationAndRetentionConfig;
@@ -39,9 +41,11 @@ import com.linkedin.pinot.common.utils.CommonConstants.Helix.TableType;
 public class RoutingTableBuilderFactory {
   private static final Logger LOGGER = LoggerFactory.getLogger(RoutingTableBuilderFactory.class);
 
-  private Configuration _configuration;
+  private final Configuration _configuration;
 
-  private ZkHelixPropertyStore<ZNRecord> _propertyStore;
+  private final ZkHelixPropertyStore<ZNRecord> _propertyStore;
+
+  private final ServerLatencyTracker _serverLatencyTracker;
 
   enum RoutingTableBuilderName {
     DefaultOffline,
@@ -50,12 +54,16 @@ public class RoutingTableBuilderFactory {
     KafkaLowLevel,
     KafkaHighLevel,
     PartitionAwareOffline,
-    PartitionAwareRealtime
+    PartitionAwareRealtime,
+    Adaptive,
+    ConsistentHash
   }
 
-  public RoutingTableBuilderFactory(Configuration configuration, ZkHelixPropertyStore<ZNRecord> propertyStore) {
+  public RoutingTableBuilderFactory(Configuration configuration, ZkHelixPropertyStore<ZNRecord> propertyStore,
+      ServerLatencyTracker serverLatencyTracker) {
     _configuration = configuration;
     _propertyStore = propertyStore;
+    _serverLatencyTracker = serverLatencyTracker;
   }
 
   public RoutingTableBuilder createRoutingTableBuilder(TableConfig tableConfig) {
@@ -134,6 +142,23 @@ public class RoutingTableBuilderFactory {
           builder = new DefaultRealtimeRoutingTableBuilder();
         }
         break;
+      case Adaptive:
+        // Latency-aware replica selection only applies to offline tables, realtime tables need consuming segments to
+        // be routed consistently.
+        if (tableConfig.getTableType() == TableType.OFFLINE) {
+          builder = new AdaptiveRoutingTableBuilder(_serverLatencyTracker);
+        } else {
+          builder = new DefaultRealtimeRoutingTableBuilder();
+        }
+        break;
+      case ConsistentHash:
+        // Consuming segments of realtime tables have their own routing rules
+        if (tableConfig.getTableType() == TableType.OFFLINE) {
+          builder = new ConsistentHashRoutingTableBuilder();
+        } else {
+          builder = new DefaultRealtimeRoutingTableBuilder();
+        }
+        break;
     }
     builder.init(_configuration, tableConfig, _propertyStore);
     return builder;
@@ -0,0 +1,154 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.broker.routing;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.commons.configuration.Configuration;
+
+
+/**
+ * Broker side tracker of per-server query latency and number of in-flight requests, used by latency-aware routing.
+ * <p>For each server, keeps an exponentially weighted moving average (EWMA) of the response latency and the number of
+ * requests sent but not yet responded. The score of a server is the EWMA latency weighted by its outstanding requests,
+ * so a server that is slow (e.g. GC-ing) or already loaded gets a higher score. Stats that have not been updated
+ * within the expiration time are considered stale, and no score is returned for the server.
+ * <p>This class is thread-safe.
+ */
+public class ServerLatencyTracker {
+  public static final String EWMA_ALPHA_KEY = "adaptive.ewmaAlpha";
+  public static final double DEFAULT_EWMA_ALPHA = 0.3;
+  public static final String STATS_EXPIRATION_MS_KEY = "adaptive.statsExpirationMs";
+  public static final long DEFAULT_STATS_EXPIRATION_MS = 30_000L;
+
+  public static final double UNKNOWN_SCORE = -1.0;
+
+  private final double _ewmaAlpha;
+  private final long _statsExpirationMs;
+  private final ConcurrentHashMap<String, ServerStats> _serverStatsMap = new ConcurrentHashMap<>();
+
+  public ServerLatencyTracker(Configuration configuration) {
+    this(configuration.getDouble(EWMA_ALPHA_KEY, DEFAULT_EWMA_ALPHA),
+        configuration.getLong(STATS_EXPIRATION_MS_KEY, DEFAULT_STATS_EXPIRATION_MS));
+  }
+
+  public ServerLatencyTracker(double ewmaAlpha, long statsExpirationMs) {
+    _ewmaAlpha = ewmaAlpha;
+    _statsExpirationMs = statsExpirationMs;
+  }
+
+  /**
+   * Record that a request is sent to each of the given servers.
+   */
+  public void recordRequestsSent(Collection<String> servers) {
+    for (String server : servers) {
+      getServerStats(server).requestSent();
+    }
+  }
+
+  /**
+   * Record the response (or failure) of a request previously sent to the given server.
+   *
+   * @param server Server instance name
+   * @param latencyMs Response latency in milliseconds (for failed request, the penalty latency)
+   */
+  public void recordResponse(String server, long latencyMs) {
+    recordResponse(server, latencyMs, System.currentTimeMillis());
+  }
+
+  void recordResponse(String server, long latencyMs, long currentTimeMs) {
+    getServerStats(server).responseReceived(latencyMs, currentTimeMs, _ewmaAlpha);
+  }
+
+  /**
+   * Record that a request previously sent to the given server is finished without a response from it (e.g. served by
+   * a hedged request to another server), so that only the in-flight request is removed and the latency is not updated.
+   */
+  public void recordRequestFinished(String server) {
+    getServerStats(server).requestFinished();
+  }
+
+  /**
+   * Get the score of the given server (lower is better), or {@link #UNKNOWN_SCORE} if there is no fresh stats for it.
+   */
+  public double getScore(String server) {
+    return getScore(server, System.currentTimeMillis());
+  }
+
+  double getScore(String server, long currentTimeMs) {
+    ServerStats serverStats = _serverStatsMap.get(server);
+    if (serverStats == null) {
+      return UNKNOWN_SCORE;
+    }
+    return serverStats.getScore(currentTimeMs - _statsExpirationMs);
+  }
+
+  int getNumInFlightRequests(String server) {
+    ServerStats serverStats = _serverStatsMap.get(server);
+    return serverStats == null ? 0 : serverStats.getNumInFlightRequests();
+  }
+
+  private ServerStats getServerStats(String server) {
+    ServerStats serverStats = _serverStatsMap.get(server);
+    if (serverStats == null) {
+      serverStats = new ServerStats();
+      ServerStats existingServerStats = _serverStatsMap.putIfAbsent(server, serverStats);
+      if (existingServerStats != null) {
+        serverStats = existingServerStats;
+      }
+    }
+    return serverStats;
+  }
+
+  private static class ServerStats {
+    private int _numInFlightRequests;
+    private double _ewmaLatencyMs;
+    // 0 means no response received yet
+    private long _lastUpdateTimeMs;
+
+    synchronized void requestSent() {
+      _numInFlightRequests++;
+    }
+
+    synchronized void requestFinished() {
+      if (_numInFlightRequests > 0) {
+        _numInFlightRequests--;
+      }
+    }
+
+    synchronized void responseReceived(long latencyMs, long currentTimeMs, double ewmaAlpha) {
+      requestFinished();
+      if (_lastUpdateTimeMs == 0L) {
+        _ewmaLatencyMs = latencyMs;
+      } else {
+        _ewmaLatencyMs = ewmaAlpha * latencyMs + (1 - ewmaAlpha) * _ewmaLatencyMs;
+      }
+      _lastUpdateTimeMs = currentTimeMs;
+    }
+
+    synchronized int getNumInFlightRequests() {
+      return _numInFlightRequests;
+    }
+
+    synchronized double getScore(long minUpdateTimeMs) {
+      if (_lastUpdateTimeMs == 0L || _lastUpdateTimeMs < minUpdateTimeMs) {
+        return UNKNOWN_SCORE;
+      }
+      // Add 1 to the latency so that servers with 0ms latency can still be differentiated by in-flight requests
+      return (_ewmaLatencyMs + 1) * (_numInFlightRequests + 1);
+    }
+  }
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.broker.routing.builder;
+
+import com.linkedin.pinot.broker.routing.RoutingTableLookupRequest;
+import com.linkedin.pinot.broker.routing.ServerLatencyTracker;
+import com.linkedin.pinot.common.config.TableConfig;
+import com.linkedin.pinot.common.utils.CommonConstants;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.apache.commons.configuration.Configuration;
+import org.apache.helix.ZNRecord;
+import org.apache.helix.model.ExternalView;
+import org.apache.helix.model.InstanceConfig;
+import org.apache.helix.store.zk.ZkHelixPropertyStore;
+
+
+/**
+ * Latency-aware routing table builder.
+ * <p>For an external view change, segments are grouped by the set of servers serving them. When the query comes in,
+ * each segment group is routed to the replica with the lowest score in {@link ServerLatencyTracker} (EWMA latency
+ * weighted by in-flight requests). If any replica of a segment group has no fresh stats, a random replica is picked
+ * for the group instead, which also refreshes the stats of the servers not being picked otherwise.
+ */
+public class AdaptiveRoutingTableBuilder implements RoutingTableBuilder {
+  private final ServerLatencyTracker _serverLatencyTracker;
+  private final Random _random = new Random();
+
+  // Set variable as volatile so all threads can get the up-to-date segment groups
+  private volatile List<SegmentGroup> _segmentGroups = Collections.emptyList();
+
+  public AdaptiveRoutingTableBuilder(ServerLatencyTracker serverLatencyTracker) {
+    _serverLatencyTracker = serverLatencyTracker;
+  }
+
+  @Override
+  public void init(Configuration configuration, TableConfig tableConfig, ZkHelixPropertyStore<ZNRecord> propertyStore) {
+  }
+
+  @Override
+  public void computeRoutingTableFromExternalView(String tableName, ExternalView externalView,
+      List<InstanceConfig> instanceConfigs) {
+    Map<List<String>, List<String>> serversToSegmentsMap = new HashMap<>();
+
+    RoutingTableInstancePruner instancePruner = new RoutingTableInstancePruner(instanceConfigs);
+    for (String segmentName : externalView.getPartitionSet()) {
+      // List of servers that are active and are serving the segment
+      List<String> servers = new ArrayList<>();
+      for (Map.Entry<String, String> entry : externalView.getStateMap(segmentName).entrySet()) {
+        String serverName = entry.getKey();
+        if (entry.getValue().equals(CommonConstants.Helix.StateModel.SegmentOnlineOfflineStateModel.ONLINE)
+            && !instancePruner.isInactive(serverName)) {
+          servers.add(serverName);
+        }
+      }
+      if (!servers.isEmpty()) {
+        Collections.sort(servers);
+        List<String> segments = serversToSegmentsMap.get(servers);
+        if (segments == null) {
+          segments = new ArrayList<>();
+          serversToSegmentsMap.put(servers, segments);
+        }
+        segments.add(segmentName);
+      }
+    }
+
+    List<SegmentGroup> segmentGroups = new ArrayList<>(serversToSegmentsMap.size());
+    for (Map.Entry<List<String>, List<String>> entry : serversToSegmentsMap.entrySet()) {
+      segmentGroups.add(new SegmentGroup(entry.getKey(), entry.getValue()));
+    }
+    _segmentGroups = segmentGroups;
+  }
+
+  @Override
+  public Map<String, List<String>> getRoutingTable(RoutingTableLookupRequest request) {
+    Map<String, List<String>> routingTable = new HashMap<>();
+    for (SegmentGroup segmentGroup : _segmentGroups) {
+      String server = selectServer(segmentGroup._servers);
+      List<String> segmentsForServer = routingTable.get(server);
+      if (segmentsForServer == null) {
+        segmentsForServer = new ArrayList<>(segmentGroup._segments);
+        routingTable.put(server, segmentsForServer);
+      } else {
+        segmentsForServer.addAll(segmentGroup._segments);
+      }
+    }
+    return routingTable;
+  }
+
+  /**
+   * Selects the server with the lowest score, or a random server if any server has no fresh stats.
+   */
+  private String selectServer(List<String> servers) {
+    int numServers = servers.size();
+    if (numServers == 1) {
+      return servers.get(0);
+    }
+    String selectedServer = null;
+    double minScore = Double.MAX_VALUE;
+    for (String server : servers) {
+      double score = _serverLatencyTracker.getScore(server);
+      if (score == ServerLatencyTracker.UNKNOWN_SCORE) {
+        return servers.get(_random.nextInt(numServers));
+      }
+      if (score < minScore) {
+        minScore = score;
+        selectedServer = server;
+      }
+    }
+    return selectedServer;
+  }
+
+  /**
+   * Routing tables are computed per query, so only return the one based on the current stats.
+   */
+  @Override
+  public List<Map<String, List<String>>> getRoutingTables() {
+    return Collections.singletonList(getRoutingTable(null));
+  }
+
+  private static class SegmentGroup {
+    private final List<String> _servers;
+    private final List<String> _segments;
+
+    private SegmentGroup(List<String> servers, List<String> segments) {
+      _servers = servers;
+      _segments = segments;
+    }
+  }
+}
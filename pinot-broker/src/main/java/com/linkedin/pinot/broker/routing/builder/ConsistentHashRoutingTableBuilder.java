@@ -0,0 +1,171 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.broker.routing.builder;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.linkedin.pinot.common.config.RoutingConfig;
+import com.linkedin.pinot.common.config.TableConfig;
+import com.linkedin.pinot.common.utils.CommonConstants;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.configuration.Configuration;
+import org.apache.helix.ZNRecord;
+import org.apache.helix.model.ExternalView;
+import org.apache.helix.model.InstanceConfig;
+import org.apache.helix.store.zk.ZkHelixPropertyStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Routing table builder that routes each segment to a deterministic preferred server, so that all the brokers send the
+ * queries for a segment to the same replica, and each server only keeps its own share of the segments warm in the page
+ * cache.
+ * <p>The preferred server of a segment is chosen with rendezvous hashing: the replicas serving the segment are ranked
+ * by the hash of (segment, server), and the highest ranked replica wins. Without the load bound, adding or removing
+ * a server only moves the segments ranked first on that server (minimal movement). To keep the load balanced, the
+ * number of segments assigned to each server is bounded by <code>loadFactor</code> times the average; once a server is
+ * full, the segment spills over to its next ranked replica. With the load bound, the guarantee is weaker: a change in
+ * the servers or their load can change which servers are full, and the resulting spill-overs can cascade to segments
+ * ranked first on other servers. A larger load factor makes such cascades rarer at the cost of a less even load.
+ * Segments are assigned in sorted order, so brokers with the same external view compute the same routing table.
+ * <p>The load factor is read from the routing table builder options in the table config (shared by all the brokers),
+ * and must be at least 1.
+ */
+public class ConsistentHashRoutingTableBuilder extends BaseRoutingTableBuilder {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConsistentHashRoutingTableBuilder.class);
+
+  public static final String LOAD_FACTOR_KEY = "loadFactor";
+  public static final double DEFAULT_LOAD_FACTOR = 1.25;
+
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+  private double _loadFactor = DEFAULT_LOAD_FACTOR;
+
+  @Override
+  public void init(Configuration configuration, TableConfig tableConfig, ZkHelixPropertyStore<ZNRecord> propertyStore) {
+    RoutingConfig routingConfig = tableConfig.getRoutingConfig();
+    if (routingConfig != null && routingConfig.getRoutingTableBuilderOptions() != null) {
+      String loadFactor = routingConfig.getRoutingTableBuilderOptions().get(LOAD_FACTOR_KEY);
+      if (loadFactor != null) {
+        try {
+          _loadFactor = Math.max(Double.parseDouble(loadFactor), 1.0);
+        } catch (NumberFormatException e) {
+          LOGGER.warn("Invalid load factor: {} for table: {}, using default: {}", loadFactor,
+              tableConfig.getTableName(), DEFAULT_LOAD_FACTOR);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void computeRoutingTableFromExternalView(String tableName, ExternalView externalView,
+      List<InstanceConfig> instanceConfigs) {
+    RoutingTableInstancePruner instancePruner = new RoutingTableInstancePruner(instanceConfigs);
+    List<String> segmentNames = new ArrayList<>(externalView.getPartitionSet());
+    Collections.sort(segmentNames);
+
+    // Servers ranked by preference for each segment
+    List<String> assignedSegments = new ArrayList<>(segmentNames.size());
+    List<List<String>> rankedServersList = new ArrayList<>(segmentNames.size());
+    Map<String, List<String>> routingTable = new HashMap<>();
+    for (String segmentName : segmentNames) {
+      // List of servers that are active and are serving the segment
+      List<String> servers = new ArrayList<>();
+      for (Map.Entry<String, String> entry : externalView.getStateMap(segmentName).entrySet()) {
+        String serverName = entry.getKey();
+        if (entry.getValue().equals(CommonConstants.Helix.StateModel.SegmentOnlineOfflineStateModel.ONLINE)
+            && !instancePruner.isInactive(serverName)) {
+          servers.add(serverName);
+        }
+      }
+      if (!servers.isEmpty()) {
+        assignedSegments.add(segmentName);
+        rankedServersList.add(rankServers(segmentName, servers));
+        for (String server : servers) {
+          if (!routingTable.containsKey(server)) {
+            routingTable.put(server, new ArrayList<String>());
+          }
+        }
+      }
+    }
+
+    // Assign each segment to its highest ranked server that is not full
+    int numSegments = assignedSegments.size();
+    if (numSegments > 0) {
+      int maxNumSegmentsPerServer = (int) Math.ceil(_loadFactor * numSegments / routingTable.size());
+      for (int i = 0; i < numSegments; i++) {
+        List<String> rankedServers = rankedServersList.get(i);
+        String selectedServer = null;
+        for (String server : rankedServers) {
+          if (routingTable.get(server).size() < maxNumSegmentsPerServer) {
+            selectedServer = server;
+            break;
+          }
+        }
+        if (selectedServer == null) {
+          // All the replicas are full, fall back to the least loaded one
+          selectedServer = rankedServers.get(0);
+          for (String server : rankedServers) {
+            if (routingTable.get(server).size() < routingTable.get(selectedServer).size()) {
+              selectedServer = server;
+            }
+          }
+        }
+        routingTable.get(selectedServer).add(assignedSegments.get(i));
+      }
+    }
+
+    // Drop the servers without any segment assigned
+    Map<String, List<String>> prunedRoutingTable = new HashMap<>();
+    for (Map.Entry<String, List<String>> entry : routingTable.entrySet()) {
+      if (!entry.getValue().isEmpty()) {
+        prunedRoutingTable.put(entry.getKey(), entry.getValue());
+      }
+    }
+    setRoutingTables(Collections.singletonList(prunedRoutingTable));
+  }
+
+  /**
+   * Ranks the servers for the given segment by descending rendezvous hash. Ties (practically impossible) are broken by
+   * server name so that the ranking is deterministic.
+   */
+  private static List<String> rankServers(String segmentName, List<String> servers) {
+    final Map<String, Long> hashes = new HashMap<>();
+    for (String server : servers) {
+      hashes.put(server, HASH_FUNCTION.newHasher()
+          .putString(segmentName, Charsets.UTF_8)
+          .putByte((byte) 0)
+          .putString(server, Charsets.UTF_8)
+          .hash()
+          .asLong());
+    }
+    Collections.sort(servers, new Comparator<String>() {
+      @Override
+      public int compare(String server1, String server2) {
+        int result = Long.compare(hashes.get(server2), hashes.get(server1));
+        return result != 0 ? result : server1.compareTo(server2);
+      }
+    });
+    return servers;
+  }
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.broker.requesthandler;
+
+import com.linkedin.pinot.common.exception.QueryException;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.util.Collections;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * Unit test for {@link BrokerResultCache}
+ */
+public class BrokerResultCacheTest {
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+  private static final String OFFLINE_TABLE_NAME = "myTable_OFFLINE";
+  private static final String REALTIME_TABLE_NAME = "myTable_REALTIME";
+
+  @Test
+  public void testOfflineTable() {
+    BrokerResultCache resultCache = new BrokerResultCache(10, Long.MAX_VALUE);
+    BrokerRequest brokerRequest = getBrokerRequest("SELECT COUNT(*) FROM myTable WHERE foo = 'bar'", OFFLINE_TABLE_NAME);
+
+    BrokerResultCache.CacheKey cacheKey = resultCache.getCacheKey(brokerRequest, null);
+    Assert.assertNull(resultCache.get(cacheKey));
+    resultCache.put(cacheKey, getBrokerResponse(100L));
+
+    // Same query compiled again should hit the cache, and modifying the returned response should not affect the cache
+    BrokerRequest sameBrokerRequest =
+        getBrokerRequest("SELECT COUNT(*) FROM myTable WHERE foo = 'bar'", OFFLINE_TABLE_NAME);
+    BrokerResponseNative cachedBrokerResponse = resultCache.get(resultCache.getCacheKey(sameBrokerRequest, null));
+    Assert.assertNotNull(cachedBrokerResponse);
+    Assert.assertEquals(cachedBrokerResponse.getNumDocsScanned(), 100L);
+    cachedBrokerResponse.setNumDocsScanned(200L);
+    Assert.assertEquals(resultCache.get(resultCache.getCacheKey(sameBrokerRequest, null)).getNumDocsScanned(), 100L);
+
+    // Different query should miss the cache
+    BrokerRequest differentBrokerRequest =
+        getBrokerRequest("SELECT COUNT(*) FROM myTable WHERE foo = 'baz'", OFFLINE_TABLE_NAME);
+    Assert.assertNull(resultCache.get(resultCache.getCacheKey(differentBrokerRequest, null)));
+
+    // Routing table change for another table should not invalidate the cache
+    resultCache.onRoutingTableChange(REALTIME_TABLE_NAME);
+    Assert.assertNotNull(resultCache.get(resultCache.getCacheKey(sameBrokerRequest, null)));
+
+    // Routing table change should invalidate the cache
+    resultCache.onRoutingTableChange(OFFLINE_TABLE_NAME);
+    Assert.assertEquals(resultCache.size(), 0L);
+    Assert.assertNull(resultCache.get(resultCache.getCacheKey(sameBrokerRequest, null)));
+  }
+
+  @Test
+  public void testStaleResponse() {
+    BrokerResultCache resultCache = new BrokerResultCache(10, Long.MAX_VALUE);
+    BrokerRequest brokerRequest = getBrokerRequest("SELECT COUNT(*) FROM myTable", OFFLINE_TABLE_NAME);
+
+    // Routing table changes while the query is being processed, the response should not be served
+    BrokerResultCache.CacheKey cacheKey = resultCache.getCacheKey(brokerRequest, null);
+    resultCache.onRoutingTableChange(OFFLINE_TABLE_NAME);
+    resultCache.put(cacheKey, getBrokerResponse(100L));
+    Assert.assertNull(resultCache.get(resultCache.getCacheKey(brokerRequest, null)));
+  }
+
+  @Test
+  public void testIncompleteResponse() {
+    BrokerResultCache resultCache = new BrokerResultCache(10, Long.MAX_VALUE);
+    BrokerRequest brokerRequest = getBrokerRequest("SELECT COUNT(*) FROM myTable", OFFLINE_TABLE_NAME);
+    BrokerResultCache.CacheKey cacheKey = resultCache.getCacheKey(brokerRequest, null);
+
+    BrokerResponseNative brokerResponse = getBrokerResponse(100L);
+    brokerResponse.setNumServersResponded(1);
+    resultCache.put(cacheKey, brokerResponse);
+    Assert.assertNull(resultCache.get(cacheKey));
+
+    brokerResponse = getBrokerResponse(100L);
+    brokerResponse.setExceptions(Collections.singletonList(QueryException.BROKER_GATHER_ERROR));
+    resultCache.put(cacheKey, brokerResponse);
+    Assert.assertNull(resultCache.get(cacheKey));
+  }
+
+  @Test
+  public void testRealtimeTtl()
+      throws InterruptedException {
+    BrokerResultCache resultCache = new BrokerResultCache(10, 50L);
+    BrokerRequest offlineBrokerRequest = getBrokerRequest("SELECT COUNT(*) FROM myTable", OFFLINE_TABLE_NAME);
+    BrokerRequest realtimeBrokerRequest = getBrokerRequest("SELECT COUNT(*) FROM myTable", REALTIME_TABLE_NAME);
+
+    BrokerResultCache.CacheKey hybridCacheKey = resultCache.getCacheKey(offlineBrokerRequest, realtimeBrokerRequest);
+    BrokerResultCache.CacheKey offlineCacheKey = resultCache.getCacheKey(offlineBrokerRequest, null);
+    resultCache.put(hybridCacheKey, getBrokerResponse(100L));
+    resultCache.put(offlineCacheKey, getBrokerResponse(200L));
+    Assert.assertEquals(resultCache.get(hybridCacheKey).getNumDocsScanned(), 100L);
+    Assert.assertEquals(resultCache.get(offlineCacheKey).getNumDocsScanned(), 200L);
+
+    // Only response involving realtime table should expire
+    Thread.sleep(100L);
+    Assert.assertNull(resultCache.get(hybridCacheKey));
+    Assert.assertEquals(resultCache.get(offlineCacheKey).getNumDocsScanned(), 200L);
+  }
+
+  private static BrokerRequest getBrokerRequest(String query, String tableNameWithType) {
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(query);
+    brokerRequest.getQuerySource().setTableName(tableNameWithType);
+    return brokerRequest;
+  }
+
+  private static BrokerResponseNative getBrokerResponse(long numDocsScanned) {
+    BrokerResponseNative brokerResponse = new BrokerResponseNative();
+    brokerResponse.setNumServersQueried(2);
+    brokerResponse.setNumServersResponded(2);
+    brokerResponse.setNumDocsScanned(numDocsScanned);
+    return brokerResponse;
+  }
+}
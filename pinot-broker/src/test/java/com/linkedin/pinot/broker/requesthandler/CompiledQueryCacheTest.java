@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.broker.requesthandler;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.pql.parsers.Pql2CompilationException;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * Unit test for {@link CompiledQueryCache}
+ */
+public class CompiledQueryCacheTest {
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+
+  // Pairs of queries sharing the same template
+  private static final String[][] QUERIES = new String[][]{
+      {"SELECT COUNT(*) FROM myTable WHERE foo = 'bar'", "SELECT COUNT(*) FROM myTable WHERE foo = 'baz'"},
+      {"SELECT SUM(met) FROM myTable WHERE foo = 1 AND bar > 2.5 GROUP BY baz TOP 10",
+          "SELECT SUM(met) FROM myTable WHERE foo = 007 AND bar > -3.0 GROUP BY baz TOP 10"},
+      {"SELECT * FROM myTable WHERE foo BETWEEN 10 AND 20 OR bar <= 'abc' LIMIT 5",
+          "SELECT * FROM myTable WHERE foo BETWEEN 'x' AND 'y' OR bar <= 'it''s' LIMIT 5"},
+      {"SELECT COUNT(*) FROM myTable WHERE foo IN ('a', 'b', 'c') AND bar NOT IN (1, 2)",
+          "SELECT COUNT(*) FROM myTable WHERE foo IN ('x', 'x', 'zzz') AND bar NOT IN (3, 4)"},
+      {"SELECT COUNT(*) FROM myTable WHERE REGEXP_LIKE(foo, 'a.*') AND bar <> \"b\"",
+          "SELECT COUNT(*) FROM myTable WHERE REGEXP_LIKE(foo, '[0-9]+') AND bar <> \"c\"\"d\""},
+      {"SELECT MAX(met) FROM myTable WHERE 5 < foo GROUP BY bar HAVING MAX(met) > 10",
+          "SELECT MAX(met) FROM myTable WHERE 6 < foo GROUP BY bar HAVING MAX(met) > 10"}
+  };
+
+  @Test
+  public void testCompiledQueriesMatch() {
+    for (boolean splitInClause : new boolean[]{false, true}) {
+      CompiledQueryCache compiledQueryCache = new CompiledQueryCache(100, splitInClause, null);
+      for (String[] queries : QUERIES) {
+        for (String query : queries) {
+          // Compile twice so that the second compilation is served from the cache
+          for (int i = 0; i < 2; i++) {
+            BrokerRequest brokerRequest = compiledQueryCache.compileToBrokerRequest(query);
+            Assert.assertEquals(brokerRequest, COMPILER.compileToBrokerRequest(query, splitInClause), query);
+          }
+          Assert.assertTrue(compiledQueryCache.isTemplateCached(query), query);
+        }
+      }
+      Assert.assertEquals(compiledQueryCache.size(), QUERIES.length);
+    }
+  }
+
+  @Test
+  public void testQueryTemplate() {
+    CompiledQueryCache.QueryTemplate queryTemplate = CompiledQueryCache.getQueryTemplate(
+        "SELECT COUNT(*) FROM myTable WHERE foo = 'bar' AND baz > 1.50 GROUP BY foo TOP 5 LIMIT 10");
+    Assert.assertNotNull(queryTemplate);
+    Assert.assertEquals(queryTemplate._template,
+        "SELECT COUNT(*) FROM myTable WHERE foo = '\u00010\u0001' AND baz > '\u00011\u0001' GROUP BY foo TOP 5 LIMIT 10");
+    Assert.assertEquals(queryTemplate._values.size(), 2);
+    Assert.assertEquals(queryTemplate._values.get(0), "bar");
+    Assert.assertEquals(queryTemplate._values.get(1), "1.5");
+
+    // Different constants outside of the WHERE clause give different templates
+    Assert.assertFalse(CompiledQueryCache.getQueryTemplate("SELECT * FROM myTable WHERE foo = 1 LIMIT 10")._template
+        .equals(CompiledQueryCache.getQueryTemplate("SELECT * FROM myTable WHERE foo = 1 LIMIT 20")._template));
+  }
+
+  @Test
+  public void testModifyReturnedBrokerRequest() {
+    CompiledQueryCache compiledQueryCache = new CompiledQueryCache(100, false, null);
+    String query = "SELECT COUNT(*) FROM myTable WHERE foo = 'bar'";
+    compiledQueryCache.compileToBrokerRequest(query);
+    BrokerRequest brokerRequest = compiledQueryCache.compileToBrokerRequest(query);
+    brokerRequest.getFilterQuery().getValue().set(0, "baz");
+    brokerRequest.setEnableTrace(true);
+    Assert.assertEquals(compiledQueryCache.compileToBrokerRequest(query), COMPILER.compileToBrokerRequest(query));
+  }
+
+  @Test(expectedExceptions = Pql2CompilationException.class)
+  public void testInvalidQuery() {
+    new CompiledQueryCache(100, false, null).compileToBrokerRequest("SELECT COUNT(*) FROM myTable WHERE foo = ");
+  }
+}
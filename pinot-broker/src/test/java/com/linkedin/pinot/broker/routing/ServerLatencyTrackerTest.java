@@ -0,0 +1,72 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.broker.routing;
+
+import java.util.Arrays;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class ServerLatencyTrackerTest {
+  private static final String SERVER = "Server_1.2.3.4_1234";
+
+  @Test
+  public void testScore() {
+    ServerLatencyTracker serverLatencyTracker = new ServerLatencyTracker(0.5, 1000L);
+    Assert.assertEquals(serverLatencyTracker.getScore(SERVER, 0L), ServerLatencyTracker.UNKNOWN_SCORE);
+
+    // No response received yet
+    serverLatencyTracker.recordRequestsSent(Arrays.asList(SERVER, SERVER));
+    Assert.assertEquals(serverLatencyTracker.getNumInFlightRequests(SERVER), 2);
+    Assert.assertEquals(serverLatencyTracker.getScore(SERVER, 100L), ServerLatencyTracker.UNKNOWN_SCORE);
+
+    // First response initializes the EWMA
+    serverLatencyTracker.recordResponse(SERVER, 99L, 100L);
+    Assert.assertEquals(serverLatencyTracker.getNumInFlightRequests(SERVER), 1);
+    Assert.assertEquals(serverLatencyTracker.getScore(SERVER, 100L), 100.0 * 2);
+
+    // EWMA: 0.5 * 199 + 0.5 * 99 = 149
+    serverLatencyTracker.recordResponse(SERVER, 199L, 200L);
+    Assert.assertEquals(serverLatencyTracker.getNumInFlightRequests(SERVER), 0);
+    Assert.assertEquals(serverLatencyTracker.getScore(SERVER, 200L), 150.0);
+
+    // Unexpected response should not make the in-flight requests negative
+    serverLatencyTracker.recordResponse(SERVER, 149L, 300L);
+    Assert.assertEquals(serverLatencyTracker.getNumInFlightRequests(SERVER), 0);
+    Assert.assertEquals(serverLatencyTracker.getScore(SERVER, 300L), 150.0);
+
+    // Stats expire
+    Assert.assertEquals(serverLatencyTracker.getScore(SERVER, 1300L), 150.0);
+    Assert.assertEquals(serverLatencyTracker.getScore(SERVER, 1301L), ServerLatencyTracker.UNKNOWN_SCORE);
+  }
+
+  @Test
+  public void testRequestFinished() {
+    ServerLatencyTracker serverLatencyTracker = new ServerLatencyTracker(0.5, 1000L);
+    serverLatencyTracker.recordRequestsSent(Arrays.asList(SERVER, SERVER));
+    serverLatencyTracker.recordResponse(SERVER, 99L, 100L);
+    Assert.assertEquals(serverLatencyTracker.getScore(SERVER, 100L), 100.0 * 2);
+
+    // Request finished without response (e.g. served by hedged request) should not update the EWMA
+    serverLatencyTracker.recordRequestFinished(SERVER);
+    Assert.assertEquals(serverLatencyTracker.getNumInFlightRequests(SERVER), 0);
+    Assert.assertEquals(serverLatencyTracker.getScore(SERVER, 200L), 100.0);
+
+    // Should not make the in-flight requests negative
+    serverLatencyTracker.recordRequestFinished(SERVER);
+    Assert.assertEquals(serverLatencyTracker.getNumInFlightRequests(SERVER), 0);
+  }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.broker.routing.builder;
+
+import com.linkedin.pinot.broker.routing.ServerLatencyTracker;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.helix.model.ExternalView;
+import org.apache.helix.model.InstanceConfig;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class AdaptiveRoutingTableBuilderTest {
+  private static final String SERVER_1 = "Server_1.2.3.4_1234";
+  private static final String SERVER_2 = "Server_1.2.3.5_2345";
+  private static final String SERVER_3 = "Server_1.2.3.6_3456";
+
+  @Test
+  public void testRouteToFastestReplica() {
+    ServerLatencyTracker serverLatencyTracker = new ServerLatencyTracker(0.5, 60_000L);
+    AdaptiveRoutingTableBuilder routingTableBuilder = buildRoutingTableBuilder(serverLatencyTracker);
+
+    // No stats yet, all segments should still be covered
+    for (int i = 0; i < 10; i++) {
+      checkAllSegmentsCovered(routingTableBuilder.getRoutingTable(null));
+    }
+
+    // Server 2 is the fastest for segment group of servers 1, 2, 3
+    List<String> allServers = Arrays.asList(SERVER_1, SERVER_2, SERVER_3);
+    serverLatencyTracker.recordRequestsSent(allServers);
+    serverLatencyTracker.recordResponse(SERVER_1, 100L);
+    serverLatencyTracker.recordResponse(SERVER_2, 10L);
+    serverLatencyTracker.recordResponse(SERVER_3, 50L);
+    Map<String, List<String>> routingTable = routingTableBuilder.getRoutingTable(null);
+    checkAllSegmentsCovered(routingTable);
+    Assert.assertEquals(routingTable.keySet(), new HashSet<>(Arrays.asList(SERVER_2, SERVER_3)));
+    Assert.assertEquals(new HashSet<>(routingTable.get(SERVER_2)),
+        new HashSet<>(Arrays.asList("segment_1", "segment_2", "segment_3")));
+    Assert.assertEquals(routingTable.get(SERVER_3), Arrays.asList("segment_4"));
+
+    // Server 2 gets loaded with in-flight requests, server 3 becomes the fastest
+    serverLatencyTracker.recordRequestsSent(Arrays.asList(SERVER_2, SERVER_2, SERVER_2, SERVER_2, SERVER_2));
+    routingTable = routingTableBuilder.getRoutingTable(null);
+    checkAllSegmentsCovered(routingTable);
+    Assert.assertEquals(routingTable.keySet(), new HashSet<>(Arrays.asList(SERVER_3)));
+  }
+
+  @Test
+  public void testRandomWithStaleStats() {
+    // Stats expire immediately
+    ServerLatencyTracker serverLatencyTracker = new ServerLatencyTracker(0.5, -1L);
+    AdaptiveRoutingTableBuilder routingTableBuilder = buildRoutingTableBuilder(serverLatencyTracker);
+    serverLatencyTracker.recordRequestsSent(Arrays.asList(SERVER_1, SERVER_2, SERVER_3));
+    serverLatencyTracker.recordResponse(SERVER_1, 100L);
+    serverLatencyTracker.recordResponse(SERVER_2, 10L);
+    serverLatencyTracker.recordResponse(SERVER_3, 50L);
+
+    // Segment group of servers 1, 2, 3 should be routed to different servers
+    Set<String> selectedServers = new HashSet<>();
+    for (int i = 0; i < 100; i++) {
+      Map<String, List<String>> routingTable = routingTableBuilder.getRoutingTable(null);
+      checkAllSegmentsCovered(routingTable);
+      for (Map.Entry<String, List<String>> entry : routingTable.entrySet()) {
+        if (entry.getValue().contains("segment_1")) {
+          selectedServers.add(entry.getKey());
+        }
+      }
+    }
+    Assert.assertTrue(selectedServers.size() > 1);
+  }
+
+  private static AdaptiveRoutingTableBuilder buildRoutingTableBuilder(ServerLatencyTracker serverLatencyTracker) {
+    ExternalView externalView = new ExternalView("dummy");
+    for (String segment : Arrays.asList("segment_1", "segment_2", "segment_3")) {
+      externalView.setState(segment, SERVER_1, "ONLINE");
+      externalView.setState(segment, SERVER_2, "ONLINE");
+      externalView.setState(segment, SERVER_3, "ONLINE");
+    }
+    externalView.setState("segment_4", SERVER_3, "ONLINE");
+    externalView.setState("segment_4", SERVER_2, "OFFLINE");
+    List<InstanceConfig> instanceConfigs = new ArrayList<>();
+    instanceConfigs.add(new InstanceConfig(SERVER_1));
+    instanceConfigs.add(new InstanceConfig(SERVER_2));
+    instanceConfigs.add(new InstanceConfig(SERVER_3));
+
+    AdaptiveRoutingTableBuilder routingTableBuilder = new AdaptiveRoutingTableBuilder(serverLatencyTracker);
+    routingTableBuilder.computeRoutingTableFromExternalView("dummy", externalView, instanceConfigs);
+    return routingTableBuilder;
+  }
+
+  private static void checkAllSegmentsCovered(Map<String, List<String>> routingTable) {
+    List<String> segments = new ArrayList<>();
+    for (List<String> segmentsForServer : routingTable.values()) {
+      segments.addAll(segmentsForServer);
+    }
+    Assert.assertEquals(segments.size(), 4);
+    Assert.assertEquals(new HashSet<>(segments),
+        new HashSet<>(Arrays.asList("segment_1", "segment_2", "segment_3", "segment_4")));
+  }
+}
@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.broker.routing.builder;
+
+import com.linkedin.pinot.common.config.RoutingConfig;
+import com.linkedin.pinot.common.config.TableConfig;
+import com.linkedin.pinot.common.utils.CommonConstants;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.helix.model.ExternalView;
+import org.apache.helix.model.InstanceConfig;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class ConsistentHashRoutingTableBuilderTest {
+  private static final String TABLE_NAME = "testTable_OFFLINE";
+  private static final int NUM_SERVERS = 5;
+  private static final int NUM_REPLICAS = 3;
+  private static final int NUM_SEGMENTS = 200;
+
+  @Test
+  public void testDeterministicBalancedRouting() throws Exception {
+    List<String> servers = getServers(NUM_SERVERS);
+
+    // Brokers seeing the same external view (built in a different order) should compute the same routing table
+    Map<String, List<String>> routingTable = buildRoutingTable(null, buildExternalView(servers, false), servers);
+    Map<String, List<String>> otherRoutingTable = buildRoutingTable(null, buildExternalView(servers, true), servers);
+    Assert.assertEquals(otherRoutingTable, routingTable);
+    checkRoutingTable(routingTable, servers);
+
+    // Bounded load
+    int maxNumSegmentsPerServer =
+        (int) Math.ceil(ConsistentHashRoutingTableBuilder.DEFAULT_LOAD_FACTOR * NUM_SEGMENTS / NUM_SERVERS);
+    for (List<String> segments : routingTable.values()) {
+      Assert.assertTrue(segments.size() <= maxNumSegmentsPerServer);
+    }
+  }
+
+  @Test
+  public void testServerRemoval() throws Exception {
+    // Use a large load factor so that no segment spills over
+    String loadFactor = "100";
+    List<String> servers = getServers(NUM_SERVERS);
+    Map<String, List<String>> routingTable = buildRoutingTable(loadFactor, buildExternalView(servers, false), servers);
+    checkRoutingTable(routingTable, servers);
+
+    // Disable one server, only the segments routed to it should move
+    String removedServer = servers.get(0);
+    List<InstanceConfig> instanceConfigs = new ArrayList<>();
+    for (String server : servers) {
+      InstanceConfig instanceConfig = new InstanceConfig(server);
+      instanceConfig.setInstanceEnabled(!server.equals(removedServer));
+      instanceConfigs.add(instanceConfig);
+    }
+    ConsistentHashRoutingTableBuilder routingTableBuilder = createRoutingTableBuilder(loadFactor);
+    routingTableBuilder.computeRoutingTableFromExternalView(TABLE_NAME, buildExternalView(servers, false),
+        instanceConfigs);
+    Map<String, List<String>> newRoutingTable = routingTableBuilder.getRoutingTable(null);
+    Assert.assertFalse(newRoutingTable.containsKey(removedServer));
+    checkRoutingTable(newRoutingTable, servers);
+    for (Map.Entry<String, List<String>> entry : routingTable.entrySet()) {
+      String server = entry.getKey();
+      if (!server.equals(removedServer)) {
+        Assert.assertTrue(newRoutingTable.get(server).containsAll(entry.getValue()));
+      }
+    }
+  }
+
+  private static List<String> getServers(int numServers) {
+    List<String> servers = new ArrayList<>(numServers);
+    for (int i = 0; i < numServers; i++) {
+      servers.add("Server_1.2.3." + i + "_1234");
+    }
+    return servers;
+  }
+
+  /**
+   * Segment i is served by servers i, i + 1, ..., i + NUM_REPLICAS - 1 (modulo the number of servers).
+   */
+  private static ExternalView buildExternalView(List<String> servers, boolean reversed) {
+    ExternalView externalView = new ExternalView(TABLE_NAME);
+    int numServers = servers.size();
+    for (int i = 0; i < NUM_SEGMENTS; i++) {
+      int segmentId = reversed ? NUM_SEGMENTS - 1 - i : i;
+      for (int j = 0; j < NUM_REPLICAS; j++) {
+        int serverId = reversed ? NUM_REPLICAS - 1 - j : j;
+        externalView.setState("segment_" + segmentId, servers.get((segmentId + serverId) % numServers), "ONLINE");
+      }
+    }
+    return externalView;
+  }
+
+  private static ConsistentHashRoutingTableBuilder createRoutingTableBuilder(String loadFactor) throws Exception {
+    RoutingConfig routingConfig = new RoutingConfig();
+    routingConfig.setRoutingTableBuilderName("ConsistentHash");
+    if (loadFactor != null) {
+      routingConfig.setRoutingTableBuilderOptions(
+          Collections.singletonMap(ConsistentHashRoutingTableBuilder.LOAD_FACTOR_KEY, loadFactor));
+    }
+    TableConfig tableConfig = new TableConfig.Builder(CommonConstants.Helix.TableType.OFFLINE).setTableName(TABLE_NAME)
+        .setRoutingConfig(routingConfig)
+        .build();
+    ConsistentHashRoutingTableBuilder routingTableBuilder = new ConsistentHashRoutingTableBuilder();
+    routingTableBuilder.init(new BaseConfiguration(), tableConfig, null);
+    return routingTableBuilder;
+  }
+
+  private static Map<String, List<String>> buildRoutingTable(String loadFactor, ExternalView externalView,
+      List<String> servers) throws Exception {
+    List<InstanceConfig> instanceConfigs = new ArrayList<>();
+    for (String server : servers) {
+      instanceConfigs.add(new InstanceConfig(server));
+    }
+    ConsistentHashRoutingTableBuilder routingTableBuilder = createRoutingTableBuilder(loadFactor);
+    routingTableBuilder.computeRoutingTableFromExternalView(TABLE_NAME, externalView, instanceConfigs);
+    Assert.assertEquals(routingTableBuilder.getRoutingTables().size(), 1);
+    return routingTableBuilder.getRoutingTable(null);
+  }
+
+  /**
+   * Checks that each segment is routed exactly once, to a server serving it.
+   */
+  private static void checkRoutingTable(Map<String, List<String>> routingTable, List<String> servers) {
+    Map<String, String> segmentToServerMap = new HashMap<>();
+    for (Map.Entry<String, List<String>> entry : routingTable.entrySet()) {
+      for (String segment : entry.getValue()) {
+        Assert.assertNull(segmentToServerMap.put(segment, entry.getKey()));
+      }
+    }
+    Assert.assertEquals(segmentToServerMap.size(), NUM_SEGMENTS);
+    int numServers = servers.size();
+    for (int i = 0; i < NUM_SEGMENTS; i++) {
+      Set<String> replicas = new HashSet<>();
+      for (int j = 0; j < NUM_REPLICAS; j++) {
+        replicas.add(servers.get((i + j) % numServers));
+      }
+      Assert.assertTrue(replicas.contains(segmentToServerMap.get("segment_" + i)));
+    }
+  }
+}
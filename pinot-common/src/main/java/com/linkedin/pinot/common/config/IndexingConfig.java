@@ -31,6 +31,7 @@ public class IndexingConfig {
   private static final Logger LOGGER = LoggerFactory.getLogger(IndexingConfig.class);
 
   private List<String> _invertedIndexColumns;
+  private List<String> _rangeIndexColumns;
   private boolean _autoGeneratedInvertedIndex;
   private List<String> _sortedColumn = new ArrayList<>();
   private String _loadMode;
@@ -50,6 +51,14 @@ public class IndexingConfig {
     _invertedIndexColumns = invertedIndexColumns;
   }
 
+  public List<String> getRangeIndexColumns() {
+    return _rangeIndexColumns;
+  }
+
+  public void setRangeIndexColumns(List<String> rangeIndexColumns) {
+    _rangeIndexColumns = rangeIndexColumns;
+  }
+
   public boolean isAutoGeneratedInvertedIndex() {
     return _autoGeneratedInvertedIndex;
   }
@@ -41,6 +41,19 @@ public class StarTreeIndexSpec {
 
   private boolean _excludeSkipMaterializationDimensionsForStarTreeIndex;
 
+  /**
+   * Metrics (including HLL derived metrics) to aggregate in the star tree for SUM and FASTHLL (if null or empty, all
+   * metrics). Together with the quantile digest and hyper log log columns below, this is the function set of the star
+   * tree, so that additional star trees only aggregate the metrics queried by their dashboards.
+   */
+  private Set<String> _aggregatedMetrics;
+
+  /** Metrics for which to store pre-aggregated quantile digests, so that PERCENTILEEST can use the star tree. */
+  private Set<String> _percentileEstColumns;
+
+  /** Metrics for which to store pre-aggregated hyper log logs, so that DISTINCTCOUNTHLL can use the star tree. */
+  private Set<String> _distinctCountHllColumns;
+
   private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
   public StarTreeIndexSpec() {
@@ -99,6 +112,30 @@ public class StarTreeIndexSpec {
     _excludeSkipMaterializationDimensionsForStarTreeIndex = excludeSkipMaterializationDimensionsForStarTreeIndex;
   }
 
+  public Set<String> getAggregatedMetrics() {
+    return _aggregatedMetrics;
+  }
+
+  public void setAggregatedMetrics(Set<String> aggregatedMetrics) {
+    _aggregatedMetrics = aggregatedMetrics;
+  }
+
+  public Set<String> getPercentileEstColumns() {
+    return _percentileEstColumns;
+  }
+
+  public void setPercentileEstColumns(Set<String> percentileEstColumns) {
+    _percentileEstColumns = percentileEstColumns;
+  }
+
+  public Set<String> getDistinctCountHllColumns() {
+    return _distinctCountHllColumns;
+  }
+
+  public void setDistinctCountHllColumns(Set<String> distinctCountHllColumns) {
+    _distinctCountHllColumns = distinctCountHllColumns;
+  }
+
   @Override
   public String toString() {
     return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
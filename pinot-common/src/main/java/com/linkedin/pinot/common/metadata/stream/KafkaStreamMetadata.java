@@ -46,12 +46,14 @@ public class KafkaStreamMetadata implements StreamMetadata {
   private String _consumerFactoryName;
   private final long _kafkaConnectionTimeoutMillis;
   private final int _kafkaFetchTimeoutMillis;
+  private final int _kafkaDecoderNumThreads;
   private final Map<String, String> _decoderProperties = new HashMap<String, String>();
   private final Map<String, String> _kafkaConsumerProperties = new HashMap<String, String>();
   private final Map<String, String> _streamConfigMap = new HashMap<String, String>();
 
   private static final long DEFAULT_KAFKA_CONNECTION_TIMEOUT_MILLIS = 30000L;
   private static final int DEFAULT_KAFKA_FETCH_TIMEOUT_MILLIS = 5000;
+  private static final int DEFAULT_KAFKA_DECODER_NUM_THREADS = 0;
 
   public KafkaStreamMetadata(Map<String, String> streamConfigMap) {
     _zkBrokerUrl =
@@ -121,6 +123,22 @@ public class KafkaStreamMetadata implements StreamMetadata {
     }
     _kafkaFetchTimeoutMillis = kafkaFetchTimeoutMillis;
 
+    final String kafkaDecoderNumThreadsPropertyKey = StringUtil.join(".", Helix.DataSource.STREAM_PREFIX,
+        Helix.DataSource.Realtime.Kafka.KAFKA_DECODER_NUM_THREADS);
+    int kafkaDecoderNumThreads;
+    if (streamConfigMap.containsKey(kafkaDecoderNumThreadsPropertyKey)) {
+      try {
+        kafkaDecoderNumThreads = Integer.parseInt(streamConfigMap.get(kafkaDecoderNumThreadsPropertyKey));
+      } catch (Exception e) {
+        LOGGER.warn("Caught exception while parsing the Kafka decoder number of threads, defaulting to {}",
+            DEFAULT_KAFKA_DECODER_NUM_THREADS, e);
+        kafkaDecoderNumThreads = DEFAULT_KAFKA_DECODER_NUM_THREADS;
+      }
+    } else {
+      kafkaDecoderNumThreads = DEFAULT_KAFKA_DECODER_NUM_THREADS;
+    }
+    _kafkaDecoderNumThreads = kafkaDecoderNumThreads;
+
     for (String key : streamConfigMap.keySet()) {
       if (key.startsWith(CommonConstants.Helix.DataSource.STREAM_PREFIX + ".")) {
         _streamConfigMap.put(key, streamConfigMap.get(key));
@@ -154,6 +172,10 @@ public class KafkaStreamMetadata implements StreamMetadata {
     return _kafkaFetchTimeoutMillis;
   }
 
+  public int getKafkaDecoderNumThreads() {
+    return _kafkaDecoderNumThreads;
+  }
+
   public String getKafkaTopicName() {
     return _kafkaTopicName;
   }
@@ -74,11 +74,24 @@ public enum BrokerMeter implements AbstractMetrics.Meter {
 
   REQUEST_DROPPED_DUE_TO_ACCESS_ERROR("requestsDropped", false),
 
+  // Number of hedged requests re-sent to another replica because the server was slow to respond, and number of hedged
+  // requests whose response arrived before the one from the original server
+  HEDGED_REQUESTS("requests", false),
+  HEDGED_REQUEST_WINS("requests", false),
+
   // Number of queries served by LLC and HLC routing tables
   LLC_QUERY_COUNT("queries", false),
   HLC_QUERY_COUNT("queries", false),
 
-  ROUTING_TABLE_REBUILD_FAILURES("failures", false);
+  ROUTING_TABLE_REBUILD_FAILURES("failures", false),
+
+  // Number of queries served from and missed in the broker result cache
+  RESULT_CACHE_HITS("queries", false),
+  RESULT_CACHE_MISSES("queries", false),
+
+  // Number of queries compiled from and missed in the compiled query cache
+  COMPILED_QUERY_CACHE_HITS("queries", true),
+  COMPILED_QUERY_CACHE_MISSES("queries", true);
 
   private final String brokerMeterName;
   private final String unit;
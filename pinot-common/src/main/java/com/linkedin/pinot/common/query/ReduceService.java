@@ -45,4 +45,16 @@ public interface ReduceService<T extends BrokerResponse> {
   @Nonnull
   T reduceOnDataTable(@Nonnull BrokerRequest brokerRequest, @Nonnull Map<ServerInstance, DataTable> instanceResponseMap,
       @Nullable BrokerMetrics brokerMetrics);
+
+  /**
+   * Get a streaming reducer which reduces data tables one at a time as they are gathered from server instances.
+   * <p>The result is the same as calling {@link #reduceOnDataTable(BrokerRequest, Map, BrokerMetrics)} on all the data
+   * tables reduced.
+   *
+   * @param brokerRequest broker request.
+   * @param brokerMetrics broker metrics to track execution statistics.
+   * @return streaming reducer for the query.
+   */
+  @Nonnull
+  StreamingReducer<T> getStreamingReducer(@Nonnull BrokerRequest brokerRequest, @Nullable BrokerMetrics brokerMetrics);
 }
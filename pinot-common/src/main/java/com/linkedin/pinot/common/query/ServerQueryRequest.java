@@ -40,6 +40,7 @@ public class ServerQueryRequest {
   private final TimerContext _timerContext;
 
   private int _segmentCountAfterPruning = -1;
+  private long _numDocsAfterPruning = -1;
 
   public ServerQueryRequest(@Nonnull InstanceRequest instanceRequest, @Nonnull ServerMetrics serverMetrics) {
     _instanceRequest = instanceRequest;
@@ -110,4 +111,18 @@ public class ServerQueryRequest {
   public void setSegmentCountAfterPruning(int segmentCountAfterPruning) {
     _segmentCountAfterPruning = segmentCountAfterPruning;
   }
+
+  /**
+   * Get the total number of docs in the segments remaining after pruning.
+   */
+  public long getNumDocsAfterPruning() {
+    return _numDocsAfterPruning;
+  }
+
+  /**
+   * Set the total number of docs in the segments remaining after pruning.
+   */
+  public void setNumDocsAfterPruning(long numDocsAfterPruning) {
+    _numDocsAfterPruning = numDocsAfterPruning;
+  }
 }
@@ -0,0 +1,49 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.query;
+
+import com.linkedin.pinot.common.response.BrokerResponse;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.utils.DataTable;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+
+/**
+ * Interface for incrementally reducing responses from a set of servers for one query, as soon as each response arrives.
+ * <p>Data tables can be reduced one at a time in any order, and the broker response is built after all data tables
+ * have been reduced.
+ * @param <T> type of broker response.
+ */
+@NotThreadSafe
+public interface StreamingReducer<T extends BrokerResponse> {
+
+  /**
+   * Merge one data table into the running reduce state.
+   *
+   * @param serverInstance server instance the data table comes from.
+   * @param dataTable data table to be merged.
+   */
+  void reduce(@Nonnull ServerInstance serverInstance, @Nonnull DataTable dataTable);
+
+  /**
+   * Build the broker response from all the data tables reduced so far. Should be called only once.
+   *
+   * @return broker response.
+   */
+  @Nonnull
+  T getBrokerResponse();
+}
@@ -48,6 +48,7 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
   private static final org.apache.thrift.protocol.TField SEARCH_SEGMENTS_FIELD_DESC = new org.apache.thrift.protocol.TField("searchSegments", org.apache.thrift.protocol.TType.LIST, (short)3);
   private static final org.apache.thrift.protocol.TField ENABLE_TRACE_FIELD_DESC = new org.apache.thrift.protocol.TField("enableTrace", org.apache.thrift.protocol.TType.BOOL, (short)4);
   private static final org.apache.thrift.protocol.TField BROKER_ID_FIELD_DESC = new org.apache.thrift.protocol.TField("brokerId", org.apache.thrift.protocol.TType.STRING, (short)5);
+  private static final org.apache.thrift.protocol.TField DATA_TABLE_VERSION_FIELD_DESC = new org.apache.thrift.protocol.TField("dataTableVersion", org.apache.thrift.protocol.TType.I32, (short)6);
 
   private static final Map<Class<? extends IScheme>, SchemeFactory> schemes = new HashMap<Class<? extends IScheme>, SchemeFactory>();
   static {
@@ -60,6 +61,7 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
   private List<String> searchSegments; // optional
   private boolean enableTrace; // optional
   private String brokerId; // optional
+  private int dataTableVersion; // optional
 
   /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
   public enum _Fields implements org.apache.thrift.TFieldIdEnum {
@@ -67,7 +69,8 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
     QUERY((short)2, "query"),
     SEARCH_SEGMENTS((short)3, "searchSegments"),
     ENABLE_TRACE((short)4, "enableTrace"),
-    BROKER_ID((short)5, "brokerId");
+    BROKER_ID((short)5, "brokerId"),
+    DATA_TABLE_VERSION((short)6, "dataTableVersion");
 
     private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
 
@@ -92,6 +95,8 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
           return ENABLE_TRACE;
         case 5: // BROKER_ID
           return BROKER_ID;
+        case 6: // DATA_TABLE_VERSION
+          return DATA_TABLE_VERSION;
         default:
           return null;
       }
@@ -134,8 +139,9 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
   // isset id assignments
   private static final int __REQUESTID_ISSET_ID = 0;
   private static final int __ENABLETRACE_ISSET_ID = 1;
+  private static final int __DATATABLEVERSION_ISSET_ID = 2;
   private byte __isset_bitfield = 0;
-  private static final _Fields optionals[] = {_Fields.SEARCH_SEGMENTS,_Fields.ENABLE_TRACE,_Fields.BROKER_ID};
+  private static final _Fields optionals[] = {_Fields.SEARCH_SEGMENTS,_Fields.ENABLE_TRACE,_Fields.BROKER_ID,_Fields.DATA_TABLE_VERSION};
   public static final Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;
   static {
     Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
@@ -150,6 +156,8 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
         new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.BOOL)));
     tmpMap.put(_Fields.BROKER_ID, new org.apache.thrift.meta_data.FieldMetaData("brokerId", org.apache.thrift.TFieldRequirementType.OPTIONAL, 
         new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING)));
+    tmpMap.put(_Fields.DATA_TABLE_VERSION, new org.apache.thrift.meta_data.FieldMetaData("dataTableVersion", org.apache.thrift.TFieldRequirementType.OPTIONAL, 
+        new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.I32)));
     metaDataMap = Collections.unmodifiableMap(tmpMap);
     org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(InstanceRequest.class, metaDataMap);
   }
@@ -184,6 +192,7 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
     if (other.isSetBrokerId()) {
       this.brokerId = other.brokerId;
     }
+    this.dataTableVersion = other.dataTableVersion;
   }
 
   public InstanceRequest deepCopy() {
@@ -199,6 +208,8 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
     setEnableTraceIsSet(false);
     this.enableTrace = false;
     this.brokerId = null;
+    setDataTableVersionIsSet(false);
+    this.dataTableVersion = 0;
   }
 
   public long getRequestId() {
@@ -329,6 +340,28 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
     }
   }
 
+  public int getDataTableVersion() {
+    return this.dataTableVersion;
+  }
+
+  public void setDataTableVersion(int dataTableVersion) {
+    this.dataTableVersion = dataTableVersion;
+    setDataTableVersionIsSet(true);
+  }
+
+  public void unsetDataTableVersion() {
+    __isset_bitfield = EncodingUtils.clearBit(__isset_bitfield, __DATATABLEVERSION_ISSET_ID);
+  }
+
+  /** Returns true if field dataTableVersion is set (has been assigned a value) and false otherwise */
+  public boolean isSetDataTableVersion() {
+    return EncodingUtils.testBit(__isset_bitfield, __DATATABLEVERSION_ISSET_ID);
+  }
+
+  public void setDataTableVersionIsSet(boolean value) {
+    __isset_bitfield = EncodingUtils.setBit(__isset_bitfield, __DATATABLEVERSION_ISSET_ID, value);
+  }
+
   public void setFieldValue(_Fields field, Object value) {
     switch (field) {
     case REQUEST_ID:
@@ -371,6 +404,14 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
       }
       break;
 
+    case DATA_TABLE_VERSION:
+      if (value == null) {
+        unsetDataTableVersion();
+      } else {
+        setDataTableVersion((Integer)value);
+      }
+      break;
+
     }
   }
 
@@ -391,6 +432,9 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
     case BROKER_ID:
       return getBrokerId();
 
+    case DATA_TABLE_VERSION:
+      return Integer.valueOf(getDataTableVersion());
+
     }
     throw new IllegalStateException();
   }
@@ -412,6 +456,8 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
       return isSetEnableTrace();
     case BROKER_ID:
       return isSetBrokerId();
+    case DATA_TABLE_VERSION:
+      return isSetDataTableVersion();
     }
     throw new IllegalStateException();
   }
@@ -474,6 +520,15 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
         return false;
     }
 
+    boolean this_present_dataTableVersion = true && this.isSetDataTableVersion();
+    boolean that_present_dataTableVersion = true && that.isSetDataTableVersion();
+    if (this_present_dataTableVersion || that_present_dataTableVersion) {
+      if (!(this_present_dataTableVersion && that_present_dataTableVersion))
+        return false;
+      if (this.dataTableVersion != that.dataTableVersion)
+        return false;
+    }
+
     return true;
   }
 
@@ -506,6 +561,11 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
     if (present_brokerId)
       list.add(brokerId);
 
+    boolean present_dataTableVersion = true && (isSetDataTableVersion());
+    list.add(present_dataTableVersion);
+    if (present_dataTableVersion)
+      list.add(dataTableVersion);
+
     return list.hashCode();
   }
 
@@ -567,6 +627,16 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
         return lastComparison;
       }
     }
+    lastComparison = Boolean.valueOf(isSetDataTableVersion()).compareTo(other.isSetDataTableVersion());
+    if (lastComparison != 0) {
+      return lastComparison;
+    }
+    if (isSetDataTableVersion()) {
+      lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.dataTableVersion, other.dataTableVersion);
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+    }
     return 0;
   }
 
@@ -624,6 +694,12 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
       }
       first = false;
     }
+    if (isSetDataTableVersion()) {
+      if (!first) sb.append(", ");
+      sb.append("dataTableVersion:");
+      sb.append(this.dataTableVersion);
+      first = false;
+    }
     sb.append(")");
     return sb.toString();
   }
@@ -731,6 +807,14 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
               org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
             }
             break;
+          case 6: // DATA_TABLE_VERSION
+            if (schemeField.type == org.apache.thrift.protocol.TType.I32) {
+              struct.dataTableVersion = iprot.readI32();
+              struct.setDataTableVersionIsSet(true);
+            } else { 
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+            }
+            break;
           default:
             org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
         }
@@ -778,6 +862,11 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
           oprot.writeFieldEnd();
         }
       }
+      if (struct.isSetDataTableVersion()) {
+        oprot.writeFieldBegin(DATA_TABLE_VERSION_FIELD_DESC);
+        oprot.writeI32(struct.dataTableVersion);
+        oprot.writeFieldEnd();
+      }
       oprot.writeFieldStop();
       oprot.writeStructEnd();
     }
@@ -807,7 +896,10 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
       if (struct.isSetBrokerId()) {
         optionals.set(2);
       }
-      oprot.writeBitSet(optionals, 3);
+      if (struct.isSetDataTableVersion()) {
+        optionals.set(3);
+      }
+      oprot.writeBitSet(optionals, 4);
       if (struct.isSetSearchSegments()) {
         {
           oprot.writeI32(struct.searchSegments.size());
@@ -823,6 +915,9 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
       if (struct.isSetBrokerId()) {
         oprot.writeString(struct.brokerId);
       }
+      if (struct.isSetDataTableVersion()) {
+        oprot.writeI32(struct.dataTableVersion);
+      }
     }
 
     @Override
@@ -833,7 +928,7 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
       struct.query = new BrokerRequest();
       struct.query.read(iprot);
       struct.setQueryIsSet(true);
-      BitSet incoming = iprot.readBitSet(3);
+      BitSet incoming = iprot.readBitSet(4);
       if (incoming.get(0)) {
         {
           org.apache.thrift.protocol.TList _list101 = new org.apache.thrift.protocol.TList(org.apache.thrift.protocol.TType.STRING, iprot.readI32());
@@ -855,6 +950,10 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
         struct.brokerId = iprot.readString();
         struct.setBrokerIdIsSet(true);
       }
+      if (incoming.get(3)) {
+        struct.dataTableVersion = iprot.readI32();
+        struct.setDataTableVersionIsSet(true);
+      }
     }
   }
 
@@ -81,6 +81,12 @@ public interface SegmentMetadata {
   @Nullable
   StarTreeMetadata getStarTreeMetadata();
 
+  /**
+   * Get the metadata for all the star trees in the segment, where the first one is the same as
+   * {@link #getStarTreeMetadata()}, or an empty list if the segment does not have star tree.
+   */
+  List<StarTreeMetadata> getStarTreeMetadataList();
+
   String getForwardIndexFileName(String column);
 
   String getDictionaryFileName(String column);
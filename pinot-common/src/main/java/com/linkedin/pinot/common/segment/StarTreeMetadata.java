@@ -26,6 +26,9 @@ public class StarTreeMetadata {
   private List<String> _dimensionsSplitOrder;
   private List<String> _skipStarNodeCreationForDimensions;
   private List<String> _skipMaterializationForDimensions;
+  private List<String> _aggregatedMetrics;
+  private List<String> _percentileEstColumns;
+  private List<String> _distinctCountHllColumns;
 
   private long _maxLeafRecords;
   private long _skipMaterializationCardinality;
@@ -72,4 +75,31 @@ public class StarTreeMetadata {
   public void setSkipMaterializationForDimensions(List<String> skipMaterializationForDimensions) {
     _skipMaterializationForDimensions = skipMaterializationForDimensions;
   }
+
+  /**
+   * Returns the metrics aggregated in the star tree, or empty list if all metrics are aggregated.
+   */
+  public List<String> getAggregatedMetrics() {
+    return _aggregatedMetrics;
+  }
+
+  public void setAggregatedMetrics(List<String> aggregatedMetrics) {
+    _aggregatedMetrics = aggregatedMetrics;
+  }
+
+  public List<String> getPercentileEstColumns() {
+    return _percentileEstColumns;
+  }
+
+  public void setPercentileEstColumns(List<String> percentileEstColumns) {
+    _percentileEstColumns = percentileEstColumns;
+  }
+
+  public List<String> getDistinctCountHllColumns() {
+    return _distinctCountHllColumns;
+  }
+
+  public void setDistinctCountHllColumns(List<String> distinctCountHllColumns) {
+    _distinctCountHllColumns = distinctCountHllColumns;
+  }
 }
@@ -133,6 +133,8 @@ public class CommonConstants {
           public static final String KAFKA_CONSUMER_PROPS_PREFIX = "kafka.consumer.prop";
           public static final String KAFKA_CONNECTION_TIMEOUT_MILLIS = "kafka.connection.timeout.ms";
           public static final String KAFKA_FETCH_TIMEOUT_MILLIS = "kafka.fetch.timeout.ms";
+          // Number of threads to decode the messages in parallel for LLC consumers, 0 to decode on consumer thread
+          public static final String KAFKA_DECODER_NUM_THREADS = "kafka.decoder.num.threads";
           public static final String ZK_BROKER_URL = "kafka.zk.broker.url";
           public static final String KAFKA_BROKER_LIST = "kafka.broker.list";
           public static final String CONSUMER_FACTORY = "kafka.consumer.factory.class.name";
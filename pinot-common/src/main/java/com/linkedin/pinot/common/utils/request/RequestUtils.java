@@ -15,7 +15,6 @@
  */
 package com.linkedin.pinot.common.utils.request;
 
-import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
 import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.common.request.BrokerRequest;
@@ -187,6 +186,11 @@ public class RequestUtils {
   }
 
   public static final Set<String> STAR_TREE_AGGREGATION_FUNCTIONS = ImmutableSet.of("sum", "fasthll");
+  // Only supported on metrics with pre-aggregated quantile digests in the star tree
+  public static final Set<String> STAR_TREE_PERCENTILE_EST_FUNCTIONS =
+      ImmutableSet.of("percentileest50", "percentileest90", "percentileest95", "percentileest99");
+  // Only supported on metrics with pre-aggregated hyper log logs in the star tree
+  public static final String STAR_TREE_DISTINCT_COUNT_HLL_FUNCTION = "distinctcounthll";
 
   /**
    * Return whether the query is fit for star tree index.
@@ -194,11 +198,15 @@ public class RequestUtils {
    * <ul>
    *   <li>Segment contains star tree</li>
    *   <li>BrokerRequest debug options have not explicitly disabled use of star tree</li>
-   *   <li>Query is aggregation/group-by with all aggregation functions in {@link #STAR_TREE_AGGREGATION_FUNCTIONS}</li>
+   *   <li>Query is aggregation/group-by with all aggregation functions in {@link #STAR_TREE_AGGREGATION_FUNCTIONS} on
+   *   metrics aggregated by the star tree, or
+   *   in {@link #STAR_TREE_PERCENTILE_EST_FUNCTIONS} on metrics with pre-aggregated quantile digests, or
+   *   {@link #STAR_TREE_DISTINCT_COUNT_HLL_FUNCTION} on metrics with pre-aggregated hyper log logs</li>
    *   <li>The aggregations must apply on metric column</li>
    *   <li>All predicate columns and group-by columns are materialized dimensions</li>
    *   <li>All predicates are conjoined by AND</li>
    * </ul>
+   * <p>For segment with multiple star trees, the query is fit for star tree index if it fits any of the star trees.
    */
   public static boolean isFitForStarTreeIndex(SegmentMetadata segmentMetadata, BrokerRequest brokerRequest,
       FilterQueryTree rootFilterNode) {
@@ -207,6 +215,22 @@ public class RequestUtils {
       return false;
     }
 
+    for (StarTreeMetadata starTreeMetadata : segmentMetadata.getStarTreeMetadataList()) {
+      if (isFitForStarTreeIndex(segmentMetadata, starTreeMetadata, brokerRequest, rootFilterNode)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Return whether the query is fit for the given star tree of the segment.
+   *
+   * @see #isFitForStarTreeIndex(SegmentMetadata, BrokerRequest, FilterQueryTree)
+   */
+  public static boolean isFitForStarTreeIndex(SegmentMetadata segmentMetadata, StarTreeMetadata starTreeMetadata,
+      BrokerRequest brokerRequest, FilterQueryTree rootFilterNode) {
+
     // Check whether star tree is disabled explicitly in BrokerRequest
     Map<String, String> debugOptions = brokerRequest.getDebugOptions();
     if (debugOptions != null && StringUtils.compareIgnoreCase(debugOptions.get(USE_STAR_TREE_KEY), "false") == 0) {
@@ -222,18 +246,31 @@ public class RequestUtils {
     if (aggregationsInfo == null) {
       return false;
     }
+    List<String> aggregatedMetrics = starTreeMetadata.getAggregatedMetrics();
+    List<String> percentileEstColumns = starTreeMetadata.getPercentileEstColumns();
+    List<String> distinctCountHllColumns = starTreeMetadata.getDistinctCountHllColumns();
     for (AggregationInfo aggregationInfo : aggregationsInfo) {
-      if (!STAR_TREE_AGGREGATION_FUNCTIONS.contains(aggregationInfo.getAggregationType().toLowerCase())) {
+      String aggregationType = aggregationInfo.getAggregationType().toLowerCase();
+      String column = aggregationInfo.getAggregationParams().get("column").trim();
+      if (STAR_TREE_PERCENTILE_EST_FUNCTIONS.contains(aggregationType)) {
+        if (percentileEstColumns == null || !percentileEstColumns.contains(column)) {
+          return false;
+        }
+      } else if (STAR_TREE_DISTINCT_COUNT_HLL_FUNCTION.equals(aggregationType)) {
+        if (distinctCountHllColumns == null || !distinctCountHllColumns.contains(column)) {
+          return false;
+        }
+      } else if (!STAR_TREE_AGGREGATION_FUNCTIONS.contains(aggregationType)) {
+        return false;
+      } else if (aggregatedMetrics != null && !aggregatedMetrics.isEmpty() && !aggregatedMetrics.contains(column)) {
         return false;
       }
-      if (!metrics.contains(aggregationInfo.getAggregationParams().get("column").trim())) {
+      if (!metrics.contains(column)) {
         return false;
       }
     }
 
     // Get all un-materialized dimensions
-    StarTreeMetadata starTreeMetadata = segmentMetadata.getStarTreeMetadata();
-    Preconditions.checkNotNull(starTreeMetadata);
     Set<String> unMaterializedDimensions = new HashSet<>(starTreeMetadata.getSkipMaterializationForDimensions());
 
     // Check whether all group-by columns are materialized dimensions
@@ -161,4 +161,5 @@ struct InstanceRequest {
   3: optional list<string> searchSegments;
   4: optional bool enableTrace;
   5: optional string brokerId;
+  6: optional i32 dataTableVersion;
 }
@@ -443,6 +443,11 @@ public class RetentionManagerTest {
         return null;
       }
 
+      @Override
+      public List<StarTreeMetadata> getStarTreeMetadataList() {
+        return Collections.emptyList();
+      }
+
       @Override
       public boolean close() {
         return false;
@@ -45,6 +45,7 @@ import com.linkedin.pinot.startree.hll.HllConstants;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -636,6 +637,11 @@ public class ValidationManagerTest {
       return null;
     }
 
+    @Override
+    public List<StarTreeMetadata> getStarTreeMetadataList() {
+      return Collections.emptyList();
+    }
+
     @Override
     public String getForwardIndexFileName(String column) {
       // TODO Auto-generated method stub
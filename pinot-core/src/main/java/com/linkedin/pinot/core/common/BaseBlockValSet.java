@@ -16,6 +16,7 @@
 package com.linkedin.pinot.core.common;
 
 import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 
 
 /**
@@ -112,6 +113,11 @@ public abstract class BaseBlockValSet implements BlockValSet {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public Dictionary getDictionary() {
+    return null;
+  }
+
   @Override
   public int[] getDictionaryIds() {
     throw new UnsupportedOperationException();
@@ -132,4 +138,9 @@ public abstract class BaseBlockValSet implements BlockValSet {
   public int[] getNumberOfMVEntriesArray() {
     throw new UnsupportedOperationException();
   }
+
+  @Override
+  public int[] getDocIds() {
+    return null;
+  }
 }
@@ -16,6 +16,7 @@
 package com.linkedin.pinot.core.common;
 
 import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 
 /**
  *
@@ -158,6 +159,13 @@ public interface BlockValSet {
    */
   String[][] getStringValuesMV();
 
+  /**
+   * Get the dictionary of the values in this block.
+   *
+   * @return Dictionary if the values are dictionary encoded, null otherwise.
+   */
+  Dictionary getDictionary();
+
   /**
    * Get the dictionary ids for all docs of this block.
    * This version is for single-valued columns.
@@ -195,4 +203,10 @@ public interface BlockValSet {
    * @return Array of number of MV entries
    */
   int[] getNumberOfMVEntriesArray();
+
+  /**
+   * Returns the doc ids of this block, where the value at index i belongs to the doc id at index i.
+   * @return Array of doc ids, or null if the values are not read from the documents of a segment
+   */
+  int[] getDocIds();
 }
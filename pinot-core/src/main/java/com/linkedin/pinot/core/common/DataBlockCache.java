@@ -17,6 +17,7 @@ package com.linkedin.pinot.core.common;
 
 import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.core.plan.DocIdSetPlanNode;
+import com.linkedin.pinot.core.query.scheduler.resources.QueryMemoryTracker;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -83,6 +84,15 @@ public class DataBlockCache {
     _length = length;
   }
 
+  /**
+   * Get the doc id array for the specific block initialized in the initNewBlock.
+   *
+   * @return doc id array.
+   */
+  public int[] getDocIds() {
+    return _docIds;
+  }
+
   /**
    * Get dictionary id array for a given column for the specific block initialized in the initNewBlock.
    *
@@ -93,6 +103,7 @@ public class DataBlockCache {
     int[] dictIds = _columnToDictIdsMap.get(column);
     if (!_columnDictIdLoaded.contains(column)) {
       if (dictIds == null) {
+        trackAllocation(DocIdSetPlanNode.MAX_DOC_PER_CALL, 4);
         dictIds = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL];
         _columnToDictIdsMap.put(column, dictIds);
       }
@@ -113,6 +124,7 @@ public class DataBlockCache {
     int[][] dictIdsArray = _columnToDictIdsArrayMap.get(column);
     if (!_columnDictIdLoaded.contains(column)) {
       if (dictIdsArray == null) {
+        trackAllocation(DocIdSetPlanNode.MAX_DOC_PER_CALL, 8);
         dictIdsArray = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL][];
         _columnToDictIdsArrayMap.put(column, dictIdsArray);
       }
@@ -126,6 +138,7 @@ public class DataBlockCache {
   private int[] getTempDictIdArrayForColumn(String column) {
     if (!_columnToTempDictIdsMap.containsKey(column)) {
       int maxNumberOfEntries = _dataFetcher.getMaxNumberOfEntriesForColumn(column);
+      trackAllocation(maxNumberOfEntries, 4);
       int[] tempDictIdArray = new int[maxNumberOfEntries];
       _columnToTempDictIdsMap.put(column, tempDictIdArray);
     }
@@ -143,6 +156,7 @@ public class DataBlockCache {
     int[] intValues = (int []) _columnToValuesMap.get(key);
     if (!_columnValueLoaded.contains(key)) {
       if (intValues == null) {
+        trackAllocation(DocIdSetPlanNode.MAX_DOC_PER_CALL, 4);
         intValues = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL];
         _columnToValuesMap.put(key, intValues);
       }
@@ -164,6 +178,7 @@ public class DataBlockCache {
 
     if (!_columnValueLoaded.contains(key)) {
       if (intValues == null) {
+        trackAllocation(DocIdSetPlanNode.MAX_DOC_PER_CALL, 8);
         intValues = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL][];
         _columnToValuesArrayMap.put(key, intValues);
       }
@@ -185,6 +200,7 @@ public class DataBlockCache {
     long[] longValues = (long []) _columnToValuesMap.get(key);
     if (!_columnValueLoaded.contains(key)) {
       if (longValues == null) {
+        trackAllocation(DocIdSetPlanNode.MAX_DOC_PER_CALL, 8);
         longValues = new long[DocIdSetPlanNode.MAX_DOC_PER_CALL];
         _columnToValuesMap.put(key, longValues);
       }
@@ -206,6 +222,7 @@ public class DataBlockCache {
 
     if (!_columnValueLoaded.contains(key)) {
       if (longValues == null) {
+        trackAllocation(DocIdSetPlanNode.MAX_DOC_PER_CALL, 8);
         longValues = new long[DocIdSetPlanNode.MAX_DOC_PER_CALL][];
         _columnToValuesArrayMap.put(key, longValues);
       }
@@ -227,6 +244,7 @@ public class DataBlockCache {
     float[] floatValues = (float []) _columnToValuesMap.get(key);
     if (!_columnValueLoaded.contains(key)) {
       if (floatValues == null) {
+        trackAllocation(DocIdSetPlanNode.MAX_DOC_PER_CALL, 4);
         floatValues = new float[DocIdSetPlanNode.MAX_DOC_PER_CALL];
         _columnToValuesMap.put(key, floatValues);
       }
@@ -248,6 +266,7 @@ public class DataBlockCache {
 
     if (!_columnValueLoaded.contains(key)) {
       if (floatValues == null) {
+        trackAllocation(DocIdSetPlanNode.MAX_DOC_PER_CALL, 8);
         floatValues = new float[DocIdSetPlanNode.MAX_DOC_PER_CALL][];
         _columnToValuesArrayMap.put(key, floatValues);
       }
@@ -269,6 +288,7 @@ public class DataBlockCache {
     double[] doubleValues = (double []) _columnToValuesMap.get(key);
     if (!_columnValueLoaded.contains(key)) {
       if (doubleValues == null) {
+        trackAllocation(DocIdSetPlanNode.MAX_DOC_PER_CALL, 8);
         doubleValues = new double[DocIdSetPlanNode.MAX_DOC_PER_CALL];
         _columnToValuesMap.put(key, doubleValues);
       }
@@ -290,6 +310,7 @@ public class DataBlockCache {
 
     if (!_columnValueLoaded.contains(key)) {
       if (doubleValuesArray == null) {
+        trackAllocation(DocIdSetPlanNode.MAX_DOC_PER_CALL, 8);
         doubleValuesArray = new double[DocIdSetPlanNode.MAX_DOC_PER_CALL][];
         _columnToValuesArrayMap.put(key, doubleValuesArray);
       }
@@ -310,6 +331,7 @@ public class DataBlockCache {
     int[] numberOfEntriesArray = _columnToNumberOfEntriesMap.get(column);
     if (!_columnHashCodeLoaded.contains(column)) {
       if (numberOfEntriesArray == null) {
+        trackAllocation(DocIdSetPlanNode.MAX_DOC_PER_CALL, 4);
         numberOfEntriesArray = new int[DocIdSetPlanNode.MAX_DOC_PER_CALL];
         _columnToNumberOfEntriesMap.put(column, numberOfEntriesArray);
       }
@@ -332,6 +354,7 @@ public class DataBlockCache {
     String[] stringValues = _columnToStringsMap.get(column);
     if (!_columnStringLoaded.contains(column)) {
       if (stringValues == null) {
+        trackAllocation(DocIdSetPlanNode.MAX_DOC_PER_CALL, 8);
         stringValues = new String[DocIdSetPlanNode.MAX_DOC_PER_CALL];
         _columnToStringsMap.put(column, stringValues);
       }
@@ -351,6 +374,7 @@ public class DataBlockCache {
     String[][] stringsArray = _columnToStringsArrayMap.get(column);
     if (!_columnHashCodeLoaded.contains(column)) {
       if (stringsArray == null) {
+        trackAllocation(DocIdSetPlanNode.MAX_DOC_PER_CALL, 8);
         stringsArray = new String[DocIdSetPlanNode.MAX_DOC_PER_CALL][];
         _columnToStringsArrayMap.put(column, stringsArray);
       }
@@ -404,4 +428,15 @@ public class DataBlockCache {
     builder.append(dataType);
     return builder.toString();
   }
+
+  /**
+   * Account a newly allocated buffer against the memory budget of the current query, if any. Arrays of arrays and
+   * strings are accounted by their references only.
+   *
+   * @param numEntries number of entries in the buffer.
+   * @param bytesPerEntry estimated bytes per entry.
+   */
+  private static void trackAllocation(int numEntries, int bytesPerEntry) {
+    QueryMemoryTracker.allocateForCurrentQuery((long) numEntries * bytesPerEntry);
+  }
 }
@@ -16,8 +16,10 @@
 package com.linkedin.pinot.core.common;
 
 import com.linkedin.pinot.core.operator.BaseOperator;
+import com.linkedin.pinot.core.segment.index.readers.BitmapRangeIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.ZoneMapIndexReader;
 
 public abstract class DataSource extends BaseOperator {
 
@@ -25,5 +27,9 @@ public abstract class DataSource extends BaseOperator {
 
   public abstract InvertedIndexReader getInvertedIndex();
 
+  public abstract BitmapRangeIndexReader getRangeIndex();
+
+  public abstract ZoneMapIndexReader getZoneMap();
+
   public abstract Dictionary getDictionary();
 }
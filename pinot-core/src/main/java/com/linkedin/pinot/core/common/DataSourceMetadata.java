@@ -28,5 +28,9 @@ public interface DataSourceMetadata {
 
   boolean hasInvertedIndex();
 
+  boolean hasRangeIndex();
+
+  boolean hasZoneMap();
+
   boolean hasDictionary();
 }
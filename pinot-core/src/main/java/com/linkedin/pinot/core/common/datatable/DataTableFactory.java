@@ -26,13 +26,40 @@ public class DataTableFactory {
 
   public static DataTable getDataTable(byte[] bytes)
       throws IOException {
-    ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
-    int version = byteBuffer.getInt();
+    return getDataTable(ByteBuffer.wrap(bytes));
+  }
+
+  /**
+   * Get a data table which reads values directly off the given buffer (from its current position) without copying.
+   * <p>The buffer must not be modified while the data table is in use.
+   */
+  public static DataTable getDataTable(ByteBuffer byteBuffer)
+      throws IOException {
+    // Offsets inside the data table are relative to the beginning of the serialized data table.
+    ByteBuffer dataTableBuffer = byteBuffer.slice();
+    int version = dataTableBuffer.getInt(0);
     switch (version) {
-      case 2:
-        return new DataTableImplV2(byteBuffer);
+      case DataTableImplV2.VERSION:
+        return new LazyDataTableImplV2(dataTableBuffer);
+      case DataTableImplV3.VERSION:
+        return new DataTableImplV3(dataTableBuffer);
       default:
         throw new UnsupportedOperationException("Unsupported data table version: " + version);
     }
   }
+
+  /**
+   * Serialize the given data table into the given data table version.
+   * <p>Unknown versions fall back to the native serialization of the data table, so that servers can answer brokers
+   * asking for a newer version during a rolling upgrade.
+   */
+  public static byte[] toBytes(DataTable dataTable, int version)
+      throws IOException {
+    switch (version) {
+      case DataTableImplV3.VERSION:
+        return DataTableImplV3.toBytes(dataTable, DataTableImplV3.CompressionType.LZ4);
+      default:
+        return dataTable.toBytes();
+    }
+  }
 }
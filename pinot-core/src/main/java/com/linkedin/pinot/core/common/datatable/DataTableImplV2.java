@@ -33,7 +33,7 @@ import javax.annotation.Nullable;
 
 
 public class DataTableImplV2 implements DataTable {
-  private static final int VERSION = 2;
+  public static final int VERSION = 2;
   private static final Charset UTF_8 = Charset.forName("UTF-8");
 
   // VERSION
@@ -522,6 +522,27 @@ public class DataTableImplV2 implements DataTable {
     return strings;
   }
 
+  /**
+   * Get the object type of the object at the given cell without de-serializing the object.
+   */
+  @Nonnull
+  ObjectType getObjectType(int rowId, int colId) {
+    positionCursorInVariableBuffer(rowId, colId);
+    return ObjectType.getObjectType(_variableSizeData.getInt());
+  }
+
+  /**
+   * Get the serialized bytes of the object at the given cell without de-serializing the object.
+   */
+  @Nonnull
+  ByteBuffer getObjectBytes(int rowId, int colId) {
+    int size = positionCursorInVariableBuffer(rowId, colId);
+    _variableSizeData.getInt();
+    ByteBuffer byteBuffer = _variableSizeData.slice();
+    byteBuffer.limit(size);
+    return byteBuffer;
+  }
+
   private int positionCursorInVariableBuffer(int rowId, int colId) {
     _fixedSizeData.position(rowId * _rowSizeInBytes + _columnOffsets[colId]);
     _variableSizeData.position(_fixedSizeData.getInt());
@@ -0,0 +1,941 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.common.datatable;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.response.ProcessingException;
+import com.linkedin.pinot.common.utils.DataSchema;
+import com.linkedin.pinot.common.utils.DataTable;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import net.jpountz.lz4.LZ4Factory;
+import org.xerial.snappy.Snappy;
+
+
+/**
+ * Columnar data table, where values of each column are stored together with a per-column encoding and compression.
+ * <p>Data tables in this format are serialized from an existing data table on the server side with
+ * {@link #toBytes(DataTable, CompressionType)}, and read on the broker side. Columns are decompressed and decoded on
+ * the first access.
+ * <p>Serialized format:
+ * <ul>
+ *   <li>VERSION|NUM_ROWS|NUM_COLUMNS</li>
+ *   <li>METADATA (START|SIZE)</li>
+ *   <li>DATA_SCHEMA (START|SIZE)</li>
+ *   <li>COLUMN_DATA (START|SIZE) for each column</li>
+ *   <li>Actual data for each section, where the column data is ENCODING|COMPRESSION|UNCOMPRESSED_SIZE|PAYLOAD</li>
+ * </ul>
+ */
+public class DataTableImplV3 implements DataTable {
+  public static final int VERSION = 3;
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int FIXED_HEADER_SIZE = (Integer.SIZE / Byte.SIZE) * 7;
+  private static final int COLUMN_HEADER_SIZE = 1 + 1 + (Integer.SIZE / Byte.SIZE);
+
+  // Only compress the column data when it is large enough to benefit from the compression.
+  private static final int MIN_SIZE_TO_COMPRESS = 256;
+
+  /**
+   * Encoding of the values inside a column.
+   * <ul>
+   *   <li>PLAIN: fixed-width values, or SIZE|VALUE for each row for variable-width values</li>
+   *   <li>BIT_PACKED: (INT/LONG) BASE|NUM_BITS followed by the bit-packed (value - BASE)</li>
+   *   <li>DELTA_BIT_PACKED: (INT/LONG) FIRST_VALUE|MIN_DELTA|NUM_BITS followed by the bit-packed (delta - MIN_DELTA)
+   *   </li>
+   *   <li>DICTIONARY: (STRING) DICTIONARY_SIZE|(LENGTH|UTF8_BYTES) for each value|NUM_BITS followed by the bit-packed
+   *   dictionary ids</li>
+   * </ul>
+   */
+  public enum ColumnEncoding {
+    PLAIN,
+    BIT_PACKED,
+    DELTA_BIT_PACKED,
+    DICTIONARY
+  }
+
+  public enum CompressionType {
+    NONE,
+    LZ4,
+    SNAPPY
+  }
+
+  private final int _numRows;
+  private final int _numColumns;
+  private final DataSchema _dataSchema;
+  private final ByteBuffer _metadataBuffer;
+  private final ByteBuffer[] _columnBuffers;
+
+  // Lazily initialized
+  private final ColumnReader[] _columnReaders;
+  private Map<String, String> _metadata;
+
+  /**
+   * Construct data table from the serialized bytes. (broker side)
+   *
+   * @param byteBuffer byte buffer starting at the beginning of the serialized data table (including the version).
+   */
+  public DataTableImplV3(@Nonnull ByteBuffer byteBuffer)
+      throws IOException {
+    // Read header.
+    int version = byteBuffer.getInt(0);
+    if (version != VERSION) {
+      throw new UnsupportedOperationException("Unsupported data table version: " + version);
+    }
+    _numRows = byteBuffer.getInt(4);
+    _numColumns = byteBuffer.getInt(8);
+    _metadataBuffer = getSection(byteBuffer, 12);
+    ByteBuffer dataSchemaBuffer = getSection(byteBuffer, 20);
+    _columnBuffers = new ByteBuffer[_numColumns];
+    for (int i = 0; i < _numColumns; i++) {
+      _columnBuffers[i] = getSection(byteBuffer, FIXED_HEADER_SIZE + i * 8);
+    }
+    _columnReaders = new ColumnReader[_numColumns];
+
+    // Read data schema.
+    if (dataSchemaBuffer != null) {
+      byte[] schemaBytes = new byte[dataSchemaBuffer.limit()];
+      dataSchemaBuffer.get(schemaBytes);
+      _dataSchema = DataSchema.fromBytes(schemaBytes);
+    } else {
+      _dataSchema = null;
+    }
+  }
+
+  /**
+   * Serialize the given data table into the columnar format. (server side)
+   *
+   * @param dataTable data table to be serialized.
+   * @param compressionType compression type for the column data.
+   * @return serialized bytes.
+   */
+  @Nonnull
+  public static byte[] toBytes(@Nonnull DataTable dataTable, @Nonnull CompressionType compressionType)
+      throws IOException {
+    DataSchema dataSchema = dataTable.getDataSchema();
+    int numRows = dataTable.getNumberOfRows();
+    int numColumns = (dataSchema != null) ? dataSchema.size() : 0;
+
+    byte[] metadataBytes = serializeMetadata(dataTable.getMetadata());
+    byte[] dataSchemaBytes = (dataSchema != null) ? dataSchema.toBytes() : new byte[0];
+    byte[][] columnBytes = new byte[numColumns][];
+    for (int colId = 0; colId < numColumns; colId++) {
+      columnBytes[colId] = serializeColumn(dataTable, colId, compressionType);
+    }
+
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    DataOutputStream dataOutputStream = new DataOutputStream(byteArrayOutputStream);
+    dataOutputStream.writeInt(VERSION);
+    dataOutputStream.writeInt(numRows);
+    dataOutputStream.writeInt(numColumns);
+
+    // Write header.
+    int dataOffset = FIXED_HEADER_SIZE + numColumns * 8;
+    dataOutputStream.writeInt(dataOffset);
+    dataOutputStream.writeInt(metadataBytes.length);
+    dataOffset += metadataBytes.length;
+    dataOutputStream.writeInt(dataOffset);
+    dataOutputStream.writeInt(dataSchemaBytes.length);
+    dataOffset += dataSchemaBytes.length;
+    for (byte[] bytes : columnBytes) {
+      dataOutputStream.writeInt(dataOffset);
+      dataOutputStream.writeInt(bytes.length);
+      dataOffset += bytes.length;
+    }
+
+    // Write actual data.
+    dataOutputStream.write(metadataBytes);
+    dataOutputStream.write(dataSchemaBytes);
+    for (byte[] bytes : columnBytes) {
+      dataOutputStream.write(bytes);
+    }
+
+    return byteArrayOutputStream.toByteArray();
+  }
+
+  /**
+   * Helper method to get the slice for the section with (START|SIZE) stored at the given header offset, or null if the
+   * section is empty.
+   */
+  @Nullable
+  private static ByteBuffer getSection(@Nonnull ByteBuffer byteBuffer, int headerOffset) {
+    int start = byteBuffer.getInt(headerOffset);
+    int length = byteBuffer.getInt(headerOffset + 4);
+    if (length == 0) {
+      return null;
+    }
+    ByteBuffer duplicate = byteBuffer.duplicate();
+    duplicate.position(start);
+    duplicate.limit(start + length);
+    return duplicate.slice();
+  }
+
+  private static byte[] serializeMetadata(@Nonnull Map<String, String> metadata)
+      throws IOException {
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    DataOutputStream dataOutputStream = new DataOutputStream(byteArrayOutputStream);
+
+    dataOutputStream.writeInt(metadata.size());
+    for (Entry<String, String> entry : metadata.entrySet()) {
+      byte[] keyBytes = entry.getKey().getBytes(UTF_8);
+      dataOutputStream.writeInt(keyBytes.length);
+      dataOutputStream.write(keyBytes);
+
+      byte[] valueBytes = entry.getValue().getBytes(UTF_8);
+      dataOutputStream.writeInt(valueBytes.length);
+      dataOutputStream.write(valueBytes);
+    }
+
+    return byteArrayOutputStream.toByteArray();
+  }
+
+  /**
+   * Helper method to serialize one column, with the best encoding for the values and the given compression type if
+   * it reduces the size.
+   */
+  private static byte[] serializeColumn(@Nonnull DataTable dataTable, int colId,
+      @Nonnull CompressionType compressionType)
+      throws IOException {
+    FieldSpec.DataType columnType = dataTable.getDataSchema().getColumnType(colId);
+    int numRows = dataTable.getNumberOfRows();
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    DataOutputStream dataOutputStream = new DataOutputStream(byteArrayOutputStream);
+    ColumnEncoding encoding = ColumnEncoding.PLAIN;
+
+    switch (columnType) {
+      case BOOLEAN:
+        for (int rowId = 0; rowId < numRows; rowId++) {
+          dataOutputStream.writeBoolean(dataTable.getBoolean(rowId, colId));
+        }
+        break;
+      case BYTE:
+        for (int rowId = 0; rowId < numRows; rowId++) {
+          dataOutputStream.writeByte(dataTable.getByte(rowId, colId));
+        }
+        break;
+      case CHAR:
+        for (int rowId = 0; rowId < numRows; rowId++) {
+          dataOutputStream.writeChar(dataTable.getChar(rowId, colId));
+        }
+        break;
+      case SHORT:
+        for (int rowId = 0; rowId < numRows; rowId++) {
+          dataOutputStream.writeShort(dataTable.getShort(rowId, colId));
+        }
+        break;
+      case INT:
+      case LONG:
+        long[] values = new long[numRows];
+        for (int rowId = 0; rowId < numRows; rowId++) {
+          values[rowId] = (columnType == FieldSpec.DataType.INT) ? dataTable.getInt(rowId, colId)
+              : dataTable.getLong(rowId, colId);
+        }
+        int valueSizeInBits = (columnType == FieldSpec.DataType.INT) ? Integer.SIZE : Long.SIZE;
+        encoding = writeIntegerValues(dataOutputStream, values, valueSizeInBits);
+        break;
+      case FLOAT:
+        for (int rowId = 0; rowId < numRows; rowId++) {
+          dataOutputStream.writeFloat(dataTable.getFloat(rowId, colId));
+        }
+        break;
+      case DOUBLE:
+        for (int rowId = 0; rowId < numRows; rowId++) {
+          dataOutputStream.writeDouble(dataTable.getDouble(rowId, colId));
+        }
+        break;
+      case STRING:
+        writeStringValues(dataOutputStream, dataTable, colId);
+        encoding = ColumnEncoding.DICTIONARY;
+        break;
+      // Object and array.
+      default:
+        for (int rowId = 0; rowId < numRows; rowId++) {
+          byte[] valueBytes = serializeVariableSizeValue(dataTable, rowId, colId, columnType);
+          dataOutputStream.writeInt(valueBytes.length);
+          dataOutputStream.write(valueBytes);
+        }
+        break;
+    }
+
+    byte[] payload = byteArrayOutputStream.toByteArray();
+    int uncompressedSize = payload.length;
+    CompressionType columnCompressionType = CompressionType.NONE;
+    if (compressionType != CompressionType.NONE && uncompressedSize >= MIN_SIZE_TO_COMPRESS) {
+      byte[] compressedPayload = compress(payload, compressionType);
+      if (compressedPayload.length < uncompressedSize) {
+        payload = compressedPayload;
+        columnCompressionType = compressionType;
+      }
+    }
+
+    byte[] columnBytes = new byte[COLUMN_HEADER_SIZE + payload.length];
+    ByteBuffer columnByteBuffer = ByteBuffer.wrap(columnBytes);
+    columnByteBuffer.put((byte) encoding.ordinal());
+    columnByteBuffer.put((byte) columnCompressionType.ordinal());
+    columnByteBuffer.putInt(uncompressedSize);
+    columnByteBuffer.put(payload);
+    return columnBytes;
+  }
+
+  /**
+   * Helper method to write integer values with the encoding that takes the least bits, and return the encoding used.
+   */
+  private static ColumnEncoding writeIntegerValues(@Nonnull DataOutputStream dataOutputStream, @Nonnull long[] values,
+      int valueSizeInBits)
+      throws IOException {
+    int numValues = values.length;
+    if (numValues == 0) {
+      return ColumnEncoding.PLAIN;
+    }
+
+    // Frame of reference.
+    long minValue = values[0];
+    long maxValue = values[0];
+    for (long value : values) {
+      minValue = Math.min(minValue, value);
+      maxValue = Math.max(maxValue, value);
+    }
+    int numBitsForValues = getNumBits(minValue, maxValue);
+
+    // Delta.
+    int numBitsForDeltas = Integer.MAX_VALUE;
+    long minDelta = Long.MAX_VALUE;
+    long[] deltas = new long[numValues - 1];
+    boolean deltaOverflow = false;
+    for (int i = 1; i < numValues; i++) {
+      long delta = values[i] - values[i - 1];
+      if (((values[i] ^ values[i - 1]) & (values[i] ^ delta)) < 0) {
+        deltaOverflow = true;
+        break;
+      }
+      deltas[i - 1] = delta;
+    }
+    if (!deltaOverflow && numValues > 1) {
+      long maxDelta = Long.MIN_VALUE;
+      for (long delta : deltas) {
+        minDelta = Math.min(minDelta, delta);
+        maxDelta = Math.max(maxDelta, delta);
+      }
+      numBitsForDeltas = getNumBits(minDelta, maxDelta);
+    }
+
+    if (numBitsForValues >= valueSizeInBits && numBitsForDeltas >= valueSizeInBits) {
+      for (long value : values) {
+        if (valueSizeInBits == Integer.SIZE) {
+          dataOutputStream.writeInt((int) value);
+        } else {
+          dataOutputStream.writeLong(value);
+        }
+      }
+      return ColumnEncoding.PLAIN;
+    }
+    if (numBitsForValues <= numBitsForDeltas) {
+      dataOutputStream.writeLong(minValue);
+      dataOutputStream.writeByte(numBitsForValues);
+      writeBitPacked(dataOutputStream, values, 0, numValues, minValue, numBitsForValues);
+      return ColumnEncoding.BIT_PACKED;
+    } else {
+      dataOutputStream.writeLong(values[0]);
+      dataOutputStream.writeLong(minDelta);
+      dataOutputStream.writeByte(numBitsForDeltas);
+      writeBitPacked(dataOutputStream, deltas, 0, numValues - 1, minDelta, numBitsForDeltas);
+      return ColumnEncoding.DELTA_BIT_PACKED;
+    }
+  }
+
+  /**
+   * Helper method to get the number of bits required to store (value - minValue) for values within the given range, or
+   * {@link Long#SIZE} if the range overflows.
+   */
+  private static int getNumBits(long minValue, long maxValue) {
+    long range = maxValue - minValue;
+    if (range < 0) {
+      return Long.SIZE;
+    }
+    return Long.SIZE - Long.numberOfLeadingZeros(range);
+  }
+
+  private static void writeStringValues(@Nonnull DataOutputStream dataOutputStream, @Nonnull DataTable dataTable,
+      int colId)
+      throws IOException {
+    int numRows = dataTable.getNumberOfRows();
+    Map<String, Integer> dictionary = new HashMap<>();
+    ByteArrayOutputStream dictionaryByteArrayOutputStream = new ByteArrayOutputStream();
+    DataOutputStream dictionaryDataOutputStream = new DataOutputStream(dictionaryByteArrayOutputStream);
+    long[] dictIds = new long[numRows];
+    for (int rowId = 0; rowId < numRows; rowId++) {
+      String value = dataTable.getString(rowId, colId);
+      Integer dictId = dictionary.get(value);
+      if (dictId == null) {
+        dictId = dictionary.size();
+        dictionary.put(value, dictId);
+        byte[] valueBytes = value.getBytes(UTF_8);
+        dictionaryDataOutputStream.writeInt(valueBytes.length);
+        dictionaryDataOutputStream.write(valueBytes);
+      }
+      dictIds[rowId] = dictId;
+    }
+    int numBits = getNumBits(0, dictionary.size() - 1);
+    dataOutputStream.writeInt(dictionary.size());
+    dataOutputStream.write(dictionaryByteArrayOutputStream.toByteArray());
+    dataOutputStream.writeByte(numBits);
+    writeBitPacked(dataOutputStream, dictIds, 0, numRows, 0, numBits);
+  }
+
+  private static byte[] serializeVariableSizeValue(@Nonnull DataTable dataTable, int rowId, int colId,
+      @Nonnull FieldSpec.DataType columnType)
+      throws IOException {
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    DataOutputStream dataOutputStream = new DataOutputStream(byteArrayOutputStream);
+    switch (columnType) {
+      case OBJECT:
+        if (dataTable instanceof DataTableImplV2) {
+          // Avoid de-serializing and serializing the object again.
+          DataTableImplV2 dataTableImplV2 = (DataTableImplV2) dataTable;
+          dataOutputStream.writeInt(dataTableImplV2.getObjectType(rowId, colId).getValue());
+          ByteBuffer objectBytes = dataTableImplV2.getObjectBytes(rowId, colId);
+          byte[] bytes = new byte[objectBytes.remaining()];
+          objectBytes.get(bytes);
+          dataOutputStream.write(bytes);
+        } else {
+          Object object = dataTable.getObject(rowId, colId);
+          dataOutputStream.writeInt(ObjectCustomSerDe.getObjectType(object).getValue());
+          dataOutputStream.write(ObjectCustomSerDe.serialize(object));
+        }
+        break;
+      case BYTE_ARRAY:
+        dataOutputStream.write(dataTable.getByteArray(rowId, colId));
+        break;
+      case CHAR_ARRAY:
+        for (char value : dataTable.getCharArray(rowId, colId)) {
+          dataOutputStream.writeChar(value);
+        }
+        break;
+      case SHORT_ARRAY:
+        for (short value : dataTable.getShortArray(rowId, colId)) {
+          dataOutputStream.writeShort(value);
+        }
+        break;
+      case INT_ARRAY:
+        for (int value : dataTable.getIntArray(rowId, colId)) {
+          dataOutputStream.writeInt(value);
+        }
+        break;
+      case LONG_ARRAY:
+        for (long value : dataTable.getLongArray(rowId, colId)) {
+          dataOutputStream.writeLong(value);
+        }
+        break;
+      case FLOAT_ARRAY:
+        for (float value : dataTable.getFloatArray(rowId, colId)) {
+          dataOutputStream.writeFloat(value);
+        }
+        break;
+      case DOUBLE_ARRAY:
+        for (double value : dataTable.getDoubleArray(rowId, colId)) {
+          dataOutputStream.writeDouble(value);
+        }
+        break;
+      case STRING_ARRAY:
+        String[] strings = dataTable.getStringArray(rowId, colId);
+        dataOutputStream.writeInt(strings.length);
+        for (String value : strings) {
+          byte[] valueBytes = value.getBytes(UTF_8);
+          dataOutputStream.writeInt(valueBytes.length);
+          dataOutputStream.write(valueBytes);
+        }
+        break;
+      default:
+        throw new IllegalStateException("Unsupported column type: " + columnType);
+    }
+    return byteArrayOutputStream.toByteArray();
+  }
+
+  /**
+   * Helper method to write (value - base) for the given values with the given number of bits each, big-endian.
+   */
+  private static void writeBitPacked(@Nonnull DataOutputStream dataOutputStream, @Nonnull long[] values, int startIndex,
+      int numValues, long base, int numBits)
+      throws IOException {
+    if (numBits == 0) {
+      return;
+    }
+    int currentByte = 0;
+    int numBitsInCurrentByte = 0;
+    for (int i = startIndex; i < startIndex + numValues; i++) {
+      long value = values[i] - base;
+      int numBitsRemaining = numBits;
+      while (numBitsRemaining > 0) {
+        int numBitsToWrite = Math.min(numBitsRemaining, 8 - numBitsInCurrentByte);
+        numBitsRemaining -= numBitsToWrite;
+        int bits = (int) ((value >>> numBitsRemaining) & ((1 << numBitsToWrite) - 1));
+        currentByte |= bits << (8 - numBitsInCurrentByte - numBitsToWrite);
+        numBitsInCurrentByte += numBitsToWrite;
+        if (numBitsInCurrentByte == 8) {
+          dataOutputStream.writeByte(currentByte);
+          currentByte = 0;
+          numBitsInCurrentByte = 0;
+        }
+      }
+    }
+    if (numBitsInCurrentByte > 0) {
+      dataOutputStream.writeByte(currentByte);
+    }
+  }
+
+  /**
+   * Helper method to read values written by {@link #writeBitPacked} starting at the given offset.
+   */
+  private static long[] readBitPacked(@Nonnull ByteBuffer byteBuffer, int offset, int numValues, long base,
+      int numBits) {
+    long[] values = new long[numValues];
+    if (numBits == 0) {
+      for (int i = 0; i < numValues; i++) {
+        values[i] = base;
+      }
+      return values;
+    }
+    int currentByte = 0;
+    int numBitsLeftInCurrentByte = 0;
+    for (int i = 0; i < numValues; i++) {
+      long value = 0;
+      int numBitsRemaining = numBits;
+      while (numBitsRemaining > 0) {
+        if (numBitsLeftInCurrentByte == 0) {
+          currentByte = byteBuffer.get(offset++) & 0xFF;
+          numBitsLeftInCurrentByte = 8;
+        }
+        int numBitsToRead = Math.min(numBitsRemaining, numBitsLeftInCurrentByte);
+        numBitsLeftInCurrentByte -= numBitsToRead;
+        int bits = (currentByte >>> numBitsLeftInCurrentByte) & ((1 << numBitsToRead) - 1);
+        value = (value << numBitsToRead) | bits;
+        numBitsRemaining -= numBitsToRead;
+      }
+      values[i] = value + base;
+    }
+    return values;
+  }
+
+  private static byte[] compress(@Nonnull byte[] bytes, @Nonnull CompressionType compressionType)
+      throws IOException {
+    switch (compressionType) {
+      case LZ4:
+        return LZ4Factory.fastestInstance().fastCompressor().compress(bytes);
+      case SNAPPY:
+        return Snappy.compress(bytes);
+      default:
+        throw new IllegalStateException("Unsupported compression type: " + compressionType);
+    }
+  }
+
+  private static ByteBuffer decompress(@Nonnull ByteBuffer compressed, int uncompressedSize,
+      @Nonnull CompressionType compressionType)
+      throws IOException {
+    byte[] compressedBytes;
+    int compressedOffset;
+    int compressedLength = compressed.remaining();
+    if (compressed.hasArray()) {
+      compressedBytes = compressed.array();
+      compressedOffset = compressed.arrayOffset() + compressed.position();
+    } else {
+      compressedBytes = new byte[compressedLength];
+      compressed.duplicate().get(compressedBytes);
+      compressedOffset = 0;
+    }
+    byte[] uncompressedBytes = new byte[uncompressedSize];
+    switch (compressionType) {
+      case LZ4:
+        LZ4Factory.fastestInstance()
+            .fastDecompressor()
+            .decompress(compressedBytes, compressedOffset, uncompressedBytes, 0, uncompressedSize);
+        break;
+      case SNAPPY:
+        Snappy.uncompress(compressedBytes, compressedOffset, compressedLength, uncompressedBytes, 0);
+        break;
+      default:
+        throw new IllegalStateException("Unsupported compression type: " + compressionType);
+    }
+    return ByteBuffer.wrap(uncompressedBytes);
+  }
+
+  private static String decodeString(@Nonnull ByteBuffer byteBuffer, int offset, int length) {
+    if (byteBuffer.hasArray()) {
+      return new String(byteBuffer.array(), byteBuffer.arrayOffset() + offset, length, UTF_8);
+    }
+    byte[] bytes = new byte[length];
+    ByteBuffer duplicate = byteBuffer.duplicate();
+    duplicate.position(offset);
+    duplicate.get(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  @Override
+  public void addException(@Nonnull ProcessingException processingException) {
+    getMetadata().put(EXCEPTION_METADATA_KEY + processingException.getErrorCode(), processingException.getMessage());
+  }
+
+  @Nonnull
+  @Override
+  public byte[] toBytes()
+      throws IOException {
+    return toBytes(this, CompressionType.LZ4);
+  }
+
+  @Nonnull
+  @Override
+  public Map<String, String> getMetadata() {
+    if (_metadata == null) {
+      Map<String, String> metadata = new HashMap<>();
+      if (_metadataBuffer != null) {
+        int offset = 0;
+        int numEntries = _metadataBuffer.getInt(offset);
+        offset += 4;
+        for (int i = 0; i < numEntries; i++) {
+          int keyLength = _metadataBuffer.getInt(offset);
+          offset += 4;
+          String key = decodeString(_metadataBuffer, offset, keyLength);
+          offset += keyLength;
+
+          int valueLength = _metadataBuffer.getInt(offset);
+          offset += 4;
+          String value = decodeString(_metadataBuffer, offset, valueLength);
+          offset += valueLength;
+
+          metadata.put(key, value);
+        }
+      }
+      _metadata = metadata;
+    }
+    return _metadata;
+  }
+
+  @Nullable
+  @Override
+  public DataSchema getDataSchema() {
+    return _dataSchema;
+  }
+
+  @Override
+  public int getNumberOfRows() {
+    return _numRows;
+  }
+
+  private ColumnReader getColumnReader(int colId) {
+    ColumnReader columnReader = _columnReaders[colId];
+    if (columnReader == null) {
+      try {
+        columnReader = new ColumnReader(_columnBuffers[colId], _dataSchema.getColumnType(colId));
+      } catch (IOException e) {
+        throw new RuntimeException("Caught exception while decompressing column: " + colId, e);
+      }
+      _columnReaders[colId] = columnReader;
+    }
+    return columnReader;
+  }
+
+  @Override
+  public boolean getBoolean(int rowId, int colId) {
+    return getColumnReader(colId)._data.get(rowId) == 1;
+  }
+
+  @Override
+  public char getChar(int rowId, int colId) {
+    return getColumnReader(colId)._data.getChar(rowId * 2);
+  }
+
+  @Override
+  public byte getByte(int rowId, int colId) {
+    return getColumnReader(colId)._data.get(rowId);
+  }
+
+  @Override
+  public short getShort(int rowId, int colId) {
+    return getColumnReader(colId)._data.getShort(rowId * 2);
+  }
+
+  @Override
+  public int getInt(int rowId, int colId) {
+    ColumnReader columnReader = getColumnReader(colId);
+    if (columnReader._longValues != null) {
+      return (int) columnReader._longValues[rowId];
+    }
+    return columnReader._data.getInt(rowId * 4);
+  }
+
+  @Override
+  public long getLong(int rowId, int colId) {
+    ColumnReader columnReader = getColumnReader(colId);
+    if (columnReader._longValues != null) {
+      return columnReader._longValues[rowId];
+    }
+    return columnReader._data.getLong(rowId * 8);
+  }
+
+  @Override
+  public float getFloat(int rowId, int colId) {
+    return getColumnReader(colId)._data.getFloat(rowId * 4);
+  }
+
+  @Override
+  public double getDouble(int rowId, int colId) {
+    return getColumnReader(colId)._data.getDouble(rowId * 8);
+  }
+
+  @Nonnull
+  @Override
+  public String getString(int rowId, int colId) {
+    ColumnReader columnReader = getColumnReader(colId);
+    return columnReader._dictionary[(int) columnReader._longValues[rowId]];
+  }
+
+  @Nonnull
+  @Override
+  public <T> T getObject(int rowId, int colId) {
+    ColumnReader columnReader = getColumnReader(colId);
+    int offset = columnReader._offsets[rowId];
+    int size = columnReader._data.getInt(offset);
+    ObjectType objectType = ObjectType.getObjectType(columnReader._data.getInt(offset + 4));
+    ByteBuffer byteBuffer = columnReader._data.duplicate();
+    byteBuffer.position(offset + 8);
+    byteBuffer = byteBuffer.slice();
+    byteBuffer.limit(size - 4);
+    try {
+      return ObjectCustomSerDe.deserialize(byteBuffer, objectType);
+    } catch (IOException e) {
+      throw new RuntimeException("Caught exception while de-serializing object.", e);
+    }
+  }
+
+  @Nonnull
+  @Override
+  public byte[] getByteArray(int rowId, int colId) {
+    ColumnReader columnReader = getColumnReader(colId);
+    int offset = columnReader._offsets[rowId];
+    int length = columnReader._data.getInt(offset);
+    byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++) {
+      bytes[i] = columnReader._data.get(offset + 4 + i);
+    }
+    return bytes;
+  }
+
+  @Nonnull
+  @Override
+  public char[] getCharArray(int rowId, int colId) {
+    ColumnReader columnReader = getColumnReader(colId);
+    int offset = columnReader._offsets[rowId];
+    int length = columnReader._data.getInt(offset) / 2;
+    char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
+      chars[i] = columnReader._data.getChar(offset + 4 + i * 2);
+    }
+    return chars;
+  }
+
+  @Nonnull
+  @Override
+  public short[] getShortArray(int rowId, int colId) {
+    ColumnReader columnReader = getColumnReader(colId);
+    int offset = columnReader._offsets[rowId];
+    int length = columnReader._data.getInt(offset) / 2;
+    short[] shorts = new short[length];
+    for (int i = 0; i < length; i++) {
+      shorts[i] = columnReader._data.getShort(offset + 4 + i * 2);
+    }
+    return shorts;
+  }
+
+  @Nonnull
+  @Override
+  public int[] getIntArray(int rowId, int colId) {
+    ColumnReader columnReader = getColumnReader(colId);
+    int offset = columnReader._offsets[rowId];
+    int length = columnReader._data.getInt(offset) / 4;
+    int[] ints = new int[length];
+    for (int i = 0; i < length; i++) {
+      ints[i] = columnReader._data.getInt(offset + 4 + i * 4);
+    }
+    return ints;
+  }
+
+  @Nonnull
+  @Override
+  public long[] getLongArray(int rowId, int colId) {
+    ColumnReader columnReader = getColumnReader(colId);
+    int offset = columnReader._offsets[rowId];
+    int length = columnReader._data.getInt(offset) / 8;
+    long[] longs = new long[length];
+    for (int i = 0; i < length; i++) {
+      longs[i] = columnReader._data.getLong(offset + 4 + i * 8);
+    }
+    return longs;
+  }
+
+  @Nonnull
+  @Override
+  public float[] getFloatArray(int rowId, int colId) {
+    ColumnReader columnReader = getColumnReader(colId);
+    int offset = columnReader._offsets[rowId];
+    int length = columnReader._data.getInt(offset) / 4;
+    float[] floats = new float[length];
+    for (int i = 0; i < length; i++) {
+      floats[i] = columnReader._data.getFloat(offset + 4 + i * 4);
+    }
+    return floats;
+  }
+
+  @Nonnull
+  @Override
+  public double[] getDoubleArray(int rowId, int colId) {
+    ColumnReader columnReader = getColumnReader(colId);
+    int offset = columnReader._offsets[rowId];
+    int length = columnReader._data.getInt(offset) / 8;
+    double[] doubles = new double[length];
+    for (int i = 0; i < length; i++) {
+      doubles[i] = columnReader._data.getDouble(offset + 4 + i * 8);
+    }
+    return doubles;
+  }
+
+  @Nonnull
+  @Override
+  public String[] getStringArray(int rowId, int colId) {
+    ColumnReader columnReader = getColumnReader(colId);
+    ByteBuffer data = columnReader._data;
+    int offset = columnReader._offsets[rowId] + 4;
+    int length = data.getInt(offset);
+    offset += 4;
+    String[] strings = new String[length];
+    for (int i = 0; i < length; i++) {
+      int valueLength = data.getInt(offset);
+      offset += 4;
+      strings[i] = decodeString(data, offset, valueLength);
+      offset += valueLength;
+    }
+    return strings;
+  }
+
+  @Override
+  public String toString() {
+    if (_dataSchema == null) {
+      return getMetadata().toString();
+    }
+    return _dataSchema.toString() + "\nnumRows: " + _numRows + "\n";
+  }
+
+  /**
+   * Decompressed and decoded values for one column.
+   * <ul>
+   *   <li>PLAIN fixed-width values are read directly from the data buffer</li>
+   *   <li>Bit-packed values and dictionary ids are decoded into a long array</li>
+   *   <li>PLAIN variable-width values are located with the offset of each row inside the data buffer</li>
+   * </ul>
+   */
+  private class ColumnReader {
+    private final ByteBuffer _data;
+    private long[] _longValues;
+    private String[] _dictionary;
+    private int[] _offsets;
+
+    ColumnReader(@Nullable ByteBuffer columnBuffer, @Nonnull FieldSpec.DataType columnType)
+        throws IOException {
+      if (columnBuffer == null) {
+        // No rows inside the data table.
+        _data = ByteBuffer.allocate(0);
+        _longValues = new long[0];
+        _offsets = new int[0];
+        return;
+      }
+
+      ColumnEncoding encoding = ColumnEncoding.values()[columnBuffer.get(0)];
+      CompressionType compressionType = CompressionType.values()[columnBuffer.get(1)];
+      int uncompressedSize = columnBuffer.getInt(2);
+      ByteBuffer payload = columnBuffer.duplicate();
+      payload.position(COLUMN_HEADER_SIZE);
+      payload = payload.slice();
+      if (compressionType == CompressionType.NONE) {
+        _data = payload;
+      } else {
+        _data = decompress(payload, uncompressedSize, compressionType);
+      }
+
+      switch (encoding) {
+        case PLAIN:
+          if (isVariableSize(columnType)) {
+            _offsets = new int[_numRows];
+            int offset = 0;
+            for (int i = 0; i < _numRows; i++) {
+              _offsets[i] = offset;
+              offset += 4 + _data.getInt(offset);
+            }
+          }
+          break;
+        case BIT_PACKED:
+          _longValues = readBitPacked(_data, 9, _numRows, _data.getLong(0), _data.get(8));
+          break;
+        case DELTA_BIT_PACKED:
+          long[] deltas = readBitPacked(_data, 17, _numRows - 1, _data.getLong(8), _data.get(16));
+          _longValues = new long[_numRows];
+          _longValues[0] = _data.getLong(0);
+          for (int i = 1; i < _numRows; i++) {
+            _longValues[i] = _longValues[i - 1] + deltas[i - 1];
+          }
+          break;
+        case DICTIONARY:
+          int offset = 0;
+          int dictionarySize = _data.getInt(offset);
+          offset += 4;
+          _dictionary = new String[dictionarySize];
+          for (int i = 0; i < dictionarySize; i++) {
+            int length = _data.getInt(offset);
+            offset += 4;
+            _dictionary[i] = decodeString(_data, offset, length);
+            offset += length;
+          }
+          int numBits = _data.get(offset);
+          offset += 1;
+          _longValues = readBitPacked(_data, offset, _numRows, 0, numBits);
+          break;
+        default:
+          throw new IllegalStateException("Unsupported column encoding: " + encoding);
+      }
+    }
+
+    private boolean isVariableSize(@Nonnull FieldSpec.DataType columnType) {
+      switch (columnType) {
+        case BOOLEAN:
+        case BYTE:
+        case CHAR:
+        case SHORT:
+        case INT:
+        case LONG:
+        case FLOAT:
+        case DOUBLE:
+        case STRING:
+          return false;
+        default:
+          return true;
+      }
+    }
+  }
+}
@@ -0,0 +1,538 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.common.datatable;
+
+import com.linkedin.pinot.common.response.ProcessingException;
+import com.linkedin.pinot.common.utils.DataSchema;
+import com.linkedin.pinot.common.utils.DataTable;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * Read-only data table in the same format as {@link DataTableImplV2}, which reads values directly off the serialized
+ * bytes without copying them. (broker side)
+ * <ul>
+ *   <li>Fixed size and variable size data are read with absolute gets from slices of the buffer passed in.</li>
+ *   <li>Metadata is decoded on the first access.</li>
+ *   <li>Dictionary for a column is indexed on the first access, and each value is decoded on the first lookup.</li>
+ * </ul>
+ * <p>The buffer passed in must not be modified while the data table is in use.
+ */
+public class LazyDataTableImplV2 implements DataTable {
+  private static final int VERSION = 2;
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int HEADER_SIZE = (Integer.SIZE / Byte.SIZE) * 13;
+
+  private final int _numRows;
+  private final int _numColumns;
+  private final DataSchema _dataSchema;
+  private final int[] _columnOffsets;
+  private final int _rowSizeInBytes;
+  private final ByteBuffer _dictionaryMapBuffer;
+  private final ByteBuffer _metadataBuffer;
+  private final ByteBuffer _dataSchemaBuffer;
+  private final ByteBuffer _fixedSizeData;
+  private final ByteBuffer _variableSizeData;
+
+  // Lazily initialized
+  private Map<String, LazyDictionary> _dictionaryMap;
+  private Map<String, String> _metadata;
+
+  /**
+   * Construct data table on top of the serialized bytes. (broker side)
+   *
+   * @param byteBuffer byte buffer starting at the beginning of the serialized data table (including the version).
+   */
+  public LazyDataTableImplV2(@Nonnull ByteBuffer byteBuffer)
+      throws IOException {
+    // Read header.
+    int version = byteBuffer.getInt(0);
+    if (version != VERSION) {
+      throw new UnsupportedOperationException("Unsupported data table version: " + version);
+    }
+    _numRows = byteBuffer.getInt(4);
+    _numColumns = byteBuffer.getInt(8);
+    _dictionaryMapBuffer = getSection(byteBuffer, 12);
+    _metadataBuffer = getSection(byteBuffer, 20);
+    _dataSchemaBuffer = getSection(byteBuffer, 28);
+    _fixedSizeData = getSection(byteBuffer, 36);
+    _variableSizeData = getSection(byteBuffer, 44);
+
+    // Read data schema.
+    if (_dataSchemaBuffer != null) {
+      byte[] schemaBytes = new byte[_dataSchemaBuffer.limit()];
+      _dataSchemaBuffer.duplicate().get(schemaBytes);
+      _dataSchema = DataSchema.fromBytes(schemaBytes);
+      _columnOffsets = new int[_dataSchema.size()];
+      _rowSizeInBytes = DataTableUtils.computeColumnOffsets(_dataSchema, _columnOffsets);
+    } else {
+      _dataSchema = null;
+      _columnOffsets = null;
+      _rowSizeInBytes = 0;
+    }
+  }
+
+  /**
+   * Helper method to get the slice for the section with (START|SIZE) stored at the given header offset, or null if the
+   * section is empty.
+   */
+  @Nullable
+  private static ByteBuffer getSection(@Nonnull ByteBuffer byteBuffer, int headerOffset) {
+    int start = byteBuffer.getInt(headerOffset);
+    int length = byteBuffer.getInt(headerOffset + 4);
+    if (length == 0) {
+      return null;
+    }
+    ByteBuffer duplicate = byteBuffer.duplicate();
+    duplicate.position(start);
+    duplicate.limit(start + length);
+    return duplicate.slice();
+  }
+
+  /**
+   * Helper method to decode an UTF-8 string from the buffer at the given offset, without copying when the buffer is
+   * backed by an array.
+   */
+  private static String decodeString(@Nonnull ByteBuffer byteBuffer, int offset, int length) {
+    if (byteBuffer.hasArray()) {
+      return new String(byteBuffer.array(), byteBuffer.arrayOffset() + offset, length, UTF_8);
+    }
+    byte[] bytes = new byte[length];
+    ByteBuffer duplicate = byteBuffer.duplicate();
+    duplicate.position(offset);
+    duplicate.get(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  private Map<String, LazyDictionary> getDictionaryMap() {
+    if (_dictionaryMap == null) {
+      // Only record the offset of each dictionary entry, the values are decoded on demand.
+      int offset = 0;
+      int numDictionaries = _dictionaryMapBuffer.getInt(offset);
+      offset += 4;
+      Map<String, LazyDictionary> dictionaryMap = new HashMap<>(numDictionaries);
+      for (int i = 0; i < numDictionaries; i++) {
+        int columnNameLength = _dictionaryMapBuffer.getInt(offset);
+        offset += 4;
+        String columnName = decodeString(_dictionaryMapBuffer, offset, columnNameLength);
+        offset += columnNameLength;
+        int dictionarySize = _dictionaryMapBuffer.getInt(offset);
+        offset += 4;
+        LazyDictionary dictionary = new LazyDictionary(dictionarySize);
+        for (int j = 0; j < dictionarySize; j++) {
+          int key = _dictionaryMapBuffer.getInt(offset);
+          offset += 4;
+          dictionary.putValueOffset(key, offset);
+          offset += 4 + _dictionaryMapBuffer.getInt(offset);
+        }
+        dictionaryMap.put(columnName, dictionary);
+      }
+      _dictionaryMap = dictionaryMap;
+    }
+    return _dictionaryMap;
+  }
+
+  @Override
+  public void addException(@Nonnull ProcessingException processingException) {
+    getMetadata().put(EXCEPTION_METADATA_KEY + processingException.getErrorCode(), processingException.getMessage());
+  }
+
+  @Nonnull
+  @Override
+  public byte[] toBytes()
+      throws IOException {
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    DataOutputStream dataOutputStream = new DataOutputStream(byteArrayOutputStream);
+    dataOutputStream.writeInt(VERSION);
+    dataOutputStream.writeInt(_numRows);
+    dataOutputStream.writeInt(_numColumns);
+
+    // Metadata might be modified, so always serialize it from the map.
+    byte[] metadataBytes = serializeMetadata();
+
+    // Write header.
+    int dataOffset = HEADER_SIZE;
+    dataOffset = writeSectionHeader(dataOutputStream, dataOffset, getSectionLength(_dictionaryMapBuffer));
+    dataOffset = writeSectionHeader(dataOutputStream, dataOffset, metadataBytes.length);
+    dataOffset = writeSectionHeader(dataOutputStream, dataOffset, getSectionLength(_dataSchemaBuffer));
+    dataOffset = writeSectionHeader(dataOutputStream, dataOffset, getSectionLength(_fixedSizeData));
+    writeSectionHeader(dataOutputStream, dataOffset, getSectionLength(_variableSizeData));
+
+    // Write actual data.
+    writeSection(dataOutputStream, _dictionaryMapBuffer);
+    dataOutputStream.write(metadataBytes);
+    writeSection(dataOutputStream, _dataSchemaBuffer);
+    writeSection(dataOutputStream, _fixedSizeData);
+    writeSection(dataOutputStream, _variableSizeData);
+
+    return byteArrayOutputStream.toByteArray();
+  }
+
+  private static int getSectionLength(@Nullable ByteBuffer section) {
+    return section != null ? section.limit() : 0;
+  }
+
+  private static int writeSectionHeader(@Nonnull DataOutputStream dataOutputStream, int dataOffset, int length)
+      throws IOException {
+    dataOutputStream.writeInt(dataOffset);
+    dataOutputStream.writeInt(length);
+    return dataOffset + length;
+  }
+
+  private static void writeSection(@Nonnull DataOutputStream dataOutputStream, @Nullable ByteBuffer section)
+      throws IOException {
+    if (section == null) {
+      return;
+    }
+    if (section.hasArray()) {
+      dataOutputStream.write(section.array(), section.arrayOffset(), section.limit());
+    } else {
+      byte[] bytes = new byte[section.limit()];
+      section.duplicate().get(bytes);
+      dataOutputStream.write(bytes);
+    }
+  }
+
+  private byte[] serializeMetadata()
+      throws IOException {
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    DataOutputStream dataOutputStream = new DataOutputStream(byteArrayOutputStream);
+
+    Map<String, String> metadata = getMetadata();
+    dataOutputStream.writeInt(metadata.size());
+    for (Entry<String, String> entry : metadata.entrySet()) {
+      byte[] keyBytes = entry.getKey().getBytes(UTF_8);
+      dataOutputStream.writeInt(keyBytes.length);
+      dataOutputStream.write(keyBytes);
+
+      byte[] valueBytes = entry.getValue().getBytes(UTF_8);
+      dataOutputStream.writeInt(valueBytes.length);
+      dataOutputStream.write(valueBytes);
+    }
+
+    return byteArrayOutputStream.toByteArray();
+  }
+
+  @Nonnull
+  @Override
+  public Map<String, String> getMetadata() {
+    if (_metadata == null) {
+      if (_metadataBuffer == null) {
+        _metadata = new HashMap<>();
+        return _metadata;
+      }
+      int offset = 0;
+      int numEntries = _metadataBuffer.getInt(offset);
+      offset += 4;
+      Map<String, String> metadata = new HashMap<>(numEntries);
+      for (int i = 0; i < numEntries; i++) {
+        int keyLength = _metadataBuffer.getInt(offset);
+        offset += 4;
+        String key = decodeString(_metadataBuffer, offset, keyLength);
+        offset += keyLength;
+
+        int valueLength = _metadataBuffer.getInt(offset);
+        offset += 4;
+        String value = decodeString(_metadataBuffer, offset, valueLength);
+        offset += valueLength;
+
+        metadata.put(key, value);
+      }
+      _metadata = metadata;
+    }
+    return _metadata;
+  }
+
+  @Nullable
+  @Override
+  public DataSchema getDataSchema() {
+    return _dataSchema;
+  }
+
+  @Override
+  public int getNumberOfRows() {
+    return _numRows;
+  }
+
+  private int getFixedSizeDataOffset(int rowId, int colId) {
+    return rowId * _rowSizeInBytes + _columnOffsets[colId];
+  }
+
+  @Override
+  public boolean getBoolean(int rowId, int colId) {
+    return _fixedSizeData.get(getFixedSizeDataOffset(rowId, colId)) == 1;
+  }
+
+  @Override
+  public char getChar(int rowId, int colId) {
+    return _fixedSizeData.getChar(getFixedSizeDataOffset(rowId, colId));
+  }
+
+  @Override
+  public byte getByte(int rowId, int colId) {
+    return _fixedSizeData.get(getFixedSizeDataOffset(rowId, colId));
+  }
+
+  @Override
+  public short getShort(int rowId, int colId) {
+    return _fixedSizeData.getShort(getFixedSizeDataOffset(rowId, colId));
+  }
+
+  @Override
+  public int getInt(int rowId, int colId) {
+    return _fixedSizeData.getInt(getFixedSizeDataOffset(rowId, colId));
+  }
+
+  @Override
+  public long getLong(int rowId, int colId) {
+    return _fixedSizeData.getLong(getFixedSizeDataOffset(rowId, colId));
+  }
+
+  @Override
+  public float getFloat(int rowId, int colId) {
+    return _fixedSizeData.getFloat(getFixedSizeDataOffset(rowId, colId));
+  }
+
+  @Override
+  public double getDouble(int rowId, int colId) {
+    return _fixedSizeData.getDouble(getFixedSizeDataOffset(rowId, colId));
+  }
+
+  @Nonnull
+  @Override
+  public String getString(int rowId, int colId) {
+    int dictId = _fixedSizeData.getInt(getFixedSizeDataOffset(rowId, colId));
+    return getDictionaryMap().get(_dataSchema.getColumnName(colId)).get(dictId);
+  }
+
+  @Nonnull
+  @Override
+  public <T> T getObject(int rowId, int colId) {
+    int offset = getFixedSizeDataOffset(rowId, colId);
+    int position = _fixedSizeData.getInt(offset);
+    int size = _fixedSizeData.getInt(offset + 4);
+    ObjectType objectType = ObjectType.getObjectType(_variableSizeData.getInt(position));
+    ByteBuffer byteBuffer = _variableSizeData.duplicate();
+    byteBuffer.position(position + 4);
+    byteBuffer = byteBuffer.slice();
+    byteBuffer.limit(size);
+    try {
+      return ObjectCustomSerDe.deserialize(byteBuffer, objectType);
+    } catch (IOException e) {
+      throw new RuntimeException("Caught exception while de-serializing object.", e);
+    }
+  }
+
+  @Nonnull
+  @Override
+  public byte[] getByteArray(int rowId, int colId) {
+    int offset = getFixedSizeDataOffset(rowId, colId);
+    int position = _fixedSizeData.getInt(offset);
+    int length = _fixedSizeData.getInt(offset + 4);
+    byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++) {
+      bytes[i] = _variableSizeData.get(position + i);
+    }
+    return bytes;
+  }
+
+  @Nonnull
+  @Override
+  public char[] getCharArray(int rowId, int colId) {
+    int offset = getFixedSizeDataOffset(rowId, colId);
+    int position = _fixedSizeData.getInt(offset);
+    int length = _fixedSizeData.getInt(offset + 4);
+    char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
+      chars[i] = _variableSizeData.getChar(position + i * 2);
+    }
+    return chars;
+  }
+
+  @Nonnull
+  @Override
+  public short[] getShortArray(int rowId, int colId) {
+    int offset = getFixedSizeDataOffset(rowId, colId);
+    int position = _fixedSizeData.getInt(offset);
+    int length = _fixedSizeData.getInt(offset + 4);
+    short[] shorts = new short[length];
+    for (int i = 0; i < length; i++) {
+      shorts[i] = _variableSizeData.getShort(position + i * 2);
+    }
+    return shorts;
+  }
+
+  @Nonnull
+  @Override
+  public int[] getIntArray(int rowId, int colId) {
+    int offset = getFixedSizeDataOffset(rowId, colId);
+    int position = _fixedSizeData.getInt(offset);
+    int length = _fixedSizeData.getInt(offset + 4);
+    int[] ints = new int[length];
+    for (int i = 0; i < length; i++) {
+      ints[i] = _variableSizeData.getInt(position + i * 4);
+    }
+    return ints;
+  }
+
+  @Nonnull
+  @Override
+  public long[] getLongArray(int rowId, int colId) {
+    int offset = getFixedSizeDataOffset(rowId, colId);
+    int position = _fixedSizeData.getInt(offset);
+    int length = _fixedSizeData.getInt(offset + 4);
+    long[] longs = new long[length];
+    for (int i = 0; i < length; i++) {
+      longs[i] = _variableSizeData.getLong(position + i * 8);
+    }
+    return longs;
+  }
+
+  @Nonnull
+  @Override
+  public float[] getFloatArray(int rowId, int colId) {
+    int offset = getFixedSizeDataOffset(rowId, colId);
+    int position = _fixedSizeData.getInt(offset);
+    int length = _fixedSizeData.getInt(offset + 4);
+    float[] floats = new float[length];
+    for (int i = 0; i < length; i++) {
+      floats[i] = _variableSizeData.getFloat(position + i * 4);
+    }
+    return floats;
+  }
+
+  @Nonnull
+  @Override
+  public double[] getDoubleArray(int rowId, int colId) {
+    int offset = getFixedSizeDataOffset(rowId, colId);
+    int position = _fixedSizeData.getInt(offset);
+    int length = _fixedSizeData.getInt(offset + 4);
+    double[] doubles = new double[length];
+    for (int i = 0; i < length; i++) {
+      doubles[i] = _variableSizeData.getDouble(position + i * 8);
+    }
+    return doubles;
+  }
+
+  @Nonnull
+  @Override
+  public String[] getStringArray(int rowId, int colId) {
+    int offset = getFixedSizeDataOffset(rowId, colId);
+    int position = _fixedSizeData.getInt(offset);
+    int length = _fixedSizeData.getInt(offset + 4);
+    String[] strings = new String[length];
+    LazyDictionary dictionary = getDictionaryMap().get(_dataSchema.getColumnName(colId));
+    for (int i = 0; i < length; i++) {
+      strings[i] = dictionary.get(_variableSizeData.getInt(position + i * 4));
+    }
+    return strings;
+  }
+
+  @Override
+  public String toString() {
+    if (_dataSchema == null) {
+      return getMetadata().toString();
+    }
+
+    StringBuilder stringBuilder = new StringBuilder();
+    stringBuilder.append(_dataSchema.toString()).append('\n');
+    stringBuilder.append("numRows: ").append(_numRows).append('\n');
+
+    for (int rowId = 0; rowId < _numRows; rowId++) {
+      for (int colId = 0; colId < _numColumns; colId++) {
+        int offset = getFixedSizeDataOffset(rowId, colId);
+        switch (_dataSchema.getColumnType(colId)) {
+          case BOOLEAN:
+          case BYTE:
+            stringBuilder.append(_fixedSizeData.get(offset));
+            break;
+          case CHAR:
+            stringBuilder.append(_fixedSizeData.getChar(offset));
+            break;
+          case SHORT:
+            stringBuilder.append(_fixedSizeData.getShort(offset));
+            break;
+          case INT:
+          case STRING:
+            stringBuilder.append(_fixedSizeData.getInt(offset));
+            break;
+          case LONG:
+            stringBuilder.append(_fixedSizeData.getLong(offset));
+            break;
+          case FLOAT:
+            stringBuilder.append(_fixedSizeData.getFloat(offset));
+            break;
+          case DOUBLE:
+            stringBuilder.append(_fixedSizeData.getDouble(offset));
+            break;
+          // Object and array.
+          default:
+            stringBuilder.append(
+                String.format("(%s:%s)", _fixedSizeData.getInt(offset), _fixedSizeData.getInt(offset + 4)));
+            break;
+        }
+        stringBuilder.append("\t");
+      }
+      stringBuilder.append("\n");
+    }
+    return stringBuilder.toString();
+  }
+
+  /**
+   * Dictionary for one column, which records the offset of each value inside the dictionary section and decodes the
+   * value on the first lookup.
+   * <p>Dictionary ids generated by {@link DataTableBuilder} are contiguous starting from 0, so they are used to index
+   * into arrays directly.
+   */
+  private class LazyDictionary {
+    private int[] _valueOffsets;
+    private String[] _values;
+
+    LazyDictionary(int dictionarySize) {
+      _valueOffsets = new int[dictionarySize];
+      _values = new String[dictionarySize];
+    }
+
+    void putValueOffset(int dictId, int valueOffset) {
+      if (dictId >= _valueOffsets.length) {
+        int newSize = Math.max(dictId + 1, _valueOffsets.length * 2);
+        _valueOffsets = Arrays.copyOf(_valueOffsets, newSize);
+        _values = Arrays.copyOf(_values, newSize);
+      }
+      _valueOffsets[dictId] = valueOffset;
+    }
+
+    String get(int dictId) {
+      String value = _values[dictId];
+      if (value == null) {
+        int valueOffset = _valueOffsets[dictId];
+        value = decodeString(_dictionaryMapBuffer, valueOffset + 4, _dictionaryMapBuffer.getInt(valueOffset));
+        _values[dictId] = value;
+      }
+      return value;
+    }
+  }
+}
@@ -241,6 +241,24 @@ public class PlainFieldExtractor implements FieldExtractor {
     return destinationRow;
   }
 
+  /**
+   * Add the counters of the given field extractor into this one, and reset the counters of the given one.
+   * <p>Used to collect the counters from the field extractors transforming rows in parallel.
+   */
+  public void mergeAndResetCounters(PlainFieldExtractor fieldExtractor) {
+    _totalErrors += fieldExtractor._totalErrors;
+    _totalNulls += fieldExtractor._totalNulls;
+    _totalConversions += fieldExtractor._totalConversions;
+    _totalNullCols += fieldExtractor._totalNullCols;
+    for (Map.Entry<String, Integer> entry : fieldExtractor._errorCount.entrySet()) {
+      String column = entry.getKey();
+      Integer count = _errorCount.get(column);
+      _errorCount.put(column, count == null ? entry.getValue() : count + entry.getValue());
+      entry.setValue(0);
+    }
+    fieldExtractor.resetCounters();
+  }
+
   public Map<String, Integer> getErrorCount() {
     return _errorCount;
   }
@@ -16,6 +16,7 @@
 package com.linkedin.pinot.core.data.manager.offline;
 
 import com.linkedin.pinot.common.data.DataManager;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
 import java.util.Collection;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -32,4 +33,11 @@ public interface InstanceDataManager extends DataManager {
 
   @Nonnull
   Collection<TableDataManager> getTableDataManagers();
+
+  /**
+   * Get the per-segment result cache shared by the table data managers and the query executor of this instance.
+   * @return Segment result cache, null if not enabled
+   */
+  @Nullable
+  SegmentResultCache getSegmentResultCache();
 }
@@ -17,16 +17,29 @@ package com.linkedin.pinot.core.data.manager.offline;
 
 import com.linkedin.pinot.common.data.Schema;
 import com.linkedin.pinot.common.metadata.ZKMetadataProvider;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
 import com.linkedin.pinot.core.segment.index.loader.IndexLoadingConfig;
 import java.io.File;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 
 /**
  * Table data manager for OFFLINE table.
  */
 public class OfflineTableDataManager extends AbstractTableDataManager {
+  // Per-segment result cache shared with the query executor of the server, null if not enabled.
+  private final SegmentResultCache _segmentResultCache;
+
+  public OfflineTableDataManager() {
+    this(null);
+  }
+
+  public OfflineTableDataManager(@Nullable SegmentResultCache segmentResultCache) {
+    _segmentResultCache = segmentResultCache;
+  }
 
   @Override
   protected void doInit() {
@@ -41,4 +54,23 @@ public class OfflineTableDataManager extends AbstractTableDataManager {
     Schema schema = ZKMetadataProvider.getTableSchema(_propertyStore, _tableName);
     addSegment(ColumnarSegmentLoader.load(indexDir, indexLoadingConfig, schema));
   }
+
+  @Override
+  public void addSegment(@Nonnull IndexSegment indexSegmentToAdd) {
+    super.addSegment(indexSegmentToAdd);
+    // Drop cached results for the replaced segment
+    invalidateSegmentResultCache(indexSegmentToAdd.getSegmentName());
+  }
+
+  @Override
+  public void removeSegment(String segmentName) {
+    super.removeSegment(segmentName);
+    invalidateSegmentResultCache(segmentName);
+  }
+
+  private void invalidateSegmentResultCache(String segmentName) {
+    if (_segmentResultCache != null) {
+      _segmentResultCache.invalidate(_tableName, segmentName);
+    }
+  }
 }
@@ -18,7 +18,9 @@ package com.linkedin.pinot.core.data.manager.offline;
 import com.linkedin.pinot.common.metrics.ServerMetrics;
 import com.linkedin.pinot.core.data.manager.config.TableDataManagerConfig;
 import com.linkedin.pinot.core.data.manager.realtime.RealtimeTableDataManager;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.apache.helix.ZNRecord;
 import org.apache.helix.store.zk.ZkHelixPropertyStore;
 
@@ -36,11 +38,21 @@ public class TableDataManagerProvider {
   public static TableDataManager getTableDataManager(@Nonnull TableDataManagerConfig tableDataManagerConfig,
       @Nonnull String instanceId, @Nonnull ZkHelixPropertyStore<ZNRecord> propertyStore,
       @Nonnull ServerMetrics serverMetrics) {
+    return getTableDataManager(tableDataManagerConfig, instanceId, propertyStore, serverMetrics, null);
+  }
+
+  /**
+   * Get the table data manager, where OFFLINE tables drop the cached results of their replaced or removed segments from
+   * the given per-segment result cache (if not null).
+   */
+  public static TableDataManager getTableDataManager(@Nonnull TableDataManagerConfig tableDataManagerConfig,
+      @Nonnull String instanceId, @Nonnull ZkHelixPropertyStore<ZNRecord> propertyStore,
+      @Nonnull ServerMetrics serverMetrics, @Nullable SegmentResultCache segmentResultCache) {
     String tableDataManagerType = tableDataManagerConfig.getTableDataManagerType().toUpperCase();
     TableDataManager tableDataManager;
     switch (tableDataManagerType) {
       case OFFLINE_TABLE_DATA_MANAGER_TYPE:
-        tableDataManager = new OfflineTableDataManager();
+        tableDataManager = new OfflineTableDataManager(segmentResultCache);
         break;
       case REALTIME_TABLE_DATA_MANAGER_TYPE:
         tableDataManager = new RealtimeTableDataManager();
@@ -17,6 +17,7 @@
 package com.linkedin.pinot.core.data.manager.realtime;
 
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.common.util.concurrent.Uninterruptibles;
 import com.linkedin.pinot.common.config.IndexingConfig;
 import com.linkedin.pinot.common.config.SegmentPartitionConfig;
@@ -57,6 +58,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -213,6 +219,12 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
   private String _stopReason = null;
   private final Semaphore _segBuildSemaphore;
 
+  // Pipelined consumption: the next batch of messages is fetched and decoded while indexing the current one
+  private final ParallelMessageBatchDecoder _parallelDecoder;
+  private final ExecutorService _fetchExecutor;
+  private Future<ParallelMessageBatchDecoder.DecodedMessageBatch> _prefetchFuture = null;
+  private long _prefetchOffset = -1;
+
 
   // TODO each time this method is called, we print reason for stop. Good to print only once.
   private boolean endCriteriaReached() {
@@ -305,9 +317,15 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
       // Consume for the next _kafkaReadTime ms, or we get to final offset, whichever happens earlier,
       // Update _currentOffset upon return from this method
       MessageBatch messageBatch = null;
+      ParallelMessageBatchDecoder.DecodedMessageBatch decodedMessageBatch = null;
       try {
-        messageBatch = _consumerWrapper.fetchMessages(_currentOffset, _endOffset,
-            _kafkaStreamMetadata.getKafkaFetchTimeoutMillis());
+        if (_parallelDecoder != null) {
+          decodedMessageBatch = fetchAndDecodeMessages(_currentOffset, _endOffset);
+          messageBatch = decodedMessageBatch.getMessageBatch();
+        } else {
+          messageBatch = _consumerWrapper.fetchMessages(_currentOffset, _endOffset,
+              _kafkaStreamMetadata.getKafkaFetchTimeoutMillis());
+        }
         consecutiveErrorCount = 0;
       } catch (TimeoutException e) {
         handleTransientKafkaErrors(e);
@@ -325,7 +343,10 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
         continue;
       }
 
-      processKafkaEvents(messageBatch, idlePipeSleepTimeMillis);
+      if (decodedMessageBatch != null) {
+        prefetchMessages(messageBatch, _endOffset);
+      }
+      processKafkaEvents(messageBatch, decodedMessageBatch, idlePipeSleepTimeMillis);
 
       if (_currentOffset != lastUpdatedOffset) {
         // We consumed something. Update the highest kafka offset as well as partition-consuming metric.
@@ -343,6 +364,10 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
       }
     }
 
+    if (_parallelDecoder != null) {
+      discardPrefetchedMessages();
+      _parallelDecoder.mergeCountersInto(_fieldExtractor);
+    }
     _serverMetrics.addMeteredTableValue(_metricKeyName, ServerMeter.ROWS_WITH_ERRORS,
         (long) _fieldExtractor.getTotalErrors());
     _serverMetrics.addMeteredTableValue(_metricKeyName, ServerMeter.ROWS_NEEDING_CONVERSIONS,
@@ -354,7 +379,72 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
     return true;
   }
 
-  private void processKafkaEvents(MessageBatch messagesAndOffsets, long idlePipeSleepTimeMillis) {
+  /**
+   * Fetch the messages from the given offset, and start decoding them. Use the prefetched messages if they start from
+   * the given offset, otherwise discard them.
+   */
+  private ParallelMessageBatchDecoder.DecodedMessageBatch fetchAndDecodeMessages(long startOffset, long endOffset)
+      throws Exception {
+    if (_prefetchFuture != null) {
+      Future<ParallelMessageBatchDecoder.DecodedMessageBatch> prefetchFuture = _prefetchFuture;
+      _prefetchFuture = null;
+      if (_prefetchOffset == startOffset) {
+        try {
+          return Uninterruptibles.getUninterruptibly(prefetchFuture);
+        } catch (ExecutionException e) {
+          // Surface the Kafka exception so that it gets handled the same way as a direct fetch
+          Throwable cause = e.getCause();
+          if (cause instanceof Exception) {
+            throw (Exception) cause;
+          }
+          throw e;
+        }
+      }
+      discardPrefetchedMessages(prefetchFuture);
+    }
+    return _parallelDecoder.decode(
+        _consumerWrapper.fetchMessages(startOffset, endOffset, _kafkaStreamMetadata.getKafkaFetchTimeoutMillis()));
+  }
+
+  /**
+   * Start fetching and decoding the messages following the given batch on the fetch thread, so that they are ready when
+   * we are done indexing the given batch. Only prefetch when we expect to consume past the given batch.
+   */
+  private void prefetchMessages(MessageBatch messageBatch, final long endOffset) {
+    int messageCount = messageBatch.getMessageCount();
+    if (messageCount == 0 || _state != State.INITIAL_CONSUMING
+        || _numRowsConsumed + messageCount >= _segmentMaxRowCount) {
+      return;
+    }
+    final long nextOffset = messageBatch.getNextKafkaMessageOffsetAtIndex(messageCount - 1);
+    _prefetchOffset = nextOffset;
+    _prefetchFuture = _fetchExecutor.submit(new Callable<ParallelMessageBatchDecoder.DecodedMessageBatch>() {
+      @Override
+      public ParallelMessageBatchDecoder.DecodedMessageBatch call() throws Exception {
+        return _parallelDecoder.decode(
+            _consumerWrapper.fetchMessages(nextOffset, endOffset, _kafkaStreamMetadata.getKafkaFetchTimeoutMillis()));
+      }
+    });
+  }
+
+  private void discardPrefetchedMessages() {
+    if (_prefetchFuture != null) {
+      discardPrefetchedMessages(_prefetchFuture);
+      _prefetchFuture = null;
+    }
+  }
+
+  private void discardPrefetchedMessages(Future<ParallelMessageBatchDecoder.DecodedMessageBatch> prefetchFuture) {
+    try {
+      Uninterruptibles.getUninterruptibly(prefetchFuture).discard();
+    } catch (ExecutionException e) {
+      segmentLogger.info("Discarding prefetched messages that failed to fetch: {}", e.getCause().getMessage());
+    }
+  }
+
+  private void processKafkaEvents(MessageBatch messagesAndOffsets,
+      ParallelMessageBatchDecoder.DecodedMessageBatch decodedMessages, long idlePipeSleepTimeMillis)
+      throws InterruptedException {
     Meter realtimeRowsConsumedMeter = null;
     Meter realtimeRowsDroppedMeter = null;
 
@@ -387,15 +477,25 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
       }
 
       // Index each message
-      decodedRow = GenericRow.createOrReuseRow(decodedRow);
-
-      decodedRow = _messageDecoder
-          .decode(messagesAndOffsets.getMessageAtIndex(index), messagesAndOffsets.getMessageOffsetAtIndex(index),
-              messagesAndOffsets.getMessageLengthAtIndex(index), decodedRow);
+      boolean decoded;
+      if (decodedMessages != null) {
+        // The message has been decoded and transformed by the parallel decoder
+        decoded = decodedMessages.waitForMessage(index);
+      } else {
+        decodedRow = GenericRow.createOrReuseRow(decodedRow);
+        decodedRow = _messageDecoder
+            .decode(messagesAndOffsets.getMessageAtIndex(index), messagesAndOffsets.getMessageOffsetAtIndex(index),
+                messagesAndOffsets.getMessageLengthAtIndex(index), decodedRow);
+        decoded = decodedRow != null;
+      }
 
-      if (decodedRow != null) {
-        transformedRow = GenericRow.createOrReuseRow(transformedRow);
-        transformedRow = _fieldExtractor.transform(decodedRow, transformedRow);
+      if (decoded) {
+        if (decodedMessages != null) {
+          transformedRow = decodedMessages.getTransformedRow(index);
+        } else {
+          transformedRow = GenericRow.createOrReuseRow(transformedRow);
+          transformedRow = _fieldExtractor.transform(decodedRow, transformedRow);
+        }
 
         if (transformedRow != null) {
           realtimeRowsConsumedMeter = _serverMetrics
@@ -418,6 +518,13 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
       _numRowsConsumed++;
       kafkaMessageCount++;
     }
+    if (decodedMessages != null) {
+      decodedMessages.discard();
+      if (kafkaMessageCount < messagesAndOffsets.getMessageCount()) {
+        // We stopped in the middle of the batch, so the prefetched messages do not follow the current offset
+        discardPrefetchedMessages();
+      }
+    }
     updateCurrentDocumentCountMetrics();
     if (kafkaMessageCount != 0) {
       segmentLogger.debug("Indexed {} messages ({} messages read from Kafka) current offset {}", indexedMessageCount,
@@ -838,6 +945,10 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
       segmentLogger.error("Could not stop consumer thread");
     }
     _realtimeSegment.destroy();
+    if (_parallelDecoder != null) {
+      _fetchExecutor.shutdownNow();
+      _parallelDecoder.shutDown();
+    }
     try {
       _consumerWrapper.close();
     } catch (Exception e) {
@@ -969,6 +1080,24 @@ public class LLRealtimeSegmentDataManager extends RealtimeSegmentDataManager {
 
     // Create field extractor
     _fieldExtractor = FieldExtractorFactory.getPlainFieldExtractor(schema);
+
+    // Create parallel message batch decoder if configured, each decoding thread needs its own decoder and extractor
+    int numDecoderThreads = _kafkaStreamMetadata.getKafkaDecoderNumThreads();
+    if (numDecoderThreads > 0) {
+      List<KafkaMessageDecoder> messageDecoders = new ArrayList<>(numDecoderThreads);
+      List<PlainFieldExtractor> fieldExtractors = new ArrayList<>(numDecoderThreads);
+      for (int i = 0; i < numDecoderThreads; i++) {
+        messageDecoders.add(_pinotKafkaConsumerFactory.getDecoder(kafkaStreamProviderConfig));
+        fieldExtractors.add(FieldExtractorFactory.getPlainFieldExtractor(schema));
+      }
+      _parallelDecoder = new ParallelMessageBatchDecoder(messageDecoders, fieldExtractors, _segmentNameStr);
+      _fetchExecutor = Executors.newSingleThreadExecutor(
+          new ThreadFactoryBuilder().setDaemon(true).setNameFormat(_segmentNameStr + "-fetcher").build());
+      segmentLogger.info("Using pipelined consumption with {} decoder threads", numDecoderThreads);
+    } else {
+      _parallelDecoder = null;
+      _fetchExecutor = null;
+    }
     makeConsumerWrapper("Starting");
 
     SegmentPartitionConfig segmentPartitionConfig = indexingConfig.getSegmentPartitionConfig();
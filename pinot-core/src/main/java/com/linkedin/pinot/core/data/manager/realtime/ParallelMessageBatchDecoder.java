@@ -0,0 +1,197 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.data.manager.realtime;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.extractors.PlainFieldExtractor;
+import com.linkedin.pinot.core.realtime.impl.kafka.KafkaMessageDecoder;
+import com.linkedin.pinot.core.realtime.impl.kafka.MessageBatch;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+/**
+ * Decodes and transforms the messages of Kafka message batches in parallel, while preserving the order of the
+ * messages.
+ * <p>The messages of a batch are split into chunks, which are decoded by a pool of threads. Each decoding thread works
+ * with its own message decoder and field extractor as they are not thread-safe. The decoded messages are consumed in
+ * order through {@link DecodedMessageBatch}, which waits for the chunk of the message to be decoded.
+ * <p>The caller is responsible for bounding the number of batches being decoded.
+ */
+public class ParallelMessageBatchDecoder {
+  static final int CHUNK_SIZE = 128;
+
+  private final ExecutorService _executorService;
+  private final List<DecoderContext> _decoderContexts;
+  private final BlockingQueue<DecoderContext> _availableDecoderContexts;
+
+  /**
+   * Constructor for the parallel message batch decoder.
+   *
+   * @param messageDecoders Message decoders, one for each decoding thread
+   * @param fieldExtractors Field extractors, one for each decoding thread
+   * @param threadNamePrefix Prefix of the decoding thread names
+   */
+  public ParallelMessageBatchDecoder(List<KafkaMessageDecoder> messageDecoders,
+      List<PlainFieldExtractor> fieldExtractors, String threadNamePrefix) {
+    int numThreads = messageDecoders.size();
+    _executorService = Executors.newFixedThreadPool(numThreads,
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat(threadNamePrefix + "-decoder-%d").build());
+    _decoderContexts = new ArrayList<>(numThreads);
+    _availableDecoderContexts = new ArrayBlockingQueue<>(numThreads);
+    for (int i = 0; i < numThreads; i++) {
+      DecoderContext decoderContext = new DecoderContext(messageDecoders.get(i), fieldExtractors.get(i));
+      _decoderContexts.add(decoderContext);
+      _availableDecoderContexts.add(decoderContext);
+    }
+  }
+
+  /**
+   * Start decoding the given message batch asynchronously.
+   */
+  public DecodedMessageBatch decode(MessageBatch messageBatch) {
+    int numMessages = messageBatch.getMessageCount();
+    int numChunks = (numMessages + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    final DecodedMessageBatch decodedMessageBatch = new DecodedMessageBatch(messageBatch, numChunks);
+    for (int i = 0; i < numChunks; i++) {
+      final int startIndex = i * CHUNK_SIZE;
+      final int endIndex = Math.min(startIndex + CHUNK_SIZE, numMessages);
+      decodedMessageBatch._chunkFutures.add(_executorService.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          decodeChunk(decodedMessageBatch, startIndex, endIndex);
+          return null;
+        }
+      }));
+    }
+    return decodedMessageBatch;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void decodeChunk(DecodedMessageBatch decodedMessageBatch, int startIndex, int endIndex)
+      throws InterruptedException {
+    if (decodedMessageBatch._discarded) {
+      return;
+    }
+    MessageBatch messageBatch = decodedMessageBatch._messageBatch;
+    DecoderContext decoderContext = _availableDecoderContexts.take();
+    try {
+      GenericRow decodedRow = null;
+      for (int i = startIndex; i < endIndex; i++) {
+        decodedRow = GenericRow.createOrReuseRow(decodedRow);
+        decodedRow = decoderContext._messageDecoder.decode(messageBatch.getMessageAtIndex(i),
+            messageBatch.getMessageOffsetAtIndex(i), messageBatch.getMessageLengthAtIndex(i), decodedRow);
+        if (decodedRow != null) {
+          decodedMessageBatch._decoded[i] = true;
+          // The transformed rows are kept until indexed, so they cannot be reused
+          decodedMessageBatch._transformedRows[i] =
+              decoderContext._fieldExtractor.transform(decodedRow, new GenericRow());
+        }
+      }
+    } finally {
+      _availableDecoderContexts.add(decoderContext);
+    }
+  }
+
+  /**
+   * Merge the counters of the field extractors used for decoding into the given field extractor.
+   * <p>Should only be called when no message batch is being decoded.
+   */
+  public void mergeCountersInto(PlainFieldExtractor fieldExtractor) {
+    for (DecoderContext decoderContext : _decoderContexts) {
+      fieldExtractor.mergeAndResetCounters(decoderContext._fieldExtractor);
+    }
+  }
+
+  public void shutDown() {
+    _executorService.shutdownNow();
+  }
+
+  /**
+   * Message batch being decoded.
+   */
+  public static class DecodedMessageBatch {
+    private final MessageBatch _messageBatch;
+    private final boolean[] _decoded;
+    private final GenericRow[] _transformedRows;
+    private final List<Future<Void>> _chunkFutures;
+    private volatile boolean _discarded = false;
+
+    private DecodedMessageBatch(MessageBatch messageBatch, int numChunks) {
+      int numMessages = messageBatch.getMessageCount();
+      _messageBatch = messageBatch;
+      _decoded = new boolean[numMessages];
+      _transformedRows = new GenericRow[numMessages];
+      _chunkFutures = new ArrayList<>(numChunks);
+    }
+
+    public MessageBatch getMessageBatch() {
+      return _messageBatch;
+    }
+
+    /**
+     * Wait for the message at the given index to be decoded, and return whether it is successfully decoded.
+     */
+    public boolean waitForMessage(int index) throws InterruptedException {
+      try {
+        _chunkFutures.get(index / CHUNK_SIZE).get();
+      } catch (ExecutionException e) {
+        throw new RuntimeException("Caught exception while decoding message at index: " + index, e.getCause());
+      }
+      return _decoded[index];
+    }
+
+    /**
+     * Get the transformed row for the message at the given index (can be null if the row cannot be transformed).
+     * <p>Should only be called after {@link #waitForMessage(int)} returns true for the index.
+     */
+    public GenericRow getTransformedRow(int index) {
+      return _transformedRows[index];
+    }
+
+    /**
+     * Discard the messages not yet decoded, and wait for the chunks being decoded to finish.
+     */
+    public void discard() {
+      _discarded = true;
+      for (Future<Void> chunkFuture : _chunkFutures) {
+        try {
+          chunkFuture.get();
+        } catch (Exception e) {
+          // Ignore the exception for the discarded messages
+        }
+      }
+    }
+  }
+
+  private static class DecoderContext {
+    private final KafkaMessageDecoder _messageDecoder;
+    private final PlainFieldExtractor _fieldExtractor;
+
+    private DecoderContext(KafkaMessageDecoder messageDecoder, PlainFieldExtractor fieldExtractor) {
+      _messageDecoder = messageDecoder;
+      _fieldExtractor = fieldExtractor;
+    }
+  }
+}
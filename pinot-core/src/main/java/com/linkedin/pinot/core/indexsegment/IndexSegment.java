@@ -18,6 +18,7 @@ package com.linkedin.pinot.core.indexsegment;
 import com.linkedin.pinot.common.segment.SegmentMetadata;
 import com.linkedin.pinot.core.common.DataSource;
 import com.linkedin.pinot.core.startree.StarTree;
+import java.util.List;
 
 
 /**
@@ -68,6 +69,13 @@ public interface IndexSegment {
   /** Returns the StarTree index structure, or null if it does not exist */
   StarTree getStarTree();
 
+  /**
+   * Returns all the StarTree index structures, where the first one is the same as {@link #getStarTree()}, or an empty
+   * list if it does not exist. The star trees are in the same order as
+   * {@link com.linkedin.pinot.common.segment.SegmentMetadata#getStarTreeMetadataList()}.
+   */
+  List<StarTree> getStarTrees();
+
   /**
    * Get the total size of the segment in bytes
    */
@@ -29,6 +29,7 @@ import com.linkedin.pinot.core.indexsegment.utils.AvroUtils;
 import com.linkedin.pinot.core.segment.DefaultSegmentNameGenerator;
 import com.linkedin.pinot.core.segment.SegmentNameGenerator;
 import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.creator.impl.inv.ZoneMapIndexCreator;
 import com.linkedin.pinot.startree.hll.HllConfig;
 import java.io.File;
 import java.io.IOException;
@@ -65,6 +66,9 @@ public class SegmentGeneratorConfig {
   private Map<String, String> _customProperties = new HashMap<>();
   private Set<String> _rawIndexCreationColumns = new HashSet<>();
   private List<String> _invertedIndexCreationColumns = new ArrayList<>();
+  private List<String> _rangeIndexCreationColumns = new ArrayList<>();
+  private List<String> _zoneMapIndexCreationColumns = new ArrayList<>();
+  private int _zoneMapNumDocsPerBlock = ZoneMapIndexCreator.DEFAULT_NUM_DOCS_PER_BLOCK;
   private String _dataDir = null;
   private String _inputFilePath = null;
   private FileFormat _format = FileFormat.AVRO;
@@ -86,6 +90,7 @@ public class SegmentGeneratorConfig {
   private boolean _enableStarTreeIndex = false;
   private String _starTreeIndexSpecFile = null;
   private StarTreeIndexSpec _starTreeIndexSpec = null;
+  private List<StarTreeIndexSpec> _additionalStarTreeIndexSpecs = new ArrayList<>();
   private String _creatorVersion = null;
   private char _paddingCharacter = V1Constants.Str.DEFAULT_STRING_PAD_CHAR;
   private HllConfig _hllConfig = null;
@@ -96,6 +101,8 @@ public class SegmentGeneratorConfig {
   private String _simpleDateFormat = null;
   // Use on-heap or off-heap memory to generate index (currently only affect inverted index)
   private boolean _onHeap = false;
+  // Number of threads used to collect stats and build indexes for different columns concurrently
+  private int _numIndexingThreads = 1;
 
   public SegmentGeneratorConfig() {
   }
@@ -111,6 +118,9 @@ public class SegmentGeneratorConfig {
     _customProperties.putAll(config._customProperties);
     _rawIndexCreationColumns.addAll(config._rawIndexCreationColumns);
     _invertedIndexCreationColumns.addAll(config._invertedIndexCreationColumns);
+    _rangeIndexCreationColumns.addAll(config._rangeIndexCreationColumns);
+    _zoneMapIndexCreationColumns.addAll(config._zoneMapIndexCreationColumns);
+    _zoneMapNumDocsPerBlock = config._zoneMapNumDocsPerBlock;
     _dataDir = config._dataDir;
     _inputFilePath = config._inputFilePath;
     _format = config._format;
@@ -132,6 +142,7 @@ public class SegmentGeneratorConfig {
     _enableStarTreeIndex = config._enableStarTreeIndex;
     _starTreeIndexSpecFile = config._starTreeIndexSpecFile;
     _starTreeIndexSpec = config._starTreeIndexSpec;
+    _additionalStarTreeIndexSpecs = new ArrayList<>(config._additionalStarTreeIndexSpecs);
     _creatorVersion = config._creatorVersion;
     _paddingCharacter = config._paddingCharacter;
     _hllConfig = config._hllConfig;
@@ -141,6 +152,7 @@ public class SegmentGeneratorConfig {
     _timeColumnType = config._timeColumnType;
     _simpleDateFormat = config._simpleDateFormat;
     _onHeap = config._onHeap;
+    _numIndexingThreads = config._numIndexingThreads;
   }
 
   public SegmentGeneratorConfig(Schema schema) {
@@ -197,6 +209,32 @@ public class SegmentGeneratorConfig {
     _invertedIndexCreationColumns.addAll(indexCreationColumns);
   }
 
+  public List<String> getRangeIndexCreationColumns() {
+    return _rangeIndexCreationColumns;
+  }
+
+  public void setRangeIndexCreationColumns(List<String> rangeIndexCreationColumns) {
+    Preconditions.checkNotNull(rangeIndexCreationColumns);
+    _rangeIndexCreationColumns.addAll(rangeIndexCreationColumns);
+  }
+
+  public List<String> getZoneMapIndexCreationColumns() {
+    return _zoneMapIndexCreationColumns;
+  }
+
+  public void setZoneMapIndexCreationColumns(List<String> zoneMapIndexCreationColumns) {
+    Preconditions.checkNotNull(zoneMapIndexCreationColumns);
+    _zoneMapIndexCreationColumns.addAll(zoneMapIndexCreationColumns);
+  }
+
+  public int getZoneMapNumDocsPerBlock() {
+    return _zoneMapNumDocsPerBlock;
+  }
+
+  public void setZoneMapNumDocsPerBlock(int zoneMapNumDocsPerBlock) {
+    _zoneMapNumDocsPerBlock = zoneMapNumDocsPerBlock;
+  }
+
   public void createInvertedIndexForColumn(String column) {
     Preconditions.checkNotNull(column);
     if (_schema != null && _schema.getFieldSpecFor(column) == null) {
@@ -453,6 +491,20 @@ public class SegmentGeneratorConfig {
     _starTreeIndexSpec = starTreeIndexSpec;
   }
 
+  /**
+   * Returns the specs of the star trees to build in addition to the one from {@link #getStarTreeIndexSpec()}, each
+   * with its own dimensions split order. At query time, the star tree that covers the query with the fewest documents
+   * to process is used.
+   */
+  public List<StarTreeIndexSpec> getAdditionalStarTreeIndexSpecs() {
+    return _additionalStarTreeIndexSpecs;
+  }
+
+  public void setAdditionalStarTreeIndexSpecs(List<StarTreeIndexSpec> additionalStarTreeIndexSpecs) {
+    Preconditions.checkNotNull(additionalStarTreeIndexSpecs);
+    _additionalStarTreeIndexSpecs = additionalStarTreeIndexSpecs;
+  }
+
   public HllConfig getHllConfig() {
     return _hllConfig;
   }
@@ -483,6 +535,19 @@ public class SegmentGeneratorConfig {
     _onHeap = onHeap;
   }
 
+  public int getNumIndexingThreads() {
+    return _numIndexingThreads;
+  }
+
+  /**
+   * Sets the number of threads used to build the segment. With more than one thread, per-column statistics and
+   * indexes are built for different columns concurrently.
+   */
+  public void setNumIndexingThreads(int numIndexingThreads) {
+    Preconditions.checkArgument(numIndexingThreads > 0, "Number of indexing threads must be positive");
+    _numIndexingThreads = numIndexingThreads;
+  }
+
   @JsonIgnore
   public String getMetrics() {
     return getQualifyingFields(FieldType.METRIC);
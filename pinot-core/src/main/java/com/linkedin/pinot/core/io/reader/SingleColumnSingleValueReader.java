@@ -88,6 +88,15 @@ public interface SingleColumnSingleValueReader<T extends ReaderContext> extends
 
   void readValues(int[] rows, int rowStartPos, int rowSize, int[] values, int valuesStartPos);
 
+  /**
+   * Read int values for a contiguous range of rows.
+   *
+   * @param startRow First row to read
+   * @param length Number of rows to read
+   * @param values Array to store the values, starting at index 0
+   */
+  void readValues(int startRow, int length, int[] values);
+
   /**
    * Create reader context.
    * @return Reader context
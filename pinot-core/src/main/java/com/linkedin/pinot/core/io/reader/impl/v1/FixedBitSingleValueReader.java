@@ -46,6 +46,11 @@ public final class FixedBitSingleValueReader extends BaseSingleColumnSingleValue
     }
   }
 
+  @Override
+  public void readValues(int startRow, int length, int[] values) {
+    _reader.readInt(startRow, length, values);
+  }
+
   @Override
   public ReaderContext createContext() {
     return null;
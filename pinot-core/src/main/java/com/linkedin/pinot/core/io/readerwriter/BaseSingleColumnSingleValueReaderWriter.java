@@ -93,6 +93,13 @@ public abstract class BaseSingleColumnSingleValueReaderWriter<T extends ReaderCo
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public void readValues(int startRow, int length, int[] values) {
+    for (int i = 0; i < length; i++) {
+      values[i] = getInt(startRow + i);
+    }
+  }
+
   @Override
   public T createContext() {
     return null;
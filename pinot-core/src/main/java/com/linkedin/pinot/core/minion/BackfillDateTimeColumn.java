@@ -111,6 +111,9 @@ public class BackfillDateTimeColumn {
           .getSkipMaterializationForDimensions()));
       starTreeIndexSpec.setSkipStarNodeCreationForDimensions(Sets.newHashSet(starTreeMetadata
           .getSkipStarNodeCreationForDimensions()));
+      starTreeIndexSpec.setAggregatedMetrics(Sets.newHashSet(starTreeMetadata.getAggregatedMetrics()));
+      starTreeIndexSpec.setPercentileEstColumns(Sets.newHashSet(starTreeMetadata.getPercentileEstColumns()));
+      starTreeIndexSpec.setDistinctCountHllColumns(Sets.newHashSet(starTreeMetadata.getDistinctCountHllColumns()));
       config.setStarTreeIndexSpec(starTreeIndexSpec);
     }
 
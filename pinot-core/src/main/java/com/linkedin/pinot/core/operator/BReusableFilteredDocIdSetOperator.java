@@ -93,6 +93,9 @@ public class BReusableFilteredDocIdSetOperator extends BaseOperator<DocIdSetBloc
 
   @Override
   public ExecutionStatistics getExecutionStatistics() {
-    return new ExecutionStatistics(0L, _filterBlockDocIdSet.getNumEntriesScannedInFilter(), 0L, 0L);
+    // Filter block doc id set is not initialized if the query terminates before the first block.
+    long numEntriesScannedInFilter =
+        _filterBlockDocIdSet != null ? _filterBlockDocIdSet.getNumEntriesScannedInFilter() : 0L;
+    return new ExecutionStatistics(0L, numEntriesScannedInFilter, 0L, 0L);
   }
 }
@@ -54,4 +54,13 @@ public abstract class BaseOperator<T extends Block> implements Operator<T> {
   public ExecutionStatistics getExecutionStatistics() {
     throw new UnsupportedOperationException();
   }
+
+  /**
+   * Set the signal shared by all the segment level operators of the query to terminate the execution early.
+   * <p>Operators checking the signal between blocks, or wrapping such operators, should override this method.
+   *
+   * @param queryTerminationSignal Query termination signal
+   */
+  public void setQueryTerminationSignal(QueryTerminationSignal queryTerminationSignal) {
+  }
 }
@@ -19,6 +19,7 @@ import com.google.common.base.Preconditions;
 import com.linkedin.pinot.common.exception.QueryException;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.response.ProcessingException;
+import com.linkedin.pinot.common.segment.SegmentMetadata;
 import com.linkedin.pinot.core.common.Operator;
 import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
 import com.linkedin.pinot.core.query.aggregation.AggregationFunctionContext;
@@ -29,6 +30,9 @@ import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByTrimm
 import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
 import com.linkedin.pinot.core.util.trace.TraceRunnable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -39,12 +43,22 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
 /**
  * The <code>MCombineGroupByOperator</code> class is the operator to combine aggregation group-by results.
+ * <p>Two combine modes are supported (see {@link CombineMode}):
+ * <ul>
+ *   <li>CONCURRENT: all operators merge into one concurrent map guarded by a set of shared locks.</li>
+ *   <li>PARTITIONED: each operator partitions its own results by group key, then each partition is merged by a
+ *   single thread, so no locks are shared across threads or queries.</li>
+ * </ul>
+ * <p>In both modes, the operators are run by a bounded number of threads (see {@link MCombineOperator}), and each
+ * thread pulls the next operator from a shared index once it finishes its current one, so that threads finishing
+ * cheap operators (e.g. small segments or morsels) keep taking the remaining ones.
  */
 public class MCombineGroupByOperator extends BaseOperator<IntermediateResultsBlock> {
   private static final Logger LOGGER = LoggerFactory.getLogger(MCombineGroupByOperator.class);
@@ -64,10 +78,18 @@ public class MCombineGroupByOperator extends BaseOperator<IntermediateResultsBlo
     }
   }
 
+  public enum CombineMode {
+    CONCURRENT,
+    PARTITIONED
+  }
+
   private final List<Operator> _operators;
   private final ExecutorService _executorService;
   private final BrokerRequest _brokerRequest;
   private final long _timeOutMs;
+  private final CombineMode _combineMode;
+  private final int _numPartitions;
+  private QueryTerminationSignal _queryTerminationSignal;
 
   /**
    * Constructor for the class.
@@ -80,12 +102,30 @@ public class MCombineGroupByOperator extends BaseOperator<IntermediateResultsBlo
    */
   public MCombineGroupByOperator(List<Operator> operators, ExecutorService executorService, long timeOutMs,
       BrokerRequest brokerRequest) {
+    this(operators, executorService, timeOutMs, brokerRequest, CombineMode.CONCURRENT, 1);
+  }
+
+  /**
+   * Constructor for the class.
+   *
+   * @param operators List of operators, whose result needs to be combined.
+   * @param executorService Executor service to use for multi-threaded portions of combine.
+   * @param timeOutMs Timeout for combine.
+   * @param brokerRequest BrokerRequest corresponding to the query.
+   * @param combineMode Mode used to merge the group-by results.
+   * @param numPartitions Number of hash partitions of the group key space (only used in PARTITIONED mode).
+   */
+  public MCombineGroupByOperator(List<Operator> operators, ExecutorService executorService, long timeOutMs,
+      BrokerRequest brokerRequest, CombineMode combineMode, int numPartitions) {
     Preconditions.checkArgument(brokerRequest.isSetAggregationsInfo() && brokerRequest.isSetGroupBy());
+    Preconditions.checkArgument(numPartitions > 0);
 
     _operators = operators;
     _executorService = executorService;
     _brokerRequest = brokerRequest;
     _timeOutMs = timeOutMs;
+    _combineMode = combineMode;
+    _numPartitions = numPartitions;
   }
 
   /**
@@ -98,20 +138,26 @@ public class MCombineGroupByOperator extends BaseOperator<IntermediateResultsBlo
    */
   @Override
   protected IntermediateResultsBlock getNextBlock() {
+    // Share the termination signal among the operators, so that they stop processing once the query times out.
+    _queryTerminationSignal = new QueryTerminationSignal(System.currentTimeMillis() + _timeOutMs, Long.MAX_VALUE);
+    for (Operator operator : _operators) {
+      if (operator instanceof BaseOperator) {
+        ((BaseOperator) operator).setQueryTerminationSignal(_queryTerminationSignal);
+      }
+    }
     return combineBlocks();
   }
 
   /**
    * This method combines the result blocks from underlying operators and builds a
    * merged, sorted and trimmed result block.
-   * 1. Result blocks from underlying operators are merged concurrently into a
-   *   HashMap, with appropriate synchronizations. Result blocks themselves are stored
-   *   in the specified blocks[].
-   *   - The key in this concurrent map is the group-by key, and value is an array of
-   *     Objects (one for each aggregation function).
-   *   - Synchronization is provided by locking the group-key that is to be modified.
+   * 1. Result blocks from underlying operators are merged into one or more maps with
+   *   disjoint key sets, based on the combine mode.
+   *   - The key in these maps is the typed group-by key (see GroupKeyGenerator.GroupKey),
+   *     and value is an array of Objects (one for each aggregation function).
+   *   - String group keys are only built for the groups that survive the trimming.
    *
-   * 2. The result of the concurrent map is then translated into what is expected by
+   * 2. The result of the maps is then translated into what is expected by
    *    the broker (List<Map<String, Object>>).
    *
    * 3. This result is then sorted and then trimmed as per 'TOP N' in the brokerRequest.
@@ -119,58 +165,117 @@ public class MCombineGroupByOperator extends BaseOperator<IntermediateResultsBlo
    * @return IntermediateResultBlock containing the final results from combine operation.
    */
   private IntermediateResultsBlock combineBlocks() {
-    int numOperators = _operators.size();
-    final CountDownLatch operatorLatch = new CountDownLatch(numOperators);
-    final Map<String, Object[]> resultsMap = new ConcurrentHashMap<>();
-    final ConcurrentLinkedQueue<ProcessingException> mergedProcessingExceptions = new ConcurrentLinkedQueue<>();
-
-    AggregationFunctionContext[] aggregationFunctionContexts =
-        AggregationFunctionUtils.getAggregationFunctionContexts(_brokerRequest.getAggregationsInfo(), null);
-    final int numAggregationFunctions = aggregationFunctionContexts.length;
-    final AggregationFunction[] aggregationFunctions = new AggregationFunction[numAggregationFunctions];
+    AggregationFunctionContext[] aggregationFunctionContexts = AggregationFunctionUtils.getAggregationFunctionContexts(
+        _brokerRequest.getAggregationsInfo(), (SegmentMetadata) null);
+    int numAggregationFunctions = aggregationFunctionContexts.length;
+    AggregationFunction[] aggregationFunctions = new AggregationFunction[numAggregationFunctions];
     for (int i = 0; i < numAggregationFunctions; i++) {
       aggregationFunctions[i] = aggregationFunctionContexts[i].getAggregationFunction();
     }
+    ConcurrentLinkedQueue<ProcessingException> mergedProcessingExceptions = new ConcurrentLinkedQueue<>();
 
-    Future[] futures = new Future[numOperators];
-    for (int i = 0; i < numOperators; i++) {
-      final int index = i;
+    try {
+      List<Map<Object, Object[]>> resultsMaps;
+      if (_combineMode == CombineMode.PARTITIONED) {
+        resultsMaps = combineBlocksPartitioned(aggregationFunctions, mergedProcessingExceptions);
+      } else {
+        resultsMaps = combineBlocksConcurrent(aggregationFunctions, mergedProcessingExceptions);
+      }
+      if (resultsMaps == null || _queryTerminationSignal.isCancelled()) {
+        // If this happens, the broker side should already timed out, just log the error and return
+        _queryTerminationSignal.cancel();
+        String errorMessage = "Timed out while combining group-by results after " + _timeOutMs + "ms";
+        LOGGER.error(errorMessage);
+        return new IntermediateResultsBlock(new TimeoutException(errorMessage));
+      }
+
+      // Trim the results maps.
+      AggregationGroupByTrimmingService aggregationGroupByTrimmingService =
+          new AggregationGroupByTrimmingService(aggregationFunctions, (int) _brokerRequest.getGroupBy().getTopN());
+      List<Map<String, Object>> trimmedResults =
+          aggregationGroupByTrimmingService.trimIntermediateResultsMaps(resultsMaps);
+      IntermediateResultsBlock mergedBlock =
+          new IntermediateResultsBlock(aggregationFunctionContexts, trimmedResults, true);
+
+      // Set the processing exceptions.
+      if (!mergedProcessingExceptions.isEmpty()) {
+        mergedBlock.setProcessingExceptions(new ArrayList<>(mergedProcessingExceptions));
+      }
+
+      // Set the execution statistics.
+      ExecutionStatistics executionStatistics = new ExecutionStatistics();
+      for (Operator operator : _operators) {
+        ExecutionStatistics executionStatisticsToMerge = operator.getExecutionStatistics();
+        if (executionStatisticsToMerge != null) {
+          executionStatistics.merge(executionStatisticsToMerge);
+        }
+      }
+      mergedBlock.setNumDocsScanned(executionStatistics.getNumDocsScanned());
+      mergedBlock.setNumEntriesScannedInFilter(executionStatistics.getNumEntriesScannedInFilter());
+      mergedBlock.setNumEntriesScannedPostFilter(executionStatistics.getNumEntriesScannedPostFilter());
+      mergedBlock.setNumTotalRawDocs(executionStatistics.getNumTotalRawDocs());
+
+      return mergedBlock;
+    } catch (Exception e) {
+      return new IntermediateResultsBlock(e);
+    }
+  }
+
+  /**
+   * Merges the result blocks from underlying operators concurrently into a single ConcurrentHashMap.
+   * <ul>
+   *   <li>The key in this concurrent map is the group-by key, and value is an array of Objects (one for each
+   *   aggregation function).</li>
+   *   <li>Synchronization is provided by locking the group-key that is to be modified.</li>
+   * </ul>
+   *
+   * @return List containing the single merged results map, or null if timed out.
+   */
+  private List<Map<Object, Object[]>> combineBlocksConcurrent(final AggregationFunction[] aggregationFunctions,
+      final ConcurrentLinkedQueue<ProcessingException> mergedProcessingExceptions)
+      throws InterruptedException {
+    final int numOperators = _operators.size();
+    final int numThreads = MCombineOperator.getNumThreads(numOperators);
+    final int numAggregationFunctions = aggregationFunctions.length;
+    final CountDownLatch operatorLatch = new CountDownLatch(numThreads);
+    final Map<Object, Object[]> resultsMap = new ConcurrentHashMap<>();
+    final AtomicInteger nextOperatorIndex = new AtomicInteger();
+
+    Future[] futures = new Future[numThreads];
+    for (int i = 0; i < numThreads; i++) {
       futures[i] = _executorService.submit(new TraceRunnable() {
         @SuppressWarnings("unchecked")
         @Override
         public void runJob() {
-          AggregationGroupByResult aggregationGroupByResult;
+          int index;
+          while ((index = nextOperatorIndex.getAndIncrement()) < numOperators) {
+            mergeOperatorResults(index);
+          }
+          operatorLatch.countDown();
+        }
 
+        private void mergeOperatorResults(int index) {
           try {
-            IntermediateResultsBlock intermediateResultsBlock =
-                (IntermediateResultsBlock) _operators.get(index).nextBlock();
-
-            // Merge processing exceptions.
-            List<ProcessingException> processingExceptionsToMerge = intermediateResultsBlock.getProcessingExceptions();
-            if (processingExceptionsToMerge != null) {
-              mergedProcessingExceptions.addAll(processingExceptionsToMerge);
-            }
-
-            // Merge aggregation group-by result.
-            aggregationGroupByResult = intermediateResultsBlock.getAggregationGroupByResult();
+            AggregationGroupByResult aggregationGroupByResult =
+                getAggregationGroupByResult(index, mergedProcessingExceptions);
             if (aggregationGroupByResult != null) {
               // Iterate over the group-by keys, for each key, update the group-by result in the resultsMap.
               Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = aggregationGroupByResult.getGroupKeyIterator();
               while (groupKeyIterator.hasNext()) {
                 GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
-                String groupKeyString = groupKey._stringKey;
+                Object typedGroupKey = groupKey._key;
 
                 // HashCode method might return negative value, make it non-negative
-                int lockIndex = (groupKeyString.hashCode() & Integer.MAX_VALUE) % NUM_LOCKS;
+                int lockIndex = (typedGroupKey.hashCode() & Integer.MAX_VALUE) % NUM_LOCKS;
                 synchronized (LOCKS[lockIndex]) {
-                  Object[] results = resultsMap.get(groupKeyString);
+                  Object[] results = resultsMap.get(typedGroupKey);
 
                   if (results == null) {
                     results = new Object[numAggregationFunctions];
                     for (int j = 0; j < numAggregationFunctions; j++) {
                       results[j] = aggregationGroupByResult.getResultForKey(groupKey, j);
                     }
-                    resultsMap.put(groupKeyString, results);
+                    resultsMap.put(typedGroupKey, results);
                   } else {
                     for (int j = 0; j < numAggregationFunctions; j++) {
                       results[j] = aggregationFunctions[j].merge(results[j],
@@ -185,56 +290,179 @@ public class MCombineGroupByOperator extends BaseOperator<IntermediateResultsBlo
                 _operators.get(index).getClass().getName(), e);
             mergedProcessingExceptions.add(QueryException.getException(QueryException.QUERY_EXECUTION_ERROR, e));
           }
-
-          operatorLatch.countDown();
         }
       });
     }
 
     try {
-      boolean opCompleted = operatorLatch.await(_timeOutMs, TimeUnit.MILLISECONDS);
-      if (!opCompleted) {
-        // If this happens, the broker side should already timed out, just log the error and return
-        String errorMessage = "Timed out while combining group-by results after " + _timeOutMs + "ms";
-        LOGGER.error(errorMessage);
-        return new IntermediateResultsBlock(new TimeoutException(errorMessage));
+      if (!operatorLatch.await(_timeOutMs, TimeUnit.MILLISECONDS)) {
+        return null;
       }
+      return Collections.singletonList(resultsMap);
+    } finally {
+      cancelFutures(futures);
+    }
+  }
 
-      // Trim the results map.
-      AggregationGroupByTrimmingService aggregationGroupByTrimmingService =
-          new AggregationGroupByTrimmingService(aggregationFunctions, (int) _brokerRequest.getGroupBy().getTopN());
-      List<Map<String, Object>> trimmedResults =
-          aggregationGroupByTrimmingService.trimIntermediateResultsMap(resultsMap);
-      IntermediateResultsBlock mergedBlock =
-          new IntermediateResultsBlock(aggregationFunctionContexts, trimmedResults, true);
+  /**
+   * Merges the result blocks from underlying operators without sharing any lock or map across threads.
+   * <ul>
+   *   <li>Phase 1: each operator job partitions its own group-by results by the hash of the group key into
+   *   thread-confined maps.</li>
+   *   <li>Phase 2: each partition job owns one hash partition of the key space, and merges that partition from all
+   *   operators into its own map.</li>
+   * </ul>
+   * The key sets of the returned maps are disjoint.
+   *
+   * @return List of merged results maps (one for each partition), or null if timed out.
+   */
+  @SuppressWarnings("unchecked")
+  private List<Map<Object, Object[]>> combineBlocksPartitioned(final AggregationFunction[] aggregationFunctions,
+      final ConcurrentLinkedQueue<ProcessingException> mergedProcessingExceptions)
+      throws InterruptedException {
+    final int numOperators = _operators.size();
+    final int numPartitions = _numPartitions;
+    final int numAggregationFunctions = aggregationFunctions.length;
+    long endTime = System.currentTimeMillis() + _timeOutMs;
 
-      // Set the processing exceptions.
-      if (!mergedProcessingExceptions.isEmpty()) {
-        mergedBlock.setProcessingExceptions(new ArrayList<>(mergedProcessingExceptions));
-      }
+    // Phase 1: run the operators and partition their results.
+    // Each operator only writes into its own row of the array, and the latch provides the happens-before edge for the
+    // partition jobs.
+    final Map<Object, Object[]>[][] operatorPartitions = new Map[numOperators][];
+    final int numThreads = MCombineOperator.getNumThreads(numOperators);
+    final CountDownLatch operatorLatch = new CountDownLatch(numThreads);
+    final AtomicInteger nextOperatorIndex = new AtomicInteger();
+    Future[] operatorFutures = new Future[numThreads];
+    for (int i = 0; i < numThreads; i++) {
+      operatorFutures[i] = _executorService.submit(new TraceRunnable() {
+        @Override
+        public void runJob() {
+          int index;
+          while ((index = nextOperatorIndex.getAndIncrement()) < numOperators) {
+            partitionOperatorResults(index);
+          }
+          operatorLatch.countDown();
+        }
 
-      // Set the execution statistics.
-      ExecutionStatistics executionStatistics = new ExecutionStatistics();
-      for (Operator operator : _operators) {
-        ExecutionStatistics executionStatisticsToMerge = operator.getExecutionStatistics();
-        if (executionStatisticsToMerge != null) {
-          executionStatistics.merge(executionStatisticsToMerge);
+        private void partitionOperatorResults(int index) {
+          try {
+            AggregationGroupByResult aggregationGroupByResult =
+                getAggregationGroupByResult(index, mergedProcessingExceptions);
+            if (aggregationGroupByResult != null) {
+              Map<Object, Object[]>[] partitions = new Map[numPartitions];
+              for (int j = 0; j < numPartitions; j++) {
+                partitions[j] = new HashMap<>();
+              }
+              Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = aggregationGroupByResult.getGroupKeyIterator();
+              while (groupKeyIterator.hasNext()) {
+                GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
+                Object typedGroupKey = groupKey._key;
+                Object[] results = new Object[numAggregationFunctions];
+                for (int j = 0; j < numAggregationFunctions; j++) {
+                  results[j] = aggregationGroupByResult.getResultForKey(groupKey, j);
+                }
+                partitions[getPartitionId(typedGroupKey, numPartitions)].put(typedGroupKey, results);
+              }
+              operatorPartitions[index] = partitions;
+            }
+          } catch (Exception e) {
+            LOGGER.error("Exception processing CombineGroupBy for index {}, operator {}", index,
+                _operators.get(index).getClass().getName(), e);
+            mergedProcessingExceptions.add(QueryException.getException(QueryException.QUERY_EXECUTION_ERROR, e));
+          }
         }
-      }
-      mergedBlock.setNumDocsScanned(executionStatistics.getNumDocsScanned());
-      mergedBlock.setNumEntriesScannedInFilter(executionStatistics.getNumEntriesScannedInFilter());
-      mergedBlock.setNumEntriesScannedPostFilter(executionStatistics.getNumEntriesScannedPostFilter());
-      mergedBlock.setNumTotalRawDocs(executionStatistics.getNumTotalRawDocs());
+      });
+    }
 
-      return mergedBlock;
-    } catch (Exception e) {
-      return new IntermediateResultsBlock(e);
+    try {
+      if (!operatorLatch.await(endTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS)) {
+        return null;
+      }
     } finally {
-      // Cancel all ongoing jobs
-      for (Future future : futures) {
-        if (!future.isDone()) {
-          future.cancel(true);
+      cancelFutures(operatorFutures);
+    }
+
+    // Phase 2: merge each partition from all operators.
+    final Map<Object, Object[]>[] resultsMaps = new Map[numPartitions];
+    final CountDownLatch partitionLatch = new CountDownLatch(numPartitions);
+    Future[] partitionFutures = new Future[numPartitions];
+    for (int i = 0; i < numPartitions; i++) {
+      final int partitionId = i;
+      partitionFutures[i] = _executorService.submit(new TraceRunnable() {
+        @Override
+        public void runJob() {
+          Map<Object, Object[]> resultsMap = new HashMap<>();
+          try {
+            for (Map<Object, Object[]>[] partitions : operatorPartitions) {
+              if (partitions == null) {
+                continue;
+              }
+              Map<Object, Object[]> partitionToMerge = partitions[partitionId];
+              if (resultsMap.isEmpty()) {
+                // Reuse the first non-empty partition as the merged map.
+                resultsMap = partitionToMerge;
+                continue;
+              }
+              for (Map.Entry<Object, Object[]> entry : partitionToMerge.entrySet()) {
+                Object typedGroupKey = entry.getKey();
+                Object[] resultsToMerge = entry.getValue();
+                Object[] results = resultsMap.get(typedGroupKey);
+                if (results == null) {
+                  resultsMap.put(typedGroupKey, resultsToMerge);
+                } else {
+                  for (int j = 0; j < numAggregationFunctions; j++) {
+                    results[j] = aggregationFunctions[j].merge(results[j], resultsToMerge[j]);
+                  }
+                }
+              }
+            }
+          } catch (Exception e) {
+            LOGGER.error("Exception merging CombineGroupBy results for partition {}", partitionId, e);
+            mergedProcessingExceptions.add(QueryException.getException(QueryException.MERGE_RESPONSE_ERROR, e));
+          }
+          resultsMaps[partitionId] = resultsMap;
+
+          partitionLatch.countDown();
         }
+      });
+    }
+
+    try {
+      if (!partitionLatch.await(endTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS)) {
+        return null;
+      }
+      return Arrays.asList(resultsMaps);
+    } finally {
+      cancelFutures(partitionFutures);
+    }
+  }
+
+  /**
+   * Runs the operator with the given index, merges its processing exceptions and returns its group-by result.
+   */
+  private AggregationGroupByResult getAggregationGroupByResult(int index,
+      ConcurrentLinkedQueue<ProcessingException> mergedProcessingExceptions) {
+    IntermediateResultsBlock intermediateResultsBlock = (IntermediateResultsBlock) _operators.get(index).nextBlock();
+
+    // Merge processing exceptions.
+    List<ProcessingException> processingExceptionsToMerge = intermediateResultsBlock.getProcessingExceptions();
+    if (processingExceptionsToMerge != null) {
+      mergedProcessingExceptions.addAll(processingExceptionsToMerge);
+    }
+
+    return intermediateResultsBlock.getAggregationGroupByResult();
+  }
+
+  private static int getPartitionId(Object typedGroupKey, int numPartitions) {
+    // HashCode method might return negative value, make it non-negative
+    return (typedGroupKey.hashCode() & Integer.MAX_VALUE) % numPartitions;
+  }
+
+  private static void cancelFutures(Future[] futures) {
+    // Cancel all ongoing jobs
+    for (Future future : futures) {
+      if (!future.isDone()) {
+        future.cancel(true);
       }
     }
   }
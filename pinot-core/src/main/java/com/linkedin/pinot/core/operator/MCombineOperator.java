@@ -17,13 +17,13 @@ package com.linkedin.pinot.core.operator;
 
 import com.linkedin.pinot.common.exception.QueryException;
 import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.Selection;
 import com.linkedin.pinot.core.common.Block;
 import com.linkedin.pinot.core.common.Operator;
 import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
 import com.linkedin.pinot.core.query.reduce.CombineService;
 import com.linkedin.pinot.core.util.trace.TraceCallable;
 import com.linkedin.pinot.core.util.trace.TraceRunnable;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
@@ -32,6 +32,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -73,28 +74,35 @@ public class MCombineOperator extends BaseOperator<IntermediateResultsBlock> {
     final long startTime = System.currentTimeMillis();
     final long queryEndTime = System.currentTimeMillis() + _timeOutMs;
     final int numOperators = _operators.size();
-    // Ensure that the number of groups is not more than the number of segments
-    final int numGroups = Math.min(numOperators, Math.max(MIN_THREADS_PER_QUERY,
-        Math.min(MAX_THREADS_PER_QUERY, (numOperators + MIN_SEGMENTS_PER_THREAD - 1) / MIN_SEGMENTS_PER_THREAD)));
+    final int numGroups = getNumThreads(numOperators);
 
-    final List<List<Operator>> operatorGroups = new ArrayList<>(numGroups);
-    for (int i = 0; i < numGroups; i++) {
-      operatorGroups.add(new ArrayList<Operator>());
-    }
-    for (int i = 0; i < numOperators; i++) {
-      operatorGroups.get(i % numGroups).add(_operators.get(i));
+    // Share the termination signal among the operators, so that they stop processing once enough rows are collected
+    // for selection only query, or the query times out.
+    QueryTerminationSignal queryTerminationSignal = new QueryTerminationSignal(queryEndTime, getNumRowsToCollect());
+    for (Operator operator : _operators) {
+      if (operator instanceof BaseOperator) {
+        ((BaseOperator) operator).setQueryTerminationSignal(queryTerminationSignal);
+      }
     }
 
+    // Each group starts with its own operator, then the remaining operators are pulled dynamically from the shared index
+    // instead of being statically assigned to the groups, so that a group finishing its operators early keeps taking
+    // the remaining ones (operators can be morsels of the same segment with skewed processing cost).
+    final AtomicInteger nextOperatorIndex = new AtomicInteger(numGroups);
+
     final BlockingQueue<Block> blockingQueue = new ArrayBlockingQueue<>(numGroups);
     // Submit operators.
-    for (final List<Operator> operatorGroup : operatorGroups) {
+    for (int i = 0; i < numGroups; i++) {
+      final int firstOperatorIndex = i;
       _executorService.submit(new TraceRunnable() {
         @Override
         public void runJob() {
           IntermediateResultsBlock mergedBlock = null;
           try {
-            for (Operator operator : operatorGroup) {
-              IntermediateResultsBlock blockToMerge = (IntermediateResultsBlock) operator.nextBlock();
+            int operatorIndex = firstOperatorIndex;
+            while (operatorIndex < numOperators) {
+              IntermediateResultsBlock blockToMerge =
+                  (IntermediateResultsBlock) _operators.get(operatorIndex).nextBlock();
               if (mergedBlock == null) {
                 mergedBlock = blockToMerge;
               } else {
@@ -106,6 +114,7 @@ public class MCombineOperator extends BaseOperator<IntermediateResultsBlock> {
                       QueryException.getException(QueryException.MERGE_RESPONSE_ERROR, e));
                 }
               }
+              operatorIndex = nextOperatorIndex.getAndIncrement();
             }
           } catch (Exception e) {
             LOGGER.error("Caught exception while executing query.", e);
@@ -162,6 +171,13 @@ public class MCombineOperator extends BaseOperator<IntermediateResultsBlock> {
     IntermediateResultsBlock mergedBlock;
     try {
       mergedBlock = mergedBlockFuture.get(queryEndTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+      if (queryTerminationSignal.isCancelled()) {
+        // Operators stopped at the query end time, the merged results are partial.
+        String errorMessage = "Query cancelled after " + _timeOutMs + "ms";
+        LOGGER.error(errorMessage);
+        mergedBlock = new IntermediateResultsBlock(
+            QueryException.getException(QueryException.EXECUTION_TIMEOUT_ERROR, new TimeoutException(errorMessage)));
+      }
     } catch (InterruptedException e) {
       LOGGER.error("Caught InterruptedException.", e);
       mergedBlock = new IntermediateResultsBlock(QueryException.getException(QueryException.FUTURE_CALL_ERROR, e));
@@ -170,6 +186,7 @@ public class MCombineOperator extends BaseOperator<IntermediateResultsBlock> {
       mergedBlock = new IntermediateResultsBlock(QueryException.getException(QueryException.MERGE_RESPONSE_ERROR, e));
     } catch (TimeoutException e) {
       LOGGER.error("Caught TimeoutException", e);
+      queryTerminationSignal.cancel();
       mergedBlockFuture.cancel(true);
       mergedBlock =
           new IntermediateResultsBlock(QueryException.getException(QueryException.EXECUTION_TIMEOUT_ERROR, e));
@@ -191,6 +208,27 @@ public class MCombineOperator extends BaseOperator<IntermediateResultsBlock> {
     return mergedBlock;
   }
 
+  /**
+   * Returns the number of rows after which the query can terminate, which is the selection size for selection only
+   * query, or {@link Long#MAX_VALUE} if all the documents need to be processed.
+   */
+  private long getNumRowsToCollect() {
+    Selection selection = _brokerRequest.getSelections();
+    if (selection != null && (!selection.isSetSelectionSortSequence() || selection.getSize() == 0)) {
+      return selection.getSize();
+    }
+    return Long.MAX_VALUE;
+  }
+
+  /**
+   * Returns the number of threads to process the given number of operators for one query.
+   */
+  static int getNumThreads(int numOperators) {
+    // Ensure that the number of threads is not more than the number of segments
+    return Math.min(numOperators, Math.max(MIN_THREADS_PER_QUERY,
+        Math.min(MAX_THREADS_PER_QUERY, (numOperators + MIN_SEGMENTS_PER_THREAD - 1) / MIN_SEGMENTS_PER_THREAD)));
+  }
+
   @Override
   public String getOperatorName() {
     return OPERATOR_NAME;
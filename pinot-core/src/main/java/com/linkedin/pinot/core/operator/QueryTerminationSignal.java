@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * The <code>QueryTerminationSignal</code> class is the signal shared by all the segment level operators of a query to
+ * terminate the execution early. Operators check the signal between blocks and stop processing once it is set.
+ * <p>The signal is set when:
+ * <ul>
+ *   <li>Enough rows are collected across all segments (selection only query with LIMIT).</li>
+ *   <li>The query is cancelled or the query end time elapses, in which case the partial results are invalid.</li>
+ * </ul>
+ */
+public class QueryTerminationSignal {
+  private final long _queryEndTimeMs;
+  private final long _numRowsToCollect;
+  private final AtomicLong _numRowsCollected = new AtomicLong();
+
+  private volatile boolean _enoughRowsCollected;
+  private volatile boolean _cancelled;
+
+  /**
+   * Constructor for the class.
+   *
+   * @param queryEndTimeMs End time of the query in milliseconds, after which the query is cancelled
+   * @param numRowsToCollect Number of rows after which the query can terminate, or {@link Long#MAX_VALUE} if the query
+   *                         needs to process all the documents
+   */
+  public QueryTerminationSignal(long queryEndTimeMs, long numRowsToCollect) {
+    _queryEndTimeMs = queryEndTimeMs;
+    _numRowsToCollect = numRowsToCollect;
+    _enoughRowsCollected = numRowsToCollect <= 0;
+  }
+
+  /**
+   * Add the number of rows collected by an operator, and set the signal once enough rows are collected.
+   */
+  public void addNumRowsCollected(long numRowsCollected) {
+    if (_numRowsCollected.addAndGet(numRowsCollected) >= _numRowsToCollect) {
+      _enoughRowsCollected = true;
+    }
+  }
+
+  /**
+   * Cancel the query, e.g. on time out.
+   */
+  public void cancel() {
+    _cancelled = true;
+  }
+
+  /**
+   * Returns whether the operators should stop processing. Cancels the query if the query end time elapses.
+   */
+  public boolean isTerminated() {
+    if (_enoughRowsCollected || _cancelled) {
+      return true;
+    }
+    if (System.currentTimeMillis() >= _queryEndTimeMs) {
+      _cancelled = true;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns whether the query is cancelled, in which case the results of the operators might be partial and should not
+   * be returned or cached.
+   */
+  public boolean isCancelled() {
+    return _cancelled;
+  }
+}
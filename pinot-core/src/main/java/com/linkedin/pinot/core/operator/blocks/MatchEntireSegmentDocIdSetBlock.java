@@ -20,15 +20,21 @@ import com.linkedin.pinot.core.operator.docidsets.SizeBasedDocIdSet;
 
 
 public class MatchEntireSegmentDocIdSetBlock extends BaseFilterBlock {
-  private final int _totalDocs;
+  private final int _startDocId;
+  // Inclusive
+  private final int _endDocId;
 
   public MatchEntireSegmentDocIdSetBlock(int totalDocs) {
-    _totalDocs = totalDocs;
+    this(0, totalDocs - 1);
+  }
+
+  public MatchEntireSegmentDocIdSetBlock(int startDocId, int endDocId) {
+    _startDocId = startDocId;
+    _endDocId = endDocId;
   }
 
   @Override
   public FilterBlockDocIdSet getFilteredBlockDocIdSet() {
-    int maxDocId = _totalDocs - 1;
-    return new SizeBasedDocIdSet(maxDocId);
+    return new SizeBasedDocIdSet(_startDocId, _endDocId);
   }
 }
@@ -19,6 +19,7 @@ import com.linkedin.pinot.core.common.BlockMetadata;
 import com.linkedin.pinot.core.common.BlockMultiValIterator;
 import com.linkedin.pinot.core.common.BlockValSet;
 import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.operator.filter.ZoneMapBlockFilter;
 import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluator;
 import java.util.Arrays;
 import org.roaringbitmap.IntIterator;
@@ -35,6 +36,7 @@ public class MVScanDocIdIterator implements ScanBasedDocIdIterator {
 
   private String datasourceName;
   private int _numEntriesScanned = 0;
+  private ZoneMapBlockFilter _blockFilter;
 
   public MVScanDocIdIterator(String datasourceName, BlockValSet blockValSet, BlockMetadata blockMetadata,
       PredicateEvaluator evaluator) {
@@ -71,11 +73,22 @@ public class MVScanDocIdIterator implements ScanBasedDocIdIterator {
     this.endDocId = endDocId;
   }
 
+  /**
+   * Set the zone map block filter, so that the documents in the blocks that cannot match are skipped.
+   * @param blockFilter
+   */
+  public void setZoneMapBlockFilter(ZoneMapBlockFilter blockFilter) {
+    _blockFilter = blockFilter;
+  }
+
   @Override
   public boolean isMatch(int docId) {
     if (currentDocId == Constants.EOF) {
       return false;
     }
+    if (_blockFilter != null && !_blockFilter.isCandidate(docId)) {
+      return false;
+    }
     valueIterator.skipTo(docId);
     _numEntriesScanned++;
     int length = valueIterator.nextIntVal(intArray);
@@ -109,6 +122,15 @@ public class MVScanDocIdIterator implements ScanBasedDocIdIterator {
     }
     while (valueIterator.hasNext() && currentDocId < endDocId) {
       currentDocId = currentDocId + 1;
+      if (_blockFilter != null && !_blockFilter.isCandidate(currentDocId)) {
+        // Skip the blocks that cannot match, they are not scanned
+        int candidateDocId = _blockFilter.getNextCandidateDocId(currentDocId);
+        if (candidateDocId > endDocId) {
+          break;
+        }
+        currentDocId = candidateDocId;
+        valueIterator.skipTo(currentDocId);
+      }
       _numEntriesScanned++;
       int length = valueIterator.nextIntVal(intArray);
       if (evaluator.applyMV(intArray, length)) {
@@ -140,7 +162,7 @@ public class MVScanDocIdIterator implements ScanBasedDocIdIterator {
     int docId = -1, length;
     while (intIterator.hasNext() && docId < endDocId) {
       docId = intIterator.next();
-      if (docId >= startDocId) {
+      if (docId >= startDocId && (_blockFilter == null || _blockFilter.isCandidate(docId))) {
         valueIterator.skipTo(docId);
         _numEntriesScanned++;
         length = valueIterator.nextIntVal(intArray);
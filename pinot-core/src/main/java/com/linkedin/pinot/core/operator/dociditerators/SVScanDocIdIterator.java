@@ -20,11 +20,23 @@ import com.linkedin.pinot.core.common.BlockMetadata;
 import com.linkedin.pinot.core.common.BlockSingleValIterator;
 import com.linkedin.pinot.core.common.BlockValSet;
 import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.operator.docvalsets.SingleValueSet;
+import com.linkedin.pinot.core.operator.filter.ZoneMapBlockFilter;
 import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluator;
 import org.roaringbitmap.IntIterator;
 import org.roaringbitmap.buffer.MutableRoaringBitmap;
 
+/**
+ * Scan based doc id iterator for single-value columns.
+ * <p>For dictionary based predicates, {@link #next()} and {@link #advance(int)} scan the column a batch at a time: the
+ * dictionary ids for a contiguous range of doc ids are bulk-read into an array, and the predicate is evaluated over
+ * the array to collect the matching doc ids of the batch.
+ * <p>If a {@link ZoneMapBlockFilter} is set, the zone map blocks that cannot match are skipped without being scanned.
+ */
 public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
+  // Number of doc ids scanned per batch
+  private static final int BATCH_SIZE = 4096;
+
   private int _currentDocId = -1;
   private final BlockSingleValIterator _valueIterator;
   private int _startDocId;
@@ -34,11 +46,29 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
   private int _numEntriesScanned = 0;
   private final ValueMatcher _valueMatcher;
 
+  // For batch scan mode
+  private final SingleValueSet _singleValueSet;
+  private int[] _dictIdBuffer;
+  private int[] _matchingDocIdBuffer;
+  private int _numMatchingDocIdsInBuffer = 0;
+  private int _matchingDocIdBufferIndex = 0;
+  // First doc id not yet scanned in batch scan mode
+  private int _nextBatchStartDocId;
+  // Last doc id accounted for in the number of entries scanned in batch scan mode, so that the batches report the same
+  // number of entries scanned as scanning one doc at a time
+  private int _lastCountedDocId;
+  private ZoneMapBlockFilter _blockFilter;
+
   public SVScanDocIdIterator(String datasourceName, BlockValSet blockValSet, BlockMetadata blockMetadata,
       PredicateEvaluator evaluator) {
     _datasourceName = datasourceName;
     _evaluator = evaluator;
     _valueIterator = (BlockSingleValIterator) blockValSet.iterator();
+    if (!evaluator.isAlwaysFalse() && evaluator.isDictionaryBased() && blockValSet instanceof SingleValueSet) {
+      _singleValueSet = (SingleValueSet) blockValSet;
+    } else {
+      _singleValueSet = null;
+    }
 
     if (evaluator.isAlwaysFalse()) {
       _currentDocId = Constants.EOF;
@@ -66,6 +96,7 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     _currentDocId = startDocId - 1;
     _valueIterator.skipTo(startDocId);
     _startDocId = startDocId;
+    resetBatch(startDocId);
   }
 
   /**
@@ -78,11 +109,23 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     _endDocId = endDocId;
   }
 
+  /**
+   * Set the zone map block filter, so that the documents in the blocks that cannot match are skipped.
+   *
+   * @param blockFilter Zone map block filter
+   */
+  public void setZoneMapBlockFilter(ZoneMapBlockFilter blockFilter) {
+    _blockFilter = blockFilter;
+  }
+
   @Override
   public boolean isMatch(int docId) {
     if (_currentDocId == Constants.EOF) {
       return false;
     }
+    if (_blockFilter != null && !_blockFilter.isCandidate(docId)) {
+      return false;
+    }
     _valueIterator.skipTo(docId);
     _numEntriesScanned++;
     return _valueMatcher.doesCurrentEntryMatch(_valueIterator);
@@ -100,6 +143,21 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     }
     if (_currentDocId >= targetDocId) {
       return _currentDocId;
+    } else if (_singleValueSet != null) {
+      if (_currentDocId == Constants.EOF) {
+        return Constants.EOF;
+      }
+      if (targetDocId < _nextBatchStartDocId) {
+        // Target doc id is inside the current batch, skip the matching doc ids before it
+        while (_matchingDocIdBufferIndex < _numMatchingDocIdsInBuffer
+            && _matchingDocIdBuffer[_matchingDocIdBufferIndex] < targetDocId) {
+          _matchingDocIdBufferIndex++;
+        }
+        _lastCountedDocId = targetDocId - 1;
+      } else {
+        resetBatch(targetDocId);
+      }
+      return nextInBatch();
     } else {
       _currentDocId = targetDocId - 1;
       _valueIterator.skipTo(targetDocId);
@@ -112,6 +170,9 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     if (_currentDocId == Constants.EOF) {
       return Constants.EOF;
     }
+    if (_singleValueSet != null) {
+      return nextInBatch();
+    }
     while (_valueIterator.hasNext() && _currentDocId < _endDocId) {
       _currentDocId = _currentDocId + 1;
       _numEntriesScanned++;
@@ -123,6 +184,59 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     return Constants.EOF;
   }
 
+  private void resetBatch(int startDocId) {
+    _nextBatchStartDocId = startDocId;
+    _lastCountedDocId = startDocId - 1;
+    _numMatchingDocIdsInBuffer = 0;
+    _matchingDocIdBufferIndex = 0;
+  }
+
+  /**
+   * Return the next matching doc id in batch scan mode, scanning new batches as needed.
+   */
+  private int nextInBatch() {
+    while (_matchingDocIdBufferIndex == _numMatchingDocIdsInBuffer) {
+      int endDocId = Math.min(_endDocId, _singleValueSet.getNumDocs() - 1);
+      if (_blockFilter != null && _nextBatchStartDocId <= endDocId) {
+        // Skip the blocks that cannot match, they are not scanned
+        int candidateDocId = _blockFilter.getNextCandidateDocId(_nextBatchStartDocId);
+        if (candidateDocId > _nextBatchStartDocId) {
+          // Account for the scanned doc ids before skipping
+          _numEntriesScanned += _nextBatchStartDocId - 1 - _lastCountedDocId;
+          _lastCountedDocId = Math.min(candidateDocId - 1, endDocId);
+          _nextBatchStartDocId = candidateDocId;
+        }
+      }
+      if (_nextBatchStartDocId > endDocId) {
+        if (endDocId > _lastCountedDocId) {
+          _numEntriesScanned += endDocId - _lastCountedDocId;
+        }
+        _currentDocId = Constants.EOF;
+        return Constants.EOF;
+      }
+      if (_dictIdBuffer == null) {
+        _dictIdBuffer = new int[BATCH_SIZE];
+        _matchingDocIdBuffer = new int[BATCH_SIZE];
+      }
+      if (_blockFilter != null) {
+        // Do not scan into the next block that cannot match
+        endDocId = Math.min(endDocId, _blockFilter.getCandidateRunEndDocId(_nextBatchStartDocId));
+      }
+      int length = Math.min(BATCH_SIZE, endDocId - _nextBatchStartDocId + 1);
+      _singleValueSet.getDictionaryIds(_nextBatchStartDocId, length, _dictIdBuffer);
+      for (int i = 0; i < length; i++) {
+        _matchingDocIdBuffer[i] = _nextBatchStartDocId + i;
+      }
+      _numMatchingDocIdsInBuffer = _evaluator.applySV(length, _matchingDocIdBuffer, _dictIdBuffer);
+      _matchingDocIdBufferIndex = 0;
+      _nextBatchStartDocId += length;
+    }
+    _currentDocId = _matchingDocIdBuffer[_matchingDocIdBufferIndex++];
+    _numEntriesScanned += _currentDocId - _lastCountedDocId;
+    _lastCountedDocId = _currentDocId;
+    return _currentDocId;
+  }
+
   @Override
   public int currentDocId() {
     return _currentDocId;
@@ -143,7 +257,7 @@ public class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     int docId = -1;
     while (intIterator.hasNext() && docId < _endDocId) {
       docId = intIterator.next();
-      if (docId >= _startDocId) {
+      if (docId >= _startDocId && (_blockFilter == null || _blockFilter.isCandidate(docId))) {
         _valueIterator.skipTo(docId);
         _numEntriesScanned++;
         if (_valueMatcher.doesCurrentEntryMatch(_valueIterator)) {
@@ -20,11 +20,18 @@ import com.linkedin.pinot.core.common.Constants;
 
 
 public final class SizeBasedDocIdIterator implements BlockDocIdIterator {
+  private final int _minDocId;
   private final int _maxDocId;
-  private int _currentDocId = -1;
+  private int _currentDocId;
 
   public SizeBasedDocIdIterator(int maxDocId) {
+    this(0, maxDocId);
+  }
+
+  public SizeBasedDocIdIterator(int minDocId, int maxDocId) {
+    _minDocId = minDocId;
     _maxDocId = maxDocId;
+    _currentDocId = minDocId - 1;
   }
 
   @Override
@@ -38,7 +45,7 @@ public final class SizeBasedDocIdIterator implements BlockDocIdIterator {
 
   @Override
   public int advance(int targetDocId) {
-    _currentDocId = targetDocId;
+    _currentDocId = Math.max(targetDocId, _minDocId);
     if (_currentDocId >= _maxDocId) {
       return Constants.EOF;
     } else {
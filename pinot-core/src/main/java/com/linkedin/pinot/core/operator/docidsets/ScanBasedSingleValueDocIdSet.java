@@ -19,6 +19,7 @@ import com.linkedin.pinot.core.common.BlockMetadata;
 import com.linkedin.pinot.core.common.BlockValSet;
 import com.linkedin.pinot.core.operator.dociditerators.SVScanDocIdIterator;
 import com.linkedin.pinot.core.operator.dociditerators.ScanBasedDocIdIterator;
+import com.linkedin.pinot.core.operator.filter.ZoneMapBlockFilter;
 import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluator;
 
 
@@ -67,6 +68,14 @@ public class ScanBasedSingleValueDocIdSet implements FilterBlockDocIdSet {
     blockValSetBlockDocIdIterator.setEndDocId(endDocId);
   }
 
+  /**
+   * Set the zone map block filter, so that the documents in the blocks that cannot match are skipped.
+   * @param blockFilter
+   */
+  public void setZoneMapBlockFilter(ZoneMapBlockFilter blockFilter) {
+    blockValSetBlockDocIdIterator.setZoneMapBlockFilter(blockFilter);
+  }
+
   @Override
   public long getNumEntriesScannedInFilter() {
     return blockValSetBlockDocIdIterator.getNumEntriesScanned();
@@ -21,6 +21,7 @@ import com.linkedin.pinot.core.common.BlockMultiValIterator;
 import com.linkedin.pinot.core.common.BlockValIterator;
 import com.linkedin.pinot.core.common.DataBlockCache;
 import com.linkedin.pinot.core.operator.MProjectionOperator;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 
 
 /**
@@ -125,6 +126,11 @@ public class ProjectionBlockValSet extends BaseBlockValSet {
     getDictionaryIds();
   }
 
+  @Override
+  public Dictionary getDictionary() {
+    return _dataBlockCache.getDataFetcher().getDictionaryForColumn(_column);
+  }
+
   @Override
   public int[] getDictionaryIds() {
     return _dataBlockCache.getDictIdArrayForColumn(_column);
@@ -141,4 +147,9 @@ public class ProjectionBlockValSet extends BaseBlockValSet {
   public int[] getNumberOfMVEntriesArray() {
     return _dataBlockCache.getNumberOfEntriesArrayForColumn(_column);
   }
+
+  @Override
+  public int[] getDocIds() {
+    return _dataBlockCache.getDocIds();
+  }
 }
@@ -44,6 +44,11 @@ public final class SingleValueSet extends BaseBlockValSet {
     return _dataType;
   }
 
+  @Override
+  public int getNumDocs() {
+    return _numDocs;
+  }
+
   @Override
   public void getIntValues(int[] inDocIds, int inStartPos, int inDocIdsSize, int[] outValues, int outStartPos) {
     int inEndPos = inStartPos + inDocIdsSize;
@@ -150,4 +155,15 @@ public final class SingleValueSet extends BaseBlockValSet {
       int outStartPos) {
     _reader.readValues(inDocIds, inStartPos, inDocIdsSize, outDictionaryIds, outStartPos);
   }
+
+  /**
+   * Copies the dictionary ids for a contiguous range of doc ids.
+   *
+   * @param startDocId First doc id to read
+   * @param length Number of doc ids to read
+   * @param outDictionaryIds Array to store the dictionary ids, starting at index 0
+   */
+  public void getDictionaryIds(int startDocId, int length, int[] outDictionaryIds) {
+    _reader.readValues(startDocId, length, outDictionaryIds);
+  }
 }
@@ -37,9 +37,13 @@ public class FilterOperatorUtils {
       return EmptyFilterOperator.getInstance();
     }
 
+    // Use range index for RANGE predicate if available
     // Use inverted index if the predicate type is not RANGE or REGEXP_LIKE for efficiency
     DataSourceMetadata dataSourceMetadata = dataSource.getDataSourceMetadata();
     Predicate.Type predicateType = predicateEvaluator.getPredicateType();
+    if (predicateType == Predicate.Type.RANGE && dataSourceMetadata.hasRangeIndex()) {
+      return new RangeIndexBasedFilterOperator(predicateEvaluator, dataSource, startDocId, endDocId);
+    }
     if (dataSourceMetadata.hasInvertedIndex() && (predicateType != Predicate.Type.RANGE) && (predicateType
         != Predicate.Type.REGEXP_LIKE)) {
       if (dataSourceMetadata.isSorted()) {
@@ -48,7 +52,15 @@ public class FilterOperatorUtils {
         return new BitmapBasedFilterOperator(predicateEvaluator, dataSource, startDocId, endDocId);
       }
     } else {
-      return new ScanBasedFilterOperator(predicateEvaluator, dataSource, startDocId, endDocId);
+      // Use zone map to skip the blocks that cannot match if available
+      ZoneMapBlockFilter blockFilter = null;
+      if (dataSourceMetadata.hasZoneMap()) {
+        blockFilter = ZoneMapBlockFilter.create(dataSource.getZoneMap(), predicateEvaluator, startDocId, endDocId);
+        if (blockFilter != null && blockFilter.isEmpty()) {
+          return EmptyFilterOperator.getInstance();
+        }
+      }
+      return new ScanBasedFilterOperator(predicateEvaluator, dataSource, startDocId, endDocId, blockFilter);
     }
   }
 
@@ -69,7 +81,8 @@ public class FilterOperatorUtils {
         if (filterOperator instanceof SortedInvertedIndexBasedFilterOperator) {
           return 0;
         }
-        if (filterOperator instanceof BitmapBasedFilterOperator) {
+        if (filterOperator instanceof BitmapBasedFilterOperator
+            || filterOperator instanceof RangeIndexBasedFilterOperator) {
           return 1;
         }
         if (filterOperator instanceof AndOperator) {
@@ -19,17 +19,27 @@ import com.linkedin.pinot.core.operator.blocks.BaseFilterBlock;
 import com.linkedin.pinot.core.operator.blocks.MatchEntireSegmentDocIdSetBlock;
 
 
+/**
+ * Filter operator that matches all the documents of the segment, or of a doc id range of the segment.
+ */
 public class MatchEntireSegmentOperator extends BaseFilterOperator {
   private static final String OPERATOR_NAME = "MatchEntireSegmentOperator";
-  private int _totalDocs;
+  private final int _startDocId;
+  // Inclusive
+  private final int _endDocId;
 
   public MatchEntireSegmentOperator(int totalDocs) {
-    _totalDocs = totalDocs;
+    this(0, totalDocs - 1);
+  }
+
+  public MatchEntireSegmentOperator(int startDocId, int endDocId) {
+    _startDocId = startDocId;
+    _endDocId = endDocId;
   }
 
   @Override
   protected BaseFilterBlock getNextBlock() {
-    return new MatchEntireSegmentDocIdSetBlock(_totalDocs);
+    return new MatchEntireSegmentDocIdSetBlock(_startDocId, _endDocId);
   }
 
   @Override
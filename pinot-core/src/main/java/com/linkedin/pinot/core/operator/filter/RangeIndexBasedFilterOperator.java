@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.filter;
+
+import com.linkedin.pinot.core.common.BlockValSet;
+import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.operator.blocks.BaseFilterBlock;
+import com.linkedin.pinot.core.operator.blocks.BitmapBlock;
+import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import com.linkedin.pinot.core.segment.index.readers.BitmapRangeIndexReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+
+/**
+ * Filter operator for RANGE predicate on single-value dictionary-encoded column with range index.
+ * <p>The matching dictionary ids of a RANGE predicate are contiguous. The bitmaps of the buckets fully covered by the
+ * range are used directly, and only the documents of the partially covered edge buckets are scanned.
+ */
+public class RangeIndexBasedFilterOperator extends BaseFilterOperator {
+  private static final String OPERATOR_NAME = "RangeIndexBasedFilterOperator";
+  private static final int SCAN_BATCH_SIZE = 4096;
+
+  private final PredicateEvaluator _predicateEvaluator;
+  private final DataSource _dataSource;
+  private final int _startDocId;
+  // TODO: change it to exclusive
+  // Inclusive
+  private final int _endDocId;
+
+  public RangeIndexBasedFilterOperator(PredicateEvaluator predicateEvaluator, DataSource dataSource, int startDocId,
+      int endDocId) {
+    _predicateEvaluator = predicateEvaluator;
+    _dataSource = dataSource;
+    _startDocId = startDocId;
+    _endDocId = endDocId;
+  }
+
+  @Override
+  protected BaseFilterBlock getNextBlock() {
+    int[] dictIds = _predicateEvaluator.getMatchingDictIds();
+    int numDictIds = dictIds.length;
+    if (numDictIds == 0) {
+      return new BitmapBlock(new ImmutableRoaringBitmap[0], _startDocId, _endDocId, false);
+    }
+    int startDictId = dictIds[0];
+    int endDictId = dictIds[numDictIds - 1];
+
+    BitmapRangeIndexReader rangeIndex = _dataSource.getRangeIndex();
+    int startBucketId = rangeIndex.getBucketId(startDictId);
+    int endBucketId = rangeIndex.getBucketId(endDictId);
+    List<ImmutableRoaringBitmap> bitmaps = new ArrayList<>(endBucketId - startBucketId + 1);
+    BlockValSet blockValSet = null;
+    for (int bucketId = startBucketId; bucketId <= endBucketId; bucketId++) {
+      ImmutableRoaringBitmap bucketDocIds = rangeIndex.getDocIds(bucketId);
+      if (rangeIndex.getBucketStartDictId(bucketId) >= startDictId
+          && rangeIndex.getBucketEndDictId(bucketId) <= endDictId) {
+        // Bucket fully covered by the range
+        bitmaps.add(bucketDocIds);
+      } else {
+        // Edge bucket, scan the documents in the bucket
+        if (blockValSet == null) {
+          blockValSet = _dataSource.nextBlock().getBlockValueSet();
+        }
+        bitmaps.add(scanBucket(bucketDocIds, blockValSet));
+      }
+    }
+
+    return new BitmapBlock(bitmaps.toArray(new ImmutableRoaringBitmap[bitmaps.size()]), _startDocId, _endDocId,
+        false);
+  }
+
+  private MutableRoaringBitmap scanBucket(ImmutableRoaringBitmap bucketDocIds, BlockValSet blockValSet) {
+    MutableRoaringBitmap matchingDocIds = new MutableRoaringBitmap();
+    int[] allDocIds = bucketDocIds.toArray();
+    int numDocs = allDocIds.length;
+    int[] docIds = new int[Math.min(numDocs, SCAN_BATCH_SIZE)];
+    int[] values = new int[docIds.length];
+    for (int start = 0; start < numDocs; start += SCAN_BATCH_SIZE) {
+      int length = Math.min(SCAN_BATCH_SIZE, numDocs - start);
+      System.arraycopy(allDocIds, start, docIds, 0, length);
+      blockValSet.getDictionaryIds(docIds, 0, length, values, 0);
+      int numMatched = _predicateEvaluator.applySV(length, docIds, values);
+      for (int i = 0; i < numMatched; i++) {
+        matchingDocIds.add(docIds[i]);
+      }
+    }
+    return matchingDocIds;
+  }
+
+  @Override
+  public boolean isResultEmpty() {
+    return _predicateEvaluator.isAlwaysFalse();
+  }
+
+  @Override
+  public String getOperatorName() {
+    return OPERATOR_NAME;
+  }
+}
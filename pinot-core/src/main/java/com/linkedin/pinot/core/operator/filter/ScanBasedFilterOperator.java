@@ -26,8 +26,14 @@ import com.linkedin.pinot.core.operator.docidsets.FilterBlockDocIdSet;
 import com.linkedin.pinot.core.operator.docidsets.ScanBasedMultiValueDocIdSet;
 import com.linkedin.pinot.core.operator.docidsets.ScanBasedSingleValueDocIdSet;
 import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import javax.annotation.Nullable;
 
 
+/**
+ * Filter operator that scans the forward index of the column.
+ * <p>If a {@link ZoneMapBlockFilter} is provided, the doc id range is narrowed to the first and last zone map blocks
+ * that might match, and the blocks in between that cannot match are skipped by the scan.
+ */
 public class ScanBasedFilterOperator extends BaseFilterOperator {
   private static final String OPERATOR_NAME = "ScanBasedFilterOperator";
 
@@ -37,13 +43,26 @@ public class ScanBasedFilterOperator extends BaseFilterOperator {
   // TODO: change it to exclusive
   // Inclusive
   private final int _endDocId;
+  private final ZoneMapBlockFilter _blockFilter;
 
   public ScanBasedFilterOperator(PredicateEvaluator predicateEvaluator, DataSource dataSource, int startDocId,
       int endDocId) {
+    this(predicateEvaluator, dataSource, startDocId, endDocId, null);
+  }
+
+  public ScanBasedFilterOperator(PredicateEvaluator predicateEvaluator, DataSource dataSource, int startDocId,
+      int endDocId, @Nullable ZoneMapBlockFilter blockFilter) {
     _predicateEvaluator = predicateEvaluator;
     _dataSource = dataSource;
-    _startDocId = startDocId;
-    _endDocId = endDocId;
+    if (blockFilter != null && !blockFilter.isEmpty()) {
+      _startDocId = blockFilter.getFirstCandidateDocId();
+      _endDocId = blockFilter.getLastCandidateDocId();
+      _blockFilter = blockFilter;
+    } else {
+      _startDocId = startDocId;
+      _endDocId = endDocId;
+      _blockFilter = null;
+    }
   }
 
   @Override
@@ -54,11 +73,21 @@ public class ScanBasedFilterOperator extends BaseFilterOperator {
     BlockValSet blockValueSet = nextBlock.getBlockValueSet();
     BlockMetadata blockMetadata = nextBlock.getMetadata();
     if (dataSourceMetadata.isSingleValue()) {
-      docIdSet = new ScanBasedSingleValueDocIdSet(_dataSource.getOperatorName(), blockValueSet, blockMetadata,
-          _predicateEvaluator);
+      ScanBasedSingleValueDocIdSet singleValueDocIdSet =
+          new ScanBasedSingleValueDocIdSet(_dataSource.getOperatorName(), blockValueSet, blockMetadata,
+              _predicateEvaluator);
+      if (_blockFilter != null) {
+        singleValueDocIdSet.setZoneMapBlockFilter(_blockFilter);
+      }
+      docIdSet = singleValueDocIdSet;
     } else {
-      docIdSet = new ScanBasedMultiValueDocIdSet(_dataSource.getOperatorName(), blockValueSet, blockMetadata,
-          _predicateEvaluator);
+      ScanBasedMultiValueDocIdSet multiValueDocIdSet =
+          new ScanBasedMultiValueDocIdSet(_dataSource.getOperatorName(), blockValueSet, blockMetadata,
+              _predicateEvaluator);
+      if (_blockFilter != null) {
+        multiValueDocIdSet.setZoneMapBlockFilter(_blockFilter);
+      }
+      docIdSet = multiValueDocIdSet;
     }
 
     docIdSet.setStartDocId(_startDocId);
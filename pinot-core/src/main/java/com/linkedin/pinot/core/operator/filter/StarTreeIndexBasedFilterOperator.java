@@ -15,7 +15,10 @@
  */
 package com.linkedin.pinot.core.operator.filter;
 
+import com.google.common.base.Preconditions;
 import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.segment.SegmentMetadata;
+import com.linkedin.pinot.common.segment.StarTreeMetadata;
 import com.linkedin.pinot.common.utils.request.FilterQueryTree;
 import com.linkedin.pinot.common.utils.request.RequestUtils;
 import com.linkedin.pinot.core.common.DataSource;
@@ -50,6 +53,10 @@ import org.roaringbitmap.buffer.MutableRoaringBitmap;
  * <p>High-level algorithm:
  * <ul>
  *   <li>
+ *     Among all the star trees in the segment, keep the ones that fit the query (see
+ *     {@link RequestUtils#isFitForStarTreeIndex(SegmentMetadata, StarTreeMetadata, BrokerRequest, FilterQueryTree)})
+ *   </li>
+ *   <li>
  *     Traverse the filter tree and generate a map from column to a list of {@link PredicateEvaluator}s applied to it
  *   </li>
  *   <li>
@@ -77,6 +84,8 @@ import org.roaringbitmap.buffer.MutableRoaringBitmap;
  *   </li>
  *   <li>Conjoin all {@link BaseFilterOperator}s with AND if we have multiple of them</li>
  * </ul>
+ * <p>If multiple star trees fit the query, all of them are traversed (which is cheap compared to processing the
+ * documents), and the one with the fewest matching documents is used.
  */
 public class StarTreeIndexBasedFilterOperator extends BaseFilterOperator {
   /**
@@ -113,6 +122,8 @@ public class StarTreeIndexBasedFilterOperator extends BaseFilterOperator {
   private static final int USE_SCAN_TO_TRAVERSE_NODES_THRESHOLD = 10;
 
   private final IndexSegment _indexSegment;
+  // Star trees that fit the query
+  private final List<StarTree> _starTrees;
   // Map from column to predicate evaluators
   private final Map<String, List<PredicateEvaluator>> _predicateEvaluatorsMap;
   // Map from column to matching dictionary ids
@@ -125,6 +136,7 @@ public class StarTreeIndexBasedFilterOperator extends BaseFilterOperator {
   public StarTreeIndexBasedFilterOperator(IndexSegment indexSegment, BrokerRequest brokerRequest,
       FilterQueryTree rootFilterNode) {
     _indexSegment = indexSegment;
+    _starTrees = getStarTreesFitForQuery(indexSegment, brokerRequest, rootFilterNode);
     _groupByColumns = RequestUtils.getAllGroupByColumns(brokerRequest.getGroupBy());
 
     if (rootFilterNode != null) {
@@ -163,6 +175,28 @@ public class StarTreeIndexBasedFilterOperator extends BaseFilterOperator {
     }
   }
 
+  /**
+   * Helper method to get the star trees in the index segment that fit the query.
+   */
+  private static List<StarTree> getStarTreesFitForQuery(IndexSegment indexSegment, BrokerRequest brokerRequest,
+      FilterQueryTree rootFilterNode) {
+    SegmentMetadata segmentMetadata = indexSegment.getSegmentMetadata();
+    List<StarTreeMetadata> starTreeMetadataList = segmentMetadata.getStarTreeMetadataList();
+    List<StarTree> starTrees = indexSegment.getStarTrees();
+    int numStarTrees = starTrees.size();
+    if (numStarTrees == 1) {
+      return starTrees;
+    }
+    List<StarTree> starTreesFitForQuery = new ArrayList<>(numStarTrees);
+    for (int i = 0; i < numStarTrees; i++) {
+      if (RequestUtils.isFitForStarTreeIndex(segmentMetadata, starTreeMetadataList.get(i), brokerRequest,
+          rootFilterNode)) {
+        starTreesFitForQuery.add(starTrees.get(i));
+      }
+    }
+    return starTreesFitForQuery;
+  }
+
   /**
    * Helper method to process the filter tree and get a map from column to a list of predicates applied to it.
    */
@@ -225,12 +259,22 @@ public class StarTreeIndexBasedFilterOperator extends BaseFilterOperator {
    * </ul>
    */
   private List<BaseFilterOperator> getChildFilterOperators() {
-    StarTreeResult starTreeResult = traverseStarTree();
+    // Pick the star tree with the fewest matching documents
+    StarTreeResult starTreeResult = null;
+    for (StarTree starTree : _starTrees) {
+      StarTreeResult result = traverseStarTree(starTree);
+
+      // If star tree result is null, the result for the filter operator will be empty, early terminate
+      if (result == null) {
+        return Collections.emptyList();
+      }
 
-    // If star tree result is null, the result for the filter operator will be empty, early terminate
-    if (starTreeResult == null) {
-      return Collections.emptyList();
+      if (starTreeResult == null
+          || result._matchedDocIds.getCardinality() < starTreeResult._matchedDocIds.getCardinality()) {
+        starTreeResult = result;
+      }
     }
+    Preconditions.checkState(starTreeResult != null, "No star tree fits the query");
 
     List<BaseFilterOperator> childFilterOperators =
         new ArrayList<>(1 + starTreeResult._remainingPredicateColumns.size());
@@ -258,16 +302,15 @@ public class StarTreeIndexBasedFilterOperator extends BaseFilterOperator {
   }
 
   /**
-   * Helper method to traverse the star tree, get matching documents and keep track of all the predicate columns that
-   * are not matched.
+   * Helper method to traverse the given star tree, get matching documents and keep track of all the predicate columns
+   * that are not matched.
    * <p>Return <code>null</code> if no matching dictionary id found for a column (i.e. the result for the filter
    * operator is empty).
    */
-  private StarTreeResult traverseStarTree() {
+  private StarTreeResult traverseStarTree(StarTree starTree) {
     MutableRoaringBitmap matchedDocIds = new MutableRoaringBitmap();
     Set<String> remainingPredicateColumns = new HashSet<>();
 
-    StarTree starTree = _indexSegment.getStarTree();
     List<String> dimensionNames = starTree.getDimensionNames();
     StarTreeNode starTreeRootNode = starTree.getRoot();
 
@@ -0,0 +1,156 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.filter;
+
+import com.linkedin.pinot.core.common.Predicate;
+import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import com.linkedin.pinot.core.segment.index.readers.ZoneMapIndexReader;
+import java.util.Arrays;
+import java.util.BitSet;
+import javax.annotation.Nullable;
+
+
+/**
+ * Block filter based on the zone map of a column.
+ * <p>Marks the zone map blocks within a doc id range whose dictionary id range might contain a matching dictionary id.
+ * The documents of all other blocks cannot match the predicate, so the scan based doc id iterators can skip them
+ * without reading the forward index.
+ */
+public final class ZoneMapBlockFilter {
+  private final int _numDocsPerBlock;
+  private final BitSet _candidateBlocks;
+  private final int _startDocId;
+  private final int _endDocId;
+
+  private ZoneMapBlockFilter(int numDocsPerBlock, BitSet candidateBlocks, int startDocId, int endDocId) {
+    _numDocsPerBlock = numDocsPerBlock;
+    _candidateBlocks = candidateBlocks;
+    _startDocId = startDocId;
+    _endDocId = endDocId;
+  }
+
+  /**
+   * Returns the block filter for the given predicate within the doc id range (inclusive), or <code>null</code> if the
+   * zone map cannot be applied to the predicate.
+   * <p>REGEXP_LIKE predicate is not supported because computing its matching dictionary ids requires evaluating the
+   * pattern over the whole dictionary.
+   */
+  @Nullable
+  public static ZoneMapBlockFilter create(ZoneMapIndexReader zoneMap, PredicateEvaluator predicateEvaluator,
+      int startDocId, int endDocId) {
+    if (!predicateEvaluator.isDictionaryBased() || predicateEvaluator.isAlwaysFalse()
+        || predicateEvaluator.getPredicateType() == Predicate.Type.REGEXP_LIKE) {
+      return null;
+    }
+    boolean isExclusive = predicateEvaluator.isExclusive();
+    int[] dictIds =
+        isExclusive ? predicateEvaluator.getNonMatchingDictIds() : predicateEvaluator.getMatchingDictIds();
+    dictIds = Arrays.copyOf(dictIds, dictIds.length);
+    Arrays.sort(dictIds);
+
+    int numDocsPerBlock = zoneMap.getNumDocsPerBlock();
+    int startBlockId = startDocId / numDocsPerBlock;
+    int endBlockId = Math.min(endDocId / numDocsPerBlock, zoneMap.getNumBlocks() - 1);
+    BitSet candidateBlocks = new BitSet(endBlockId + 1);
+    for (int blockId = startBlockId; blockId <= endBlockId; blockId++) {
+      if (mightMatch(dictIds, isExclusive, zoneMap.getMinDictId(blockId), zoneMap.getMaxDictId(blockId))) {
+        candidateBlocks.set(blockId);
+      }
+    }
+    return new ZoneMapBlockFilter(numDocsPerBlock, candidateBlocks, startDocId, endDocId);
+  }
+
+  /**
+   * Returns whether a block with the given dictionary id range might contain a matching document.
+   *
+   * @param dictIds Sorted matching dictionary ids, or sorted non-matching dictionary ids for exclusive predicate
+   * @param isExclusive Whether the predicate is exclusive
+   * @param minDictId Min dictionary id of the block
+   * @param maxDictId Max dictionary id of the block
+   */
+  static boolean mightMatch(int[] dictIds, boolean isExclusive, int minDictId, int maxDictId) {
+    if (minDictId > maxDictId) {
+      // No value recorded for the block, cannot prune it
+      return true;
+    }
+    int index = Arrays.binarySearch(dictIds, minDictId);
+    int fromIndex = index >= 0 ? index : -index - 1;
+    if (isExclusive) {
+      // Can be pruned only if all dictionary ids within the range are non-matching
+      index = Arrays.binarySearch(dictIds, maxDictId);
+      int toIndex = index >= 0 ? index + 1 : -index - 1;
+      return toIndex - fromIndex < maxDictId - minDictId + 1;
+    } else {
+      // Can be pruned only if no matching dictionary id is within the range
+      return fromIndex < dictIds.length && dictIds[fromIndex] <= maxDictId;
+    }
+  }
+
+  /**
+   * Returns whether no document within the doc id range might match.
+   */
+  public boolean isEmpty() {
+    return getNextCandidateDocId(_startDocId) > _endDocId;
+  }
+
+  /**
+   * Returns the first doc id within the doc id range that might match, or a value larger than the end doc id if none.
+   */
+  public int getFirstCandidateDocId() {
+    return getNextCandidateDocId(_startDocId);
+  }
+
+  /**
+   * Returns the last doc id within the doc id range that might match, or a value smaller than the start doc id if none.
+   */
+  public int getLastCandidateDocId() {
+    int lastBlockId = _candidateBlocks.previousSetBit(_endDocId / _numDocsPerBlock);
+    if (lastBlockId < 0) {
+      return _startDocId - 1;
+    }
+    return Math.min(_endDocId, (lastBlockId + 1) * _numDocsPerBlock - 1);
+  }
+
+  /**
+   * Returns whether the given document might match.
+   */
+  public boolean isCandidate(int docId) {
+    return _candidateBlocks.get(docId / _numDocsPerBlock);
+  }
+
+  /**
+   * Returns the first doc id no smaller than the given doc id that might match, or {@link Integer#MAX_VALUE} if none.
+   */
+  public int getNextCandidateDocId(int docId) {
+    int blockId = docId / _numDocsPerBlock;
+    if (_candidateBlocks.get(blockId)) {
+      return docId;
+    }
+    int nextBlockId = _candidateBlocks.nextSetBit(blockId);
+    if (nextBlockId < 0) {
+      return Integer.MAX_VALUE;
+    }
+    return nextBlockId * _numDocsPerBlock;
+  }
+
+  /**
+   * Returns the last doc id of the run of consecutive candidate blocks containing the given candidate doc id.
+   */
+  public int getCandidateRunEndDocId(int docId) {
+    int endBlockId = _candidateBlocks.nextClearBit(docId / _numDocsPerBlock);
+    return (int) Math.min((long) endBlockId * _numDocsPerBlock - 1, Integer.MAX_VALUE);
+  }
+}
@@ -21,4 +21,15 @@ public abstract class BasePredicateEvaluator implements PredicateEvaluator {
   public final boolean isExclusive() {
     return getPredicateType().isExclusive();
   }
+
+  @Override
+  public int applySV(int length, int[] docIds, int[] values) {
+    int numMatchingDocs = 0;
+    for (int i = 0; i < length; i++) {
+      if (applySV(values[i])) {
+        docIds[numMatchingDocs++] = docIds[i];
+      }
+    }
+    return numMatchingDocs;
+  }
 }
@@ -51,6 +51,17 @@ public interface PredicateEvaluator {
    */
   boolean applySV(int value);
 
+  /**
+   * Apply a batch of single-value entries to the predicate, and move the doc ids of the matching entries to the front
+   * of the doc id array (keeping their order).
+   *
+   * @param length Number of entries in the batch
+   * @param docIds Doc ids of the entries
+   * @param values Dictionary ids or raw values of the entries
+   * @return Number of matching entries
+   */
+  int applySV(int length, int[] docIds, int[] values);
+
   /**
    * Apply a multi-value entry to the predicate.
    *
@@ -130,6 +130,20 @@ public class RangePredicateEvaluatorFactory {
       return _startDictId <= dictId && _endDictId > dictId;
     }
 
+    @Override
+    public int applySV(int length, int[] docIds, int[] values) {
+      int startDictId = _startDictId;
+      int endDictId = _endDictId;
+      int numMatchingDocs = 0;
+      for (int i = 0; i < length; i++) {
+        int dictId = values[i];
+        if (startDictId <= dictId && endDictId > dictId) {
+          docIds[numMatchingDocs++] = docIds[i];
+        }
+      }
+      return numMatchingDocs;
+    }
+
     @Override
     public int[] getMatchingDictIds() {
       if (_matchingDictIds == null) {
@@ -22,6 +22,7 @@ import com.linkedin.pinot.core.common.predicate.RegexpLikePredicate;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
+import java.util.BitSet;
 import java.util.regex.Pattern;
 
 
@@ -62,6 +63,9 @@ public class RegexpLikePredicateEvaluatorFactory {
   private static final class DictionaryBasedRegexpLikePredicateEvaluator extends BaseDictionaryBasedPredicateEvaluator {
     final Pattern _pattern;
     final Dictionary _dictionary;
+    // Dictionary ids already evaluated in batch mode, and the ones among them matching the pattern
+    final BitSet _evaluatedDictIds = new BitSet();
+    final BitSet _matchedDictIds = new BitSet();
     int[] _matchingDictIds;
 
     public DictionaryBasedRegexpLikePredicateEvaluator(RegexpLikePredicate regexpLikePredicate, Dictionary dictionary) {
@@ -84,6 +88,31 @@ public class RegexpLikePredicateEvaluatorFactory {
       return _pattern.matcher(_dictionary.getStringValue(dictId)).find();
     }
 
+    /**
+     * Each dictionary id is matched against the pattern at most once for all the batches.
+     */
+    @Override
+    public int applySV(int length, int[] docIds, int[] values) {
+      int numMatchingDocs = 0;
+      for (int i = 0; i < length; i++) {
+        int dictId = values[i];
+        boolean matches;
+        if (_evaluatedDictIds.get(dictId)) {
+          matches = _matchedDictIds.get(dictId);
+        } else {
+          matches = applySV(dictId);
+          _evaluatedDictIds.set(dictId);
+          if (matches) {
+            _matchedDictIds.set(dictId);
+          }
+        }
+        if (matches) {
+          docIds[numMatchingDocs++] = docIds[i];
+        }
+      }
+      return numMatchingDocs;
+    }
+
     @Override
     public int[] getMatchingDictIds() {
       if (_matchingDictIds == null) {
@@ -18,6 +18,7 @@ package com.linkedin.pinot.core.operator.query;
 import com.linkedin.pinot.common.request.GroupBy;
 import com.linkedin.pinot.core.operator.BaseOperator;
 import com.linkedin.pinot.core.operator.ExecutionStatistics;
+import com.linkedin.pinot.core.operator.QueryTerminationSignal;
 import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
 import com.linkedin.pinot.core.operator.blocks.TransformBlock;
 import com.linkedin.pinot.core.operator.transform.TransformExpressionOperator;
@@ -40,6 +41,7 @@ public class AggregationGroupByOperator extends BaseOperator<IntermediateResults
   private final TransformExpressionOperator _transformOperator;
   private final long _numTotalRawDocs;
   private ExecutionStatistics _executionStatistics;
+  private QueryTerminationSignal _queryTerminationSignal;
 
   public AggregationGroupByOperator(@Nonnull AggregationFunctionContext[] aggregationFunctionContexts,
       @Nonnull GroupBy groupBy, int maxInitialResultHolderCapacity, int numGroupsLimit,
@@ -62,7 +64,9 @@ public class AggregationGroupByOperator extends BaseOperator<IntermediateResults
             _numGroupsLimit);
     groupByExecutor.init();
     TransformBlock transformBlock;
-    while ((transformBlock = _transformOperator.nextBlock()) != null) {
+    // Stop between blocks if the query is cancelled, the partial results are discarded by the combine operator.
+    while ((_queryTerminationSignal == null || !_queryTerminationSignal.isTerminated())
+        && (transformBlock = _transformOperator.nextBlock()) != null) {
       numDocsScanned += transformBlock.getNumDocs();
       groupByExecutor.process(transformBlock);
     }
@@ -88,4 +92,9 @@ public class AggregationGroupByOperator extends BaseOperator<IntermediateResults
   public ExecutionStatistics getExecutionStatistics() {
     return _executionStatistics;
   }
+
+  @Override
+  public void setQueryTerminationSignal(QueryTerminationSignal queryTerminationSignal) {
+    _queryTerminationSignal = queryTerminationSignal;
+  }
 }
@@ -17,6 +17,7 @@ package com.linkedin.pinot.core.operator.query;
 
 import com.linkedin.pinot.core.operator.BaseOperator;
 import com.linkedin.pinot.core.operator.ExecutionStatistics;
+import com.linkedin.pinot.core.operator.QueryTerminationSignal;
 import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
 import com.linkedin.pinot.core.operator.blocks.TransformBlock;
 import com.linkedin.pinot.core.operator.transform.TransformExpressionOperator;
@@ -36,6 +37,7 @@ public class AggregationOperator extends BaseOperator<IntermediateResultsBlock>
   private final TransformExpressionOperator _transformOperator;
   private final long _numTotalRawDocs;
   private ExecutionStatistics _executionStatistics;
+  private QueryTerminationSignal _queryTerminationSignal;
 
   public AggregationOperator(@Nonnull AggregationFunctionContext[] aggregationFunctionContexts,
       @Nonnull TransformExpressionOperator transformOperator, long numTotalRawDocs) {
@@ -52,7 +54,9 @@ public class AggregationOperator extends BaseOperator<IntermediateResultsBlock>
     AggregationExecutor aggregationExecutor = new DefaultAggregationExecutor(_aggregationFunctionContexts);
     aggregationExecutor.init();
     TransformBlock transformBlock;
-    while ((transformBlock = _transformOperator.nextBlock()) != null) {
+    // Stop between blocks if the query is cancelled, the partial results are discarded by the combine operator.
+    while ((_queryTerminationSignal == null || !_queryTerminationSignal.isTerminated())
+        && (transformBlock = _transformOperator.nextBlock()) != null) {
       numDocsScanned += transformBlock.getNumDocs();
       aggregationExecutor.aggregate(transformBlock);
     }
@@ -78,4 +82,9 @@ public class AggregationOperator extends BaseOperator<IntermediateResultsBlock>
   public ExecutionStatistics getExecutionStatistics() {
     return _executionStatistics;
   }
+
+  @Override
+  public void setQueryTerminationSignal(QueryTerminationSignal queryTerminationSignal) {
+    _queryTerminationSignal = queryTerminationSignal;
+  }
 }
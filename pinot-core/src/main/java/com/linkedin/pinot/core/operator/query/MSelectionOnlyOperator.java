@@ -23,6 +23,7 @@ import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.operator.BaseOperator;
 import com.linkedin.pinot.core.operator.ExecutionStatistics;
 import com.linkedin.pinot.core.operator.MProjectionOperator;
+import com.linkedin.pinot.core.operator.QueryTerminationSignal;
 import com.linkedin.pinot.core.operator.blocks.DocIdSetBlock;
 import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
 import com.linkedin.pinot.core.operator.blocks.ProjectionBlock;
@@ -49,10 +50,26 @@ public class MSelectionOnlyOperator extends BaseOperator<IntermediateResultsBloc
   private final Block[] _blocks;
   private final int _limitDocs;
   private final Collection<Serializable[]> _rowEvents;
+  private final long _numTotalRawDocs;
   private ExecutionStatistics _executionStatistics;
+  private QueryTerminationSignal _queryTerminationSignal;
 
   public MSelectionOnlyOperator(IndexSegment indexSegment, Selection selection, Operator projectionOperator) {
+    this(indexSegment, selection, projectionOperator, indexSegment.getSegmentMetadata().getTotalRawDocs());
+  }
+
+  /**
+   * Constructor for the class.
+   *
+   * @param indexSegment Index segment
+   * @param selection Selection
+   * @param projectionOperator Projection operator
+   * @param numTotalRawDocs Number of raw documents covered by the operator, reported in the execution statistics
+   */
+  public MSelectionOnlyOperator(IndexSegment indexSegment, Selection selection, Operator projectionOperator,
+      long numTotalRawDocs) {
     _indexSegment = indexSegment;
+    _numTotalRawDocs = numTotalRawDocs;
     _limitDocs = selection.getSize();
     _projectionOperator = (MProjectionOperator) projectionOperator;
     List<String> selectionColumns =
@@ -67,7 +84,9 @@ public class MSelectionOnlyOperator extends BaseOperator<IntermediateResultsBloc
     int numDocsScanned = 0;
 
     ProjectionBlock projectionBlock;
-    while ((projectionBlock = _projectionOperator.nextBlock()) != null) {
+    // Stop between blocks once enough rows are collected across all segments, or the query is cancelled.
+    while ((_queryTerminationSignal == null || !_queryTerminationSignal.isTerminated())
+        && (projectionBlock = _projectionOperator.nextBlock()) != null) {
       for (int i = 0; i < _dataSchema.size(); i++) {
         _blocks[i] = projectionBlock.getBlock(_dataSchema.getColumnName(i));
       }
@@ -79,6 +98,9 @@ public class MSelectionOnlyOperator extends BaseOperator<IntermediateResultsBloc
       for (int i = 0; i < numDocsToFetch; i++) {
         _rowEvents.add(selectionFetcher.getRow(docIdSet[i]));
       }
+      if (_queryTerminationSignal != null) {
+        _queryTerminationSignal.addNumRowsCollected(numDocsToFetch);
+      }
       if (_rowEvents.size() == _limitDocs) {
         break;
       }
@@ -87,10 +109,9 @@ public class MSelectionOnlyOperator extends BaseOperator<IntermediateResultsBloc
     // Create execution statistics.
     long numEntriesScannedInFilter = _projectionOperator.getExecutionStatistics().getNumEntriesScannedInFilter();
     long numEntriesScannedPostFilter = numDocsScanned * _projectionOperator.getNumProjectionColumns();
-    long numTotalRawDocs = _indexSegment.getSegmentMetadata().getTotalRawDocs();
     _executionStatistics =
         new ExecutionStatistics(numDocsScanned, numEntriesScannedInFilter, numEntriesScannedPostFilter,
-            numTotalRawDocs);
+            _numTotalRawDocs);
 
     return new IntermediateResultsBlock(_dataSchema, _rowEvents);
   }
@@ -104,4 +125,9 @@ public class MSelectionOnlyOperator extends BaseOperator<IntermediateResultsBloc
   public ExecutionStatistics getExecutionStatistics() {
     return _executionStatistics;
   }
+
+  @Override
+  public void setQueryTerminationSignal(QueryTerminationSignal queryTerminationSignal) {
+    _queryTerminationSignal = queryTerminationSignal;
+  }
 }
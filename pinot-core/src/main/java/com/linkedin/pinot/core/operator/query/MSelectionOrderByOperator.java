@@ -24,6 +24,7 @@ import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.operator.BaseOperator;
 import com.linkedin.pinot.core.operator.ExecutionStatistics;
 import com.linkedin.pinot.core.operator.MProjectionOperator;
+import com.linkedin.pinot.core.operator.QueryTerminationSignal;
 import com.linkedin.pinot.core.operator.blocks.DocIdSetBlock;
 import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
 import com.linkedin.pinot.core.operator.blocks.ProjectionBlock;
@@ -49,10 +50,26 @@ public class MSelectionOrderByOperator extends BaseOperator<IntermediateResultsB
   private final DataSchema _dataSchema;
   private final Block[] _blocks;
   private final Set<String> _selectionColumns = new HashSet<>();
+  private final long _numTotalRawDocs;
   private ExecutionStatistics _executionStatistics;
+  private QueryTerminationSignal _queryTerminationSignal;
 
   public MSelectionOrderByOperator(IndexSegment indexSegment, Selection selection, Operator projectionOperator) {
+    this(indexSegment, selection, projectionOperator, indexSegment.getSegmentMetadata().getTotalRawDocs());
+  }
+
+  /**
+   * Constructor for the class.
+   *
+   * @param indexSegment Index segment
+   * @param selection Selection
+   * @param projectionOperator Projection operator
+   * @param numTotalRawDocs Number of raw documents covered by the operator, reported in the execution statistics
+   */
+  public MSelectionOrderByOperator(IndexSegment indexSegment, Selection selection, Operator projectionOperator,
+      long numTotalRawDocs) {
     _indexSegment = indexSegment;
+    _numTotalRawDocs = numTotalRawDocs;
     _selection = selection;
     _projectionOperator = (MProjectionOperator) projectionOperator;
 
@@ -80,7 +97,9 @@ public class MSelectionOrderByOperator extends BaseOperator<IntermediateResultsB
     int numDocsScanned = 0;
 
     ProjectionBlock projectionBlock;
-    while ((projectionBlock = _projectionOperator.nextBlock()) != null) {
+    // Stop between blocks if the query is cancelled, the partial results are discarded by the combine operator.
+    while ((_queryTerminationSignal == null || !_queryTerminationSignal.isTerminated())
+        && (projectionBlock = _projectionOperator.nextBlock()) != null) {
       for (int i = 0; i < _dataSchema.size(); i++) {
         _blocks[i] = projectionBlock.getBlock(_dataSchema.getColumnName(i));
       }
@@ -92,10 +111,9 @@ public class MSelectionOrderByOperator extends BaseOperator<IntermediateResultsB
     numDocsScanned += _selectionOperatorService.getNumDocsScanned();
     long numEntriesScannedInFilter = _projectionOperator.getExecutionStatistics().getNumEntriesScannedInFilter();
     long numEntriesScannedPostFilter = numDocsScanned * _projectionOperator.getNumProjectionColumns();
-    long numTotalRawDocs = _indexSegment.getSegmentMetadata().getTotalRawDocs();
     _executionStatistics =
         new ExecutionStatistics(numDocsScanned, numEntriesScannedInFilter, numEntriesScannedPostFilter,
-            numTotalRawDocs);
+            _numTotalRawDocs);
 
     return new IntermediateResultsBlock(_selectionOperatorService.getDataSchema(), _selectionOperatorService.getRows());
   }
@@ -109,4 +127,9 @@ public class MSelectionOrderByOperator extends BaseOperator<IntermediateResultsB
   public ExecutionStatistics getExecutionStatistics() {
     return _executionStatistics;
   }
+
+  @Override
+  public void setQueryTerminationSignal(QueryTerminationSignal queryTerminationSignal) {
+    _queryTerminationSignal = queryTerminationSignal;
+  }
 }
@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.query;
+
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.operator.BaseOperator;
+import com.linkedin.pinot.core.operator.ExecutionStatistics;
+import com.linkedin.pinot.core.operator.QueryTerminationSignal;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionContext;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
+import javax.annotation.Nonnull;
+
+
+/**
+ * The <code>SegmentResultCacheOperator</code> class provides the operator to either serve the intermediate results for
+ * a single segment from the {@link SegmentResultCache}, or compute them with the underlying operator and put them into
+ * the cache.
+ */
+public class SegmentResultCacheOperator extends BaseOperator<IntermediateResultsBlock> {
+  private static final String OPERATOR_NAME = "SegmentResultCacheOperator";
+
+  // For cache hit.
+  private final SegmentResultCache.CachedResult _cachedResult;
+  private final AggregationFunctionContext[] _aggregationFunctionContexts;
+
+  // For cache miss.
+  private final Operator _operator;
+  private final SegmentResultCache _segmentResultCache;
+  private final String _cacheKey;
+
+  private ExecutionStatistics _executionStatistics;
+  private QueryTerminationSignal _queryTerminationSignal;
+
+  /**
+   * Constructor for cache hit.
+   */
+  public SegmentResultCacheOperator(@Nonnull SegmentResultCache.CachedResult cachedResult,
+      @Nonnull AggregationFunctionContext[] aggregationFunctionContexts) {
+    _cachedResult = cachedResult;
+    _aggregationFunctionContexts = aggregationFunctionContexts;
+    _operator = null;
+    _segmentResultCache = null;
+    _cacheKey = null;
+  }
+
+  /**
+   * Constructor for cache miss.
+   */
+  public SegmentResultCacheOperator(@Nonnull Operator operator, @Nonnull SegmentResultCache segmentResultCache,
+      @Nonnull String cacheKey) {
+    _cachedResult = null;
+    _aggregationFunctionContexts = null;
+    _operator = operator;
+    _segmentResultCache = segmentResultCache;
+    _cacheKey = cacheKey;
+  }
+
+  @Override
+  protected IntermediateResultsBlock getNextBlock() {
+    if (_cachedResult != null) {
+      // Keep the execution statistics of the original execution so that the response does not change.
+      _executionStatistics = _cachedResult.getExecutionStatistics();
+      try {
+        return _cachedResult.getResultsBlock(_aggregationFunctionContexts);
+      } catch (Exception e) {
+        return new IntermediateResultsBlock(e);
+      }
+    }
+
+    IntermediateResultsBlock resultsBlock = (IntermediateResultsBlock) _operator.nextBlock();
+    _executionStatistics = _operator.getExecutionStatistics();
+    // Do not cache the partial results of a cancelled query.
+    if (_queryTerminationSignal == null || !_queryTerminationSignal.isCancelled()) {
+      _segmentResultCache.put(_cacheKey, resultsBlock, _executionStatistics);
+    }
+    return resultsBlock;
+  }
+
+  @Override
+  public String getOperatorName() {
+    return OPERATOR_NAME;
+  }
+
+  @Override
+  public ExecutionStatistics getExecutionStatistics() {
+    return _executionStatistics;
+  }
+
+  @Override
+  public void setQueryTerminationSignal(QueryTerminationSignal queryTerminationSignal) {
+    _queryTerminationSignal = queryTerminationSignal;
+    if (_operator instanceof BaseOperator) {
+      ((BaseOperator) _operator).setQueryTerminationSignal(queryTerminationSignal);
+    }
+  }
+}
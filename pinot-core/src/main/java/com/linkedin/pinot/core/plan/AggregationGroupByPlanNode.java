@@ -19,10 +19,12 @@ import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.request.GroupBy;
 import com.linkedin.pinot.common.segment.SegmentMetadata;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
 import com.linkedin.pinot.core.common.Operator;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.operator.query.AggregationGroupByOperator;
 import com.linkedin.pinot.core.operator.transform.TransformExpressionOperator;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionContext;
 import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionUtils;
 import java.util.List;
 import javax.annotation.Nonnull;
@@ -43,24 +45,50 @@ public class AggregationGroupByPlanNode implements PlanNode {
   private final TransformPlanNode _transformPlanNode;
   private final int _maxInitialResultHolderCapacity;
   private final int _numGroupsLimit;
+  private final int _startDocId;
+  private final int _endDocId;
+  private final boolean _starTreeBased;
 
   public AggregationGroupByPlanNode(@Nonnull IndexSegment indexSegment, @Nonnull BrokerRequest brokerRequest,
       int maxInitialResultHolderCapacity, int numGroupsLimit) {
+    this(indexSegment, brokerRequest, maxInitialResultHolderCapacity, numGroupsLimit, 0,
+        FilterPlanNode.END_OF_SEGMENT);
+  }
+
+  /**
+   * Constructor for the class to only aggregate the documents within a doc id range (morsel) of the segment.
+   *
+   * @param indexSegment Index segment
+   * @param brokerRequest Broker request
+   * @param maxInitialResultHolderCapacity Max initial capacity of the result holders
+   * @param numGroupsLimit Limit on number of groups
+   * @param startDocId Start doc id (inclusive)
+   * @param endDocId End doc id (inclusive), or {@link FilterPlanNode#END_OF_SEGMENT}
+   */
+  public AggregationGroupByPlanNode(@Nonnull IndexSegment indexSegment, @Nonnull BrokerRequest brokerRequest,
+      int maxInitialResultHolderCapacity, int numGroupsLimit, int startDocId, int endDocId) {
     _indexSegment = indexSegment;
     _aggregationInfos = brokerRequest.getAggregationsInfo();
     _groupBy = brokerRequest.getGroupBy();
     _maxInitialResultHolderCapacity = maxInitialResultHolderCapacity;
     _numGroupsLimit = numGroupsLimit;
-    _transformPlanNode = new TransformPlanNode(_indexSegment, brokerRequest);
+    _startDocId = startDocId;
+    _endDocId = endDocId;
+    _transformPlanNode = new TransformPlanNode(_indexSegment, brokerRequest, startDocId, endDocId);
+    _starTreeBased = FilterPlanNode.isStarTreeBased(indexSegment, brokerRequest,
+        RequestUtils.generateFilterQueryTree(brokerRequest), endDocId);
   }
 
   @Override
   public Operator run() {
     TransformExpressionOperator transformOperator = (TransformExpressionOperator) _transformPlanNode.run();
     SegmentMetadata segmentMetadata = _indexSegment.getSegmentMetadata();
-    return new AggregationGroupByOperator(
-        AggregationFunctionUtils.getAggregationFunctionContexts(_aggregationInfos, segmentMetadata), _groupBy,
-        _maxInitialResultHolderCapacity, _numGroupsLimit, transformOperator, segmentMetadata.getTotalRawDocs());
+    long numTotalRawDocs = _endDocId == FilterPlanNode.END_OF_SEGMENT ? segmentMetadata.getTotalRawDocs()
+        : _endDocId - _startDocId + 1;
+    AggregationFunctionContext[] aggregationFunctionContexts =
+        AggregationFunctionUtils.getAggregationFunctionContexts(_aggregationInfos, _indexSegment, _starTreeBased);
+    return new AggregationGroupByOperator(aggregationFunctionContexts, _groupBy, _maxInitialResultHolderCapacity,
+        _numGroupsLimit, transformOperator, numTotalRawDocs);
   }
 
   @Override
@@ -18,10 +18,12 @@ package com.linkedin.pinot.core.plan;
 import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.segment.SegmentMetadata;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
 import com.linkedin.pinot.core.common.Operator;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.operator.query.AggregationOperator;
 import com.linkedin.pinot.core.operator.transform.TransformExpressionOperator;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionContext;
 import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionUtils;
 import java.util.List;
 import javax.annotation.Nonnull;
@@ -39,20 +41,42 @@ public class AggregationPlanNode implements PlanNode {
   private final IndexSegment _indexSegment;
   private final List<AggregationInfo> _aggregationInfos;
   private final TransformPlanNode _transformPlanNode;
+  private final int _startDocId;
+  private final int _endDocId;
+  private final boolean _starTreeBased;
 
   public AggregationPlanNode(@Nonnull IndexSegment indexSegment, @Nonnull BrokerRequest brokerRequest) {
+    this(indexSegment, brokerRequest, 0, FilterPlanNode.END_OF_SEGMENT);
+  }
+
+  /**
+   * Constructor for the class to only aggregate the documents within a doc id range (morsel) of the segment.
+   *
+   * @param indexSegment Index segment
+   * @param brokerRequest Broker request
+   * @param startDocId Start doc id (inclusive)
+   * @param endDocId End doc id (inclusive), or {@link FilterPlanNode#END_OF_SEGMENT}
+   */
+  public AggregationPlanNode(@Nonnull IndexSegment indexSegment, @Nonnull BrokerRequest brokerRequest, int startDocId,
+      int endDocId) {
     _indexSegment = indexSegment;
     _aggregationInfos = brokerRequest.getAggregationsInfo();
-    _transformPlanNode = new TransformPlanNode(_indexSegment, brokerRequest);
+    _startDocId = startDocId;
+    _endDocId = endDocId;
+    _transformPlanNode = new TransformPlanNode(_indexSegment, brokerRequest, startDocId, endDocId);
+    _starTreeBased = FilterPlanNode.isStarTreeBased(indexSegment, brokerRequest,
+        RequestUtils.generateFilterQueryTree(brokerRequest), endDocId);
   }
 
   @Override
   public Operator run() {
     TransformExpressionOperator transformOperator = (TransformExpressionOperator) _transformPlanNode.run();
     SegmentMetadata segmentMetadata = _indexSegment.getSegmentMetadata();
-    return new AggregationOperator(
-        AggregationFunctionUtils.getAggregationFunctionContexts(_aggregationInfos, segmentMetadata), transformOperator,
-        segmentMetadata.getTotalRawDocs());
+    long numTotalRawDocs = _endDocId == FilterPlanNode.END_OF_SEGMENT ? segmentMetadata.getTotalRawDocs()
+        : _endDocId - _startDocId + 1;
+    AggregationFunctionContext[] aggregationFunctionContexts =
+        AggregationFunctionUtils.getAggregationFunctionContexts(_aggregationInfos, _indexSegment, _starTreeBased);
+    return new AggregationOperator(aggregationFunctionContexts, transformOperator, numTotalRawDocs);
   }
 
   @Override
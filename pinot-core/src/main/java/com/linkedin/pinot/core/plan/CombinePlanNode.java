@@ -43,6 +43,8 @@ public class CombinePlanNode implements PlanNode {
   private final BrokerRequest _brokerRequest;
   private final ExecutorService _executorService;
   private final long _timeOutMs;
+  private final MCombineGroupByOperator.CombineMode _groupByCombineMode;
+  private final int _numGroupByCombinePartitions;
 
   /**
    * Constructor for the class.
@@ -54,10 +56,27 @@ public class CombinePlanNode implements PlanNode {
    */
   public CombinePlanNode(List<PlanNode> planNodes, BrokerRequest brokerRequest, ExecutorService executorService,
       long timeOutMs) {
+    this(planNodes, brokerRequest, executorService, timeOutMs, MCombineGroupByOperator.CombineMode.CONCURRENT, 1);
+  }
+
+  /**
+   * Constructor for the class.
+   *
+   * @param planNodes List of underlying plan nodes
+   * @param brokerRequest Broker request
+   * @param executorService Executor service
+   * @param timeOutMs Time out in milliseconds for query execution (not for planning phase)
+   * @param groupByCombineMode Combine mode for aggregation group-by query
+   * @param numGroupByCombinePartitions Number of group key partitions for PARTITIONED group-by combine mode
+   */
+  public CombinePlanNode(List<PlanNode> planNodes, BrokerRequest brokerRequest, ExecutorService executorService,
+      long timeOutMs, MCombineGroupByOperator.CombineMode groupByCombineMode, int numGroupByCombinePartitions) {
     _planNodes = planNodes;
     _brokerRequest = brokerRequest;
     _executorService = executorService;
     _timeOutMs = timeOutMs;
+    _groupByCombineMode = groupByCombineMode;
+    _numGroupByCombinePartitions = numGroupByCombinePartitions;
   }
 
   @Override
@@ -115,7 +134,8 @@ public class CombinePlanNode implements PlanNode {
     // TODO: use the same combine operator for both aggregation and selection query.
     if (_brokerRequest.isSetAggregationsInfo() && _brokerRequest.getGroupBy() != null) {
       // Aggregation group-by query
-      return new MCombineGroupByOperator(operators, _executorService, _timeOutMs, _brokerRequest);
+      return new MCombineGroupByOperator(operators, _executorService, _timeOutMs, _brokerRequest, _groupByCombineMode,
+          _numGroupByCombinePartitions);
     } else {
       // Selection or aggregation only query
       return new MCombineOperator(operators, _executorService, _timeOutMs, _brokerRequest);
@@ -47,10 +47,22 @@ public class DocIdSetPlanNode implements PlanNode {
    * @param maxDocPerCall must be <= MAX_DOC_PER_CALL
    */
   public DocIdSetPlanNode(IndexSegment indexSegment, BrokerRequest query, int maxDocPerCall) {
+    this(indexSegment, query, maxDocPerCall, 0, FilterPlanNode.END_OF_SEGMENT);
+  }
+
+  /**
+   * @param indexSegment
+   * @param query
+   * @param maxDocPerCall must be <= MAX_DOC_PER_CALL
+   * @param startDocId start doc id (inclusive) of the documents to process
+   * @param endDocId end doc id (inclusive) of the documents to process, or {@link FilterPlanNode#END_OF_SEGMENT}
+   */
+  public DocIdSetPlanNode(IndexSegment indexSegment, BrokerRequest query, int maxDocPerCall, int startDocId,
+      int endDocId) {
     _maxDocPerCall = Math.min(maxDocPerCall, MAX_DOC_PER_CALL);
     _indexSegment = indexSegment;
     _brokerRequest = query;
-    _filterNode = new FilterPlanNode(_indexSegment, _brokerRequest);
+    _filterNode = new FilterPlanNode(_indexSegment, _brokerRequest, startDocId, endDocId);
   }
 
   @Override
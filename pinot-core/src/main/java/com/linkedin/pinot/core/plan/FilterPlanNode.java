@@ -48,12 +48,37 @@ import org.slf4j.LoggerFactory;
 
 public class FilterPlanNode implements PlanNode {
   private static final Logger LOGGER = LoggerFactory.getLogger(FilterPlanNode.class);
+
+  /**
+   * End doc id to process all the documents of the segment, resolved when the plan node runs.
+   */
+  public static final int END_OF_SEGMENT = -1;
+
   private final BrokerRequest _brokerRequest;
   private final IndexSegment _segment;
+  private final int _startDocId;
+  // Inclusive
+  private final int _endDocId;
 
   public FilterPlanNode(IndexSegment segment, BrokerRequest brokerRequest) {
+    this(segment, brokerRequest, 0, END_OF_SEGMENT);
+  }
+
+  /**
+   * Constructor for the class to only filter the documents within a doc id range of the segment.
+   * <p>Star-tree index is not used for doc id range other than the whole segment, because the star-tree filter
+   * operator works on the pre-aggregated documents appended after the raw documents.
+   *
+   * @param segment Index segment
+   * @param brokerRequest Broker request
+   * @param startDocId Start doc id (inclusive)
+   * @param endDocId End doc id (inclusive), or {@link #END_OF_SEGMENT} for the last document of the segment
+   */
+  public FilterPlanNode(IndexSegment segment, BrokerRequest brokerRequest, int startDocId, int endDocId) {
     _segment = segment;
     _brokerRequest = brokerRequest;
+    _startDocId = startDocId;
+    _endDocId = endDocId;
   }
 
   @Override
@@ -61,16 +86,36 @@ public class FilterPlanNode implements PlanNode {
     long start = System.currentTimeMillis();
     Operator operator;
     FilterQueryTree rootFilterNode = RequestUtils.generateFilterQueryTree(_brokerRequest);
-    if (RequestUtils.isFitForStarTreeIndex(_segment.getSegmentMetadata(), _brokerRequest, rootFilterNode)) {
-      operator = new StarTreeIndexBasedFilterOperator(_segment, _brokerRequest, rootFilterNode);
+    if (_endDocId == END_OF_SEGMENT) {
+      if (isStarTreeBased(_segment, _brokerRequest, rootFilterNode, _endDocId)) {
+        operator = new StarTreeIndexBasedFilterOperator(_segment, _brokerRequest, rootFilterNode);
+      } else {
+        operator = constructPhysicalOperator(rootFilterNode, _segment);
+      }
     } else {
-      operator = constructPhysicalOperator(rootFilterNode, _segment);
+      operator = constructPhysicalOperator(rootFilterNode, _segment, _startDocId, _endDocId);
     }
     long end = System.currentTimeMillis();
     LOGGER.debug("FilterPlanNode.run took:{}", (end - start));
     return operator;
   }
 
+  /**
+   * Returns whether the filter for the given doc id range of the segment is based on the star tree index, in which case
+   * the filtered documents include the pre-aggregated star tree documents.
+   *
+   * @param segment Index segment
+   * @param brokerRequest Broker request
+   * @param rootFilterNode Root of the filter query tree
+   * @param endDocId End doc id (inclusive), or {@link #END_OF_SEGMENT}
+   * @return Whether the filter is based on the star tree index
+   */
+  public static boolean isStarTreeBased(IndexSegment segment, BrokerRequest brokerRequest,
+      FilterQueryTree rootFilterNode, int endDocId) {
+    return endDocId == END_OF_SEGMENT
+        && RequestUtils.isFitForStarTreeIndex(segment.getSegmentMetadata(), brokerRequest, rootFilterNode);
+  }
+
   /**
    * Helper method to build the operator tree from the filter query tree.
    * @param filterQueryTree
@@ -79,8 +124,24 @@ public class FilterPlanNode implements PlanNode {
    */
   @VisibleForTesting
   public static BaseFilterOperator constructPhysicalOperator(FilterQueryTree filterQueryTree, IndexSegment segment) {
+    // TODO: make it exclusive
+    // NOTE: end is inclusive
+    return constructPhysicalOperator(filterQueryTree, segment, 0, segment.getSegmentMetadata().getTotalRawDocs() - 1);
+  }
+
+  /**
+   * Helper method to build the operator tree from the filter query tree, only for the documents within the doc id
+   * range.
+   * @param filterQueryTree
+   * @param segment Index segment
+   * @param startDocId Start doc id (inclusive)
+   * @param endDocId End doc id (inclusive)
+   * @return Filter Operator created
+   */
+  public static BaseFilterOperator constructPhysicalOperator(FilterQueryTree filterQueryTree, IndexSegment segment,
+      int startDocId, int endDocId) {
     if (filterQueryTree == null) {
-      return new MatchEntireSegmentOperator(segment.getSegmentMetadata().getTotalRawDocs());
+      return new MatchEntireSegmentOperator(startDocId, endDocId);
     }
 
     // For non-leaf node, recursively create the child filter operators
@@ -90,7 +151,8 @@ public class FilterPlanNode implements PlanNode {
       List<BaseFilterOperator> childFilterOperators = new ArrayList<>(childFilters.size());
       if (filterType == FilterOperator.AND) {
         for (FilterQueryTree childFilter : childFilters) {
-          BaseFilterOperator childFilterOperator = constructPhysicalOperator(childFilter, segment);
+          BaseFilterOperator childFilterOperator =
+              constructPhysicalOperator(childFilter, segment, startDocId, endDocId);
           if (childFilterOperator.isResultEmpty()) {
             return EmptyFilterOperator.getInstance();
           }
@@ -100,7 +162,8 @@ public class FilterPlanNode implements PlanNode {
         return new AndOperator(childFilterOperators);
       } else {
         for (FilterQueryTree childFilter : childFilters) {
-          BaseFilterOperator childFilterOperator = constructPhysicalOperator(childFilter, segment);
+          BaseFilterOperator childFilterOperator =
+              constructPhysicalOperator(childFilter, segment, startDocId, endDocId);
           if (!childFilterOperator.isResultEmpty()) {
             childFilterOperators.add(childFilterOperator);
           }
@@ -117,10 +180,6 @@ public class FilterPlanNode implements PlanNode {
       Predicate predicate = Predicate.newPredicate(filterQueryTree);
       DataSource dataSource = segment.getDataSource(filterQueryTree.getColumn());
       PredicateEvaluator predicateEvaluator = PredicateEvaluatorProvider.getPredicateEvaluator(predicate, dataSource);
-      int startDocId = 0;
-      // TODO: make it exclusive
-      // NOTE: end is inclusive
-      int endDocId = segment.getSegmentMetadata().getTotalRawDocs() - 1;
       return FilterOperatorUtils.getLeafFilterOperator(predicateEvaluator, dataSource, startDocId, endDocId);
     }
   }
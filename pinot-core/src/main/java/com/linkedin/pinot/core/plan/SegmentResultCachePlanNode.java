@@ -0,0 +1,72 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.plan;
+
+import com.linkedin.pinot.common.request.AggregationInfo;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.query.SegmentResultCacheOperator;
+import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionUtils;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
+import java.util.List;
+import javax.annotation.Nonnull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>SegmentResultCachePlanNode</code> class provides the execution plan for a single segment query that is
+ * served from the {@link SegmentResultCache} if possible, or computed by the underlying plan node and cached otherwise.
+ */
+public class SegmentResultCachePlanNode implements PlanNode {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentResultCachePlanNode.class);
+
+  private final PlanNode _planNode;
+  private final IndexSegment _indexSegment;
+  private final List<AggregationInfo> _aggregationInfos;
+  private final SegmentResultCache _segmentResultCache;
+  private final String _cacheKey;
+
+  public SegmentResultCachePlanNode(@Nonnull PlanNode planNode, @Nonnull IndexSegment indexSegment,
+      @Nonnull List<AggregationInfo> aggregationInfos, @Nonnull SegmentResultCache segmentResultCache,
+      @Nonnull String cacheKey) {
+    _planNode = planNode;
+    _indexSegment = indexSegment;
+    _aggregationInfos = aggregationInfos;
+    _segmentResultCache = segmentResultCache;
+    _cacheKey = cacheKey;
+  }
+
+  @Override
+  public Operator run() {
+    SegmentResultCache.CachedResult cachedResult = _segmentResultCache.get(_cacheKey);
+    if (cachedResult != null) {
+      return new SegmentResultCacheOperator(cachedResult,
+          AggregationFunctionUtils.getAggregationFunctionContexts(_aggregationInfos,
+              _indexSegment.getSegmentMetadata()));
+    }
+    return new SegmentResultCacheOperator(_planNode.run(), _segmentResultCache, _cacheKey);
+  }
+
+  @Override
+  public void showTree(String prefix) {
+    LOGGER.debug(prefix + "Segment Level Inner-Segment Plan Node:");
+    LOGGER.debug(prefix + "Operator: SegmentResultCacheOperator");
+    LOGGER.debug(prefix + "Argument 0: IndexSegment - " + _indexSegment.getSegmentName());
+    LOGGER.debug(prefix + "Argument 1: Underlying plan node -");
+    _planNode.showTree(prefix + "    ");
+  }
+}
@@ -35,10 +35,26 @@ public class SelectionPlanNode implements PlanNode {
   private final IndexSegment _indexSegment;
   private final Selection _selection;
   private final ProjectionPlanNode _projectionPlanNode;
+  private final int _startDocId;
+  private final int _endDocId;
 
   public SelectionPlanNode(IndexSegment indexSegment, BrokerRequest brokerRequest) {
+    this(indexSegment, brokerRequest, 0, FilterPlanNode.END_OF_SEGMENT);
+  }
+
+  /**
+   * Constructor for the class to only select from the documents within a doc id range (morsel) of the segment.
+   *
+   * @param indexSegment Index segment
+   * @param brokerRequest Broker request
+   * @param startDocId Start doc id (inclusive)
+   * @param endDocId End doc id (inclusive), or {@link FilterPlanNode#END_OF_SEGMENT}
+   */
+  public SelectionPlanNode(IndexSegment indexSegment, BrokerRequest brokerRequest, int startDocId, int endDocId) {
     _indexSegment = indexSegment;
     _selection = brokerRequest.getSelections();
+    _startDocId = startDocId;
+    _endDocId = endDocId;
     int maxDocPerNextCall = DocIdSetPlanNode.MAX_DOC_PER_CALL;
 
     if ((_selection.getSelectionSortSequence() == null) || _selection.getSelectionSortSequence().isEmpty()) {
@@ -46,18 +62,21 @@ public class SelectionPlanNode implements PlanNode {
       maxDocPerNextCall = Math.min(_selection.getOffset() + _selection.getSize(), maxDocPerNextCall);
     }
 
-    DocIdSetPlanNode docIdSetPlanNode = new DocIdSetPlanNode(_indexSegment, brokerRequest, maxDocPerNextCall);
+    DocIdSetPlanNode docIdSetPlanNode =
+        new DocIdSetPlanNode(_indexSegment, brokerRequest, maxDocPerNextCall, startDocId, endDocId);
     _projectionPlanNode = new ProjectionPlanNode(_indexSegment,
         SelectionOperatorUtils.extractSelectionRelatedColumns(_selection, indexSegment), docIdSetPlanNode);
   }
 
   @Override
   public Operator run() {
+    long numTotalRawDocs = _endDocId == FilterPlanNode.END_OF_SEGMENT ? _indexSegment.getSegmentMetadata()
+        .getTotalRawDocs() : _endDocId - _startDocId + 1;
     // Use selection order-by operator only if there are sorting columns and selection size is not 0.
     if (_selection.isSetSelectionSortSequence() && (_selection.getSize() != 0)) {
-      return new MSelectionOrderByOperator(_indexSegment, _selection, _projectionPlanNode.run());
+      return new MSelectionOrderByOperator(_indexSegment, _selection, _projectionPlanNode.run(), numTotalRawDocs);
     } else {
-      return new MSelectionOnlyOperator(_indexSegment, _selection, _projectionPlanNode.run());
+      return new MSelectionOnlyOperator(_indexSegment, _selection, _projectionPlanNode.run(), numTotalRawDocs);
     }
   }
 
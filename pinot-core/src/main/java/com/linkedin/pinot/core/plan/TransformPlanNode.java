@@ -59,6 +59,19 @@ public class TransformPlanNode implements PlanNode {
    * @param brokerRequest BrokerRequest to process
    */
   public TransformPlanNode(@Nonnull IndexSegment indexSegment, @Nonnull BrokerRequest brokerRequest) {
+    this(indexSegment, brokerRequest, 0, FilterPlanNode.END_OF_SEGMENT);
+  }
+
+  /**
+   * Constructor for the class to only process the documents within a doc id range of the segment.
+   *
+   * @param indexSegment Segment to process
+   * @param brokerRequest BrokerRequest to process
+   * @param startDocId Start doc id (inclusive)
+   * @param endDocId End doc id (inclusive), or {@link FilterPlanNode#END_OF_SEGMENT}
+   */
+  public TransformPlanNode(@Nonnull IndexSegment indexSegment, @Nonnull BrokerRequest brokerRequest, int startDocId,
+      int endDocId) {
 
     Set<String> projectionColumns = new HashSet<>();
     Set<String> transformExpressions = new HashSet<>();
@@ -75,7 +88,8 @@ public class TransformPlanNode implements PlanNode {
 
     _projectionPlanNode =
         new ProjectionPlanNode(indexSegment, projectionColumns.toArray(new String[projectionColumns.size()]),
-            new DocIdSetPlanNode(indexSegment, brokerRequest));
+            new DocIdSetPlanNode(indexSegment, brokerRequest, DocIdSetPlanNode.MAX_DOC_PER_CALL, startDocId,
+                endDocId));
   }
 
   /**
@@ -19,8 +19,13 @@ import com.linkedin.pinot.common.data.MetricFieldSpec;
 import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.segment.SegmentMetadata;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionContext;
+import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionFactory.AggregationFunctionType;
+import com.linkedin.pinot.startree.hll.HllConstants;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 
@@ -50,6 +55,71 @@ public class BrokerRequestPreProcessor {
     }
   }
 
+  /**
+   * Pre-process the {@link BrokerRequest} for one index segment, returning a rewritten copy if the segment can answer
+   * the query more efficiently, or the passed in object otherwise.
+   * <p>The following steps are performed:
+   * <ul>
+   *   <li>Rewrite 'distinctcounthll' into 'fasthll' on the HLL derived column to use star tree.</li>
+   * </ul>
+   *
+   * @param indexSegment index segment.
+   * @param brokerRequest broker request.
+   * @return broker request to use for the index segment.
+   */
+  public static BrokerRequest preProcessForSegment(IndexSegment indexSegment, BrokerRequest brokerRequest) {
+    if (brokerRequest.isSetAggregationsInfo()) {
+      return rewriteDistinctCountHllForStarTree(indexSegment.getSegmentMetadata(), brokerRequest);
+    }
+    return brokerRequest;
+  }
+
+  /**
+   * Rewrite 'distinctcounthll' on a column with HLL derived column into 'fasthll' on the derived column, so that the
+   * query can be answered from the pre-aggregated HLLs in the star tree documents instead of scanning raw documents.
+   * <p>The rewrite is applied only if the query fits the star tree after the rewrite (merging serialized HLLs from raw
+   * documents is slower than offering the raw values), and the segment uses the same log2m as 'distinctcounthll' so
+   * that the intermediate results can be merged with the ones from other segments. The result column name is kept.
+   *
+   * @param segmentMetadata segment metadata.
+   * @param brokerRequest broker request.
+   * @return rewritten copy of the broker request, or the passed in object if the rewrite does not apply.
+   */
+  private static BrokerRequest rewriteDistinctCountHllForStarTree(SegmentMetadata segmentMetadata,
+      BrokerRequest brokerRequest) {
+    if (!segmentMetadata.hasStarTree() || segmentMetadata.getHllLog2m() != HllConstants.DEFAULT_LOG2M) {
+      return brokerRequest;
+    }
+
+    BrokerRequest rewrittenBrokerRequest = null;
+    List<AggregationInfo> aggregationsInfo = brokerRequest.getAggregationsInfo();
+    int numAggregations = aggregationsInfo.size();
+    for (int i = 0; i < numAggregations; i++) {
+      AggregationInfo aggregationInfo = aggregationsInfo.get(i);
+      if (aggregationInfo.getAggregationType().equalsIgnoreCase(AggregationFunctionType.DISTINCTCOUNTHLL.getName())) {
+        String column = aggregationInfo.getAggregationParams().get("column").trim();
+        String hllDerivedColumn = segmentMetadata.getDerivedColumn(column, MetricFieldSpec.DerivedMetricType.HLL);
+        if (hllDerivedColumn != null) {
+          if (rewrittenBrokerRequest == null) {
+            rewrittenBrokerRequest = new BrokerRequest(brokerRequest);
+          }
+          AggregationInfo rewrittenAggregationInfo = rewrittenBrokerRequest.getAggregationsInfo().get(i);
+          rewrittenAggregationInfo.setAggregationType(AggregationFunctionType.FASTHLL.getName());
+          Map<String, String> aggregationParams = rewrittenAggregationInfo.getAggregationParams();
+          aggregationParams.put("column", hllDerivedColumn);
+          aggregationParams.put(AggregationFunctionContext.RESULT_COLUMN_NAME_KEY,
+              AggregationFunctionContext.instantiate(aggregationInfo).getAggregationColumnName());
+        }
+      }
+    }
+
+    if (rewrittenBrokerRequest != null && RequestUtils.isFitForStarTreeIndex(segmentMetadata, rewrittenBrokerRequest,
+        RequestUtils.generateFilterQueryTree(rewrittenBrokerRequest))) {
+      return rewrittenBrokerRequest;
+    }
+    return brokerRequest;
+  }
+
   /**
    * Rewrite 'fasthll' column name.
    *
@@ -15,25 +15,32 @@
  */
 package com.linkedin.pinot.core.plan.maker;
 
+import com.google.common.base.Preconditions;
 import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.request.FilterQuery;
 import com.linkedin.pinot.core.data.manager.offline.SegmentDataManager;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.MCombineGroupByOperator;
 import com.linkedin.pinot.core.plan.AggregationGroupByPlanNode;
 import com.linkedin.pinot.core.plan.AggregationPlanNode;
 import com.linkedin.pinot.core.plan.CombinePlanNode;
+import com.linkedin.pinot.core.plan.FilterPlanNode;
 import com.linkedin.pinot.core.plan.GlobalPlanImplV0;
 import com.linkedin.pinot.core.plan.InstanceResponsePlanNode;
 import com.linkedin.pinot.core.plan.MetadataBasedAggregationPlanNode;
 import com.linkedin.pinot.core.plan.Plan;
 import com.linkedin.pinot.core.plan.PlanNode;
+import com.linkedin.pinot.core.plan.SegmentResultCachePlanNode;
 import com.linkedin.pinot.core.plan.SelectionPlanNode;
 import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionFactory;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
 import com.linkedin.pinot.core.query.config.QueryExecutorConfig;
+import com.linkedin.pinot.core.realtime.MutableIndexSegment;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,6 +55,27 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
   private static final int DEFAULT_MAX_INITIAL_RESULT_HOLDER_CAPACITY = 10_000;
   private final int _maxInitialResultHolderCapacity;
 
+  // Combine mode for aggregation group-by query, one of MCombineGroupByOperator.CombineMode (case insensitive).
+  private static final String GROUP_BY_COMBINE_MODE_KEY = "combine.groupby.mode";
+  private static final MCombineGroupByOperator.CombineMode DEFAULT_GROUP_BY_COMBINE_MODE =
+      MCombineGroupByOperator.CombineMode.CONCURRENT;
+  private final MCombineGroupByOperator.CombineMode _groupByCombineMode;
+
+  // Number of group key partitions for PARTITIONED group-by combine mode.
+  private static final String NUM_GROUP_BY_COMBINE_PARTITIONS_KEY = "combine.groupby.num.partitions";
+  private static final int DEFAULT_NUM_GROUP_BY_COMBINE_PARTITIONS =
+      Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+  private final int _numGroupByCombinePartitions;
+
+  // Per-segment result cache for immutable segments, shared with the table data managers, null if not enabled.
+  private final SegmentResultCache _segmentResultCache;
+
+  // Number of documents per morsel, immutable segments larger than this are split into multiple doc id ranges that are
+  // processed in parallel, 0 to disable intra-segment parallelism.
+  private static final String NUM_DOCS_PER_MORSEL_KEY = "num.docs.per.morsel";
+  private static final int DEFAULT_NUM_DOCS_PER_MORSEL = 0;
+  private final int _numDocsPerMorsel;
+
   // TODO: Fix the runtime trimming and add back the number of aggregation groups limit.
   // TODO: Need to revisit the runtime trimming solution. Current solution will remove group keys that should not be removed.
   // Limit on number of groups, beyond which results are truncated.
@@ -60,6 +88,10 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
    */
   public InstancePlanMakerImplV2() {
     _maxInitialResultHolderCapacity = DEFAULT_MAX_INITIAL_RESULT_HOLDER_CAPACITY;
+    _groupByCombineMode = DEFAULT_GROUP_BY_COMBINE_MODE;
+    _numGroupByCombinePartitions = DEFAULT_NUM_GROUP_BY_COMBINE_PARTITIONS;
+    _segmentResultCache = null;
+    _numDocsPerMorsel = DEFAULT_NUM_DOCS_PER_MORSEL;
 //    _numAggrGroupsLimit = DEFAULT_NUM_AGGR_GROUPS_LIMIT;
   }
 
@@ -67,13 +99,43 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
    * Constructor for usage when client requires to pass {@link QueryExecutorConfig} to this class.
    * <ul>
    *   <li>Set limit on number of aggregation groups in query result.</li>
+   *   <li>Set combine mode and number of partitions for aggregation group-by query.</li>
+   *   <li>Set number of documents per morsel for intra-segment parallelism.</li>
    * </ul>
    *
    * @param queryExecutorConfig query executor configuration.
    */
   public InstancePlanMakerImplV2(QueryExecutorConfig queryExecutorConfig) {
+    this(queryExecutorConfig, null);
+  }
+
+  /**
+   * Constructor for usage when client requires to pass {@link QueryExecutorConfig} and the per-segment result cache
+   * (shared with the table data managers which invalidate the cached results) to this class.
+   *
+   * @param queryExecutorConfig query executor configuration.
+   * @param segmentResultCache per-segment result cache, null if not enabled.
+   */
+  public InstancePlanMakerImplV2(QueryExecutorConfig queryExecutorConfig,
+      @Nullable SegmentResultCache segmentResultCache) {
     _maxInitialResultHolderCapacity = queryExecutorConfig.getConfig()
         .getInt(MAX_INITIAL_RESULT_HOLDER_CAPACITY_KEY, DEFAULT_MAX_INITIAL_RESULT_HOLDER_CAPACITY);
+    _groupByCombineMode = MCombineGroupByOperator.CombineMode.valueOf(queryExecutorConfig.getConfig()
+        .getString(GROUP_BY_COMBINE_MODE_KEY, DEFAULT_GROUP_BY_COMBINE_MODE.name())
+        .toUpperCase());
+    _numGroupByCombinePartitions = queryExecutorConfig.getConfig()
+        .getInt(NUM_GROUP_BY_COMBINE_PARTITIONS_KEY, DEFAULT_NUM_GROUP_BY_COMBINE_PARTITIONS);
+    Preconditions.checkArgument(_numGroupByCombinePartitions > 0,
+        "Number of group-by combine partitions must be positive, got: %s", _numGroupByCombinePartitions);
+    LOGGER.info("Group-by combine mode: {}, number of partitions: {}", _groupByCombineMode,
+        _numGroupByCombinePartitions);
+    _segmentResultCache = segmentResultCache;
+    _numDocsPerMorsel = queryExecutorConfig.getConfig().getInt(NUM_DOCS_PER_MORSEL_KEY, DEFAULT_NUM_DOCS_PER_MORSEL);
+    Preconditions.checkArgument(_numDocsPerMorsel >= 0, "Number of documents per morsel must be non-negative, got: %s",
+        _numDocsPerMorsel);
+    if (_numDocsPerMorsel > 0) {
+      LOGGER.info("Intra-segment parallelism enabled with number of documents per morsel: {}", _numDocsPerMorsel);
+    }
 
     // TODO: Read the limit on number of aggregation groups in query result from config.
     // _numAggrGroupsLimit = queryExecutorConfig.getConfig().getInt(NUM_AGGR_GROUPS_LIMIT, DEFAULT_NUM_AGGR_GROUPS_LIMIT);
@@ -82,25 +144,32 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
 
   @Override
   public PlanNode makeInnerSegmentPlan(IndexSegment indexSegment, BrokerRequest brokerRequest) {
+    return makeInnerSegmentPlan(indexSegment, brokerRequest, 0, FilterPlanNode.END_OF_SEGMENT);
+  }
+
+  @Override
+  public PlanNode makeInnerSegmentPlan(IndexSegment indexSegment, BrokerRequest brokerRequest, int startDocId,
+      int endDocId) {
     // Aggregation query.
     if (brokerRequest.isSetAggregationsInfo()) {
+      brokerRequest = BrokerRequestPreProcessor.preProcessForSegment(indexSegment, brokerRequest);
       if (brokerRequest.isSetGroupBy()) {
         // Aggregation group-by query.
         return new AggregationGroupByPlanNode(indexSegment, brokerRequest, _maxInitialResultHolderCapacity,
-            _numAggrGroupsLimit);
+            _numAggrGroupsLimit, startDocId, endDocId);
       } else {
           // Aggregation only query.
-        if (isFitForMetadataBasedPlan(brokerRequest)) {
+        if (endDocId == FilterPlanNode.END_OF_SEGMENT && isFitForMetadataBasedPlan(brokerRequest)) {
           return new MetadataBasedAggregationPlanNode(indexSegment, brokerRequest.getAggregationsInfo());
         } else {
-          return new AggregationPlanNode(indexSegment, brokerRequest);
+          return new AggregationPlanNode(indexSegment, brokerRequest, startDocId, endDocId);
         }
       }
     }
 
     // Selection query.
     if (brokerRequest.isSetSelections()) {
-      return new SelectionPlanNode(indexSegment, brokerRequest);
+      return new SelectionPlanNode(indexSegment, brokerRequest, startDocId, endDocId);
     }
 
     throw new UnsupportedOperationException("The query contains no aggregation or selection.");
@@ -117,14 +186,59 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
     BrokerRequestPreProcessor.preProcess(indexSegments, brokerRequest);
 
     List<PlanNode> planNodes = new ArrayList<>();
-    for (IndexSegment indexSegment : indexSegments) {
-      planNodes.add(makeInnerSegmentPlan(indexSegment, brokerRequest));
+    if (_segmentResultCache != null && brokerRequest.isSetAggregationsInfo() && !isFitForMetadataBasedPlan(
+        brokerRequest)) {
+      String tableName = brokerRequest.getQuerySource().getTableName();
+      String queryKey = SegmentResultCache.getQueryKey(brokerRequest);
+      for (IndexSegment indexSegment : indexSegments) {
+        if (SegmentResultCache.isCacheable(indexSegment, brokerRequest)) {
+          PlanNode planNode = makeInnerSegmentPlan(indexSegment, brokerRequest);
+          planNodes.add(new SegmentResultCachePlanNode(planNode, indexSegment, brokerRequest.getAggregationsInfo(),
+              _segmentResultCache, SegmentResultCache.getCacheKey(tableName, indexSegment, queryKey)));
+        } else {
+          addInnerSegmentPlans(indexSegment, brokerRequest, planNodes);
+        }
+      }
+    } else {
+      for (IndexSegment indexSegment : indexSegments) {
+        addInnerSegmentPlans(indexSegment, brokerRequest, planNodes);
+      }
     }
-    CombinePlanNode combinePlanNode = new CombinePlanNode(planNodes, brokerRequest, executorService, timeOutMs);
+    CombinePlanNode combinePlanNode =
+        new CombinePlanNode(planNodes, brokerRequest, executorService, timeOutMs, _groupByCombineMode,
+            _numGroupByCombinePartitions);
 
     return new GlobalPlanImplV0(new InstanceResponsePlanNode(combinePlanNode));
   }
 
+  /**
+   * Helper method to add the plan nodes for one segment.
+   * <p>When intra-segment parallelism is enabled, an immutable segment with more documents than the morsel size is split
+   * into contiguous doc id ranges (morsels), one plan node each, so that the combine operator can process a large
+   * segment with multiple threads. Each morsel reports its own number of documents as total raw documents, so the
+   * merged execution statistics stay the same as processing the whole segment.
+   * <p>Segments are not split for the metadata based plan, or when the segment has star-tree index (star-tree filter
+   * operator works on the pre-aggregated documents).
+   *
+   * @param indexSegment Index segment
+   * @param brokerRequest Broker request
+   * @param planNodes List of plan nodes to add to
+   */
+  private void addInnerSegmentPlans(IndexSegment indexSegment, BrokerRequest brokerRequest, List<PlanNode> planNodes) {
+    int numTotalRawDocs = indexSegment.getSegmentMetadata().getTotalRawDocs();
+    if (_numDocsPerMorsel == 0 || numTotalRawDocs <= _numDocsPerMorsel
+        || indexSegment instanceof MutableIndexSegment || indexSegment.getSegmentMetadata().hasStarTree()
+        || (brokerRequest.isSetAggregationsInfo() && isFitForMetadataBasedPlan(brokerRequest))) {
+      planNodes.add(makeInnerSegmentPlan(indexSegment, brokerRequest));
+      return;
+    }
+
+    for (int startDocId = 0; startDocId < numTotalRawDocs; startDocId += _numDocsPerMorsel) {
+      int endDocId = Math.min(startDocId + _numDocsPerMorsel, numTotalRawDocs) - 1;
+      planNodes.add(makeInnerSegmentPlan(indexSegment, brokerRequest, startDocId, endDocId));
+    }
+  }
+
   /**
    * Helper method to identify if query is fit to be be served purely based on metadata.
    * Currently only count(*) queries without any filters are supported.
@@ -18,6 +18,7 @@ package com.linkedin.pinot.core.plan.maker;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.core.data.manager.offline.SegmentDataManager;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.plan.FilterPlanNode;
 import com.linkedin.pinot.core.plan.Plan;
 import com.linkedin.pinot.core.plan.PlanNode;
 import java.util.List;
@@ -38,6 +39,17 @@ public interface PlanMaker {
    */
   PlanNode makeInnerSegmentPlan(IndexSegment indexSegment, BrokerRequest brokerRequest);
 
+  /**
+   * Make segment level {@link PlanNode} which contains execution plan on a contiguous doc id range of one segment.
+   *
+   * @param indexSegment index segment.
+   * @param brokerRequest broker request.
+   * @param startDocId start doc id.
+   * @param endDocId end doc id (inclusive), or {@link FilterPlanNode#END_OF_SEGMENT} for the last document.
+   * @return segment level plan node.
+   */
+  PlanNode makeInnerSegmentPlan(IndexSegment indexSegment, BrokerRequest brokerRequest, int startDocId, int endDocId);
+
   /**
    * Make instance level {@link Plan} which contains execution plan on multiple segments.
    *
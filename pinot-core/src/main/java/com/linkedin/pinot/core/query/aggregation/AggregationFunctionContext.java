@@ -18,25 +18,37 @@ package com.linkedin.pinot.core.query.aggregation;
 import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.core.query.aggregation.function.AggregationFunction;
 import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionFactory;
+import javax.annotation.Nullable;
 
 
 /**
  * This class caches miscellaneous data to perform efficient aggregation.
  */
 public class AggregationFunctionContext {
+  // Aggregation parameter overriding the result column name, set on the server side when an aggregation is rewritten
+  public static final String RESULT_COLUMN_NAME_KEY = "resultColumnName";
+
   private final AggregationFunction _aggregationFunction;
   private final String[] _aggrColumns;
+  private final String _resultColumnName;
 
   public static AggregationFunctionContext instantiate(AggregationInfo aggregationInfo) {
     String[] aggrColumns = aggregationInfo.getAggregationParams().get("column").trim().split(",");
     String functionName = aggregationInfo.getAggregationType();
     AggregationFunction aggregationFunction = AggregationFunctionFactory.getAggregationFunction(functionName);
-    return new AggregationFunctionContext(aggrColumns, aggregationFunction);
+    return new AggregationFunctionContext(aggrColumns, aggregationFunction,
+        aggregationInfo.getAggregationParams().get(RESULT_COLUMN_NAME_KEY));
   }
 
   public AggregationFunctionContext(String[] aggrColumns, AggregationFunction aggregationFunction) {
+    this(aggrColumns, aggregationFunction, null);
+  }
+
+  public AggregationFunctionContext(String[] aggrColumns, AggregationFunction aggregationFunction,
+      @Nullable String resultColumnName) {
     _aggrColumns = aggrColumns;
     _aggregationFunction = aggregationFunction;
+    _resultColumnName = resultColumnName;
   }
 
   /**
@@ -59,6 +71,9 @@ public class AggregationFunctionContext {
    * Returns the aggregation column name for the results.
    */
   public String getAggregationColumnName() {
+    if (_resultColumnName != null) {
+      return _resultColumnName;
+    }
     return _aggregationFunction.getColumnName(_aggrColumns);
   }
 }
@@ -18,8 +18,13 @@ package com.linkedin.pinot.core.query.aggregation.function;
 import com.google.common.math.DoubleMath;
 import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.common.segment.SegmentMetadata;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.plan.AggregationFunctionInitializer;
 import com.linkedin.pinot.core.query.aggregation.AggregationFunctionContext;
+import com.linkedin.pinot.core.startree.StarTree;
+import com.linkedin.pinot.core.startree.StarTreeHllIndex;
+import com.linkedin.pinot.core.startree.StarTreeQuantileDigestIndex;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import javax.annotation.Nonnull;
@@ -52,6 +57,60 @@ public class AggregationFunctionUtils {
     return aggregationFunctionContexts;
   }
 
+  /**
+   * Returns the aggregation function contexts initialized for the given segment. If the plan runs over the star tree
+   * documents (the query fits the star tree), the PERCENTILEEST and DISTINCTCOUNTHLL functions are bound to the
+   * pre-aggregated quantile digests and hyper log logs of the star trees, otherwise no per-document lookup is needed.
+   *
+   * @param aggregationInfos aggregation infos.
+   * @param indexSegment index segment.
+   * @param starTreeBased whether the plan runs over the star tree documents, see
+   *                      {@link com.linkedin.pinot.core.plan.FilterPlanNode#isStarTreeBased}.
+   */
+  @Nonnull
+  public static AggregationFunctionContext[] getAggregationFunctionContexts(
+      @Nonnull List<AggregationInfo> aggregationInfos, @Nonnull IndexSegment indexSegment, boolean starTreeBased) {
+    AggregationFunctionContext[] aggregationFunctionContexts =
+        getAggregationFunctionContexts(aggregationInfos, indexSegment.getSegmentMetadata());
+    if (!starTreeBased) {
+      return aggregationFunctionContexts;
+    }
+    List<StarTree> starTrees = indexSegment.getStarTrees();
+    if (starTrees == null || starTrees.isEmpty()) {
+      return aggregationFunctionContexts;
+    }
+    for (AggregationFunctionContext aggregationFunctionContext : aggregationFunctionContexts) {
+      AggregationFunction aggregationFunction = aggregationFunctionContext.getAggregationFunction();
+      if (aggregationFunction instanceof PercentileEstAggregationFunction) {
+        String column = aggregationFunctionContext.getAggregationColumns()[0];
+        List<StarTreeQuantileDigestIndex> quantileDigestIndexes = new ArrayList<>();
+        for (StarTree starTree : starTrees) {
+          StarTreeQuantileDigestIndex quantileDigestIndex = starTree.getQuantileDigestIndex();
+          if (quantileDigestIndex != null && quantileDigestIndex.getColumns().contains(column)) {
+            quantileDigestIndexes.add(quantileDigestIndex);
+          }
+        }
+        if (!quantileDigestIndexes.isEmpty()) {
+          ((PercentileEstAggregationFunction) aggregationFunction).setQuantileDigestIndexes(column,
+              quantileDigestIndexes);
+        }
+      } else if (aggregationFunction instanceof DistinctCountHLLAggregationFunction) {
+        String column = aggregationFunctionContext.getAggregationColumns()[0];
+        List<StarTreeHllIndex> hllIndexes = new ArrayList<>();
+        for (StarTree starTree : starTrees) {
+          StarTreeHllIndex hllIndex = starTree.getHllIndex();
+          if (hllIndex != null && hllIndex.getColumns().contains(column)) {
+            hllIndexes.add(hllIndex);
+          }
+        }
+        if (!hllIndexes.isEmpty()) {
+          ((DistinctCountHLLAggregationFunction) aggregationFunction).setHllIndexes(column, hllIndexes);
+        }
+      }
+    }
+    return aggregationFunctionContexts;
+  }
+
   @Nonnull
   public static AggregationFunction[] getAggregationFunctions(@Nonnull List<AggregationInfo> aggregationInfos) {
     int numAggregationFunctions = aggregationInfos.size();
@@ -19,12 +19,20 @@ import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.core.common.BlockValSet;
 import com.linkedin.pinot.core.query.aggregation.AggregationResultHolder;
 import com.linkedin.pinot.core.query.aggregation.ObjectAggregationResultHolder;
+import com.linkedin.pinot.core.query.aggregation.function.customobject.DictIdBitmap;
 import com.linkedin.pinot.core.query.aggregation.groupby.GroupByResultHolder;
 import com.linkedin.pinot.core.query.aggregation.groupby.ObjectGroupByResultHolder;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import javax.annotation.Nonnull;
 
 
+/**
+ * Distinct count aggregation function, with value hash codes as intermediate result.
+ *
+ * For dictionary encoded columns, the distinct dictionary ids are accumulated in a {@link DictIdBitmap} within the
+ * segment, and converted to value hash codes only once per distinct value when the segment result is extracted.
+ */
 public class DistinctCountAggregationFunction implements AggregationFunction<IntOpenHashSet, Integer> {
   private static final String NAME = AggregationFunctionFactory.AggregationFunctionType.DISTINCTCOUNT.getName();
 
@@ -60,6 +68,17 @@ public class DistinctCountAggregationFunction implements AggregationFunction<Int
   @Override
   public void aggregate(int length, @Nonnull AggregationResultHolder aggregationResultHolder,
       @Nonnull BlockValSet... blockValSets) {
+    Dictionary dictionary = blockValSets[0].getDictionary();
+    if (dictionary != null) {
+      DictIdBitmap dictIdBitmap = aggregationResultHolder.getResult();
+      if (dictIdBitmap == null) {
+        dictIdBitmap = new DictIdBitmap(dictionary, blockValSets[0].getValueType());
+        aggregationResultHolder.setValue(dictIdBitmap);
+      }
+      dictIdBitmap.add(blockValSets[0].getDictionaryIds(), length);
+      return;
+    }
+
     IntOpenHashSet valueSet = aggregationResultHolder.getResult();
     if (valueSet == null) {
       valueSet = new IntOpenHashSet();
@@ -111,8 +130,16 @@ public class DistinctCountAggregationFunction implements AggregationFunction<Int
   @Override
   public void aggregateGroupBySV(int length, @Nonnull int[] groupKeyArray,
       @Nonnull GroupByResultHolder groupByResultHolder, @Nonnull BlockValSet... blockValSets) {
-
     FieldSpec.DataType valueType = blockValSets[0].getValueType();
+    Dictionary dictionary = blockValSets[0].getDictionary();
+    if (dictionary != null) {
+      int[] dictIds = blockValSets[0].getDictionaryIds();
+      for (int i = 0; i < length; i++) {
+        getDictIdBitmapForGroupKey(groupByResultHolder, groupKeyArray[i], dictionary, valueType).add(dictIds[i]);
+      }
+      return;
+    }
+
     switch (valueType) {
       case INT:
         int[] intValues = blockValSets[0].getIntValuesSV();
@@ -163,6 +190,17 @@ public class DistinctCountAggregationFunction implements AggregationFunction<Int
   public void aggregateGroupByMV(int length, @Nonnull int[][] groupKeysArray,
       @Nonnull GroupByResultHolder groupByResultHolder, @Nonnull BlockValSet... blockValSets) {
     FieldSpec.DataType valueType = blockValSets[0].getValueType();
+    Dictionary dictionary = blockValSets[0].getDictionary();
+    if (dictionary != null) {
+      int[] dictIds = blockValSets[0].getDictionaryIds();
+      for (int i = 0; i < length; i++) {
+        for (int groupKey : groupKeysArray[i]) {
+          getDictIdBitmapForGroupKey(groupByResultHolder, groupKey, dictionary, valueType).add(dictIds[i]);
+        }
+      }
+      return;
+    }
+
     switch (valueType) {
       case INT:
         int[] intValues = blockValSets[0].getIntValuesSV();
@@ -211,23 +249,32 @@ public class DistinctCountAggregationFunction implements AggregationFunction<Int
   @Nonnull
   @Override
   public IntOpenHashSet extractAggregationResult(@Nonnull AggregationResultHolder aggregationResultHolder) {
-    IntOpenHashSet valueSet = aggregationResultHolder.getResult();
-    if (valueSet == null) {
+    Object result = aggregationResultHolder.getResult();
+    if (result == null) {
       return new IntOpenHashSet();
-    } else {
+    }
+    if (result instanceof DictIdBitmap) {
+      // Convert once, so that extracting the result again does not repeat the dictionary lookups
+      IntOpenHashSet valueSet = ((DictIdBitmap) result).toValueHashSet();
+      aggregationResultHolder.setValue(valueSet);
       return valueSet;
     }
+    return (IntOpenHashSet) result;
   }
 
   @Nonnull
   @Override
   public IntOpenHashSet extractGroupByResult(@Nonnull GroupByResultHolder groupByResultHolder, int groupKey) {
-    IntOpenHashSet valueSet = groupByResultHolder.getResult(groupKey);
-    if (valueSet == null) {
+    Object result = groupByResultHolder.getResult(groupKey);
+    if (result == null) {
       return new IntOpenHashSet();
-    } else {
+    }
+    if (result instanceof DictIdBitmap) {
+      IntOpenHashSet valueSet = ((DictIdBitmap) result).toValueHashSet();
+      groupByResultHolder.setValueForKey(groupKey, valueSet);
       return valueSet;
     }
+    return (IntOpenHashSet) result;
   }
 
   @Nonnull
@@ -255,6 +302,25 @@ public class DistinctCountAggregationFunction implements AggregationFunction<Int
     return intermediateResult.size();
   }
 
+  /**
+   * Helper method to get the dictionary id bitmap for a groupKey from the result holder, creating it if needed.
+   *
+   * @param groupByResultHolder Result holder
+   * @param groupKey Group-key for which to get the bitmap
+   * @param dictionary Dictionary of the column
+   * @param valueType Data type of the column
+   * @return Dictionary id bitmap for the group key
+   */
+  private static DictIdBitmap getDictIdBitmapForGroupKey(@Nonnull GroupByResultHolder groupByResultHolder,
+      int groupKey, @Nonnull Dictionary dictionary, @Nonnull FieldSpec.DataType valueType) {
+    DictIdBitmap dictIdBitmap = groupByResultHolder.getResult(groupKey);
+    if (dictIdBitmap == null) {
+      dictIdBitmap = new DictIdBitmap(dictionary, valueType);
+      groupByResultHolder.setValueForKey(groupKey, dictIdBitmap);
+    }
+    return dictIdBitmap;
+  }
+
   /**
    * Helper method to set value for a groupKey into the result holder.
    *
@@ -23,13 +23,29 @@ import com.linkedin.pinot.core.query.aggregation.AggregationResultHolder;
 import com.linkedin.pinot.core.query.aggregation.ObjectAggregationResultHolder;
 import com.linkedin.pinot.core.query.aggregation.groupby.GroupByResultHolder;
 import com.linkedin.pinot.core.query.aggregation.groupby.ObjectGroupByResultHolder;
+import com.linkedin.pinot.core.startree.StarTreeHllIndex;
 import com.linkedin.pinot.startree.hll.HllConstants;
+import java.util.List;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 
 public class DistinctCountHLLAggregationFunction implements AggregationFunction<HyperLogLog, Long> {
   private static final String NAME = AggregationFunctionFactory.AggregationFunctionType.DISTINCTCOUNTHLL.getName();
 
+  // Pre-aggregated hyper log logs of the star tree aggregated documents, null if not available
+  private String _column;
+  private List<StarTreeHllIndex> _hllIndexes;
+
+  /**
+   * Sets the pre-aggregated hyper log logs of the star trees for the aggregation column, so that the star tree
+   * aggregated documents merge their hyper log logs instead of offering their aggregated metric values.
+   */
+  public void setHllIndexes(@Nonnull String column, @Nonnull List<StarTreeHllIndex> hllIndexes) {
+    _column = column;
+    _hllIndexes = hllIndexes;
+  }
+
   @Nonnull
   @Override
   public String getName() {
@@ -69,6 +85,15 @@ public class DistinctCountHLLAggregationFunction implements AggregationFunction<
       aggregationResultHolder.setValue(hyperLogLog);
     }
 
+    int[] docIds = getDocIds(blockValSets[0]);
+    if (docIds != null) {
+      int[] values = getStarTreeValues(length, blockValSets[0]);
+      for (int i = 0; i < length; i++) {
+        aggregateValue(hyperLogLog, values[i], docIds[i]);
+      }
+      return;
+    }
+
     FieldSpec.DataType valueType = blockValSets[0].getValueType();
     switch (valueType) {
       case INT:
@@ -115,6 +140,15 @@ public class DistinctCountHLLAggregationFunction implements AggregationFunction<
   public void aggregateGroupBySV(int length, @Nonnull int[] groupKeyArray,
       @Nonnull GroupByResultHolder groupByResultHolder, @Nonnull BlockValSet... blockValSets) {
 
+    int[] docIds = getDocIds(blockValSets[0]);
+    if (docIds != null) {
+      int[] values = getStarTreeValues(length, blockValSets[0]);
+      for (int i = 0; i < length; i++) {
+        aggregateValue(getHyperLogLog(groupByResultHolder, groupKeyArray[i]), values[i], docIds[i]);
+      }
+      return;
+    }
+
     FieldSpec.DataType valueType = blockValSets[0].getValueType();
     switch (valueType) {
       case INT:
@@ -163,6 +197,17 @@ public class DistinctCountHLLAggregationFunction implements AggregationFunction<
   public void aggregateGroupByMV(int length, @Nonnull int[][] groupKeysArray,
       @Nonnull GroupByResultHolder groupByResultHolder, @Nonnull BlockValSet... blockValSets) {
 
+    int[] docIds = getDocIds(blockValSets[0]);
+    if (docIds != null) {
+      int[] values = getStarTreeValues(length, blockValSets[0]);
+      for (int i = 0; i < length; i++) {
+        for (int groupKey : groupKeysArray[i]) {
+          aggregateValue(getHyperLogLog(groupByResultHolder, groupKey), values[i], docIds[i]);
+        }
+      }
+      return;
+    }
+
     FieldSpec.DataType valueType = blockValSets[0].getValueType();
     switch (valueType) {
       case INT:
@@ -258,6 +303,85 @@ public class DistinctCountHLLAggregationFunction implements AggregationFunction<
     return intermediateResult.cardinality();
   }
 
+  /**
+   * Returns the doc ids of the block if the pre-aggregated hyper log logs are available, null otherwise.
+   */
+  @Nullable
+  private int[] getDocIds(@Nonnull BlockValSet blockValSet) {
+    if (_hllIndexes == null) {
+      return null;
+    }
+    return blockValSet.getDocIds();
+  }
+
+  /**
+   * Returns the values to offer for the documents of the block. The star tree only stores hyper log logs for numeric
+   * metrics, whose values are offered the same way as in the other aggregation methods.
+   */
+  @Nonnull
+  private static int[] getStarTreeValues(int length, @Nonnull BlockValSet blockValSet) {
+    int[] values = new int[length];
+    FieldSpec.DataType valueType = blockValSet.getValueType();
+    switch (valueType) {
+      case INT:
+        System.arraycopy(blockValSet.getIntValuesSV(), 0, values, 0, length);
+        break;
+      case LONG:
+        long[] longValues = blockValSet.getLongValuesSV();
+        for (int i = 0; i < length; i++) {
+          values[i] = Long.valueOf(longValues[i]).hashCode();
+        }
+        break;
+      case FLOAT:
+        float[] floatValues = blockValSet.getFloatValuesSV();
+        for (int i = 0; i < length; i++) {
+          values[i] = Float.valueOf(floatValues[i]).hashCode();
+        }
+        break;
+      case DOUBLE:
+        double[] doubleValues = blockValSet.getDoubleValuesSV();
+        for (int i = 0; i < length; i++) {
+          values[i] = Double.valueOf(doubleValues[i]).hashCode();
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Illegal data type for star tree distinct count aggregation: " + valueType);
+    }
+    return values;
+  }
+
+  /**
+   * Helper method to merge the pre-aggregated hyper log log of the given document if it is a star tree aggregated
+   * document, or offer the value of the document otherwise.
+   */
+  private void aggregateValue(@Nonnull HyperLogLog hyperLogLog, int value, int docId) {
+    for (StarTreeHllIndex hllIndex : _hllIndexes) {
+      HyperLogLog preAggregatedHyperLogLog = hllIndex.getHll(_column, docId);
+      if (preAggregatedHyperLogLog != null) {
+        try {
+          hyperLogLog.addAll(preAggregatedHyperLogLog);
+        } catch (CardinalityMergeException e) {
+          throw new RuntimeException("Caught exception while merging HyperLogLog.", e);
+        }
+        return;
+      }
+    }
+    hyperLogLog.offer(value);
+  }
+
+  /**
+   * Helper method to get the hyper log log for a groupKey from the result holder, creating it if absent.
+   */
+  @Nonnull
+  private static HyperLogLog getHyperLogLog(@Nonnull GroupByResultHolder groupByResultHolder, int groupKey) {
+    HyperLogLog hyperLogLog = groupByResultHolder.getResult(groupKey);
+    if (hyperLogLog == null) {
+      hyperLogLog = new HyperLogLog(HllConstants.DEFAULT_LOG2M);
+      groupByResultHolder.setValueForKey(groupKey, hyperLogLog);
+    }
+    return hyperLogLog;
+  }
+
   /**
    * Helper method to set value for a groupKey into the result holder.
    *
@@ -266,12 +390,7 @@ public class DistinctCountHLLAggregationFunction implements AggregationFunction<
    * @param value Value for the group key
    */
   private void setValueForGroupKey(@Nonnull GroupByResultHolder groupByResultHolder, int groupKey, int value) {
-    HyperLogLog hyperLogLog = groupByResultHolder.getResult(groupKey);
-    if (hyperLogLog == null) {
-      hyperLogLog = new HyperLogLog(HllConstants.DEFAULT_LOG2M);
-      groupByResultHolder.setValueForKey(groupKey, hyperLogLog);
-    }
-    hyperLogLog.offer(value);
+    getHyperLogLog(groupByResultHolder, groupKey).offer(value);
   }
 
   /**
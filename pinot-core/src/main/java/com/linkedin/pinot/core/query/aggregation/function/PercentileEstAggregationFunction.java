@@ -22,7 +22,10 @@ import com.linkedin.pinot.core.query.aggregation.ObjectAggregationResultHolder;
 import com.linkedin.pinot.core.query.aggregation.function.customobject.QuantileDigest;
 import com.linkedin.pinot.core.query.aggregation.groupby.GroupByResultHolder;
 import com.linkedin.pinot.core.query.aggregation.groupby.ObjectGroupByResultHolder;
+import com.linkedin.pinot.core.startree.StarTreeQuantileDigestIndex;
+import java.util.List;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 
 public class PercentileEstAggregationFunction implements AggregationFunction<QuantileDigest, Long> {
@@ -31,6 +34,10 @@ public class PercentileEstAggregationFunction implements AggregationFunction<Qua
   private final String _name;
   private final int _percentile;
 
+  // Pre-aggregated quantile digests of the star tree aggregated documents, null if not available
+  private String _column;
+  private List<StarTreeQuantileDigestIndex> _quantileDigestIndexes;
+
   public PercentileEstAggregationFunction(int percentile) {
     switch (percentile) {
       case 50:
@@ -52,6 +59,16 @@ public class PercentileEstAggregationFunction implements AggregationFunction<Qua
     _percentile = percentile;
   }
 
+  /**
+   * Sets the pre-aggregated quantile digests of the star trees for the aggregation column, so that the star tree
+   * aggregated documents merge their quantile digests instead of adding their aggregated metric values.
+   */
+  public void setQuantileDigestIndexes(@Nonnull String column,
+      @Nonnull List<StarTreeQuantileDigestIndex> quantileDigestIndexes) {
+    _column = column;
+    _quantileDigestIndexes = quantileDigestIndexes;
+  }
+
   @Nonnull
   @Override
   public String getName() {
@@ -85,13 +102,20 @@ public class PercentileEstAggregationFunction implements AggregationFunction<Qua
   public void aggregate(int length, @Nonnull AggregationResultHolder aggregationResultHolder,
       @Nonnull BlockValSet... blockValSets) {
     double[] valueArray = blockValSets[0].getDoubleValuesSV();
+    int[] docIds = getDocIds(blockValSets[0]);
     QuantileDigest quantileDigest = aggregationResultHolder.getResult();
     if (quantileDigest == null) {
       quantileDigest = new QuantileDigest(DEFAULT_MAX_ERROR);
       aggregationResultHolder.setValue(quantileDigest);
     }
-    for (int i = 0; i < length; i++) {
-      quantileDigest.add((long) valueArray[i]);
+    if (docIds == null) {
+      for (int i = 0; i < length; i++) {
+        quantileDigest.add((long) valueArray[i]);
+      }
+    } else {
+      for (int i = 0; i < length; i++) {
+        aggregateValue(quantileDigest, valueArray[i], docIds[i]);
+      }
     }
   }
 
@@ -99,6 +123,7 @@ public class PercentileEstAggregationFunction implements AggregationFunction<Qua
   public void aggregateGroupBySV(int length, @Nonnull int[] groupKeyArray,
       @Nonnull GroupByResultHolder groupByResultHolder, @Nonnull BlockValSet... blockValSets) {
     double[] valueArray = blockValSets[0].getDoubleValuesSV();
+    int[] docIds = getDocIds(blockValSets[0]);
     for (int i = 0; i < length; i++) {
       int groupKey = groupKeyArray[i];
       QuantileDigest quantileDigest = groupByResultHolder.getResult(groupKey);
@@ -106,7 +131,11 @@ public class PercentileEstAggregationFunction implements AggregationFunction<Qua
         quantileDigest = new QuantileDigest(DEFAULT_MAX_ERROR);
         groupByResultHolder.setValueForKey(groupKey, quantileDigest);
       }
-      quantileDigest.add((long) valueArray[i]);
+      if (docIds == null) {
+        quantileDigest.add((long) valueArray[i]);
+      } else {
+        aggregateValue(quantileDigest, valueArray[i], docIds[i]);
+      }
     }
   }
 
@@ -114,6 +143,7 @@ public class PercentileEstAggregationFunction implements AggregationFunction<Qua
   public void aggregateGroupByMV(int length, @Nonnull int[][] groupKeysArray,
       @Nonnull GroupByResultHolder groupByResultHolder, @Nonnull BlockValSet... blockValSets) {
     double[] valueArray = blockValSets[0].getDoubleValuesSV();
+    int[] docIds = getDocIds(blockValSets[0]);
     for (int i = 0; i < length; i++) {
       double value = valueArray[i];
       for (int groupKey : groupKeysArray[i]) {
@@ -122,9 +152,39 @@ public class PercentileEstAggregationFunction implements AggregationFunction<Qua
           quantileDigest = new QuantileDigest(DEFAULT_MAX_ERROR);
           groupByResultHolder.setValueForKey(groupKey, quantileDigest);
         }
-        quantileDigest.add((long) value);
+        if (docIds == null) {
+          quantileDigest.add((long) value);
+        } else {
+          aggregateValue(quantileDigest, value, docIds[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the doc ids of the block if the pre-aggregated quantile digests are available, null otherwise.
+   */
+  @Nullable
+  private int[] getDocIds(@Nonnull BlockValSet blockValSet) {
+    if (_quantileDigestIndexes == null) {
+      return null;
+    }
+    return blockValSet.getDocIds();
+  }
+
+  /**
+   * Helper method to merge the pre-aggregated quantile digest of the given document if it is a star tree aggregated
+   * document, or add the value of the document otherwise.
+   */
+  private void aggregateValue(@Nonnull QuantileDigest quantileDigest, double value, int docId) {
+    for (StarTreeQuantileDigestIndex quantileDigestIndex : _quantileDigestIndexes) {
+      QuantileDigest preAggregatedQuantileDigest = quantileDigestIndex.getQuantileDigest(_column, docId);
+      if (preAggregatedQuantileDigest != null) {
+        quantileDigest.merge(preAggregatedQuantileDigest);
+        return;
       }
     }
+    quantileDigest.add((long) value);
   }
 
   @Nonnull
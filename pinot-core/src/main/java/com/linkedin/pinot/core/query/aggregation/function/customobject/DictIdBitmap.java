@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.aggregation.function.customobject;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import javax.annotation.Nonnull;
+import org.roaringbitmap.RoaringBitmap;
+
+
+/**
+ * Bitmap of dictionary ids of a dictionary encoded column, used to accumulate distinct values within a segment
+ * without looking up and hashing the value of every doc.
+ *
+ * Dictionary ids are only meaningful within the segment, so this object is never serialized and is converted to
+ * the set of value hash codes with {@link #toValueHashSet()} before segment results are combined.
+ */
+public class DictIdBitmap {
+  private final Dictionary _dictionary;
+  private final FieldSpec.DataType _valueType;
+  private final RoaringBitmap _dictIds = new RoaringBitmap();
+
+  public DictIdBitmap(@Nonnull Dictionary dictionary, @Nonnull FieldSpec.DataType valueType) {
+    _dictionary = dictionary;
+    _valueType = valueType;
+  }
+
+  public void add(int dictId) {
+    _dictIds.add(dictId);
+  }
+
+  public void add(@Nonnull int[] dictIds, int length) {
+    for (int i = 0; i < length; i++) {
+      _dictIds.add(dictIds[i]);
+    }
+  }
+
+  public int getCardinality() {
+    return _dictIds.getCardinality();
+  }
+
+  /**
+   * Convert the dictionary ids to the set of value hash codes, reading each distinct value from the dictionary
+   * once. Hash codes are the same as computed from the values of the column.
+   */
+  @Nonnull
+  public IntOpenHashSet toValueHashSet() {
+    int[] dictIds = _dictIds.toArray();
+    int numValues = dictIds.length;
+    IntOpenHashSet valueSet = new IntOpenHashSet(numValues);
+    switch (_valueType) {
+      case INT:
+        int[] intValues = new int[numValues];
+        _dictionary.readIntValues(dictIds, 0, numValues, intValues, 0);
+        for (int value : intValues) {
+          valueSet.add(value);
+        }
+        break;
+
+      case LONG:
+        long[] longValues = new long[numValues];
+        _dictionary.readLongValues(dictIds, 0, numValues, longValues, 0);
+        for (long value : longValues) {
+          valueSet.add(Long.valueOf(value).hashCode());
+        }
+        break;
+
+      case FLOAT:
+        float[] floatValues = new float[numValues];
+        _dictionary.readFloatValues(dictIds, 0, numValues, floatValues, 0);
+        for (float value : floatValues) {
+          valueSet.add(Float.valueOf(value).hashCode());
+        }
+        break;
+
+      case DOUBLE:
+        double[] doubleValues = new double[numValues];
+        _dictionary.readDoubleValues(dictIds, 0, numValues, doubleValues, 0);
+        for (double value : doubleValues) {
+          valueSet.add(Double.valueOf(value).hashCode());
+        }
+        break;
+
+      case STRING:
+        String[] stringValues = new String[numValues];
+        _dictionary.readStringValues(dictIds, 0, numValues, stringValues, 0);
+        for (String value : stringValues) {
+          valueSet.add(value.hashCode());
+        }
+        break;
+
+      default:
+        throw new IllegalArgumentException("Illegal data type for distinct count aggregation function: " + _valueType);
+    }
+    return valueSet;
+  }
+}
@@ -29,11 +29,31 @@ public class AggregationGroupByResult {
   private final AggregationFunction[] _aggregationFunctions;
   private final GroupByResultHolder[] _resultHolders;
 
+  // For materialized results, group id is the index into the arrays.
+  private final Object[] _groupKeys;
+  private final Object[][] _results;
+
   public AggregationGroupByResult(GroupKeyGenerator groupKeyGenerator, AggregationFunction[] aggregationFunctions,
       GroupByResultHolder[] resultHolders) {
     _groupKeyGenerator = groupKeyGenerator;
     _aggregationFunctions = aggregationFunctions;
     _resultHolders = resultHolders;
+    _groupKeys = null;
+    _results = null;
+  }
+
+  /**
+   * Constructor for materialized results (e.g. served from the segment result cache).
+   *
+   * @param groupKeys typed group keys
+   * @param results aggregation results for each group key, in the same order as the aggregation functions
+   */
+  public AggregationGroupByResult(Object[] groupKeys, Object[][] results) {
+    _groupKeyGenerator = null;
+    _aggregationFunctions = null;
+    _resultHolders = null;
+    _groupKeys = groupKeys;
+    _results = results;
   }
 
   /**
@@ -41,6 +61,29 @@ public class AggregationGroupByResult {
    * @return
    */
   public Iterator<GroupKeyGenerator.GroupKey> getGroupKeyIterator() {
+    if (_groupKeys != null) {
+      return new Iterator<GroupKeyGenerator.GroupKey>() {
+        private final GroupKeyGenerator.GroupKey _groupKey = new GroupKeyGenerator.GroupKey();
+        private int _groupId = 0;
+
+        @Override
+        public boolean hasNext() {
+          return _groupId < _groupKeys.length;
+        }
+
+        @Override
+        public GroupKeyGenerator.GroupKey next() {
+          _groupKey._groupId = _groupId;
+          _groupKey._key = _groupKeys[_groupId++];
+          return _groupKey;
+        }
+
+        @Override
+        public void remove() {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
     return _groupKeyGenerator.getUniqueGroupKeys();
   }
 
@@ -62,6 +105,9 @@ public class AggregationGroupByResult {
    * @return
    */
   public Object getResultForKey(GroupKeyGenerator.GroupKey groupKey, int index) {
+    if (_results != null) {
+      return _results[groupKey._groupId][index];
+    }
     return _aggregationFunctions[index].extractGroupByResult(_resultHolders[index], groupKey._groupId);
   }
 }
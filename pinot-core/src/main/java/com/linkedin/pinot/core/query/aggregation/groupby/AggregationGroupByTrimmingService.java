@@ -61,15 +61,34 @@ public class AggregationGroupByTrimmingService {
 
   /**
    * Given a map from group key to the intermediate results for multiple aggregation functions, trim the results to
-   * desired size and put them into a list of maps from group key to intermediate result for each aggregation function.
+   * desired size and put them into a list of maps from string group key to intermediate result for each aggregation
+   * function.
+   * <p>The group key can be either a string group key or a typed group key, and will be converted to string group key
+   * only for the groups that survive the trimming.
+   */
+  @Nonnull
+  public List<Map<String, Object>> trimIntermediateResultsMap(@Nonnull Map<?, Object[]> intermediateResultsMap) {
+    return trimIntermediateResultsMaps(Collections.singletonList(intermediateResultsMap));
+  }
+
+  /**
+   * Given a list of maps (with disjoint key sets) from group key to the intermediate results for multiple aggregation
+   * functions, trim the results to desired size and put them into a list of maps from string group key to intermediate
+   * result for each aggregation function.
+   * <p>The group key can be either a string group key or a typed group key, and will be converted to string group key
+   * only for the groups that survive the trimming.
    */
   @SuppressWarnings("unchecked")
   @Nonnull
-  public List<Map<String, Object>> trimIntermediateResultsMap(@Nonnull Map<String, Object[]> intermediateResultsMap) {
+  public List<Map<String, Object>> trimIntermediateResultsMaps(
+      @Nonnull List<? extends Map<?, Object[]>> intermediateResultsMaps) {
     int numAggregationFunctions = _aggregationFunctions.length;
     Map<String, Object>[] trimmedResultMaps = new Map[numAggregationFunctions];
 
-    int numGroups = intermediateResultsMap.size();
+    int numGroups = 0;
+    for (Map<?, Object[]> intermediateResultsMap : intermediateResultsMaps) {
+      numGroups += intermediateResultsMap.size();
+    }
     if (numGroups > _trimThreshold) {
       // Trim the result only if number of groups is larger than the threshold
 
@@ -80,11 +99,13 @@ public class AggregationGroupByTrimmingService {
       }
 
       // Add results into sorters
-      for (Map.Entry<String, Object[]> entry : intermediateResultsMap.entrySet()) {
-        String groupKey = entry.getKey();
-        Object[] intermediateResults = entry.getValue();
-        for (int i = 0; i < numAggregationFunctions; i++) {
-          sorters[i].add(groupKey, intermediateResults[i]);
+      for (Map<?, Object[]> intermediateResultsMap : intermediateResultsMaps) {
+        for (Map.Entry<?, Object[]> entry : intermediateResultsMap.entrySet()) {
+          Object groupKey = entry.getKey();
+          Object[] intermediateResults = entry.getValue();
+          for (int i = 0; i < numAggregationFunctions; i++) {
+            sorters[i].add(groupKey, intermediateResults[i]);
+          }
         }
       }
 
@@ -95,16 +116,18 @@ public class AggregationGroupByTrimmingService {
         trimmedResultMaps[i] = trimmedResultMap;
       }
     } else {
-      // Simply put results from intermediateResultsMap into trimmedResults
+      // Simply put results from intermediateResultsMaps into trimmedResults
 
       for (int i = 0; i < numAggregationFunctions; i++) {
         trimmedResultMaps[i] = new HashMap<>(numGroups);
       }
-      for (Map.Entry<String, Object[]> entry : intermediateResultsMap.entrySet()) {
-        String groupKey = entry.getKey();
-        Object[] intermediateResults = entry.getValue();
-        for (int i = 0; i < numAggregationFunctions; i++) {
-          trimmedResultMaps[i].put(groupKey, intermediateResults[i]);
+      for (Map<?, Object[]> intermediateResultsMap : intermediateResultsMaps) {
+        for (Map.Entry<?, Object[]> entry : intermediateResultsMap.entrySet()) {
+          String groupKey = entry.getKey().toString();
+          Object[] intermediateResults = entry.getValue();
+          for (int i = 0; i < numAggregationFunctions; i++) {
+            trimmedResultMaps[i].put(groupKey, intermediateResults[i]);
+          }
         }
       }
     }
@@ -146,7 +169,7 @@ public class AggregationGroupByTrimmingService {
   }
 
   private interface Sorter {
-    void add(String groupKey, Object result);
+    void add(Object groupKey, Object result);
 
     void dumpToMap(Map<String, Object> dest);
 
@@ -200,7 +223,7 @@ public class AggregationGroupByTrimmingService {
 
     @SuppressWarnings("unchecked")
     @Override
-    public void add(String groupKey, Object result) {
+    public void add(Object groupKey, Object result) {
       GroupKeyResultPair newGroupKeyResultPair = new GroupKeyResultPair(groupKey, (Comparable) result);
       if (_heap.size() == _trimSize) {
         GroupKeyResultPair minGroupKeyResultPair = _heap.peek();
@@ -217,7 +240,7 @@ public class AggregationGroupByTrimmingService {
     public void dumpToMap(Map<String, Object> dest) {
       GroupKeyResultPair groupKeyResultPair;
       while ((groupKeyResultPair = _heap.poll()) != null) {
-        dest.put(groupKeyResultPair._groupKey, groupKeyResultPair._result);
+        dest.put(groupKeyResultPair._groupKey.toString(), groupKeyResultPair._result);
       }
     }
 
@@ -226,7 +249,7 @@ public class AggregationGroupByTrimmingService {
       GroupKeyResultPair groupKeyResultPair;
       while ((groupKeyResultPair = _heap.poll()) != null) {
         // Set limit to -1 to prevent removing trailing empty strings
-        String[] groupKeys = groupKeyResultPair._groupKey.split(GROUP_KEY_DELIMITER, -1);
+        String[] groupKeys = groupKeyResultPair._groupKey.toString().split(GROUP_KEY_DELIMITER, -1);
 
         GroupByResult groupByResult = new GroupByResult();
         groupByResult.setGroup(Arrays.asList(groupKeys));
@@ -238,10 +261,10 @@ public class AggregationGroupByTrimmingService {
     }
 
     private static class GroupKeyResultPair implements Comparable<GroupKeyResultPair> {
-      private String _groupKey;
+      private Object _groupKey;
       private Comparable<? super Comparable> _result;
 
-      public GroupKeyResultPair(@Nonnull String groupKey, @Nonnull Comparable<? super Comparable> result) {
+      public GroupKeyResultPair(@Nonnull Object groupKey, @Nonnull Comparable<? super Comparable> result) {
         _groupKey = groupKey;
         _result = result;
       }
@@ -278,7 +301,7 @@ public class AggregationGroupByTrimmingService {
     private final int _trimSize;
     private final Comparator<? super Comparable> _comparator;
     private final AggregationFunction _aggregationFunction;
-    private final TreeMap<Comparable, List<ImmutablePair<String, Object>>> _treeMap;
+    private final TreeMap<Comparable, List<ImmutablePair<Object, Object>>> _treeMap;
     private int _numValuesAdded = 0;
 
     public NonComparableSorter(int trimSize, Comparator<? super Comparable> comparator,
@@ -291,14 +314,14 @@ public class AggregationGroupByTrimmingService {
 
     @SuppressWarnings("unchecked")
     @Override
-    public void add(String groupKey, Object result) {
+    public void add(Object groupKey, Object result) {
       Comparable newKey = _aggregationFunction.extractFinalResult(result);
-      ImmutablePair<String, Object> groupKeyResultPair = new ImmutablePair<>(groupKey, result);
+      ImmutablePair<Object, Object> groupKeyResultPair = new ImmutablePair<>(groupKey, result);
 
-      List<ImmutablePair<String, Object>> groupKeyResultPairs = _treeMap.get(newKey);
+      List<ImmutablePair<Object, Object>> groupKeyResultPairs = _treeMap.get(newKey);
       if (_numValuesAdded >= _trimSize) {
         // Check whether the pair should be added
-        Map.Entry<Comparable, List<ImmutablePair<String, Object>>> maxEntry = _treeMap.lastEntry();
+        Map.Entry<Comparable, List<ImmutablePair<Object, Object>>> maxEntry = _treeMap.lastEntry();
         Comparable maxKey = maxEntry.getKey();
         if (_comparator.compare(newKey, maxKey) < 0) {
           // Add the pair into list of pairs
@@ -329,10 +352,10 @@ public class AggregationGroupByTrimmingService {
     public void dumpToMap(Map<String, Object> dest) {
       // Track the number of results added because there could be more than trim size values inside the map
       int numResultsAdded = 0;
-      for (List<ImmutablePair<String, Object>> groupKeyResultPairs : _treeMap.values()) {
-        for (ImmutablePair<String, Object> groupResultPair : groupKeyResultPairs) {
+      for (List<ImmutablePair<Object, Object>> groupKeyResultPairs : _treeMap.values()) {
+        for (ImmutablePair<Object, Object> groupResultPair : groupKeyResultPairs) {
           if (numResultsAdded != _trimSize) {
-            dest.put(groupResultPair.left, groupResultPair.right);
+            dest.put(groupResultPair.left.toString(), groupResultPair.right);
             numResultsAdded++;
           } else {
             return;
@@ -0,0 +1,213 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.aggregation.groupby;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+
+/**
+ * Typed group key for multiple group-by columns, which packs the values of all the group-by columns into a byte array.
+ * <p>The key is value based (not dictionary id based), so keys generated from different segments can be compared
+ * directly. The string representation (values joined with
+ * {@link AggregationGroupByTrimmingService#GROUP_KEY_DELIMITER}) is only built when {@link #toString()} is called.
+ * <p>Value encoding (big-endian):
+ * <ul>
+ *   <li>INT/FLOAT: 4 bytes</li>
+ *   <li>LONG/DOUBLE: 8 bytes</li>
+ *   <li>Others (STRING): 4 bytes length followed by UTF-8 encoded bytes</li>
+ * </ul>
+ */
+public final class CompositeGroupKey {
+  // Shared across all keys generated by the same builder, not part of the key equality
+  private final FieldSpec.DataType[] _dataTypes;
+  private final byte[] _bytes;
+  private final int _hashCode;
+
+  private CompositeGroupKey(@Nonnull FieldSpec.DataType[] dataTypes, @Nonnull byte[] bytes) {
+    _dataTypes = dataTypes;
+    _bytes = bytes;
+    _hashCode = Arrays.hashCode(bytes);
+  }
+
+  @Override
+  public int hashCode() {
+    return _hashCode;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof CompositeGroupKey)) {
+      return false;
+    }
+    CompositeGroupKey that = (CompositeGroupKey) obj;
+    return _hashCode == that._hashCode && Arrays.equals(_bytes, that._bytes);
+  }
+
+  /**
+   * Returns the string group key, where values are joined with
+   * {@link AggregationGroupByTrimmingService#GROUP_KEY_DELIMITER}.
+   */
+  @Override
+  public String toString() {
+    StringBuilder groupKeyBuilder = new StringBuilder();
+    int offset = 0;
+    int numColumns = _dataTypes.length;
+    for (int i = 0; i < numColumns; i++) {
+      if (i > 0) {
+        groupKeyBuilder.append(AggregationGroupByTrimmingService.GROUP_KEY_DELIMITER);
+      }
+      switch (_dataTypes[i]) {
+        case INT:
+          groupKeyBuilder.append(readInt(offset));
+          offset += 4;
+          break;
+        case LONG:
+          groupKeyBuilder.append(readLong(offset));
+          offset += 8;
+          break;
+        case FLOAT:
+          groupKeyBuilder.append(Float.intBitsToFloat(readInt(offset)));
+          offset += 4;
+          break;
+        case DOUBLE:
+          groupKeyBuilder.append(Double.longBitsToDouble(readLong(offset)));
+          offset += 8;
+          break;
+        default:
+          int length = readInt(offset);
+          offset += 4;
+          groupKeyBuilder.append(new String(_bytes, offset, length, StandardCharsets.UTF_8));
+          offset += length;
+          break;
+      }
+    }
+    return groupKeyBuilder.toString();
+  }
+
+  private int readInt(int offset) {
+    return ((_bytes[offset] & 0xFF) << 24) | ((_bytes[offset + 1] & 0xFF) << 16) | ((_bytes[offset + 2] & 0xFF) << 8)
+        | (_bytes[offset + 3] & 0xFF);
+  }
+
+  private long readLong(int offset) {
+    return ((long) readInt(offset) << 32) | (readInt(offset + 4) & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Reusable builder for {@link CompositeGroupKey}. Values must be added in the order of the group-by columns, with the
+   * method matching the data type of the column.
+   * <p>This class is not thread-safe.
+   */
+  public static class Builder {
+    private static final int DEFAULT_BUFFER_SIZE = 64;
+
+    private final FieldSpec.DataType[] _dataTypes;
+    private byte[] _buffer = new byte[DEFAULT_BUFFER_SIZE];
+    private int _size;
+
+    /**
+     * Constructor for the class.
+     *
+     * @param dataTypes Data types of the group-by columns, where types other than INT, LONG, FLOAT and DOUBLE are
+     *                  stored as STRING
+     */
+    public Builder(@Nonnull FieldSpec.DataType[] dataTypes) {
+      int numColumns = dataTypes.length;
+      _dataTypes = new FieldSpec.DataType[numColumns];
+      for (int i = 0; i < numColumns; i++) {
+        _dataTypes[i] = getStoredType(dataTypes[i]);
+      }
+    }
+
+    /**
+     * Returns the type used to store values of the given data type inside the key.
+     */
+    public static FieldSpec.DataType getStoredType(FieldSpec.DataType dataType) {
+      switch (dataType) {
+        case INT:
+        case LONG:
+        case FLOAT:
+        case DOUBLE:
+          return dataType;
+        default:
+          return FieldSpec.DataType.STRING;
+      }
+    }
+
+    public Builder reset() {
+      _size = 0;
+      return this;
+    }
+
+    public Builder addInt(int value) {
+      ensureCapacity(4);
+      writeInt(value);
+      return this;
+    }
+
+    public Builder addLong(long value) {
+      ensureCapacity(8);
+      writeInt((int) (value >>> 32));
+      writeInt((int) value);
+      return this;
+    }
+
+    public Builder addFloat(float value) {
+      return addInt(Float.floatToIntBits(value));
+    }
+
+    public Builder addDouble(double value) {
+      return addLong(Double.doubleToLongBits(value));
+    }
+
+    public Builder addString(@Nonnull String value) {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      int length = bytes.length;
+      ensureCapacity(4 + length);
+      writeInt(length);
+      System.arraycopy(bytes, 0, _buffer, _size, length);
+      _size += length;
+      return this;
+    }
+
+    /**
+     * Builds the key from the values added since the last {@link #reset()}.
+     */
+    public CompositeGroupKey build() {
+      return new CompositeGroupKey(_dataTypes, Arrays.copyOf(_buffer, _size));
+    }
+
+    private void writeInt(int value) {
+      _buffer[_size++] = (byte) (value >>> 24);
+      _buffer[_size++] = (byte) (value >>> 16);
+      _buffer[_size++] = (byte) (value >>> 8);
+      _buffer[_size++] = (byte) value;
+    }
+
+    private void ensureCapacity(int numBytesToAdd) {
+      int requiredSize = _size + numBytesToAdd;
+      if (requiredSize > _buffer.length) {
+        _buffer = Arrays.copyOf(_buffer, Math.max(requiredSize, _buffer.length * 2));
+      }
+    }
+  }
+}
@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.core.query.aggregation.groupby;
 
+import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.core.common.BlockMetadata;
 import com.linkedin.pinot.core.common.BlockValSet;
 import com.linkedin.pinot.core.operator.blocks.TransformBlock;
@@ -33,7 +34,7 @@ import javax.annotation.Nonnull;
 
 
 /**
- * Class for generating group keys (groupId-stringKey pair) for a given list of dictionary encoded group-by columns.
+ * Class for generating group keys (groupId-typedKey pair) for a given list of dictionary encoded group-by columns.
  * <p>The maximum number of possible group keys is the cardinality product of all the group-by columns.
  * <p>The raw key is generated from the dictionary ids of the group-by columns.
  * <ul>
@@ -55,6 +56,8 @@ import javax.annotation.Nonnull;
  *   </li>
  * </ul>
  * <p>All the logic is maintained internally, and to the outside world, the group ids are always int type.
+ * <p>The typed group keys are the dictionary-decoded values of the group-by columns: the boxed value for single group-by
+ * column, or a {@link CompositeGroupKey} for multiple group-by columns.
  */
 // TODO: Revisit to make trimming work. Currently trimming is disabled
 public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
@@ -63,6 +66,7 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
   private final int[] _cardinalities;
   private final boolean[] _isSingleValueColumn;
   private final Dictionary[] _dictionaries;
+  private final FieldSpec.DataType[] _dataTypes;
   private final BlockValSet[] _blockValSets;
 
   // The first dimension is the index of group-by column
@@ -76,6 +80,9 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
   private final int _globalGroupIdUpperBound;
   private final RawKeyHolder _rawKeyHolder;
 
+  // Reusable builder for typed group keys, only used for multiple group-by columns
+  private final CompositeGroupKey.Builder _compositeGroupKeyBuilder;
+
 //  // The following data structures are used for trimming group keys.
 //  // TODO: the key will be contiguous so we should use array here.
 //  // Reverse mapping for trimming group keys
@@ -108,6 +115,7 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
     _cardinalities = new int[_numGroupByColumns];
     _isSingleValueColumn = new boolean[_numGroupByColumns];
     _dictionaries = new Dictionary[_numGroupByColumns];
+    _dataTypes = new FieldSpec.DataType[_numGroupByColumns];
     _blockValSets = new BlockValSet[_numGroupByColumns];
     _singleValueDictIds = new int[_numGroupByColumns][];
     _multiValueDictIds = new int[_numGroupByColumns][];
@@ -118,6 +126,7 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
     for (int i = 0; i < _numGroupByColumns; i++) {
       BlockMetadata blockMetadata = transformBlock.getBlockMetadata(groupByColumns[i]);
       _dictionaries[i] = blockMetadata.getDictionary();
+      _dataTypes[i] = CompositeGroupKey.Builder.getStoredType(blockMetadata.getDataType());
       int cardinality = _dictionaries[i].length();
       _cardinalities[i] = cardinality;
       if (!longOverflow) {
@@ -135,6 +144,12 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
       }
     }
 
+    if (_numGroupByColumns > 1) {
+      _compositeGroupKeyBuilder = new CompositeGroupKey.Builder(_dataTypes);
+    } else {
+      _compositeGroupKeyBuilder = null;
+    }
+
     if (longOverflow) {
       _globalGroupIdUpperBound = Integer.MAX_VALUE;
       _rawKeyHolder = new ArrayMapBasedHolder();
@@ -308,7 +323,7 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
             throw new NoSuchElementException();
           }
           _groupKey._groupId = _currentGroupId;
-          _groupKey._stringKey = getGroupKey(_currentGroupId);
+          _groupKey._key = getGroupKey(_currentGroupId);
           _currentGroupId++;
           return _groupKey;
         }
@@ -383,7 +398,7 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
         public GroupKey next() {
           Int2IntMap.Entry entry = _iterator.next();
           _groupKey._groupId = entry.getIntValue();
-          _groupKey._stringKey = getGroupKey(entry.getIntKey());
+          _groupKey._key = getGroupKey(entry.getIntKey());
           return _groupKey;
         }
 
@@ -468,26 +483,50 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
   }
 
   /**
-   * Helper method to get group key from raw key.
+   * Helper method to get typed group key from raw key.
    *
    * @param rawKey Integer raw key
-   * @return String group key
+   * @return Typed group key
    */
-  private String getGroupKey(int rawKey) {
+  private Object getGroupKey(int rawKey) {
     // Specialize single group-by column case
     if (_numGroupByColumns == 1) {
-      return _dictionaries[0].get(rawKey).toString();
+      return _dictionaries[0].get(rawKey);
     } else {
-      int cardinality = _cardinalities[0];
-      StringBuilder groupKeyBuilder = new StringBuilder(_dictionaries[0].get(rawKey % cardinality).toString());
-      rawKey /= cardinality;
-      for (int i = 1; i < _numGroupByColumns; i++) {
-        groupKeyBuilder.append(AggregationGroupByTrimmingService.GROUP_KEY_DELIMITER);
-        cardinality = _cardinalities[i];
-        groupKeyBuilder.append(_dictionaries[i].get(rawKey % cardinality));
+      _compositeGroupKeyBuilder.reset();
+      for (int i = 0; i < _numGroupByColumns; i++) {
+        int cardinality = _cardinalities[i];
+        addValueToGroupKey(i, rawKey % cardinality);
         rawKey /= cardinality;
       }
-      return groupKeyBuilder.toString();
+      return _compositeGroupKeyBuilder.build();
+    }
+  }
+
+  /**
+   * Helper method to add the dictionary-decoded value of a group-by column into the composite group key builder.
+   *
+   * @param index Index of the group-by column
+   * @param dictId Dictionary id of the value
+   */
+  private void addValueToGroupKey(int index, int dictId) {
+    Dictionary dictionary = _dictionaries[index];
+    switch (_dataTypes[index]) {
+      case INT:
+        _compositeGroupKeyBuilder.addInt(dictionary.getIntValue(dictId));
+        break;
+      case LONG:
+        _compositeGroupKeyBuilder.addLong(dictionary.getLongValue(dictId));
+        break;
+      case FLOAT:
+        _compositeGroupKeyBuilder.addFloat(dictionary.getFloatValue(dictId));
+        break;
+      case DOUBLE:
+        _compositeGroupKeyBuilder.addDouble(dictionary.getDoubleValue(dictId));
+        break;
+      default:
+        _compositeGroupKeyBuilder.addString(dictionary.get(dictId).toString());
+        break;
     }
   }
 
@@ -552,7 +591,7 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
         public GroupKey next() {
           Long2IntMap.Entry entry = _iterator.next();
           _groupKey._groupId = entry.getIntValue();
-          _groupKey._stringKey = getGroupKey(entry.getLongKey());
+          _groupKey._key = getGroupKey(entry.getLongKey());
           return _groupKey;
         }
 
@@ -632,22 +671,19 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
   }
 
   /**
-   * Helper method to get group key from raw key.
+   * Helper method to get typed group key from raw key.
    *
    * @param rawKey Long raw key
-   * @return String group key
+   * @return Typed group key
    */
-  private String getGroupKey(long rawKey) {
-    int cardinality = _cardinalities[0];
-    StringBuilder groupKeyBuilder = new StringBuilder(_dictionaries[0].get((int) (rawKey % cardinality)).toString());
-    rawKey /= cardinality;
-    for (int i = 1; i < _numGroupByColumns; i++) {
-      groupKeyBuilder.append(AggregationGroupByTrimmingService.GROUP_KEY_DELIMITER);
-      cardinality = _cardinalities[i];
-      groupKeyBuilder.append(_dictionaries[i].get((int) (rawKey % cardinality)));
+  private Object getGroupKey(long rawKey) {
+    _compositeGroupKeyBuilder.reset();
+    for (int i = 0; i < _numGroupByColumns; i++) {
+      int cardinality = _cardinalities[i];
+      addValueToGroupKey(i, (int) (rawKey % cardinality));
       rawKey /= cardinality;
     }
-    return groupKeyBuilder.toString();
+    return _compositeGroupKeyBuilder.build();
   }
 
   private class ArrayMapBasedHolder implements RawKeyHolder {
@@ -711,7 +747,7 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
         public GroupKey next() {
           Object2IntMap.Entry<IntArray> entry = _iterator.next();
           _groupKey._groupId = entry.getIntValue();
-          _groupKey._stringKey = getGroupKey(entry.getKey());
+          _groupKey._key = getGroupKey(entry.getKey());
           return _groupKey;
         }
 
@@ -796,18 +832,17 @@ public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
   }
 
   /**
-   * Helper method to get group key from raw key.
+   * Helper method to get typed group key from raw key.
    *
    * @param rawKey IntArray raw key
-   * @return String group key
+   * @return Typed group key
    */
-  private String getGroupKey(IntArray rawKey) {
-    StringBuilder groupKeyBuilder = new StringBuilder(_dictionaries[0].get(rawKey._elements[0]).toString());
-    for (int i = 1; i < _numGroupByColumns; i++) {
-      groupKeyBuilder.append(AggregationGroupByTrimmingService.GROUP_KEY_DELIMITER);
-      groupKeyBuilder.append(_dictionaries[i].get(rawKey._elements[i]));
+  private Object getGroupKey(IntArray rawKey) {
+    _compositeGroupKeyBuilder.reset();
+    for (int i = 0; i < _numGroupByColumns; i++) {
+      addValueToGroupKey(i, rawKey._elements[i]);
     }
-    return groupKeyBuilder.toString();
+    return _compositeGroupKeyBuilder.build();
   }
 
   /**
@@ -17,6 +17,7 @@ package com.linkedin.pinot.core.query.aggregation.groupby;
 
 import com.google.common.base.Preconditions;
 import com.linkedin.pinot.common.utils.Pairs.IntDoublePair;
+import com.linkedin.pinot.core.query.scheduler.resources.QueryMemoryTracker;
 import com.linkedin.pinot.core.util.IntDoubleIndexedPriorityQueue;
 import it.unimi.dsi.fastutil.ints.Int2DoubleOpenHashMap;
 import java.util.Arrays;
@@ -26,6 +27,11 @@ import java.util.Arrays;
  * Result Holder implemented using DoubleArray.
  */
 public class DoubleGroupByResultHolder implements GroupByResultHolder {
+  // Estimated memory per group for query memory accounting: double value in array mode, int key and double value with
+  // open hash map load factor in map mode.
+  private static final int ARRAY_ENTRY_BYTES = 8;
+  private static final int MAP_ENTRY_BYTES = 24;
+
   private final int _maxCapacity;
   private final int _trimSize;
   private final double _defaultValue;
@@ -59,6 +65,7 @@ public class DoubleGroupByResultHolder implements GroupByResultHolder {
     _priorityQueue = null;
 
     _storageMode = StorageMode.ARRAY_STORAGE;
+    QueryMemoryTracker.allocateForCurrentQuery((long) initialCapacity * ARRAY_ENTRY_BYTES);
     _resultArray = new double[initialCapacity];
     if (defaultValue != 0.0) {
       Arrays.fill(_resultArray, defaultValue);
@@ -106,6 +113,7 @@ public class DoubleGroupByResultHolder implements GroupByResultHolder {
       _resultHolderCapacity = Math.min(_resultHolderCapacity, _maxCapacity);
 
       double[] current = _resultArray;
+      QueryMemoryTracker.allocateForCurrentQuery((long) (_resultHolderCapacity - copyLength) * ARRAY_ENTRY_BYTES);
       _resultArray = new double[_resultHolderCapacity];
       System.arraycopy(current, 0, _resultArray, 0, copyLength);
 
@@ -195,6 +203,7 @@ public class DoubleGroupByResultHolder implements GroupByResultHolder {
    */
   private void switchToMapMode(int initialPriorityQueueSize) {
     _storageMode = StorageMode.MAP_STORAGE;
+    QueryMemoryTracker.allocateForCurrentQuery((long) _resultHolderCapacity * MAP_ENTRY_BYTES);
     _resultMap = new Int2DoubleOpenHashMap(_resultHolderCapacity);
     _priorityQueue = new IntDoubleIndexedPriorityQueue(initialPriorityQueueSize, _minHeap);
 
@@ -76,10 +76,17 @@ public interface GroupKeyGenerator {
   void purgeKeys(int[] keysToPurge);
 
   /**
-   * This class encapsulates the integer group id and the string group key.
+   * This class encapsulates the integer group id and the typed group key.
+   * <p>The typed group key is value based, so it can be used to merge the results from different segments. It is the
+   * boxed value for single group-by column, or a {@link CompositeGroupKey} for multiple group-by columns. The string
+   * group key should only be built when necessary with {@link #getStringKey()}.
    */
   class GroupKey {
     public int _groupId;
-    public String _stringKey;
+    public Object _key;
+
+    public String getStringKey() {
+      return _key.toString();
+    }
   }
 }
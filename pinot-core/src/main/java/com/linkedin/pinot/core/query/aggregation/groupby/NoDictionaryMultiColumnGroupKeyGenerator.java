@@ -46,6 +46,8 @@ public class NoDictionaryMultiColumnGroupKeyGenerator implements GroupKeyGenerat
 
   private Dictionary[] _dictionaries;
   private ValueToIdMap[] _onTheFlyDictionaries;
+  private FieldSpec.DataType[] _dataTypes;
+  private CompositeGroupKey.Builder _compositeGroupKeyBuilder;
 
   /**
    * Constructor for the class.
@@ -59,9 +61,11 @@ public class NoDictionaryMultiColumnGroupKeyGenerator implements GroupKeyGenerat
     _hasDictionary = new boolean[groupByColumns.length];
     _dictionaries = new Dictionary[groupByColumns.length];
     _onTheFlyDictionaries = new ValueToIdMap[groupByColumns.length];
+    _dataTypes = new FieldSpec.DataType[groupByColumns.length];
 
     for (int i = 0; i < groupByColumns.length; i++) {
       BlockMetadata blockMetadata = transformBlock.getBlockMetadata(groupByColumns[i]);
+      _dataTypes[i] = CompositeGroupKey.Builder.getStoredType(blockMetadata.getDataType());
       if (blockMetadata.hasDictionary()) {
         _dictionaries[i] = blockMetadata.getDictionary();
         _hasDictionary[i] = true;
@@ -70,6 +74,7 @@ public class NoDictionaryMultiColumnGroupKeyGenerator implements GroupKeyGenerat
         _hasDictionary[i] = false;
       }
     }
+    _compositeGroupKeyBuilder = new CompositeGroupKey.Builder(_dataTypes);
   }
 
   @Override
@@ -207,7 +212,7 @@ public class NoDictionaryMultiColumnGroupKeyGenerator implements GroupKeyGenerat
     public GroupKey next() {
       Map.Entry<FixedIntArray, Integer> entry = _iterator.next();
       _groupKey._groupId = entry.getValue();
-      _groupKey._stringKey = buildStringKeyFromIds(entry.getKey());
+      _groupKey._key = buildGroupKeyFromIds(entry.getKey());
       return _groupKey;
     }
 
@@ -217,26 +222,54 @@ public class NoDictionaryMultiColumnGroupKeyGenerator implements GroupKeyGenerat
     }
   }
 
-  private String buildStringKeyFromIds(FixedIntArray keyList) {
-    StringBuilder builder = new StringBuilder();
+  private CompositeGroupKey buildGroupKeyFromIds(FixedIntArray keyList) {
+    _compositeGroupKeyBuilder.reset();
     int[] keys = keyList.elements();
     for (int i = 0; i < keyList.size(); i++) {
-      String key;
       int dictId = keys[i];
 
       if (_hasDictionary[i]) {
-        key = _dictionaries[i].get(dictId).toString();
+        Dictionary dictionary = _dictionaries[i];
+        switch (_dataTypes[i]) {
+          case INT:
+            _compositeGroupKeyBuilder.addInt(dictionary.getIntValue(dictId));
+            break;
+          case LONG:
+            _compositeGroupKeyBuilder.addLong(dictionary.getLongValue(dictId));
+            break;
+          case FLOAT:
+            _compositeGroupKeyBuilder.addFloat(dictionary.getFloatValue(dictId));
+            break;
+          case DOUBLE:
+            _compositeGroupKeyBuilder.addDouble(dictionary.getDoubleValue(dictId));
+            break;
+          default:
+            _compositeGroupKeyBuilder.addString(dictionary.get(dictId).toString());
+            break;
+        }
       } else {
-        key = _onTheFlyDictionaries[i].getString(dictId);
-      }
-
-      if (i > 0) {
-        builder.append(AggregationGroupByTrimmingService.GROUP_KEY_DELIMITER);
+        ValueToIdMap onTheFlyDictionary = _onTheFlyDictionaries[i];
+        switch (_dataTypes[i]) {
+          case INT:
+            _compositeGroupKeyBuilder.addInt(onTheFlyDictionary.getInt(dictId));
+            break;
+          case LONG:
+            _compositeGroupKeyBuilder.addLong(onTheFlyDictionary.getLong(dictId));
+            break;
+          case FLOAT:
+            _compositeGroupKeyBuilder.addFloat(onTheFlyDictionary.getFloat(dictId));
+            break;
+          case DOUBLE:
+            _compositeGroupKeyBuilder.addDouble(onTheFlyDictionary.getDouble(dictId));
+            break;
+          default:
+            _compositeGroupKeyBuilder.addString(onTheFlyDictionary.getString(dictId));
+            break;
+        }
       }
-      builder.append(key);
     }
 
-    return builder.toString();
+    return _compositeGroupKeyBuilder.build();
   }
 
   /**
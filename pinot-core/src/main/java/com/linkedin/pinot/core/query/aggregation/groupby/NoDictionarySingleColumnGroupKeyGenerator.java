@@ -251,7 +251,7 @@ public class NoDictionarySingleColumnGroupKeyGenerator implements GroupKeyGenera
     public GroupKey next() {
       Map.Entry<Object, Integer> entry = _iterator.next();
       _groupKey._groupId = entry.getValue();
-      _groupKey._stringKey = entry.getKey().toString();
+      _groupKey._key = entry.getKey();
       return _groupKey;
     }
 
@@ -17,6 +17,7 @@ package com.linkedin.pinot.core.query.aggregation.groupby;
 
 import com.google.common.base.Preconditions;
 import com.linkedin.pinot.common.utils.Pairs.IntObjectPair;
+import com.linkedin.pinot.core.query.scheduler.resources.QueryMemoryTracker;
 import com.linkedin.pinot.core.util.IntObjectIndexedPriorityQueue;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 
@@ -25,6 +26,11 @@ import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
  * Result Holder implemented using ObjectArray.
  */
 public class ObjectGroupByResultHolder implements GroupByResultHolder {
+  // Estimated memory per group for query memory accounting: reference and minimal result object in array mode, plus int
+  // key with open hash map load factor in map mode. The size of the result objects themselves is not tracked.
+  private static final int ARRAY_ENTRY_BYTES = 32;
+  private static final int MAP_ENTRY_BYTES = 48;
+
   private final int _maxCapacity;
   private final int _trimSize;
   private final boolean _minHeap;
@@ -44,6 +50,7 @@ public class ObjectGroupByResultHolder implements GroupByResultHolder {
    * @param minOrder Min ordering for trim (in case of min aggregation functions)
    */
   public ObjectGroupByResultHolder(int initialCapacity, int maxCapacity, int trimSize, boolean minOrder) {
+    QueryMemoryTracker.allocateForCurrentQuery((long) initialCapacity * ARRAY_ENTRY_BYTES);
     _resultArray = new Object[initialCapacity];
     _resultHolderCapacity = initialCapacity;
     _storageMode = StorageMode.ARRAY_STORAGE;
@@ -93,6 +100,7 @@ public class ObjectGroupByResultHolder implements GroupByResultHolder {
       _resultHolderCapacity = Math.min(_resultHolderCapacity, _maxCapacity);
 
       Object[] current = _resultArray;
+      QueryMemoryTracker.allocateForCurrentQuery((long) (_resultHolderCapacity - copyLength) * ARRAY_ENTRY_BYTES);
       _resultArray = new Object[_resultHolderCapacity];
       System.arraycopy(current, 0, _resultArray, 0, copyLength);
     }
@@ -176,6 +184,7 @@ public class ObjectGroupByResultHolder implements GroupByResultHolder {
   @SuppressWarnings("unchecked")
   private void switchToMapMode(int initialPriorityQueueSize) {
     _storageMode = StorageMode.MAP_STORAGE;
+    QueryMemoryTracker.allocateForCurrentQuery((long) _resultArray.length * MAP_ENTRY_BYTES);
     _resultMap = new Int2ObjectOpenHashMap(_resultArray.length);
 
     _priorityQueue = new IntObjectIndexedPriorityQueue(initialPriorityQueueSize, _minHeap);
@@ -0,0 +1,322 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.linkedin.pinot.common.request.AggregationInfo;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.FilterOperator;
+import com.linkedin.pinot.common.request.GroupBy;
+import com.linkedin.pinot.common.utils.request.FilterQueryTree;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
+import com.linkedin.pinot.core.common.datatable.ObjectCustomSerDe;
+import com.linkedin.pinot.core.common.datatable.ObjectType;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.ExecutionStatistics;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionContext;
+import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+import com.linkedin.pinot.core.realtime.MutableIndexSegment;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>SegmentResultCache</code> class caches the per-segment intermediate results of aggregation and aggregation
+ * group-by queries on immutable segments.
+ * <p>Entries are keyed on table name, segment name, segment CRC and the canonicalized filter, aggregations and group-by
+ * of the query, so that replaced segments never serve stale results. Entries are evicted based on their estimated size,
+ * and dropped when the segment gets replaced or unloaded.
+ * <p>Intermediate results which can be modified when merging results from multiple segments are kept serialized, and
+ * de-serialized for each cache hit.
+ */
+@ThreadSafe
+public class SegmentResultCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentResultCache.class);
+  private static final char KEY_SEPARATOR = '\0';
+
+  // Estimated overhead in bytes for each cached value and group key.
+  private static final int VALUE_OVERHEAD_IN_BYTES = 16;
+  private static final int GROUP_KEY_OVERHEAD_IN_BYTES = 64;
+
+  private final Cache<String, CachedResult> _cache;
+
+  public SegmentResultCache(long maxSizeInBytes) {
+    _cache = CacheBuilder.newBuilder().maximumWeight(maxSizeInBytes).weigher(new Weigher<String, CachedResult>() {
+      @Override
+      public int weigh(@Nonnull String key, @Nonnull CachedResult value) {
+        return key.length() * 2 + value._sizeInBytes;
+      }
+    }).build();
+  }
+
+  /**
+   * Return whether the results of the given query on the given segment can be cached.
+   * <p>Only aggregation queries on immutable segments are supported.
+   */
+  public static boolean isCacheable(@Nonnull IndexSegment indexSegment, @Nonnull BrokerRequest brokerRequest) {
+    return brokerRequest.isSetAggregationsInfo() && !(indexSegment instanceof MutableIndexSegment)
+        && indexSegment.getSegmentMetadata().getCrc() != null;
+  }
+
+  /**
+   * Get the canonicalized string for the parts of the query which determine the per-segment intermediate results.
+   * <p>Predicates inside AND/OR and values inside IN/NOT_IN are sorted, so that equivalent queries share the same key.
+   * Group-by TOP is not part of the key because per-segment results are not trimmed.
+   */
+  @Nonnull
+  public static String getQueryKey(@Nonnull BrokerRequest brokerRequest) {
+    StringBuilder stringBuilder = new StringBuilder();
+    FilterQueryTree filterQueryTree = RequestUtils.generateFilterQueryTree(brokerRequest);
+    if (filterQueryTree != null) {
+      stringBuilder.append(canonicalize(filterQueryTree));
+    }
+    stringBuilder.append(KEY_SEPARATOR);
+    for (AggregationInfo aggregationInfo : brokerRequest.getAggregationsInfo()) {
+      stringBuilder.append(aggregationInfo.getAggregationType().toLowerCase())
+          .append(new TreeMap<>(aggregationInfo.getAggregationParams()))
+          .append(';');
+    }
+    stringBuilder.append(KEY_SEPARATOR);
+    GroupBy groupBy = brokerRequest.getGroupBy();
+    if (groupBy != null) {
+      stringBuilder.append(groupBy.getColumns()).append(groupBy.getExpressions());
+    }
+    return stringBuilder.toString();
+  }
+
+  private static String canonicalize(@Nonnull FilterQueryTree filterQueryTree) {
+    FilterOperator operator = filterQueryTree.getOperator();
+    List<FilterQueryTree> children = filterQueryTree.getChildren();
+    if (children != null && !children.isEmpty()) {
+      List<String> canonicalizedChildren = new ArrayList<>(children.size());
+      for (FilterQueryTree child : children) {
+        canonicalizedChildren.add(canonicalize(child));
+      }
+      Collections.sort(canonicalizedChildren);
+      return operator + canonicalizedChildren.toString();
+    }
+    List<String> values = filterQueryTree.getValue();
+    if (operator == FilterOperator.IN || operator == FilterOperator.NOT_IN) {
+      values = new ArrayList<>(values);
+      Collections.sort(values);
+    }
+    return filterQueryTree.getColumn() + ' ' + operator + ' ' + values;
+  }
+
+  /**
+   * Get the cache key for the given segment and query key (from {@link #getQueryKey(BrokerRequest)}).
+   */
+  @Nonnull
+  public static String getCacheKey(@Nonnull String tableName, @Nonnull IndexSegment indexSegment,
+      @Nonnull String queryKey) {
+    return getSegmentKeyPrefix(tableName, indexSegment.getSegmentName()) + indexSegment.getSegmentMetadata().getCrc()
+        + KEY_SEPARATOR + queryKey;
+  }
+
+  private static String getSegmentKeyPrefix(@Nonnull String tableName, @Nonnull String segmentName) {
+    return tableName + KEY_SEPARATOR + segmentName + KEY_SEPARATOR;
+  }
+
+  @Nullable
+  public CachedResult get(@Nonnull String cacheKey) {
+    return _cache.getIfPresent(cacheKey);
+  }
+
+  /**
+   * Put the intermediate results for a single segment into the cache.
+   * <p>Results with processing exceptions are not cached.
+   */
+  public void put(@Nonnull String cacheKey, @Nonnull IntermediateResultsBlock resultsBlock,
+      @Nonnull ExecutionStatistics executionStatistics) {
+    List<?> processingExceptions = resultsBlock.getProcessingExceptions();
+    if (processingExceptions != null && !processingExceptions.isEmpty()) {
+      return;
+    }
+    try {
+      CachedResult cachedResult;
+      List<Object> aggregationResult = resultsBlock.getAggregationResult();
+      if (aggregationResult != null) {
+        cachedResult = new CachedResult(aggregationResult, executionStatistics);
+      } else {
+        AggregationFunctionContext[] aggregationFunctionContexts = resultsBlock.getAggregationFunctionContexts();
+        AggregationGroupByResult aggregationGroupByResult = resultsBlock.getAggregationGroupByResult();
+        if (aggregationFunctionContexts == null || aggregationGroupByResult == null) {
+          return;
+        }
+        cachedResult =
+            new CachedResult(aggregationGroupByResult, aggregationFunctionContexts.length, executionStatistics);
+      }
+      _cache.put(cacheKey, cachedResult);
+    } catch (Exception e) {
+      // Do not fail the query if the results cannot be cached.
+      LOGGER.warn("Caught exception while caching segment results for key: {}", cacheKey, e);
+    }
+  }
+
+  /**
+   * Drop all the cached results for the given segment.
+   */
+  public void invalidate(@Nonnull String tableName, @Nonnull String segmentName) {
+    String segmentKeyPrefix = getSegmentKeyPrefix(tableName, segmentName);
+    Iterator<String> iterator = _cache.asMap().keySet().iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next().startsWith(segmentKeyPrefix)) {
+        iterator.remove();
+      }
+    }
+  }
+
+  public long size() {
+    return _cache.size();
+  }
+
+  /**
+   * Helper method to take a snapshot of an intermediate result. Immutable values are shared, other values are
+   * serialized.
+   */
+  private static Object snapshot(@Nonnull Object value)
+      throws IOException {
+    if (value instanceof Number || value instanceof String) {
+      return value;
+    }
+    return new SerializedValue(ObjectCustomSerDe.getObjectType(value), ObjectCustomSerDe.serialize(value));
+  }
+
+  private static Object restore(@Nonnull Object value)
+      throws IOException {
+    if (value instanceof SerializedValue) {
+      SerializedValue serializedValue = (SerializedValue) value;
+      return ObjectCustomSerDe.deserialize(serializedValue._bytes, serializedValue._objectType);
+    }
+    return value;
+  }
+
+  private static int getSizeInBytes(@Nonnull Object value) {
+    if (value instanceof SerializedValue) {
+      return VALUE_OVERHEAD_IN_BYTES + ((SerializedValue) value)._bytes.length;
+    }
+    return VALUE_OVERHEAD_IN_BYTES;
+  }
+
+  private static class SerializedValue {
+    private final ObjectType _objectType;
+    private final byte[] _bytes;
+
+    private SerializedValue(@Nonnull ObjectType objectType, @Nonnull byte[] bytes) {
+      _objectType = objectType;
+      _bytes = bytes;
+    }
+  }
+
+  /**
+   * Cached intermediate results and execution statistics for a single segment.
+   */
+  public static class CachedResult {
+    private final Object[] _aggregationResult;
+    private final Object[] _groupKeys;
+    private final Object[][] _groupByResults;
+    private final ExecutionStatistics _executionStatistics;
+    private final int _sizeInBytes;
+
+    private CachedResult(@Nonnull List<Object> aggregationResult, @Nonnull ExecutionStatistics executionStatistics)
+        throws IOException {
+      int numAggregationFunctions = aggregationResult.size();
+      _aggregationResult = new Object[numAggregationFunctions];
+      int sizeInBytes = 0;
+      for (int i = 0; i < numAggregationFunctions; i++) {
+        _aggregationResult[i] = snapshot(aggregationResult.get(i));
+        sizeInBytes += getSizeInBytes(_aggregationResult[i]);
+      }
+      _groupKeys = null;
+      _groupByResults = null;
+      _executionStatistics = executionStatistics;
+      _sizeInBytes = sizeInBytes;
+    }
+
+    private CachedResult(@Nonnull AggregationGroupByResult aggregationGroupByResult, int numAggregationFunctions,
+        @Nonnull ExecutionStatistics executionStatistics)
+        throws IOException {
+      List<Object> groupKeys = new ArrayList<>();
+      List<Object[]> groupByResults = new ArrayList<>();
+      int sizeInBytes = 0;
+      Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = aggregationGroupByResult.getGroupKeyIterator();
+      while (groupKeyIterator.hasNext()) {
+        // Group key instance might be reused by the iterator, only keep the typed key.
+        GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
+        groupKeys.add(groupKey._key);
+        Object[] results = new Object[numAggregationFunctions];
+        sizeInBytes += GROUP_KEY_OVERHEAD_IN_BYTES;
+        for (int i = 0; i < numAggregationFunctions; i++) {
+          results[i] = snapshot(aggregationGroupByResult.getResultForKey(groupKey, i));
+          sizeInBytes += getSizeInBytes(results[i]);
+        }
+        groupByResults.add(results);
+      }
+      _aggregationResult = null;
+      _groupKeys = groupKeys.toArray();
+      _groupByResults = groupByResults.toArray(new Object[groupByResults.size()][]);
+      _executionStatistics = executionStatistics;
+      _sizeInBytes = sizeInBytes;
+    }
+
+    /**
+     * Get a new intermediate results block with a private copy of the cached results.
+     */
+    @Nonnull
+    public IntermediateResultsBlock getResultsBlock(@Nonnull AggregationFunctionContext[] aggregationFunctionContexts)
+        throws IOException {
+      if (_aggregationResult != null) {
+        List<Object> aggregationResult = new ArrayList<>(_aggregationResult.length);
+        for (Object value : _aggregationResult) {
+          aggregationResult.add(restore(value));
+        }
+        return new IntermediateResultsBlock(aggregationFunctionContexts, aggregationResult, false);
+      } else {
+        int numGroups = _groupKeys.length;
+        Object[][] groupByResults = new Object[numGroups][];
+        for (int i = 0; i < numGroups; i++) {
+          Object[] cachedResults = _groupByResults[i];
+          int numAggregationFunctions = cachedResults.length;
+          Object[] results = new Object[numAggregationFunctions];
+          for (int j = 0; j < numAggregationFunctions; j++) {
+            results[j] = restore(cachedResults[j]);
+          }
+          groupByResults[i] = results;
+        }
+        return new IntermediateResultsBlock(aggregationFunctionContexts,
+            new AggregationGroupByResult(_groupKeys, groupByResults));
+      }
+    }
+
+    @Nonnull
+    public ExecutionStatistics getExecutionStatistics() {
+      return _executionStatistics;
+    }
+  }
+}
@@ -82,7 +82,7 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
     LOGGER.info("Trying to build SegmentPrunerService");
     _segmentPrunerService = new SegmentPrunerServiceImpl(queryExecutorConfig.getPrunerConfig());
     LOGGER.info("Trying to build QueryPlanMaker");
-    _planMaker = new InstancePlanMakerImplV2(queryExecutorConfig);
+    _planMaker = new InstancePlanMakerImplV2(queryExecutorConfig, _instanceDataManager.getSegmentResultCache());
     LOGGER.info("Trying to build QueryExecutorTimer");
   }
 
@@ -206,7 +206,7 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
   }
 
   /**
-   * Helper method to prune segments.
+   * Helper method to prune segments. Also sets the number of docs remaining after pruning into the request.
    *
    * @param tableDataManager Table data manager
    * @param segments List of segments to prune
@@ -216,18 +216,23 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
   private long pruneSegments(TableDataManager tableDataManager, List<SegmentDataManager> segments,
       ServerQueryRequest serverQueryRequest) {
     long totalRawDocs = 0;
+    long numDocsAfterPruning = 0;
     Iterator<SegmentDataManager> it = segments.iterator();
 
     while (it.hasNext()) {
       SegmentDataManager segmentDataManager = it.next();
       final IndexSegment indexSegment = segmentDataManager.getSegment();
       // We need to compute the total raw docs for the table before any pruning.
-      totalRawDocs += indexSegment.getSegmentMetadata().getTotalRawDocs();
+      int numRawDocs = indexSegment.getSegmentMetadata().getTotalRawDocs();
+      totalRawDocs += numRawDocs;
       if (_segmentPrunerService.prune(indexSegment, serverQueryRequest)) {
         it.remove();
         tableDataManager.releaseSegment(segmentDataManager);
+      } else {
+        numDocsAfterPruning += numRawDocs;
       }
     }
+    serverQueryRequest.setNumDocsAfterPruning(numDocsAfterPruning);
     return totalRawDocs;
   }
 
@@ -15,12 +15,10 @@
  */
 package com.linkedin.pinot.core.query.reduce;
 
-import com.linkedin.pinot.common.config.TableNameBuilder;
 import com.linkedin.pinot.common.data.FieldSpec;
-import com.linkedin.pinot.common.exception.QueryException;
-import com.linkedin.pinot.common.metrics.BrokerMeter;
 import com.linkedin.pinot.common.metrics.BrokerMetrics;
 import com.linkedin.pinot.common.query.ReduceService;
+import com.linkedin.pinot.common.query.StreamingReducer;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.request.GroupBy;
 import com.linkedin.pinot.common.request.HavingFilterQuery;
@@ -30,7 +28,6 @@ import com.linkedin.pinot.common.response.ServerInstance;
 import com.linkedin.pinot.common.response.broker.AggregationResult;
 import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
 import com.linkedin.pinot.common.response.broker.GroupByResult;
-import com.linkedin.pinot.common.response.broker.QueryProcessingException;
 import com.linkedin.pinot.common.response.broker.SelectionResults;
 import com.linkedin.pinot.common.utils.DataSchema;
 import com.linkedin.pinot.common.utils.DataTable;
@@ -39,7 +36,6 @@ import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionUti
 import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByTrimmingService;
 import com.linkedin.pinot.core.query.selection.SelectionOperatorService;
 import com.linkedin.pinot.core.query.selection.SelectionOperatorUtils;
-import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -50,8 +46,6 @@ import java.util.TreeMap;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 
 /**
@@ -60,153 +54,22 @@ import org.slf4j.LoggerFactory;
  */
 @ThreadSafe
 public class BrokerReduceService implements ReduceService<BrokerResponseNative> {
-  private static final Logger LOGGER = LoggerFactory.getLogger(BrokerReduceService.class);
-
   @Nonnull
   @Override
   public BrokerResponseNative reduceOnDataTable(@Nonnull BrokerRequest brokerRequest,
       @Nonnull Map<ServerInstance, DataTable> dataTableMap, @Nullable BrokerMetrics brokerMetrics) {
-    if (dataTableMap.size() == 0) {
-      // Empty response.
-      return BrokerResponseNative.empty();
+    StreamingBrokerReducer streamingReducer = new StreamingBrokerReducer(brokerRequest, brokerMetrics);
+    for (Map.Entry<ServerInstance, DataTable> entry : dataTableMap.entrySet()) {
+      streamingReducer.reduce(entry.getKey(), entry.getValue());
     }
+    return streamingReducer.getBrokerResponse();
+  }
 
-    BrokerResponseNative brokerResponseNative = new BrokerResponseNative();
-    List<QueryProcessingException> processingExceptions = brokerResponseNative.getProcessingExceptions();
-    long numDocsScanned = 0L;
-    long numEntriesScannedInFilter = 0L;
-    long numEntriesScannedPostFilter = 0L;
-    long numTotalRawDocs = 0L;
-
-    // Cache a data schema from data tables (try to cache one with data rows associated with it).
-    DataSchema cachedDataSchema = null;
-
-    // Process server response metadata.
-    Iterator<Map.Entry<ServerInstance, DataTable>> iterator = dataTableMap.entrySet().iterator();
-    while (iterator.hasNext()) {
-      Map.Entry<ServerInstance, DataTable> entry = iterator.next();
-      ServerInstance serverInstance = entry.getKey();
-      DataTable dataTable = entry.getValue();
-      Map<String, String> metadata = dataTable.getMetadata();
-
-      // Reduce on trace info.
-      if (brokerRequest.isEnableTrace()) {
-        brokerResponseNative.getTraceInfo()
-            .put(serverInstance.getHostname(), metadata.get(DataTable.TRACE_INFO_METADATA_KEY));
-      }
-
-      // Reduce on exceptions.
-      for (String key : metadata.keySet()) {
-        if (key.startsWith(DataTable.EXCEPTION_METADATA_KEY)) {
-          processingExceptions.add(new QueryProcessingException(Integer.parseInt(key.substring(9)), metadata.get(key)));
-        }
-      }
-
-      // Reduce on execution statistics.
-      String numDocsScannedString = metadata.get(DataTable.NUM_DOCS_SCANNED_METADATA_KEY);
-      if (numDocsScannedString != null) {
-        numDocsScanned += Long.parseLong(numDocsScannedString);
-      }
-      String numEntriesScannedInFilterString = metadata.get(DataTable.NUM_ENTRIES_SCANNED_IN_FILTER_METADATA_KEY);
-      if (numEntriesScannedInFilterString != null) {
-        numEntriesScannedInFilter += Long.parseLong(numEntriesScannedInFilterString);
-      }
-      String numEntriesScannedPostFilterString = metadata.get(DataTable.NUM_ENTRIES_SCANNED_POST_FILTER_METADATA_KEY);
-      if (numEntriesScannedPostFilterString != null) {
-        numEntriesScannedPostFilter += Long.parseLong(numEntriesScannedPostFilterString);
-      }
-      String numTotalRawDocsString = metadata.get(DataTable.TOTAL_DOCS_METADATA_KEY);
-      if (numTotalRawDocsString != null) {
-        numTotalRawDocs += Long.parseLong(numTotalRawDocsString);
-      }
-
-      // After processing the metadata, remove data tables without data rows inside.
-      DataSchema dataSchema = dataTable.getDataSchema();
-      if (dataSchema == null) {
-        iterator.remove();
-      } else {
-        // Try to cache a data table with data rows inside, or cache one with data schema inside.
-        if (dataTable.getNumberOfRows() == 0) {
-          if (cachedDataSchema == null) {
-            cachedDataSchema = dataSchema;
-          }
-          iterator.remove();
-        } else {
-          cachedDataSchema = dataSchema;
-        }
-      }
-    }
-
-    // Set execution statistics.
-    brokerResponseNative.setNumDocsScanned(numDocsScanned);
-    brokerResponseNative.setNumEntriesScannedInFilter(numEntriesScannedInFilter);
-    brokerResponseNative.setNumEntriesScannedPostFilter(numEntriesScannedPostFilter);
-    brokerResponseNative.setTotalDocs(numTotalRawDocs);
-
-    // Update broker metrics.
-    String tableName = brokerRequest.getQuerySource().getTableName();
-    String rawTableName = TableNameBuilder.extractRawTableName(tableName);
-    if (brokerMetrics != null) {
-      brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.DOCUMENTS_SCANNED, numDocsScanned);
-      brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.ENTRIES_SCANNED_IN_FILTER,
-          numEntriesScannedInFilter);
-      brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.ENTRIES_SCANNED_POST_FILTER,
-          numEntriesScannedPostFilter);
-    }
-
-    if (dataTableMap.isEmpty()) {
-      // For empty data table map, construct empty result using the cached data schema.
-
-      // This will only happen to selection query.
-      if (cachedDataSchema != null) {
-        List<String> selectionColumns =
-            SelectionOperatorUtils.getSelectionColumns(brokerRequest.getSelections().getSelectionColumns(),
-                cachedDataSchema);
-        brokerResponseNative.setSelectionResults(
-            new SelectionResults(selectionColumns, new ArrayList<Serializable[]>(0)));
-      }
-    } else {
-      // Reduce server responses data and set query results into the broker response.
-      assert cachedDataSchema != null;
-
-      if (brokerRequest.isSetSelections()) {
-        // Selection query.
-
-        // For data table map with more than one data tables, remove conflicting data tables.
-        DataSchema masterDataSchema = cachedDataSchema.clone();
-        if (dataTableMap.size() > 1) {
-          List<String> droppedServers = removeConflictingResponses(masterDataSchema, dataTableMap);
-          if (!droppedServers.isEmpty()) {
-            String errorMessage =
-                QueryException.MERGE_RESPONSE_ERROR.getMessage() + ": responses for table: " + tableName
-                    + " from servers: " + droppedServers + " got dropped due to data schema inconsistency.";
-            LOGGER.info(errorMessage);
-            if (brokerMetrics != null) {
-              brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.RESPONSE_MERGE_EXCEPTIONS, 1L);
-            }
-            brokerResponseNative.addToExceptions(
-                new QueryProcessingException(QueryException.MERGE_RESPONSE_ERROR_CODE, errorMessage));
-          }
-        }
-        setSelectionResults(brokerResponseNative, brokerRequest.getSelections(), dataTableMap, masterDataSchema);
-      } else {
-        // Aggregation query.
-        AggregationFunction[] aggregationFunctions =
-            AggregationFunctionUtils.getAggregationFunctions(brokerRequest.getAggregationsInfo());
-        if (!brokerRequest.isSetGroupBy()) {
-          // Aggregation only query.
-          setAggregationResults(brokerResponseNative, aggregationFunctions, dataTableMap, cachedDataSchema);
-        } else {
-          // Aggregation group-by query.
-          boolean[] aggregationFunctionSelectStatus =
-              AggregationFunctionUtils.getAggregationFunctionsSelectStatus(brokerRequest.getAggregationsInfo());
-          setGroupByHavingResults(brokerResponseNative, aggregationFunctions, aggregationFunctionSelectStatus,
-              brokerRequest.getGroupBy(), dataTableMap, brokerRequest.getHavingFilterQuery(),
-              brokerRequest.getHavingFilterSubQueryMap());
-        }
-      }
-    }
-    return brokerResponseNative;
+  @Nonnull
+  @Override
+  public StreamingReducer<BrokerResponseNative> getStreamingReducer(@Nonnull BrokerRequest brokerRequest,
+      @Nullable BrokerMetrics brokerMetrics) {
+    return new StreamingBrokerReducer(brokerRequest, brokerMetrics);
   }
 
   /**
@@ -218,7 +81,7 @@ public class BrokerReduceService implements ReduceService<BrokerResponseNative>
    * @return list of server names where the data table got removed.
    */
   @Nonnull
-  private List<String> removeConflictingResponses(@Nonnull DataSchema dataSchema,
+  static List<String> removeConflictingResponses(@Nonnull DataSchema dataSchema,
       @Nonnull Map<ServerInstance, DataTable> dataTableMap) {
     List<String> droppedServers = new ArrayList<>();
     Iterator<Map.Entry<ServerInstance, DataTable>> iterator = dataTableMap.entrySet().iterator();
@@ -244,7 +107,7 @@ public class BrokerReduceService implements ReduceService<BrokerResponseNative>
    * @param dataTableMap map from server to data table.
    * @param dataSchema data schema.
    */
-  private void setSelectionResults(@Nonnull BrokerResponseNative brokerResponseNative, @Nonnull Selection selection,
+  static void setSelectionResults(@Nonnull BrokerResponseNative brokerResponseNative, @Nonnull Selection selection,
       @Nonnull Map<ServerInstance, DataTable> dataTableMap, @Nonnull DataSchema dataSchema) {
     // Reduce the selection results.
     SelectionResults selectionResults;
@@ -265,47 +128,56 @@ public class BrokerReduceService implements ReduceService<BrokerResponseNative>
   }
 
   /**
-   * Reduce aggregation results from multiple servers and set them into BrokerResponseNative passed in.
+   * Merge aggregation results from one server into the intermediate results passed in.
+   *
+   * @param aggregationFunctions array of aggregation functions.
+   * @param intermediateResults merged intermediate results (null for not yet merged ones).
+   * @param dataTable data table to be merged.
+   */
+  static void mergeAggregationResults(@Nonnull AggregationFunction[] aggregationFunctions,
+      @Nonnull Object[] intermediateResults, @Nonnull DataTable dataTable) {
+    int numAggregationFunctions = aggregationFunctions.length;
+    DataSchema dataSchema = dataTable.getDataSchema();
+    assert dataSchema != null;
+    for (int i = 0; i < numAggregationFunctions; i++) {
+      Object intermediateResultToMerge;
+      FieldSpec.DataType columnType = dataSchema.getColumnType(i);
+      switch (columnType) {
+        case LONG:
+          intermediateResultToMerge = dataTable.getLong(0, i);
+          break;
+        case DOUBLE:
+          intermediateResultToMerge = dataTable.getDouble(0, i);
+          break;
+        case OBJECT:
+          intermediateResultToMerge = dataTable.getObject(0, i);
+          break;
+        default:
+          throw new IllegalStateException("Illegal column type in aggregation results: " + columnType);
+      }
+      Object mergedIntermediateResult = intermediateResults[i];
+      if (mergedIntermediateResult == null) {
+        intermediateResults[i] = intermediateResultToMerge;
+      } else {
+        intermediateResults[i] = aggregationFunctions[i].merge(mergedIntermediateResult, intermediateResultToMerge);
+      }
+    }
+  }
+
+  /**
+   * Set merged aggregation results into BrokerResponseNative passed in.
    *
    * @param brokerResponseNative broker response.
    * @param aggregationFunctions array of aggregation functions.
-   * @param dataTableMap map from server to data table.
+   * @param intermediateResults merged intermediate results.
    * @param dataSchema data schema.
    */
   @SuppressWarnings("unchecked")
-  private void setAggregationResults(@Nonnull BrokerResponseNative brokerResponseNative,
-      @Nonnull AggregationFunction[] aggregationFunctions, @Nonnull Map<ServerInstance, DataTable> dataTableMap,
+  static void setAggregationResults(@Nonnull BrokerResponseNative brokerResponseNative,
+      @Nonnull AggregationFunction[] aggregationFunctions, @Nonnull Object[] intermediateResults,
       @Nonnull DataSchema dataSchema) {
     int numAggregationFunctions = aggregationFunctions.length;
 
-    // Merge results from all data tables.
-    Object[] intermediateResults = new Object[numAggregationFunctions];
-    for (DataTable dataTable : dataTableMap.values()) {
-      for (int i = 0; i < numAggregationFunctions; i++) {
-        Object intermediateResultToMerge;
-        FieldSpec.DataType columnType = dataSchema.getColumnType(i);
-        switch (columnType) {
-          case LONG:
-            intermediateResultToMerge = dataTable.getLong(0, i);
-            break;
-          case DOUBLE:
-            intermediateResultToMerge = dataTable.getDouble(0, i);
-            break;
-          case OBJECT:
-            intermediateResultToMerge = dataTable.getObject(0, i);
-            break;
-          default:
-            throw new IllegalStateException("Illegal column type in aggregation results: " + columnType);
-        }
-        Object mergedIntermediateResult = intermediateResults[i];
-        if (mergedIntermediateResult == null) {
-          intermediateResults[i] = intermediateResultToMerge;
-        } else {
-          intermediateResults[i] = aggregationFunctions[i].merge(mergedIntermediateResult, intermediateResultToMerge);
-        }
-      }
-    }
-
     // Extract final results and set them into the broker response.
     List<AggregationResult> reducedAggregationResults = new ArrayList<>(numAggregationFunctions);
     for (int i = 0; i < numAggregationFunctions; i++) {
@@ -317,49 +189,56 @@ public class BrokerReduceService implements ReduceService<BrokerResponseNative>
   }
 
   /**
-   * Reduce group-by results from multiple servers and set them into BrokerResponseNative passed in.
+   * Merge group-by results from one server into the intermediate result maps passed in.
+   *
+   * @param aggregationFunctions array of aggregation functions.
+   * @param columnNames aggregation column names (null for not yet merged ones).
+   * @param intermediateResultMaps merged intermediate result maps (null for not yet merged ones).
+   * @param dataTable data table to be merged.
+   */
+  static void mergeGroupByResults(@Nonnull AggregationFunction[] aggregationFunctions, @Nonnull String[] columnNames,
+      @Nonnull Map<String, Object>[] intermediateResultMaps, @Nonnull DataTable dataTable) {
+    int numAggregationFunctions = aggregationFunctions.length;
+    for (int i = 0; i < numAggregationFunctions; i++) {
+      if (columnNames[i] == null) {
+        columnNames[i] = dataTable.getString(i, 0);
+        intermediateResultMaps[i] = dataTable.getObject(i, 1);
+      } else {
+        Map<String, Object> mergedIntermediateResultMap = intermediateResultMaps[i];
+        Map<String, Object> intermediateResultMapToMerge = dataTable.getObject(i, 1);
+        for (Map.Entry<String, Object> entry : intermediateResultMapToMerge.entrySet()) {
+          String groupKey = entry.getKey();
+          Object intermediateResultToMerge = entry.getValue();
+          if (mergedIntermediateResultMap.containsKey(groupKey)) {
+            Object mergedIntermediateResult = mergedIntermediateResultMap.get(groupKey);
+            mergedIntermediateResultMap.put(groupKey,
+                aggregationFunctions[i].merge(mergedIntermediateResult, intermediateResultToMerge));
+          } else {
+            mergedIntermediateResultMap.put(groupKey, intermediateResultToMerge);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Set merged group-by results into BrokerResponseNative passed in.
    *
    * @param brokerResponseNative broker response.
    * @param aggregationFunctions array of aggregation functions.
    * @param groupBy group-by information.
-   * @param dataTableMap map from server to data table.
+   * @param columnNames aggregation column names.
+   * @param intermediateResultMaps merged intermediate result maps.
    * @param havingFilterQuery having filter query
    * @param havingFilterQueryMap having filter query map
    */
   @SuppressWarnings("unchecked")
-
-  private void setGroupByHavingResults(@Nonnull BrokerResponseNative brokerResponseNative,
+  static void setGroupByHavingResults(@Nonnull BrokerResponseNative brokerResponseNative,
       @Nonnull AggregationFunction[] aggregationFunctions, boolean[] aggregationFunctionsSelectStatus,
-      @Nonnull GroupBy groupBy, @Nonnull Map<ServerInstance, DataTable> dataTableMap,
+      @Nonnull GroupBy groupBy, @Nonnull String[] columnNames, @Nonnull Map<String, Object>[] intermediateResultMaps,
       HavingFilterQuery havingFilterQuery, HavingFilterQueryMap havingFilterQueryMap) {
     int numAggregationFunctions = aggregationFunctions.length;
 
-    // Merge results from all data tables.
-    String[] columnNames = new String[numAggregationFunctions];
-    Map<String, Object>[] intermediateResultMaps = new Map[numAggregationFunctions];
-    for (DataTable dataTable : dataTableMap.values()) {
-      for (int i = 0; i < numAggregationFunctions; i++) {
-        if (columnNames[i] == null) {
-          columnNames[i] = dataTable.getString(i, 0);
-          intermediateResultMaps[i] = dataTable.getObject(i, 1);
-        } else {
-          Map<String, Object> mergedIntermediateResultMap = intermediateResultMaps[i];
-          Map<String, Object> intermediateResultMapToMerge = dataTable.getObject(i, 1);
-          for (Map.Entry<String, Object> entry : intermediateResultMapToMerge.entrySet()) {
-            String groupKey = entry.getKey();
-            Object intermediateResultToMerge = entry.getValue();
-            if (mergedIntermediateResultMap.containsKey(groupKey)) {
-              Object mergedIntermediateResult = mergedIntermediateResultMap.get(groupKey);
-              mergedIntermediateResultMap.put(groupKey,
-                  aggregationFunctions[i].merge(mergedIntermediateResult, intermediateResultToMerge));
-            } else {
-              mergedIntermediateResultMap.put(groupKey, intermediateResultToMerge);
-            }
-          }
-        }
-      }
-    }
-
     // Extract final result maps from the merged intermediate result maps.
     Map<String, Comparable>[] finalResultMaps = new Map[numAggregationFunctions];
     for (int i = 0; i < numAggregationFunctions; i++) {
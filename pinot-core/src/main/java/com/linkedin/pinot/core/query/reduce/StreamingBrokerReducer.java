@@ -0,0 +1,240 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.reduce;
+
+import com.linkedin.pinot.common.config.TableNameBuilder;
+import com.linkedin.pinot.common.exception.QueryException;
+import com.linkedin.pinot.common.metrics.BrokerMeter;
+import com.linkedin.pinot.common.metrics.BrokerMetrics;
+import com.linkedin.pinot.common.query.StreamingReducer;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.common.response.broker.QueryProcessingException;
+import com.linkedin.pinot.common.response.broker.SelectionResults;
+import com.linkedin.pinot.common.utils.DataSchema;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.core.query.aggregation.function.AggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.function.AggregationFunctionUtils;
+import com.linkedin.pinot.core.query.selection.SelectionOperatorUtils;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * The <code>StreamingBrokerReducer</code> class reduces data tables into {@link BrokerResponseNative} one at a time as
+ * the server responses arrive.
+ * <p>Execution statistics, exceptions and trace info are accumulated for every data table. Aggregation and group-by
+ * intermediate results are merged right away, so the data table can be released after being reduced. Selection data
+ * tables are buffered and reduced in {@link #getBrokerResponse()}, because the data schema used to render the results
+ * has to cover the data schemas from all the servers.
+ */
+@NotThreadSafe
+public class StreamingBrokerReducer implements StreamingReducer<BrokerResponseNative> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(StreamingBrokerReducer.class);
+
+  private final BrokerRequest _brokerRequest;
+  private final BrokerMetrics _brokerMetrics;
+  private final BrokerResponseNative _brokerResponseNative = new BrokerResponseNative();
+
+  private int _numDataTablesReduced = 0;
+  private long _numDocsScanned = 0L;
+  private long _numEntriesScannedInFilter = 0L;
+  private long _numEntriesScannedPostFilter = 0L;
+  private long _numTotalRawDocs = 0L;
+
+  // Cache a data schema from data tables (try to cache one with data rows associated with it).
+  private DataSchema _cachedDataSchema;
+  private boolean _hasDataRows = false;
+
+  // For selection query.
+  private Map<ServerInstance, DataTable> _selectionDataTableMap;
+
+  // For aggregation query.
+  private AggregationFunction[] _aggregationFunctions;
+  private Object[] _intermediateResults;
+
+  // For aggregation group-by query.
+  private String[] _columnNames;
+  private Map<String, Object>[] _intermediateResultMaps;
+
+  @SuppressWarnings("unchecked")
+  public StreamingBrokerReducer(@Nonnull BrokerRequest brokerRequest, @Nullable BrokerMetrics brokerMetrics) {
+    _brokerRequest = brokerRequest;
+    _brokerMetrics = brokerMetrics;
+
+    if (brokerRequest.isSetSelections()) {
+      _selectionDataTableMap = new HashMap<>();
+    } else {
+      _aggregationFunctions = AggregationFunctionUtils.getAggregationFunctions(brokerRequest.getAggregationsInfo());
+      int numAggregationFunctions = _aggregationFunctions.length;
+      if (!brokerRequest.isSetGroupBy()) {
+        _intermediateResults = new Object[numAggregationFunctions];
+      } else {
+        _columnNames = new String[numAggregationFunctions];
+        _intermediateResultMaps = new Map[numAggregationFunctions];
+      }
+    }
+  }
+
+  @Override
+  public void reduce(@Nonnull ServerInstance serverInstance, @Nonnull DataTable dataTable) {
+    _numDataTablesReduced++;
+    Map<String, String> metadata = dataTable.getMetadata();
+
+    // Reduce on trace info.
+    if (_brokerRequest.isEnableTrace()) {
+      _brokerResponseNative.getTraceInfo()
+          .put(serverInstance.getHostname(), metadata.get(DataTable.TRACE_INFO_METADATA_KEY));
+    }
+
+    // Reduce on exceptions.
+    List<QueryProcessingException> processingExceptions = _brokerResponseNative.getProcessingExceptions();
+    for (String key : metadata.keySet()) {
+      if (key.startsWith(DataTable.EXCEPTION_METADATA_KEY)) {
+        processingExceptions.add(new QueryProcessingException(Integer.parseInt(key.substring(9)), metadata.get(key)));
+      }
+    }
+
+    // Reduce on execution statistics.
+    String numDocsScannedString = metadata.get(DataTable.NUM_DOCS_SCANNED_METADATA_KEY);
+    if (numDocsScannedString != null) {
+      _numDocsScanned += Long.parseLong(numDocsScannedString);
+    }
+    String numEntriesScannedInFilterString = metadata.get(DataTable.NUM_ENTRIES_SCANNED_IN_FILTER_METADATA_KEY);
+    if (numEntriesScannedInFilterString != null) {
+      _numEntriesScannedInFilter += Long.parseLong(numEntriesScannedInFilterString);
+    }
+    String numEntriesScannedPostFilterString = metadata.get(DataTable.NUM_ENTRIES_SCANNED_POST_FILTER_METADATA_KEY);
+    if (numEntriesScannedPostFilterString != null) {
+      _numEntriesScannedPostFilter += Long.parseLong(numEntriesScannedPostFilterString);
+    }
+    String numTotalRawDocsString = metadata.get(DataTable.TOTAL_DOCS_METADATA_KEY);
+    if (numTotalRawDocsString != null) {
+      _numTotalRawDocs += Long.parseLong(numTotalRawDocsString);
+    }
+
+    // After processing the metadata, skip data tables without data rows inside.
+    DataSchema dataSchema = dataTable.getDataSchema();
+    if (dataSchema == null) {
+      return;
+    }
+    if (dataTable.getNumberOfRows() == 0) {
+      if (_cachedDataSchema == null) {
+        _cachedDataSchema = dataSchema;
+      }
+      return;
+    }
+    _cachedDataSchema = dataSchema;
+    _hasDataRows = true;
+
+    // Reduce server response data.
+    if (_selectionDataTableMap != null) {
+      _selectionDataTableMap.put(serverInstance, dataTable);
+    } else if (_intermediateResults != null) {
+      BrokerReduceService.mergeAggregationResults(_aggregationFunctions, _intermediateResults, dataTable);
+    } else {
+      BrokerReduceService.mergeGroupByResults(_aggregationFunctions, _columnNames, _intermediateResultMaps,
+          dataTable);
+    }
+  }
+
+  @Nonnull
+  @Override
+  public BrokerResponseNative getBrokerResponse() {
+    if (_numDataTablesReduced == 0) {
+      // Empty response.
+      return BrokerResponseNative.empty();
+    }
+
+    // Set execution statistics.
+    _brokerResponseNative.setNumDocsScanned(_numDocsScanned);
+    _brokerResponseNative.setNumEntriesScannedInFilter(_numEntriesScannedInFilter);
+    _brokerResponseNative.setNumEntriesScannedPostFilter(_numEntriesScannedPostFilter);
+    _brokerResponseNative.setTotalDocs(_numTotalRawDocs);
+
+    // Update broker metrics.
+    String tableName = _brokerRequest.getQuerySource().getTableName();
+    String rawTableName = TableNameBuilder.extractRawTableName(tableName);
+    if (_brokerMetrics != null) {
+      _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.DOCUMENTS_SCANNED, _numDocsScanned);
+      _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.ENTRIES_SCANNED_IN_FILTER,
+          _numEntriesScannedInFilter);
+      _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.ENTRIES_SCANNED_POST_FILTER,
+          _numEntriesScannedPostFilter);
+    }
+
+    if (!_hasDataRows) {
+      // For no data rows, construct empty result using the cached data schema.
+
+      // This will only happen to selection query.
+      if (_cachedDataSchema != null) {
+        List<String> selectionColumns =
+            SelectionOperatorUtils.getSelectionColumns(_brokerRequest.getSelections().getSelectionColumns(),
+                _cachedDataSchema);
+        _brokerResponseNative.setSelectionResults(
+            new SelectionResults(selectionColumns, new ArrayList<Serializable[]>(0)));
+      }
+    } else {
+      // Set query results into the broker response.
+      assert _cachedDataSchema != null;
+
+      if (_selectionDataTableMap != null) {
+        // Selection query.
+
+        // For data table map with more than one data tables, remove conflicting data tables.
+        DataSchema masterDataSchema = _cachedDataSchema.clone();
+        if (_selectionDataTableMap.size() > 1) {
+          List<String> droppedServers =
+              BrokerReduceService.removeConflictingResponses(masterDataSchema, _selectionDataTableMap);
+          if (!droppedServers.isEmpty()) {
+            String errorMessage =
+                QueryException.MERGE_RESPONSE_ERROR.getMessage() + ": responses for table: " + tableName
+                    + " from servers: " + droppedServers + " got dropped due to data schema inconsistency.";
+            LOGGER.info(errorMessage);
+            if (_brokerMetrics != null) {
+              _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.RESPONSE_MERGE_EXCEPTIONS, 1L);
+            }
+            _brokerResponseNative.addToExceptions(
+                new QueryProcessingException(QueryException.MERGE_RESPONSE_ERROR_CODE, errorMessage));
+          }
+        }
+        BrokerReduceService.setSelectionResults(_brokerResponseNative, _brokerRequest.getSelections(),
+            _selectionDataTableMap, masterDataSchema);
+      } else if (_intermediateResults != null) {
+        // Aggregation only query.
+        BrokerReduceService.setAggregationResults(_brokerResponseNative, _aggregationFunctions, _intermediateResults,
+            _cachedDataSchema);
+      } else {
+        // Aggregation group-by query.
+        boolean[] aggregationFunctionSelectStatus =
+            AggregationFunctionUtils.getAggregationFunctionsSelectStatus(_brokerRequest.getAggregationsInfo());
+        BrokerReduceService.setGroupByHavingResults(_brokerResponseNative, _aggregationFunctions,
+            aggregationFunctionSelectStatus, _brokerRequest.getGroupBy(), _columnNames, _intermediateResultMaps,
+            _brokerRequest.getHavingFilterQuery(), _brokerRequest.getHavingFilterSubQueryMap());
+      }
+    }
+    return _brokerResponseNative;
+  }
+}
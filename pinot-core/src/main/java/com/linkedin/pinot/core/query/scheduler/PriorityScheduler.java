@@ -28,6 +28,7 @@ import com.linkedin.pinot.common.metrics.ServerQueryPhase;
 import com.linkedin.pinot.common.query.QueryExecutor;
 import com.linkedin.pinot.common.query.ServerQueryRequest;
 import com.linkedin.pinot.core.query.scheduler.resources.QueryExecutorService;
+import com.linkedin.pinot.core.query.scheduler.resources.QueryMemoryAccountant;
 import com.linkedin.pinot.core.query.scheduler.resources.ResourceManager;
 import java.util.List;
 import java.util.concurrent.Semaphore;
@@ -66,6 +67,9 @@ public abstract class PriorityScheduler extends QueryScheduler {
     if (! isRunning) {
       return immediateErrorResponse(queryRequest, QueryException.SERVER_SCHEDULER_DOWN_ERROR);
     }
+    if (!resourceManager.getMemoryAccountant().canAdmit()) {
+      return memoryBudgetExceededResponse(queryRequest);
+    }
     queryRequest.getTimerContext().startNewPhaseTimer(ServerQueryPhase.SCHEDULER_WAIT);
     final SchedulerQueryContext schedQueryContext = new SchedulerQueryContext(queryRequest);
     try {
@@ -102,6 +106,12 @@ public abstract class PriorityScheduler extends QueryScheduler {
               continue;
             }
             ServerQueryRequest queryRequest = request.getQueryRequest();
+            if (!resourceManager.getMemoryAccountant().canAdmit()) {
+              // Running queries used up the memory budget while this query was waiting in the queue
+              request.setResultFuture(memoryBudgetExceededResponse(queryRequest));
+              runningQueriesSemaphore.release();
+              continue;
+            }
             final QueryExecutorService executor = resourceManager.getExecutorService(queryRequest,
                 request.getSchedulerGroup());
             final ListenableFutureTask<byte[]> queryFutureTask = createQueryFutureTask(queryRequest, executor);
@@ -147,6 +157,16 @@ public abstract class PriorityScheduler extends QueryScheduler {
     }
   }
 
+  private ListenableFuture<byte[]> memoryBudgetExceededResponse(ServerQueryRequest queryRequest) {
+    QueryMemoryAccountant memoryAccountant = resourceManager.getMemoryAccountant();
+    LOGGER.error("Query memory budget exhausted for table {}, allocated: {} bytes, budget: {} bytes",
+        queryRequest.getTableName(), memoryAccountant.getAllocatedBytes(), memoryAccountant.getBudgetBytes());
+    serverMetrics.addMeteredTableValue(queryRequest.getTableName(), ServerMeter.QUERIES_OVER_MEMORY_BUDGET, 1);
+    return immediateErrorResponse(queryRequest, QueryException.getException(
+        QueryException.QUERY_MEMORY_BUDGET_EXCEEDED_ERROR,
+        "Server memory budget for queries is exhausted by the running queries"));
+  }
+
   synchronized private void failAllPendingQueries() {
     List<SchedulerQueryContext> pending = queryQueue.drain();
     for (SchedulerQueryContext queryContext : pending) {
@@ -32,8 +32,12 @@ import com.linkedin.pinot.common.query.context.TimerContext;
 import com.linkedin.pinot.common.request.InstanceRequest;
 import com.linkedin.pinot.common.response.ProcessingException;
 import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.core.common.datatable.DataTableFactory;
 import com.linkedin.pinot.core.common.datatable.DataTableImplV2;
 import com.linkedin.pinot.core.query.scheduler.resources.QueryExecutorService;
+import com.linkedin.pinot.core.query.scheduler.resources.QueryMemoryAccountant;
+import com.linkedin.pinot.core.query.scheduler.resources.QueryMemoryBudgetExceededException;
+import com.linkedin.pinot.core.query.scheduler.resources.QueryMemoryTracker;
 import com.linkedin.pinot.core.query.scheduler.resources.ResourceManager;
 import java.util.Map;
 import java.util.concurrent.Callable;
@@ -121,7 +125,19 @@ public abstract class QueryScheduler {
       @Override
       public byte[] call()
           throws Exception {
-        return processQueryAndSerialize(request, e);
+        QueryMemoryAccountant memoryAccountant = resourceManager.getMemoryAccountant();
+        if (!memoryAccountant.isEnabled()) {
+          return processQueryAndSerialize(request, e);
+        }
+        QueryMemoryTracker memoryTracker =
+            memoryAccountant.newQueryTracker(request.getInstanceRequest().getRequestId());
+        QueryMemoryTracker.register(memoryTracker);
+        try {
+          return processQueryAndSerialize(request, e);
+        } finally {
+          QueryMemoryTracker.unregister();
+          memoryTracker.release();
+        }
       }
     });
   }
@@ -144,12 +160,26 @@ public abstract class QueryScheduler {
       dataTable = new DataTableImplV2();
       dataTable.addException(QueryException.getException(QueryException.INTERNAL_ERROR, e));
     }
+    QueryMemoryTracker memoryTracker = QueryMemoryTracker.getCurrent();
+    if (memoryTracker != null && memoryTracker.isBudgetExceeded()) {
+      // Results are partial if any allocation failed, only return the error
+      dataTable = getMemoryBudgetExceededDataTable(request, memoryTracker);
+    }
     InstanceRequest instanceRequest = request.getInstanceRequest();
     long requestId = instanceRequest.getRequestId();
     Map<String, String> dataTableMetadata = dataTable.getMetadata();
     dataTableMetadata.put(DataTable.REQUEST_ID_METADATA_KEY, Long.toString(requestId));
 
     byte[] responseData = serializeDataTable(request, dataTable);
+    if (memoryTracker != null && responseData != null) {
+      try {
+        memoryTracker.allocate(responseData.length);
+      } catch (QueryMemoryBudgetExceededException e) {
+        dataTable = getMemoryBudgetExceededDataTable(request, memoryTracker);
+        dataTable.getMetadata().put(DataTable.REQUEST_ID_METADATA_KEY, Long.toString(requestId));
+        responseData = serializeDataTable(request, dataTable);
+      }
+    }
 
     // Log the statistics
     TimerContext timerContext = request.getTimerContext();
@@ -171,6 +201,17 @@ public abstract class QueryScheduler {
     return responseData;
   }
 
+  private DataTable getMemoryBudgetExceededDataTable(ServerQueryRequest request, QueryMemoryTracker memoryTracker) {
+    LOGGER.error("Query memory budget exceeded for requestId: {}, table: {}, allocated bytes: {}",
+        request.getInstanceRequest().getRequestId(), request.getTableName(), memoryTracker.getAllocatedBytes());
+    serverMetrics.addMeteredTableValue(request.getTableName(), ServerMeter.QUERIES_OVER_MEMORY_BUDGET, 1);
+    DataTable dataTable = new DataTableImplV2();
+    dataTable.addException(QueryException.getException(QueryException.QUERY_MEMORY_BUDGET_EXCEEDED_ERROR,
+        "Query allocated " + memoryTracker.getAllocatedBytes() + " bytes, over the per-query limit or the server"
+            + " memory budget"));
+    return dataTable;
+  }
+
   protected String getMetadataValue(Map<String, String> metadata, String key) {
     String val = metadata.get(key);
     return (val == null) ? "" : val;
@@ -192,7 +233,12 @@ public abstract class QueryScheduler {
     byte[] responseByte;
     InstanceRequest instanceRequest = queryRequest.getInstanceRequest();
     try {
-      responseByte = instanceResponse.toBytes();
+      if (instanceRequest.isSetDataTableVersion()) {
+        // Serialize into the data table version requested by the broker.
+        responseByte = DataTableFactory.toBytes(instanceResponse, instanceRequest.getDataTableVersion());
+      } else {
+        responseByte = instanceResponse.toBytes();
+      }
     } catch (Exception e) {
       queryRequest.getServerMetrics().addMeteredGlobalValue(ServerMeter.RESPONSE_SERIALIZATION_EXCEPTIONS, 1);
       LOGGER.error("Caught exception while serializing response for requestId: {}, brokerId: {}",
@@ -22,6 +22,7 @@ import com.linkedin.pinot.common.query.QueryExecutor;
 import com.linkedin.pinot.core.query.scheduler.fcfs.BoundedFCFSScheduler;
 import com.linkedin.pinot.core.query.scheduler.fcfs.FCFSQueryScheduler;
 import com.linkedin.pinot.core.query.scheduler.tokenbucket.TokenPriorityScheduler;
+import com.linkedin.pinot.core.query.scheduler.weightedfair.WeightedFairScheduler;
 import java.lang.reflect.Constructor;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -38,6 +39,7 @@ public class QuerySchedulerFactory {
   private static final String DEFAULT_QUERY_SCHEDULER_ALGORITHM = FCFS_ALGORITHM;
   public static final String TOKEN_BUCKET_ALGORITHM = "tokenbucket";
   public static final String BOUNDED_FCFS_ALGORITHM = "bounded_fcfs";
+  public static final String WEIGHTED_FAIR_ALGORITHM = "weighted_fair";
   public static final String ALGORITHM_NAME_CONFIG_KEY = "name";
   private static Logger LOGGER = LoggerFactory.getLogger(QuerySchedulerFactory.class);
 
@@ -64,6 +66,9 @@ public class QuerySchedulerFactory {
       return TokenPriorityScheduler.create(schedulerConfig, queryExecutor, serverMetrics);
     } else if (schedulerConfig.equals(BOUNDED_FCFS_ALGORITHM)) {
       return BoundedFCFSScheduler.create(schedulerConfig, queryExecutor, serverMetrics);
+    } else if (schedulerName.equals(WEIGHTED_FAIR_ALGORITHM)) {
+      LOGGER.info("Using weighted fair deadline scheduler");
+      return WeightedFairScheduler.create(schedulerConfig, queryExecutor, serverMetrics);
     }
 
     // didn't find by name so try by classname
@@ -56,7 +56,8 @@ public class BoundedAccountingExecutor extends QueryExecutorService {
 
   @Override
   public void execute(Runnable command) {
-    delegateExecutor.execute(toAccountingRunnable(command));
+    // Wrap in the submitting thread so that the workers report memory to the tracker of the query
+    delegateExecutor.execute(toAccountingRunnable(QueryMemoryTracker.wrap(command)));
   }
 
   @Override
@@ -0,0 +1,117 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.scheduler.resources;
+
+import com.google.common.base.Preconditions;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Server level accounting of the memory allocated by the running queries.
+ *
+ * Queries report their large allocations (group-by result holders, data block cache buffers, serialized
+ * response) through a {@link QueryMemoryTracker}. The accountant keeps the total across all the running
+ * queries, so that the scheduler can stop admitting new queries while the server is over its budget,
+ * and a running query fails once it goes over the per-query limit or the server budget.
+ *
+ * The accounting is an estimate of the large allocations, not of the whole heap usage. Memory is
+ * released when the query completes.
+ */
+public class QueryMemoryAccountant {
+  private static final Logger LOGGER = LoggerFactory.getLogger(QueryMemoryAccountant.class);
+
+  // Total memory budget for all the running queries, 0 to disable the memory accounting
+  public static final String QUERY_MEMORY_BUDGET_BYTES = "query_memory_budget_bytes";
+  public static final long DEFAULT_QUERY_MEMORY_BUDGET_BYTES = 0L;
+  // Memory limit for a single query, 0 to only limit by the server budget
+  public static final String MAX_MEMORY_PER_QUERY_BYTES = "max_memory_per_query_bytes";
+  public static final long DEFAULT_MAX_MEMORY_PER_QUERY_BYTES = 0L;
+
+  private final long budgetBytes;
+  private final long maxBytesPerQuery;
+  private final AtomicLong allocatedBytes = new AtomicLong();
+
+  public QueryMemoryAccountant(Configuration config) {
+    this(config.getLong(QUERY_MEMORY_BUDGET_BYTES, DEFAULT_QUERY_MEMORY_BUDGET_BYTES),
+        config.getLong(MAX_MEMORY_PER_QUERY_BYTES, DEFAULT_MAX_MEMORY_PER_QUERY_BYTES));
+  }
+
+  public QueryMemoryAccountant(long budgetBytes, long maxBytesPerQuery) {
+    Preconditions.checkArgument(budgetBytes >= 0, "Query memory budget must be non-negative");
+    Preconditions.checkArgument(maxBytesPerQuery >= 0, "Max memory per query must be non-negative");
+    this.budgetBytes = budgetBytes;
+    this.maxBytesPerQuery = (maxBytesPerQuery == 0) ? budgetBytes : Math.min(maxBytesPerQuery, budgetBytes);
+    if (isEnabled()) {
+      LOGGER.info("Query memory budget: {} bytes, max memory per query: {} bytes", this.budgetBytes,
+          this.maxBytesPerQuery);
+    }
+  }
+
+  /**
+   * @return true if the memory accounting is enabled
+   */
+  public boolean isEnabled() {
+    return budgetBytes > 0;
+  }
+
+  /**
+   * Check if a new query can be admitted, i.e. the running queries have not exhausted the budget
+   * @return true if a query can be admitted
+   */
+  public boolean canAdmit() {
+    return !isEnabled() || allocatedBytes.get() < budgetBytes;
+  }
+
+  /**
+   * @return total memory allocated by the running queries
+   */
+  public long getAllocatedBytes() {
+    return allocatedBytes.get();
+  }
+
+  public long getBudgetBytes() {
+    return budgetBytes;
+  }
+
+  public long getMaxBytesPerQuery() {
+    return maxBytesPerQuery;
+  }
+
+  /**
+   * Create the tracker for a new query. Caller must call {@link QueryMemoryTracker#release()}
+   * once the query completes.
+   * @param requestId id of the query request, used for logging
+   * @return tracker for the query
+   */
+  public QueryMemoryTracker newQueryTracker(long requestId) {
+    return new QueryMemoryTracker(this, requestId);
+  }
+
+  /**
+   * Add the allocated bytes to the server total
+   * @return new server total
+   */
+  long allocate(long bytes) {
+    return allocatedBytes.addAndGet(bytes);
+  }
+
+  void release(long bytes) {
+    allocatedBytes.addAndGet(-bytes);
+  }
+}
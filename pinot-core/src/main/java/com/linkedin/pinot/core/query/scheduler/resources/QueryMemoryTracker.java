@@ -0,0 +1,158 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.scheduler.resources;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+
+/**
+ * Tracks the memory allocated by a single query, and reports it to the server {@link QueryMemoryAccountant}.
+ *
+ * The tracker is registered to the threads executing the query (the query runner thread and the query
+ * workers), so that the allocation sites deep in the operators can report through the static
+ * {@link #allocateForCurrentQuery(long)} without any change to the operator interfaces. Threads without a
+ * registered tracker (e.g. when the memory accounting is disabled) do not track anything.
+ */
+public class QueryMemoryTracker {
+  private static final ThreadLocal<QueryMemoryTracker> CURRENT_TRACKER = new ThreadLocal<>();
+
+  private final QueryMemoryAccountant accountant;
+  private final long requestId;
+  // allocate() and release() are called concurrently by the query workers and the query runner thread, so they
+  // synchronize on the tracker to make sure no allocation is reported to the accountant after the release
+  private long allocatedBytes = 0;
+  private volatile boolean budgetExceeded = false;
+  private boolean released = false;
+
+  QueryMemoryTracker(@Nonnull QueryMemoryAccountant accountant, long requestId) {
+    this.accountant = accountant;
+    this.requestId = requestId;
+  }
+
+  /**
+   * Report memory allocated by the query.
+   * @param bytes number of bytes allocated
+   * @throws QueryMemoryBudgetExceededException if the query goes over the per-query limit or the
+   *   server goes over the budget. Once the budget is exceeded, all further allocations fail.
+   */
+  public synchronized void allocate(long bytes) {
+    if (released) {
+      return;
+    }
+    allocatedBytes += bytes;
+    long queryBytes = allocatedBytes;
+    long serverBytes = accountant.allocate(bytes);
+    if (budgetExceeded) {
+      throw new QueryMemoryBudgetExceededException(getBudgetExceededMessage(queryBytes, serverBytes));
+    }
+    if (queryBytes > accountant.getMaxBytesPerQuery() || serverBytes > accountant.getBudgetBytes()) {
+      budgetExceeded = true;
+      throw new QueryMemoryBudgetExceededException(getBudgetExceededMessage(queryBytes, serverBytes));
+    }
+  }
+
+  private String getBudgetExceededMessage(long queryBytes, long serverBytes) {
+    return "Query memory budget exceeded for requestId: " + requestId + ", query allocated: " + queryBytes
+        + " bytes (limit: " + accountant.getMaxBytesPerQuery() + "), server allocated: " + serverBytes
+        + " bytes (budget: " + accountant.getBudgetBytes() + ")";
+  }
+
+  /**
+   * Release all the memory allocated by the query back to the server budget. Should be called exactly once
+   * when the query completes.
+   */
+  public synchronized void release() {
+    if (!released) {
+      released = true;
+      accountant.release(allocatedBytes);
+    }
+  }
+
+  public synchronized long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  /**
+   * @return true if any allocation of the query failed because of the memory budget
+   */
+  public boolean isBudgetExceeded() {
+    return budgetExceeded;
+  }
+
+  /**
+   * Register the tracker to the current thread
+   */
+  public static void register(@Nonnull QueryMemoryTracker tracker) {
+    CURRENT_TRACKER.set(tracker);
+  }
+
+  /**
+   * Un-register the tracker from the current thread
+   */
+  public static void unregister() {
+    CURRENT_TRACKER.remove();
+  }
+
+  /**
+   * @return tracker registered to the current thread, or null if none
+   */
+  @Nullable
+  public static QueryMemoryTracker getCurrent() {
+    return CURRENT_TRACKER.get();
+  }
+
+  /**
+   * Report memory allocated by the query executing in the current thread. No-op if there is no tracker
+   * registered to the thread.
+   * @param bytes number of bytes allocated
+   */
+  public static void allocateForCurrentQuery(long bytes) {
+    QueryMemoryTracker tracker = CURRENT_TRACKER.get();
+    if (tracker != null) {
+      tracker.allocate(bytes);
+    }
+  }
+
+  /**
+   * Wrap the runnable so that it runs with the tracker of the current (submitting) thread registered.
+   * @param runnable runnable to wrap
+   * @return wrapped runnable, or the runnable itself if there is no tracker registered to the current thread
+   */
+  public static Runnable wrap(@Nonnull final Runnable runnable) {
+    final QueryMemoryTracker tracker = CURRENT_TRACKER.get();
+    if (tracker == null) {
+      return runnable;
+    }
+    return new Runnable() {
+      @Override
+      public void run() {
+        // Restore the previous tracker in case the runnable is executed in the submitting thread
+        QueryMemoryTracker previousTracker = CURRENT_TRACKER.get();
+        register(tracker);
+        try {
+          runnable.run();
+        } finally {
+          if (previousTracker == null) {
+            unregister();
+          } else {
+            register(previousTracker);
+          }
+        }
+      }
+    };
+  }
+}
@@ -35,6 +35,9 @@ import org.slf4j.LoggerFactory;
  *
  * This class supports soft and hard limits on the number of threads. A
  * scheduler group will not get more than the hard_limit number of threads.
+ *
+ * This class also owns the {@link QueryMemoryAccountant} that tracks the memory
+ * allocated by the running queries against the configured memory budget.
  */
 // TODO: This class supports hard and soft thread limits. Potentially, we can make
 // these limits dynamic - SchedulerGroups with low latency can have higher hard limit
@@ -66,6 +69,7 @@ public abstract class ResourceManager {
   protected final ListeningExecutorService queryWorkers;
   protected final int numQueryRunnerThreads;
   protected final int numQueryWorkerThreads;
+  protected final QueryMemoryAccountant memoryAccountant;
 
   /**
    * @param config configuration for initializing resource manager
@@ -91,6 +95,8 @@ public abstract class ResourceManager {
         .build();
     queryWorkers = MoreExecutors.listeningDecorator(
         Executors.newFixedThreadPool(numQueryWorkerThreads, queryWorkersFactory));
+
+    memoryAccountant = new QueryMemoryAccountant(config);
   }
 
   public void stop() {
@@ -129,6 +135,14 @@ public abstract class ResourceManager {
     return queryWorkers;
   }
 
+  /**
+   * Accountant for the memory allocated by the running queries
+   * @return
+   */
+  final public QueryMemoryAccountant getMemoryAccountant() {
+    return memoryAccountant;
+  }
+
   /**
    * Get the executor service for running the query. The provided executor
    * service limits the number of resources available for executing query
@@ -36,7 +36,7 @@ public class UnboundedResourceManager extends ResourceManager {
     return new QueryExecutorService() {
       @Override
       public void execute(Runnable command) {
-        queryWorkers.submit(command);
+        queryWorkers.submit(QueryMemoryTracker.wrap(command));
       }
     };
   }
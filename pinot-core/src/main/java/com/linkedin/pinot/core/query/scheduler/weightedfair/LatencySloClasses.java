@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.scheduler.weightedfair;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.common.query.ServerQueryRequest;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import org.apache.commons.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Latency SLO classes that queries can opt into through the {@value #SLO_CLASS_QUERY_OPTION} query option.
+ * Each class maps to a target latency which, added to the query arrival time, gives the scheduling deadline
+ * of the query. Queries without the option, or with an unknown class, use the default class.
+ *
+ * Classes are configured as {@code slo_class_latency_ms.<className> = <latencyMs>}. Built-in classes are
+ * {@code interactive} (100ms), {@code standard} (1s) and {@code batch} (10s).
+ */
+public class LatencySloClasses {
+  private static final Logger LOGGER = LoggerFactory.getLogger(LatencySloClasses.class);
+
+  public static final String SLO_CLASS_QUERY_OPTION = "sloClass";
+
+  public static final String SLO_CLASS_LATENCY_MS_KEY_PREFIX = "slo_class_latency_ms";
+  public static final String DEFAULT_SLO_CLASS_KEY = "default_slo_class";
+
+  public static final String INTERACTIVE = "interactive";
+  public static final String STANDARD = "standard";
+  public static final String BATCH = "batch";
+
+  private final Map<String, Long> latencyMsBySloClass = new HashMap<>();
+  private final String defaultSloClass;
+
+  public LatencySloClasses(@Nonnull Configuration config) {
+    Preconditions.checkNotNull(config);
+    latencyMsBySloClass.put(INTERACTIVE, 100L);
+    latencyMsBySloClass.put(STANDARD, 1_000L);
+    latencyMsBySloClass.put(BATCH, 10_000L);
+
+    Configuration sloConfig = config.subset(SLO_CLASS_LATENCY_MS_KEY_PREFIX);
+    Iterator<String> keys = sloConfig.getKeys();
+    while (keys.hasNext()) {
+      String sloClass = keys.next();
+      long latencyMs = sloConfig.getLong(sloClass);
+      Preconditions.checkArgument(latencyMs > 0, "Latency for SLO class %s must be positive", sloClass);
+      latencyMsBySloClass.put(sloClass.toLowerCase(), latencyMs);
+    }
+
+    defaultSloClass = config.getString(DEFAULT_SLO_CLASS_KEY, STANDARD).toLowerCase();
+    Preconditions.checkArgument(latencyMsBySloClass.containsKey(defaultSloClass),
+        "Default SLO class %s is not configured", defaultSloClass);
+    LOGGER.info("Latency SLO classes: {}, default: {}", latencyMsBySloClass, defaultSloClass);
+  }
+
+  /**
+   * Get the SLO class of the query, falling back to the default class if the query does not specify one
+   * or specifies an unknown one.
+   */
+  public @Nonnull String getSloClass(@Nonnull ServerQueryRequest queryRequest) {
+    Map<String, String> queryOptions = queryRequest.getBrokerRequest().getQueryOptions();
+    if (queryOptions == null) {
+      return defaultSloClass;
+    }
+    String sloClass = queryOptions.get(SLO_CLASS_QUERY_OPTION);
+    if (sloClass == null) {
+      return defaultSloClass;
+    }
+    sloClass = sloClass.toLowerCase();
+    return latencyMsBySloClass.containsKey(sloClass) ? sloClass : defaultSloClass;
+  }
+
+  public long getLatencyMs(@Nonnull String sloClass) {
+    Long latencyMs = latencyMsBySloClass.get(sloClass);
+    return latencyMs != null ? latencyMs : latencyMsBySloClass.get(defaultSloClass);
+  }
+
+  /**
+   * Get the deadline of the query as per its SLO class. The deadline is in milliseconds on the same clock
+   * as the query arrival time in the query timer context.
+   */
+  public long getDeadlineMs(@Nonnull ServerQueryRequest queryRequest) {
+    return queryRequest.getTimerContext().getQueryArrivalTimeMs() + getLatencyMs(getSloClass(queryRequest));
+  }
+}
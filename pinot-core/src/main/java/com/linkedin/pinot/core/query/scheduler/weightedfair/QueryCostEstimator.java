@@ -0,0 +1,117 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.scheduler.weightedfair;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.common.query.ServerQueryRequest;
+import com.linkedin.pinot.common.request.AggregationInfo;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nonnull;
+import org.apache.commons.configuration.Configuration;
+
+
+/**
+ * Estimates the cost of a query before it executes, as
+ * {@code number of segments x docs per segment after pruning x aggregation complexity}.
+ *
+ * Segment pruning happens only once the query executes, so the number of docs per requested segment that
+ * survives pruning is learned per table from the completed queries (exponentially weighted moving average).
+ * Tables without any completed query use {@value #DEFAULT_DOCS_PER_SEGMENT} docs per segment.
+ * The cost is in units of docs to process, and only meaningful relative to the cost of other queries.
+ */
+public class QueryCostEstimator {
+  public static final String DEFAULT_DOCS_PER_SEGMENT_KEY = "default_docs_per_segment";
+  public static final long DEFAULT_DOCS_PER_SEGMENT = 100_000L;
+
+  // Weight of the latest observation in the moving average of docs per segment
+  private static final double ALPHA = 0.2;
+
+  private final long defaultDocsPerSegment;
+  private final ConcurrentHashMap<String, Double> docsPerSegmentByTable = new ConcurrentHashMap<>();
+
+  public QueryCostEstimator(@Nonnull Configuration config) {
+    defaultDocsPerSegment = config.getLong(DEFAULT_DOCS_PER_SEGMENT_KEY, DEFAULT_DOCS_PER_SEGMENT);
+    Preconditions.checkArgument(defaultDocsPerSegment > 0, "Default docs per segment must be positive");
+  }
+
+  /**
+   * Estimate the cost of the query
+   * @return estimated cost, always positive
+   */
+  public long estimateCost(@Nonnull ServerQueryRequest queryRequest) {
+    int numSegments = Math.max(queryRequest.getInstanceRequest().getSearchSegmentsSize(), 1);
+    Double docsPerSegment = docsPerSegmentByTable.get(queryRequest.getTableName());
+    double numDocs = numSegments * (docsPerSegment != null ? docsPerSegment : defaultDocsPerSegment);
+    return Math.max((long) (numDocs * getComplexity(queryRequest.getBrokerRequest())), 1L);
+  }
+
+  /**
+   * Learn the docs per segment after pruning from a completed query
+   */
+  public void update(@Nonnull ServerQueryRequest queryRequest) {
+    long numDocsAfterPruning = queryRequest.getNumDocsAfterPruning();
+    int numSegments = queryRequest.getInstanceRequest().getSearchSegmentsSize();
+    if (numDocsAfterPruning < 0 || numSegments == 0) {
+      // Query failed before pruning
+      return;
+    }
+    // Racing updates may lose an observation, which is acceptable for an estimate
+    String tableName = queryRequest.getTableName();
+    double docsPerSegment = (double) numDocsAfterPruning / numSegments;
+    Double previous = docsPerSegmentByTable.get(tableName);
+    if (previous != null) {
+      docsPerSegment = ALPHA * docsPerSegment + (1 - ALPHA) * previous;
+    }
+    docsPerSegmentByTable.put(tableName, docsPerSegment);
+  }
+
+  /**
+   * Relative cost of processing a doc for the query. Selection without ordering costs 1. Each aggregation
+   * function costs 1, or more for the ones maintaining large intermediate results. Group-by multiplies the
+   * aggregation cost by the number of group-by columns plus one.
+   */
+  static double getComplexity(@Nonnull BrokerRequest brokerRequest) {
+    List<AggregationInfo> aggregationsInfo = brokerRequest.getAggregationsInfo();
+    if (aggregationsInfo == null || aggregationsInfo.isEmpty()) {
+      if (brokerRequest.isSetSelections() && brokerRequest.getSelections().getSelectionSortSequenceSize() > 0) {
+        return 2;
+      }
+      return 1;
+    }
+    double complexity = 0;
+    for (AggregationInfo aggregationInfo : aggregationsInfo) {
+      complexity += getAggregationComplexity(aggregationInfo.getAggregationType());
+    }
+    if (brokerRequest.isSetGroupBy()) {
+      complexity *= brokerRequest.getGroupBy().getColumnsSize() + 1;
+    }
+    return complexity;
+  }
+
+  private static double getAggregationComplexity(String aggregationType) {
+    String type = aggregationType.toLowerCase();
+    if (type.startsWith("distinctcounthll") || type.startsWith("fasthll") || type.startsWith("percentileest")
+        || type.startsWith("percentiletdigest")) {
+      return 2;
+    }
+    if (type.startsWith("distinctcount") || type.startsWith("percentile")) {
+      return 4;
+    }
+    return 1;
+  }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.scheduler.weightedfair;
+
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.linkedin.pinot.common.metrics.ServerMeter;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.metrics.ServerTimer;
+import com.linkedin.pinot.common.query.QueryExecutor;
+import com.linkedin.pinot.common.query.ServerQueryRequest;
+import com.linkedin.pinot.core.query.scheduler.MultiLevelPriorityQueue;
+import com.linkedin.pinot.core.query.scheduler.PriorityScheduler;
+import com.linkedin.pinot.core.query.scheduler.SchedulerGroup;
+import com.linkedin.pinot.core.query.scheduler.SchedulerGroupFactory;
+import com.linkedin.pinot.core.query.scheduler.TableBasedGroupMapper;
+import com.linkedin.pinot.core.query.scheduler.resources.PolicyBasedResourceManager;
+import com.linkedin.pinot.core.query.scheduler.resources.QueryExecutorService;
+import com.linkedin.pinot.core.query.scheduler.resources.ResourceManager;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import org.apache.commons.configuration.Configuration;
+
+
+/**
+ * Schedules queries by earliest deadline first within weighted fair shares across tables.
+ * Deadlines come from the latency SLO class of the query (see {@link LatencySloClasses}) and the fair shares are
+ * computed on the estimated query cost (see {@link QueryCostEstimator}). Table weights are configured as
+ * {@code table_weight.<tableName> = <weight>}, with default weight 1.
+ *
+ * Besides the scheduler wait phase, this scheduler reports the queue wait of dispatched queries and the queries
+ * completing after their deadline per table. All the priority based scheduling logic is in {@link PriorityScheduler}
+ * and {@link WeightedFairSchedulerGroup}.
+ */
+public class WeightedFairScheduler extends PriorityScheduler {
+  public static final String TABLE_WEIGHT_KEY_PREFIX = "table_weight";
+  private static final double DEFAULT_TABLE_WEIGHT = 1.0;
+
+  private final LatencySloClasses sloClasses;
+  private final QueryCostEstimator costEstimator;
+
+  public static WeightedFairScheduler create(@Nonnull Configuration config, @Nonnull QueryExecutor queryExecutor,
+      @Nonnull ServerMetrics metrics) {
+    final ResourceManager rm = new PolicyBasedResourceManager(config);
+    final LatencySloClasses sloClasses = new LatencySloClasses(config);
+    final QueryCostEstimator costEstimator = new QueryCostEstimator(config);
+    final AtomicLong systemVirtualTime = new AtomicLong();
+    final SchedulerGroupFactory groupFactory = new SchedulerGroupFactory() {
+      @Override
+      public SchedulerGroup create(Configuration config, String groupName) {
+        double weight = config.getDouble(TABLE_WEIGHT_KEY_PREFIX + "." + groupName, DEFAULT_TABLE_WEIGHT);
+        return new WeightedFairSchedulerGroup(groupName, weight, systemVirtualTime, sloClasses, costEstimator);
+      }
+    };
+
+    MultiLevelPriorityQueue queue = new MultiLevelPriorityQueue(config, rm, groupFactory, new TableBasedGroupMapper());
+    return new WeightedFairScheduler(rm, queryExecutor, queue, metrics, sloClasses, costEstimator);
+  }
+
+  private WeightedFairScheduler(@Nonnull ResourceManager resourceManager, @Nonnull QueryExecutor queryExecutor,
+      @Nonnull MultiLevelPriorityQueue queue, @Nonnull ServerMetrics metrics, @Nonnull LatencySloClasses sloClasses,
+      @Nonnull QueryCostEstimator costEstimator) {
+    super(resourceManager, queryExecutor, queue, metrics);
+    this.sloClasses = sloClasses;
+    this.costEstimator = costEstimator;
+  }
+
+  @Override
+  protected ListenableFutureTask<byte[]> createQueryFutureTask(@Nonnull final ServerQueryRequest request,
+      @Nonnull QueryExecutorService e) {
+    // Query arrival time is on the System.nanoTime() clock
+    long queueWaitNs = System.nanoTime() - request.getTimerContext().getQueryArrivalTimeNs();
+    serverMetrics.addTimedTableValue(request.getTableName(), ServerTimer.SCHEDULER_QUEUE_WAIT, queueWaitNs,
+        TimeUnit.NANOSECONDS);
+    final long deadlineMs = sloClasses.getDeadlineMs(request);
+
+    ListenableFutureTask<byte[]> queryFutureTask = super.createQueryFutureTask(request, e);
+    queryFutureTask.addListener(new Runnable() {
+      @Override
+      public void run() {
+        costEstimator.update(request);
+        if (TimeUnit.MILLISECONDS.convert(System.nanoTime(), TimeUnit.NANOSECONDS) > deadlineMs) {
+          serverMetrics.addMeteredTableValue(request.getTableName(), ServerMeter.SCHEDULER_DEADLINE_MISSES, 1);
+        }
+      }
+    }, MoreExecutors.directExecutor());
+    return queryFutureTask;
+  }
+
+  @Override
+  public String name() {
+    return "WeightedFair";
+  }
+}
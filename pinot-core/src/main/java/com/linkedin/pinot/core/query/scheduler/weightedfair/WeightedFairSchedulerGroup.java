@@ -0,0 +1,201 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.scheduler.weightedfair;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.core.query.scheduler.AbstractSchedulerGroup;
+import com.linkedin.pinot.core.query.scheduler.SchedulerGroup;
+import com.linkedin.pinot.core.query.scheduler.SchedulerGroupAccountant;
+import com.linkedin.pinot.core.query.scheduler.SchedulerQueryContext;
+import com.linkedin.pinot.core.query.scheduler.fcfs.FCFSSchedulerGroup;
+import java.util.Iterator;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+
+
+/**
+ * Scheduler group that shares the server between groups in proportion to their weights, and orders its own
+ * pending queries by deadline (earliest deadline first).
+ *
+ * Fair sharing uses start-time fair queueing on the estimated query cost. Each group keeps a virtual finish
+ * time that advances by {@code cost / weight} whenever one of its queries is dispatched. The group with the lowest
+ * virtual start time, i.e. max(own virtual finish time, system virtual time), is served first. The system virtual
+ * time, shared by all the groups, is the start time of the last dispatched query so that idle groups can not
+ * accumulate credit and starve the others once they become active.
+ */
+public class WeightedFairSchedulerGroup extends AbstractSchedulerGroup {
+
+  private final double weight;
+  private final AtomicLong systemVirtualTime;
+  private final LatencySloClasses sloClasses;
+  private final QueryCostEstimator costEstimator;
+  // Pending queries ordered by deadline, replaces the FCFS queue of the parent class
+  private final PriorityBlockingQueue<PendingQuery> pendingByDeadline = new PriorityBlockingQueue<>();
+  private final AtomicLong sequence = new AtomicLong();
+  private long virtualFinishTime;
+
+  WeightedFairSchedulerGroup(@Nonnull String name, double weight, @Nonnull AtomicLong systemVirtualTime,
+      @Nonnull LatencySloClasses sloClasses, @Nonnull QueryCostEstimator costEstimator) {
+    super(name);
+    Preconditions.checkArgument(weight > 0, "Weight of scheduler group %s must be positive", name);
+    this.weight = weight;
+    this.systemVirtualTime = systemVirtualTime;
+    this.sloClasses = sloClasses;
+    this.costEstimator = costEstimator;
+  }
+
+  public double getWeight() {
+    return weight;
+  }
+
+  @Override
+  public void addLast(SchedulerQueryContext query) {
+    pendingByDeadline.add(new PendingQuery(query, sloClasses.getDeadlineMs(query.getQueryRequest()),
+        costEstimator.estimateCost(query.getQueryRequest()), sequence.getAndIncrement()));
+  }
+
+  @Override
+  public SchedulerQueryContext peekFirst() {
+    PendingQuery first = pendingByDeadline.peek();
+    return first == null ? null : first.query;
+  }
+
+  /**
+   * Removes the query with the earliest deadline and charges its estimated cost to this group
+   */
+  @Override
+  public SchedulerQueryContext removeFirst() {
+    PendingQuery first = pendingByDeadline.poll();
+    if (first == null) {
+      return null;
+    }
+    charge(first.cost);
+    return first.query;
+  }
+
+  @Override
+  public void trimExpired(long deadlineMillis) {
+    Iterator<PendingQuery> iter = pendingByDeadline.iterator();
+    while (iter.hasNext()) {
+      if (iter.next().query.getArrivalTimeMs() < deadlineMillis) {
+        iter.remove();
+      }
+    }
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return pendingByDeadline.isEmpty();
+  }
+
+  @Override
+  public int numPending() {
+    return pendingByDeadline.size();
+  }
+
+  synchronized long getVirtualStartTime() {
+    return Math.max(virtualFinishTime, systemVirtualTime.get());
+  }
+
+  private synchronized void charge(long cost) {
+    long startTime = getVirtualStartTime();
+    long currentSystemVirtualTime;
+    while ((currentSystemVirtualTime = systemVirtualTime.get()) < startTime) {
+      if (systemVirtualTime.compareAndSet(currentSystemVirtualTime, startTime)) {
+        break;
+      }
+    }
+    virtualFinishTime = startTime + Math.max((long) (cost / weight), 1L);
+  }
+
+  long getFirstDeadlineMs() {
+    PendingQuery first = pendingByDeadline.peek();
+    return first == null ? Long.MAX_VALUE : first.deadlineMs;
+  }
+
+  /**
+   * Compares priority of this group with respect to another scheduler group. The group with lower
+   * virtual start time has higher priority. If virtual start times are equal, the group with the earlier
+   * deadline of its first pending query wins, and then the group with the earliest waiting query (FCFS).
+   * @param rhs SchedulerGroupAccountant to compare with
+   * @return < 0 if lhs has lower priority than rhs
+   *     > 0 if lhs has higher priority than rhs
+   *     = 0 if lhs has same priority as rhs
+   */
+  @Override
+  public int compareTo(SchedulerGroupAccountant rhs) {
+    if (rhs == null) {
+      return 1;
+    }
+
+    if (this == rhs) {
+      return 0;
+    }
+
+    WeightedFairSchedulerGroup other = (WeightedFairSchedulerGroup) rhs;
+    long leftStartTime = getVirtualStartTime();
+    long rightStartTime = other.getVirtualStartTime();
+    if (leftStartTime < rightStartTime) {
+      return 1;
+    }
+    if (leftStartTime > rightStartTime) {
+      return -1;
+    }
+    long leftDeadlineMs = getFirstDeadlineMs();
+    long rightDeadlineMs = other.getFirstDeadlineMs();
+    if (leftDeadlineMs < rightDeadlineMs) {
+      return 1;
+    }
+    if (leftDeadlineMs > rightDeadlineMs) {
+      return -1;
+    }
+    return FCFSSchedulerGroup.compareTo(this, (SchedulerGroup) rhs);
+  }
+
+  public String toString() {
+    return String.format(" {%s:[%.2f,%d,%d,%d,%d,%d]},", name(),
+        weight,
+        getVirtualStartTime(),
+        numPending(),
+        numRunning(),
+        getThreadsInUse(),
+        totalReservedThreads());
+  }
+
+  private static class PendingQuery implements Comparable<PendingQuery> {
+    final SchedulerQueryContext query;
+    final long deadlineMs;
+    final long cost;
+    // Breaks deadline ties in arrival order
+    final long sequence;
+
+    PendingQuery(SchedulerQueryContext query, long deadlineMs, long cost, long sequence) {
+      this.query = query;
+      this.deadlineMs = deadlineMs;
+      this.cost = cost;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public int compareTo(PendingQuery o) {
+      if (deadlineMs != o.deadlineMs) {
+        return deadlineMs < o.deadlineMs ? -1 : 1;
+      }
+      return sequence < o.sequence ? -1 : (sequence == o.sequence ? 0 : 1);
+    }
+  }
+}
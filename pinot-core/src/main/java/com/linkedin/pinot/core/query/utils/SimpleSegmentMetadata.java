@@ -21,6 +21,7 @@ import com.linkedin.pinot.common.segment.SegmentMetadata;
 import com.linkedin.pinot.common.segment.StarTreeMetadata;
 import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
 import com.linkedin.pinot.startree.hll.HllConstants;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -199,6 +200,11 @@ public class SimpleSegmentMetadata implements SegmentMetadata {
     return null;
   }
 
+  @Override
+  public List<StarTreeMetadata> getStarTreeMetadataList() {
+    return Collections.emptyList();
+  }
+
   @Override
   public String getForwardIndexFileName(String column) {
     // TODO Auto-generated method stub
@@ -18,17 +18,20 @@ package com.linkedin.pinot.core.realtime.converter.stats;
 
 import com.linkedin.pinot.common.data.Schema;
 import com.linkedin.pinot.core.data.readers.RecordReader;
+import com.linkedin.pinot.core.io.reader.DataFileReader;
 import com.linkedin.pinot.core.realtime.converter.RealtimeSegmentRecordReader;
 import com.linkedin.pinot.core.realtime.impl.RealtimeSegmentImpl;
-import com.linkedin.pinot.core.segment.creator.SegmentCreationDataSource;
+import com.linkedin.pinot.core.segment.creator.ColumnarSegmentCreationDataSource;
 import com.linkedin.pinot.core.segment.creator.SegmentPreIndexStatsContainer;
 import com.linkedin.pinot.core.segment.creator.StatsCollectorConfig;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 
 
 /**
  * Segment creation data source that is based on an in-memory realtime segment.
+ * <p>The columnar access reads the forward indexes and dictionaries of the realtime segment directly.
  */
-public class RealtimeSegmentSegmentCreationDataSource implements SegmentCreationDataSource {
+public class RealtimeSegmentSegmentCreationDataSource implements ColumnarSegmentCreationDataSource {
   private final RealtimeSegmentImpl _realtimeSegment;
   private final RealtimeSegmentRecordReader _realtimeSegmentRecordReader;
   private final Schema _schema;
@@ -52,4 +55,19 @@ public class RealtimeSegmentSegmentCreationDataSource implements SegmentCreation
   public RecordReader getRecordReader() {
     return _realtimeSegmentRecordReader;
   }
+
+  @Override
+  public int[] getSortedDocIds() {
+    return _realtimeSegmentRecordReader.getSortedDocIdIterationOrder();
+  }
+
+  @Override
+  public DataFileReader getForwardIndex(String column) {
+    return _realtimeSegment.getForwardIndex(column);
+  }
+
+  @Override
+  public Dictionary getDictionary(String column) {
+    return _realtimeSegment.getDictionary(column);
+  }
 }
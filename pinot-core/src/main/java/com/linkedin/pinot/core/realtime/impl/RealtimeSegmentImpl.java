@@ -383,6 +383,22 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
         invertedIndexMap.get(columnName), dictionaryMap.get(columnName));
   }
 
+  /**
+   * Returns the forward index of the given column, which contains dictionary ids for dictionary-encoded columns.
+   * Called only by the realtime segment converter.
+   */
+  public DataFileReader getForwardIndex(String columnName) {
+    return columnIndexReaderWriterMap.get(columnName);
+  }
+
+  /**
+   * Returns the dictionary of the given column, or null if the column is not dictionary-encoded.
+   * Called only by the realtime segment converter.
+   */
+  public MutableDictionary getDictionary(String columnName) {
+    return dictionaryMap.get(columnName);
+  }
+
   @Override
   public String[] getColumnNames() {
     return dataSchema.getColumnNames().toArray(new String[0]);
@@ -758,6 +774,11 @@ public class RealtimeSegmentImpl implements RealtimeSegment {
     return null;
   }
 
+  @Override
+  public List<StarTree> getStarTrees() {
+    return Collections.emptyList();
+  }
+
   @Override
   public long getDiskSizeBytes() {
     // all the data is in memory..disk size is 0
@@ -96,7 +96,7 @@ public class KafkaJSONMessageDecoder implements KafkaMessageDecoder<byte[]> {
     return decode(Arrays.copyOfRange(payload, offset, offset + length), destination);
   }
 
-  private Object stringToDataType(FieldSpec spec, String inString) {
+  static Object stringToDataType(FieldSpec spec, String inString) {
     if (inString == null) {
       return AvroRecordReader.getDefaultNullValue(spec);
     }
@@ -0,0 +1,199 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.kafka;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.data.TimeFieldSpec;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.readers.AvroRecordReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonParseException;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.map.MappingJsonFactory;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * JSON message decoder which streams through the tokens of the message and only reads the fields in the schema, without
+ * building an intermediate JSON tree or copying the payload.
+ * <p>Produces the same rows as {@link KafkaJSONMessageDecoder}: missing or null fields get the default null value, and
+ * values that cannot be parsed as the column data type get the default null value. Numbers are formatted the same way
+ * as org.json (e.g. 1.50 becomes 1.5), and structured values (objects or arrays) are read as JSON text.
+ * <p>This class is not thread-safe.
+ */
+public class KafkaJSONStreamingMessageDecoder implements KafkaMessageDecoder<byte[]> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(KafkaJSONStreamingMessageDecoder.class);
+  // Mapping factory so that the structured values can be read as trees
+  private static final JsonFactory JSON_FACTORY = new MappingJsonFactory();
+
+  private FieldSpec[] _fieldSpecs;
+  private Map<String, Integer> _fieldIndexMap;
+  private boolean[] _fieldRead;
+  private final List<Object> _multiValues = new ArrayList<>();
+
+  @Override
+  public void init(Map<String, String> props, Schema indexingSchema, String kafkaTopicName) throws Exception {
+    List<FieldSpec> fieldSpecs = new ArrayList<>();
+    fieldSpecs.addAll(indexingSchema.getDimensionFieldSpecs());
+    fieldSpecs.addAll(indexingSchema.getMetricFieldSpecs());
+    TimeFieldSpec timeFieldSpec = indexingSchema.getTimeFieldSpec();
+    if (timeFieldSpec != null) {
+      fieldSpecs.add(timeFieldSpec);
+    }
+
+    int numFields = fieldSpecs.size();
+    _fieldSpecs = fieldSpecs.toArray(new FieldSpec[numFields]);
+    _fieldIndexMap = new HashMap<>(numFields);
+    for (int i = 0; i < numFields; i++) {
+      _fieldIndexMap.put(_fieldSpecs[i].getName(), i);
+    }
+    _fieldRead = new boolean[numFields];
+  }
+
+  @Override
+  public GenericRow decode(byte[] payload, GenericRow destination) {
+    return decode(payload, 0, payload.length, destination);
+  }
+
+  @Override
+  public GenericRow decode(byte[] payload, int offset, int length, GenericRow destination) {
+    try (JsonParser parser = JSON_FACTORY.createJsonParser(payload, offset, length)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new JsonParseException("Message is not a JSON object", parser.getCurrentLocation());
+      }
+
+      int numFields = _fieldSpecs.length;
+      for (int i = 0; i < numFields; i++) {
+        _fieldRead[i] = false;
+      }
+
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        Integer fieldIndex = _fieldIndexMap.get(parser.getCurrentName());
+        JsonToken token = parser.nextToken();
+        if (fieldIndex == null) {
+          // Unknown field
+          parser.skipChildren();
+          continue;
+        }
+        FieldSpec fieldSpec = _fieldSpecs[fieldIndex];
+        if (token == JsonToken.VALUE_NULL) {
+          // Null field gets the default null value below
+          _fieldRead[fieldIndex] = false;
+          continue;
+        }
+        destination.putField(fieldSpec.getName(), readFieldValue(parser, token, fieldSpec));
+        _fieldRead[fieldIndex] = true;
+      }
+
+      // Put the default null value for the missing or null fields
+      for (int i = 0; i < numFields; i++) {
+        if (!_fieldRead[i]) {
+          FieldSpec fieldSpec = _fieldSpecs[i];
+          destination.putField(fieldSpec.getName(), AvroRecordReader.getDefaultNullValue(fieldSpec));
+        }
+      }
+
+      return destination;
+    } catch (Exception e) {
+      LOGGER.error("Caught exception while decoding row, discarding row.", e);
+      return null;
+    }
+  }
+
+  private Object readFieldValue(JsonParser parser, JsonToken token, FieldSpec fieldSpec)
+      throws IOException, JSONException {
+    if (fieldSpec.isSingleValueField()) {
+      return readValue(parser, token, fieldSpec);
+    }
+
+    if (token != JsonToken.START_ARRAY) {
+      throw new JsonParseException("Value of multi-value column " + fieldSpec.getName() + " is not a JSON array",
+          parser.getCurrentLocation());
+    }
+    _multiValues.clear();
+    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+      _multiValues.add(readValue(parser, token, fieldSpec));
+    }
+    if (_multiValues.isEmpty()) {
+      return new Object[]{AvroRecordReader.getDefaultNullValue(fieldSpec)};
+    }
+    return _multiValues.toArray();
+  }
+
+  /**
+   * Read a scalar value, using the parsed number directly when it fits the column data type.
+   */
+  private Object readValue(JsonParser parser, JsonToken token, FieldSpec fieldSpec) throws IOException, JSONException {
+    switch (fieldSpec.getDataType()) {
+      case INT:
+        if (token == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT) {
+          return parser.getIntValue();
+        }
+        break;
+      case LONG:
+        if (token == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() != JsonParser.NumberType.BIG_INTEGER) {
+          return parser.getLongValue();
+        }
+        break;
+      case DOUBLE:
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+          return parser.getDoubleValue();
+        }
+        break;
+      default:
+        break;
+    }
+    return KafkaJSONMessageDecoder.stringToDataType(fieldSpec, readText(parser, token));
+  }
+
+  /**
+   * Read a value as the text returned by org.json for the same value, which parses numbers as Integer, Long or Double
+   * and renders structured values as JSON text.
+   */
+  private static String readText(JsonParser parser, JsonToken token) throws IOException, JSONException {
+    switch (token) {
+      case VALUE_NUMBER_INT:
+        switch (parser.getNumberType()) {
+          case INT:
+            return Integer.toString(parser.getIntValue());
+          case LONG:
+            return Long.toString(parser.getLongValue());
+          default:
+            return Double.toString(parser.getDoubleValue());
+        }
+      case VALUE_NUMBER_FLOAT:
+        return Double.toString(parser.getDoubleValue());
+      case START_OBJECT:
+        // Render with org.json to get the same key order and number format
+        return new JSONObject(parser.readValueAsTree().toString()).toString();
+      case START_ARRAY:
+        return new JSONArray(parser.readValueAsTree().toString()).toString();
+      default:
+        return parser.getText();
+    }
+  }
+}
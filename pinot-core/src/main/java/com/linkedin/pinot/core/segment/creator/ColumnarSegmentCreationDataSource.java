@@ -0,0 +1,45 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator;
+
+import com.linkedin.pinot.core.io.reader.DataFileReader;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import javax.annotation.Nullable;
+
+
+/**
+ * Data source used to build segments, which also provides columnar access to the data so that the segment can be built
+ * column by column without materializing the rows.
+ */
+public interface ColumnarSegmentCreationDataSource extends SegmentCreationDataSource {
+  /**
+   * Returns the document ids in the order they should be indexed, or null to index them in their natural order.
+   */
+  @Nullable
+  int[] getSortedDocIds();
+
+  /**
+   * Returns the forward index of the given column, which contains dictionary ids if the column has a dictionary, or
+   * raw values otherwise.
+   */
+  DataFileReader getForwardIndex(String column);
+
+  /**
+   * Returns the dictionary of the given column, or null if the column is not dictionary-encoded.
+   */
+  @Nullable
+  Dictionary getDictionary(String column);
+}
@@ -23,6 +23,8 @@ import com.linkedin.pinot.core.data.extractors.FieldExtractorFactory;
 import com.linkedin.pinot.core.data.extractors.PlainFieldExtractor;
 import com.linkedin.pinot.core.data.readers.RecordReader;
 import com.linkedin.pinot.core.segment.creator.impl.stats.SegmentPreIndexStatsCollectorImpl;
+import java.util.concurrent.ExecutorService;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,6 +35,7 @@ import org.slf4j.LoggerFactory;
  */
 public class RecordReaderSegmentCreationDataSource implements SegmentCreationDataSource {
   private static final Logger LOGGER = LoggerFactory.getLogger(RecordReaderSegmentCreationDataSource.class);
+  private static final int PARALLEL_STATS_BATCH_SIZE = 10000;
 
   public RecordReaderSegmentCreationDataSource(RecordReader recordReader) {
     _recordReader = recordReader;
@@ -50,18 +53,44 @@ public class RecordReaderSegmentCreationDataSource implements SegmentCreationDat
 
   @Override
   public SegmentPreIndexStatsCollector gatherStats(StatsCollectorConfig statsCollectorConfig) {
+    return gatherStats(statsCollectorConfig, null);
+  }
+
+  /**
+   * Gathers the stats, collecting different columns concurrently on the given executor if it is not null.
+   */
+  public SegmentPreIndexStatsCollector gatherStats(StatsCollectorConfig statsCollectorConfig,
+      @Nullable ExecutorService executorService) {
     try {
       PlainFieldExtractor fieldExtractor = FieldExtractorFactory.getPlainFieldExtractor(statsCollectorConfig.getSchema());
 
-      SegmentPreIndexStatsCollector collector = new SegmentPreIndexStatsCollectorImpl(statsCollectorConfig);
+      SegmentPreIndexStatsCollector collector =
+          new SegmentPreIndexStatsCollectorImpl(statsCollectorConfig, executorService);
       collector.init();
 
       // Gather the stats
-      GenericRow readRow = new GenericRow();
-      GenericRow transformedRow = new GenericRow();
-      while (_recordReader.hasNext()) {
-        transformedRow = readNextRowSanitized(readRow, transformedRow, fieldExtractor);
-        collector.collectRow(transformedRow);
+      if (executorService == null) {
+        GenericRow readRow = new GenericRow();
+        GenericRow transformedRow = new GenericRow();
+        while (_recordReader.hasNext()) {
+          transformedRow = readNextRowSanitized(readRow, transformedRow, fieldExtractor);
+          collector.collectRow(transformedRow);
+        }
+      } else {
+        // Read a batch of rows on this thread, then collect stats for all columns of the batch concurrently
+        GenericRow[] readRows = new GenericRow[PARALLEL_STATS_BATCH_SIZE];
+        GenericRow[] transformedRows = new GenericRow[PARALLEL_STATS_BATCH_SIZE];
+        while (_recordReader.hasNext()) {
+          int numRows = 0;
+          while (numRows < PARALLEL_STATS_BATCH_SIZE && _recordReader.hasNext()) {
+            if (readRows[numRows] == null) {
+              readRows[numRows] = new GenericRow();
+            }
+            transformedRows[numRows] = readNextRowSanitized(readRows[numRows], transformedRows[numRows], fieldExtractor);
+            numRows++;
+          }
+          collector.collectRows(transformedRows, numRows);
+        }
       }
 
       collector.build();
@@ -18,11 +18,12 @@ package com.linkedin.pinot.core.segment.creator;
 import com.linkedin.pinot.common.data.Schema;
 import com.linkedin.pinot.core.data.GenericRow;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.io.reader.DataFileReader;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import java.io.Closeable;
 import java.io.File;
-import java.io.IOException;
 import java.util.Map;
-import org.apache.commons.configuration.ConfigurationException;
+import javax.annotation.Nullable;
 
 
 /**
@@ -49,6 +50,27 @@ public interface SegmentCreator extends Closeable {
    */
   void indexRow(GenericRow row);
 
+  /**
+   * Adds the first <code>numRows</code> rows of the given batch to the index, as if {@link #indexRow(GenericRow)} was
+   * called for each of them. Different columns may be indexed concurrently.
+   *
+   * @param rows The batch of rows to index
+   * @param numRows The number of rows of the batch to index
+   */
+  void indexRows(GenericRow[] rows, int numRows) throws Exception;
+
+  /**
+   * Adds all the values of a column to the index, as an alternative to adding the rows one at a time.
+   *
+   * @param columnName The name of the column to index
+   * @param sortedDocIds The source document ids in the order to index them, or null to index them in their order
+   * @param forwardIndex The source forward index, which contains dictionary ids if the source dictionary is not null,
+   *                     or raw values otherwise
+   * @param dictionary The source dictionary, or null if the source column is not dictionary-encoded
+   */
+  void indexColumn(String columnName, @Nullable int[] sortedDocIds, DataFileReader forwardIndex,
+      @Nullable Dictionary dictionary);
+
   /**
    * Sets the name of the segment.
    *
@@ -59,8 +81,7 @@ public interface SegmentCreator extends Closeable {
   /**
    * Seals the segment, flushing it to disk.
    *
-   * @throws ConfigurationException
-   * @throws IOException
+   * @throws Exception
    */
-  void seal() throws ConfigurationException, IOException;
+  void seal() throws Exception;
 }
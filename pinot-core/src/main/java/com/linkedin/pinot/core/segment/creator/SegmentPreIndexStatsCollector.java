@@ -27,5 +27,11 @@ public interface SegmentPreIndexStatsCollector extends SegmentPreIndexStatsConta
 
   void collectRow(GenericRow row, boolean isAggregated) throws Exception;
 
+  /**
+   * Collect stats for the first <code>numRows</code> (non-aggregated) rows of the given batch. Different columns may be
+   * processed concurrently.
+   */
+  void collectRows(GenericRow[] rows, int numRows) throws Exception;
+
   void logStats();
 }
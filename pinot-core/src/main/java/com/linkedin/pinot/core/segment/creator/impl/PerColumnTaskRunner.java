@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator.impl;
+
+import com.linkedin.pinot.common.Utils;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import javax.annotation.Nullable;
+
+
+/**
+ * Runs a task for each column of a segment under construction, and waits for all of them to finish.
+ * <p>Stats collectors and index creators of different columns do not share any state, so when an executor is provided
+ * the columns are processed concurrently, otherwise they are processed one after another on the calling thread.
+ */
+public class PerColumnTaskRunner {
+
+  public interface ColumnTask {
+    void run(String column) throws Exception;
+  }
+
+  private final ExecutorService _executorService;
+
+  public PerColumnTaskRunner(@Nullable ExecutorService executorService) {
+    _executorService = executorService;
+  }
+
+  public boolean isParallel() {
+    return _executorService != null;
+  }
+
+  /**
+   * Runs the task for all the given columns. If any task fails, the first failure (in column order) is rethrown after
+   * all the tasks have finished.
+   */
+  public void run(Collection<String> columns, final ColumnTask task) throws Exception {
+    if (_executorService == null) {
+      for (String column : columns) {
+        task.run(column);
+      }
+      return;
+    }
+
+    List<Callable<Void>> callables = new ArrayList<>(columns.size());
+    for (final String column : columns) {
+      callables.add(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          task.run(column);
+          return null;
+        }
+      });
+    }
+    for (Future<Void> future : _executorService.invokeAll(callables)) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        Utils.rethrowException(e.getCause());
+      }
+    }
+  }
+}
@@ -25,6 +25,9 @@ import com.linkedin.pinot.common.data.StarTreeIndexSpec;
 import com.linkedin.pinot.core.data.GenericRow;
 import com.linkedin.pinot.core.data.partition.PartitionFunction;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.io.reader.DataFileReader;
+import com.linkedin.pinot.core.io.reader.SingleColumnMultiValueReader;
+import com.linkedin.pinot.core.io.reader.SingleColumnSingleValueReader;
 import com.linkedin.pinot.core.segment.creator.ColumnIndexCreationInfo;
 import com.linkedin.pinot.core.segment.creator.ForwardIndexCreator;
 import com.linkedin.pinot.core.segment.creator.InvertedIndexCreator;
@@ -38,17 +41,23 @@ import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueFixedByteRawI
 import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueSortedForwardIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueUnsortedForwardIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueVarByteRawIndexCreator;
+import com.linkedin.pinot.core.segment.creator.impl.inv.BitmapRangeIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.inv.OffHeapBitmapInvertedIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.inv.OnHeapBitmapInvertedIndexCreator;
+import com.linkedin.pinot.core.segment.creator.impl.inv.ZoneMapIndexCreator;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import com.linkedin.pinot.startree.hll.HllConfig;
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import javax.annotation.Nullable;
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.configuration.PropertiesConfiguration;
 import org.apache.commons.lang.StringEscapeUtils;
@@ -70,6 +79,9 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
   private Map<String, SegmentDictionaryCreator> _dictionaryCreatorMap = new HashMap<>();
   private Map<String, ForwardIndexCreator> _forwardIndexCreatorMap = new HashMap<>();
   private Map<String, InvertedIndexCreator> _invertedIndexCreatorMap = new HashMap<>();
+  private Map<String, BitmapRangeIndexCreator> _rangeIndexCreatorMap = new HashMap<>();
+  private Map<String, ZoneMapIndexCreator> _zoneMapIndexCreatorMap = new HashMap<>();
+  private final PerColumnTaskRunner _taskRunner;
   private String segmentName;
   private Schema schema;
   private File _indexDir;
@@ -83,6 +95,18 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
   private int docIdCounter;
   private char paddingCharacter;
 
+  public SegmentColumnarIndexCreator() {
+    this(null);
+  }
+
+  /**
+   * @param executorService Executor used to build the dictionaries and indexes of different columns concurrently, or
+   *                        null to build everything on the calling thread
+   */
+  public SegmentColumnarIndexCreator(@Nullable ExecutorService executorService) {
+    _taskRunner = new PerColumnTaskRunner(executorService);
+  }
+
   @Override
   public void init(SegmentGeneratorConfig segmentCreationSpec, SegmentIndexCreationInfo segmentIndexCreationInfo,
       Map<String, ColumnIndexCreationInfo> indexCreationInfoMap, Schema schema, File outDir) throws Exception {
@@ -113,30 +137,51 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
           "Cannot create inverted index for column: %s because it is not in schema", columnName);
       invertedIndexColumns.add(columnName);
     }
+    Set<String> rangeIndexColumns = new HashSet<>();
+    for (String columnName : config.getRangeIndexCreationColumns()) {
+      Preconditions.checkState(schema.hasColumn(columnName),
+          "Cannot create range index for column: %s because it is not in schema", columnName);
+      rangeIndexColumns.add(columnName);
+    }
+    Set<String> zoneMapIndexColumns = new HashSet<>();
+    for (String columnName : config.getZoneMapIndexCreationColumns()) {
+      Preconditions.checkState(schema.hasColumn(columnName),
+          "Cannot create zone map for column: %s because it is not in schema", columnName);
+      zoneMapIndexColumns.add(columnName);
+    }
 
-    // Initialize creators for dictionary, forward index and inverted index
-    boolean[] isSorted = new boolean[1];
+    // Initialize and build the dictionaries
     for (FieldSpec fieldSpec : fieldSpecs) {
       String columnName = fieldSpec.getName();
       ColumnIndexCreationInfo indexCreationInfo = indexCreationInfoMap.get(columnName);
       Preconditions.checkNotNull(indexCreationInfo, "Missing index creation info for column: %s", columnName);
 
       if (createDictionaryForColumn(indexCreationInfo, segmentCreationSpec, fieldSpec)) {
-        // Create dictionary-encoded index
-
         // TODO: hasNulls is always false, for null value we replace it with default null value
-        boolean hasNulls = indexCreationInfo.hasNulls();
-
-        // Initialize dictionary creator
-        SegmentDictionaryCreator dictionaryCreator =
-            new SegmentDictionaryCreator(hasNulls, indexCreationInfo.getSortedUniqueElementsArray(), fieldSpec,
-                _indexDir, paddingCharacter);
-        _dictionaryCreatorMap.put(columnName, dictionaryCreator);
-
+        _dictionaryCreatorMap.put(columnName,
+            new SegmentDictionaryCreator(indexCreationInfo.hasNulls(), indexCreationInfo.getSortedUniqueElementsArray(),
+                fieldSpec, _indexDir, paddingCharacter));
+      }
+    }
+    _taskRunner.run(_dictionaryCreatorMap.keySet(), new PerColumnTaskRunner.ColumnTask() {
+      @Override
+      public void run(String column) throws Exception {
         // This step might change the order of the dictionary, thus change whether all the values are sorted
-        isSorted[0] = indexCreationInfo.isSorted();
-        dictionaryCreator.build(isSorted);
+        ColumnIndexCreationInfo indexCreationInfo = SegmentColumnarIndexCreator.this.indexCreationInfoMap.get(column);
+        boolean[] isSorted = new boolean[]{indexCreationInfo.isSorted()};
+        _dictionaryCreatorMap.get(column).build(isSorted);
         indexCreationInfo.setSorted(isSorted[0]);
+      }
+    });
+
+    // Initialize creators for forward index, inverted index, range index and zone map
+    for (FieldSpec fieldSpec : fieldSpecs) {
+      String columnName = fieldSpec.getName();
+      ColumnIndexCreationInfo indexCreationInfo = indexCreationInfoMap.get(columnName);
+
+      if (_dictionaryCreatorMap.containsKey(columnName)) {
+        // Create dictionary-encoded index
+        boolean hasNulls = indexCreationInfo.hasNulls();
 
         // Initialize forward index creator
         int cardinality = indexCreationInfo.getDistinctValueCount();
@@ -166,6 +211,20 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
                     indexCreationInfo.getTotalNumberOfEntries()));
           }
         }
+
+        // Initialize range index creator (range index is not needed for sorted column)
+        if (rangeIndexColumns.contains(columnName) && fieldSpec.isSingleValueField()
+            && !indexCreationInfo.isSorted()) {
+          _rangeIndexCreatorMap.put(columnName,
+              new BitmapRangeIndexCreator(_indexDir, columnName, cardinality, totalDocs));
+        }
+
+        // Initialize zone map creator (zone map is not needed for sorted column)
+        if (zoneMapIndexColumns.contains(columnName) && !(fieldSpec.isSingleValueField()
+            && indexCreationInfo.isSorted())) {
+          _zoneMapIndexCreatorMap.put(columnName,
+              new ZoneMapIndexCreator(_indexDir, columnName, totalDocs, config.getZoneMapNumDocsPerBlock()));
+        }
       } else {
         // Create raw index
 
@@ -174,6 +233,10 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
             columnName);
         Preconditions.checkState(!invertedIndexColumns.contains(columnName),
             "Cannot create inverted index for raw index column: %s", columnName);
+        Preconditions.checkState(!rangeIndexColumns.contains(columnName),
+            "Cannot create range index for raw index column: %s", columnName);
+        Preconditions.checkState(!zoneMapIndexColumns.contains(columnName),
+            "Cannot create zone map for raw index column: %s", columnName);
 
         // Initialize forward index creator
         _forwardIndexCreatorMap.put(columnName,
@@ -215,36 +278,157 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
   @Override
   public void indexRow(GenericRow row) {
     for (String columnName : _forwardIndexCreatorMap.keySet()) {
-      Object columnValueToIndex = row.getValue(columnName);
-      if (columnValueToIndex == null) {
-        throw new RuntimeException("Null value for column:" + columnName);
+      indexValue(columnName, docIdCounter, row.getValue(columnName));
+    }
+    docIdCounter++;
+  }
+
+  @Override
+  public void indexRows(final GenericRow[] rows, final int numRows) throws Exception {
+    final int startDocId = docIdCounter;
+    _taskRunner.run(_forwardIndexCreatorMap.keySet(), new PerColumnTaskRunner.ColumnTask() {
+      @Override
+      public void run(String column) {
+        for (int i = 0; i < numRows; i++) {
+          indexValue(column, startDocId + i, rows[i].getValue(column));
+        }
       }
+    });
+    docIdCounter += numRows;
+  }
 
-      SegmentDictionaryCreator dictionaryCreator = _dictionaryCreatorMap.get(columnName);
-      if (schema.getFieldSpecFor(columnName).isSingleValueField()) {
+  /**
+   * Adds the value of a column for the given document to the index. Only touches the creators of that column.
+   */
+  private void indexValue(String columnName, int docId, Object columnValueToIndex) {
+    if (columnValueToIndex == null) {
+      throw new RuntimeException("Null value for column:" + columnName);
+    }
+
+    SegmentDictionaryCreator dictionaryCreator = _dictionaryCreatorMap.get(columnName);
+    if (schema.getFieldSpecFor(columnName).isSingleValueField()) {
+      if (dictionaryCreator != null) {
+        int dictionaryIndex = dictionaryCreator.indexOfSV(columnValueToIndex);
+        ((SingleValueForwardIndexCreator) _forwardIndexCreatorMap.get(columnName)).index(docId, dictionaryIndex);
+        // TODO : {refactor inverted index addition}
+        if (_invertedIndexCreatorMap.containsKey(columnName)) {
+          _invertedIndexCreatorMap.get(columnName).addSV(docId, dictionaryIndex);
+        }
+        BitmapRangeIndexCreator rangeIndexCreator = _rangeIndexCreatorMap.get(columnName);
+        if (rangeIndexCreator != null) {
+          rangeIndexCreator.addSV(docId, dictionaryIndex);
+        }
+        ZoneMapIndexCreator zoneMapIndexCreator = _zoneMapIndexCreatorMap.get(columnName);
+        if (zoneMapIndexCreator != null) {
+          zoneMapIndexCreator.addSV(docId, dictionaryIndex);
+        }
+      } else {
+        ((SingleValueRawIndexCreator) _forwardIndexCreatorMap.get(columnName)).index(docId, columnValueToIndex);
+      }
+    } else {
+      int[] dictionaryIndex = dictionaryCreator.indexOfMV(columnValueToIndex);
+      ((MultiValueForwardIndexCreator) _forwardIndexCreatorMap.get(columnName)).index(docId, dictionaryIndex);
+
+      // TODO : {refactor inverted index addition}
+      if (_invertedIndexCreatorMap.containsKey(columnName)) {
+        _invertedIndexCreatorMap.get(columnName).addMV(docId, dictionaryIndex);
+      }
+      ZoneMapIndexCreator zoneMapIndexCreator = _zoneMapIndexCreatorMap.get(columnName);
+      if (zoneMapIndexCreator != null) {
+        zoneMapIndexCreator.addMV(docId, dictionaryIndex);
+      }
+    }
+  }
+
+  @Override
+  public void indexColumn(String columnName, @Nullable int[] sortedDocIds, DataFileReader forwardIndex,
+      @Nullable Dictionary dictionary) {
+    FieldSpec fieldSpec = schema.getFieldSpecFor(columnName);
+    SegmentDictionaryCreator dictionaryCreator = _dictionaryCreatorMap.get(columnName);
+    ForwardIndexCreator forwardIndexCreator = _forwardIndexCreatorMap.get(columnName);
+    InvertedIndexCreator invertedIndexCreator = _invertedIndexCreatorMap.get(columnName);
+    BitmapRangeIndexCreator rangeIndexCreator = _rangeIndexCreatorMap.get(columnName);
+    ZoneMapIndexCreator zoneMapIndexCreator = _zoneMapIndexCreatorMap.get(columnName);
+
+    // Map the dictionary ids of the source dictionary to the dictionary ids of the segment dictionary, so that each
+    // distinct value is looked up only once
+    int[] dictIdMap = null;
+    if (dictionaryCreator != null && dictionary != null) {
+      int cardinality = dictionary.length();
+      dictIdMap = new int[cardinality];
+      for (int i = 0; i < cardinality; i++) {
+        dictIdMap[i] = dictionaryCreator.indexOfSV(dictionary.get(i));
+      }
+    }
+
+    if (fieldSpec.isSingleValueField()) {
+      SingleColumnSingleValueReader reader = (SingleColumnSingleValueReader) forwardIndex;
+      for (int docId = 0; docId < totalDocs; docId++) {
+        int sourceDocId = sortedDocIds != null ? sortedDocIds[docId] : docId;
         if (dictionaryCreator != null) {
-          int dictionaryIndex = dictionaryCreator.indexOfSV(columnValueToIndex);
-          ((SingleValueForwardIndexCreator) _forwardIndexCreatorMap.get(columnName)).index(docIdCounter,
-              dictionaryIndex);
-          // TODO : {refactor inverted index addition}
-          if (_invertedIndexCreatorMap.containsKey(columnName)) {
-            _invertedIndexCreatorMap.get(columnName).addSV(docIdCounter, dictionaryIndex);
+          int dictId;
+          if (dictIdMap != null) {
+            dictId = dictIdMap[reader.getInt(sourceDocId)];
+          } else {
+            dictId = dictionaryCreator.indexOfSV(readRawValue(reader, sourceDocId, fieldSpec.getDataType()));
+          }
+          ((SingleValueForwardIndexCreator) forwardIndexCreator).index(docId, dictId);
+          if (invertedIndexCreator != null) {
+            invertedIndexCreator.addSV(docId, dictId);
+          }
+          if (rangeIndexCreator != null) {
+            rangeIndexCreator.addSV(docId, dictId);
+          }
+          if (zoneMapIndexCreator != null) {
+            zoneMapIndexCreator.addSV(docId, dictId);
           }
         } else {
-          ((SingleValueRawIndexCreator) _forwardIndexCreatorMap.get(columnName)).index(docIdCounter,
-              columnValueToIndex);
+          Object value;
+          if (dictionary != null) {
+            value = dictionary.get(reader.getInt(sourceDocId));
+          } else {
+            value = readRawValue(reader, sourceDocId, fieldSpec.getDataType());
+          }
+          ((SingleValueRawIndexCreator) forwardIndexCreator).index(docId, value);
         }
-      } else {
-        int[] dictionaryIndex = dictionaryCreator.indexOfMV(columnValueToIndex);
-        ((MultiValueForwardIndexCreator) _forwardIndexCreatorMap.get(columnName)).index(docIdCounter, dictionaryIndex);
-
-        // TODO : {refactor inverted index addition}
-        if (_invertedIndexCreatorMap.containsKey(columnName)) {
-          _invertedIndexCreatorMap.get(columnName).addMV(docIdCounter, dictionaryIndex);
+      }
+    } else {
+      // Multi-value column is always dictionary-encoded
+      Preconditions.checkState(dictIdMap != null, "Cannot index multi-value column: %s without dictionary",
+          columnName);
+      SingleColumnMultiValueReader reader = (SingleColumnMultiValueReader) forwardIndex;
+      int[] sourceDictIds = new int[indexCreationInfoMap.get(columnName).getMaxNumberOfMultiValueElements()];
+      for (int docId = 0; docId < totalDocs; docId++) {
+        int sourceDocId = sortedDocIds != null ? sortedDocIds[docId] : docId;
+        int numValues = reader.getIntArray(sourceDocId, sourceDictIds);
+        int[] dictIds = new int[numValues];
+        for (int i = 0; i < numValues; i++) {
+          dictIds[i] = dictIdMap[sourceDictIds[i]];
+        }
+        ((MultiValueForwardIndexCreator) forwardIndexCreator).index(docId, dictIds);
+        if (invertedIndexCreator != null) {
+          invertedIndexCreator.addMV(docId, dictIds);
+        }
+        if (zoneMapIndexCreator != null) {
+          zoneMapIndexCreator.addMV(docId, dictIds);
         }
       }
     }
-    docIdCounter++;
+  }
+
+  private static Object readRawValue(SingleColumnSingleValueReader reader, int docId, FieldSpec.DataType dataType) {
+    switch (dataType) {
+      case INT:
+        return reader.getInt(docId);
+      case LONG:
+        return reader.getLong(docId);
+      case FLOAT:
+        return reader.getFloat(docId);
+      case DOUBLE:
+        return reader.getDouble(docId);
+      default:
+        throw new UnsupportedOperationException("Unsupported data type: " + dataType + " for raw value");
+    }
   }
 
   @Override
@@ -253,10 +437,25 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
   }
 
   @Override
-  public void seal() throws ConfigurationException, IOException {
-    for (InvertedIndexCreator invertedIndexCreator : _invertedIndexCreatorMap.values()) {
-      invertedIndexCreator.seal();
-    }
+  public void seal() throws Exception {
+    _taskRunner.run(_invertedIndexCreatorMap.keySet(), new PerColumnTaskRunner.ColumnTask() {
+      @Override
+      public void run(String column) throws Exception {
+        _invertedIndexCreatorMap.get(column).seal();
+      }
+    });
+    _taskRunner.run(_rangeIndexCreatorMap.keySet(), new PerColumnTaskRunner.ColumnTask() {
+      @Override
+      public void run(String column) throws Exception {
+        _rangeIndexCreatorMap.get(column).seal();
+      }
+    });
+    _taskRunner.run(_zoneMapIndexCreatorMap.keySet(), new PerColumnTaskRunner.ColumnTask() {
+      @Override
+      public void run(String column) throws Exception {
+        _zoneMapIndexCreatorMap.get(column).seal();
+      }
+    });
     writeMetadata();
   }
 
@@ -285,14 +484,15 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
 
     StarTreeIndexSpec starTreeIndexSpec = config.getStarTreeIndexSpec();
     if (starTreeIndexSpec != null) {
-      properties.setProperty(STAR_TREE_SPLIT_ORDER, starTreeIndexSpec.getDimensionsSplitOrder());
-      properties.setProperty(STAR_TREE_MAX_LEAF_RECORDS, starTreeIndexSpec.getMaxLeafRecords());
-      properties.setProperty(STAR_TREE_SKIP_STAR_NODE_CREATION_FOR_DIMENSIONS,
-          starTreeIndexSpec.getSkipStarNodeCreationForDimensions());
-      properties.setProperty(STAR_TREE_SKIP_MATERIALIZATION_CARDINALITY,
-          starTreeIndexSpec.getSkipMaterializationCardinalityThreshold());
-      properties.setProperty(STAR_TREE_SKIP_MATERIALIZATION_FOR_DIMENSIONS,
-          starTreeIndexSpec.getSkipMaterializationForDimensions());
+      addStarTreeIndexSpec(properties, 0, starTreeIndexSpec);
+      List<StarTreeIndexSpec> additionalStarTreeIndexSpecs = config.getAdditionalStarTreeIndexSpecs();
+      if (config.isEnableStarTreeIndex() && !additionalStarTreeIndexSpecs.isEmpty()) {
+        int numStarTrees = 1 + additionalStarTreeIndexSpecs.size();
+        properties.setProperty(STAR_TREE_COUNT, numStarTrees);
+        for (int i = 1; i < numStarTrees; i++) {
+          addStarTreeIndexSpec(properties, i, additionalStarTreeIndexSpecs.get(i - 1));
+        }
+      }
     }
 
     HllConfig hllConfig = config.getHllConfig();
@@ -351,6 +551,27 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
     properties.save();
   }
 
+  /**
+   * Helper method to add the star tree index spec for the star tree with the given id into the segment metadata.
+   */
+  private static void addStarTreeIndexSpec(PropertiesConfiguration properties, int starTreeId,
+      StarTreeIndexSpec starTreeIndexSpec) {
+    properties.setProperty(getKeyFor(starTreeId, STAR_TREE_SPLIT_ORDER), starTreeIndexSpec.getDimensionsSplitOrder());
+    properties.setProperty(getKeyFor(starTreeId, STAR_TREE_MAX_LEAF_RECORDS), starTreeIndexSpec.getMaxLeafRecords());
+    properties.setProperty(getKeyFor(starTreeId, STAR_TREE_SKIP_STAR_NODE_CREATION_FOR_DIMENSIONS),
+        starTreeIndexSpec.getSkipStarNodeCreationForDimensions());
+    properties.setProperty(getKeyFor(starTreeId, STAR_TREE_SKIP_MATERIALIZATION_CARDINALITY),
+        starTreeIndexSpec.getSkipMaterializationCardinalityThreshold());
+    properties.setProperty(getKeyFor(starTreeId, STAR_TREE_SKIP_MATERIALIZATION_FOR_DIMENSIONS),
+        starTreeIndexSpec.getSkipMaterializationForDimensions());
+    properties.setProperty(getKeyFor(starTreeId, STAR_TREE_AGGREGATED_METRICS),
+        starTreeIndexSpec.getAggregatedMetrics());
+    properties.setProperty(getKeyFor(starTreeId, STAR_TREE_PERCENTILE_EST_COLUMNS),
+        starTreeIndexSpec.getPercentileEstColumns());
+    properties.setProperty(getKeyFor(starTreeId, STAR_TREE_DISTINCT_COUNT_HLL_COLUMNS),
+        starTreeIndexSpec.getDistinctCountHllColumns());
+  }
+
   public static void addColumnMetadataInfo(PropertiesConfiguration properties, String column,
       ColumnIndexCreationInfo columnIndexCreationInfo, int totalDocs, int totalRawDocs, int totalAggDocs,
       FieldSpec fieldSpec, boolean hasDictionary, int dictionaryElementSize, boolean hasInvertedIndex,
@@ -501,5 +722,11 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
     for (InvertedIndexCreator invertedIndexCreator : _invertedIndexCreatorMap.values()) {
       invertedIndexCreator.close();
     }
+    for (BitmapRangeIndexCreator rangeIndexCreator : _rangeIndexCreatorMap.values()) {
+      rangeIndexCreator.close();
+    }
+    for (ZoneMapIndexCreator zoneMapIndexCreator : _zoneMapIndexCreatorMap.values()) {
+      zoneMapIndexCreator.close();
+    }
   }
 }
@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.core.segment.creator.impl;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.data.MetricFieldSpec;
 import com.linkedin.pinot.common.data.Schema;
@@ -28,6 +29,7 @@ import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
 import com.linkedin.pinot.core.segment.creator.ColumnIndexCreationInfo;
 import com.linkedin.pinot.core.segment.creator.ColumnStatistics;
+import com.linkedin.pinot.core.segment.creator.ColumnarSegmentCreationDataSource;
 import com.linkedin.pinot.core.segment.creator.ForwardIndexType;
 import com.linkedin.pinot.core.segment.creator.InvertedIndexType;
 import com.linkedin.pinot.core.segment.creator.RecordReaderSegmentCreationDataSource;
@@ -50,11 +52,16 @@ import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.apache.commons.io.FileUtils;
 import org.joda.time.DateTime;
 import org.joda.time.format.DateTimeFormat;
@@ -70,8 +77,11 @@ import org.slf4j.LoggerFactory;
 public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDriver {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(SegmentIndexCreationDriverImpl.class);
+  // Number of rows read before indexing them column by column in parallel mode
+  private static final int PARALLEL_INDEXING_BATCH_SIZE = 10000;
 
   private SegmentGeneratorConfig config;
+  private SegmentCreationDataSource dataSource;
   private RecordReader recordReader;
   private SegmentPreIndexStatsContainer segmentStats;
   private Map<String, ColumnIndexCreationInfo> indexCreationInfoMap;
@@ -94,6 +104,8 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
   private boolean createHllIndex = false;
 
   private File starTreeTempDir;
+  // Executor used to build different columns concurrently, null if the segment is built on a single thread
+  private ExecutorService executorService;
 
   @Override
   public void init(SegmentGeneratorConfig config) throws Exception {
@@ -103,6 +115,7 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
   public void init(SegmentGeneratorConfig config, SegmentCreationDataSource dataSource) throws Exception {
     this.config = config;
     this.createStarTree = config.isEnableStarTreeIndex();
+    this.dataSource = dataSource;
     recordReader = dataSource.getRecordReader();
     dataSchema = recordReader.getSchema();
 
@@ -124,9 +137,23 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
 
     extractor = FieldExtractorFactory.getPlainFieldExtractor(dataSchema);
 
+    int numIndexingThreads = config.getNumIndexingThreads();
+    if (numIndexingThreads > 1) {
+      LOGGER.info("Building segment with {} threads", numIndexingThreads);
+      executorService = Executors.newFixedThreadPool(numIndexingThreads,
+          new ThreadFactoryBuilder().setNameFormat("segment-creation-%d").setDaemon(true).build());
+    }
+
     // Initialize stats collection
     if (!createStarTree) { // For star tree, the stats are gathered in buildStarTree()
-      segmentStats = dataSource.gatherStats(new StatsCollectorConfig(dataSchema, config.getSegmentPartitionConfig()));
+      StatsCollectorConfig statsCollectorConfig =
+          new StatsCollectorConfig(dataSchema, config.getSegmentPartitionConfig());
+      if (executorService != null && dataSource instanceof RecordReaderSegmentCreationDataSource) {
+        segmentStats = ((RecordReaderSegmentCreationDataSource) dataSource).gatherStats(statsCollectorConfig,
+            executorService);
+      } else {
+        segmentStats = dataSource.gatherStats(statsCollectorConfig);
+      }
       totalDocs = segmentStats.getTotalDocCount();
       totalRawDocs = segmentStats.getRawDocCount();
       totalAggDocs = segmentStats.getAggregatedDocCount();
@@ -137,7 +164,7 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
     indexCreationInfoMap = new HashMap<>();
 
     // Check if has star tree
-    indexCreator = new SegmentColumnarIndexCreator();
+    indexCreator = new SegmentColumnarIndexCreator(executorService);
 
     // Ensure that the output directory exists
     final File indexDir = new File(config.getOutDir());
@@ -188,18 +215,25 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
 
   @Override
   public void build() throws Exception {
-    if (createStarTree) {
-      // TODO: add on-heap star-tree builder
-      buildStarTree();
-    } else {
-      buildRaw();
+    try {
+      if (createStarTree) {
+        // TODO: add on-heap star-tree builder
+        buildStarTree();
+      } else {
+        buildRaw();
+      }
+    } finally {
+      if (executorService != null) {
+        executorService.shutdownNow();
+      }
     }
   }
 
   private void buildStarTree() throws Exception {
     // Create stats collector
     StatsCollectorConfig statsCollectorConfig = new StatsCollectorConfig(dataSchema, config.getSegmentPartitionConfig());
-    SegmentPreIndexStatsCollectorImpl statsCollector = new SegmentPreIndexStatsCollectorImpl(statsCollectorConfig);
+    SegmentPreIndexStatsCollectorImpl statsCollector =
+        new SegmentPreIndexStatsCollectorImpl(statsCollectorConfig, executorService);
     statsCollector.init();
     segmentStats = statsCollector;
 
@@ -211,23 +245,22 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
       starTreeIndexSpec.setMaxLeafRecords(StarTreeIndexSpec.DEFAULT_MAX_LEAF_RECORDS);
       config.setStarTreeIndexSpec(starTreeIndexSpec);
     }
-    //create star builder config from startreeindexspec. Merge these two in one later.
-    StarTreeBuilderConfig starTreeBuilderConfig = new StarTreeBuilderConfig();
-    starTreeBuilderConfig.setOutDir(starTreeTempDir);
-    starTreeBuilderConfig.setSchema(dataSchema);
-    starTreeBuilderConfig.setDimensionsSplitOrder(starTreeIndexSpec.getDimensionsSplitOrder());
-    starTreeBuilderConfig.setSkipStarNodeCreationDimensions(
-        starTreeIndexSpec.getSkipStarNodeCreationForDimensions());
-    starTreeBuilderConfig.setSkipMaterializationDimensions(starTreeIndexSpec.getSkipMaterializationForDimensions());
-    starTreeBuilderConfig.setSkipMaterializationCardinalityThreshold(
-        starTreeIndexSpec.getSkipMaterializationCardinalityThreshold());
-    starTreeBuilderConfig.setMaxNumLeafRecords(starTreeIndexSpec.getMaxLeafRecords());
-    starTreeBuilderConfig.setExcludeSkipMaterializationDimensionsForStarTreeIndex(
-        starTreeIndexSpec.isExcludeSkipMaterializationDimensionsForStarTreeIndex());
+    List<StarTreeIndexSpec> starTreeIndexSpecs = new ArrayList<>();
+    starTreeIndexSpecs.add(starTreeIndexSpec);
+    starTreeIndexSpecs.addAll(config.getAdditionalStarTreeIndexSpecs());
+    int numStarTrees = starTreeIndexSpecs.size();
+
+    //initialize star tree builders, one for each star tree
+    List<StarTreeBuilder> starTreeBuilders = new ArrayList<>(numStarTrees);
+    try {
+      for (int i = 0; i < numStarTrees; i++) {
+        File outDir = i == 0 ? starTreeTempDir
+            : new File(config.getOutDir(), com.linkedin.pinot.common.utils.FileUtils.getRandomFileName());
+        StarTreeBuilder starTreeBuilder = new OffHeapStarTreeBuilder();
+        starTreeBuilders.add(starTreeBuilder);
+        starTreeBuilder.init(getStarTreeBuilderConfig(starTreeIndexSpecs.get(i), outDir));
+      }
 
-    //initialize star tree builder
-    try (StarTreeBuilder starTreeBuilder = new OffHeapStarTreeBuilder()) {
-      starTreeBuilder.init(starTreeBuilderConfig);
       //build star tree along with collecting stats
       recordReader.rewind();
       LOGGER.info("Start append raw data to star tree builder!");
@@ -239,26 +272,44 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
         transformedRow = readNextRowSanitized(readRow, transformedRow);
         //must be called after previous step since type conversion for derived values is unnecessary
         populateDefaultDerivedColumnValues(transformedRow);
-        starTreeBuilder.append(transformedRow);
+        for (StarTreeBuilder builder : starTreeBuilders) {
+          builder.append(transformedRow);
+        }
         statsCollector.collectRow(transformedRow);
         totalRawDocs++;
         totalDocs++;
       }
       recordReader.close();
-      LOGGER.info("Start building star tree!");
-      starTreeBuilder.build();
+      LOGGER.info("Start building {} star tree(s)!", numStarTrees);
+      for (StarTreeBuilder builder : starTreeBuilders) {
+        builder.build();
+      }
       LOGGER.info("Finished building star tree!");
       long starTreeBuildFinishTime = System.currentTimeMillis();
       //build stats
       // Count the number of documents and gather per-column statistics
+      // The documents of the additional star trees (including their own copy of the sorted raw documents) are appended
+      // after the aggregated documents of the first star tree
       LOGGER.info("Start building StatsCollector!");
-      Iterator<GenericRow> aggregatedRowsIterator = starTreeBuilder.iterator(starTreeBuilder.getTotalRawDocumentCount(),
-          starTreeBuilder.getTotalRawDocumentCount() + starTreeBuilder.getTotalAggregateDocumentCount());
-      while (aggregatedRowsIterator.hasNext()) {
-        GenericRow genericRow = aggregatedRowsIterator.next();
-        statsCollector.collectRow(genericRow, true /* isAggregated */);
-        totalAggDocs++;
-        totalDocs++;
+      int[] docIdOffsets = new int[numStarTrees];
+      for (int i = 0; i < numStarTrees; i++) {
+        StarTreeBuilder builder = starTreeBuilders.get(i);
+        int startDocId;
+        if (i == 0) {
+          // The first star tree starts at the beginning of the segment, and its raw documents are already collected
+          startDocId = builder.getTotalRawDocumentCount();
+        } else {
+          docIdOffsets[i] = totalDocs;
+          startDocId = 0;
+        }
+        Iterator<GenericRow> aggregatedRowsIterator = builder.iterator(startDocId,
+            builder.getTotalRawDocumentCount() + builder.getTotalAggregateDocumentCount());
+        while (aggregatedRowsIterator.hasNext()) {
+          GenericRow genericRow = aggregatedRowsIterator.next();
+          statsCollector.collectRow(genericRow, true /* isAggregated */);
+          totalAggDocs++;
+          totalDocs++;
+        }
       }
       statsCollector.build();
       buildIndexCreationInfo();
@@ -270,25 +321,43 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
         indexCreator.init(config, segmentIndexCreationInfo, indexCreationInfoMap, dataSchema, tempIndexDir);
 
         //iterate over the data again,
-        Iterator<GenericRow> allRowsIterator = starTreeBuilder.iterator(0,
-            starTreeBuilder.getTotalRawDocumentCount() + starTreeBuilder.getTotalAggregateDocumentCount());
-
-        while (allRowsIterator.hasNext()) {
-          GenericRow genericRow = allRowsIterator.next();
-          indexCreator.indexRow(genericRow);
+        for (StarTreeBuilder builder : starTreeBuilders) {
+          Iterator<GenericRow> allRowsIterator =
+              builder.iterator(0, builder.getTotalRawDocumentCount() + builder.getTotalAggregateDocumentCount());
+          while (allRowsIterator.hasNext()) {
+            GenericRow genericRow = allRowsIterator.next();
+            indexCreator.indexRow(genericRow);
+          }
         }
       } catch (Exception e) {
         indexCreator.close();
         throw e;
       }
 
-      // Serialize the star tree into a file
-      starTreeBuilder.serializeTree(new File(tempIndexDir, V1Constants.STAR_TREE_INDEX_FILE), indexCreationInfoMap);
+      // Serialize the star trees and their pre-aggregated quantile digests and hyper log logs into files
+      for (int i = 0; i < numStarTrees; i++) {
+        StarTreeBuilder builder = starTreeBuilders.get(i);
+        builder.serializeTree(new File(tempIndexDir, V1Constants.getStarTreeIndexFileName(i)), indexCreationInfoMap,
+            docIdOffsets[i]);
+        Set<String> percentileEstColumns = starTreeIndexSpecs.get(i).getPercentileEstColumns();
+        if (percentileEstColumns != null && !percentileEstColumns.isEmpty()) {
+          builder.serializeQuantileDigests(
+              new File(tempIndexDir, V1Constants.getStarTreeQuantileDigestFileName(i)), docIdOffsets[i]);
+        }
+        Set<String> distinctCountHllColumns = starTreeIndexSpecs.get(i).getDistinctCountHllColumns();
+        if (distinctCountHllColumns != null && !distinctCountHllColumns.isEmpty()) {
+          builder.serializeHlls(new File(tempIndexDir, V1Constants.getStarTreeHllFileName(i)), docIdOffsets[i]);
+        }
+      }
 
       // Update the dimensions split order and skip materialization dimensions spec so that then can be written into
       // the segment metadata
-      starTreeIndexSpec.setDimensionsSplitOrder(starTreeBuilder.getDimensionsSplitOrder());
-      starTreeIndexSpec.setSkipMaterializationForDimensions(starTreeBuilder.getSkipMaterializationDimensions());
+      for (int i = 0; i < numStarTrees; i++) {
+        StarTreeBuilder builder = starTreeBuilders.get(i);
+        StarTreeIndexSpec spec = starTreeIndexSpecs.get(i);
+        spec.setDimensionsSplitOrder(builder.getDimensionsSplitOrder());
+        spec.setSkipMaterializationForDimensions(builder.getSkipMaterializationDimensions());
+      }
 
       //post creation
       handlePostCreation();
@@ -296,9 +365,36 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
       LOGGER.info("Total time:{} \n star tree build time:{} \n stat collection time:{} \n column index build time:{}",
           (end - start), (starTreeBuildFinishTime - start), statCollectionFinishTime - starTreeBuildFinishTime,
           end - statCollectionFinishTime);
+    } finally {
+      for (StarTreeBuilder starTreeBuilder : starTreeBuilders) {
+        starTreeBuilder.close();
+      }
     }
   }
 
+  /**
+   * Helper method to create the star tree builder config from the star tree index spec.
+   */
+  private StarTreeBuilderConfig getStarTreeBuilderConfig(StarTreeIndexSpec starTreeIndexSpec, File outDir) {
+    //create star builder config from startreeindexspec. Merge these two in one later.
+    StarTreeBuilderConfig starTreeBuilderConfig = new StarTreeBuilderConfig();
+    starTreeBuilderConfig.setOutDir(outDir);
+    starTreeBuilderConfig.setSchema(dataSchema);
+    starTreeBuilderConfig.setDimensionsSplitOrder(starTreeIndexSpec.getDimensionsSplitOrder());
+    starTreeBuilderConfig.setSkipStarNodeCreationDimensions(
+        starTreeIndexSpec.getSkipStarNodeCreationForDimensions());
+    starTreeBuilderConfig.setSkipMaterializationDimensions(starTreeIndexSpec.getSkipMaterializationForDimensions());
+    starTreeBuilderConfig.setSkipMaterializationCardinalityThreshold(
+        starTreeIndexSpec.getSkipMaterializationCardinalityThreshold());
+    starTreeBuilderConfig.setMaxNumLeafRecords(starTreeIndexSpec.getMaxLeafRecords());
+    starTreeBuilderConfig.setExcludeSkipMaterializationDimensionsForStarTreeIndex(
+        starTreeIndexSpec.isExcludeSkipMaterializationDimensionsForStarTreeIndex());
+    starTreeBuilderConfig.setAggregatedMetrics(starTreeIndexSpec.getAggregatedMetrics());
+    starTreeBuilderConfig.setPercentileEstColumns(starTreeIndexSpec.getPercentileEstColumns());
+    starTreeBuilderConfig.setDistinctCountHllColumns(starTreeIndexSpec.getDistinctCountHllColumns());
+    return starTreeBuilderConfig;
+  }
+
   private void buildRaw()
       throws Exception {
     // Count the number of documents and gather per-column statistics
@@ -312,18 +408,55 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
       indexCreator.init(config, segmentIndexCreationInfo, indexCreationInfoMap, dataSchema, tempIndexDir);
 
       // Build the index
-      recordReader.rewind();
-      LOGGER.info("Start building IndexCreator!");
-      GenericRow readRow = new GenericRow();
-      GenericRow transformedRow = new GenericRow();
-      while (recordReader.hasNext()) {
+      if (dataSource instanceof ColumnarSegmentCreationDataSource) {
+        // Index column by column directly from the data source, without materializing the rows
+        LOGGER.info("Start building IndexCreator column by column!");
+        final ColumnarSegmentCreationDataSource columnarDataSource = (ColumnarSegmentCreationDataSource) dataSource;
+        final int[] sortedDocIds = columnarDataSource.getSortedDocIds();
         long start = System.currentTimeMillis();
-        transformedRow = readNextRowSanitized(readRow, transformedRow);
-        long stop = System.currentTimeMillis();
-        indexCreator.indexRow(transformedRow);
-        long stop1 = System.currentTimeMillis();
-        totalRecordReadTime += (stop - start);
-        totalIndexTime += (stop1 - stop);
+        new PerColumnTaskRunner(executorService).run(dataSchema.getColumnNames(), new PerColumnTaskRunner.ColumnTask() {
+          @Override
+          public void run(String column) {
+            indexCreator.indexColumn(column, sortedDocIds, columnarDataSource.getForwardIndex(column),
+                columnarDataSource.getDictionary(column));
+          }
+        });
+        totalIndexTime += System.currentTimeMillis() - start;
+      } else if (executorService != null) {
+        recordReader.rewind();
+        LOGGER.info("Start building IndexCreator in batches of {} rows!", PARALLEL_INDEXING_BATCH_SIZE);
+        GenericRow[] readRows = new GenericRow[PARALLEL_INDEXING_BATCH_SIZE];
+        GenericRow[] transformedRows = new GenericRow[PARALLEL_INDEXING_BATCH_SIZE];
+        while (recordReader.hasNext()) {
+          long start = System.currentTimeMillis();
+          int numRows = 0;
+          while (numRows < PARALLEL_INDEXING_BATCH_SIZE && recordReader.hasNext()) {
+            if (readRows[numRows] == null) {
+              readRows[numRows] = new GenericRow();
+            }
+            transformedRows[numRows] = readNextRowSanitized(readRows[numRows], transformedRows[numRows]);
+            numRows++;
+          }
+          long stop = System.currentTimeMillis();
+          indexCreator.indexRows(transformedRows, numRows);
+          long stop1 = System.currentTimeMillis();
+          totalRecordReadTime += (stop - start);
+          totalIndexTime += (stop1 - stop);
+        }
+      } else {
+        recordReader.rewind();
+        LOGGER.info("Start building IndexCreator!");
+        GenericRow readRow = new GenericRow();
+        GenericRow transformedRow = new GenericRow();
+        while (recordReader.hasNext()) {
+          long start = System.currentTimeMillis();
+          transformedRow = readNextRowSanitized(readRow, transformedRow);
+          long stop = System.currentTimeMillis();
+          indexCreator.indexRow(transformedRow);
+          long stop1 = System.currentTimeMillis();
+          totalRecordReadTime += (stop - start);
+          totalIndexTime += (stop1 - stop);
+        }
       }
     } catch (Exception e) {
       indexCreator.close();
@@ -27,6 +27,11 @@ public class V1Constants {
   public static final String SEGMENT_CREATION_META = "creation.meta";
   public static final String STAR_TREE_INDEX_DIR = "star-tree";
   public static final String STAR_TREE_INDEX_FILE = "star-tree.bin";
+  public static final String ADDITIONAL_STAR_TREE_INDEX_FILE_FORMAT = "star-tree.%d.bin";
+  public static final String STAR_TREE_QUANTILE_DIGEST_FILE = "star-tree.qdigest.bin";
+  public static final String ADDITIONAL_STAR_TREE_QUANTILE_DIGEST_FILE_FORMAT = "star-tree.%d.qdigest.bin";
+  public static final String STAR_TREE_HLL_FILE = "star-tree.hll.bin";
+  public static final String ADDITIONAL_STAR_TREE_HLL_FILE_FORMAT = "star-tree.%d.hll.bin";
   public static final String STAR_TREE_ON_HEAP_INDEX_FILE = "star-tree-on-heap.bin";
   public static final String STAR_TREE_OFF_HEAP_INDEX_FILE = "star-tree-off-heap.bin";
   public static final String VERSIONS_FILE = "versions.vr";
@@ -34,6 +39,37 @@ public class V1Constants {
   public static final String SEGMENT_PUSH_TIME = "segment.push.time";
   public static final String SEGMENT_REFRESH_TIME = "segment.refresh.time";
 
+  /**
+   * Returns the file name for the star tree with the given id. The first star tree uses {@link #STAR_TREE_INDEX_FILE}
+   * for backward-compatibility.
+   */
+  public static String getStarTreeIndexFileName(int starTreeId) {
+    if (starTreeId == 0) {
+      return STAR_TREE_INDEX_FILE;
+    }
+    return String.format(ADDITIONAL_STAR_TREE_INDEX_FILE_FORMAT, starTreeId);
+  }
+
+  /**
+   * Returns the file name of the pre-aggregated quantile digests for the star tree with the given id.
+   */
+  public static String getStarTreeQuantileDigestFileName(int starTreeId) {
+    if (starTreeId == 0) {
+      return STAR_TREE_QUANTILE_DIGEST_FILE;
+    }
+    return String.format(ADDITIONAL_STAR_TREE_QUANTILE_DIGEST_FILE_FORMAT, starTreeId);
+  }
+
+  /**
+   * Returns the file name of the pre-aggregated hyper log logs for the star tree with the given id.
+   */
+  public static String getStarTreeHllFileName(int starTreeId) {
+    if (starTreeId == 0) {
+      return STAR_TREE_HLL_FILE;
+    }
+    return String.format(ADDITIONAL_STAR_TREE_HLL_FILE_FORMAT, starTreeId);
+  }
+
   public static class Numbers {
     // null representatives
     public static final Integer NULL_INT = Integer.MIN_VALUE;
@@ -91,6 +127,8 @@ public class V1Constants {
     public static final String BITMAP_INVERTED_INDEX_FILE_EXTENSION = ".bitmap.inv";
     public static final String SORTED_INVERTED_INDEX_FILE_EXTENSION = ".sorted.inv";
     public static final String INTARRAY_INVERTED_INDEX_FILE_EXTENSION = ".intArray.inv";
+    public static final String BITMAP_RANGE_INDEX_FILE_EXTENSION = ".bitmap.range";
+    public static final String ZONE_MAP_INDEX_FILE_EXTENSION = ".zonemap";
   }
 
   public static class MetadataKeys {
@@ -106,6 +144,22 @@ public class V1Constants {
           "star.tree.skip.materialization.for.dimensions";
       public static final String STAR_TREE_SKIP_MATERIALIZATION_CARDINALITY =
           "star.tree.skip.materialization.cardinality";
+      public static final String STAR_TREE_AGGREGATED_METRICS = "startree.aggregated.metrics";
+      public static final String STAR_TREE_PERCENTILE_EST_COLUMNS = "startree.percentile.est.columns";
+      public static final String STAR_TREE_DISTINCT_COUNT_HLL_COLUMNS = "startree.distinct.count.hll.columns";
+      // Number of star trees in the segment, not set for segments with a single star tree
+      public static final String STAR_TREE_COUNT = "startree.count";
+
+      /**
+       * Returns the metadata key for the star tree with the given id. The first star tree uses the keys as is for
+       * backward-compatibility.
+       */
+      public static String getKeyFor(int starTreeId, String key) {
+        if (starTreeId == 0) {
+          return key;
+        }
+        return key + "." + starTreeId;
+      }
     }
 
     public static class Segment {
@@ -0,0 +1,149 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator.impl.inv;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import org.apache.commons.io.FileUtils;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+
+/**
+ * Range index creator for single-value dictionary-encoded columns.
+ * <p>Because dictionary ids are assigned in sorted value order, a range predicate maps to a contiguous range of
+ * dictionary ids. The range index splits the dictionary ids into equi-depth buckets (each bucket covers roughly the
+ * same number of documents) and stores one RoaringBitmap of document ids per bucket, so that a range predicate can be
+ * solved by unioning the fully covered buckets and only scanning the documents of the (at most two) edge buckets.
+ * <pre>
+ * Layout for bitmap range index:
+ * |-------------------------------------------------------------------------|
+ * |                           Number of buckets                             |
+ * |-------------------------------------------------------------------------|
+ * |                   Start dictionary id of 1st bucket                     |
+ * |                                   ...                                   |
+ * |                   Start dictionary id of last bucket                    |
+ * |             End dictionary id of last bucket (exclusive)                |
+ * |-------------------------------------------------------------------------|
+ * |                    Start offset of 1st bitmap                           |
+ * |                                   ...                                   |
+ * |                  End offset of last bitmap (exclusive)                  |
+ * |-------------------------------------------------------------------------|
+ * |                           Data for 1st bitmap                           |
+ * |                                   ...                                   |
+ * |                           Data for last bitmap                          |
+ * |-------------------------------------------------------------------------|
+ * </pre>
+ */
+public final class BitmapRangeIndexCreator implements Closeable {
+  public static final int DEFAULT_NUM_BUCKETS = 128;
+
+  private final File _rangeIndexFile;
+  private final int _cardinality;
+  private final int _numBuckets;
+  private final int[] _dictIds;
+  private final int[] _dictIdCounts;
+
+  public BitmapRangeIndexCreator(File indexDir, String columnName, int cardinality, int numDocs) {
+    this(indexDir, columnName, cardinality, numDocs, DEFAULT_NUM_BUCKETS);
+  }
+
+  public BitmapRangeIndexCreator(File indexDir, String columnName, int cardinality, int numDocs, int numBuckets) {
+    Preconditions.checkArgument(numBuckets > 0, "Number of buckets must be positive for column: %s", columnName);
+    _rangeIndexFile = new File(indexDir, columnName + V1Constants.Indexes.BITMAP_RANGE_INDEX_FILE_EXTENSION);
+    _cardinality = cardinality;
+    _numBuckets = Math.max(Math.min(numBuckets, cardinality), 1);
+    _dictIds = new int[numDocs];
+    _dictIdCounts = new int[cardinality];
+  }
+
+  /**
+   * Add an entry for single-value column.
+   *
+   * @param docId Document id
+   * @param dictId Dictionary id
+   */
+  public void addSV(int docId, int dictId) {
+    _dictIds[docId] = dictId;
+    _dictIdCounts[dictId]++;
+  }
+
+  /**
+   * Seal the results into the file.
+   *
+   * @throws IOException
+   */
+  public void seal() throws IOException {
+    int numDocs = _dictIds.length;
+
+    // Compute the bucket boundaries so that each bucket contains roughly the same number of documents
+    int[] bucketStartDictIds = new int[_numBuckets + 1];
+    int[] dictIdToBucketId = new int[_cardinality];
+    int bucketId = 0;
+    long numDocsCovered = 0;
+    for (int dictId = 0; dictId < _cardinality; dictId++) {
+      // Start a new bucket once the current one reaches its share of documents, but always leave at least one
+      // dictionary id for each remaining bucket
+      if (dictId > bucketStartDictIds[bucketId] && bucketId < _numBuckets - 1
+          && (numDocsCovered * _numBuckets >= (long) numDocs * (bucketId + 1)
+          || _cardinality - dictId == _numBuckets - 1 - bucketId)) {
+        bucketStartDictIds[++bucketId] = dictId;
+      }
+      dictIdToBucketId[dictId] = bucketId;
+      numDocsCovered += _dictIdCounts[dictId];
+    }
+    int numBuckets = bucketId + 1;
+    bucketStartDictIds[numBuckets] = _cardinality;
+
+    MutableRoaringBitmap[] bitmaps = new MutableRoaringBitmap[numBuckets];
+    for (int i = 0; i < numBuckets; i++) {
+      bitmaps[i] = new MutableRoaringBitmap();
+    }
+    for (int docId = 0; docId < numDocs; docId++) {
+      bitmaps[dictIdToBucketId[_dictIds[docId]]].add(docId);
+    }
+
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(_rangeIndexFile)))) {
+      out.writeInt(numBuckets);
+      for (int i = 0; i <= numBuckets; i++) {
+        out.writeInt(bucketStartDictIds[i]);
+      }
+      int offset = (2 * numBuckets + 3) * V1Constants.Numbers.INTEGER_SIZE;
+      out.writeInt(offset);
+      for (MutableRoaringBitmap bitmap : bitmaps) {
+        bitmap.runOptimize();
+        offset += bitmap.serializedSizeInBytes();
+        out.writeInt(offset);
+      }
+      for (MutableRoaringBitmap bitmap : bitmaps) {
+        bitmap.serialize(out);
+      }
+    } catch (Exception e) {
+      FileUtils.deleteQuietly(_rangeIndexFile);
+      throw e;
+    }
+  }
+
+  @Override
+  public void close() {
+  }
+}
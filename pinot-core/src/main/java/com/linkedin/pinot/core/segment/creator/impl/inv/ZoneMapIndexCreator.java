@@ -0,0 +1,126 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator.impl.inv;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import org.apache.commons.io.FileUtils;
+
+
+/**
+ * Zone map index creator for dictionary-encoded columns.
+ * <p>The documents are split into fixed size blocks of consecutive document ids, and the minimum and maximum dictionary
+ * id of each block is recorded. Because dictionary ids are assigned in sorted value order, a block whose dictionary id
+ * range contains no matching dictionary id cannot match the predicate and can be skipped without scanning it. This is
+ * most effective for columns clustered by document id (e.g. time columns in time-ordered segments).
+ * <pre>
+ * Layout for zone map index:
+ * |-------------------------------------------------------------------------|
+ * |                      Number of documents per block                      |
+ * |                            Number of blocks                             |
+ * |-------------------------------------------------------------------------|
+ * |                   Min dictionary id of 1st block                        |
+ * |                   Max dictionary id of 1st block                        |
+ * |                                   ...                                   |
+ * |                   Min dictionary id of last block                       |
+ * |                   Max dictionary id of last block                       |
+ * |-------------------------------------------------------------------------|
+ * </pre>
+ */
+public final class ZoneMapIndexCreator implements Closeable {
+  public static final int DEFAULT_NUM_DOCS_PER_BLOCK = 4096;
+
+  private final File _zoneMapIndexFile;
+  private final int _numDocsPerBlock;
+  private final int[] _minDictIds;
+  private final int[] _maxDictIds;
+
+  public ZoneMapIndexCreator(File indexDir, String columnName, int numDocs) {
+    this(indexDir, columnName, numDocs, DEFAULT_NUM_DOCS_PER_BLOCK);
+  }
+
+  public ZoneMapIndexCreator(File indexDir, String columnName, int numDocs, int numDocsPerBlock) {
+    Preconditions.checkArgument(numDocsPerBlock > 0, "Number of documents per block must be positive for column: %s",
+        columnName);
+    _zoneMapIndexFile = new File(indexDir, columnName + V1Constants.Indexes.ZONE_MAP_INDEX_FILE_EXTENSION);
+    _numDocsPerBlock = numDocsPerBlock;
+    int numBlocks = (numDocs + numDocsPerBlock - 1) / numDocsPerBlock;
+    _minDictIds = new int[numBlocks];
+    _maxDictIds = new int[numBlocks];
+    Arrays.fill(_minDictIds, Integer.MAX_VALUE);
+    Arrays.fill(_maxDictIds, Integer.MIN_VALUE);
+  }
+
+  /**
+   * Add an entry for single-value column.
+   *
+   * @param docId Document id
+   * @param dictId Dictionary id
+   */
+  public void addSV(int docId, int dictId) {
+    int blockId = docId / _numDocsPerBlock;
+    if (dictId < _minDictIds[blockId]) {
+      _minDictIds[blockId] = dictId;
+    }
+    if (dictId > _maxDictIds[blockId]) {
+      _maxDictIds[blockId] = dictId;
+    }
+  }
+
+  /**
+   * Add an entry for multi-value column.
+   *
+   * @param docId Document id
+   * @param dictIds Dictionary ids
+   */
+  public void addMV(int docId, int[] dictIds) {
+    for (int dictId : dictIds) {
+      addSV(docId, dictId);
+    }
+  }
+
+  /**
+   * Seal the results into the file.
+   *
+   * @throws IOException
+   */
+  public void seal() throws IOException {
+    int numBlocks = _minDictIds.length;
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(_zoneMapIndexFile)))) {
+      out.writeInt(_numDocsPerBlock);
+      out.writeInt(numBlocks);
+      for (int i = 0; i < numBlocks; i++) {
+        out.writeInt(_minDictIds[i]);
+        out.writeInt(_maxDictIds[i]);
+      }
+    } catch (Exception e) {
+      FileUtils.deleteQuietly(_zoneMapIndexFile);
+      throw e;
+    }
+  }
+
+  @Override
+  public void close() {
+  }
+}
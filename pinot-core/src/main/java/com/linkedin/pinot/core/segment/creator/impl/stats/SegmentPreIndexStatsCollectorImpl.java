@@ -16,8 +16,11 @@
 package com.linkedin.pinot.core.segment.creator.impl.stats;
 
 import com.linkedin.pinot.core.segment.creator.StatsCollectorConfig;
+import com.linkedin.pinot.core.segment.creator.impl.PerColumnTaskRunner;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import javax.annotation.Nullable;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,6 +36,7 @@ public class SegmentPreIndexStatsCollectorImpl implements SegmentPreIndexStatsCo
   private static final Logger LOGGER = LoggerFactory.getLogger(SegmentPreIndexStatsCollectorImpl.class);
 
   private final StatsCollectorConfig _statsCollectorConfig;
+  private final PerColumnTaskRunner _taskRunner;
   private Map<String, AbstractColumnStatisticsCollector> columnStatsCollectorMap;
 
   private int rawDocCount;
@@ -40,7 +44,18 @@ public class SegmentPreIndexStatsCollectorImpl implements SegmentPreIndexStatsCo
   private int totalDocCount;
 
   public SegmentPreIndexStatsCollectorImpl(StatsCollectorConfig statsCollectorConfig) {
+    this(statsCollectorConfig, null);
+  }
+
+  /**
+   * @param statsCollectorConfig Stats collector config
+   * @param executorService Executor used to collect and seal the stats of different columns concurrently, or null to
+   *                        do everything on the calling thread
+   */
+  public SegmentPreIndexStatsCollectorImpl(StatsCollectorConfig statsCollectorConfig,
+      @Nullable ExecutorService executorService) {
     this._statsCollectorConfig = statsCollectorConfig;
+    this._taskRunner = new PerColumnTaskRunner(executorService);
   }
 
   @Override
@@ -78,10 +93,13 @@ public class SegmentPreIndexStatsCollectorImpl implements SegmentPreIndexStatsCo
   }
 
   @Override
-  public void build() {
-    for (final String column : columnStatsCollectorMap.keySet()) {
-      columnStatsCollectorMap.get(column).seal();
-    }
+  public void build() throws Exception {
+    _taskRunner.run(columnStatsCollectorMap.keySet(), new PerColumnTaskRunner.ColumnTask() {
+      @Override
+      public void run(String column) {
+        columnStatsCollectorMap.get(column).seal();
+      }
+    });
   }
 
   @Override
@@ -118,6 +136,30 @@ public class SegmentPreIndexStatsCollectorImpl implements SegmentPreIndexStatsCo
     }
   }
 
+  @Override
+  public void collectRows(final GenericRow[] rows, final int numRows) throws Exception {
+    _taskRunner.run(columnStatsCollectorMap.keySet(), new PerColumnTaskRunner.ColumnTask() {
+      @Override
+      public void run(String column) {
+        AbstractColumnStatisticsCollector statsCollector = columnStatsCollectorMap.get(column);
+        for (int i = 0; i < numRows; i++) {
+          Object value = rows[i].getValue(column);
+          if (value != null) {
+            try {
+              statsCollector.collect(value, false);
+            } catch (Exception e) {
+              LOGGER.error("Exception while collecting stats for column:{} in row:{}", column, rows[i]);
+              throw e;
+            }
+          }
+        }
+      }
+    });
+
+    totalDocCount += numRows;
+    rawDocCount += numRows;
+  }
+
   @Override
   public int getRawDocCount() {
     return rawDocCount;
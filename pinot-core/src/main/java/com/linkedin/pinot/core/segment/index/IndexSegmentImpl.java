@@ -26,14 +26,17 @@ import com.linkedin.pinot.core.indexsegment.IndexType;
 import com.linkedin.pinot.core.io.reader.DataFileReader;
 import com.linkedin.pinot.core.segment.index.column.ColumnIndexContainer;
 import com.linkedin.pinot.core.segment.index.data.source.ColumnDataSource;
+import com.linkedin.pinot.core.segment.index.readers.BitmapRangeIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
 import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.ZoneMapIndexReader;
 import com.linkedin.pinot.core.segment.store.SegmentDirectory;
 import com.linkedin.pinot.core.startree.StarTree;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,14 +47,14 @@ public class IndexSegmentImpl implements IndexSegment {
   private SegmentDirectory segmentDirectory;
   private final SegmentMetadataImpl segmentMetadata;
   private final Map<String, ColumnIndexContainer> indexContainerMap;
-  private final StarTree starTree;
+  private final List<StarTree> starTrees;
 
   public IndexSegmentImpl(SegmentDirectory segmentDirectory, SegmentMetadataImpl segmentMetadata,
-      Map<String, ColumnIndexContainer> columnIndexContainerMap, StarTree starTree) throws Exception {
+      Map<String, ColumnIndexContainer> columnIndexContainerMap, List<StarTree> starTrees) throws Exception {
     this.segmentDirectory = segmentDirectory;
     this.segmentMetadata = segmentMetadata;
     this.indexContainerMap = columnIndexContainerMap;
-    this.starTree = starTree;
+    this.starTrees = starTrees;
     LOGGER.info("Successfully loaded the index segment : " + segmentDirectory);
   }
 
@@ -124,6 +127,22 @@ public class IndexSegmentImpl implements IndexSegment {
       } catch (Exception e) {
         LOGGER.error("Error when close inverted index for column : " + column, e);
       }
+      try {
+        BitmapRangeIndexReader rangeIndex = columnIndexContainer.getRangeIndex();
+        if (rangeIndex != null) {
+          rangeIndex.close();
+        }
+      } catch (Exception e) {
+        LOGGER.error("Error when close range index for column : " + column, e);
+      }
+      try {
+        ZoneMapIndexReader zoneMap = columnIndexContainer.getZoneMap();
+        if (zoneMap != null) {
+          zoneMap.close();
+        }
+      } catch (Exception e) {
+        LOGGER.error("Error when close zone map for column : " + column, e);
+      }
     }
     try {
       segmentDirectory.close();
@@ -131,7 +150,7 @@ public class IndexSegmentImpl implements IndexSegment {
       LOGGER.error("Failed to close segment directory: {}. Continuing with error.", segmentDirectory, e);
     }
     indexContainerMap.clear();
-    if (starTree != null) {
+    for (StarTree starTree : starTrees) {
       try {
         starTree.close();
       } catch (IOException e) {
@@ -142,7 +161,12 @@ public class IndexSegmentImpl implements IndexSegment {
 
   @Override
   public StarTree getStarTree() {
-    return starTree;
+    return starTrees.isEmpty() ? null : starTrees.get(0);
+  }
+
+  @Override
+  public List<StarTree> getStarTrees() {
+    return starTrees;
   }
 
   @Override
@@ -36,6 +36,7 @@ import java.lang.reflect.Field;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -84,6 +85,7 @@ public class SegmentMetadataImpl implements SegmentMetadata {
   private SegmentVersion _segmentVersion;
   private boolean _hasStarTree;
   private StarTreeMetadata _starTreeMetadata = null;
+  private List<StarTreeMetadata> _starTreeMetadataList = Collections.emptyList();
   private String _creatorName;
   private char _paddingCharacter = V1Constants.Str.DEFAULT_STRING_PAD_CHAR;
   private int _hllLog2m = HllConstants.DEFAULT_LOG2M;
@@ -351,60 +353,97 @@ public class SegmentMetadataImpl implements SegmentMetadata {
     // Build star-tree metadata.
     _hasStarTree = _segmentMetadataPropertiesConfiguration.getBoolean(MetadataKeys.StarTree.STAR_TREE_ENABLED, false);
     if (_hasStarTree) {
-      initStarTreeMetadata();
+      int numStarTrees = _segmentMetadataPropertiesConfiguration.getInt(MetadataKeys.StarTree.STAR_TREE_COUNT, 1);
+      _starTreeMetadataList = new ArrayList<>(numStarTrees);
+      for (int i = 0; i < numStarTrees; i++) {
+        _starTreeMetadataList.add(readStarTreeMetadata(i));
+      }
+      _starTreeMetadata = _starTreeMetadataList.get(0);
     }
   }
 
   /**
-   * Reads and initializes the star tree metadata from segment metadata properties.
+   * Reads the metadata for the star tree with the given id from segment metadata properties.
    */
-  private void initStarTreeMetadata() {
-    _starTreeMetadata = new StarTreeMetadata();
+  private StarTreeMetadata readStarTreeMetadata(int starTreeId) {
+    StarTreeMetadata starTreeMetadata = new StarTreeMetadata();
 
     // Set the maxLeafRecords
-    String maxLeafRecordsString =
-        _segmentMetadataPropertiesConfiguration.getString(MetadataKeys.StarTree.STAR_TREE_MAX_LEAF_RECORDS);
+    String maxLeafRecordsString = _segmentMetadataPropertiesConfiguration.getString(
+        MetadataKeys.StarTree.getKeyFor(starTreeId, MetadataKeys.StarTree.STAR_TREE_MAX_LEAF_RECORDS));
     if (maxLeafRecordsString != null) {
-      _starTreeMetadata.setMaxLeafRecords(Long.valueOf(maxLeafRecordsString));
+      starTreeMetadata.setMaxLeafRecords(Long.valueOf(maxLeafRecordsString));
     }
 
     // Set the splitOrder
-    Iterator<String> iterator =
-        _segmentMetadataPropertiesConfiguration.getList(MetadataKeys.StarTree.STAR_TREE_SPLIT_ORDER).iterator();
+    Iterator<String> iterator = _segmentMetadataPropertiesConfiguration.getList(
+        MetadataKeys.StarTree.getKeyFor(starTreeId, MetadataKeys.StarTree.STAR_TREE_SPLIT_ORDER)).iterator();
     List<String> splitOrder = new ArrayList<String>();
     while (iterator.hasNext()) {
       final String splitColumn = iterator.next();
       splitOrder.add(splitColumn);
     }
-    _starTreeMetadata.setDimensionsSplitOrder(splitOrder);
+    starTreeMetadata.setDimensionsSplitOrder(splitOrder);
 
     // Set dimensions for which star node creation is to be skipped.
     iterator = _segmentMetadataPropertiesConfiguration.getList(
-        MetadataKeys.StarTree.STAR_TREE_SKIP_STAR_NODE_CREATION_FOR_DIMENSIONS).iterator();
+        MetadataKeys.StarTree.getKeyFor(starTreeId,
+            MetadataKeys.StarTree.STAR_TREE_SKIP_STAR_NODE_CREATION_FOR_DIMENSIONS)).iterator();
     List<String> skipStarNodeCreationForDimensions = new ArrayList<String>();
     while (iterator.hasNext()) {
       final String column = iterator.next();
       skipStarNodeCreationForDimensions.add(column);
     }
-    _starTreeMetadata.setSkipStarNodeCreationForDimensions(skipStarNodeCreationForDimensions);
+    starTreeMetadata.setSkipStarNodeCreationForDimensions(skipStarNodeCreationForDimensions);
 
     // Set dimensions for which to skip materialization.
     iterator = _segmentMetadataPropertiesConfiguration.getList(
-        MetadataKeys.StarTree.STAR_TREE_SKIP_MATERIALIZATION_FOR_DIMENSIONS).iterator();
+        MetadataKeys.StarTree.getKeyFor(starTreeId,
+            MetadataKeys.StarTree.STAR_TREE_SKIP_MATERIALIZATION_FOR_DIMENSIONS)).iterator();
     List<String> skipMaterializationForDimensions = new ArrayList<String>();
 
     while (iterator.hasNext()) {
       final String column = iterator.next();
       skipMaterializationForDimensions.add(column);
     }
-    _starTreeMetadata.setSkipMaterializationForDimensions(skipMaterializationForDimensions);
+    starTreeMetadata.setSkipMaterializationForDimensions(skipMaterializationForDimensions);
+
+    // Set aggregated metrics.
+    iterator = _segmentMetadataPropertiesConfiguration.getList(
+        MetadataKeys.StarTree.getKeyFor(starTreeId, MetadataKeys.StarTree.STAR_TREE_AGGREGATED_METRICS)).iterator();
+    List<String> aggregatedMetrics = new ArrayList<String>();
+    while (iterator.hasNext()) {
+      aggregatedMetrics.add(iterator.next());
+    }
+    starTreeMetadata.setAggregatedMetrics(aggregatedMetrics);
+
+    // Set metrics with pre-aggregated quantile digests.
+    iterator = _segmentMetadataPropertiesConfiguration.getList(
+        MetadataKeys.StarTree.getKeyFor(starTreeId, MetadataKeys.StarTree.STAR_TREE_PERCENTILE_EST_COLUMNS)).iterator();
+    List<String> percentileEstColumns = new ArrayList<String>();
+    while (iterator.hasNext()) {
+      percentileEstColumns.add(iterator.next());
+    }
+    starTreeMetadata.setPercentileEstColumns(percentileEstColumns);
+
+    // Set metrics with pre-aggregated hyper log logs.
+    iterator = _segmentMetadataPropertiesConfiguration.getList(
+        MetadataKeys.StarTree.getKeyFor(starTreeId, MetadataKeys.StarTree.STAR_TREE_DISTINCT_COUNT_HLL_COLUMNS))
+        .iterator();
+    List<String> distinctCountHllColumns = new ArrayList<String>();
+    while (iterator.hasNext()) {
+      distinctCountHllColumns.add(iterator.next());
+    }
+    starTreeMetadata.setDistinctCountHllColumns(distinctCountHllColumns);
 
     // Skip skip materialization cardinality.
     String skipMaterializationCardinalityString = _segmentMetadataPropertiesConfiguration.getString(
-        MetadataKeys.StarTree.STAR_TREE_SKIP_MATERIALIZATION_CARDINALITY);
+        MetadataKeys.StarTree.getKeyFor(starTreeId, MetadataKeys.StarTree.STAR_TREE_SKIP_MATERIALIZATION_CARDINALITY));
     if (skipMaterializationCardinalityString != null) {
-      _starTreeMetadata.setSkipMaterializationCardinality(Long.valueOf(skipMaterializationCardinalityString));
+      starTreeMetadata.setSkipMaterializationCardinality(Long.valueOf(skipMaterializationCardinalityString));
     }
+
+    return starTreeMetadata;
   }
 
   public ColumnMetadata getColumnMetadataFor(String column) {
@@ -587,6 +626,11 @@ public class SegmentMetadataImpl implements SegmentMetadata {
     return _starTreeMetadata;
   }
 
+  @Override
+  public List<StarTreeMetadata> getStarTreeMetadataList() {
+    return _starTreeMetadataList;
+  }
+
   @Override
   public String getForwardIndexFileName(String column) {
     ColumnMetadata columnMetadata = getColumnMetadataFor(column);
@@ -619,6 +663,14 @@ public class SegmentMetadataImpl implements SegmentMetadata {
     return column + V1Constants.Indexes.BITMAP_INVERTED_INDEX_FILE_EXTENSION;
   }
 
+  public String getBitmapRangeIndexFileName(String column) {
+    return column + V1Constants.Indexes.BITMAP_RANGE_INDEX_FILE_EXTENSION;
+  }
+
+  public String getZoneMapIndexFileName(String column) {
+    return column + V1Constants.Indexes.ZONE_MAP_INDEX_FILE_EXTENSION;
+  }
+
   @Nullable
   @Override
   public String getCreatorName() {
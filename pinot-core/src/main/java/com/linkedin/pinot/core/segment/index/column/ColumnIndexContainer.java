@@ -28,6 +28,7 @@ import com.linkedin.pinot.core.io.reader.impl.v1.VarByteChunkSingleValueReader;
 import com.linkedin.pinot.core.segment.index.ColumnMetadata;
 import com.linkedin.pinot.core.segment.index.loader.IndexLoadingConfig;
 import com.linkedin.pinot.core.segment.index.readers.BitmapInvertedIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.BitmapRangeIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.DoubleDictionary;
 import com.linkedin.pinot.core.segment.index.readers.FloatDictionary;
 import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
@@ -36,6 +37,7 @@ import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.LongDictionary;
 import com.linkedin.pinot.core.segment.index.readers.OnHeapStringDictionary;
 import com.linkedin.pinot.core.segment.index.readers.StringDictionary;
+import com.linkedin.pinot.core.segment.index.readers.ZoneMapIndexReader;
 import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
 import com.linkedin.pinot.core.segment.store.ColumnIndexType;
 import com.linkedin.pinot.core.segment.store.SegmentDirectory;
@@ -49,15 +51,19 @@ public final class ColumnIndexContainer {
 
   private final DataFileReader _forwardIndex;
   private final InvertedIndexReader _invertedIndex;
+  private final BitmapRangeIndexReader _rangeIndex;
+  private final ZoneMapIndexReader _zoneMap;
   private final ImmutableDictionaryReader _dictionary;
 
   public ColumnIndexContainer(SegmentDirectory.Reader segmentReader, ColumnMetadata metadata,
       IndexLoadingConfig indexLoadingConfig) throws IOException {
     String columnName = metadata.getColumnName();
     boolean loadInvertedIndex = false;
+    boolean loadRangeIndex = false;
     boolean loadOnHeapDictionary = false;
     if (indexLoadingConfig != null) {
       loadInvertedIndex = indexLoadingConfig.getInvertedIndexColumns().contains(columnName);
+      loadRangeIndex = indexLoadingConfig.getRangeIndexColumns().contains(columnName);
       loadOnHeapDictionary = indexLoadingConfig.getOnHeapDictionaryColumns().contains(columnName);
     }
     PinotDataBuffer fwdIndexBuffer = segmentReader.getIndexFor(columnName, ColumnIndexType.FORWARD_INDEX);
@@ -72,17 +78,32 @@ public final class ColumnIndexContainer {
           SortedIndexReader sortedIndexReader = new SortedIndexReader(fwdIndexBuffer, metadata.getCardinality());
           _forwardIndex = sortedIndexReader;
           _invertedIndex = sortedIndexReader;
+          _rangeIndex = null;
+          _zoneMap = null;
           return;
         } else {
           // Unsorted
           _forwardIndex =
               new FixedBitSingleValueReader(fwdIndexBuffer, metadata.getTotalDocs(), metadata.getBitsPerElement());
+          if (loadRangeIndex && segmentReader.hasIndexFor(columnName, ColumnIndexType.RANGE_INDEX)) {
+            _rangeIndex =
+                new BitmapRangeIndexReader(segmentReader.getIndexFor(columnName, ColumnIndexType.RANGE_INDEX));
+          } else {
+            _rangeIndex = null;
+          }
         }
       } else {
         // Multi-value
         _forwardIndex =
             new FixedBitMultiValueReader(fwdIndexBuffer, metadata.getTotalDocs(), metadata.getTotalNumberOfEntries(),
                 metadata.getBitsPerElement());
+        _rangeIndex = null;
+      }
+      // Zone map is only created when requested at segment creation, so always load it if it exists
+      if (segmentReader.hasIndexFor(columnName, ColumnIndexType.ZONE_MAP)) {
+        _zoneMap = new ZoneMapIndexReader(segmentReader.getIndexFor(columnName, ColumnIndexType.ZONE_MAP));
+      } else {
+        _zoneMap = null;
       }
       if (loadInvertedIndex) {
         _invertedIndex =
@@ -95,6 +116,8 @@ public final class ColumnIndexContainer {
       // Raw index
       _forwardIndex = loadRawForwardIndex(fwdIndexBuffer, metadata.getDataType());
       _invertedIndex = null;
+      _rangeIndex = null;
+      _zoneMap = null;
       _dictionary = null;
     }
   }
@@ -107,6 +130,14 @@ public final class ColumnIndexContainer {
     return _invertedIndex;
   }
 
+  public BitmapRangeIndexReader getRangeIndex() {
+    return _rangeIndex;
+  }
+
+  public ZoneMapIndexReader getZoneMap() {
+    return _zoneMap;
+  }
+
   public ImmutableDictionaryReader getDictionary() {
     return _dictionary;
   }
@@ -143,22 +143,34 @@ public class SegmentV1V2ToV3FormatConverter implements SegmentFormatConverter {
         for (String column : allColumns) {
           copyExistingInvertedIndex(v2DataReader, v3DataWriter, column);
         }
-        copyStarTree(v2DataReader, v3DataWriter);
+        copyStarTrees(v2DataReader, v3DataWriter, v2Metadata);
         v3DataWriter.saveAndClose();
       }
     }
   }
 
-  private void copyStarTree(SegmentDirectory.Reader v2DataReader, SegmentDirectory.Writer v3DataWriter)
+  private void copyStarTrees(SegmentDirectory.Reader v2DataReader, SegmentDirectory.Writer v3DataWriter,
+      SegmentMetadataImpl v2Metadata)
       throws IOException {
     if (! v2DataReader.hasStarTree()) {
       return;
     }
 
-    InputStream v2StarTreeStream = v2DataReader.getStarTreeStream();
-    OutputStream v3StarTreeStream = v3DataWriter.starTreeOutputStream();
-
-    IOUtils.copy(v2StarTreeStream, v3StarTreeStream);
+    int numStarTrees = Math.max(v2Metadata.getStarTreeMetadataList().size(), 1);
+    for (int starTreeId = 0; starTreeId < numStarTrees; starTreeId++) {
+      try (InputStream v2StarTreeStream = v2DataReader.getStarTreeStream(starTreeId);
+          OutputStream v3StarTreeStream = v3DataWriter.starTreeOutputStream(starTreeId)) {
+        IOUtils.copy(v2StarTreeStream, v3StarTreeStream);
+      }
+      File v2QuantileDigestFile = v2DataReader.getStarTreeQuantileDigestFile(starTreeId);
+      if (v2QuantileDigestFile.exists()) {
+        FileUtils.copyFile(v2QuantileDigestFile, v3DataWriter.getStarTreeQuantileDigestFile(starTreeId));
+      }
+      File v2HllFile = v2DataReader.getStarTreeHllFile(starTreeId);
+      if (v2HllFile.exists()) {
+        FileUtils.copyFile(v2HllFile, v3DataWriter.getStarTreeHllFile(starTreeId));
+      }
+    }
   }
 
   private void copyDictionary(SegmentDirectory.Reader reader,
@@ -182,6 +194,12 @@ public class SegmentV1V2ToV3FormatConverter implements SegmentFormatConverter {
     if (reader.hasIndexFor(column, ColumnIndexType.INVERTED_INDEX)) {
       readCopyBuffers(reader, writer, column, ColumnIndexType.INVERTED_INDEX);
     }
+    if (reader.hasIndexFor(column, ColumnIndexType.RANGE_INDEX)) {
+      readCopyBuffers(reader, writer, column, ColumnIndexType.RANGE_INDEX);
+    }
+    if (reader.hasIndexFor(column, ColumnIndexType.ZONE_MAP)) {
+      readCopyBuffers(reader, writer, column, ColumnIndexType.ZONE_MAP);
+    }
   }
 
   private void readCopyBuffers(SegmentDirectory.Reader reader, SegmentDirectory.Writer writer,
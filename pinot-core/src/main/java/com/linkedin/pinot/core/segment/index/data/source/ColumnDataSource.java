@@ -30,8 +30,10 @@ import com.linkedin.pinot.core.operator.blocks.SingleValueBlock;
 import com.linkedin.pinot.core.realtime.impl.dictionary.MutableDictionary;
 import com.linkedin.pinot.core.segment.index.ColumnMetadata;
 import com.linkedin.pinot.core.segment.index.column.ColumnIndexContainer;
+import com.linkedin.pinot.core.segment.index.readers.BitmapRangeIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import com.linkedin.pinot.core.segment.index.readers.InvertedIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.ZoneMapIndexReader;
 
 
 public final class ColumnDataSource extends DataSource {
@@ -43,6 +45,8 @@ public final class ColumnDataSource extends DataSource {
   private final int _maxNumMultiValues;
   private final DataFileReader _forwardIndex;
   private final InvertedIndexReader _invertedIndex;
+  private final BitmapRangeIndexReader _rangeIndex;
+  private final ZoneMapIndexReader _zoneMap;
   private final Dictionary _dictionary;
   private final DataSourceMetadata _metadata;
 
@@ -52,7 +56,8 @@ public final class ColumnDataSource extends DataSource {
   public ColumnDataSource(ColumnIndexContainer indexContainer, ColumnMetadata metadata) {
     this(metadata.getColumnName(), metadata.getDataType(), metadata.isSingleValue(), metadata.isSorted(),
         metadata.getTotalDocs(), metadata.getMaxNumberOfMultiValues(), indexContainer.getForwardIndex(),
-        indexContainer.getInvertedIndex(), indexContainer.getDictionary());
+        indexContainer.getInvertedIndex(), indexContainer.getRangeIndex(), indexContainer.getZoneMap(),
+        indexContainer.getDictionary());
   }
 
   /**
@@ -61,12 +66,12 @@ public final class ColumnDataSource extends DataSource {
   public ColumnDataSource(FieldSpec fieldSpec, int numDocs, int maxNumMultiValues, DataFileReader forwardIndex,
       InvertedIndexReader invertedIndex, MutableDictionary dictionary) {
     this(fieldSpec.getName(), fieldSpec.getDataType(), fieldSpec.isSingleValueField(), false, numDocs,
-        maxNumMultiValues, forwardIndex, invertedIndex, dictionary);
+        maxNumMultiValues, forwardIndex, invertedIndex, null, null, dictionary);
   }
 
   private ColumnDataSource(String columnName, FieldSpec.DataType dataType, boolean isSingleValue, boolean isSorted,
       int numDocs, int maxNumMultiValues, DataFileReader forwardIndex, InvertedIndexReader invertedIndex,
-      Dictionary dictionary) {
+      BitmapRangeIndexReader rangeIndex, ZoneMapIndexReader zoneMap, Dictionary dictionary) {
     // Sanity check
     if (isSingleValue) {
       Preconditions.checkState(forwardIndex instanceof SingleColumnSingleValueReader);
@@ -81,6 +86,8 @@ public final class ColumnDataSource extends DataSource {
     } else {
       // Raw index
       Preconditions.checkState(invertedIndex == null);
+      Preconditions.checkState(rangeIndex == null);
+      Preconditions.checkState(zoneMap == null);
     }
 
     _operatorName = "ColumnDataSource [" + columnName + "]";
@@ -91,6 +98,8 @@ public final class ColumnDataSource extends DataSource {
     _maxNumMultiValues = maxNumMultiValues;
     _forwardIndex = forwardIndex;
     _invertedIndex = invertedIndex;
+    _rangeIndex = rangeIndex;
+    _zoneMap = zoneMap;
     _dictionary = dictionary;
     _metadata = new DataSourceMetadata() {
       @Override
@@ -113,6 +122,16 @@ public final class ColumnDataSource extends DataSource {
         return _invertedIndex != null;
       }
 
+      @Override
+      public boolean hasRangeIndex() {
+        return _rangeIndex != null;
+      }
+
+      @Override
+      public boolean hasZoneMap() {
+        return _zoneMap != null;
+      }
+
       @Override
       public boolean hasDictionary() {
         return _dictionary != null;
@@ -130,6 +149,16 @@ public final class ColumnDataSource extends DataSource {
     return _invertedIndex;
   }
 
+  @Override
+  public BitmapRangeIndexReader getRangeIndex() {
+    return _rangeIndex;
+  }
+
+  @Override
+  public ZoneMapIndexReader getZoneMap() {
+    return _zoneMap;
+  }
+
   @Override
   public Dictionary getDictionary() {
     return _dictionary;
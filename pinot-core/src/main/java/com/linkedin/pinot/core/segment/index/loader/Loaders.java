@@ -30,7 +30,9 @@ import com.linkedin.pinot.core.segment.store.SegmentDirectoryPaths;
 import com.linkedin.pinot.core.startree.OffHeapStarTree;
 import com.linkedin.pinot.core.startree.StarTree;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -105,14 +107,26 @@ public class Loaders {
             new ColumnIndexContainer(segmentReader, entry.getValue(), indexLoadingConfig));
       }
 
-      // Load star tree index if it exists
-      StarTree starTree = null;
+      // Load star tree indexes if they exist
+      List<StarTree> starTrees = new ArrayList<>();
       if (segmentReader.hasStarTree()) {
-        LOGGER.info("Loading star tree for segment: {}", segmentName);
-        starTree = new OffHeapStarTree(segmentReader.getStarTreeFile(), readMode);
+        int numStarTrees = Math.max(segmentMetadata.getStarTreeMetadataList().size(), 1);
+        LOGGER.info("Loading {} star tree(s) for segment: {}", numStarTrees, segmentName);
+        for (int starTreeId = 0; starTreeId < numStarTrees; starTreeId++) {
+          File quantileDigestFile = segmentReader.getStarTreeQuantileDigestFile(starTreeId);
+          if (!quantileDigestFile.exists()) {
+            quantileDigestFile = null;
+          }
+          File hllFile = segmentReader.getStarTreeHllFile(starTreeId);
+          if (!hllFile.exists()) {
+            hllFile = null;
+          }
+          starTrees.add(
+              new OffHeapStarTree(segmentReader.getStarTreeFile(starTreeId), quantileDigestFile, hllFile, readMode));
+        }
       }
 
-      return new IndexSegmentImpl(segmentDirectory, segmentMetadata, indexContainerMap, starTree);
+      return new IndexSegmentImpl(segmentDirectory, segmentMetadata, indexContainerMap, starTrees);
     }
   }
 }
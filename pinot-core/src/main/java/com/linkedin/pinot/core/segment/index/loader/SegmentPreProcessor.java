@@ -23,6 +23,7 @@ import com.linkedin.pinot.core.segment.index.loader.columnminmaxvalue.ColumnMinM
 import com.linkedin.pinot.core.segment.index.loader.defaultcolumn.DefaultColumnHandler;
 import com.linkedin.pinot.core.segment.index.loader.defaultcolumn.DefaultColumnHandlerFactory;
 import com.linkedin.pinot.core.segment.index.loader.invertedindex.InvertedIndexHandler;
+import com.linkedin.pinot.core.segment.index.loader.rangeindex.RangeIndexHandler;
 import com.linkedin.pinot.core.segment.store.SegmentDirectory;
 import java.io.File;
 import javax.annotation.Nonnull;
@@ -34,6 +35,7 @@ import javax.annotation.Nullable;
  * <p>Pre-processing steps include:
  * <ul>
  *   <li>Use {@link InvertedIndexHandler} to create inverted indices</li>
+ *   <li>Use {@link RangeIndexHandler} to create range indices</li>
  *   <li>Use {@link DefaultColumnHandler} to update auto-generated default columns</li>
  *   <li>Use {@link ColumnMinMaxValueGenerator} to add min/max value to column metadata</li>
  * </ul>
@@ -68,6 +70,11 @@ public class SegmentPreProcessor implements AutoCloseable {
           new InvertedIndexHandler(_indexDir, _segmentMetadata, _indexLoadingConfig, segmentWriter);
       invertedIndexHandler.createInvertedIndices();
 
+      // Create column range indices according to the index config.
+      RangeIndexHandler rangeIndexHandler =
+          new RangeIndexHandler(_indexDir, _segmentMetadata, _indexLoadingConfig, segmentWriter);
+      rangeIndexHandler.createRangeIndices();
+
       // Update default columns according to the schema.
       // NOTE: This step may modify the segment metadata. When adding new steps after this, reload the metadata.
       if (_indexLoadingConfig.isEnableDefaultColumns() && (_schema != null)) {
@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.readers;
+
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.creator.impl.inv.BitmapRangeIndexCreator;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.Closeable;
+import java.util.Arrays;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+
+/**
+ * Reader for the bitmap range index created by {@link BitmapRangeIndexCreator}.
+ * <p>The number of buckets is small, so all bucket bitmaps are mapped when the reader is constructed.
+ */
+public class BitmapRangeIndexReader implements Closeable {
+  private static final int INT_SIZE_IN_BYTES = V1Constants.Numbers.INTEGER_SIZE;
+
+  private final PinotDataBuffer _buffer;
+  private final int _numBuckets;
+  // Length is numBuckets + 1, the last element is the cardinality of the column
+  private final int[] _bucketStartDictIds;
+  private final ImmutableRoaringBitmap[] _bitmaps;
+
+  public BitmapRangeIndexReader(PinotDataBuffer indexDataBuffer) {
+    _buffer = indexDataBuffer;
+    _numBuckets = indexDataBuffer.getInt(0);
+    _bucketStartDictIds = new int[_numBuckets + 1];
+    for (int i = 0; i <= _numBuckets; i++) {
+      _bucketStartDictIds[i] = indexDataBuffer.getInt((i + 1) * INT_SIZE_IN_BYTES);
+    }
+    int offsetsStart = (_numBuckets + 2) * INT_SIZE_IN_BYTES;
+    _bitmaps = new ImmutableRoaringBitmap[_numBuckets];
+    for (int i = 0; i < _numBuckets; i++) {
+      int startOffset = indexDataBuffer.getInt(offsetsStart + i * INT_SIZE_IN_BYTES);
+      int endOffset = indexDataBuffer.getInt(offsetsStart + (i + 1) * INT_SIZE_IN_BYTES);
+      _bitmaps[i] = new ImmutableRoaringBitmap(indexDataBuffer.toDirectByteBuffer(startOffset, endOffset - startOffset));
+    }
+  }
+
+  public int getNumBuckets() {
+    return _numBuckets;
+  }
+
+  /**
+   * Returns the first dictionary id (inclusive) covered by the given bucket.
+   */
+  public int getBucketStartDictId(int bucketId) {
+    return _bucketStartDictIds[bucketId];
+  }
+
+  /**
+   * Returns the last dictionary id (inclusive) covered by the given bucket.
+   */
+  public int getBucketEndDictId(int bucketId) {
+    return _bucketStartDictIds[bucketId + 1] - 1;
+  }
+
+  /**
+   * Returns the id of the bucket that covers the given dictionary id.
+   */
+  public int getBucketId(int dictId) {
+    int index = Arrays.binarySearch(_bucketStartDictIds, 0, _numBuckets, dictId);
+    return index >= 0 ? index : -index - 2;
+  }
+
+  /**
+   * Returns the document ids of all documents whose dictionary id falls into the given bucket.
+   */
+  public ImmutableRoaringBitmap getDocIds(int bucketId) {
+    return _bitmaps[bucketId];
+  }
+
+  @Override
+  public void close() {
+    _buffer.close();
+  }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.readers;
+
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.creator.impl.inv.ZoneMapIndexCreator;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.Closeable;
+
+
+/**
+ * Reader for the zone map index created by {@link ZoneMapIndexCreator}.
+ */
+public class ZoneMapIndexReader implements Closeable {
+  private static final int INT_SIZE_IN_BYTES = V1Constants.Numbers.INTEGER_SIZE;
+  private static final int HEADER_SIZE_IN_BYTES = 2 * INT_SIZE_IN_BYTES;
+
+  private final PinotDataBuffer _buffer;
+  private final int _numDocsPerBlock;
+  private final int _numBlocks;
+
+  public ZoneMapIndexReader(PinotDataBuffer indexDataBuffer) {
+    _buffer = indexDataBuffer;
+    _numDocsPerBlock = indexDataBuffer.getInt(0);
+    _numBlocks = indexDataBuffer.getInt(INT_SIZE_IN_BYTES);
+  }
+
+  public int getNumDocsPerBlock() {
+    return _numDocsPerBlock;
+  }
+
+  public int getNumBlocks() {
+    return _numBlocks;
+  }
+
+  /**
+   * Returns the minimum dictionary id of the documents in the given block.
+   */
+  public int getMinDictId(int blockId) {
+    return _buffer.getInt(HEADER_SIZE_IN_BYTES + 2 * blockId * INT_SIZE_IN_BYTES);
+  }
+
+  /**
+   * Returns the maximum dictionary id of the documents in the given block.
+   */
+  public int getMaxDictId(int blockId) {
+    return _buffer.getInt(HEADER_SIZE_IN_BYTES + (2 * blockId + 1) * INT_SIZE_IN_BYTES);
+  }
+
+  @Override
+  public void close() {
+    _buffer.close();
+  }
+}
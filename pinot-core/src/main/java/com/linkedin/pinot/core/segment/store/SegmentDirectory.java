@@ -144,6 +144,14 @@ public abstract class SegmentDirectory implements AutoCloseable {
      */
     public abstract InputStream getStarTreeStream();
 
+    /**
+     * Get the StarTree index with the given id as InputStream, where star tree 0 is the same as
+     * {@link #getStarTreeStream()}.
+     * @param starTreeId id of the star tree
+     * @return InputStream representing serialized version of star tree.
+     */
+    public abstract InputStream getStarTreeStream(int starTreeId);
+
     /**
      * Get the StarTree index file.
      *
@@ -151,6 +159,33 @@ public abstract class SegmentDirectory implements AutoCloseable {
      */
     public abstract File getStarTreeFile();
 
+    /**
+     * Get the StarTree index file for the star tree with the given id, where star tree 0 is the same as
+     * {@link #getStarTreeFile()}.
+     *
+     * @param starTreeId id of the star tree
+     * @return File for StarTree index.
+     */
+    public abstract File getStarTreeFile(int starTreeId);
+
+    /**
+     * Get the file of the pre-aggregated quantile digests for the star tree with the given id. The file only exists if
+     * the star tree stores quantile digests.
+     *
+     * @param starTreeId id of the star tree
+     * @return File for the star tree quantile digests.
+     */
+    public abstract File getStarTreeQuantileDigestFile(int starTreeId);
+
+    /**
+     * Get the file of the pre-aggregated hyper log logs for the star tree with the given id. The file only exists if
+     * the star tree stores hyper log logs.
+     *
+     * @param starTreeId id of the star tree
+     * @return File for the star tree hyper log logs.
+     */
+    public abstract File getStarTreeHllFile(int starTreeId);
+
     /**
      * Check if the segment has star tree
      */
@@ -192,6 +227,13 @@ public abstract class SegmentDirectory implements AutoCloseable {
      */
     public abstract OutputStream starTreeOutputStream();
 
+    /**
+     * Create star tree output stream for the star tree with the given id
+     * @param starTreeId id of the star tree
+     * @return Output stream to write serialized version of star tree
+     */
+    public abstract OutputStream starTreeOutputStream(int starTreeId);
+
     /**
      * Check if the removal of index is a supported operation
      * @return true if the index removal is supported
@@ -206,7 +248,7 @@ public abstract class SegmentDirectory implements AutoCloseable {
     public abstract void removeIndex(String columnName, ColumnIndexType indexType);
 
     /**
-     * Remove existing star tree
+     * Remove all existing star trees
      */
     public abstract void removeStarTree();
 
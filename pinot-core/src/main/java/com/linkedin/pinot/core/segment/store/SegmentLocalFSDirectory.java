@@ -217,8 +217,20 @@ class SegmentLocalFSDirectory extends SegmentDirectory {
   }
 
   protected File starTreeIndexFile() {
+    return starTreeIndexFile(0);
+  }
+
+  protected File starTreeIndexFile(int starTreeId) {
     // this is not version dependent for now
-    return new File(segmentDirectory, V1Constants.STAR_TREE_INDEX_FILE);
+    return new File(segmentDirectory, V1Constants.getStarTreeIndexFileName(starTreeId));
+  }
+
+  protected File starTreeQuantileDigestFile(int starTreeId) {
+    return new File(segmentDirectory, V1Constants.getStarTreeQuantileDigestFileName(starTreeId));
+  }
+
+  protected File starTreeHllFile(int starTreeId) {
+    return new File(segmentDirectory, V1Constants.getStarTreeHllFileName(starTreeId));
   }
 
   private PinotDataBuffer getIndexForColumn(String column, ColumnIndexType type)
@@ -234,6 +246,12 @@ class SegmentLocalFSDirectory extends SegmentDirectory {
       case INVERTED_INDEX:
         buffer = columnIndexDirectory.getInvertedIndexBufferFor(column);
         break;
+      case RANGE_INDEX:
+        buffer = columnIndexDirectory.getRangeIndexBufferFor(column);
+        break;
+      case ZONE_MAP:
+        buffer = columnIndexDirectory.getZoneMapBufferFor(column);
+        break;
       default:
         throw new RuntimeException("Unknown index type: " + type.name());
     }
@@ -287,8 +305,8 @@ class SegmentLocalFSDirectory extends SegmentDirectory {
     return columnIndexDirectory.hasIndexFor(column, type);
   }
 
-  private InputStream getStarTreeStream() {
-    File starTreeFile = starTreeIndexFile();
+  private InputStream getStarTreeStream(int starTreeId) {
+    File starTreeFile = starTreeIndexFile(starTreeId);
     Preconditions.checkState(starTreeFile.exists(), "Star tree file for segment: {} does not exist");
     Preconditions.checkState(starTreeFile.isFile(), "Star tree file: {} for segment: {} is not a regular file");
 
@@ -317,7 +335,12 @@ class SegmentLocalFSDirectory extends SegmentDirectory {
 
     @Override
     public InputStream getStarTreeStream() {
-      return SegmentLocalFSDirectory.this.getStarTreeStream();
+      return SegmentLocalFSDirectory.this.getStarTreeStream(0);
+    }
+
+    @Override
+    public InputStream getStarTreeStream(int starTreeId) {
+      return SegmentLocalFSDirectory.this.getStarTreeStream(starTreeId);
     }
 
     @Override
@@ -325,6 +348,21 @@ class SegmentLocalFSDirectory extends SegmentDirectory {
       return SegmentLocalFSDirectory.this.starTreeIndexFile();
     }
 
+    @Override
+    public File getStarTreeFile(int starTreeId) {
+      return SegmentLocalFSDirectory.this.starTreeIndexFile(starTreeId);
+    }
+
+    @Override
+    public File getStarTreeQuantileDigestFile(int starTreeId) {
+      return SegmentLocalFSDirectory.this.starTreeQuantileDigestFile(starTreeId);
+    }
+
+    @Override
+    public File getStarTreeHllFile(int starTreeId) {
+      return SegmentLocalFSDirectory.this.starTreeHllFile(starTreeId);
+    }
+
     @Override
     public boolean hasStarTree() {
       return SegmentLocalFSDirectory.this.hasStarTree();
@@ -364,9 +402,14 @@ class SegmentLocalFSDirectory extends SegmentDirectory {
 
     @Override
     public OutputStream starTreeOutputStream() {
+      return starTreeOutputStream(0);
+    }
+
+    @Override
+    public OutputStream starTreeOutputStream(int starTreeId) {
       // this checks about file's existence and if it's a regular file
       try {
-        return new FileOutputStream(starTreeIndexFile());
+        return new FileOutputStream(starTreeIndexFile(starTreeId));
       } catch (FileNotFoundException e) {
         LOGGER.error("Failed to open star tree output stream for segment: {}", segmentDirectory, e);
         throw new RuntimeException("Failed to open star tree output stream for segment: " + segmentDirectory, e);
@@ -380,7 +423,12 @@ class SegmentLocalFSDirectory extends SegmentDirectory {
 
     @Override
     public InputStream getStarTreeStream() {
-      return SegmentLocalFSDirectory.this.getStarTreeStream();
+      return SegmentLocalFSDirectory.this.getStarTreeStream(0);
+    }
+
+    @Override
+    public InputStream getStarTreeStream(int starTreeId) {
+      return SegmentLocalFSDirectory.this.getStarTreeStream(starTreeId);
     }
 
     @Override
@@ -388,6 +436,21 @@ class SegmentLocalFSDirectory extends SegmentDirectory {
       return SegmentLocalFSDirectory.this.starTreeIndexFile();
     }
 
+    @Override
+    public File getStarTreeFile(int starTreeId) {
+      return SegmentLocalFSDirectory.this.starTreeIndexFile(starTreeId);
+    }
+
+    @Override
+    public File getStarTreeQuantileDigestFile(int starTreeId) {
+      return SegmentLocalFSDirectory.this.starTreeQuantileDigestFile(starTreeId);
+    }
+
+    @Override
+    public File getStarTreeHllFile(int starTreeId) {
+      return SegmentLocalFSDirectory.this.starTreeHllFile(starTreeId);
+    }
+
     @Override
     public boolean hasStarTree() {
       return SegmentLocalFSDirectory.this.hasStarTree();
@@ -400,7 +463,11 @@ class SegmentLocalFSDirectory extends SegmentDirectory {
 
     @Override
     public void removeStarTree() {
-      starTreeIndexFile().delete();
+      for (int starTreeId = 0; starTreeIndexFile(starTreeId).exists(); starTreeId++) {
+        starTreeIndexFile(starTreeId).delete();
+        FileUtils.deleteQuietly(starTreeQuantileDigestFile(starTreeId));
+        FileUtils.deleteQuietly(starTreeHllFile(starTreeId));
+      }
     }
 
     private PinotDataBuffer getNewIndexBuffer(IndexKey key, long sizeBytes)
@@ -414,6 +481,10 @@ class SegmentLocalFSDirectory extends SegmentDirectory {
           return columnIndexDirectory.newForwardIndexBuffer(key.name, (int) sizeBytes);
         case INVERTED_INDEX:
           return columnIndexDirectory.newInvertedIndexBuffer(key.name, ((int) sizeBytes));
+        case RANGE_INDEX:
+          return columnIndexDirectory.newRangeIndexBuffer(key.name, ((int) sizeBytes));
+        case ZONE_MAP:
+          return columnIndexDirectory.newZoneMapBuffer(key.name, ((int) sizeBytes));
         default:
           throw new RuntimeException("Unknown index type: " + indexType.name() +
               " for directory: " + segmentDirectory);
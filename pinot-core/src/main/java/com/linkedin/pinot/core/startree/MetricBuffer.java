@@ -19,7 +19,12 @@ import com.clearspring.analytics.stream.cardinality.CardinalityMergeException;
 import com.clearspring.analytics.stream.cardinality.HyperLogLog;
 import com.linkedin.pinot.common.data.MetricFieldSpec;
 import com.linkedin.pinot.common.data.MetricFieldSpec.DerivedMetricType;
+import com.linkedin.pinot.core.common.datatable.ObjectCustomSerDe;
+import com.linkedin.pinot.core.common.datatable.ObjectType;
+import com.linkedin.pinot.core.query.aggregation.function.PercentileEstAggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.function.customobject.QuantileDigest;
 import com.linkedin.pinot.core.startree.hll.HllUtil;
+import com.linkedin.pinot.startree.hll.HllConstants;
 import com.linkedin.pinot.startree.hll.HllSizeUtils;
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -29,6 +34,9 @@ import java.util.List;
 /**
  * fromBytes and toBytes methods are used only in {@link OffHeapStarTreeBuilder}, as read and write to temp files.
  * Thus no serialization of hll type to string is necessary at these steps.
+ * <p>When the star tree stores pre-aggregated quantile digests or hyper log logs, the bytes end with the offset of each
+ * object in the {@link StarTreeObjectBuffer}. Objects are only loaded when aggregating, as most of the records are only
+ * copied.
  */
 public class MetricBuffer {
 
@@ -38,9 +46,41 @@ public class MetricBuffer {
   private final Object[] values;
   private final List<MetricFieldSpec> metricFieldSpecs;
 
+  /**
+   * quantile digests and hyper log logs, null if the star tree does not store them
+   */
+  private final StarTreeObjectBuffer objectBuffer;
+  private final long[] objectOffsets;
+  private final Object[] objects;
+  private boolean objectsAggregated;
+
   public MetricBuffer(Object[] values, List<MetricFieldSpec> metricFieldSpecs) {
+    this(values, metricFieldSpecs, null);
+  }
+
+  /**
+   * Constructor for a raw record, whose quantile digests and hyper log logs only contain the metric values.
+   */
+  public MetricBuffer(Object[] values, List<MetricFieldSpec> metricFieldSpecs, StarTreeObjectBuffer objectBuffer) {
+    this(values, metricFieldSpecs, objectBuffer, newNoObjectOffsets(objectBuffer));
+  }
+
+  private MetricBuffer(Object[] values, List<MetricFieldSpec> metricFieldSpecs, StarTreeObjectBuffer objectBuffer,
+      long[] objectOffsets) {
     this.values = values;
     this.metricFieldSpecs = metricFieldSpecs;
+    this.objectBuffer = objectBuffer;
+    this.objectOffsets = objectOffsets;
+    this.objects = objectBuffer != null ? new Object[objectOffsets.length] : null;
+  }
+
+  private static long[] newNoObjectOffsets(StarTreeObjectBuffer objectBuffer) {
+    if (objectBuffer == null) {
+      return null;
+    }
+    long[] objectOffsets = new long[objectBuffer.getMetricIds().length];
+    Arrays.fill(objectOffsets, StarTreeObjectBuffer.NO_OBJECT);
+    return objectOffsets;
   }
 
   public MetricBuffer(MetricBuffer copy) {
@@ -59,9 +99,31 @@ public class MetricBuffer {
       }
     }
     this.metricFieldSpecs = copy.metricFieldSpecs;
+    this.objectBuffer = copy.objectBuffer;
+    if (copy.objectBuffer != null) {
+      this.objectOffsets = copy.objectOffsets.clone();
+      this.objects = new Object[copy.objects.length];
+      for (int i = 0; i < this.objects.length; i++) {
+        Object copyObject = copy.objects[i];
+        if (copyObject instanceof QuantileDigest) {
+          this.objects[i] = new QuantileDigest((QuantileDigest) copyObject);
+        } else if (copyObject instanceof HyperLogLog) {
+          this.objects[i] = HllUtil.clone((HyperLogLog) copyObject, HllConstants.DEFAULT_LOG2M);
+        }
+      }
+      this.objectsAggregated = copy.objectsAggregated;
+    } else {
+      this.objectOffsets = null;
+      this.objects = null;
+    }
   }
 
   public static MetricBuffer fromBytes(byte[] bytes, List<MetricFieldSpec> metricFieldSpecs) {
+    return fromBytes(bytes, metricFieldSpecs, null);
+  }
+
+  public static MetricBuffer fromBytes(byte[] bytes, List<MetricFieldSpec> metricFieldSpecs,
+      StarTreeObjectBuffer objectBuffer) {
     ByteBuffer buffer = ByteBuffer.wrap(bytes);
     Object[] values = new Object[metricFieldSpecs.size()];
 
@@ -93,7 +155,15 @@ public class MetricBuffer {
         }
       }
     }
-    return new MetricBuffer(values, metricFieldSpecs);
+
+    long[] objectOffsets = null;
+    if (objectBuffer != null) {
+      objectOffsets = new long[objectBuffer.getMetricIds().length];
+      for (int i = 0; i < objectOffsets.length; i++) {
+        objectOffsets[i] = buffer.getLong();
+      }
+    }
+    return new MetricBuffer(values, metricFieldSpecs, objectBuffer, objectOffsets);
   }
 
   public byte[] toBytes(int numBytes) throws IOException {
@@ -126,11 +196,50 @@ public class MetricBuffer {
         }
       }
     }
+
+    if (objectBuffer != null) {
+      for (int i = 0; i < objectOffsets.length; i++) {
+        // Only aggregated objects need to be appended, others are already in the buffer
+        if (objectsAggregated) {
+          objectOffsets[i] = objectBuffer.append(objects[i]);
+        }
+        buffer.putLong(objectOffsets[i]);
+      }
+      objectsAggregated = false;
+    }
     return bytes;
   }
 
   public void aggregate(MetricBuffer metrics) {
+    aggregate(metrics, null);
+  }
+
+  /**
+   * Aggregates the given metrics into this buffer, skipping the metrics marked in skippedMetrics (null to aggregate all
+   * metrics).
+   */
+  public void aggregate(MetricBuffer metrics, boolean[] skippedMetrics) {
+    // Aggregate the objects first, as the objects of raw records are built from the metric values
+    if (objectBuffer != null) {
+      for (int i = 0; i < objects.length; i++) {
+        Object object = getObject(i);
+        if (object instanceof QuantileDigest) {
+          ((QuantileDigest) object).merge((QuantileDigest) metrics.getObject(i));
+        } else {
+          try {
+            ((HyperLogLog) object).addAll((HyperLogLog) metrics.getObject(i));
+          } catch (CardinalityMergeException e) {
+            throw new RuntimeException(e);
+          }
+        }
+      }
+      objectsAggregated = true;
+    }
+
     for (int i = 0; i < metricFieldSpecs.size(); i++) {
+      if (skippedMetrics != null && skippedMetrics[i]) {
+        continue;
+      }
       MetricFieldSpec metric = metricFieldSpecs.get(i);
       if (metric.getDerivedMetricType() == DerivedMetricType.HLL) {
         try {
@@ -162,6 +271,23 @@ public class MetricBuffer {
     }
   }
 
+  /**
+   * Resets the metrics marked in skippedMetrics to their default value, so that the aggregated records do not carry
+   * partially aggregated values for the metrics not aggregated by the star tree.
+   */
+  public void resetMetrics(boolean[] skippedMetrics) {
+    for (int i = 0; i < metricFieldSpecs.size(); i++) {
+      if (skippedMetrics[i]) {
+        MetricFieldSpec metric = metricFieldSpecs.get(i);
+        if (metric.getDerivedMetricType() == DerivedMetricType.HLL) {
+          values[i] = new HyperLogLog(HllSizeUtils.getLog2mFromHllFieldSize(metric.getFieldSize()));
+        } else {
+          values[i] = metric.getDefaultNullValue();
+        }
+      }
+    }
+  }
+
   /**
    * this method should return correct value conformed to datatype to iterators
    * @param index
@@ -175,6 +301,73 @@ public class MetricBuffer {
     }
   }
 
+  /**
+   * Returns the serialized object with the given index in the {@link StarTreeObjectBuffer} object slots.
+   */
+  public byte[] getSerializedObject(int index) throws IOException {
+    if (!objectsAggregated && objectOffsets[index] != StarTreeObjectBuffer.NO_OBJECT) {
+      return objectBuffer.readBytes(objectOffsets[index]);
+    }
+    return ObjectCustomSerDe.serialize(getObject(index));
+  }
+
+  private Object getObject(int index) {
+    Object object = objects[index];
+    if (object == null) {
+      long offset = objectOffsets[index];
+      if (offset == StarTreeObjectBuffer.NO_OBJECT) {
+        object = newObject(index);
+      } else {
+        try {
+          object = objectBuffer.read(offset, index);
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+      objects[index] = object;
+    }
+    return object;
+  }
+
+  /**
+   * Builds the object of a raw record from its metric value.
+   */
+  private Object newObject(int index) {
+    int metricId = objectBuffer.getMetricIds()[index];
+    Number value = (Number) values[metricId];
+    ObjectType objectType = objectBuffer.getObjectTypes()[index];
+    switch (objectType) {
+      case QuantileDigest:
+        QuantileDigest quantileDigest = new QuantileDigest(PercentileEstAggregationFunction.DEFAULT_MAX_ERROR);
+        quantileDigest.add(value.longValue());
+        return quantileDigest;
+      case HyperLogLog:
+        // Offer the value the same way as DistinctCountHLLAggregationFunction does for raw documents
+        HyperLogLog hyperLogLog = new HyperLogLog(HllConstants.DEFAULT_LOG2M);
+        MetricFieldSpec metric = metricFieldSpecs.get(metricId);
+        switch (metric.getDataType()) {
+          case SHORT:
+          case INT:
+            hyperLogLog.offer(value.intValue());
+            break;
+          case LONG:
+            hyperLogLog.offer(Long.valueOf(value.longValue()).hashCode());
+            break;
+          case FLOAT:
+            hyperLogLog.offer(Float.valueOf(value.floatValue()).hashCode());
+            break;
+          case DOUBLE:
+            hyperLogLog.offer(Double.valueOf(value.doubleValue()).hashCode());
+            break;
+          default:
+            throw new IllegalArgumentException("Unsupported metric type " + metric.getDataType());
+        }
+        return hyperLogLog;
+      default:
+        throw new IllegalArgumentException("Unsupported object type " + objectType);
+    }
+  }
+
   @Override
   public String toString() {
     return Arrays.toString(values);
@@ -30,6 +30,7 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 import xerial.larray.buffer.LBuffer;
 import xerial.larray.buffer.LBufferAPI;
 import xerial.larray.mmap.MMapBuffer;
@@ -50,6 +51,8 @@ public class OffHeapStarTree implements StarTree {
   private final LBufferAPI _dataBuffer;
   private final OffHeapStarTreeNode _root;
   private final List<String> _dimensionNames;
+  private final StarTreeQuantileDigestIndex _quantileDigestIndex;
+  private final StarTreeHllIndex _hllIndex;
 
   /**
    * Constructor for the class.
@@ -57,6 +60,15 @@ public class OffHeapStarTree implements StarTree {
    * - Loads/MMap's the OffHeapStarTreeNode array.
    */
   public OffHeapStarTree(File starTreeFile, ReadMode readMode) throws IOException {
+    this(starTreeFile, null, null, readMode);
+  }
+
+  /**
+   * Constructor for the class with the optional pre-aggregated quantile digests and hyper log logs of the aggregated
+   * documents.
+   */
+  public OffHeapStarTree(File starTreeFile, @Nullable File quantileDigestFile, @Nullable File hllFile,
+      ReadMode readMode) throws IOException {
     if (readMode.equals(ReadMode.mmap)) {
       _dataBuffer = new MMapBuffer(starTreeFile, MMapMode.READ_ONLY);
     } else {
@@ -103,6 +115,17 @@ public class OffHeapStarTree implements StarTree {
         "Error reading Star Tree file, file length mis-match");
 
     _root = new OffHeapStarTreeNode(_dataBuffer.view(rootNodeOffset, fileLength), 0);
+
+    if (quantileDigestFile != null) {
+      _quantileDigestIndex = new StarTreeQuantileDigestIndex(quantileDigestFile, readMode);
+    } else {
+      _quantileDigestIndex = null;
+    }
+    if (hllFile != null) {
+      _hllIndex = new StarTreeHllIndex(hllFile, readMode);
+    } else {
+      _hllIndex = null;
+    }
   }
 
   /**
@@ -133,6 +156,18 @@ public class OffHeapStarTree implements StarTree {
     return _dimensionNames;
   }
 
+  @Nullable
+  @Override
+  public StarTreeQuantileDigestIndex getQuantileDigestIndex() {
+    return _quantileDigestIndex;
+  }
+
+  @Nullable
+  @Override
+  public StarTreeHllIndex getHllIndex() {
+    return _hllIndex;
+  }
+
   @Override
   public void printTree(Map<String, Dictionary> dictionaryMap) {
     printTreeHelper(dictionaryMap, _root, 0);
@@ -192,5 +227,11 @@ public class OffHeapStarTree implements StarTree {
     } else {
       _dataBuffer.release();
     }
+    if (_quantileDigestIndex != null) {
+      _quantileDigestIndex.close();
+    }
+    if (_hllIndex != null) {
+      _hllIndex.close();
+    }
   }
 }
@@ -22,6 +22,7 @@ import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.data.MetricFieldSpec;
 import com.linkedin.pinot.common.data.Schema;
 import com.linkedin.pinot.common.utils.Pairs.IntPair;
+import com.linkedin.pinot.core.common.datatable.ObjectType;
 import com.linkedin.pinot.core.data.GenericRow;
 import com.linkedin.pinot.core.segment.creator.ColumnIndexCreationInfo;
 import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
@@ -48,6 +49,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import javax.annotation.Nullable;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
@@ -133,6 +135,14 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
   private int _numMetrics;
   private final List<String> _metricNames = new ArrayList<>();
   private int _metricSize;
+  // Pre-aggregated quantile digests and hyper log logs, null if not configured
+  // NOTE: the object slots in the object buffer are the digest metrics followed by the hll metrics
+  private String[] _digestMetricNames;
+  private String[] _hllMetricNames;
+  private StarTreeObjectBuffer _objectBuffer;
+
+  // Metrics not aggregated by the star tree, null if all metrics are aggregated
+  private boolean[] _skippedMetrics;
 
   private long _docSize;
   private int[] _sortOrder;
@@ -223,6 +233,48 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
       _metricSize += metricFieldSpec.getFieldSize();
     }
 
+    // Quantile digests and hyper log logs are variable length, so the records only store their offsets in the object
+    // buffer
+    Set<String> percentileEstColumns = builderConfig.getPercentileEstColumns();
+    Set<String> distinctCountHllColumns = builderConfig.getDistinctCountHllColumns();
+    _digestMetricNames = getObjectMetricNames(percentileEstColumns, "Percentile est");
+    _hllMetricNames = getObjectMetricNames(distinctCountHllColumns, "Distinct count hll");
+    int numObjects = _digestMetricNames.length + _hllMetricNames.length;
+    if (numObjects > 0) {
+      int[] objectMetricIds = new int[numObjects];
+      ObjectType[] objectTypes = new ObjectType[numObjects];
+      int index = 0;
+      for (String metricName : _digestMetricNames) {
+        objectMetricIds[index] = _metricNames.indexOf(metricName);
+        objectTypes[index++] = ObjectType.QuantileDigest;
+      }
+      for (String metricName : _hllMetricNames) {
+        objectMetricIds[index] = _metricNames.indexOf(metricName);
+        objectTypes[index++] = ObjectType.HyperLogLog;
+      }
+      File objectFile = new File(_tempDir, "star-tree-object.buf");
+      LOGGER.info("Star tree object file: {} for percentile est metrics: {}, distinct count hll metrics: {}",
+          objectFile, percentileEstColumns, distinctCountHllColumns);
+      _objectBuffer = new StarTreeObjectBuffer(objectFile, objectMetricIds, objectTypes);
+      _metricSize += numObjects * V1Constants.Numbers.LONG_SIZE;
+    }
+
+    // Metrics with pre-aggregated objects are still needed in the records to build the objects of the raw records
+    Set<String> aggregatedMetrics = builderConfig.getAggregatedMetrics();
+    if (aggregatedMetrics != null && !aggregatedMetrics.isEmpty()) {
+      for (String metricName : aggregatedMetrics) {
+        Preconditions.checkArgument(_metricNames.contains(metricName), "Aggregated metric: %s is not a metric",
+            metricName);
+      }
+      _skippedMetrics = new boolean[_numMetrics];
+      for (int i = 0; i < _numMetrics; i++) {
+        String metricName = _metricNames.get(i);
+        _skippedMetrics[i] = !aggregatedMetrics.contains(metricName) && !Arrays.asList(_digestMetricNames)
+            .contains(metricName) && !Arrays.asList(_hllMetricNames).contains(metricName);
+      }
+      LOGGER.info("Aggregated metrics: {}", aggregatedMetrics);
+    }
+
     LOGGER.info("Dimension Names: {}", _dimensionNames);
     LOGGER.info("Metric Names: {}", _metricNames);
 
@@ -273,7 +325,7 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
         metricValues[i] = metricValue;
       }
     }
-    MetricBuffer metrics = new MetricBuffer(metricValues, metricFieldSpecs);
+    MetricBuffer metrics = new MetricBuffer(metricValues, metricFieldSpecs, _objectBuffer);
 
     appendToRawBuffer(dimensions, metrics);
   }
@@ -284,6 +336,9 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
   }
 
   private void appendToAggBuffer(DimensionBuffer dimensions, MetricBuffer metrics) throws IOException {
+    if (_skippedMetrics != null) {
+      metrics.resetMetrics(_skippedMetrics);
+    }
     appendToBuffer(dimensions, metrics);
     _numAggregatedDocs++;
   }
@@ -375,7 +430,7 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
         byte[] dimensionBytes = next.getLeft();
         byte[] metricBytes = next.getRight();
         DimensionBuffer dimensions = DimensionBuffer.fromBytes(dimensionBytes);
-        MetricBuffer metrics = MetricBuffer.fromBytes(metricBytes, _schema.getMetricFieldSpecs());
+        MetricBuffer metrics = MetricBuffer.fromBytes(metricBytes, _schema.getMetricFieldSpecs(), _objectBuffer);
         for (int i = 0; i < _numDimensions; i++) {
           if (_skipMaterializationDimensions.contains(i)) {
             dimensions.setDimension(i, StarTreeNode.ALL);
@@ -387,7 +442,7 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
           currentMetrics = metrics;
         } else {
           if (dimensions.equals(currentDimensions)) {
-            currentMetrics.aggregate(metrics);
+            currentMetrics.aggregate(metrics, _skippedMetrics);
           } else {
             appendToAggBuffer(currentDimensions, currentMetrics);
             currentDimensions = dimensions;
@@ -420,11 +475,12 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
 
       Iterator<Pair<byte[], byte[]>> iterator = dataTable.iterator(node._startDocId, node._endDocId);
       Pair<byte[], byte[]> first = iterator.next();
-      aggregatedMetrics = MetricBuffer.fromBytes(first.getRight(), _schema.getMetricFieldSpecs());
+      aggregatedMetrics = MetricBuffer.fromBytes(first.getRight(), _schema.getMetricFieldSpecs(), _objectBuffer);
       while (iterator.hasNext()) {
         Pair<byte[], byte[]> next = iterator.next();
-        MetricBuffer metricBuffer = MetricBuffer.fromBytes(next.getRight(), _schema.getMetricFieldSpecs());
-        aggregatedMetrics.aggregate(metricBuffer);
+        MetricBuffer metricBuffer =
+            MetricBuffer.fromBytes(next.getRight(), _schema.getMetricFieldSpecs(), _objectBuffer);
+        aggregatedMetrics.aggregate(metricBuffer, _skippedMetrics);
       }
     } else {
       // Non-leaf node
@@ -440,7 +496,7 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
           if (aggregatedMetrics == null) {
             aggregatedMetrics = childAggregatedMetrics;
           } else {
-            aggregatedMetrics.aggregate(childAggregatedMetrics);
+            aggregatedMetrics.aggregate(childAggregatedMetrics, _skippedMetrics);
           }
         }
       }
@@ -588,6 +644,7 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
       TreeNode child = new TreeNode();
       _numNodes++;
       children.put(childDimensionValue, child);
+      child._dimensionId = splitDimensionId;
 
       // The range pair value is the relative value to the start document id
       IntPair range = dimensionRangeMap.get(childDimensionValue);
@@ -699,13 +756,13 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
         while (_iterator.hasNext()) {
           Pair<byte[], byte[]> next = _iterator.next();
           DimensionBuffer dimensions = DimensionBuffer.fromBytes(next.getLeft());
-          MetricBuffer metrics = MetricBuffer.fromBytes(next.getRight(), _schema.getMetricFieldSpecs());
+          MetricBuffer metrics = MetricBuffer.fromBytes(next.getRight(), _schema.getMetricFieldSpecs(), _objectBuffer);
           if (_currentDimensions == null) {
             _currentDimensions = dimensions;
             _currentMetrics = metrics;
           } else {
             if (dimensions.equals(_currentDimensions)) {
-              _currentMetrics.aggregate(metrics);
+              _currentMetrics.aggregate(metrics, _skippedMetrics);
             } else {
               ImmutablePair<DimensionBuffer, MetricBuffer> ret =
                   new ImmutablePair<>(_currentDimensions, _currentMetrics);
@@ -751,7 +808,7 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
       public GenericRow next() {
         Pair<byte[], byte[]> pair = _iterator.next();
         DimensionBuffer dimensions = DimensionBuffer.fromBytes(pair.getLeft());
-        MetricBuffer metrics = MetricBuffer.fromBytes(pair.getRight(), _schema.getMetricFieldSpecs());
+        MetricBuffer metrics = MetricBuffer.fromBytes(pair.getRight(), _schema.getMetricFieldSpecs(), _objectBuffer);
         return toGenericRow(dimensions, metrics);
       }
 
@@ -793,15 +850,104 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
   @Override
   public void serializeTree(File starTreeFile, Map<String, ColumnIndexCreationInfo> indexCreationInfoMap)
       throws IOException {
+    serializeTree(starTreeFile, indexCreationInfoMap, 0);
+  }
+
+  @Override
+  public void serializeTree(File starTreeFile, Map<String, ColumnIndexCreationInfo> indexCreationInfoMap,
+      int docIdOffset) throws IOException {
     // Update the star tree with the segment dictionary
     updateTree(_rootNode, indexCreationInfoMap);
 
     // Serialize the star tree into a file
-    serializeTree(starTreeFile);
+    serializeTree(starTreeFile, docIdOffset);
 
     LOGGER.info("Finish serializing star tree into file: {}", starTreeFile);
   }
 
+  @Override
+  public void serializeQuantileDigests(File quantileDigestFile, int docIdOffset) throws IOException {
+    Preconditions.checkState(_digestMetricNames.length > 0, "Quantile digests are not configured for the star tree");
+    serializeObjects(quantileDigestFile, docIdOffset, _digestMetricNames, 0);
+    LOGGER.info("Finish serializing quantile digests of {} aggregated documents into file: {}", _numAggregatedDocs,
+        quantileDigestFile);
+  }
+
+  @Override
+  public void serializeHlls(File hllFile, int docIdOffset) throws IOException {
+    Preconditions.checkState(_hllMetricNames.length > 0, "Hyper log logs are not configured for the star tree");
+    serializeObjects(hllFile, docIdOffset, _hllMetricNames, _digestMetricNames.length);
+    LOGGER.info("Finish serializing hyper log logs of {} aggregated documents into file: {}", _numAggregatedDocs,
+        hllFile);
+  }
+
+  /**
+   * Returns the metrics for which to store the pre-aggregated objects, after validating them.
+   */
+  private String[] getObjectMetricNames(@Nullable Set<String> columns, String description) {
+    if (columns == null) {
+      return new String[0];
+    }
+    for (String metricName : columns) {
+      int metricId = _metricNames.indexOf(metricName);
+      Preconditions.checkArgument(metricId >= 0, "%s column: %s is not a metric", description, metricName);
+      Preconditions.checkArgument(_schema.getMetricFieldSpecs().get(metricId).getDerivedMetricType() == null,
+          "%s column: %s cannot be a derived metric", description, metricName);
+    }
+    return columns.toArray(new String[columns.size()]);
+  }
+
+  /**
+   * Serializes the objects of the aggregated documents for the given metrics, whose object slots start from the given
+   * slot, in the format read by {@link StarTreeObjectIndex}.
+   */
+  private void serializeObjects(File outputFile, int docIdOffset, String[] metricNames, int startSlot)
+      throws IOException {
+    int numMetrics = metricNames.length;
+
+    // Write the serialized objects into a temporary file, and collect their offsets
+    long[] offsets = new long[_numAggregatedDocs * numMetrics + 1];
+    File tempFile = new File(_tempDir, "star-tree-object.tmp");
+    try (StarTreeDataTable dataTable = new StarTreeDataTable(new MMapBuffer(_dataFile, MMapMode.READ_ONLY),
+        _dimensionSize, _metricSize, 0, _numRawDocs + _numAggregatedDocs);
+        DataOutputStream tempOutputStream = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+      Iterator<Pair<byte[], byte[]>> iterator = dataTable.iterator(_numRawDocs, _numRawDocs + _numAggregatedDocs);
+      int index = 0;
+      long offset = 0L;
+      while (iterator.hasNext()) {
+        MetricBuffer metrics = MetricBuffer.fromBytes(iterator.next().getRight(), _schema.getMetricFieldSpecs(),
+            _objectBuffer);
+        for (int i = 0; i < numMetrics; i++) {
+          byte[] bytes = metrics.getSerializedObject(startSlot + i);
+          tempOutputStream.write(bytes);
+          offsets[index++] = offset;
+          offset += bytes.length;
+        }
+      }
+      offsets[index] = offset;
+    }
+
+    // Write the header, the offsets and the objects
+    try (DataOutputStream outputStream = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(outputFile)))) {
+      outputStream.writeInt(StarTreeObjectIndex.VERSION);
+      outputStream.writeInt(_numRawDocs + docIdOffset);
+      outputStream.writeInt(_numAggregatedDocs);
+      outputStream.writeInt(numMetrics);
+      for (String metricName : metricNames) {
+        byte[] metricNameBytes = metricName.getBytes(UTF_8);
+        outputStream.writeInt(metricNameBytes.length);
+        outputStream.write(metricNameBytes);
+      }
+      for (long offset : offsets) {
+        outputStream.writeLong(offset);
+      }
+      FileUtils.copyFile(tempFile, outputStream);
+    }
+    FileUtils.deleteQuietly(tempFile);
+  }
+
   private void updateTree(TreeNode node, Map<String, ColumnIndexCreationInfo> indexCreationInfoMap) {
     // Only need to update children map because the caller already updates the node
     Map<Integer, TreeNode> children = node._children;
@@ -849,7 +995,7 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
   /**
    * Helper method to serialize the updated tree into a file.
    */
-  private void serializeTree(File starTreeFile) throws IOException {
+  private void serializeTree(File starTreeFile, int docIdOffset) throws IOException {
     int headerSizeInBytes = computeHeaderSizeInBytes();
     long totalSizeInBytes = headerSizeInBytes + _numNodes * OffHeapStarTreeNode.SERIALIZABLE_SIZE_IN_BYTES;
 
@@ -858,7 +1004,7 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
       long offset = writeHeader(dataBuffer, headerSizeInBytes);
       Preconditions.checkState(offset == headerSizeInBytes, "Error writing Star Tree file, header size mis-match");
 
-      writeNodes(dataBuffer, offset);
+      writeNodes(dataBuffer, offset, docIdOffset);
     } finally {
       dataBuffer.flush();
       dataBuffer.close();
@@ -934,7 +1080,7 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
   /**
    * Helper method to write the star tree nodes into the data buffer.
    */
-  private void writeNodes(MMapBuffer dataBuffer, long offset) {
+  private void writeNodes(MMapBuffer dataBuffer, long offset, int docIdOffset) {
     int index = 0;
     Queue<TreeNode> queue = new LinkedList<>();
     queue.add(_rootNode);
@@ -945,8 +1091,8 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
       if (node._children == null) {
         // Leaf node
 
-        offset =
-            writeNode(dataBuffer, node, offset, OffHeapStarTreeNode.INVALID_INDEX, OffHeapStarTreeNode.INVALID_INDEX);
+        offset = writeNode(dataBuffer, node, offset, OffHeapStarTreeNode.INVALID_INDEX,
+            OffHeapStarTreeNode.INVALID_INDEX, docIdOffset);
       } else {
         // Non-leaf node
 
@@ -961,7 +1107,7 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
 
         int startChildrenIndex = index + queue.size() + 1;
         int endChildrenIndex = startChildrenIndex + sortedChildren.size() - 1;
-        offset = writeNode(dataBuffer, node, offset, startChildrenIndex, endChildrenIndex);
+        offset = writeNode(dataBuffer, node, offset, startChildrenIndex, endChildrenIndex, docIdOffset);
 
         queue.addAll(sortedChildren);
       }
@@ -974,20 +1120,20 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
    * Helper method to write one node into the data buffer.
    */
   private static long writeNode(MMapBuffer dataBuffer, TreeNode node, long offset, int startChildrenIndex,
-      int endChildrenIndex) {
+      int endChildrenIndex, int docIdOffset) {
     dataBuffer.putInt(offset, node._dimensionId);
     offset += V1Constants.Numbers.INTEGER_SIZE;
 
     dataBuffer.putInt(offset, node._dimensionValue);
     offset += V1Constants.Numbers.INTEGER_SIZE;
 
-    dataBuffer.putInt(offset, node._startDocId);
+    dataBuffer.putInt(offset, node._startDocId + docIdOffset);
     offset += V1Constants.Numbers.INTEGER_SIZE;
 
-    dataBuffer.putInt(offset, node._endDocId);
+    dataBuffer.putInt(offset, node._endDocId + docIdOffset);
     offset += V1Constants.Numbers.INTEGER_SIZE;
 
-    dataBuffer.putInt(offset, node._aggregatedDocId);
+    dataBuffer.putInt(offset, node._aggregatedDocId + docIdOffset);
     offset += V1Constants.Numbers.INTEGER_SIZE;
 
     dataBuffer.putInt(offset, startChildrenIndex);
@@ -1044,6 +1190,9 @@ public class OffHeapStarTreeBuilder implements StarTreeBuilder {
       dataTable.close();
     }
     _dataTablesToClose.clear();
+    if (_objectBuffer != null) {
+      _objectBuffer.close();
+    }
     FileUtils.deleteDirectory(_tempDir);
   }
 }
@@ -19,6 +19,7 @@ import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 import java.io.Closeable;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 
 /**
@@ -36,6 +37,18 @@ public interface StarTree extends Closeable {
    */
   List<String> getDimensionNames();
 
+  /**
+   * Get the pre-aggregated quantile digests of the aggregated documents, or null if the star tree does not store them.
+   */
+  @Nullable
+  StarTreeQuantileDigestIndex getQuantileDigestIndex();
+
+  /**
+   * Get the pre-aggregated hyper log logs of the aggregated documents, or null if the star tree does not store them.
+   */
+  @Nullable
+  StarTreeHllIndex getHllIndex();
+
   /**
    * Print the tree.
    */
@@ -54,6 +54,25 @@ public interface StarTreeBuilder extends Closeable {
    */
   void serializeTree(File starTreeFile, Map<String, ColumnIndexCreationInfo> indexCreationInfoMap) throws IOException;
 
+  /**
+   * Serialize the star tree into a file, with all the document ids shifted by the given offset. This is used when the
+   * documents of the star tree are not at the beginning of the segment (e.g. additional star trees in the segment).
+   */
+  void serializeTree(File starTreeFile, Map<String, ColumnIndexCreationInfo> indexCreationInfoMap, int docIdOffset)
+      throws IOException;
+
+  /**
+   * Serialize the pre-aggregated quantile digests of the aggregated documents into a file, with all the document ids
+   * shifted by the given offset.
+   */
+  void serializeQuantileDigests(File quantileDigestFile, int docIdOffset) throws IOException;
+
+  /**
+   * Serialize the pre-aggregated hyper log logs of the aggregated documents into a file, with all the document ids
+   * shifted by the given offset.
+   */
+  void serializeHlls(File hllFile, int docIdOffset) throws IOException;
+
   /**
    * Returns the total number of non-aggregate dimension combinations.
    */
@@ -30,6 +30,9 @@ public class StarTreeBuilderConfig {
   private int _maxNumLeafRecords;
   private int _skipMaterializationCardinalityThreshold;
   private boolean _excludeSkipMaterializationDimensionsForStarTreeIndex;
+  private Set<String> _aggregatedMetrics;
+  private Set<String> _percentileEstColumns;
+  private Set<String> _distinctCountHllColumns;
 
   public StarTreeBuilderConfig() {
   }
@@ -119,4 +122,37 @@ public class StarTreeBuilderConfig {
       boolean excludeSkipMaterializationDimensionsForStarTreeIndex) {
     _excludeSkipMaterializationDimensionsForStarTreeIndex = excludeSkipMaterializationDimensionsForStarTreeIndex;
   }
+
+  /**
+   * Get the metrics to aggregate in the aggregated records, null or empty for all metrics.
+   */
+  public Set<String> getAggregatedMetrics() {
+    return _aggregatedMetrics;
+  }
+
+  public void setAggregatedMetrics(Set<String> aggregatedMetrics) {
+    _aggregatedMetrics = aggregatedMetrics;
+  }
+
+  /**
+   * Get the metrics for which to store pre-aggregated quantile digests in the aggregated records.
+   */
+  public Set<String> getPercentileEstColumns() {
+    return _percentileEstColumns;
+  }
+
+  public void setPercentileEstColumns(Set<String> percentileEstColumns) {
+    _percentileEstColumns = percentileEstColumns;
+  }
+
+  /**
+   * Get the metrics for which to store pre-aggregated hyper log logs in the aggregated records.
+   */
+  public Set<String> getDistinctCountHllColumns() {
+    return _distinctCountHllColumns;
+  }
+
+  public void setDistinctCountHllColumns(Set<String> distinctCountHllColumns) {
+    _distinctCountHllColumns = distinctCountHllColumns;
+  }
 }
@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.startree;
+
+import com.linkedin.pinot.core.common.datatable.ObjectCustomSerDe;
+import com.linkedin.pinot.core.common.datatable.ObjectType;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+
+/**
+ * Append-only side buffer of serialized aggregation objects (quantile digests and hyper log logs) used by
+ * {@link OffHeapStarTreeBuilder}.
+ * <p>Serialized objects are variable length, so they cannot be stored in the fixed width star tree records. Instead,
+ * each record stores the offset of its objects in this buffer (see {@link MetricBuffer}), and the records can be sorted
+ * and copied without touching the objects.
+ */
+public class StarTreeObjectBuffer implements Closeable {
+  // Offset for records without an object in the buffer, whose object only contains the metric value of the record
+  public static final long NO_OBJECT = -1L;
+
+  private final int[] _metricIds;
+  private final ObjectType[] _objectTypes;
+  private final RandomAccessFile _file;
+  private long _size;
+
+  /**
+   * Constructor for the class.
+   *
+   * @param file Temporary file backing the buffer
+   * @param metricIds Index of the metric of each object slot in the schema metric field specs
+   * @param objectTypes Type of the object of each object slot
+   */
+  public StarTreeObjectBuffer(File file, int[] metricIds, ObjectType[] objectTypes) throws IOException {
+    _metricIds = metricIds;
+    _objectTypes = objectTypes;
+    _file = new RandomAccessFile(file, "rw");
+  }
+
+  /**
+   * Returns the index of the metric of each object slot in the schema metric field specs.
+   */
+  public int[] getMetricIds() {
+    return _metricIds;
+  }
+
+  /**
+   * Returns the type of the object of each object slot.
+   */
+  public ObjectType[] getObjectTypes() {
+    return _objectTypes;
+  }
+
+  /**
+   * Appends an object to the buffer, and returns its offset.
+   */
+  public long append(Object object) throws IOException {
+    byte[] bytes = ObjectCustomSerDe.serialize(object);
+    long offset = _size;
+    _file.seek(offset);
+    _file.writeInt(bytes.length);
+    _file.write(bytes);
+    _size += Integer.SIZE / Byte.SIZE + bytes.length;
+    return offset;
+  }
+
+  /**
+   * Reads the serialized object at the given offset.
+   */
+  public byte[] readBytes(long offset) throws IOException {
+    _file.seek(offset);
+    byte[] bytes = new byte[_file.readInt()];
+    _file.readFully(bytes);
+    return bytes;
+  }
+
+  /**
+   * Reads the object of the given object slot at the given offset.
+   */
+  public <T> T read(long offset, int index) throws IOException {
+    return ObjectCustomSerDe.deserialize(readBytes(offset), _objectTypes[index]);
+  }
+
+  @Override
+  public void close() throws IOException {
+    _file.close();
+  }
+}
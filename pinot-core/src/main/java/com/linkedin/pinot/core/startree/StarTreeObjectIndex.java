@@ -0,0 +1,140 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.startree;
+
+import com.google.common.base.Preconditions;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.common.datatable.ObjectCustomSerDe;
+import com.linkedin.pinot.core.common.datatable.ObjectType;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nullable;
+
+
+/**
+ * Reader for the pre-aggregated objects (quantile digests or hyper log logs) of the star tree aggregated documents,
+ * serialized by {@link OffHeapStarTreeBuilder#serializeQuantileDigests(File, int)} and
+ * {@link OffHeapStarTreeBuilder#serializeHlls(File, int)}.
+ * <p>The file contains the following fields:
+ * <ul>
+ *   <li>Version (int)</li>
+ *   <li>Start document id of the aggregated documents (int)</li>
+ *   <li>Number of aggregated documents (int)</li>
+ *   <li>Number of columns (int)</li>
+ *   <li>For each column, number of bytes in the column name (int), and the byte array for the name</li>
+ *   <li>For each aggregated document and each column, offset of the serialized object (long), followed by the end
+ *   offset of the last object (long)</li>
+ *   <li>Serialized objects</li>
+ * </ul>
+ */
+public class StarTreeObjectIndex<T> implements Closeable {
+  public static final int VERSION = 1;
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private final ObjectType _objectType;
+  private final PinotDataBuffer _dataBuffer;
+  private final int _startDocId;
+  private final int _numDocs;
+  private final List<String> _columns;
+  private final int _offsetsStart;
+  private final long _objectsStart;
+
+  public StarTreeObjectIndex(File objectFile, ReadMode readMode, ObjectType objectType) throws IOException {
+    _objectType = objectType;
+    _dataBuffer =
+        PinotDataBuffer.fromFile(objectFile, readMode, FileChannel.MapMode.READ_ONLY, objectFile.getName());
+
+    // NOTE: heap mode buffers only support int index
+    int offset = 0;
+    Preconditions.checkState(VERSION == _dataBuffer.getInt(offset),
+        "Invalid version in star tree object file: %s", objectFile);
+    offset += V1Constants.Numbers.INTEGER_SIZE;
+
+    _startDocId = _dataBuffer.getInt(offset);
+    offset += V1Constants.Numbers.INTEGER_SIZE;
+
+    _numDocs = _dataBuffer.getInt(offset);
+    offset += V1Constants.Numbers.INTEGER_SIZE;
+
+    int numColumns = _dataBuffer.getInt(offset);
+    offset += V1Constants.Numbers.INTEGER_SIZE;
+
+    List<String> columns = new ArrayList<>(numColumns);
+    for (int i = 0; i < numColumns; i++) {
+      int columnLength = _dataBuffer.getInt(offset);
+      offset += V1Constants.Numbers.INTEGER_SIZE;
+
+      byte[] columnBytes = new byte[columnLength];
+      _dataBuffer.copyTo(offset, columnBytes, 0, columnLength);
+      offset += columnLength;
+
+      columns.add(new String(columnBytes, UTF_8));
+    }
+    _columns = Collections.unmodifiableList(columns);
+
+    _offsetsStart = offset;
+    _objectsStart = _offsetsStart + ((long) _numDocs * numColumns + 1) * V1Constants.Numbers.LONG_SIZE;
+    Preconditions.checkState(_objectsStart + getOffset(_numDocs * numColumns) == objectFile.length(),
+        "Error reading star tree object file: %s, file length mis-match", objectFile);
+  }
+
+  /**
+   * Returns the columns with pre-aggregated objects.
+   */
+  public List<String> getColumns() {
+    return _columns;
+  }
+
+  /**
+   * Returns the pre-aggregated object of the given column for the given document, or null if the column has no
+   * objects or the document is not an aggregated document of the star tree.
+   */
+  @Nullable
+  public T getObject(String column, int docId) {
+    int columnId = _columns.indexOf(column);
+    if (columnId < 0 || docId < _startDocId || docId >= _startDocId + _numDocs) {
+      return null;
+    }
+    int index = (docId - _startDocId) * _columns.size() + columnId;
+    long startOffset = getOffset(index);
+    int length = (int) (getOffset(index + 1) - startOffset);
+    byte[] bytes = new byte[length];
+    _dataBuffer.copyTo(_objectsStart + startOffset, bytes, 0, length);
+    try {
+      return ObjectCustomSerDe.deserialize(bytes, _objectType);
+    } catch (IOException e) {
+      throw new RuntimeException("Caught exception while deserializing " + _objectType + " for doc: " + docId, e);
+    }
+  }
+
+  private long getOffset(int index) {
+    return _dataBuffer.getLong(_offsetsStart + index * V1Constants.Numbers.LONG_SIZE);
+  }
+
+  @Override
+  public void close() {
+    _dataBuffer.close();
+  }
+}
@@ -0,0 +1,43 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.startree;
+
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.common.datatable.ObjectType;
+import com.linkedin.pinot.core.query.aggregation.function.customobject.QuantileDigest;
+import java.io.File;
+import java.io.IOException;
+import javax.annotation.Nullable;
+
+
+/**
+ * Reader for the pre-aggregated quantile digests of the star tree aggregated documents.
+ */
+public class StarTreeQuantileDigestIndex extends StarTreeObjectIndex<QuantileDigest> {
+
+  public StarTreeQuantileDigestIndex(File quantileDigestFile, ReadMode readMode) throws IOException {
+    super(quantileDigestFile, readMode, ObjectType.QuantileDigest);
+  }
+
+  /**
+   * Returns the pre-aggregated quantile digest of the given column for the given document, or null if the column
+   * has no quantile digests or the document is not an aggregated document of the star tree.
+   */
+  @Nullable
+  public QuantileDigest getQuantileDigest(String column, int docId) {
+    return getObject(column, docId);
+  }
+}
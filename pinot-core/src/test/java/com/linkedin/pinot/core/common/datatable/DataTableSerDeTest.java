@@ -21,6 +21,7 @@ import com.linkedin.pinot.common.response.ProcessingException;
 import com.linkedin.pinot.common.utils.DataSchema;
 import com.linkedin.pinot.common.utils.DataTable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Random;
 import org.apache.commons.lang.RandomStringUtils;
@@ -57,6 +58,62 @@ public class DataTableSerDeTest {
     Assert.assertEquals(actual, expected);
   }
 
+  @Test
+  public void testLazyDataTable()
+      throws IOException {
+    DataSchema dataSchema =
+        new DataSchema(new String[]{"string", "stringArray", "double"}, new DataType[]{DataType.STRING,
+            DataType.STRING_ARRAY, DataType.DOUBLE});
+    DataTableBuilder dataTableBuilder = new DataTableBuilder(dataSchema);
+    String[] strings = new String[NUM_ROWS];
+    String[][] stringArrays = new String[NUM_ROWS][];
+    double[] doubles = new double[NUM_ROWS];
+    for (int rowId = 0; rowId < NUM_ROWS; rowId++) {
+      dataTableBuilder.startRow();
+      strings[rowId] = RandomStringUtils.random(RANDOM.nextInt(20));
+      dataTableBuilder.setColumn(0, strings[rowId]);
+      int length = RANDOM.nextInt(20);
+      stringArrays[rowId] = new String[length];
+      for (int i = 0; i < length; i++) {
+        stringArrays[rowId][i] = RandomStringUtils.random(RANDOM.nextInt(20));
+      }
+      dataTableBuilder.setColumn(1, stringArrays[rowId]);
+      doubles[rowId] = RANDOM.nextDouble();
+      dataTableBuilder.setColumn(2, doubles[rowId]);
+      dataTableBuilder.finishRow();
+    }
+    DataTable dataTable = dataTableBuilder.build();
+    dataTable.getMetadata().put(DataTable.NUM_DOCS_SCANNED_METADATA_KEY, Integer.toString(NUM_ROWS));
+
+    // Read the data table from the middle of a larger buffer.
+    byte[] dataTableBytes = dataTable.toBytes();
+    ByteBuffer byteBuffer = ByteBuffer.allocate(dataTableBytes.length + 20);
+    byteBuffer.position(10);
+    byteBuffer.put(dataTableBytes);
+    byteBuffer.position(10);
+    DataTable newDataTable = DataTableFactory.getDataTable(byteBuffer);
+    Assert.assertTrue(newDataTable instanceof LazyDataTableImplV2);
+
+    // Add an exception and serialize the data table again.
+    ProcessingException processingException = QueryException.getException(QueryException.QUERY_EXECUTION_ERROR,
+        new UnsupportedOperationException("Caught exception."));
+    newDataTable.addException(processingException);
+    newDataTable = DataTableFactory.getDataTable(newDataTable.toBytes());
+
+    Assert.assertEquals(newDataTable.getDataSchema(), dataSchema, ERROR_MESSAGE);
+    Assert.assertEquals(newDataTable.getNumberOfRows(), NUM_ROWS, ERROR_MESSAGE);
+    Assert.assertEquals(newDataTable.getMetadata().get(DataTable.NUM_DOCS_SCANNED_METADATA_KEY),
+        Integer.toString(NUM_ROWS), ERROR_MESSAGE);
+    Assert.assertEquals(newDataTable.getMetadata()
+            .get(DataTable.EXCEPTION_METADATA_KEY + QueryException.QUERY_EXECUTION_ERROR.getErrorCode()),
+        processingException.getMessage(), ERROR_MESSAGE);
+    for (int rowId = 0; rowId < NUM_ROWS; rowId++) {
+      Assert.assertEquals(newDataTable.getString(rowId, 0), strings[rowId], ERROR_MESSAGE);
+      Assert.assertTrue(Arrays.equals(newDataTable.getStringArray(rowId, 1), stringArrays[rowId]), ERROR_MESSAGE);
+      Assert.assertEquals(newDataTable.getDouble(rowId, 2), doubles[rowId], ERROR_MESSAGE);
+    }
+  }
+
   @Test
   public void testAllDataTypes()
       throws IOException {
@@ -212,73 +269,139 @@ public class DataTableSerDeTest {
     }
 
     DataTable dataTable = dataTableBuilder.build();
-    DataTable newDataTable = DataTableFactory.getDataTable(dataTable.toBytes());
-    Assert.assertEquals(newDataTable.getDataSchema(), dataSchema, ERROR_MESSAGE);
-    Assert.assertEquals(newDataTable.getNumberOfRows(), NUM_ROWS, ERROR_MESSAGE);
+    for (int version : new int[]{DataTableImplV2.VERSION, DataTableImplV3.VERSION}) {
+      DataTable newDataTable = DataTableFactory.getDataTable(DataTableFactory.toBytes(dataTable, version));
+      Assert.assertEquals(newDataTable.getDataSchema(), dataSchema, ERROR_MESSAGE);
+      Assert.assertEquals(newDataTable.getNumberOfRows(), NUM_ROWS, ERROR_MESSAGE);
 
-    for (int rowId = 0; rowId < NUM_ROWS; rowId++) {
-      for (int colId = 0; colId < numColumns; colId++) {
-        switch (columnTypes[colId]) {
-          case BOOLEAN:
-            Assert.assertEquals(newDataTable.getBoolean(rowId, colId), booleans[rowId], ERROR_MESSAGE);
-            break;
-          case BYTE:
-            Assert.assertEquals(newDataTable.getByte(rowId, colId), bytes[rowId], ERROR_MESSAGE);
-            break;
-          case CHAR:
-            Assert.assertEquals(newDataTable.getChar(rowId, colId), chars[rowId], ERROR_MESSAGE);
-            break;
-          case SHORT:
-            Assert.assertEquals(newDataTable.getShort(rowId, colId), shorts[rowId], ERROR_MESSAGE);
-            break;
-          case INT:
-            Assert.assertEquals(newDataTable.getInt(rowId, colId), ints[rowId], ERROR_MESSAGE);
-            break;
-          case LONG:
-            Assert.assertEquals(newDataTable.getLong(rowId, colId), longs[rowId], ERROR_MESSAGE);
-            break;
-          case FLOAT:
-            Assert.assertEquals(newDataTable.getFloat(rowId, colId), floats[rowId], ERROR_MESSAGE);
-            break;
-          case DOUBLE:
-            Assert.assertEquals(newDataTable.getDouble(rowId, colId), doubles[rowId], ERROR_MESSAGE);
-            break;
-          case STRING:
-            Assert.assertEquals(newDataTable.getString(rowId, colId), strings[rowId], ERROR_MESSAGE);
-            break;
-          case OBJECT:
-            Assert.assertEquals(newDataTable.getObject(rowId, colId), objects[rowId], ERROR_MESSAGE);
-            break;
-          case BYTE_ARRAY:
-            Assert.assertTrue(Arrays.equals(newDataTable.getByteArray(rowId, colId), byteArrays[rowId]), ERROR_MESSAGE);
-            break;
-          case CHAR_ARRAY:
-            Assert.assertTrue(Arrays.equals(newDataTable.getCharArray(rowId, colId), charArrays[rowId]), ERROR_MESSAGE);
-            break;
-          case SHORT_ARRAY:
-            Assert.assertTrue(Arrays.equals(newDataTable.getShortArray(rowId, colId), shortArrays[rowId]),
-                ERROR_MESSAGE);
-            break;
-          case INT_ARRAY:
-            Assert.assertTrue(Arrays.equals(newDataTable.getIntArray(rowId, colId), intArrays[rowId]), ERROR_MESSAGE);
-            break;
-          case LONG_ARRAY:
-            Assert.assertTrue(Arrays.equals(newDataTable.getLongArray(rowId, colId), longArrays[rowId]), ERROR_MESSAGE);
-            break;
-          case FLOAT_ARRAY:
-            Assert.assertTrue(Arrays.equals(newDataTable.getFloatArray(rowId, colId), floatArrays[rowId]),
-                ERROR_MESSAGE);
-            break;
-          case DOUBLE_ARRAY:
-            Assert.assertTrue(Arrays.equals(newDataTable.getDoubleArray(rowId, colId), doubleArrays[rowId]),
-                ERROR_MESSAGE);
-            break;
-          case STRING_ARRAY:
-            Assert.assertTrue(Arrays.equals(newDataTable.getStringArray(rowId, colId), stringArrays[rowId]),
-                ERROR_MESSAGE);
-            break;
+      for (int rowId = 0; rowId < NUM_ROWS; rowId++) {
+        for (int colId = 0; colId < numColumns; colId++) {
+          switch (columnTypes[colId]) {
+            case BOOLEAN:
+              Assert.assertEquals(newDataTable.getBoolean(rowId, colId), booleans[rowId], ERROR_MESSAGE);
+              break;
+            case BYTE:
+              Assert.assertEquals(newDataTable.getByte(rowId, colId), bytes[rowId], ERROR_MESSAGE);
+              break;
+            case CHAR:
+              Assert.assertEquals(newDataTable.getChar(rowId, colId), chars[rowId], ERROR_MESSAGE);
+              break;
+            case SHORT:
+              Assert.assertEquals(newDataTable.getShort(rowId, colId), shorts[rowId], ERROR_MESSAGE);
+              break;
+            case INT:
+              Assert.assertEquals(newDataTable.getInt(rowId, colId), ints[rowId], ERROR_MESSAGE);
+              break;
+            case LONG:
+              Assert.assertEquals(newDataTable.getLong(rowId, colId), longs[rowId], ERROR_MESSAGE);
+              break;
+            case FLOAT:
+              Assert.assertEquals(newDataTable.getFloat(rowId, colId), floats[rowId], ERROR_MESSAGE);
+              break;
+            case DOUBLE:
+              Assert.assertEquals(newDataTable.getDouble(rowId, colId), doubles[rowId], ERROR_MESSAGE);
+              break;
+            case STRING:
+              Assert.assertEquals(newDataTable.getString(rowId, colId), strings[rowId], ERROR_MESSAGE);
+              break;
+            case OBJECT:
+              Assert.assertEquals(newDataTable.getObject(rowId, colId), objects[rowId], ERROR_MESSAGE);
+              break;
+            case BYTE_ARRAY:
+              Assert.assertTrue(Arrays.equals(newDataTable.getByteArray(rowId, colId), byteArrays[rowId]),
+                  ERROR_MESSAGE);
+              break;
+            case CHAR_ARRAY:
+              Assert.assertTrue(Arrays.equals(newDataTable.getCharArray(rowId, colId), charArrays[rowId]),
+                  ERROR_MESSAGE);
+              break;
+            case SHORT_ARRAY:
+              Assert.assertTrue(Arrays.equals(newDataTable.getShortArray(rowId, colId), shortArrays[rowId]),
+                  ERROR_MESSAGE);
+              break;
+            case INT_ARRAY:
+              Assert.assertTrue(Arrays.equals(newDataTable.getIntArray(rowId, colId), intArrays[rowId]), ERROR_MESSAGE);
+              break;
+            case LONG_ARRAY:
+              Assert.assertTrue(Arrays.equals(newDataTable.getLongArray(rowId, colId), longArrays[rowId]),
+                  ERROR_MESSAGE);
+              break;
+            case FLOAT_ARRAY:
+              Assert.assertTrue(Arrays.equals(newDataTable.getFloatArray(rowId, colId), floatArrays[rowId]),
+                  ERROR_MESSAGE);
+              break;
+            case DOUBLE_ARRAY:
+              Assert.assertTrue(Arrays.equals(newDataTable.getDoubleArray(rowId, colId), doubleArrays[rowId]),
+                  ERROR_MESSAGE);
+              break;
+            case STRING_ARRAY:
+              Assert.assertTrue(Arrays.equals(newDataTable.getStringArray(rowId, colId), stringArrays[rowId]),
+                  ERROR_MESSAGE);
+              break;
+          }
         }
       }
     }
   }
+
+  @Test
+  public void testColumnarDataTable()
+      throws IOException {
+    DataSchema dataSchema = new DataSchema(new String[]{"sortedInt", "smallInt", "extremeLong", "constantString"},
+        new DataType[]{DataType.INT, DataType.INT, DataType.LONG, DataType.STRING});
+    DataTableBuilder dataTableBuilder = new DataTableBuilder(dataSchema);
+    int[] sortedInts = new int[NUM_ROWS];
+    int[] smallInts = new int[NUM_ROWS];
+    long[] extremeLongs = new long[NUM_ROWS];
+    for (int rowId = 0; rowId < NUM_ROWS; rowId++) {
+      dataTableBuilder.startRow();
+      sortedInts[rowId] = 1000000 + rowId * 3;
+      dataTableBuilder.setColumn(0, sortedInts[rowId]);
+      smallInts[rowId] = RANDOM.nextInt(100) - 50;
+      dataTableBuilder.setColumn(1, smallInts[rowId]);
+      extremeLongs[rowId] = RANDOM.nextBoolean() ? Long.MIN_VALUE : Long.MAX_VALUE;
+      dataTableBuilder.setColumn(2, extremeLongs[rowId]);
+      dataTableBuilder.setColumn(3, "constant");
+      dataTableBuilder.finishRow();
+    }
+    DataTable dataTable = dataTableBuilder.build();
+    dataTable.getMetadata().put(DataTable.NUM_DOCS_SCANNED_METADATA_KEY, Integer.toString(NUM_ROWS));
+
+    int columnarSize = 0;
+    for (DataTableImplV3.CompressionType compressionType : DataTableImplV3.CompressionType.values()) {
+      byte[] bytes = DataTableImplV3.toBytes(dataTable, compressionType);
+      if (compressionType == DataTableImplV3.CompressionType.NONE) {
+        columnarSize = bytes.length;
+      } else {
+        Assert.assertTrue(bytes.length <= columnarSize, ERROR_MESSAGE);
+      }
+      DataTable newDataTable = DataTableFactory.getDataTable(bytes);
+      Assert.assertTrue(newDataTable instanceof DataTableImplV3);
+      Assert.assertEquals(newDataTable.getDataSchema(), dataSchema, ERROR_MESSAGE);
+      Assert.assertEquals(newDataTable.getNumberOfRows(), NUM_ROWS, ERROR_MESSAGE);
+      Assert.assertEquals(newDataTable.getMetadata().get(DataTable.NUM_DOCS_SCANNED_METADATA_KEY),
+          Integer.toString(NUM_ROWS), ERROR_MESSAGE);
+      for (int rowId = 0; rowId < NUM_ROWS; rowId++) {
+        Assert.assertEquals(newDataTable.getInt(rowId, 0), sortedInts[rowId], ERROR_MESSAGE);
+        Assert.assertEquals(newDataTable.getInt(rowId, 1), smallInts[rowId], ERROR_MESSAGE);
+        Assert.assertEquals(newDataTable.getLong(rowId, 2), extremeLongs[rowId], ERROR_MESSAGE);
+        Assert.assertEquals(newDataTable.getString(rowId, 3), "constant", ERROR_MESSAGE);
+      }
+    }
+
+    // Bit-packed and dictionary-encoded columns should be smaller than the row-based format.
+    Assert.assertTrue(columnarSize < dataTable.toBytes().length, ERROR_MESSAGE);
+
+    // Data table with only exceptions.
+    DataTable exceptionDataTable = new DataTableImplV2();
+    ProcessingException processingException = QueryException.getException(QueryException.QUERY_EXECUTION_ERROR,
+        new UnsupportedOperationException("Caught exception."));
+    exceptionDataTable.addException(processingException);
+    DataTable newDataTable = DataTableFactory.getDataTable(DataTableFactory.toBytes(exceptionDataTable, 3));
+    Assert.assertNull(newDataTable.getDataSchema());
+    Assert.assertEquals(newDataTable.getNumberOfRows(), 0);
+    Assert.assertEquals(newDataTable.getMetadata()
+            .get(DataTable.EXCEPTION_METADATA_KEY + QueryException.QUERY_EXECUTION_ERROR.getErrorCode()),
+        processingException.getMessage());
+  }
 }
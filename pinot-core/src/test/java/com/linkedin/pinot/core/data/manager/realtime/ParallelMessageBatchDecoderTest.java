@@ -0,0 +1,175 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.data.manager.realtime;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.extractors.FieldExtractorFactory;
+import com.linkedin.pinot.core.data.extractors.PlainFieldExtractor;
+import com.linkedin.pinot.core.realtime.impl.kafka.KafkaMessageDecoder;
+import com.linkedin.pinot.core.realtime.impl.kafka.MessageBatch;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class ParallelMessageBatchDecoderTest {
+  private static final String COLUMN_NAME = "column";
+  private static final int NUM_THREADS = 3;
+  private static final int NUM_MESSAGES = 10 * ParallelMessageBatchDecoder.CHUNK_SIZE + 7;
+
+  @Test
+  public void testDecode() throws Exception {
+    Schema schema = new Schema.SchemaBuilder().addSingleValueDimension(COLUMN_NAME, FieldSpec.DataType.INT).build();
+    List<KafkaMessageDecoder> messageDecoders = new ArrayList<>(NUM_THREADS);
+    List<PlainFieldExtractor> fieldExtractors = new ArrayList<>(NUM_THREADS);
+    for (int i = 0; i < NUM_THREADS; i++) {
+      messageDecoders.add(new FakeMessageDecoder());
+      fieldExtractors.add(FieldExtractorFactory.getPlainFieldExtractor(schema));
+    }
+    ParallelMessageBatchDecoder parallelDecoder =
+        new ParallelMessageBatchDecoder(messageDecoders, fieldExtractors, "testDecode");
+
+    try {
+      // Decode two batches concurrently
+      ParallelMessageBatchDecoder.DecodedMessageBatch decodedBatch1 = parallelDecoder.decode(new FakeMessageBatch(0));
+      ParallelMessageBatchDecoder.DecodedMessageBatch decodedBatch2 =
+          parallelDecoder.decode(new FakeMessageBatch(NUM_MESSAGES));
+      checkDecodedMessages(decodedBatch1, 0);
+      checkDecodedMessages(decodedBatch2, NUM_MESSAGES);
+
+      // Messages with value being a multiple of 5 have null value
+      int expectedNumNulls = 0;
+      for (int i = 0; i < 2 * NUM_MESSAGES; i++) {
+        if (i % 7 != 0 && i % 5 == 0) {
+          expectedNumNulls++;
+        }
+      }
+      PlainFieldExtractor fieldExtractor = FieldExtractorFactory.getPlainFieldExtractor(schema);
+      parallelDecoder.mergeCountersInto(fieldExtractor);
+      Assert.assertEquals(fieldExtractor.getTotalNulls(), expectedNumNulls);
+      Assert.assertEquals(fieldExtractor.getTotalNullCols(), expectedNumNulls);
+      Assert.assertEquals(fieldExtractor.getTotalErrors(), 0);
+
+      // Counters of the decoding field extractors should be reset after merging
+      parallelDecoder.mergeCountersInto(fieldExtractor);
+      Assert.assertEquals(fieldExtractor.getTotalNulls(), expectedNumNulls);
+    } finally {
+      parallelDecoder.shutDown();
+    }
+  }
+
+  @Test
+  public void testDiscard() throws Exception {
+    Schema schema = new Schema.SchemaBuilder().addSingleValueDimension(COLUMN_NAME, FieldSpec.DataType.INT).build();
+    List<KafkaMessageDecoder> messageDecoders = new ArrayList<>(1);
+    messageDecoders.add(new FakeMessageDecoder());
+    List<PlainFieldExtractor> fieldExtractors = new ArrayList<>(1);
+    fieldExtractors.add(FieldExtractorFactory.getPlainFieldExtractor(schema));
+    ParallelMessageBatchDecoder parallelDecoder =
+        new ParallelMessageBatchDecoder(messageDecoders, fieldExtractors, "testDiscard");
+
+    try {
+      ParallelMessageBatchDecoder.DecodedMessageBatch decodedBatch = parallelDecoder.decode(new FakeMessageBatch(0));
+      decodedBatch.discard();
+
+      // Decoder should still be usable after discarding a batch
+      checkDecodedMessages(parallelDecoder.decode(new FakeMessageBatch(0)), 0);
+    } finally {
+      parallelDecoder.shutDown();
+    }
+  }
+
+  private void checkDecodedMessages(ParallelMessageBatchDecoder.DecodedMessageBatch decodedBatch, int startValue)
+      throws InterruptedException {
+    for (int i = 0; i < NUM_MESSAGES; i++) {
+      int value = startValue + i;
+      if (value % 7 == 0) {
+        // Messages with value being a multiple of 7 cannot be decoded
+        Assert.assertFalse(decodedBatch.waitForMessage(i));
+      } else {
+        Assert.assertTrue(decodedBatch.waitForMessage(i));
+        GenericRow transformedRow = decodedBatch.getTransformedRow(i);
+        if (value % 5 == 0) {
+          Assert.assertEquals(transformedRow.getValue(COLUMN_NAME), Integer.MIN_VALUE);
+        } else {
+          Assert.assertEquals(transformedRow.getValue(COLUMN_NAME), value);
+        }
+      }
+    }
+  }
+
+  /**
+   * Message batch where each message is the value of the row, starting from the given value.
+   */
+  private static class FakeMessageBatch implements MessageBatch<Integer> {
+    private final int _startValue;
+
+    private FakeMessageBatch(int startValue) {
+      _startValue = startValue;
+    }
+
+    @Override
+    public int getMessageCount() {
+      return NUM_MESSAGES;
+    }
+
+    @Override
+    public Integer getMessageAtIndex(int index) {
+      return _startValue + index;
+    }
+
+    @Override
+    public int getMessageOffsetAtIndex(int index) {
+      return 0;
+    }
+
+    @Override
+    public int getMessageLengthAtIndex(int index) {
+      return 1;
+    }
+
+    @Override
+    public long getNextKafkaMessageOffsetAtIndex(int index) {
+      return _startValue + index + 1;
+    }
+  }
+
+  private static class FakeMessageDecoder implements KafkaMessageDecoder<Integer> {
+    @Override
+    public void init(Map<String, String> props, Schema indexingSchema, String kafkaTopicName) throws Exception {
+    }
+
+    @Override
+    public GenericRow decode(Integer payload, GenericRow destination) {
+      if (payload % 7 == 0) {
+        return null;
+      }
+      if (payload % 5 != 0) {
+        destination.putField(COLUMN_NAME, payload);
+      }
+      return destination;
+    }
+
+    @Override
+    public GenericRow decode(Integer payload, int offset, int length, GenericRow destination) {
+      return decode(payload, destination);
+    }
+  }
+}
@@ -0,0 +1,165 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.dociditerators;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.core.common.BaseBlockValSet;
+import com.linkedin.pinot.core.common.BlockMetadata;
+import com.linkedin.pinot.core.common.BlockValIterator;
+import com.linkedin.pinot.core.common.BlockValSet;
+import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.common.Predicate;
+import com.linkedin.pinot.core.io.reader.impl.v1.FixedBitSingleValueReader;
+import com.linkedin.pinot.core.io.util.FixedBitIntReaderWriter;
+import com.linkedin.pinot.core.operator.blocks.BlockMetadataImpl;
+import com.linkedin.pinot.core.operator.docvalsets.SingleValueSet;
+import com.linkedin.pinot.core.operator.filter.predicate.BaseDictionaryBasedPredicateEvaluator;
+import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Test that the batch scan mode of {@link SVScanDocIdIterator} gives the same results as scanning one doc at a time.
+ */
+public class SVScanDocIdIteratorTest {
+  private static final int NUM_DOCS = 10000;
+  private static final int NUM_BITS_PER_VALUE = 3;
+  private static final int NUM_ITERATIONS = 100;
+  private static final Random RANDOM = new Random();
+
+  private PinotDataBuffer _dataBuffer;
+  private SingleValueSet _singleValueSet;
+  private BlockMetadata _blockMetadata;
+
+  @BeforeClass
+  public void setUp() {
+    _dataBuffer = PinotDataBuffer.allocateDirect((NUM_DOCS * NUM_BITS_PER_VALUE + Byte.SIZE - 1) / Byte.SIZE);
+    FixedBitIntReaderWriter writer = new FixedBitIntReaderWriter(_dataBuffer, NUM_DOCS, NUM_BITS_PER_VALUE);
+    for (int i = 0; i < NUM_DOCS; i++) {
+      writer.writeInt(i, RANDOM.nextInt(1 << NUM_BITS_PER_VALUE));
+    }
+    _singleValueSet =
+        new SingleValueSet(new FixedBitSingleValueReader(_dataBuffer, NUM_DOCS, NUM_BITS_PER_VALUE), NUM_DOCS,
+            FieldSpec.DataType.INT);
+    _blockMetadata = new BlockMetadataImpl(NUM_DOCS, true, 0, FieldSpec.DataType.INT, null);
+  }
+
+  @Test
+  public void testNext() {
+    for (int matchingDictId = 0; matchingDictId < (1 << NUM_BITS_PER_VALUE); matchingDictId++) {
+      PredicateEvaluator evaluator = new DictIdEvaluator(matchingDictId);
+      SVScanDocIdIterator batchIterator = getBatchIterator(evaluator);
+      SVScanDocIdIterator docIterator = getDocIterator(evaluator);
+      int docId;
+      do {
+        docId = docIterator.next();
+        Assert.assertEquals(batchIterator.next(), docId);
+      } while (docId != Constants.EOF);
+      Assert.assertEquals(batchIterator.next(), Constants.EOF);
+      Assert.assertEquals(batchIterator.getNumEntriesScanned(), docIterator.getNumEntriesScanned());
+    }
+  }
+
+  @Test
+  public void testAdvance() {
+    for (int i = 0; i < NUM_ITERATIONS; i++) {
+      PredicateEvaluator evaluator = new DictIdEvaluator(RANDOM.nextInt(1 << NUM_BITS_PER_VALUE));
+      int startDocId = RANDOM.nextInt(NUM_DOCS);
+      int endDocId = startDocId + RANDOM.nextInt(NUM_DOCS - startDocId);
+      SVScanDocIdIterator batchIterator = getBatchIterator(evaluator);
+      batchIterator.setStartDocId(startDocId);
+      batchIterator.setEndDocId(endDocId);
+      SVScanDocIdIterator docIterator = getDocIterator(evaluator);
+      docIterator.setStartDocId(startDocId);
+      docIterator.setEndDocId(endDocId);
+
+      int docId = 0;
+      while (docId != Constants.EOF) {
+        if (RANDOM.nextBoolean()) {
+          docId = docIterator.next();
+          Assert.assertEquals(batchIterator.next(), docId);
+        } else {
+          // Target can be before the current doc id, inside the current batch or after it
+          int targetDocId = Math.max(docId, 0) + RANDOM.nextInt(6000) - 100;
+          docId = docIterator.advance(targetDocId);
+          Assert.assertEquals(batchIterator.advance(targetDocId), docId);
+        }
+        Assert.assertEquals(batchIterator.currentDocId(), docIterator.currentDocId());
+      }
+      Assert.assertEquals(batchIterator.getNumEntriesScanned(), docIterator.getNumEntriesScanned());
+    }
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _dataBuffer.close();
+  }
+
+  private SVScanDocIdIterator getBatchIterator(PredicateEvaluator evaluator) {
+    return new SVScanDocIdIterator("testColumn", _singleValueSet, _blockMetadata, evaluator);
+  }
+
+  /**
+   * Hide the {@link SingleValueSet} behind another block value set to scan one doc at a time.
+   */
+  private SVScanDocIdIterator getDocIterator(PredicateEvaluator evaluator) {
+    BlockValSet blockValSet = new BaseBlockValSet() {
+      @Override
+      public BlockValIterator iterator() {
+        return _singleValueSet.iterator();
+      }
+
+      @Override
+      public FieldSpec.DataType getValueType() {
+        return FieldSpec.DataType.INT;
+      }
+    };
+    return new SVScanDocIdIterator("testColumn", blockValSet, _blockMetadata, evaluator);
+  }
+
+  private static class DictIdEvaluator extends BaseDictionaryBasedPredicateEvaluator {
+    private final int _matchingDictId;
+
+    DictIdEvaluator(int matchingDictId) {
+      _matchingDictId = matchingDictId;
+    }
+
+    @Override
+    public Predicate.Type getPredicateType() {
+      return Predicate.Type.EQ;
+    }
+
+    @Override
+    public boolean isAlwaysFalse() {
+      return false;
+    }
+
+    @Override
+    public boolean applySV(int dictId) {
+      return dictId == _matchingDictId;
+    }
+
+    @Override
+    public int[] getMatchingDictIds() {
+      return new int[]{_matchingDictId};
+    }
+  }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.filter;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.common.BlockDocIdIterator;
+import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.common.Predicate;
+import com.linkedin.pinot.core.common.predicate.RangePredicate;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluatorProvider;
+import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import com.linkedin.pinot.core.segment.index.loader.IndexLoadingConfig;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+public class RangeIndexBasedFilterOperatorTest {
+  private static final String AVRO_DATA = "data" + File.separator + "test_data-sv.avro";
+  private static final String SEGMENT_NAME = "testTable_126164076_167572854";
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "RangeIndexBasedFilterOperatorTest");
+  // Range index for column1 is created with the segment, range index for column3 is created when loading the segment
+  private static final String[] RANGE_INDEX_COLUMNS = {"column1", "column3"};
+  private static final int NUM_RANDOM_RANGES = 20;
+  private static final Random RANDOM = new Random();
+
+  private IndexSegment _indexSegment;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+
+    URL resource = getClass().getClassLoader().getResource(AVRO_DATA);
+    Assert.assertNotNull(resource);
+    String filePath = resource.getFile();
+
+    Schema schema = new Schema.SchemaBuilder().setSchemaName("testTable")
+        .addMetric("column1", FieldSpec.DataType.INT)
+        .addMetric("column3", FieldSpec.DataType.INT)
+        .addTime("daysSinceEpoch", TimeUnit.DAYS, FieldSpec.DataType.INT)
+        .build();
+
+    SegmentGeneratorConfig segmentGeneratorConfig = new SegmentGeneratorConfig(schema);
+    segmentGeneratorConfig.setInputFilePath(filePath);
+    segmentGeneratorConfig.setTableName("testTable");
+    segmentGeneratorConfig.setOutDir(INDEX_DIR.getAbsolutePath());
+    segmentGeneratorConfig.setRangeIndexCreationColumns(Collections.singletonList("column1"));
+
+    SegmentIndexCreationDriver driver = new SegmentIndexCreationDriverImpl();
+    driver.init(segmentGeneratorConfig);
+    driver.build();
+
+    IndexLoadingConfig indexLoadingConfig = new IndexLoadingConfig();
+    indexLoadingConfig.setReadMode(ReadMode.heap);
+    indexLoadingConfig.setRangeIndexColumns(new HashSet<>(Arrays.asList(RANGE_INDEX_COLUMNS)));
+    _indexSegment = ColumnarSegmentLoader.load(new File(INDEX_DIR, SEGMENT_NAME), indexLoadingConfig);
+  }
+
+  @Test
+  public void testRangeIndexBasedFilterOperator() {
+    for (String column : RANGE_INDEX_COLUMNS) {
+      DataSource dataSource = _indexSegment.getDataSource(column);
+      Assert.assertTrue(dataSource.getDataSourceMetadata().hasRangeIndex());
+      Dictionary dictionary = dataSource.getDictionary();
+      int cardinality = dictionary.length();
+
+      // Full range, exact bounds on dictionary values, and bounds between dictionary values
+      testRange(column, dataSource, "[" + dictionary.get(0) + "\t\t" + dictionary.get(cardinality - 1) + "]");
+      testRange(column, dataSource, "(*\t\t" + dictionary.get(cardinality / 2) + ")");
+      testRange(column, dataSource, "[" + dictionary.get(cardinality / 3) + "\t\t*)");
+      for (int i = 0; i < NUM_RANDOM_RANGES; i++) {
+        int lower = RANDOM.nextInt(cardinality);
+        int upper = lower + RANDOM.nextInt(cardinality - lower);
+        int lowerValue = dictionary.getIntValue(lower);
+        int upperValue = dictionary.getIntValue(upper);
+        testRange(column, dataSource, "[" + lowerValue + "\t\t" + upperValue + "]");
+        testRange(column, dataSource, "(" + lowerValue + "\t\t" + (upperValue + 1) + ")");
+      }
+    }
+  }
+
+  private void testRange(String column, DataSource dataSource, String range) {
+    Predicate predicate = new RangePredicate(column, Collections.singletonList(range));
+    PredicateEvaluator predicateEvaluator = PredicateEvaluatorProvider.getPredicateEvaluator(predicate, dataSource);
+    int endDocId = _indexSegment.getSegmentMetadata().getTotalDocs() - 1;
+
+    BaseFilterOperator filterOperator =
+        FilterOperatorUtils.getLeafFilterOperator(predicateEvaluator, dataSource, 0, endDocId);
+    if (predicateEvaluator.isAlwaysFalse()) {
+      Assert.assertTrue(filterOperator instanceof EmptyFilterOperator);
+      return;
+    }
+    Assert.assertTrue(filterOperator instanceof RangeIndexBasedFilterOperator);
+
+    List<Integer> expected =
+        getDocIds(new ScanBasedFilterOperator(predicateEvaluator, dataSource, 0, endDocId).nextBlock()
+            .getBlockDocIdSet()
+            .iterator());
+    List<Integer> actual = getDocIds(filterOperator.nextBlock().getBlockDocIdSet().iterator());
+    Assert.assertEquals(actual, expected, "Mismatch for range: " + range + " on " + column);
+  }
+
+  private static List<Integer> getDocIds(BlockDocIdIterator iterator) {
+    List<Integer> docIds = new ArrayList<>();
+    int docId;
+    while ((docId = iterator.next()) != Constants.EOF) {
+      docIds.add(docId);
+    }
+    return docIds;
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _indexSegment.destroy();
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+}
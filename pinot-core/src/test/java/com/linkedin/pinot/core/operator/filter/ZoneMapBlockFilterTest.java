@@ -0,0 +1,268 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.filter;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.common.BlockDocIdIterator;
+import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.common.Predicate;
+import com.linkedin.pinot.core.common.predicate.EqPredicate;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.common.predicate.InPredicate;
+import com.linkedin.pinot.core.common.predicate.NEqPredicate;
+import com.linkedin.pinot.core.common.predicate.NotInPredicate;
+import com.linkedin.pinot.core.common.predicate.RangePredicate;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.operator.docidsets.FilterBlockDocIdSet;
+import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluatorProvider;
+import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import com.linkedin.pinot.core.segment.index.loader.IndexLoadingConfig;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.util.TestUtils;
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+public class ZoneMapBlockFilterTest {
+  private static final String AVRO_DATA = "data" + File.separator + "test_data-sv.avro";
+  private static final String SEGMENT_NAME = "testTable_126164076_167572854";
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "ZoneMapBlockFilterTest");
+  private static final String[] ZONE_MAP_COLUMNS = {"column1", "column3"};
+  private static final String MV_SEGMENT_NAME = "testTableMV";
+  private static final String MV_COLUMN = "mvColumn";
+  private static final int NUM_MV_ROWS = 10000;
+  // Values of each multi-value row are within [docId / MV_VALUE_STEP, docId / MV_VALUE_STEP + MV_VALUE_RANGE)
+  private static final int MV_VALUE_STEP = 20;
+  private static final int MV_VALUE_RANGE = 5;
+  private static final int NUM_DOCS_PER_BLOCK = 16;
+  private static final int NUM_RANDOM_PREDICATES = 20;
+  private static final Random RANDOM = new Random();
+
+  private IndexSegment _indexSegment;
+  private IndexSegment _mvIndexSegment;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+
+    URL resource = getClass().getClassLoader().getResource(AVRO_DATA);
+    Assert.assertNotNull(resource);
+    String filePath = resource.getFile();
+
+    Schema schema = new Schema.SchemaBuilder().setSchemaName("testTable")
+        .addMetric("column1", FieldSpec.DataType.INT)
+        .addMetric("column3", FieldSpec.DataType.INT)
+        .addTime("daysSinceEpoch", TimeUnit.DAYS, FieldSpec.DataType.INT)
+        .build();
+
+    SegmentGeneratorConfig segmentGeneratorConfig = new SegmentGeneratorConfig(schema);
+    segmentGeneratorConfig.setInputFilePath(filePath);
+    segmentGeneratorConfig.setTableName("testTable");
+    segmentGeneratorConfig.setOutDir(INDEX_DIR.getAbsolutePath());
+    segmentGeneratorConfig.setZoneMapIndexCreationColumns(Arrays.asList(ZONE_MAP_COLUMNS));
+    segmentGeneratorConfig.setZoneMapNumDocsPerBlock(NUM_DOCS_PER_BLOCK);
+
+    SegmentIndexCreationDriver driver = new SegmentIndexCreationDriverImpl();
+    driver.init(segmentGeneratorConfig);
+    driver.build();
+
+    IndexLoadingConfig indexLoadingConfig = new IndexLoadingConfig();
+    indexLoadingConfig.setReadMode(ReadMode.heap);
+    _indexSegment = ColumnarSegmentLoader.load(new File(INDEX_DIR, SEGMENT_NAME), indexLoadingConfig);
+
+    // Multi-value segment with values clustered by doc id
+    Schema mvSchema = new Schema.SchemaBuilder().setSchemaName("testTableMV")
+        .addMultiValueDimension(MV_COLUMN, FieldSpec.DataType.INT)
+        .build();
+    List<GenericRow> rows = new ArrayList<>(NUM_MV_ROWS);
+    for (int i = 0; i < NUM_MV_ROWS; i++) {
+      int numValues = 1 + RANDOM.nextInt(3);
+      Object[] values = new Object[numValues];
+      for (int j = 0; j < numValues; j++) {
+        values[j] = i / MV_VALUE_STEP + RANDOM.nextInt(MV_VALUE_RANGE);
+      }
+      Map<String, Object> fields = new HashMap<>();
+      fields.put(MV_COLUMN, values);
+      GenericRow row = new GenericRow();
+      row.init(fields);
+      rows.add(row);
+    }
+
+    SegmentGeneratorConfig mvSegmentGeneratorConfig = new SegmentGeneratorConfig(mvSchema);
+    mvSegmentGeneratorConfig.setTableName("testTableMV");
+    mvSegmentGeneratorConfig.setSegmentName(MV_SEGMENT_NAME);
+    mvSegmentGeneratorConfig.setOutDir(INDEX_DIR.getAbsolutePath());
+    mvSegmentGeneratorConfig.setZoneMapIndexCreationColumns(Collections.singletonList(MV_COLUMN));
+    mvSegmentGeneratorConfig.setZoneMapNumDocsPerBlock(NUM_DOCS_PER_BLOCK);
+
+    SegmentIndexCreationDriverImpl mvDriver = new SegmentIndexCreationDriverImpl();
+    mvDriver.init(mvSegmentGeneratorConfig, new TestUtils.GenericRowRecordReader(mvSchema, rows));
+    mvDriver.build();
+    _mvIndexSegment = ColumnarSegmentLoader.load(new File(INDEX_DIR, MV_SEGMENT_NAME), indexLoadingConfig);
+  }
+
+  @Test
+  public void testMightMatch() {
+    // Inclusive predicate with matching dictionary ids 3, 5, 9
+    int[] matchingDictIds = {3, 5, 9};
+    Assert.assertTrue(ZoneMapBlockFilter.mightMatch(matchingDictIds, false, 0, 3));
+    Assert.assertTrue(ZoneMapBlockFilter.mightMatch(matchingDictIds, false, 4, 6));
+    Assert.assertTrue(ZoneMapBlockFilter.mightMatch(matchingDictIds, false, 9, 20));
+    Assert.assertFalse(ZoneMapBlockFilter.mightMatch(matchingDictIds, false, 0, 2));
+    Assert.assertFalse(ZoneMapBlockFilter.mightMatch(matchingDictIds, false, 6, 8));
+    Assert.assertFalse(ZoneMapBlockFilter.mightMatch(matchingDictIds, false, 10, 20));
+
+    // Exclusive predicate with non-matching dictionary ids 3, 4, 5
+    int[] nonMatchingDictIds = {3, 4, 5};
+    Assert.assertTrue(ZoneMapBlockFilter.mightMatch(nonMatchingDictIds, true, 2, 3));
+    Assert.assertTrue(ZoneMapBlockFilter.mightMatch(nonMatchingDictIds, true, 3, 6));
+    Assert.assertFalse(ZoneMapBlockFilter.mightMatch(nonMatchingDictIds, true, 3, 5));
+    Assert.assertFalse(ZoneMapBlockFilter.mightMatch(nonMatchingDictIds, true, 4, 4));
+
+    // Block without recorded value cannot be pruned
+    Assert.assertTrue(ZoneMapBlockFilter.mightMatch(matchingDictIds, false, Integer.MAX_VALUE, Integer.MIN_VALUE));
+  }
+
+  @Test
+  public void testScanWithZoneMap() {
+    for (String column : ZONE_MAP_COLUMNS) {
+      DataSource dataSource = _indexSegment.getDataSource(column);
+      Assert.assertTrue(dataSource.getDataSourceMetadata().hasZoneMap());
+      Dictionary dictionary = dataSource.getDictionary();
+      int cardinality = dictionary.length();
+
+      for (int i = 0; i < NUM_RANDOM_PREDICATES; i++) {
+        String value = dictionary.get(RANDOM.nextInt(cardinality)).toString();
+        String value2 = dictionary.get(RANDOM.nextInt(cardinality)).toString();
+        testPredicate(_indexSegment, dataSource, new EqPredicate(column, Collections.singletonList(value)), true);
+        testPredicate(_indexSegment, dataSource,
+            new InPredicate(column, Collections.singletonList(value + InPredicate.DELIMITER + value2)), true);
+        testPredicate(_indexSegment, dataSource, new NEqPredicate(column, Collections.singletonList(value)), false);
+        testPredicate(_indexSegment, dataSource,
+            new NotInPredicate(column, Collections.singletonList(value + InPredicate.DELIMITER + value2)), false);
+
+        int lower = RANDOM.nextInt(cardinality);
+        int upper = lower + RANDOM.nextInt(Math.min(cardinality - lower, 10));
+        testPredicate(_indexSegment, dataSource, new RangePredicate(column,
+            Collections.singletonList("[" + dictionary.get(lower) + "\t\t" + dictionary.get(upper) + "]")), false);
+      }
+    }
+  }
+
+  @Test
+  public void testScanWithZoneMapOnMultiValueColumn() {
+    DataSource dataSource = _mvIndexSegment.getDataSource(MV_COLUMN);
+    Assert.assertFalse(dataSource.getDataSourceMetadata().isSingleValue());
+    Assert.assertTrue(dataSource.getDataSourceMetadata().hasZoneMap());
+    Dictionary dictionary = dataSource.getDictionary();
+    int cardinality = dictionary.length();
+
+    // The first and the last values only appear in the first and the last few blocks, so the blocks in between can
+    // only be skipped (not scanned) by jumping to the next candidate block
+    String firstValue = dictionary.get(0).toString();
+    String lastValue = dictionary.get(cardinality - 1).toString();
+    long numEntriesScanned = testPredicate(_mvIndexSegment, dataSource,
+        new InPredicate(MV_COLUMN, Collections.singletonList(firstValue + InPredicate.DELIMITER + lastValue)), true);
+    Assert.assertTrue(numEntriesScanned < NUM_MV_ROWS / 2, "Blocks in between not skipped");
+
+    for (int i = 0; i < NUM_RANDOM_PREDICATES; i++) {
+      String value = dictionary.get(RANDOM.nextInt(cardinality)).toString();
+      String value2 = dictionary.get(RANDOM.nextInt(cardinality)).toString();
+      testPredicate(_mvIndexSegment, dataSource, new EqPredicate(MV_COLUMN, Collections.singletonList(value)), true);
+      testPredicate(_mvIndexSegment, dataSource,
+          new InPredicate(MV_COLUMN, Collections.singletonList(value + InPredicate.DELIMITER + value2)), true);
+      testPredicate(_mvIndexSegment, dataSource, new NEqPredicate(MV_COLUMN, Collections.singletonList(value)),
+          false);
+      testPredicate(_mvIndexSegment, dataSource,
+          new NotInPredicate(MV_COLUMN, Collections.singletonList(value + InPredicate.DELIMITER + value2)), false);
+
+      int lower = RANDOM.nextInt(cardinality);
+      int upper = lower + RANDOM.nextInt(Math.min(cardinality - lower, 10));
+      testPredicate(_mvIndexSegment, dataSource, new RangePredicate(MV_COLUMN,
+          Collections.singletonList("[" + dictionary.get(lower) + "\t\t" + dictionary.get(upper) + "]")), false);
+    }
+  }
+
+  /**
+   * Checks that the scan with zone map matches the same documents as the scan without zone map, and returns the number
+   * of entries scanned with zone map.
+   */
+  private long testPredicate(IndexSegment indexSegment, DataSource dataSource, Predicate predicate,
+      boolean expectFewerEntriesScanned) {
+    PredicateEvaluator predicateEvaluator = PredicateEvaluatorProvider.getPredicateEvaluator(predicate, dataSource);
+    int endDocId = indexSegment.getSegmentMetadata().getTotalDocs() - 1;
+
+    FilterBlockDocIdSet expectedDocIdSet =
+        new ScanBasedFilterOperator(predicateEvaluator, dataSource, 0, endDocId).nextBlock().getFilteredBlockDocIdSet();
+    List<Integer> expected = getDocIds(expectedDocIdSet.iterator());
+
+    BaseFilterOperator filterOperator =
+        FilterOperatorUtils.getLeafFilterOperator(predicateEvaluator, dataSource, 0, endDocId);
+    if (filterOperator instanceof EmptyFilterOperator) {
+      Assert.assertTrue(expected.isEmpty(), "Zone map pruned matching documents for " + predicate);
+      return 0L;
+    }
+    Assert.assertTrue(filterOperator instanceof ScanBasedFilterOperator);
+    FilterBlockDocIdSet actualDocIdSet = filterOperator.nextBlock().getFilteredBlockDocIdSet();
+    List<Integer> actual = getDocIds(actualDocIdSet.iterator());
+    Assert.assertEquals(actual, expected, "Mismatch for " + predicate);
+
+    long expectedNumEntriesScanned = expectedDocIdSet.getNumEntriesScannedInFilter();
+    long actualNumEntriesScanned = actualDocIdSet.getNumEntriesScannedInFilter();
+    if (expectFewerEntriesScanned) {
+      Assert.assertTrue(actualNumEntriesScanned < expectedNumEntriesScanned, "No block skipped for " + predicate);
+    } else {
+      Assert.assertTrue(actualNumEntriesScanned <= expectedNumEntriesScanned);
+    }
+    return actualNumEntriesScanned;
+  }
+
+  private static List<Integer> getDocIds(BlockDocIdIterator iterator) {
+    List<Integer> docIds = new ArrayList<>();
+    int docId;
+    while ((docId = iterator.next()) != Constants.EOF) {
+      docIds.add(docId);
+    }
+    return docIds;
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _indexSegment.destroy();
+    _mvIndexSegment.destroy();
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+}
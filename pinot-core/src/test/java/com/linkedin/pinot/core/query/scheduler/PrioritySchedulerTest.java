@@ -27,6 +27,9 @@ import com.linkedin.pinot.core.common.datatable.DataTableFactory;
 import com.linkedin.pinot.core.common.datatable.DataTableImplV2;
 import com.linkedin.pinot.core.query.scheduler.resources.PolicyBasedResourceManager;
 import com.linkedin.pinot.core.query.scheduler.resources.ResourceLimitPolicy;
+import com.linkedin.pinot.core.query.scheduler.resources.QueryMemoryAccountant;
+import com.linkedin.pinot.core.query.scheduler.resources.QueryMemoryBudgetExceededException;
+import com.linkedin.pinot.core.query.scheduler.resources.QueryMemoryTracker;
 import com.linkedin.pinot.core.query.scheduler.resources.ResourceManager;
 import com.yammer.metrics.core.MetricsRegistry;
 import java.io.IOException;
@@ -203,6 +206,31 @@ public class PrioritySchedulerTest {
     scheduler.stop();
   }
 
+  @Test
+  public void testMemoryBudgetExceededResponse()
+      throws Exception {
+    PropertiesConfiguration conf = new PropertiesConfiguration();
+    conf.setProperty(QueryMemoryAccountant.QUERY_MEMORY_BUDGET_BYTES, 100L);
+    TestPriorityScheduler scheduler = TestPriorityScheduler.create(conf);
+    scheduler.start();
+    QueryMemoryAccountant accountant = scheduler.getResourceManager().getMemoryAccountant();
+    QueryMemoryTracker tracker = accountant.newQueryTracker(1L);
+    try {
+      tracker.allocate(200L);
+      fail("Expected query memory budget to be exceeded");
+    } catch (QueryMemoryBudgetExceededException e) {
+      // Expected
+    }
+    assertFalse(accountant.canAdmit());
+    ListenableFuture<byte[]> result = scheduler.submit(createServerQueryRequest("1", metrics));
+    DataTable response = DataTableFactory.getDataTable(result.get());
+    assertTrue(response.getMetadata().containsKey(
+        DataTable.EXCEPTION_METADATA_KEY + QueryException.QUERY_MEMORY_BUDGET_EXCEEDED_ERROR.getErrorCode()));
+    tracker.release();
+    assertTrue(accountant.canAdmit());
+    scheduler.stop();
+  }
+
   @Test
   public void testSubmitBeforeRunning() throws ExecutionException, InterruptedException, IOException {
     TestPriorityScheduler scheduler = TestPriorityScheduler.create();
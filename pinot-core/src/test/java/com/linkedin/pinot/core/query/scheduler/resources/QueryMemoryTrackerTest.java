@@ -0,0 +1,191 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.scheduler.resources;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+
+public class QueryMemoryTrackerTest {
+
+  @Test
+  public void testPerQueryLimit() {
+    QueryMemoryAccountant accountant = new QueryMemoryAccountant(1000L, 100L);
+    assertTrue(accountant.isEnabled());
+    QueryMemoryTracker tracker = accountant.newQueryTracker(1L);
+    tracker.allocate(60L);
+    assertFalse(tracker.isBudgetExceeded());
+    try {
+      tracker.allocate(60L);
+      fail("Expected query memory budget to be exceeded");
+    } catch (QueryMemoryBudgetExceededException e) {
+      // Expected
+    }
+    assertTrue(tracker.isBudgetExceeded());
+    // Once exceeded, all further allocations fail
+    try {
+      tracker.allocate(1L);
+      fail("Expected query memory budget to be exceeded");
+    } catch (QueryMemoryBudgetExceededException e) {
+      // Expected
+    }
+    assertEquals(accountant.getAllocatedBytes(), 121L);
+
+    tracker.release();
+    assertEquals(accountant.getAllocatedBytes(), 0L);
+    // Release is idempotent
+    tracker.release();
+    assertEquals(accountant.getAllocatedBytes(), 0L);
+  }
+
+  @Test
+  public void testServerBudget() {
+    QueryMemoryAccountant accountant = new QueryMemoryAccountant(100L, 0L);
+    assertEquals(accountant.getMaxBytesPerQuery(), 100L);
+    QueryMemoryTracker first = accountant.newQueryTracker(1L);
+    QueryMemoryTracker second = accountant.newQueryTracker(2L);
+    first.allocate(70L);
+    assertTrue(accountant.canAdmit());
+    try {
+      second.allocate(70L);
+      fail("Expected server memory budget to be exceeded");
+    } catch (QueryMemoryBudgetExceededException e) {
+      // Expected
+    }
+    assertFalse(first.isBudgetExceeded());
+    assertTrue(second.isBudgetExceeded());
+    assertFalse(accountant.canAdmit());
+
+    second.release();
+    assertTrue(accountant.canAdmit());
+    first.release();
+    assertEquals(accountant.getAllocatedBytes(), 0L);
+  }
+
+  @Test
+  public void testConcurrentAllocateAndRelease()
+      throws Exception {
+    final int numWorkers = 4;
+    final int numAllocationsPerWorker = 1000;
+    QueryMemoryAccountant accountant = new QueryMemoryAccountant(Long.MAX_VALUE / 2, 0L);
+    ExecutorService executorService = Executors.newFixedThreadPool(numWorkers + 1);
+    try {
+      for (int iteration = 0; iteration < 200; iteration++) {
+        final QueryMemoryTracker tracker = accountant.newQueryTracker(iteration);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < numWorkers; i++) {
+          futures.add(executorService.submit(new Runnable() {
+            @Override
+            public void run() {
+              awaitQuietly(startLatch);
+              for (int j = 0; j < numAllocationsPerWorker; j++) {
+                tracker.allocate(10L);
+              }
+            }
+          }));
+        }
+        // Release while the workers are still allocating, e.g. when the query times out
+        futures.add(executorService.submit(new Runnable() {
+          @Override
+          public void run() {
+            awaitQuietly(startLatch);
+            while (tracker.getAllocatedBytes() < numWorkers * numAllocationsPerWorker * 5L) {
+              Thread.yield();
+            }
+            tracker.release();
+          }
+        }));
+        startLatch.countDown();
+        for (Future<?> future : futures) {
+          future.get(10, TimeUnit.SECONDS);
+        }
+        assertEquals(accountant.getAllocatedBytes(), 0L, "Accountant leaked memory in iteration: " + iteration);
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Test
+  public void testDisabled() {
+    QueryMemoryAccountant accountant = new QueryMemoryAccountant(0L, 0L);
+    assertFalse(accountant.isEnabled());
+    assertTrue(accountant.canAdmit());
+    // No tracker registered: no-op
+    QueryMemoryTracker.allocateForCurrentQuery(Long.MAX_VALUE);
+    assertNull(QueryMemoryTracker.getCurrent());
+  }
+
+  @Test
+  public void testWrap()
+      throws Exception {
+    QueryMemoryAccountant accountant = new QueryMemoryAccountant(1000L, 0L);
+    final QueryMemoryTracker tracker = accountant.newQueryTracker(1L);
+    final AtomicReference<QueryMemoryTracker> workerTracker = new AtomicReference<>();
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    try {
+      QueryMemoryTracker.register(tracker);
+      Runnable runnable = QueryMemoryTracker.wrap(new Runnable() {
+        @Override
+        public void run() {
+          workerTracker.set(QueryMemoryTracker.getCurrent());
+          QueryMemoryTracker.allocateForCurrentQuery(200L);
+        }
+      });
+      executorService.submit(runnable).get(10, TimeUnit.SECONDS);
+      assertSame(workerTracker.get(), tracker);
+      assertEquals(tracker.getAllocatedBytes(), 200L);
+      assertEquals(accountant.getAllocatedBytes(), 200L);
+
+      // Running the wrapped runnable inline keeps the tracker registered
+      runnable.run();
+      assertSame(QueryMemoryTracker.getCurrent(), tracker);
+      assertEquals(tracker.getAllocatedBytes(), 400L);
+
+      // Worker thread does not keep the tracker after the wrapped runnable completes
+      executorService.submit(new Runnable() {
+        @Override
+        public void run() {
+          workerTracker.set(QueryMemoryTracker.getCurrent());
+        }
+      }).get(10, TimeUnit.SECONDS);
+      assertNull(workerTracker.get());
+    } finally {
+      QueryMemoryTracker.unregister();
+      executorService.shutdownNow();
+    }
+    tracker.release();
+    assertEquals(accountant.getAllocatedBytes(), 0L);
+  }
+}
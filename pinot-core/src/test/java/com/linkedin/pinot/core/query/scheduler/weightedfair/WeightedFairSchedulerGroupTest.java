@@ -0,0 +1,170 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.scheduler.weightedfair;
+
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.request.AggregationInfo;
+import com.linkedin.pinot.common.request.GroupBy;
+import com.linkedin.pinot.core.query.scheduler.SchedulerQueryContext;
+import com.yammer.metrics.core.MetricsRegistry;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.testng.annotations.Test;
+
+import static com.linkedin.pinot.core.query.scheduler.TestHelper.*;
+import static org.testng.Assert.*;
+
+
+public class WeightedFairSchedulerGroupTest {
+  private static final ServerMetrics METRICS = new ServerMetrics(new MetricsRegistry());
+
+  private final PropertiesConfiguration config = new PropertiesConfiguration();
+  private final LatencySloClasses sloClasses = new LatencySloClasses(config);
+  private final QueryCostEstimator costEstimator = new QueryCostEstimator(config);
+
+  @Test
+  public void testEarliestDeadlineFirst() {
+    WeightedFairSchedulerGroup group =
+        new WeightedFairSchedulerGroup("table", 1.0, new AtomicLong(), sloClasses, costEstimator);
+    SchedulerQueryContext batch = createQuery("table", LatencySloClasses.BATCH);
+    SchedulerQueryContext standard = createQuery("table", null);
+    SchedulerQueryContext interactive = createQuery("table", LatencySloClasses.INTERACTIVE);
+    SchedulerQueryContext secondInteractive = createQuery("table", "Interactive");
+    group.addLast(batch);
+    group.addLast(standard);
+    group.addLast(interactive);
+    group.addLast(secondInteractive);
+    assertEquals(group.numPending(), 4);
+
+    assertSame(group.peekFirst(), interactive);
+    assertSame(group.removeFirst(), interactive);
+    assertSame(group.removeFirst(), secondInteractive);
+    assertSame(group.removeFirst(), standard);
+    assertSame(group.removeFirst(), batch);
+    assertTrue(group.isEmpty());
+    assertNull(group.removeFirst());
+  }
+
+  @Test
+  public void testWeightedFairShares() {
+    AtomicLong systemVirtualTime = new AtomicLong();
+    WeightedFairSchedulerGroup heavy = new WeightedFairSchedulerGroup("heavy", 3.0, systemVirtualTime, sloClasses,
+        costEstimator);
+    WeightedFairSchedulerGroup light = new WeightedFairSchedulerGroup("light", 1.0, systemVirtualTime, sloClasses,
+        costEstimator);
+    for (int i = 0; i < 8; i++) {
+      heavy.addLast(createQuery("heavy", null));
+      light.addLast(createQuery("light", null));
+    }
+
+    // Queries have the same cost, so the group with 3x weight gets 3x of the dispatches
+    int numHeavy = 0;
+    for (int i = 0; i < 8; i++) {
+      WeightedFairSchedulerGroup winner = (heavy.compareTo(light) >= 0) ? heavy : light;
+      assertNotNull(winner.removeFirst());
+      if (winner == heavy) {
+        numHeavy++;
+      }
+    }
+    assertEquals(numHeavy, 6);
+  }
+
+  @Test
+  public void testIdleGroupDoesNotAccumulateCredit() {
+    AtomicLong systemVirtualTime = new AtomicLong();
+    WeightedFairSchedulerGroup busy =
+        new WeightedFairSchedulerGroup("busy", 1.0, systemVirtualTime, sloClasses, costEstimator);
+    for (int i = 0; i < 10; i++) {
+      busy.addLast(createQuery("busy", null));
+      busy.removeFirst();
+    }
+    // A group becoming active starts from the system virtual time, not from zero
+    WeightedFairSchedulerGroup idle =
+        new WeightedFairSchedulerGroup("idle", 1.0, systemVirtualTime, sloClasses, costEstimator);
+    assertEquals(idle.getVirtualStartTime(), systemVirtualTime.get());
+    assertTrue(idle.getVirtualStartTime() > 0);
+
+    busy.addLast(createQuery("busy", null));
+    idle.addLast(createQuery("idle", null));
+    assertTrue(idle.compareTo(busy) > 0);
+    idle.removeFirst();
+    // Both groups are now even and the earlier deadline wins
+    SchedulerQueryContext interactive = createQuery("idle", LatencySloClasses.INTERACTIVE);
+    idle.addLast(interactive);
+    assertEquals(idle.getVirtualStartTime(), busy.getVirtualStartTime());
+    assertTrue(idle.compareTo(busy) > 0);
+    assertTrue(busy.compareTo(idle) < 0);
+  }
+
+  @Test
+  public void testCostEstimation() {
+    SchedulerQueryContext selection = createQuery("table", null);
+    long selectionCost = costEstimator.estimateCost(selection.getQueryRequest());
+    // 2 segments with the default docs per segment
+    assertEquals(selectionCost, 2 * QueryCostEstimator.DEFAULT_DOCS_PER_SEGMENT);
+
+    SchedulerQueryContext aggregation = createQuery("table", null);
+    aggregation.getQueryRequest().getBrokerRequest().setAggregationsInfo(
+        Arrays.asList(createAggregationInfo("count"), createAggregationInfo("distinctCount")));
+    assertEquals(costEstimator.estimateCost(aggregation.getQueryRequest()), 5 * selectionCost);
+    GroupBy groupBy = new GroupBy();
+    groupBy.setColumns(Arrays.asList("column1", "column2"));
+    aggregation.getQueryRequest().getBrokerRequest().setGroupBy(groupBy);
+    assertEquals(costEstimator.estimateCost(aggregation.getQueryRequest()), 15 * selectionCost);
+
+    // Learn the docs remaining after pruning
+    QueryCostEstimator learningEstimator = new QueryCostEstimator(new PropertiesConfiguration());
+    selection.getQueryRequest().setNumDocsAfterPruning(200L);
+    learningEstimator.update(selection.getQueryRequest());
+    assertEquals(learningEstimator.estimateCost(selection.getQueryRequest()), 200L);
+    selection.getQueryRequest().setNumDocsAfterPruning(0L);
+    learningEstimator.update(selection.getQueryRequest());
+    assertEquals(learningEstimator.estimateCost(selection.getQueryRequest()), 160L);
+  }
+
+  @Test
+  public void testSloClasses()
+      throws Exception {
+    PropertiesConfiguration sloConfig = new PropertiesConfiguration();
+    sloConfig.setProperty(LatencySloClasses.SLO_CLASS_LATENCY_MS_KEY_PREFIX + ".dashboard", 50L);
+    sloConfig.setProperty(LatencySloClasses.DEFAULT_SLO_CLASS_KEY, LatencySloClasses.BATCH);
+    LatencySloClasses classes = new LatencySloClasses(sloConfig);
+
+    SchedulerQueryContext dashboard = createQuery("table", "dashboard");
+    assertEquals(classes.getSloClass(dashboard.getQueryRequest()), "dashboard");
+    assertEquals(classes.getDeadlineMs(dashboard.getQueryRequest()), dashboard.getArrivalTimeMs() + 50L);
+    assertEquals(classes.getSloClass(createQuery("table", null).getQueryRequest()), LatencySloClasses.BATCH);
+    assertEquals(classes.getSloClass(createQuery("table", "unknown").getQueryRequest()), LatencySloClasses.BATCH);
+    assertEquals(classes.getLatencyMs(LatencySloClasses.INTERACTIVE), 100L);
+  }
+
+  private static SchedulerQueryContext createQuery(String table, String sloClass) {
+    SchedulerQueryContext query = createQueryRequest(table, METRICS);
+    if (sloClass != null) {
+      query.getQueryRequest().getBrokerRequest().setQueryOptions(
+          Collections.singletonMap(LatencySloClasses.SLO_CLASS_QUERY_OPTION, sloClass));
+    }
+    return query;
+  }
+
+  private static AggregationInfo createAggregationInfo(String aggregationType) {
+    AggregationInfo aggregationInfo = new AggregationInfo();
+    aggregationInfo.setAggregationType(aggregationType);
+    return aggregationInfo;
+  }
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.converter;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.manager.realtime.RealtimeSegmentDataManager;
+import com.linkedin.pinot.core.data.readers.PinotSegmentRecordReader;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
+import com.linkedin.pinot.core.io.reader.impl.ChunkReaderContext;
+import com.linkedin.pinot.core.io.reader.impl.v1.FixedByteChunkSingleValueReader;
+import com.linkedin.pinot.core.io.writer.impl.DirectMemoryManager;
+import com.linkedin.pinot.core.operator.blocks.SingleValueBlock;
+import com.linkedin.pinot.core.realtime.impl.RealtimeSegmentImpl;
+import com.linkedin.pinot.core.realtime.impl.RealtimeSegmentStatsHistory;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.loader.IndexLoadingConfig;
+import com.linkedin.pinot.core.segment.index.loader.Loaders;
+import com.yammer.metrics.core.MetricsRegistry;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.*;
+
+
+public class RealtimeSegmentConverterTest {
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "RealtimeSegmentConverterTest");
+  private static final String TABLE_NAME = "testTable";
+  private static final String SEGMENT_NAME = "testSegment";
+  private static final int NUM_ROWS = 1000;
+  private static final String INT_COLUMN = "intColumn";
+  private static final String STRING_COLUMN = "stringColumn";
+  private static final String MV_COLUMN = "mvColumn";
+  private static final String METRIC_COLUMN = "metricColumn";
+  private static final String RAW_METRIC_COLUMN = "rawMetricColumn";
+  private static final String TIME_COLUMN = "daysSinceEpoch";
+
+  private Schema _schema;
+  private RealtimeSegmentImpl _realtimeSegment;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+    _schema = new Schema.SchemaBuilder().setSchemaName(TABLE_NAME)
+        .addSingleValueDimension(INT_COLUMN, FieldSpec.DataType.INT)
+        .addSingleValueDimension(STRING_COLUMN, FieldSpec.DataType.STRING)
+        .addMultiValueDimension(MV_COLUMN, FieldSpec.DataType.LONG)
+        .addMetric(METRIC_COLUMN, FieldSpec.DataType.DOUBLE)
+        .addMetric(RAW_METRIC_COLUMN, FieldSpec.DataType.LONG)
+        .addTime(TIME_COLUMN, TimeUnit.DAYS, FieldSpec.DataType.INT)
+        .build();
+
+    // Sorted column needs inverted index while consuming
+    RealtimeSegmentDataManager segmentDataManager = mock(RealtimeSegmentDataManager.class);
+    when(segmentDataManager.getSchema()).thenReturn(_schema);
+    when(segmentDataManager.getTableName()).thenReturn(TABLE_NAME);
+    when(segmentDataManager.getSegmentName()).thenReturn(SEGMENT_NAME);
+    when(segmentDataManager.getNoDictionaryColumns()).thenReturn(new ArrayList<String>());
+    when(segmentDataManager.getInvertedIndexColumns()).thenReturn(Arrays.asList(STRING_COLUMN, INT_COLUMN));
+    RealtimeSegmentStatsHistory statsHistory = mock(RealtimeSegmentStatsHistory.class);
+    when(statsHistory.getEstimatedCardinality(any(String.class))).thenReturn(200);
+    when(statsHistory.getEstimatedAvgColSize(any(String.class))).thenReturn(32);
+    when(segmentDataManager.getStatsHistory()).thenReturn(statsHistory);
+    when(segmentDataManager.getMemoryManager()).thenReturn(new DirectMemoryManager(SEGMENT_NAME));
+    IndexLoadingConfig indexLoadingConfig = mock(IndexLoadingConfig.class);
+    when(indexLoadingConfig.getRealtimeAvgMultiValueCount()).thenReturn(2);
+    _realtimeSegment = new RealtimeSegmentImpl(new ServerMetrics(new MetricsRegistry()), segmentDataManager,
+        indexLoadingConfig, NUM_ROWS, "testStream");
+
+    Random random = new Random();
+    for (int i = 0; i < NUM_ROWS; i++) {
+      GenericRow row = new GenericRow();
+      row.putField(INT_COLUMN, random.nextInt(100));
+      row.putField(STRING_COLUMN, "value" + random.nextInt(50));
+      int numValues = 1 + random.nextInt(3);
+      Object[] values = new Object[numValues];
+      for (int j = 0; j < numValues; j++) {
+        values[j] = (long) random.nextInt(20);
+      }
+      row.putField(MV_COLUMN, values);
+      row.putField(METRIC_COLUMN, (double) random.nextInt(1000));
+      row.putField(RAW_METRIC_COLUMN, random.nextLong());
+      row.putField(TIME_COLUMN, 17000 + random.nextInt(10));
+      _realtimeSegment.index(row);
+    }
+  }
+
+  @Test
+  public void testConvert() throws Exception {
+    File indexDir = convert(new File(INDEX_DIR, "dictionaryEncoded"), Collections.<String>emptyList());
+
+    // Documents should be sorted on the sorted column
+    int[] sortedDocIds = _realtimeSegment.getSortedDocIdIterationOrderWithSortedColumn(STRING_COLUMN);
+
+    PinotSegmentRecordReader recordReader = new PinotSegmentRecordReader(indexDir);
+    Assert.assertTrue(new SegmentMetadataImpl(indexDir).getColumnMetadataFor(STRING_COLUMN).isSorted());
+    GenericRow expectedRow = new GenericRow();
+    for (int docId = 0; docId < NUM_ROWS; docId++) {
+      Assert.assertTrue(recordReader.hasNext());
+      GenericRow actualRow = recordReader.next();
+      expectedRow = _realtimeSegment.getRawValueRowAt(sortedDocIds[docId], expectedRow);
+      for (String column : new String[]{INT_COLUMN, STRING_COLUMN, METRIC_COLUMN, RAW_METRIC_COLUMN, TIME_COLUMN}) {
+        Assert.assertEquals(actualRow.getValue(column), expectedRow.getValue(column));
+      }
+      // Values of multi-value column are sorted in the segment
+      Object[] expectedValues = (Object[]) expectedRow.getValue(MV_COLUMN);
+      Arrays.sort(expectedValues);
+      Assert.assertEquals((Object[]) actualRow.getValue(MV_COLUMN), expectedValues);
+    }
+    Assert.assertFalse(recordReader.hasNext());
+    recordReader.close();
+  }
+
+  @Test
+  public void testConvertWithRawIndex() throws Exception {
+    File indexDir = convert(new File(INDEX_DIR, "rawIndex"), Collections.singletonList(RAW_METRIC_COLUMN));
+    int[] sortedDocIds = _realtimeSegment.getSortedDocIdIterationOrderWithSortedColumn(STRING_COLUMN);
+
+    IndexSegment indexSegment = Loaders.IndexSegment.load(indexDir, ReadMode.heap);
+    FixedByteChunkSingleValueReader rawReader = (FixedByteChunkSingleValueReader) ((SingleValueBlock) indexSegment
+        .getDataSource(RAW_METRIC_COLUMN).nextBlock()).getReader();
+    ChunkReaderContext context = rawReader.createContext();
+    GenericRow expectedRow = new GenericRow();
+    for (int docId = 0; docId < NUM_ROWS; docId++) {
+      expectedRow = _realtimeSegment.getRawValueRowAt(sortedDocIds[docId], expectedRow);
+      Assert.assertEquals(rawReader.getLong(docId, context), expectedRow.getValue(RAW_METRIC_COLUMN));
+    }
+    indexSegment.destroy();
+  }
+
+  private File convert(File outputDir, List<String> noDictionaryColumns) throws Exception {
+    RealtimeSegmentConverter converter =
+        new RealtimeSegmentConverter(_realtimeSegment, outputDir.getAbsolutePath(), _schema, TABLE_NAME, SEGMENT_NAME,
+            STRING_COLUMN, Collections.singletonList(INT_COLUMN), noDictionaryColumns, null);
+    converter.build(SegmentVersion.v1, new ServerMetrics(new MetricsRegistry()));
+    return outputDir.listFiles()[0];
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+}
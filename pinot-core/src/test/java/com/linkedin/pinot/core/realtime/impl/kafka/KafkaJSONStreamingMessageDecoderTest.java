@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.realtime.impl.kafka;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.core.data.GenericRow;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+public class KafkaJSONStreamingMessageDecoderTest {
+  private static final String[] MESSAGES = new String[]{
+      "{\"intCol\": 1, \"longCol\": 12345678901, \"floatCol\": 1.5, \"doubleCol\": 2.25, \"stringCol\": \"foo\", "
+          + "\"intMVCol\": [1, 2, 3], \"stringMVCol\": [\"a\", \"b\"], \"intMetric\": 10, \"time\": 17000}",
+      // Unknown fields with nested values, fields in different order
+      "{\"unknown\": {\"nested\": [1, {\"a\": 2}]}, \"time\": 17001, \"stringCol\": \"bar\", \"other\": [[]], "
+          + "\"intCol\": -5}",
+      // Null values, empty arrays and numbers as strings
+      "{\"intCol\": null, \"longCol\": \"42\", \"doubleCol\": 3, \"stringCol\": null, \"intMVCol\": [], "
+          + "\"stringMVCol\": null, \"intMetric\": \"7\"}",
+      // Values that cannot be parsed as the column data type, non-string values for string column
+      "{\"intCol\": 1.5, \"longCol\": \"abc\", \"floatCol\": \"x\", \"stringCol\": 123, \"intMVCol\": [\"1\", \"y\"], "
+          + "\"time\": true}",
+      // Escaped strings
+      "{\"stringCol\": \"a\\\"b\\\\c\\u00e9\", \"stringMVCol\": [\"\\n\"]}",
+      // Nested object and decimals in structured values for string columns
+      "{\"stringCol\": {\"b\": {\"c\": [1.50, \"x\"]}, \"a\": 2.0, \"d\": null, \"e\": true}, "
+          + "\"stringMVCol\": [{\"k\": 1.50}, [1, [2.25]], \"s\"], \"intMVCol\": [[1], 2]}",
+      // Array for single-value columns
+      "{\"stringCol\": [1.50, {\"a\": \"b\"}, [], 12345678901234567890], \"intCol\": [1], \"doubleCol\": {}}",
+      // Decimals and big numbers for string and numeric columns
+      "{\"stringCol\": 1.50, \"stringMVCol\": [2.500, 1e5, -0.0, 12345678901, 12345678901234567890, 1E-7], "
+          + "\"floatCol\": 1.50, \"doubleCol\": 1e2, \"longCol\": 12345678901234567890, \"intMetric\": 1e1}"
+  };
+
+  private Schema _schema;
+
+  @BeforeClass
+  public void setUp() {
+    _schema = new Schema.SchemaBuilder().setSchemaName("testSchema")
+        .addSingleValueDimension("intCol", FieldSpec.DataType.INT)
+        .addSingleValueDimension("longCol", FieldSpec.DataType.LONG)
+        .addSingleValueDimension("floatCol", FieldSpec.DataType.FLOAT)
+        .addSingleValueDimension("doubleCol", FieldSpec.DataType.DOUBLE)
+        .addSingleValueDimension("stringCol", FieldSpec.DataType.STRING)
+        .addMultiValueDimension("intMVCol", FieldSpec.DataType.INT)
+        .addMultiValueDimension("stringMVCol", FieldSpec.DataType.STRING)
+        .addMetric("intMetric", FieldSpec.DataType.INT)
+        .addTime("time", TimeUnit.DAYS, FieldSpec.DataType.LONG)
+        .build();
+  }
+
+  @Test
+  public void testSameRowsAsJSONMessageDecoder() throws Exception {
+    KafkaJSONMessageDecoder jsonDecoder = new KafkaJSONMessageDecoder();
+    jsonDecoder.init(null, _schema, "testTopic");
+    KafkaJSONStreamingMessageDecoder streamingDecoder = new KafkaJSONStreamingMessageDecoder();
+    streamingDecoder.init(null, _schema, "testTopic");
+
+    GenericRow streamingRow = null;
+    for (String message : MESSAGES) {
+      byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+      GenericRow expectedRow = jsonDecoder.decode(bytes, new GenericRow());
+      Assert.assertNotNull(expectedRow, message);
+
+      // Decode from the middle of a larger buffer, reusing the row
+      byte[] buffer = new byte[bytes.length + 20];
+      Arrays.fill(buffer, (byte) '}');
+      System.arraycopy(bytes, 0, buffer, 10, bytes.length);
+      streamingRow = GenericRow.createOrReuseRow(streamingRow);
+      streamingRow = streamingDecoder.decode(buffer, 10, bytes.length, streamingRow);
+      Assert.assertNotNull(streamingRow, message);
+
+      for (FieldSpec fieldSpec : _schema.getAllFieldSpecs()) {
+        String column = fieldSpec.getName();
+        Object expectedValue = expectedRow.getValue(column);
+        Object actualValue = streamingRow.getValue(column);
+        if (expectedValue instanceof Object[]) {
+          Assert.assertEquals((Object[]) actualValue, (Object[]) expectedValue, message);
+        } else {
+          Assert.assertEquals(actualValue, expectedValue, message);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testInvalidMessages() throws Exception {
+    KafkaJSONStreamingMessageDecoder streamingDecoder = new KafkaJSONStreamingMessageDecoder();
+    streamingDecoder.init(null, _schema, "testTopic");
+
+    String[] invalidMessages = new String[]{"[1, 2]", "{\"intCol\": 1", "{\"intMVCol\": 1}", "not json"};
+    for (String message : invalidMessages) {
+      Assert.assertNull(streamingDecoder.decode(message.getBytes(StandardCharsets.UTF_8), new GenericRow()), message);
+    }
+  }
+}
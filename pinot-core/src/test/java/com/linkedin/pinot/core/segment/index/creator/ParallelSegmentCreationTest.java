@@ -0,0 +1,153 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.creator;
+
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.MetricFieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.readers.TestRecordReader;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests that building a segment with multiple indexing threads produces the same segment as building it on a single
+ * thread.
+ */
+public class ParallelSegmentCreationTest {
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "ParallelSegmentCreationTest");
+  private static final String SEGMENT_NAME = "testSegment";
+  // Not a multiple of the batch size, so that the last batch is partial
+  private static final int NUM_ROWS = 25013;
+
+  private static final String INT_COLUMN = "intColumn";
+  private static final String STRING_COLUMN = "stringColumn";
+  private static final String SORTED_COLUMN = "sortedColumn";
+  private static final String MV_COLUMN = "mvColumn";
+  private static final String METRIC_COLUMN = "metricColumn";
+  private static final String RAW_METRIC_COLUMN = "rawMetricColumn";
+
+  private Schema _schema;
+  private List<GenericRow> _rows;
+
+  @BeforeClass
+  public void setUp() {
+    FileUtils.deleteQuietly(INDEX_DIR);
+
+    _schema = new Schema();
+    _schema.addField(new DimensionFieldSpec(INT_COLUMN, FieldSpec.DataType.INT, true));
+    _schema.addField(new DimensionFieldSpec(STRING_COLUMN, FieldSpec.DataType.STRING, true));
+    _schema.addField(new DimensionFieldSpec(SORTED_COLUMN, FieldSpec.DataType.INT, true));
+    _schema.addField(new DimensionFieldSpec(MV_COLUMN, FieldSpec.DataType.LONG, false));
+    _schema.addField(new MetricFieldSpec(METRIC_COLUMN, FieldSpec.DataType.DOUBLE));
+    _schema.addField(new MetricFieldSpec(RAW_METRIC_COLUMN, FieldSpec.DataType.LONG));
+
+    Random random = new Random();
+    _rows = new ArrayList<>(NUM_ROWS);
+    for (int i = 0; i < NUM_ROWS; i++) {
+      Map<String, Object> fields = new HashMap<>();
+      fields.put(INT_COLUMN, random.nextInt(1000));
+      fields.put(STRING_COLUMN, "value" + random.nextInt(5000));
+      fields.put(SORTED_COLUMN, i / 100);
+      Object[] values = new Object[random.nextInt(5) + 1];
+      for (int j = 0; j < values.length; j++) {
+        values[j] = (long) random.nextInt(200);
+      }
+      fields.put(MV_COLUMN, values);
+      fields.put(METRIC_COLUMN, random.nextDouble());
+      fields.put(RAW_METRIC_COLUMN, random.nextLong());
+      GenericRow row = new GenericRow();
+      row.init(fields);
+      _rows.add(row);
+    }
+  }
+
+  @Test
+  public void testParallelSegmentCreation() throws Exception {
+    File singleThreadedSegmentDir = buildSegment("singleThreaded", 1);
+    File parallelSegmentDir = buildSegment("parallel", 4);
+
+    // All the index files should be identical
+    String[] fileNames = singleThreadedSegmentDir.list();
+    Arrays.sort(fileNames);
+    String[] parallelFileNames = parallelSegmentDir.list();
+    Arrays.sort(parallelFileNames);
+    Assert.assertEquals(parallelFileNames, fileNames);
+    for (String fileName : fileNames) {
+      if (fileName.equals(V1Constants.MetadataKeys.METADATA_FILE_NAME) || fileName.equals(
+          V1Constants.SEGMENT_CREATION_META)) {
+        continue;
+      }
+      Assert.assertTrue(
+          FileUtils.contentEquals(new File(singleThreadedSegmentDir, fileName), new File(parallelSegmentDir, fileName)),
+          "Mismatch in file: " + fileName);
+    }
+
+    // Column metadata (stats) should be identical
+    SegmentMetadataImpl expectedMetadata = new SegmentMetadataImpl(singleThreadedSegmentDir);
+    SegmentMetadataImpl actualMetadata = new SegmentMetadataImpl(parallelSegmentDir);
+    Assert.assertEquals(actualMetadata.getTotalDocs(), NUM_ROWS);
+    for (String column : _schema.getColumnNames()) {
+      ColumnMetadata expected = expectedMetadata.getColumnMetadataFor(column);
+      ColumnMetadata actual = actualMetadata.getColumnMetadataFor(column);
+      Assert.assertEquals(actual.getCardinality(), expected.getCardinality());
+      Assert.assertEquals(actual.isSorted(), expected.isSorted());
+      Assert.assertEquals(actual.getMaxNumberOfMultiValues(), expected.getMaxNumberOfMultiValues());
+      Assert.assertEquals(actual.getTotalNumberOfEntries(), expected.getTotalNumberOfEntries());
+      Assert.assertEquals(actual.hasInvertedIndex(), expected.hasInvertedIndex());
+    }
+    Assert.assertTrue(actualMetadata.getColumnMetadataFor(SORTED_COLUMN).isSorted());
+  }
+
+  private File buildSegment(String outputDirName, int numIndexingThreads) throws Exception {
+    SegmentGeneratorConfig config = new SegmentGeneratorConfig(_schema);
+    config.setOutDir(new File(INDEX_DIR, outputDirName).getAbsolutePath());
+    config.setSegmentName(SEGMENT_NAME);
+    config.setSegmentVersion(SegmentVersion.v1);
+    config.setInvertedIndexCreationColumns(Arrays.asList(INT_COLUMN, STRING_COLUMN, MV_COLUMN));
+    config.setRawIndexCreationColumns(Collections.singletonList(RAW_METRIC_COLUMN));
+    config.setNumIndexingThreads(numIndexingThreads);
+
+    SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(config, new TestRecordReader(_rows, _schema));
+    driver.build();
+    return driver.getOutputDirectory();
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+}
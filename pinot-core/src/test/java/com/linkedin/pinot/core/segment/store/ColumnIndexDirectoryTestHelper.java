@@ -50,6 +50,12 @@ public class ColumnIndexDirectoryTestHelper {
       case INVERTED_INDEX:
         buf = columnDirectory.newInvertedIndexBuffer(columnName, size);
         break;
+      case RANGE_INDEX:
+        buf = columnDirectory.newRangeIndexBuffer(columnName, size);
+        break;
+      case ZONE_MAP:
+        buf = columnDirectory.newZoneMapBuffer(columnName, size);
+        break;
     }
     return buf;
   }
@@ -70,6 +76,12 @@ public class ColumnIndexDirectoryTestHelper {
       case INVERTED_INDEX:
         buf = columnDirectory.getInvertedIndexBufferFor(columnName);
         break;
+      case RANGE_INDEX:
+        buf = columnDirectory.getRangeIndexBufferFor(columnName);
+        break;
+      case ZONE_MAP:
+        buf = columnDirectory.getZoneMapBufferFor(columnName);
+        break;
     }
     return buf;
   }
@@ -130,6 +142,24 @@ public class ColumnIndexDirectoryTestHelper {
             return invocationOnMock.getArguments()[0] + ".ii";
           }
         });
+
+    when(meta.getBitmapRangeIndexFileName(anyString()))
+        .thenAnswer(new Answer<String>() {
+          @Override
+          public String answer(InvocationOnMock invocationOnMock)
+              throws Throwable {
+            return invocationOnMock.getArguments()[0] + ".ri";
+          }
+        });
+
+    when(meta.getZoneMapIndexFileName(anyString()))
+        .thenAnswer(new Answer<String>() {
+          @Override
+          public String answer(InvocationOnMock invocationOnMock)
+              throws Throwable {
+            return invocationOnMock.getArguments()[0] + ".zm";
+          }
+        });
     return meta;
   }
 }
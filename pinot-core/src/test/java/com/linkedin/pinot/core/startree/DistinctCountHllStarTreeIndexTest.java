@@ -0,0 +1,176 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.startree;
+
+import com.clearspring.analytics.stream.cardinality.HyperLogLog;
+import com.linkedin.pinot.common.data.StarTreeIndexSpec;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.operator.filter.StarTreeIndexBasedFilterOperator;
+import com.linkedin.pinot.core.plan.AggregationGroupByPlanNode;
+import com.linkedin.pinot.core.plan.AggregationPlanNode;
+import com.linkedin.pinot.core.plan.FilterPlanNode;
+import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * This test generates a Star-Tree segment with pre-aggregated hyper log logs, and ensures that DISTINCTCOUNTHLL results
+ * computed using star-tree index are the same as the results computed by scanning raw docs.
+ */
+public class DistinctCountHllStarTreeIndexTest {
+  private static final String DATA_DIR =
+      System.getProperty("java.io.tmpdir") + File.separator + "DistinctCountHllStarTreeIndexTest";
+  private static final String SEGMENT_NAME = "starTreeSegment";
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+  private static final String[] AGGREGATION_QUERIES = new String[]{
+      "SELECT DISTINCTCOUNTHLL(m1) FROM T",
+      "SELECT DISTINCTCOUNTHLL(m1) FROM T WHERE d1 = 'd1-v1'",
+      "SELECT DISTINCTCOUNTHLL(m1), SUM(m2) FROM T WHERE d1 IN ('d1-v1', 'd1-v2') AND d2 NOT IN ('d2-v1')"
+  };
+  private static final String[] GROUP_BY_QUERIES = new String[]{
+      "SELECT DISTINCTCOUNTHLL(m1) FROM T GROUP BY d1",
+      "SELECT DISTINCTCOUNTHLL(m1) FROM T WHERE d1 <> 'd1-v1' GROUP BY d2",
+      "SELECT DISTINCTCOUNTHLL(m1) FROM T WHERE d1 IN ('d1-v1', 'd1-v2') GROUP BY d2, d3"
+  };
+
+  private IndexSegment _segment;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    StarTreeIndexSpec starTreeIndexSpec = StarTreeIndexTestSegmentHelper.getDefaultStarTreeIndexSpec();
+    starTreeIndexSpec.setDistinctCountHllColumns(Collections.singleton("m1"));
+    starTreeIndexSpec.setPercentileEstColumns(Collections.singleton("m2"));
+    StarTreeIndexSpec additionalStarTreeIndexSpec = new StarTreeIndexSpec();
+    additionalStarTreeIndexSpec.setMaxLeafRecords(10);
+    additionalStarTreeIndexSpec.setDimensionsSplitOrder(Arrays.asList("d2", "d1"));
+    additionalStarTreeIndexSpec.setDistinctCountHllColumns(Collections.singleton("m1"));
+    StarTreeIndexTestSegmentHelper.buildSegmentWithMultipleStarTrees(DATA_DIR, SEGMENT_NAME, starTreeIndexSpec,
+        Collections.singletonList(additionalStarTreeIndexSpec));
+  }
+
+  @Test
+  public void testQueries() throws Exception {
+    File indexDir = new File(DATA_DIR, SEGMENT_NAME);
+
+    _segment = ColumnarSegmentLoader.load(indexDir, ReadMode.heap);
+    testHllIndexes();
+    testHardCodedQueries();
+    _segment.destroy();
+
+    _segment = ColumnarSegmentLoader.load(indexDir, ReadMode.mmap);
+    testHllIndexes();
+    testHardCodedQueries();
+    _segment.destroy();
+  }
+
+  private void testHllIndexes() {
+    Assert.assertEquals(_segment.getSegmentMetadata().getStarTreeMetadataList().get(0).getDistinctCountHllColumns(),
+        Collections.singletonList("m1"));
+    List<StarTree> starTrees = _segment.getStarTrees();
+    Assert.assertEquals(starTrees.size(), 2);
+    for (StarTree starTree : starTrees) {
+      StarTreeHllIndex hllIndex = starTree.getHllIndex();
+      Assert.assertNotNull(hllIndex);
+      Assert.assertEquals(hllIndex.getColumns(), Collections.singletonList("m1"));
+      Assert.assertNull(hllIndex.getHll("m2", starTree.getRoot().getAggregatedDocId()));
+    }
+
+    // The first star tree stores both quantile digests and hyper log logs in the same records
+    StarTree starTree = starTrees.get(0);
+    Assert.assertEquals(starTree.getQuantileDigestIndex().getColumns(), Collections.singletonList("m2"));
+    HyperLogLog hll = starTree.getHllIndex().getHll("m1", starTree.getRoot().getAggregatedDocId());
+    Assert.assertNotNull(hll);
+    Assert.assertTrue(hll.cardinality() > 1L);
+
+    // Raw documents do not have pre-aggregated hyper log logs
+    Assert.assertNull(starTree.getHllIndex().getHll("m1", 0));
+  }
+
+  private void testHardCodedQueries() {
+    // Star tree is not used for metrics without pre-aggregated hyper log logs
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest("SELECT DISTINCTCOUNTHLL(m2) FROM T");
+    Assert.assertFalse(new FilterPlanNode(_segment, brokerRequest).run() instanceof StarTreeIndexBasedFilterOperator);
+
+    for (String query : AGGREGATION_QUERIES) {
+      brokerRequest = COMPILER.compileToBrokerRequest(query);
+      Assert.assertTrue(new FilterPlanNode(_segment, brokerRequest).run() instanceof StarTreeIndexBasedFilterOperator,
+          "Star tree is not used for query: " + query);
+      BrokerRequest rawDocsBrokerRequest = getRawDocsBrokerRequest(query);
+      long starTreeResult =
+          ((HyperLogLog) getResultsBlock(new AggregationPlanNode(_segment, brokerRequest).run()).getAggregationResult()
+              .get(0)).cardinality();
+      long rawDocsResult =
+          ((HyperLogLog) getResultsBlock(new AggregationPlanNode(_segment, rawDocsBrokerRequest).run())
+              .getAggregationResult()
+              .get(0)).cardinality();
+      // Merging hyper log logs is lossless, so the results should be identical
+      Assert.assertEquals(starTreeResult, rawDocsResult, "Comparison failed for query: " + query);
+    }
+
+    for (String query : GROUP_BY_QUERIES) {
+      brokerRequest = COMPILER.compileToBrokerRequest(query);
+      Assert.assertTrue(new FilterPlanNode(_segment, brokerRequest).run() instanceof StarTreeIndexBasedFilterOperator,
+          "Star tree is not used for query: " + query);
+      Assert.assertEquals(getGroupByResults(brokerRequest), getGroupByResults(getRawDocsBrokerRequest(query)),
+          "Comparison failed for query: " + query);
+    }
+  }
+
+  private BrokerRequest getRawDocsBrokerRequest(String query) {
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(query);
+    brokerRequest.setDebugOptions(Collections.singletonMap("useStarTree", "false"));
+    return brokerRequest;
+  }
+
+  private IntermediateResultsBlock getResultsBlock(Operator operator) {
+    return (IntermediateResultsBlock) operator.nextBlock();
+  }
+
+  private Map<String, Long> getGroupByResults(BrokerRequest brokerRequest) {
+    AggregationGroupByResult groupByResult = getResultsBlock(
+        new AggregationGroupByPlanNode(_segment, brokerRequest, 10_000, 100_000).run()).getAggregationGroupByResult();
+    Map<String, Long> results = new HashMap<>();
+    Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = groupByResult.getGroupKeyIterator();
+    while (groupKeyIterator.hasNext()) {
+      GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
+      results.put(groupKey.getStringKey(), ((HyperLogLog) groupByResult.getResultForKey(groupKey, 0)).cardinality());
+    }
+    return results;
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(new File(DATA_DIR));
+  }
+}
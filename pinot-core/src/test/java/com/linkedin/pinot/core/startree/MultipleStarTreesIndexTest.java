@@ -0,0 +1,144 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.startree;
+
+import com.linkedin.pinot.common.data.StarTreeIndexSpec;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.common.segment.StarTreeMetadata;
+import com.linkedin.pinot.core.common.BlockDocIdIterator;
+import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
+import com.linkedin.pinot.core.operator.filter.StarTreeIndexBasedFilterOperator;
+import com.linkedin.pinot.core.plan.FilterPlanNode;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * This test generates a segment with two star trees with different dimensions split order, and ensures that SUM results
+ * computed using star-tree index operator are the same as the results computed by scanning raw docs, and that the star
+ * tree with the fewest matching documents is picked for the query among the star trees aggregating the queried
+ * metrics.
+ */
+public class MultipleStarTreesIndexTest extends SumStarTreeIndexTest {
+  private static final String DATA_DIR =
+      System.getProperty("java.io.tmpdir") + File.separator + "MultipleStarTreesIndexTest";
+  private static final String SEGMENT_NAME = "starTreeSegment";
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+  private static final String[] HARD_CODED_QUERIES = new String[]{
+      "SELECT SUM(m1) FROM T",
+      "SELECT SUM(m1) FROM T WHERE d1 = 'd1-v1'",
+      "SELECT SUM(m1) FROM T WHERE d4 = 'd4-v1'",
+      "SELECT SUM(m1) FROM T WHERE d4 IN ('d4-v1', 'd4-v2') AND d3 <> 'd3-v1'",
+      "SELECT SUM(m1) FROM T GROUP BY d1",
+      "SELECT SUM(m1) FROM T GROUP BY d4",
+      "SELECT SUM(m1) FROM T WHERE d1 IN ('d1-v1', 'd1-v2') AND d2 NOT IN ('d2-v1') GROUP BY d3",
+      "SELECT SUM(m1) FROM T WHERE d4 BETWEEN 'd4-v1' AND 'd4-v3' GROUP BY d2"
+  };
+
+  @Override
+  protected String[] getHardCodedQueries() {
+    return HARD_CODED_QUERIES;
+  }
+
+  @Override
+  protected List<String> getMetricColumns() {
+    // Only m1 is aggregated by both star trees
+    return Collections.singletonList("m1");
+  }
+
+  @BeforeClass
+  @Override
+  void setUp() throws Exception {
+    // Star nodes are not created for d1 in the first star tree, so the second star tree is better for queries without
+    // predicate or group-by on d1
+    StarTreeIndexSpec starTreeIndexSpec = StarTreeIndexTestSegmentHelper.getDefaultStarTreeIndexSpec();
+    starTreeIndexSpec.setDimensionsSplitOrder(Arrays.asList("d1", "d2", "d3", "d4"));
+    starTreeIndexSpec.setSkipStarNodeCreationForDimensions(Collections.singleton("d1"));
+    StarTreeIndexSpec additionalStarTreeIndexSpec = StarTreeIndexTestSegmentHelper.getDefaultStarTreeIndexSpec();
+    additionalStarTreeIndexSpec.setDimensionsSplitOrder(Arrays.asList("d4", "d3", "d2", "d1"));
+    additionalStarTreeIndexSpec.setAggregatedMetrics(Collections.singleton("m1"));
+    StarTreeIndexTestSegmentHelper.buildSegmentWithMultipleStarTrees(DATA_DIR, SEGMENT_NAME, starTreeIndexSpec,
+        Collections.singletonList(additionalStarTreeIndexSpec));
+  }
+
+  @Test
+  @Override
+  public void testQueries() throws Exception {
+    File indexDir = new File(DATA_DIR, SEGMENT_NAME);
+
+    _segment = ColumnarSegmentLoader.load(indexDir, ReadMode.heap);
+    testStarTrees();
+    testHardCodedQueries();
+    _segment.destroy();
+
+    _segment = ColumnarSegmentLoader.load(indexDir, ReadMode.mmap);
+    testStarTrees();
+    testHardCodedQueries();
+    _segment.destroy();
+  }
+
+  private void testStarTrees() {
+    List<StarTreeMetadata> starTreeMetadataList = _segment.getSegmentMetadata().getStarTreeMetadataList();
+    Assert.assertEquals(starTreeMetadataList.size(), 2);
+    Assert.assertEquals(starTreeMetadataList.get(0).getDimensionsSplitOrder(), Arrays.asList("d1", "d2", "d3", "d4"));
+    Assert.assertEquals(starTreeMetadataList.get(1).getDimensionsSplitOrder(), Arrays.asList("d4", "d3", "d2", "d1"));
+    Assert.assertEquals(starTreeMetadataList.get(0).getAggregatedMetrics(), Collections.emptyList());
+    Assert.assertEquals(starTreeMetadataList.get(1).getAggregatedMetrics(), Collections.singletonList("m1"));
+    Assert.assertEquals(_segment.getStarTrees().size(), 2);
+
+    // Documents of the second star tree start from its root node
+    int secondStarTreeStartDocId = _segment.getStarTrees().get(1).getRoot().getStartDocId();
+    Assert.assertTrue(secondStarTreeStartDocId > _segment.getSegmentMetadata().getTotalRawDocs());
+
+    // First star tree is picked when both star trees have the same number of matching documents
+    Assert.assertEquals(
+        getNumMatchingDocIds("SELECT SUM(m1) FROM T WHERE d1 = 'd1-v1'", 0, secondStarTreeStartDocId), 1);
+    // Second star tree is picked because the first one needs to go over all values for d1
+    Assert.assertEquals(getNumMatchingDocIds("SELECT SUM(m1) FROM T WHERE d4 = 'd4-v1'", secondStarTreeStartDocId,
+        _segment.getSegmentMetadata().getTotalDocs()), 1);
+    // First star tree is picked because the second one does not aggregate m2
+    Assert.assertTrue(
+        getNumMatchingDocIds("SELECT SUM(m2) FROM T WHERE d4 = 'd4-v1'", 0, secondStarTreeStartDocId) > 1);
+  }
+
+  private int getNumMatchingDocIds(String query, int startDocId, int endDocId) {
+    StarTreeIndexBasedFilterOperator filterOperator = (StarTreeIndexBasedFilterOperator) new FilterPlanNode(_segment,
+        COMPILER.compileToBrokerRequest(query)).run();
+    BlockDocIdIterator docIdIterator = filterOperator.nextBlock().getBlockDocIdSet().iterator();
+    int numMatchingDocs = 0;
+    int docId;
+    while ((docId = docIdIterator.next()) != Constants.EOF) {
+      Assert.assertTrue(docId >= startDocId && docId < endDocId, "Unexpected document: " + docId + " for: " + query);
+      numMatchingDocs++;
+    }
+    return numMatchingDocs;
+  }
+
+  @AfterClass
+  @Override
+  void tearDown() {
+    FileUtils.deleteQuietly(new File(DATA_DIR));
+  }
+}
@@ -0,0 +1,196 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.startree;
+
+import com.linkedin.pinot.common.data.StarTreeIndexSpec;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
+import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
+import com.linkedin.pinot.core.operator.filter.StarTreeIndexBasedFilterOperator;
+import com.linkedin.pinot.core.plan.AggregationGroupByPlanNode;
+import com.linkedin.pinot.core.plan.AggregationPlanNode;
+import com.linkedin.pinot.core.plan.FilterPlanNode;
+import com.linkedin.pinot.core.query.aggregation.function.customobject.QuantileDigest;
+import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * This test generates a Star-Tree segment with pre-aggregated quantile digests, and ensures that PERCENTILEEST results
+ * computed using star-tree index are close to the results computed by scanning raw docs.
+ */
+public class PercentileEstStarTreeIndexTest {
+  private static final String DATA_DIR =
+      System.getProperty("java.io.tmpdir") + File.separator + "PercentileEstStarTreeIndexTest";
+  private static final String SEGMENT_NAME = "starTreeSegment";
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+  private static final String[] AGGREGATION_QUERIES = new String[]{
+      "SELECT PERCENTILEEST50(m1) FROM T",
+      "SELECT PERCENTILEEST90(m1) FROM T",
+      "SELECT PERCENTILEEST99(m1) FROM T WHERE d1 = 'd1-v1'",
+      "SELECT PERCENTILEEST95(m1) FROM T WHERE d1 IN ('d1-v1', 'd1-v2') AND d2 NOT IN ('d2-v1')"
+  };
+  private static final String[] GROUP_BY_QUERIES = new String[]{
+      "SELECT PERCENTILEEST90(m1) FROM T GROUP BY d1",
+      "SELECT PERCENTILEEST50(m1) FROM T WHERE d1 <> 'd1-v1' GROUP BY d2",
+      "SELECT PERCENTILEEST90(m1) FROM T WHERE d1 IN ('d1-v1', 'd1-v2') GROUP BY d2, d3"
+  };
+  // Metric values are in range [0, 10000), and each quantile digest has 5% rank error
+  private static final long MAX_VALUE = 10000;
+  private static final long DELTA = 1000;
+
+  private IndexSegment _segment;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    StarTreeIndexSpec starTreeIndexSpec = StarTreeIndexTestSegmentHelper.getDefaultStarTreeIndexSpec();
+    starTreeIndexSpec.setPercentileEstColumns(Collections.singleton("m1"));
+    StarTreeIndexSpec additionalStarTreeIndexSpec = new StarTreeIndexSpec();
+    additionalStarTreeIndexSpec.setMaxLeafRecords(10);
+    additionalStarTreeIndexSpec.setDimensionsSplitOrder(Arrays.asList("d2", "d1"));
+    additionalStarTreeIndexSpec.setPercentileEstColumns(Collections.singleton("m1"));
+    StarTreeIndexTestSegmentHelper.buildSegmentWithMultipleStarTrees(DATA_DIR, SEGMENT_NAME, starTreeIndexSpec,
+        Collections.singletonList(additionalStarTreeIndexSpec));
+  }
+
+  @Test
+  public void testQueries() throws Exception {
+    File indexDir = new File(DATA_DIR, SEGMENT_NAME);
+
+    _segment = ColumnarSegmentLoader.load(indexDir, ReadMode.heap);
+    testQuantileDigestIndexes();
+    testHardCodedQueries();
+    _segment.destroy();
+
+    _segment = ColumnarSegmentLoader.load(indexDir, ReadMode.mmap);
+    testQuantileDigestIndexes();
+    testHardCodedQueries();
+    _segment.destroy();
+  }
+
+  private void testQuantileDigestIndexes() {
+    Assert.assertEquals(_segment.getSegmentMetadata().getStarTreeMetadataList().get(0).getPercentileEstColumns(),
+        Collections.singletonList("m1"));
+    List<StarTree> starTrees = _segment.getStarTrees();
+    Assert.assertEquals(starTrees.size(), 2);
+    for (StarTree starTree : starTrees) {
+      StarTreeQuantileDigestIndex quantileDigestIndex = starTree.getQuantileDigestIndex();
+      Assert.assertNotNull(quantileDigestIndex);
+      Assert.assertEquals(quantileDigestIndex.getColumns(), Collections.singletonList("m1"));
+      Assert.assertNull(quantileDigestIndex.getQuantileDigest("m2", starTree.getRoot().getAggregatedDocId()));
+    }
+
+    // The root of the first star tree aggregates all the raw documents
+    StarTree starTree = starTrees.get(0);
+    QuantileDigest quantileDigest =
+        starTree.getQuantileDigestIndex().getQuantileDigest("m1", starTree.getRoot().getAggregatedDocId());
+    Assert.assertNotNull(quantileDigest);
+    Assert.assertEquals(quantileDigest.getCount(), (double) _segment.getSegmentMetadata().getTotalRawDocs(), 0.01);
+
+    // Raw documents do not have pre-aggregated quantile digests
+    Assert.assertNull(starTree.getQuantileDigestIndex().getQuantileDigest("m1", 0));
+  }
+
+  private void testHardCodedQueries() {
+    // Star tree is not used for metrics without pre-aggregated quantile digests
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest("SELECT PERCENTILEEST90(m2) FROM T");
+    Assert.assertFalse(new FilterPlanNode(_segment, brokerRequest).run() instanceof StarTreeIndexBasedFilterOperator);
+
+    for (String query : AGGREGATION_QUERIES) {
+      brokerRequest = COMPILER.compileToBrokerRequest(query);
+      Assert.assertTrue(new FilterPlanNode(_segment, brokerRequest).run() instanceof StarTreeIndexBasedFilterOperator,
+          "Star tree is not used for query: " + query);
+      BrokerRequest rawDocsBrokerRequest = getRawDocsBrokerRequest(query);
+      long starTreeResult = getQuantile(brokerRequest,
+          (QuantileDigest) getResultsBlock(new AggregationPlanNode(_segment, brokerRequest).run()).getAggregationResult()
+              .get(0));
+      long rawDocsResult = getQuantile(rawDocsBrokerRequest,
+          (QuantileDigest) getResultsBlock(new AggregationPlanNode(_segment, rawDocsBrokerRequest).run())
+              .getAggregationResult()
+              .get(0));
+      assertQuantileEquals(starTreeResult, rawDocsResult, query);
+    }
+
+    for (String query : GROUP_BY_QUERIES) {
+      brokerRequest = COMPILER.compileToBrokerRequest(query);
+      Assert.assertTrue(new FilterPlanNode(_segment, brokerRequest).run() instanceof StarTreeIndexBasedFilterOperator,
+          "Star tree is not used for query: " + query);
+      BrokerRequest rawDocsBrokerRequest = getRawDocsBrokerRequest(query);
+      Map<String, Long> starTreeResults = getGroupByResults(brokerRequest);
+      Map<String, Long> rawDocsResults = getGroupByResults(rawDocsBrokerRequest);
+      Assert.assertEquals(starTreeResults.keySet(), rawDocsResults.keySet(), "Comparison failed for query: " + query);
+      for (Map.Entry<String, Long> entry : starTreeResults.entrySet()) {
+        assertQuantileEquals(entry.getValue(), rawDocsResults.get(entry.getKey()), query);
+      }
+    }
+  }
+
+  private BrokerRequest getRawDocsBrokerRequest(String query) {
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(query);
+    brokerRequest.setDebugOptions(Collections.singletonMap("useStarTree", "false"));
+    return brokerRequest;
+  }
+
+  private IntermediateResultsBlock getResultsBlock(Operator operator) {
+    return (IntermediateResultsBlock) operator.nextBlock();
+  }
+
+  private Map<String, Long> getGroupByResults(BrokerRequest brokerRequest) {
+    AggregationGroupByResult groupByResult = getResultsBlock(
+        new AggregationGroupByPlanNode(_segment, brokerRequest, 10_000, 100_000).run()).getAggregationGroupByResult();
+    Map<String, Long> results = new HashMap<>();
+    Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = groupByResult.getGroupKeyIterator();
+    while (groupKeyIterator.hasNext()) {
+      GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
+      results.put(groupKey.getStringKey(),
+          getQuantile(brokerRequest, (QuantileDigest) groupByResult.getResultForKey(groupKey, 0)));
+    }
+    return results;
+  }
+
+  private static long getQuantile(BrokerRequest brokerRequest, QuantileDigest quantileDigest) {
+    String functionName = brokerRequest.getAggregationsInfo().get(0).getAggregationType().toLowerCase();
+    int percentile = Integer.parseInt(functionName.substring("percentileest".length()));
+    return quantileDigest.getQuantile(percentile / 100.0);
+  }
+
+  private static void assertQuantileEquals(long starTreeResult, long rawDocsResult, String query) {
+    // Star tree result should never be computed from the aggregated metric values, which can exceed the max value
+    Assert.assertTrue(starTreeResult < MAX_VALUE, "Invalid star tree result for query: " + query);
+    Assert.assertEquals(starTreeResult, rawDocsResult, DELTA, "Comparison failed for query: " + query);
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(new File(DATA_DIR));
+  }
+}
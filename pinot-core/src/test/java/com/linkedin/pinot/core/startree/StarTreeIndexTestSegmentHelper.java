@@ -29,6 +29,7 @@ import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverIm
 import com.linkedin.pinot.startree.hll.HllConfig;
 import com.linkedin.pinot.util.TestUtils;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Random;
@@ -48,15 +49,29 @@ public class StarTreeIndexTestSegmentHelper {
   private static final int METRIC_MAX_VALUE = 10000;
 
   public static Schema buildSegment(String segmentDirName, String segmentName) throws Exception {
-    return buildSegment(segmentDirName, segmentName, null);
+    return buildSegment(segmentDirName, segmentName, null, getDefaultStarTreeIndexSpec(),
+        Collections.<StarTreeIndexSpec>emptyList());
   }
 
   public static Schema buildSegmentWithHll(String segmentDirName, String segmentName, HllConfig hllConfig)
       throws Exception {
-    return buildSegment(segmentDirName, segmentName, hllConfig);
+    return buildSegment(segmentDirName, segmentName, hllConfig, getDefaultStarTreeIndexSpec(),
+        Collections.<StarTreeIndexSpec>emptyList());
   }
 
-  private static Schema buildSegment(String segmentDirName, String segmentName, HllConfig hllConfig) throws Exception {
+  public static Schema buildSegmentWithMultipleStarTrees(String segmentDirName, String segmentName,
+      StarTreeIndexSpec starTreeIndexSpec, List<StarTreeIndexSpec> additionalStarTreeIndexSpecs) throws Exception {
+    return buildSegment(segmentDirName, segmentName, null, starTreeIndexSpec, additionalStarTreeIndexSpecs);
+  }
+
+  public static StarTreeIndexSpec getDefaultStarTreeIndexSpec() {
+    StarTreeIndexSpec starTreeIndexSpec = new StarTreeIndexSpec();
+    starTreeIndexSpec.setMaxLeafRecords(10);
+    return starTreeIndexSpec;
+  }
+
+  private static Schema buildSegment(String segmentDirName, String segmentName, HllConfig hllConfig,
+      StarTreeIndexSpec starTreeIndexSpec, List<StarTreeIndexSpec> additionalStarTreeIndexSpecs) throws Exception {
     final int rows = (int) MathUtils.factorial(NUM_DIMENSIONS) * 100;
     Schema schema = new Schema();
 
@@ -74,10 +89,9 @@ public class StarTreeIndexTestSegmentHelper {
     }
 
     SegmentGeneratorConfig config = new SegmentGeneratorConfig(schema);
-    StarTreeIndexSpec starTreeIndexSpec = new StarTreeIndexSpec();
-    starTreeIndexSpec.setMaxLeafRecords(10);
     config.setEnableStarTreeIndex(true);
     config.setStarTreeIndexSpec(starTreeIndexSpec);
+    config.setAdditionalStarTreeIndexSpecs(additionalStarTreeIndexSpecs);
     config.setOutDir(segmentDirName);
     config.setFormat(FileFormat.AVRO);
     config.setSegmentName(segmentName);
@@ -34,6 +34,7 @@ import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
 import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
 import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
 import com.linkedin.pinot.startree.hll.HllConfig;
+import com.linkedin.pinot.startree.hll.HllConstants;
 import java.io.File;
 import java.net.URL;
 import java.util.Arrays;
@@ -75,6 +76,8 @@ public class FastHllQueriesTest extends BaseQueriesTest {
   private static final int HLL_LOG2M = 6;
 
   private static final String BASE_QUERY = "SELECT FASTHLL(column17_HLL), FASTHLL(column18_HLL) FROM testTable";
+  private static final String DISTINCT_COUNT_HLL_QUERY =
+      "SELECT DISTINCTCOUNTHLL(column17), DISTINCTCOUNTHLL(column18) FROM testTable";
   private static final String GROUP_BY = " group by column11";
   private static final String QUERY_FILTER =
       " WHERE column1 > 100000000" + " AND column3 BETWEEN 20000000 AND 1000000000" + " AND column5 = 'gFuH'"
@@ -101,7 +104,7 @@ public class FastHllQueriesTest extends BaseQueriesTest {
 
   @Test
   public void testFastHllWithoutPreGeneratedHllColumns() throws Exception {
-    buildAndLoadSegment(false);
+    buildAndLoadSegment(false, HLL_LOG2M);
 
     // Test inner segment queries
     // Test base query
@@ -127,7 +130,7 @@ public class FastHllQueriesTest extends BaseQueriesTest {
     QueriesTestUtils.testInnerSegmentExecutionStatistics(executionStatistics, 4613L, 0L, 13839L, 30000L);
     AggregationGroupByResult aggregationGroupByResult = resultsBlock.getAggregationGroupByResult();
     GroupKeyGenerator.GroupKey firstGroupKey = aggregationGroupByResult.getGroupKeyIterator().next();
-    Assert.assertEquals(firstGroupKey._stringKey, "");
+    Assert.assertEquals(firstGroupKey.getStringKey(), "");
     Assert.assertEquals(((HyperLogLog) aggregationGroupByResult.getResultForKey(firstGroupKey, 0)).cardinality(), 21L);
     Assert.assertEquals(((HyperLogLog) aggregationGroupByResult.getResultForKey(firstGroupKey, 1)).cardinality(), 691L);
 
@@ -148,7 +151,7 @@ public class FastHllQueriesTest extends BaseQueriesTest {
 
   @Test
   public void testFastHllWithPreGeneratedHllColumns() throws Exception {
-    buildAndLoadSegment(true);
+    buildAndLoadSegment(true, HLL_LOG2M);
 
     // Test inner segment queries
     // Test base query
@@ -174,7 +177,7 @@ public class FastHllQueriesTest extends BaseQueriesTest {
     QueriesTestUtils.testInnerSegmentExecutionStatistics(executionStatistics, 30000L, 0L, 90000L, 30000L);
     AggregationGroupByResult aggregationGroupByResult = resultsBlock.getAggregationGroupByResult();
     GroupKeyGenerator.GroupKey firstGroupKey = aggregationGroupByResult.getGroupKeyIterator().next();
-    Assert.assertEquals(firstGroupKey._stringKey, "");
+    Assert.assertEquals(firstGroupKey.getStringKey(), "");
     Assert.assertEquals(((HyperLogLog) aggregationGroupByResult.getResultForKey(firstGroupKey, 0)).cardinality(), 21L);
     Assert.assertEquals(((HyperLogLog) aggregationGroupByResult.getResultForKey(firstGroupKey, 1)).cardinality(), 691L);
 
@@ -194,7 +197,51 @@ public class FastHllQueriesTest extends BaseQueriesTest {
     deleteSegment();
   }
 
-  private void buildAndLoadSegment(boolean hasPreGeneratedHllColumns) throws Exception {
+  @Test
+  public void testDistinctCountHllOnStarTree() throws Exception {
+    // DISTINCTCOUNTHLL can only be answered from the HLL derived columns when they use the default log2m
+    buildAndLoadSegment(false, HllConstants.DEFAULT_LOG2M);
+
+    // Test inner segment queries
+    // Test base query
+    AggregationOperator aggregationOperator = getOperatorForQuery(DISTINCT_COUNT_HLL_QUERY);
+    IntermediateResultsBlock resultsBlock = (IntermediateResultsBlock) aggregationOperator.nextBlock();
+    ExecutionStatistics executionStatistics = aggregationOperator.getExecutionStatistics();
+    QueriesTestUtils.testInnerSegmentExecutionStatistics(executionStatistics, 1L, 0L, 2L, 30000L);
+    assertSameCardinalities(resultsBlock, (IntermediateResultsBlock) getOperatorForQuery(BASE_QUERY).nextBlock());
+    // Test query with filter
+    aggregationOperator = getOperatorForQueryWithFilter(DISTINCT_COUNT_HLL_QUERY);
+    resultsBlock = (IntermediateResultsBlock) aggregationOperator.nextBlock();
+    executionStatistics = aggregationOperator.getExecutionStatistics();
+    QueriesTestUtils.testInnerSegmentExecutionStatistics(executionStatistics, 6129L, 112472L, 12258L, 30000L);
+    assertSameCardinalities(resultsBlock,
+        (IntermediateResultsBlock) getOperatorForQueryWithFilter(BASE_QUERY).nextBlock());
+
+    // Test inter segments base query, where the result column names should not be affected by the rewrite
+    BrokerResponseNative brokerResponse = getBrokerResponseForQuery(DISTINCT_COUNT_HLL_QUERY);
+    BrokerResponseNative expectedBrokerResponse = getBrokerResponseForQuery(BASE_QUERY);
+    Assert.assertEquals(brokerResponse.getNumDocsScanned(), 4L);
+    for (int i = 0; i < 2; i++) {
+      Assert.assertEquals(brokerResponse.getAggregationResults().get(i).getValue(),
+          expectedBrokerResponse.getAggregationResults().get(i).getValue());
+    }
+    Assert.assertEquals(brokerResponse.getAggregationResults().get(0).getFunction(), "distinctCountHLL_column17");
+    Assert.assertEquals(brokerResponse.getAggregationResults().get(1).getFunction(), "distinctCountHLL_column18");
+
+    deleteSegment();
+  }
+
+  private static void assertSameCardinalities(IntermediateResultsBlock actual, IntermediateResultsBlock expected) {
+    List<Object> actualResult = actual.getAggregationResult();
+    List<Object> expectedResult = expected.getAggregationResult();
+    Assert.assertEquals(actualResult.size(), expectedResult.size());
+    for (int i = 0; i < actualResult.size(); i++) {
+      Assert.assertEquals(((HyperLogLog) actualResult.get(i)).cardinality(),
+          ((HyperLogLog) expectedResult.get(i)).cardinality());
+    }
+  }
+
+  private void buildAndLoadSegment(boolean hasPreGeneratedHllColumns, int hllLog2m) throws Exception {
     FileUtils.deleteQuietly(INDEX_DIR);
 
     // Get resource file path
@@ -233,12 +280,12 @@ public class FastHllQueriesTest extends BaseQueriesTest {
     segmentGeneratorConfig.setInvertedIndexCreationColumns(
         Arrays.asList("column6", "column7", "column11", "column17", "column18"));
     if (hasPreGeneratedHllColumns) {
-      segmentGeneratorConfig.setHllConfig(new HllConfig(HLL_LOG2M));
+      segmentGeneratorConfig.setHllConfig(new HllConfig(hllLog2m));
     } else {
       segmentGeneratorConfig.setEnableStarTreeIndex(true);
       // Intentionally use the non-default suffix
       segmentGeneratorConfig.setHllConfig(
-          new HllConfig(HLL_LOG2M, new HashSet<>(Arrays.asList("column17", "column18")), "_HLL"));
+          new HllConfig(hllLog2m, new HashSet<>(Arrays.asList("column17", "column18")), "_HLL"));
     }
 
     // Build the index segment
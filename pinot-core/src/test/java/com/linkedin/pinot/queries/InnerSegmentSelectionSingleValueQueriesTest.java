@@ -18,6 +18,7 @@ package com.linkedin.pinot.queries;
 import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.utils.DataSchema;
 import com.linkedin.pinot.core.operator.ExecutionStatistics;
+import com.linkedin.pinot.core.operator.QueryTerminationSignal;
 import com.linkedin.pinot.core.operator.blocks.IntermediateResultsBlock;
 import com.linkedin.pinot.core.operator.query.MSelectionOnlyOperator;
 import com.linkedin.pinot.core.operator.query.MSelectionOrderByOperator;
@@ -173,4 +174,43 @@ public class InnerSegmentSelectionSingleValueQueriesTest extends BaseSingleValue
     Assert.assertEquals(((Integer) lastRow[0]).intValue(), 6043515);
     Assert.assertEquals(((Integer) lastRow[1]).intValue(), 462769197);
   }
+
+  @Test
+  public void testQueryTerminationSignal() {
+    String query = "SELECT * FROM testTable LIMIT 15000";
+
+    // Rows collected by the other segments are enough, no block should be processed.
+    MSelectionOnlyOperator selectionOnlyOperator = getOperatorForQuery(query);
+    QueryTerminationSignal queryTerminationSignal = new QueryTerminationSignal(Long.MAX_VALUE, 15000L);
+    queryTerminationSignal.addNumRowsCollected(15000L);
+    selectionOnlyOperator.setQueryTerminationSignal(queryTerminationSignal);
+    IntermediateResultsBlock resultsBlock = (IntermediateResultsBlock) selectionOnlyOperator.nextBlock();
+    ExecutionStatistics executionStatistics = selectionOnlyOperator.getExecutionStatistics();
+    Assert.assertEquals(executionStatistics.getNumDocsScanned(), 0L);
+    Assert.assertEquals(executionStatistics.getNumTotalRawDocs(), 30000L);
+    Assert.assertEquals(resultsBlock.getSelectionDataSchema().size(), 11);
+    Assert.assertTrue(resultsBlock.getSelectionResult().isEmpty());
+
+    // Rows collected by the other segments and the first block are enough, should stop after the first block.
+    selectionOnlyOperator = getOperatorForQuery(query);
+    queryTerminationSignal = new QueryTerminationSignal(Long.MAX_VALUE, 15000L);
+    queryTerminationSignal.addNumRowsCollected(5000L);
+    selectionOnlyOperator.setQueryTerminationSignal(queryTerminationSignal);
+    resultsBlock = (IntermediateResultsBlock) selectionOnlyOperator.nextBlock();
+    executionStatistics = selectionOnlyOperator.getExecutionStatistics();
+    Assert.assertEquals(executionStatistics.getNumDocsScanned(), 10000L);
+    Assert.assertEquals(resultsBlock.getSelectionResult().size(), 10000);
+    Assert.assertTrue(queryTerminationSignal.isTerminated());
+    Assert.assertFalse(queryTerminationSignal.isCancelled());
+
+    // Query end time elapsed, should be cancelled before the first block.
+    MSelectionOrderByOperator selectionOrderByOperator = getOperatorForQuery(query + ORDER_BY);
+    queryTerminationSignal = new QueryTerminationSignal(System.currentTimeMillis() - 1, Long.MAX_VALUE);
+    selectionOrderByOperator.setQueryTerminationSignal(queryTerminationSignal);
+    resultsBlock = (IntermediateResultsBlock) selectionOrderByOperator.nextBlock();
+    executionStatistics = selectionOrderByOperator.getExecutionStatistics();
+    Assert.assertEquals(executionStatistics.getNumDocsScanned(), 0L);
+    Assert.assertTrue(resultsBlock.getSelectionResult().isEmpty());
+    Assert.assertTrue(queryTerminationSignal.isCancelled());
+  }
 }
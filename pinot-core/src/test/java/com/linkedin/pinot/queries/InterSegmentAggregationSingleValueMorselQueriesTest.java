@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.queries;
+
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.core.plan.maker.InstancePlanMakerImplV2;
+import com.linkedin.pinot.core.plan.maker.PlanMaker;
+import com.linkedin.pinot.core.query.config.QueryExecutorConfig;
+import org.apache.commons.configuration.ConfigurationException;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * Runs the inter-segment aggregation queries with the segments split into multiple morsels (doc id ranges), and
+ * compares the results with processing the whole segments.
+ * <p>Number of entries scanned in filter is not compared because the AND filter stops scanning at the end of each
+ * morsel, and approximate aggregations (e.g. PERCENTILEEST) are not compared because the results depend on the merge
+ * order.
+ */
+public class InterSegmentAggregationSingleValueMorselQueriesTest extends BaseSingleValueQueriesTest {
+  private static final String[] QUERIES = new String[]{
+      "SELECT COUNT(*) FROM testTable",
+      "SELECT SUM(column1), MIN(column3), MAX(column6), AVG(column7) FROM testTable",
+      "SELECT MINMAXRANGE(column1), DISTINCTCOUNT(column6), PERCENTILE90(column7) FROM testTable",
+      "SELECT COUNT(*), SUM(column1) FROM testTable GROUP BY column9",
+      "SELECT MAX(column6), DISTINCTCOUNT(column1) FROM testTable GROUP BY column11, column12 TOP 50"
+  };
+  private static final PlanMaker MORSEL_PLAN_MAKER;
+
+  static {
+    PropertiesConfiguration config = new PropertiesConfiguration();
+    // Not a multiple of the zone map block size, so that the morsel boundaries fall inside the blocks.
+    config.setProperty("num.docs.per.morsel", 7_777);
+    try {
+      MORSEL_PLAN_MAKER = new InstancePlanMakerImplV2(new QueryExecutorConfig(config));
+    } catch (ConfigurationException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private boolean _useMorsels;
+
+  @Override
+  protected PlanMaker getPlanMaker() {
+    return _useMorsels ? MORSEL_PLAN_MAKER : super.getPlanMaker();
+  }
+
+  @Test
+  public void testMorsels()
+      throws Exception {
+    for (String query : QUERIES) {
+      compareResponses(query);
+      compareResponses(query + getFilter());
+    }
+  }
+
+  private void compareResponses(String query)
+      throws Exception {
+    _useMorsels = false;
+    BrokerResponseNative expected = getBrokerResponseForQuery(query);
+    _useMorsels = true;
+    BrokerResponseNative actual = getBrokerResponseForQuery(query);
+
+    Assert.assertEquals(actual.getExceptionsSize(), 0, query);
+    Assert.assertEquals(actual.getNumDocsScanned(), expected.getNumDocsScanned(), query);
+    Assert.assertEquals(actual.getNumEntriesScannedPostFilter(), expected.getNumEntriesScannedPostFilter(), query);
+    Assert.assertEquals(actual.getTotalDocs(), expected.getTotalDocs(), query);
+    Assert.assertEquals(new JSONObject(actual.toJsonString()).getJSONArray("aggregationResults").toString(),
+        new JSONObject(expected.toJsonString()).getJSONArray("aggregationResults").toString(), query);
+  }
+}
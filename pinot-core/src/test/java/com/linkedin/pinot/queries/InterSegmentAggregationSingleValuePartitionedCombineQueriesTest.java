@@ -0,0 +1,48 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.queries;
+
+import com.linkedin.pinot.core.plan.maker.InstancePlanMakerImplV2;
+import com.linkedin.pinot.core.plan.maker.PlanMaker;
+import com.linkedin.pinot.core.query.config.QueryExecutorConfig;
+import org.apache.commons.configuration.ConfigurationException;
+import org.apache.commons.configuration.PropertiesConfiguration;
+
+
+/**
+ * Runs all the inter-segment aggregation queries with the PARTITIONED group-by combine mode, which should give the
+ * same results as the default CONCURRENT mode.
+ */
+public class InterSegmentAggregationSingleValuePartitionedCombineQueriesTest
+    extends InterSegmentAggregationSingleValueQueriesTest {
+  private static final PlanMaker PLAN_MAKER;
+
+  static {
+    PropertiesConfiguration config = new PropertiesConfiguration();
+    config.setProperty("combine.groupby.mode", "partitioned");
+    config.setProperty("combine.groupby.num.partitions", 3);
+    try {
+      PLAN_MAKER = new InstancePlanMakerImplV2(new QueryExecutorConfig(config));
+    } catch (ConfigurationException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  protected PlanMaker getPlanMaker() {
+    return PLAN_MAKER;
+  }
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.queries;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.core.plan.maker.InstancePlanMakerImplV2;
+import com.linkedin.pinot.core.plan.maker.PlanMaker;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
+import com.linkedin.pinot.core.query.config.QueryExecutorConfig;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.io.IOException;
+import org.apache.commons.configuration.ConfigurationException;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * Runs all the inter-segment aggregation queries with the segment result cache enabled. Every query is executed twice,
+ * and the second execution (served from the cache) should give the same results as the first one.
+ */
+public class InterSegmentAggregationSingleValueSegmentResultCacheQueriesTest
+    extends InterSegmentAggregationSingleValueQueriesTest {
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+  private static final SegmentResultCache SEGMENT_RESULT_CACHE = new SegmentResultCache(64 * 1024 * 1024);
+  private static final PlanMaker PLAN_MAKER;
+
+  static {
+    try {
+      PLAN_MAKER =
+          new InstancePlanMakerImplV2(new QueryExecutorConfig(new PropertiesConfiguration()), SEGMENT_RESULT_CACHE);
+    } catch (ConfigurationException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  protected PlanMaker getPlanMaker() {
+    return PLAN_MAKER;
+  }
+
+  @Override
+  protected BrokerResponseNative getBrokerResponseForQuery(String query) {
+    BrokerResponseNative firstResponse = super.getBrokerResponseForQuery(query);
+    BrokerResponseNative secondResponse = super.getBrokerResponseForQuery(query);
+    try {
+      Assert.assertEquals(secondResponse.toJsonString(), firstResponse.toJsonString());
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    return secondResponse;
+  }
+
+  @Test
+  public void testQueryKey() {
+    BrokerRequest brokerRequest1 = COMPILER.compileToBrokerRequest(
+        "SELECT COUNT(*) FROM testTable WHERE column1 IN (3, 1, 2) AND column3 = 'a' GROUP BY column6 TOP 10");
+    BrokerRequest brokerRequest2 = COMPILER.compileToBrokerRequest(
+        "SELECT count(*) FROM testTable WHERE column3 = 'a' AND column1 IN (1, 2, 3) GROUP BY column6 TOP 100");
+    BrokerRequest brokerRequest3 = COMPILER.compileToBrokerRequest(
+        "SELECT COUNT(*) FROM testTable WHERE column1 IN (1, 2) AND column3 = 'a' GROUP BY column6");
+    Assert.assertEquals(SegmentResultCache.getQueryKey(brokerRequest1),
+        SegmentResultCache.getQueryKey(brokerRequest2));
+    Assert.assertFalse(
+        SegmentResultCache.getQueryKey(brokerRequest1).equals(SegmentResultCache.getQueryKey(brokerRequest3)));
+  }
+
+  @Test
+  public void testInvalidate() {
+    Assert.assertNotNull(SEGMENT_RESULT_CACHE);
+    getBrokerResponseForQuery("SELECT SUM(column1) FROM testTable GROUP BY column9");
+    Assert.assertTrue(SEGMENT_RESULT_CACHE.size() > 0);
+    SEGMENT_RESULT_CACHE.invalidate("testTable", getIndexSegment().getSegmentName());
+    Assert.assertEquals(SEGMENT_RESULT_CACHE.size(), 0);
+  }
+}
@@ -58,7 +58,7 @@ public class QueriesTestUtils {
     Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = aggregationGroupByResult.getGroupKeyIterator();
     while (groupKeyIterator.hasNext()) {
       GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
-      if (groupKey._stringKey.equals(expectedGroupKey)) {
+      if (groupKey.getStringKey().equals(expectedGroupKey)) {
         Assert.assertEquals(((Number) aggregationGroupByResult.getResultForKey(groupKey, 0)).longValue(),
             expectedCountResult);
         Assert.assertEquals(((Number) aggregationGroupByResult.getResultForKey(groupKey, 1)).longValue(),
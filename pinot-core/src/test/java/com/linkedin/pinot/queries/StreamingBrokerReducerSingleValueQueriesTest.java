@@ -0,0 +1,236 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.queries;
+
+import com.linkedin.pinot.common.exception.QueryException;
+import com.linkedin.pinot.common.query.StreamingReducer;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.common.response.broker.AggregationResult;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.common.response.broker.GroupByResult;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.core.common.datatable.DataTableFactory;
+import com.linkedin.pinot.core.common.datatable.DataTableImplV2;
+import com.linkedin.pinot.core.query.reduce.BrokerReduceService;
+import com.linkedin.pinot.pql.parsers.Pql2Compiler;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests that reducing the server responses one at a time with the streaming reducer gives the same broker response as
+ * reducing all of them at once with {@link BrokerReduceService}, regardless of the order of arrival.
+ * <p>Each query is reduced on the responses from 5 servers:
+ * <ul>
+ *   <li>Server 0: response of the query with the hard-coded filter</li>
+ *   <li>Server 1: response of the query without filter</li>
+ *   <li>Server 2: response of the query with a filter that matches no record</li>
+ *   <li>Server 3: empty response without data schema (e.g. all segments pruned)</li>
+ *   <li>Server 4: response carrying a query execution exception</li>
+ * </ul>
+ */
+public class StreamingBrokerReducerSingleValueQueriesTest extends BaseSingleValueQueriesTest {
+  private static final Pql2Compiler COMPILER = new Pql2Compiler();
+  private static final ExecutorService EXECUTOR_SERVICE = Executors.newFixedThreadPool(2);
+  private static final String EMPTY_FILTER = " WHERE column1 < 0";
+  private static final BrokerReduceService BROKER_REDUCE_SERVICE = new BrokerReduceService();
+  private static final Comparator<GroupByResult> GROUP_COMPARATOR = new Comparator<GroupByResult>() {
+    @Override
+    public int compare(GroupByResult o1, GroupByResult o2) {
+      return o1.getGroup().toString().compareTo(o2.getGroup().toString());
+    }
+  };
+
+  @AfterClass
+  public void shutDown() {
+    EXECUTOR_SERVICE.shutdown();
+  }
+
+  @Test
+  public void testSelection()
+      throws Exception {
+    testQuery("SELECT * FROM testTable", "");
+    testQuery("SELECT column1, column5, column11 FROM testTable", " LIMIT 50");
+    testQuery("SELECT column1, column5, column11 FROM testTable", " ORDER BY column1 DESC, column11 LIMIT 50");
+  }
+
+  @Test
+  public void testAggregation()
+      throws Exception {
+    testQuery("SELECT COUNT(*), SUM(column1), MAX(column3), MIN(column6), AVG(column7), MINMAXRANGE(column9),"
+        + " DISTINCTCOUNT(column11), DISTINCTCOUNTHLL(column12), PERCENTILE90(column17), PERCENTILEEST50(column18)"
+        + " FROM testTable", "");
+  }
+
+  @Test
+  public void testAggregationGroupBy()
+      throws Exception {
+    testQuery("SELECT COUNT(*), SUM(column1), MAX(column3), DISTINCTCOUNT(column6) FROM testTable",
+        " GROUP BY column11, column12 TOP 50");
+    testQuery("SELECT SUM(column1), AVG(column3) FROM testTable", " GROUP BY column7 TOP 5");
+  }
+
+  /**
+   * Reduces the server responses of the given query with both the streaming reducer and the broker reduce service, and
+   * compares the broker responses.
+   *
+   * @param query PQL query without filter and trailing clauses.
+   * @param suffix trailing clauses (ORDER BY, GROUP BY, LIMIT, TOP) of the query.
+   */
+  private void testQuery(String query, String suffix)
+      throws Exception {
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(query + getFilter() + suffix);
+
+    List<DataTable> dataTables = new ArrayList<>();
+    dataTables.add(getServerResponse(query + getFilter() + suffix));
+    dataTables.add(getServerResponse(query + suffix));
+    dataTables.add(getServerResponse(query + EMPTY_FILTER + suffix));
+    DataTable emptyDataTable = new DataTableImplV2();
+    emptyDataTable.getMetadata().put(DataTable.TOTAL_DOCS_METADATA_KEY, "1000");
+    dataTables.add(emptyDataTable);
+    DataTable exceptionDataTable = new DataTableImplV2();
+    exceptionDataTable.addException(
+        QueryException.getException(QueryException.QUERY_EXECUTION_ERROR, new RuntimeException("Test exception")));
+    dataTables.add(exceptionDataTable);
+
+    List<ServerInstance> serverInstances = new ArrayList<>();
+    int numDataTables = dataTables.size();
+    for (int i = 0; i < numDataTables; i++) {
+      serverInstances.add(new ServerInstance("localhost:" + (1000 + i)));
+    }
+    BrokerResponseNative expected = reduce(brokerRequest, serverInstances, dataTables);
+    Assert.assertEquals(expected.getProcessingExceptions().size(), 1);
+    Assert.assertEquals(expected.getProcessingExceptions().get(0).getErrorCode(),
+        QueryException.QUERY_EXECUTION_ERROR_CODE);
+
+    // Responses arrive in order
+    assertEquivalent(streamingReduce(brokerRequest, serverInstances, dataTables), expected);
+
+    // Responses arrive in reverse order
+    Collections.reverse(serverInstances);
+    Collections.reverse(dataTables);
+    assertEquivalent(streamingReduce(brokerRequest, serverInstances, dataTables),
+        reduce(brokerRequest, serverInstances, dataTables));
+
+    // Only empty and exception responses
+    List<ServerInstance> emptyServerInstances = serverInstances.subList(0, 2);
+    List<DataTable> emptyDataTables = new ArrayList<>();
+    emptyDataTables.add(emptyDataTable);
+    emptyDataTables.add(exceptionDataTable);
+    BrokerResponseNative brokerResponse = reduce(brokerRequest, emptyServerInstances, emptyDataTables);
+    Assert.assertEquals(brokerResponse.getProcessingExceptions().size(), 1);
+    Assert.assertEquals(brokerResponse.getProcessingExceptions().get(0).getErrorCode(),
+        QueryException.QUERY_EXECUTION_ERROR_CODE);
+    Assert.assertEquals(brokerResponse.getTotalDocs(), 1000L);
+    assertEquivalent(streamingReduce(brokerRequest, emptyServerInstances, emptyDataTables), brokerResponse);
+
+    // No response
+    List<ServerInstance> noServerInstances = Collections.emptyList();
+    List<DataTable> noDataTables = Collections.emptyList();
+    assertEquivalent(streamingReduce(brokerRequest, noServerInstances, noDataTables),
+        reduce(brokerRequest, noServerInstances, noDataTables));
+  }
+
+  /**
+   * Reduces all the data tables at once with the broker reduce service.
+   */
+  private BrokerResponseNative reduce(BrokerRequest brokerRequest, List<ServerInstance> serverInstances,
+      List<DataTable> dataTables)
+      throws Exception {
+    Map<ServerInstance, DataTable> dataTableMap = new HashMap<>();
+    int numDataTables = dataTables.size();
+    for (int i = 0; i < numDataTables; i++) {
+      dataTableMap.put(serverInstances.get(i), copy(dataTables.get(i)));
+    }
+    return BROKER_REDUCE_SERVICE.reduceOnDataTable(brokerRequest, dataTableMap, null);
+  }
+
+  /**
+   * Reduces the data tables one at a time in the given order with the streaming reducer.
+   */
+
+  private BrokerResponseNative streamingReduce(BrokerRequest brokerRequest, List<ServerInstance> serverInstances,
+      List<DataTable> dataTables)
+      throws Exception {
+    StreamingReducer<BrokerResponseNative> streamingReducer =
+        BROKER_REDUCE_SERVICE.getStreamingReducer(brokerRequest, null);
+    int numDataTables = dataTables.size();
+    for (int i = 0; i < numDataTables; i++) {
+      streamingReducer.reduce(serverInstances.get(i), copy(dataTables.get(i)));
+    }
+    return streamingReducer.getBrokerResponse();
+  }
+
+  /**
+   * Compares the broker responses. The order of the groups with the same value is not deterministic, so only the order
+   * of the values is compared for the group-by results.
+   * <p>NOTE: the group-by results of both broker responses are sorted in place.
+   */
+  private static void assertEquivalent(BrokerResponseNative actual, BrokerResponseNative expected)
+      throws Exception {
+    List<AggregationResult> actualAggregationResults = actual.getAggregationResults();
+    List<AggregationResult> expectedAggregationResults = expected.getAggregationResults();
+    if (expectedAggregationResults != null) {
+      Assert.assertNotNull(actualAggregationResults);
+      int numAggregationResults = expectedAggregationResults.size();
+      Assert.assertEquals(actualAggregationResults.size(), numAggregationResults);
+      for (int i = 0; i < numAggregationResults; i++) {
+        List<GroupByResult> actualGroupByResults = actualAggregationResults.get(i).getGroupByResult();
+        List<GroupByResult> expectedGroupByResults = expectedAggregationResults.get(i).getGroupByResult();
+        if (expectedGroupByResults != null) {
+          Assert.assertNotNull(actualGroupByResults);
+          Assert.assertEquals(getValues(actualGroupByResults), getValues(expectedGroupByResults));
+          Collections.sort(actualGroupByResults, GROUP_COMPARATOR);
+          Collections.sort(expectedGroupByResults, GROUP_COMPARATOR);
+        }
+      }
+    }
+    Assert.assertEquals(actual.toJsonString(), expected.toJsonString());
+  }
+
+  private static List<Serializable> getValues(List<GroupByResult> groupByResults) {
+    List<Serializable> values = new ArrayList<>(groupByResults.size());
+    for (GroupByResult groupByResult : groupByResults) {
+      values.add(groupByResult.getValue());
+    }
+    return values;
+  }
+
+  private DataTable getServerResponse(String query) {
+    BrokerRequest brokerRequest = COMPILER.compileToBrokerRequest(query);
+    return getPlanMaker().makeInterSegmentPlan(getSegmentDataManagers(), brokerRequest, EXECUTOR_SERVICE, 10_000)
+        .execute();
+  }
+
+  /**
+   * Returns a copy of the data table as received by the broker, so that the reducers do not share data tables.
+   */
+  private static DataTable copy(DataTable dataTable)
+      throws Exception {
+    return DataTableFactory.getDataTable(dataTable.toBytes());
+  }
+}
@@ -0,0 +1,380 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.query.aggregation;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.response.broker.AggregationResult;
+import com.linkedin.pinot.common.response.broker.BrokerResponseNative;
+import com.linkedin.pinot.common.response.broker.GroupByResult;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.common.BaseBlockValSet;
+import com.linkedin.pinot.core.common.BlockSingleValIterator;
+import com.linkedin.pinot.core.common.BlockValSet;
+import com.linkedin.pinot.core.common.DataSource;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.data.manager.offline.OfflineSegmentDataManager;
+import com.linkedin.pinot.core.data.manager.offline.SegmentDataManager;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.query.aggregation.AggregationResultHolder;
+import com.linkedin.pinot.core.query.aggregation.function.DistinctCountAggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupByResultHolder;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.queries.BaseQueriesTest;
+import com.linkedin.pinot.query.transform.TransformTestUtils;
+import com.linkedin.pinot.util.TestUtils;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+
+/**
+ * Unit test for dictionary based distinct count, comparing it with distinct count on raw values.
+ * <p>Besides the mocked dictionary, queries are run on 2 index segments with INT, LONG, DOUBLE, STRING and multi-value
+ * INT columns. The segments have overlapping but different values, so the same dictionary id maps to different values
+ * in each segment, and the results are compared with the value hash sets computed from the raw values across both
+ * segments.
+ */
+public class DistinctCountAggregationFunctionTest extends BaseQueriesTest {
+  private static final int NUM_DOCS = 1000;
+  private static final int CARDINALITY = 100;
+  private static final int NUM_GROUPS = 7;
+  private static final long RANDOM_SEED = System.nanoTime();
+
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "DistinctCountAggregationFunctionTest");
+  private static final String SEGMENT_NAME_PREFIX = "testSegment_";
+  private static final int NUM_SEGMENTS = 2;
+  // Values of segment i are within [i * VALUE_OFFSET, i * VALUE_OFFSET + VALUE_RANGE)
+  private static final int VALUE_RANGE = 200;
+  private static final int VALUE_OFFSET = 100;
+  private static final int MV_VALUE_RANGE = 20;
+  private static final int MV_VALUE_OFFSET = 10;
+  private static final int MAX_NUM_MULTI_VALUES = 3;
+  private static final String INT_COLUMN = "intColumn";
+  private static final String LONG_COLUMN = "longColumn";
+  private static final String DOUBLE_COLUMN = "doubleColumn";
+  private static final String STRING_COLUMN = "stringColumn";
+  private static final String MV_COLUMN = "mvColumn";
+  private static final String[] SV_COLUMNS = {INT_COLUMN, LONG_COLUMN, DOUBLE_COLUMN, STRING_COLUMN};
+
+  private final List<IndexSegment> _indexSegments = new ArrayList<>(NUM_SEGMENTS);
+  private final List<SegmentDataManager> _segmentDataManagers = new ArrayList<>(NUM_SEGMENTS);
+  // Value hash sets on the raw values across all segments, same as the hash set path for raw values
+  private final Map<String, IntOpenHashSet> _expectedValueSets = new HashMap<>();
+  private final IntOpenHashSet _expectedMVValueSet = new IntOpenHashSet();
+  // Value hash sets of the string column for each value of the multi-value column
+  private final Map<String, IntOpenHashSet> _expectedStringValueSetsPerMVValue = new HashMap<>();
+
+  @BeforeClass
+  public void setUp()
+      throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+    for (String column : SV_COLUMNS) {
+      _expectedValueSets.put(column, new IntOpenHashSet());
+    }
+
+    Schema schema = new Schema.SchemaBuilder().setSchemaName("testTable")
+        .addSingleValueDimension(INT_COLUMN, FieldSpec.DataType.INT)
+        .addSingleValueDimension(LONG_COLUMN, FieldSpec.DataType.LONG)
+        .addSingleValueDimension(DOUBLE_COLUMN, FieldSpec.DataType.DOUBLE)
+        .addSingleValueDimension(STRING_COLUMN, FieldSpec.DataType.STRING)
+        .addMultiValueDimension(MV_COLUMN, FieldSpec.DataType.INT)
+        .build();
+
+    Random random = new Random(RANDOM_SEED);
+    for (int i = 0; i < NUM_SEGMENTS; i++) {
+      List<GenericRow> rows = new ArrayList<>(NUM_DOCS);
+      for (int j = 0; j < NUM_DOCS; j++) {
+        int value = i * VALUE_OFFSET + random.nextInt(VALUE_RANGE);
+        long longValue = value * 1_000_000_007L;
+        double doubleValue = value + 0.5;
+        String stringValue = "value_" + value;
+        int numMultiValues = 1 + random.nextInt(MAX_NUM_MULTI_VALUES);
+        Object[] multiValues = new Object[numMultiValues];
+        for (int k = 0; k < numMultiValues; k++) {
+          int multiValue = i * MV_VALUE_OFFSET + random.nextInt(MV_VALUE_RANGE);
+          multiValues[k] = multiValue;
+          _expectedMVValueSet.add(multiValue);
+          String group = Integer.toString(multiValue);
+          IntOpenHashSet stringValueSet = _expectedStringValueSetsPerMVValue.get(group);
+          if (stringValueSet == null) {
+            stringValueSet = new IntOpenHashSet();
+            _expectedStringValueSetsPerMVValue.put(group, stringValueSet);
+          }
+          stringValueSet.add(stringValue.hashCode());
+        }
+        _expectedValueSets.get(INT_COLUMN).add(value);
+        _expectedValueSets.get(LONG_COLUMN).add(Long.valueOf(longValue).hashCode());
+        _expectedValueSets.get(DOUBLE_COLUMN).add(Double.valueOf(doubleValue).hashCode());
+        _expectedValueSets.get(STRING_COLUMN).add(stringValue.hashCode());
+
+        Map<String, Object> fields = new HashMap<>();
+        fields.put(INT_COLUMN, value);
+        fields.put(LONG_COLUMN, longValue);
+        fields.put(DOUBLE_COLUMN, doubleValue);
+        fields.put(STRING_COLUMN, stringValue);
+        fields.put(MV_COLUMN, multiValues);
+        GenericRow row = new GenericRow();
+        row.init(fields);
+        rows.add(row);
+      }
+
+      SegmentGeneratorConfig segmentGeneratorConfig = new SegmentGeneratorConfig(schema);
+      segmentGeneratorConfig.setTableName("testTable");
+      segmentGeneratorConfig.setSegmentName(SEGMENT_NAME_PREFIX + i);
+      segmentGeneratorConfig.setOutDir(INDEX_DIR.getAbsolutePath());
+      SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+      driver.init(segmentGeneratorConfig, new TestUtils.GenericRowRecordReader(schema, rows));
+      driver.build();
+
+      IndexSegment indexSegment =
+          ColumnarSegmentLoader.load(new File(INDEX_DIR, SEGMENT_NAME_PREFIX + i), ReadMode.heap);
+      _indexSegments.add(indexSegment);
+      _segmentDataManagers.add(new OfflineSegmentDataManager(indexSegment));
+    }
+  }
+
+  @AfterClass
+  public void tearDown() {
+    for (IndexSegment indexSegment : _indexSegments) {
+      indexSegment.destroy();
+    }
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  @Override
+  protected String getFilter() {
+    return "";
+  }
+
+  @Override
+  protected IndexSegment getIndexSegment() {
+    return _indexSegments.get(0);
+  }
+
+  @Override
+  protected List<SegmentDataManager> getSegmentDataManagers() {
+    return _segmentDataManagers;
+  }
+
+  @Test
+  public void testDictionaryBasedDistinctCount() {
+    Random random = new Random(RANDOM_SEED);
+    final long[] dictionaryValues = new long[CARDINALITY];
+    for (int i = 0; i < CARDINALITY; i++) {
+      dictionaryValues[i] = random.nextLong();
+    }
+    final int[] dictIds = new int[NUM_DOCS];
+    long[] values = new long[NUM_DOCS];
+    int[] groupKeys = new int[NUM_DOCS];
+    for (int i = 0; i < NUM_DOCS; i++) {
+      // Only use part of the dictionary
+      dictIds[i] = random.nextInt(CARDINALITY / 2);
+      values[i] = dictionaryValues[dictIds[i]];
+      groupKeys[i] = i % NUM_GROUPS;
+    }
+
+    final Dictionary dictionary = mock(Dictionary.class);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) {
+        Object[] args = invocation.getArguments();
+        int[] inDictIds = (int[]) args[0];
+        int inStartPos = (Integer) args[1];
+        int length = (Integer) args[2];
+        long[] outValues = (long[]) args[3];
+        int outStartPos = (Integer) args[4];
+        for (int i = 0; i < length; i++) {
+          outValues[outStartPos + i] = dictionaryValues[inDictIds[inStartPos + i]];
+        }
+        return null;
+      }
+    }).when(dictionary).readLongValues(any(int[].class), anyInt(), anyInt(), any(long[].class), anyInt());
+
+    BlockValSet rawBlockValSet = new TransformTestUtils.TestBlockValSet(values, NUM_DOCS, FieldSpec.DataType.LONG);
+    BlockValSet dictBlockValSet = new BaseBlockValSet() {
+      @Override
+      public FieldSpec.DataType getValueType() {
+        return FieldSpec.DataType.LONG;
+      }
+
+      @Override
+      public Dictionary getDictionary() {
+        return dictionary;
+      }
+
+      @Override
+      public int[] getDictionaryIds() {
+        return dictIds;
+      }
+    };
+
+    DistinctCountAggregationFunction function = new DistinctCountAggregationFunction();
+
+    // Aggregation
+    AggregationResultHolder rawResultHolder = function.createAggregationResultHolder();
+    function.aggregate(NUM_DOCS, rawResultHolder, rawBlockValSet);
+    AggregationResultHolder dictResultHolder = function.createAggregationResultHolder();
+    function.aggregate(NUM_DOCS, dictResultHolder, dictBlockValSet);
+    IntOpenHashSet expected = function.extractAggregationResult(rawResultHolder);
+    // Compare as sets, iteration order depends on the insertion order
+    assertTrue(function.extractAggregationResult(dictResultHolder).equals(expected), "Random seed: " + RANDOM_SEED);
+    // Extracting again returns the converted result
+    assertTrue(function.extractAggregationResult(dictResultHolder).equals(expected), "Random seed: " + RANDOM_SEED);
+
+    // Group-by
+    GroupByResultHolder rawGroupByResultHolder = function.createGroupByResultHolder(NUM_GROUPS, NUM_GROUPS, NUM_GROUPS);
+    function.aggregateGroupBySV(NUM_DOCS, groupKeys, rawGroupByResultHolder, rawBlockValSet);
+    GroupByResultHolder dictGroupByResultHolder =
+        function.createGroupByResultHolder(NUM_GROUPS, NUM_GROUPS, NUM_GROUPS);
+    function.aggregateGroupBySV(NUM_DOCS, groupKeys, dictGroupByResultHolder, dictBlockValSet);
+    for (int groupKey = 0; groupKey < NUM_GROUPS; groupKey++) {
+      assertTrue(function.extractGroupByResult(dictGroupByResultHolder, groupKey)
+          .equals(function.extractGroupByResult(rawGroupByResultHolder, groupKey)), "Random seed: " + RANDOM_SEED);
+    }
+  }
+
+  @Test
+  public void testDistinctCountOnSegments() {
+    // The values of each segment should be looked up from its own dictionary before merging
+    for (String column : SV_COLUMNS) {
+      assertTrue(getIndexSegment().getDataSource(column).getDataSourceMetadata().hasDictionary());
+    }
+
+    BrokerResponseNative brokerResponse = getBrokerResponseForQuery(
+        "SELECT DISTINCTCOUNT(intColumn), DISTINCTCOUNT(longColumn), DISTINCTCOUNT(doubleColumn),"
+            + " DISTINCTCOUNT(stringColumn), DISTINCTCOUNTMV(mvColumn) FROM testTable");
+    List<AggregationResult> aggregationResults = brokerResponse.getAggregationResults();
+    int numSVColumns = SV_COLUMNS.length;
+    for (int i = 0; i < numSVColumns; i++) {
+      assertEquals(Integer.parseInt((String) aggregationResults.get(i).getValue()),
+          _expectedValueSets.get(SV_COLUMNS[i]).size(), "Column: " + SV_COLUMNS[i] + ", random seed: " + RANDOM_SEED);
+    }
+    assertEquals(Integer.parseInt((String) aggregationResults.get(numSVColumns).getValue()),
+        _expectedMVValueSet.size(), "Random seed: " + RANDOM_SEED);
+
+    // Group-by on the multi-value column
+    brokerResponse =
+        getBrokerResponseForQuery("SELECT DISTINCTCOUNT(stringColumn) FROM testTable GROUP BY mvColumn TOP 1000");
+    List<GroupByResult> groupByResults = brokerResponse.getAggregationResults().get(0).getGroupByResult();
+    assertEquals(groupByResults.size(), _expectedStringValueSetsPerMVValue.size(), "Random seed: " + RANDOM_SEED);
+    for (GroupByResult groupByResult : groupByResults) {
+      String group = groupByResult.getGroup().get(0);
+      assertEquals(Integer.parseInt((String) groupByResult.getValue()),
+          _expectedStringValueSetsPerMVValue.get(group).size(), "Group: " + group + ", random seed: " + RANDOM_SEED);
+    }
+  }
+
+  @Test
+  public void testMergeAcrossSegments() {
+    DistinctCountAggregationFunction function = new DistinctCountAggregationFunction();
+    for (String column : SV_COLUMNS) {
+      // Aggregate each segment on dictionary ids, and on raw values with the hash set path
+      IntOpenHashSet dictResult = null;
+      IntOpenHashSet rawResult = null;
+      for (IndexSegment indexSegment : _indexSegments) {
+        DataSource dataSource = indexSegment.getDataSource(column);
+        Dictionary dictionary = dataSource.getDictionary();
+        FieldSpec.DataType dataType = dataSource.getDataSourceMetadata().getDataType();
+        int numDocs = indexSegment.getSegmentMetadata().getTotalDocs();
+        final int[] dictIds = new int[numDocs];
+        BlockSingleValIterator iterator = (BlockSingleValIterator) dataSource.nextBlock().getBlockValueSet().iterator();
+        for (int i = 0; i < numDocs; i++) {
+          dictIds[i] = iterator.nextIntVal();
+        }
+
+        Object values;
+        switch (dataType) {
+          case INT:
+            int[] intValues = new int[numDocs];
+            dictionary.readIntValues(dictIds, 0, numDocs, intValues, 0);
+            values = intValues;
+            break;
+          case LONG:
+            long[] longValues = new long[numDocs];
+            dictionary.readLongValues(dictIds, 0, numDocs, longValues, 0);
+            values = longValues;
+            break;
+          case DOUBLE:
+            double[] doubleValues = new double[numDocs];
+            dictionary.readDoubleValues(dictIds, 0, numDocs, doubleValues, 0);
+            values = doubleValues;
+            break;
+          case STRING:
+            String[] stringValues = new String[numDocs];
+            dictionary.readStringValues(dictIds, 0, numDocs, stringValues, 0);
+            values = stringValues;
+            break;
+          default:
+            throw new IllegalStateException();
+        }
+        BlockValSet rawBlockValSet = new TransformTestUtils.TestBlockValSet(values, numDocs, dataType);
+        BlockValSet dictBlockValSet = getDictBlockValSet(dictionary, dataType, dictIds);
+
+        AggregationResultHolder rawResultHolder = function.createAggregationResultHolder();
+        function.aggregate(numDocs, rawResultHolder, rawBlockValSet);
+        AggregationResultHolder dictResultHolder = function.createAggregationResultHolder();
+        function.aggregate(numDocs, dictResultHolder, dictBlockValSet);
+        IntOpenHashSet segmentDictResult = function.extractAggregationResult(dictResultHolder);
+        IntOpenHashSet segmentRawResult = function.extractAggregationResult(rawResultHolder);
+        assertTrue(segmentDictResult.equals(segmentRawResult), "Column: " + column + ", random seed: " + RANDOM_SEED);
+
+        dictResult = dictResult == null ? segmentDictResult : function.merge(dictResult, segmentDictResult);
+        rawResult = rawResult == null ? segmentRawResult : function.merge(rawResult, segmentRawResult);
+      }
+      assertTrue(dictResult.equals(rawResult), "Column: " + column + ", random seed: " + RANDOM_SEED);
+      assertTrue(dictResult.equals(_expectedValueSets.get(column)),
+          "Column: " + column + ", random seed: " + RANDOM_SEED);
+    }
+  }
+
+  private static BlockValSet getDictBlockValSet(final Dictionary dictionary, final FieldSpec.DataType dataType,
+      final int[] dictIds) {
+    return new BaseBlockValSet() {
+      @Override
+      public FieldSpec.DataType getValueType() {
+        return dataType;
+      }
+
+      @Override
+      public Dictionary getDictionary() {
+        return dictionary;
+      }
+
+      @Override
+      public int[] getDictionaryIds() {
+        return dictIds;
+      }
+    };
+  }
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.query.aggregation.groupby;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByTrimmingService;
+import com.linkedin.pinot.core.query.aggregation.groupby.CompositeGroupKey;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class CompositeGroupKeyTest {
+  private static final FieldSpec.DataType[] DATA_TYPES =
+      {FieldSpec.DataType.INT, FieldSpec.DataType.LONG, FieldSpec.DataType.FLOAT, FieldSpec.DataType.DOUBLE,
+          FieldSpec.DataType.STRING};
+  private static final String DELIMITER = AggregationGroupByTrimmingService.GROUP_KEY_DELIMITER;
+
+  @Test
+  public void testEqualsAndToString() {
+    CompositeGroupKey.Builder builder1 = new CompositeGroupKey.Builder(DATA_TYPES);
+    CompositeGroupKey.Builder builder2 = new CompositeGroupKey.Builder(DATA_TYPES);
+
+    CompositeGroupKey key1 =
+        builder1.reset().addInt(-1).addLong(Long.MAX_VALUE).addFloat(1.5f).addDouble(-2.25).addString("abc").build();
+    CompositeGroupKey key2 =
+        builder2.reset().addInt(-1).addLong(Long.MAX_VALUE).addFloat(1.5f).addDouble(-2.25).addString("abc").build();
+    CompositeGroupKey key3 =
+        builder1.reset().addInt(-1).addLong(Long.MAX_VALUE).addFloat(1.5f).addDouble(-2.25).addString("abd").build();
+
+    Assert.assertEquals(key1, key2);
+    Assert.assertEquals(key1.hashCode(), key2.hashCode());
+    Assert.assertFalse(key1.equals(key3));
+    Assert.assertEquals(key1.toString(),
+        "-1" + DELIMITER + Long.MAX_VALUE + DELIMITER + "1.5" + DELIMITER + "-2.25" + DELIMITER + "abc");
+  }
+
+  @Test
+  public void testStringValues() {
+    // Strings longer than the default buffer and empty strings should both round trip
+    StringBuilder longValueBuilder = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      longValueBuilder.append('é');
+    }
+    String longValue = longValueBuilder.toString();
+
+    CompositeGroupKey.Builder builder =
+        new CompositeGroupKey.Builder(new FieldSpec.DataType[]{FieldSpec.DataType.STRING, FieldSpec.DataType.STRING});
+    CompositeGroupKey key = builder.reset().addString(longValue).addString("").build();
+    Assert.assertEquals(key.toString(), longValue + DELIMITER);
+
+    // Same concatenated bytes with different value boundaries should not be equal
+    CompositeGroupKey key1 = builder.reset().addString("ab").addString("c").build();
+    CompositeGroupKey key2 = builder.reset().addString("a").addString("bc").build();
+    Assert.assertFalse(key1.equals(key2));
+  }
+}
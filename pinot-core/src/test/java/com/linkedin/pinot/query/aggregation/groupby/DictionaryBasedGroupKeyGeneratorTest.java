@@ -312,7 +312,7 @@ public class DictionaryBasedGroupKeyGeneratorTest {
       count++;
       GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
       idSet.add(groupKey._groupId);
-      groupKeySet.add(groupKey._stringKey);
+      groupKeySet.add(groupKey.getStringKey());
     }
 
     Assert.assertEquals(count, numUniqueKeys, _errorMessage);
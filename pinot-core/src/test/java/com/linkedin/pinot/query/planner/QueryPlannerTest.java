@@ -28,6 +28,7 @@ import com.linkedin.pinot.core.query.planner.QueryPlanner;
 import com.linkedin.pinot.core.query.planner.SequentialQueryPlannerImpl;
 import com.linkedin.pinot.core.startree.StarTree;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -92,6 +93,11 @@ public class QueryPlannerTest {
           return null;
         }
 
+        @Override
+        public List<StarTree> getStarTrees() {
+          return Collections.emptyList();
+        }
+
         @Override
         public long getDiskSizeBytes() {
           return 0;
@@ -49,6 +49,11 @@ public class TransformTestUtils {
       _numDocs = numDocs;
     }
 
+    @Override
+    public int[] getIntValuesSV() {
+      return (int[]) _values;
+    }
+
     @Override
     public long[] getLongValuesSV() {
       return (long[]) _values;
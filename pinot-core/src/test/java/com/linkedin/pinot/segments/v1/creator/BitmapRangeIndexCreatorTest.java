@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.segments.v1.creator;
+
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.creator.impl.inv.BitmapRangeIndexCreator;
+import com.linkedin.pinot.core.segment.index.readers.BitmapRangeIndexReader;
+import com.linkedin.pinot.core.segment.memory.PinotDataBuffer;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+
+public class BitmapRangeIndexCreatorTest {
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "BitmapRangeIndexCreatorTest");
+  private static final String COLUMN_NAME = "testColumn";
+  private static final File RANGE_INDEX =
+      new File(INDEX_DIR, COLUMN_NAME + V1Constants.Indexes.BITMAP_RANGE_INDEX_FILE_EXTENSION);
+  private static final int NUM_DOCS = 10000;
+  private static final Random RANDOM = new Random();
+
+  @BeforeMethod
+  public void setUp() throws IOException {
+    FileUtils.forceMkdir(INDEX_DIR);
+  }
+
+  @Test
+  public void testUniformDistribution() throws IOException {
+    int cardinality = 1000;
+    int[] dictIds = new int[NUM_DOCS];
+    for (int docId = 0; docId < NUM_DOCS; docId++) {
+      dictIds[docId] = RANDOM.nextInt(cardinality);
+    }
+    createAndValidate(dictIds, cardinality, BitmapRangeIndexCreator.DEFAULT_NUM_BUCKETS);
+  }
+
+  @Test
+  public void testSkewedDistribution() throws IOException {
+    // Half of the documents share the same dictionary id
+    int cardinality = 500;
+    int[] dictIds = new int[NUM_DOCS];
+    for (int docId = 0; docId < NUM_DOCS; docId++) {
+      dictIds[docId] = RANDOM.nextBoolean() ? 7 : RANDOM.nextInt(cardinality);
+    }
+    createAndValidate(dictIds, cardinality, 16);
+  }
+
+  @Test
+  public void testLowCardinality() throws IOException {
+    // Less dictionary ids than buckets
+    int cardinality = 5;
+    int[] dictIds = new int[NUM_DOCS];
+    for (int docId = 0; docId < NUM_DOCS; docId++) {
+      dictIds[docId] = RANDOM.nextInt(cardinality);
+    }
+    createAndValidate(dictIds, cardinality, BitmapRangeIndexCreator.DEFAULT_NUM_BUCKETS);
+  }
+
+  private void createAndValidate(int[] dictIds, int cardinality, int numBuckets) throws IOException {
+    try (BitmapRangeIndexCreator creator = new BitmapRangeIndexCreator(INDEX_DIR, COLUMN_NAME, cardinality, NUM_DOCS,
+        numBuckets)) {
+      for (int docId = 0; docId < NUM_DOCS; docId++) {
+        creator.addSV(docId, dictIds[docId]);
+      }
+      creator.seal();
+    }
+
+    try (PinotDataBuffer dataBuffer = PinotDataBuffer.fromFile(RANGE_INDEX, ReadMode.mmap,
+        FileChannel.MapMode.READ_ONLY, "BitmapRangeIndexCreatorTest")) {
+      BitmapRangeIndexReader reader = new BitmapRangeIndexReader(dataBuffer);
+      int actualNumBuckets = reader.getNumBuckets();
+      Assert.assertTrue(actualNumBuckets > 0);
+      Assert.assertTrue(actualNumBuckets <= Math.min(numBuckets, cardinality));
+
+      // Buckets should be contiguous and cover all dictionary ids
+      Assert.assertEquals(reader.getBucketStartDictId(0), 0);
+      Assert.assertEquals(reader.getBucketEndDictId(actualNumBuckets - 1), cardinality - 1);
+      for (int bucketId = 0; bucketId < actualNumBuckets; bucketId++) {
+        int startDictId = reader.getBucketStartDictId(bucketId);
+        int endDictId = reader.getBucketEndDictId(bucketId);
+        Assert.assertTrue(startDictId <= endDictId);
+        if (bucketId > 0) {
+          Assert.assertEquals(startDictId, reader.getBucketEndDictId(bucketId - 1) + 1);
+        }
+        Assert.assertEquals(reader.getBucketId(startDictId), bucketId);
+        Assert.assertEquals(reader.getBucketId(endDictId), bucketId);
+      }
+
+      // Each document should be in the bucket of its dictionary id
+      int numDocs = 0;
+      for (int bucketId = 0; bucketId < actualNumBuckets; bucketId++) {
+        ImmutableRoaringBitmap bitmap = reader.getDocIds(bucketId);
+        numDocs += bitmap.getCardinality();
+        IntIterator intIterator = bitmap.getIntIterator();
+        while (intIterator.hasNext()) {
+          Assert.assertEquals(reader.getBucketId(dictIds[intIterator.next()]), bucketId);
+        }
+      }
+      Assert.assertEquals(numDocs, NUM_DOCS);
+    }
+  }
+
+  @AfterMethod
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(INDEX_DIR);
+  }
+}
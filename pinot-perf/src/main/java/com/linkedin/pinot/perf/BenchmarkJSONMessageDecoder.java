@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2014-2016 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.perf;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.core.data.GenericRow;
+import com.linkedin.pinot.core.realtime.impl.kafka.KafkaJSONMessageDecoder;
+import com.linkedin.pinot.core.realtime.impl.kafka.KafkaJSONStreamingMessageDecoder;
+import com.linkedin.pinot.core.realtime.impl.kafka.KafkaMessageDecoder;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+
+/**
+ * Benchmark for decoding JSON messages from a Kafka message batch buffer, with the tree-based
+ * {@link KafkaJSONMessageDecoder} and the streaming {@link KafkaJSONStreamingMessageDecoder}.
+ * <p>Complements {@link BenchmarkRealtimeConsumptionSpeed}, which measures the end-to-end consumption speed.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkJSONMessageDecoder {
+  private static final int MESSAGE_COUNT = 10_000;
+  private static final Random RANDOM = new Random(123456L);
+
+  private Schema _schema;
+  private byte[] _buffer;
+  private int[] _messageOffsets;
+  private int[] _messageLengths;
+  private KafkaMessageDecoder<byte[]> _jsonDecoder;
+  private KafkaMessageDecoder<byte[]> _streamingDecoder;
+
+  @Setup
+  public void setUp() throws Exception {
+    _schema = new Schema.SchemaBuilder().setSchemaName("benchmark")
+        .addSingleValueDimension("dimInt", FieldSpec.DataType.INT)
+        .addSingleValueDimension("dimLong", FieldSpec.DataType.LONG)
+        .addSingleValueDimension("dimString", FieldSpec.DataType.STRING)
+        .addSingleValueDimension("dimString2", FieldSpec.DataType.STRING)
+        .addMultiValueDimension("dimIntMV", FieldSpec.DataType.INT)
+        .addMultiValueDimension("dimStringMV", FieldSpec.DataType.STRING)
+        .addMetric("metInt", FieldSpec.DataType.INT)
+        .addMetric("metLong", FieldSpec.DataType.LONG)
+        .addMetric("metFloat", FieldSpec.DataType.FLOAT)
+        .addMetric("metDouble", FieldSpec.DataType.DOUBLE)
+        .addTime("daysSinceEpoch", TimeUnit.DAYS, FieldSpec.DataType.INT)
+        .build();
+
+    // Lay out the messages back to back in a single buffer, as in a Kafka message batch
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    _messageOffsets = new int[MESSAGE_COUNT];
+    _messageLengths = new int[MESSAGE_COUNT];
+    for (int i = 0; i < MESSAGE_COUNT; i++) {
+      byte[] message = generateMessage().toString().getBytes(StandardCharsets.UTF_8);
+      _messageOffsets[i] = outputStream.size();
+      _messageLengths[i] = message.length;
+      outputStream.write(message);
+    }
+    _buffer = outputStream.toByteArray();
+
+    _jsonDecoder = new KafkaJSONMessageDecoder();
+    _jsonDecoder.init(null, _schema, "benchmark");
+    _streamingDecoder = new KafkaJSONStreamingMessageDecoder();
+    _streamingDecoder.init(null, _schema, "benchmark");
+  }
+
+  private JSONObject generateMessage() throws Exception {
+    JSONObject message = new JSONObject();
+    message.put("dimInt", RANDOM.nextInt(1000));
+    message.put("dimLong", RANDOM.nextLong());
+    message.put("dimString", "value" + RANDOM.nextInt(1000));
+    message.put("dimString2", "a longer string value " + RANDOM.nextInt(1000000));
+    JSONArray intValues = new JSONArray();
+    JSONArray stringValues = new JSONArray();
+    for (int i = 0; i < 3; i++) {
+      intValues.put(RANDOM.nextInt(100));
+      stringValues.put("mv" + RANDOM.nextInt(100));
+    }
+    message.put("dimIntMV", intValues);
+    message.put("dimStringMV", stringValues);
+    message.put("metInt", RANDOM.nextInt());
+    message.put("metLong", RANDOM.nextLong());
+    message.put("metFloat", RANDOM.nextFloat());
+    message.put("metDouble", RANDOM.nextDouble());
+    message.put("daysSinceEpoch", 17000 + RANDOM.nextInt(30));
+
+    // Fields not in the schema
+    JSONObject unknownObject = new JSONObject();
+    unknownObject.put("userAgent", "Mozilla/5.0 (X11; Linux x86_64) " + RANDOM.nextInt());
+    unknownObject.put("ids", intValues);
+    message.put("unknownObject", unknownObject);
+    message.put("unknownString", "some field that is not ingested " + RANDOM.nextInt());
+    return message;
+  }
+
+  private int decodeAll(KafkaMessageDecoder<byte[]> decoder) {
+    int fieldCount = 0;
+    GenericRow row = null;
+    for (int i = 0; i < MESSAGE_COUNT; i++) {
+      row = GenericRow.createOrReuseRow(row);
+      row = decoder.decode(_buffer, _messageOffsets[i], _messageLengths[i], row);
+      fieldCount += row.getFieldNames().length;
+    }
+    return fieldCount;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int jsonDecoder() {
+    return decodeAll(_jsonDecoder);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int streamingDecoder() {
+    return decodeAll(_streamingDecoder);
+  }
+
+  public static void main(String[] args) throws Exception {
+    ChainedOptionsBuilder opt = new OptionsBuilder()
+        .include(BenchmarkJSONMessageDecoder.class.getSimpleName())
+        .warmupTime(TimeValue.seconds(10))
+        .warmupIterations(3)
+        .measurementTime(TimeValue.seconds(10))
+        .measurementIterations(5)
+        .forks(1);
+
+    new Runner(opt.build()).run();
+  }
+}
@@ -31,6 +31,7 @@ import com.linkedin.pinot.core.data.manager.offline.TableDataManager;
 import com.linkedin.pinot.core.data.manager.offline.TableDataManagerProvider;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
 import com.linkedin.pinot.core.segment.index.loader.IndexLoadingConfig;
 import com.linkedin.pinot.core.segment.index.loader.LoaderUtils;
 import java.io.File;
@@ -66,6 +67,7 @@ public class HelixInstanceDataManager implements InstanceDataManager {
   private String _instanceId;
   private ZkHelixPropertyStore<ZNRecord> _propertyStore;
   private ServerMetrics _serverMetrics;
+  private SegmentResultCache _segmentResultCache;
   private boolean _started = false;
 
   @Override
@@ -76,6 +78,11 @@ public class HelixInstanceDataManager implements InstanceDataManager {
       _instanceId = _instanceDataManagerConfig.getInstanceId();
       _propertyStore = propertyStore;
       _serverMetrics = serverMetrics;
+      long segmentResultCacheMaxSizeBytes = _instanceDataManagerConfig.getSegmentResultCacheMaxSizeBytes();
+      if (segmentResultCacheMaxSizeBytes > 0) {
+        _segmentResultCache = new SegmentResultCache(segmentResultCacheMaxSizeBytes);
+        LOGGER.info("Segment result cache enabled with maximum size: {} bytes", segmentResultCacheMaxSizeBytes);
+      }
 
       LOGGER.info("InstanceDataManager Config:" + _instanceDataManagerConfig.toString());
       File instanceDataDir = new File(_instanceDataManagerConfig.getInstanceDataDir());
@@ -160,7 +167,7 @@ public class HelixInstanceDataManager implements InstanceDataManager {
     tableDataManagerConfig.overrideConfigs(tableConfig);
     TableDataManager tableDataManager =
         TableDataManagerProvider.getTableDataManager(tableDataManagerConfig, _instanceId, _propertyStore,
-            _serverMetrics);
+            _serverMetrics, _segmentResultCache);
     tableDataManager.start();
     _tableDataManagerMap.put(tableNameWithType, tableDataManager);
     LOGGER.info("Added table: {}", tableNameWithType);
@@ -276,6 +283,12 @@ public class HelixInstanceDataManager implements InstanceDataManager {
     return _tableDataManagerMap.get(tableName);
   }
 
+  @Nullable
+  @Override
+  public SegmentResultCache getSegmentResultCache() {
+    return _segmentResultCache;
+  }
+
   @Nonnull
   @Override
   public String getSegmentDataDirectory() {
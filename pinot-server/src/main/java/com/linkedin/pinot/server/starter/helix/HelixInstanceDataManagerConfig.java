@@ -87,6 +87,9 @@ public class HelixInstanceDataManagerConfig implements InstanceDataManagerConfig
   //
   private static final String MAX_PARALLEL_REFRESH_THREADS = "max.parallel.refresh.threads";
 
+  // Maximum size in bytes of the per-segment result cache for immutable segments, 0 to disable the cache.
+  private static final String SEGMENT_RESULT_CACHE_MAX_SIZE_BYTES = "segment.result.cache.max.size.bytes";
+
   private final static String[] REQUIRED_KEYS = { INSTANCE_ID, INSTANCE_DATA_DIR, READ_MODE };
   private Configuration _instanceDataManagerConfiguration = null;
 
@@ -182,6 +185,10 @@ public class HelixInstanceDataManagerConfig implements InstanceDataManagerConfig
     return _instanceDataManagerConfiguration.getInt(MAX_PARALLEL_SEGMENT_BUILDS, 0);
   }
 
+  public long getSegmentResultCacheMaxSizeBytes() {
+    return _instanceDataManagerConfiguration.getLong(SEGMENT_RESULT_CACHE_MAX_SIZE_BYTES, 0L);
+  }
+
   @Override
   public String toString() {
     String configString = "";
@@ -19,10 +19,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import org.slf4j.Logger;
@@ -66,6 +68,13 @@ public class CompositeFuture<V> extends AbstractCompositeListenableFuture<V> {
   // Exception in case of error
   private final ConcurrentMap<ServerInstance, Throwable> _errorMap;
 
+  // Servers whose responses are available in _delayedResponseMap, in the order of arrival
+  private final LinkedBlockingQueue<ServerInstance> _completedServers = new LinkedBlockingQueue<>();
+
+  // Servers whose responses are served by the hedged requests to other servers
+  private final Set<ServerInstance> _hedgedServers =
+      Collections.newSetFromMap(new ConcurrentHashMap<ServerInstance, Boolean>());
+
   private final GatherModeOnError _gatherMode;
 
   // Descriptive name of the future
@@ -176,6 +185,24 @@ public class CompositeFuture<V> extends AbstractCompositeListenableFuture<V> {
     return _delayedResponseMap;
   }
 
+  /**
+   * Wait for the next server whose response has arrived (errors are not included), so that the response can be
+   * processed before all the underlying futures complete. Each server is returned only once.
+   * <p>Once this future is done, all the remaining responses are immediately available.
+   *
+   * @return the server whose response has arrived, or null if no response arrived within the timeout.
+   */
+  public ServerInstance pollCompletedServer(long timeout, TimeUnit unit) throws InterruptedException {
+    return _completedServers.poll(timeout, unit);
+  }
+
+  /**
+   * Returns the response from the given server, or null if not yet arrived.
+   */
+  public V getResponse(ServerInstance server) {
+    return _delayedResponseMap.get(server);
+  }
+
   /**
    * This method must be called after the 'get' is called, so that all response times are recorded.
    * For now, this method has not been added to the interface.
@@ -185,6 +212,22 @@ public class CompositeFuture<V> extends AbstractCompositeListenableFuture<V> {
     return Collections.unmodifiableMap(_responseTimeMap);
   }
 
+  /**
+   * Mark the response for the given server as served by a hedged request to another server. Must be called before the
+   * underlying future for the server completes.
+   */
+  public void markHedged(ServerInstance server) {
+    _hedgedServers.add(server);
+  }
+
+  /**
+   * Returns the servers whose responses are served by the hedged requests to other servers, so their response times do
+   * not reflect the latency of these servers.
+   */
+  public Set<ServerInstance> getHedgedServers() {
+    return Collections.unmodifiableSet(_hedgedServers);
+  }
+
   @Override
   public ServerInstance getServerInstance() {
     throw new RuntimeException("Invalid API call on a composite future");
@@ -197,6 +240,7 @@ public class CompositeFuture<V> extends AbstractCompositeListenableFuture<V> {
     if (null != response) {
       LOGGER.debug("Response from {} is {}", server, response);
       _delayedResponseMap.putAll(response);
+      _completedServers.addAll(response.keySet());
     } else if (null != error) {
       LOGGER.debug("Error from {} is : {}", server, error);
       _errorMap.putAll(error);
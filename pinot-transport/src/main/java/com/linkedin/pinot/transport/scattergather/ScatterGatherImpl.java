@@ -20,25 +20,31 @@ import com.linkedin.pinot.common.metrics.BrokerMetrics;
 import com.linkedin.pinot.common.metrics.BrokerQueryPhase;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.response.ServerInstance;
+import com.linkedin.pinot.transport.common.AsyncResponseFuture;
+import com.linkedin.pinot.transport.common.Cancellable;
 import com.linkedin.pinot.transport.common.CompositeFuture;
 import com.linkedin.pinot.transport.common.CompositeFuture.GatherModeOnError;
 import com.linkedin.pinot.transport.common.ServerResponseFuture;
 import com.linkedin.pinot.transport.netty.NettyClientConnection.ResponseFuture;
 import com.linkedin.pinot.transport.netty.PooledNettyClientResourceManager;
 import com.linkedin.pinot.transport.pool.KeyedPool;
+import com.yammer.metrics.stats.ExponentiallyDecayingSample;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import org.apache.commons.configuration.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,17 +53,77 @@ import org.slf4j.LoggerFactory;
  *
  * Scatter-Gather implementation
  *
+ * <p>With hedged requests enabled, if a server has not responded after a delay based on the given percentile of the
+ * recent response times, the request for its segments is re-sent to another server serving all of them, and the first
+ * successful response is taken while the other request is cancelled. No request is hedged until enough response times
+ * have been observed, and the response times of the hedged requests are not observed.
+ *
  */
 public class ScatterGatherImpl implements ScatterGather {
   private static final Logger LOGGER = LoggerFactory.getLogger(ScatterGatherImpl.class);
 
+  public static final String HEDGE_ENABLED_CONFIG = "hedge.enabled";
+  public static final boolean DEFAULT_HEDGE_ENABLED = false;
+  public static final String HEDGE_DELAY_PERCENTILE_CONFIG = "hedge.delayPercentile";
+  public static final double DEFAULT_HEDGE_DELAY_PERCENTILE = 95.0;
+  public static final String HEDGE_MIN_DELAY_MS_CONFIG = "hedge.minDelayMs";
+  public static final long DEFAULT_HEDGE_MIN_DELAY_MS = 10L;
+  public static final String HEDGE_MIN_OBSERVATIONS_CONFIG = "hedge.minObservations";
+  public static final int DEFAULT_HEDGE_MIN_OBSERVATIONS = 100;
+
+  // Same parameters as the biased histogram in metrics, which favors the response times of the last 5 minutes
+  private static final int RESPONSE_TIME_SAMPLE_SIZE = 1028;
+  private static final double RESPONSE_TIME_SAMPLE_ALPHA = 0.015;
+
   private final KeyedPool<PooledNettyClientResourceManager.PooledClientConnection> _connPool;
   private final ExecutorService _executorService;
 
+  // Hedged requests related, only set when hedged requests are enabled
+  private final ScheduledExecutorService _hedgeScheduler;
+  private final double _hedgeDelayQuantile;
+  private final long _hedgeMinDelayMs;
+  private final int _hedgeMinObservations;
+  private final ExponentiallyDecayingSample _responseTimeSample;
+
   public ScatterGatherImpl(@Nonnull KeyedPool<PooledNettyClientResourceManager.PooledClientConnection> connPool,
       @Nonnull ExecutorService executorService) {
     _connPool = connPool;
     _executorService = executorService;
+    _hedgeScheduler = null;
+    _hedgeDelayQuantile = 0.0;
+    _hedgeMinDelayMs = 0L;
+    _hedgeMinObservations = 0;
+    _responseTimeSample = null;
+  }
+
+  /**
+   * Constructor for scatter-gather with hedged requests configured.
+   *
+   * @param connPool Connection pool
+   * @param executorService Executor service to send the requests
+   * @param hedgeScheduler Scheduled executor service to schedule the hedged requests
+   * @param config Configuration for hedged requests
+   */
+  public ScatterGatherImpl(@Nonnull KeyedPool<PooledNettyClientResourceManager.PooledClientConnection> connPool,
+      @Nonnull ExecutorService executorService, @Nonnull ScheduledExecutorService hedgeScheduler,
+      @Nonnull Configuration config) {
+    _connPool = connPool;
+    _executorService = executorService;
+    if (config.getBoolean(HEDGE_ENABLED_CONFIG, DEFAULT_HEDGE_ENABLED)) {
+      _hedgeScheduler = hedgeScheduler;
+      _hedgeDelayQuantile = config.getDouble(HEDGE_DELAY_PERCENTILE_CONFIG, DEFAULT_HEDGE_DELAY_PERCENTILE) / 100;
+      _hedgeMinDelayMs = config.getLong(HEDGE_MIN_DELAY_MS_CONFIG, DEFAULT_HEDGE_MIN_DELAY_MS);
+      _hedgeMinObservations = config.getInt(HEDGE_MIN_OBSERVATIONS_CONFIG, DEFAULT_HEDGE_MIN_OBSERVATIONS);
+      _responseTimeSample = new ExponentiallyDecayingSample(RESPONSE_TIME_SAMPLE_SIZE, RESPONSE_TIME_SAMPLE_ALPHA);
+      LOGGER.info("Hedged requests enabled with delay percentile: {}, min delay: {}ms, min observations: {}",
+          _hedgeDelayQuantile * 100, _hedgeMinDelayMs, _hedgeMinObservations);
+    } else {
+      _hedgeScheduler = null;
+      _hedgeDelayQuantile = 0.0;
+      _hedgeMinDelayMs = 0L;
+      _hedgeMinObservations = 0;
+      _responseTimeSample = null;
+    }
   }
 
   @Nonnull
@@ -97,6 +163,7 @@ public class ScatterGatherImpl implements ScatterGather {
 
     // async checkout of connections and then dispatch of request
     List<SingleRequestHandler> handlers = new ArrayList<>(routingTable.size());
+    List<String> serverNames = new ArrayList<>(routingTable.size());
 
     for (Entry<String, List<String>> entry : routingTable.entrySet()) {
       ServerInstance serverInstance = ServerInstance.forInstanceName(entry.getKey());
@@ -115,6 +182,7 @@ public class ScatterGatherImpl implements ScatterGather {
       // Submit to thread-pool for checking-out and sending request
       _executorService.submit(handler);
       handlers.add(handler);
+      serverNames.add(entry.getKey());
     }
 
     // Create the composite future for returning
@@ -126,9 +194,20 @@ public class ScatterGatherImpl implements ScatterGather {
     boolean sentSuccessfully = requestDispatchLatch.await(timeRemaining, TimeUnit.MILLISECONDS);
 
     if (sentSuccessfully) {
+      boolean hedgeEnabled = _hedgeScheduler != null;
       List<ServerResponseFuture<byte[]>> responseFutures = new ArrayList<>();
-      for (SingleRequestHandler h : handlers) {
-        responseFutures.add(h.getResponseFuture());
+      List<HedgedResponseFuture> hedgedResponseFutures = hedgeEnabled ? new ArrayList<HedgedResponseFuture>() : null;
+      int numHandlers = handlers.size();
+      for (int i = 0; i < numHandlers; i++) {
+        SingleRequestHandler h = handlers.get(i);
+        if (hedgeEnabled) {
+          HedgedResponseFuture hedgedResponseFuture =
+              new HedgedResponseFuture(scatterGatherRequestContext, serverNames.get(i), h, response, brokerMetrics);
+          responseFutures.add(hedgedResponseFuture);
+          hedgedResponseFutures.add(hedgedResponseFuture);
+        } else {
+          responseFutures.add(h.getResponseFuture());
+        }
         String shortServerName = h.getServer().getShortHostName();
         if (isOfflineTable != null) {
           if (isOfflineTable) {
@@ -142,6 +221,9 @@ public class ScatterGatherImpl implements ScatterGather {
         scatterGatherStats.setSendCompletionTimeMillis(shortServerName, h.getSendCompletionTimeMillis());
       }
       response.start(responseFutures);
+      if (hedgeEnabled) {
+        scheduleHedgedRequests(response, hedgedResponseFutures, scatterGatherRequestContext.getRemainingTimeMs());
+      }
     } else {
       LOGGER.error(
           "Request (" + scatterGatherRequest.getRequestId() + ") not sent completely within time (" + timeRemaining
@@ -160,6 +242,224 @@ public class ScatterGatherImpl implements ScatterGather {
     return response;
   }
 
+  /**
+   * Get the number of response times observed for the hedge delay (for testing purpose).
+   */
+  int getNumObservedResponseTimes() {
+    return _responseTimeSample.size();
+  }
+
+  /**
+   * Schedule the hedged requests for the servers that have not responded after the hedge delay.
+   * <p>The hedge delay cannot be estimated from too few response times (e.g. right after start-up), so no request is
+   * hedged until the minimum number of response times have been observed.
+   */
+  private void scheduleHedgedRequests(final CompositeFuture<byte[]> response,
+      final List<HedgedResponseFuture> hedgedResponseFutures, long timeRemainingMs) {
+    if (_responseTimeSample.size() < _hedgeMinObservations) {
+      return;
+    }
+    long hedgeDelayMs =
+        Math.max(_hedgeMinDelayMs, (long) _responseTimeSample.getSnapshot().getValue(_hedgeDelayQuantile));
+    if (hedgeDelayMs >= timeRemainingMs) {
+      return;
+    }
+    _hedgeScheduler.schedule(new Runnable() {
+      @Override
+      public void run() {
+        if (response.isDone()) {
+          return;
+        }
+        for (HedgedResponseFuture hedgedResponseFuture : hedgedResponseFutures) {
+          if (!hedgedResponseFuture.isDone()) {
+            hedgedResponseFuture.hedge();
+          }
+        }
+      }
+    }, hedgeDelayMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Response future for the request to a server that can be hedged. Completes with the first successful response from
+   * either the original request or the hedged request to another server, and cancels the other one. Completes with
+   * error when all the requests failed.
+   * <p>The response is keyed by the original server so that it can be matched with the routing table. When the hedged
+   * request wins, the original server is marked as hedged in the composite future so that the response time is not
+   * attributed to it. For the hedge delay, the response time of the original request is always observed: when the
+   * hedged request wins, it is censored at the time the hedged response arrived unless the original response still
+   * arrives, so that slow servers are not dropped from the response time distribution.
+   */
+  private class HedgedResponseFuture extends AsyncResponseFuture<byte[]> {
+    private final ScatterGatherRequestContext _requestContext;
+    private final String _serverName;
+    private final SingleRequestHandler _handler;
+    private final CompositeFuture<byte[]> _compositeFuture;
+    private final BrokerMetrics _brokerMetrics;
+    private final long _startTimeMs;
+
+    // Guarded by this
+    private int _numPendingRequests = 1;
+    private boolean _completed = false;
+    private Throwable _error;
+    private SingleRequestHandler _hedgeHandler;
+    private boolean _originalFinished = false;
+    private long _hedgeWinTimeMs = -1;
+
+    HedgedResponseFuture(ScatterGatherRequestContext requestContext, String serverName, SingleRequestHandler handler,
+        CompositeFuture<byte[]> compositeFuture, BrokerMetrics brokerMetrics) {
+      super(handler.getServer(), "Hedged future for request " + requestContext._request.getRequestId());
+      _requestContext = requestContext;
+      _serverName = serverName;
+      _handler = handler;
+      _compositeFuture = compositeFuture;
+      _brokerMetrics = brokerMetrics;
+      _startTimeMs = System.currentTimeMillis();
+      setCancellable(new Cancellable() {
+        @Override
+        public boolean cancel() {
+          SingleRequestHandler hedgeHandler;
+          synchronized (HedgedResponseFuture.this) {
+            _completed = true;
+            hedgeHandler = _hedgeHandler;
+          }
+          _handler.cancel();
+          if (hedgeHandler != null) {
+            hedgeHandler.cancel();
+          }
+          return true;
+        }
+      });
+      addHandlerListener(handler, false);
+    }
+
+    /**
+     * Re-send the request for the segments to another server serving all of them if there is one.
+     */
+    void hedge() {
+      ScatterGatherRequest request = _requestContext._request;
+      List<String> segments = request.getRoutingTable().get(_serverName);
+      String alternativeServer = request.getAlternativeServer(_serverName, segments);
+      if (alternativeServer == null) {
+        return;
+      }
+      synchronized (this) {
+        if (_completed) {
+          return;
+        }
+        _numPendingRequests++;
+      }
+      LOGGER.debug("Hedging request {} for server {} to server {}", request.getRequestId(), _serverName,
+          alternativeServer);
+      _brokerMetrics.addMeteredQueryValue(request.getBrokerRequest(), BrokerMeter.HEDGED_REQUESTS, 1);
+      final SingleRequestHandler hedgeHandler =
+          new SingleRequestHandler(_connPool, ServerInstance.forInstanceName(alternativeServer), request, segments,
+              _requestContext.getRemainingTimeMs(), new CountDownLatch(1), _brokerMetrics);
+      _executorService.submit(new Runnable() {
+        @Override
+        public void run() {
+          hedgeHandler.run();
+          boolean completed;
+          synchronized (HedgedResponseFuture.this) {
+            completed = _completed;
+            _hedgeHandler = hedgeHandler;
+          }
+          if (completed) {
+            hedgeHandler.cancel();
+          } else {
+            addHandlerListener(hedgeHandler, true);
+          }
+        }
+      });
+    }
+
+    private void addHandlerListener(final SingleRequestHandler handler, final boolean isHedge) {
+      handler.getResponseFuture().addListener(new Runnable() {
+        @Override
+        public void run() {
+          onHandlerResponse(handler, isHedge);
+        }
+      }, null);
+    }
+
+    private void onHandlerResponse(SingleRequestHandler handler, boolean isHedge) {
+      ResponseFuture responseFuture = handler.getResponseFuture();
+      byte[] response = null;
+      Throwable error = null;
+      try {
+        response = responseFuture.getOne();
+      } catch (Exception e) {
+        error = e;
+      }
+
+      if (!isHedge) {
+        long responseTimeMs = System.currentTimeMillis() - _startTimeMs;
+        long hedgeWinTimeMs;
+        synchronized (this) {
+          _originalFinished = true;
+          hedgeWinTimeMs = _hedgeWinTimeMs;
+        }
+        if (hedgeWinTimeMs >= 0) {
+          // The hedged request won, the original request took at least until the hedged response arrived
+          _responseTimeSample.update(response != null ? responseTimeMs : hedgeWinTimeMs - _startTimeMs);
+          return;
+        }
+      }
+
+      if (response != null) {
+        SingleRequestHandler otherHandler;
+        synchronized (this) {
+          if (_completed) {
+            return;
+          }
+          _completed = true;
+          otherHandler = isHedge ? _handler : _hedgeHandler;
+          if (isHedge && !_originalFinished) {
+            // The response time of the original request is observed once it gets cancelled (or still arrives)
+            _hedgeWinTimeMs = System.currentTimeMillis();
+          }
+        }
+        if (isHedge) {
+          _brokerMetrics.addMeteredQueryValue(_requestContext._request.getBrokerRequest(),
+              BrokerMeter.HEDGED_REQUEST_WINS, 1);
+          // Mark before completing so that it is visible to the listeners of the composite future
+          _compositeFuture.markHedged(getServerInstance());
+        } else {
+          _responseTimeSample.update(System.currentTimeMillis() - _startTimeMs);
+        }
+        onSuccess(response);
+        if (otherHandler != null) {
+          otherHandler.cancel();
+        }
+        return;
+      }
+
+      if (error == null) {
+        Map<ServerInstance, Throwable> errorMap = responseFuture.getError();
+        if (errorMap != null) {
+          error = errorMap.get(handler.getServer());
+        }
+        if (error == null) {
+          error = new CancellationException("Request to " + handler.getServer() + " cancelled");
+        }
+      }
+      synchronized (this) {
+        if (_completed) {
+          return;
+        }
+        // Keep the error from the original server if any
+        if (_error == null || !isHedge) {
+          _error = error;
+        }
+        if (--_numPendingRequests > 0) {
+          return;
+        }
+        _completed = true;
+        error = _error;
+      }
+      onError(error);
+    }
+  }
+
   private static class ScatterGatherRequestContext {
     private final ScatterGatherRequest _request;
     private final long _startTimeMs;
@@ -18,6 +18,7 @@ package com.linkedin.pinot.transport.scattergather;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 
 /**
@@ -34,6 +35,17 @@ public interface ScatterGatherRequest {
    */
   Map<String, List<String>> getRoutingTable();
 
+  /**
+   * Get another server (other than the given one) serving all the given segments, to which the request for the
+   * segments can be re-sent when the server is slow to respond (hedged request).
+   *
+   * @param server Server currently queried for the segments
+   * @param segments List of segments to be queried
+   * @return Another server serving all the segments, or null if there is no such server
+   */
+  @Nullable
+  String getAlternativeServer(String server, List<String> segments);
+
   /**
    * Get the request to be sent to the server.
    *
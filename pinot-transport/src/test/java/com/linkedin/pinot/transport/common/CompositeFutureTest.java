@@ -327,6 +327,41 @@ public class CompositeFutureTest {
     executor.shutdown();
   }
 
+  @Test
+  /**
+   * Responses are polled as they arrive, errors are not returned
+   * @throws Exception
+   */
+  public void testPollCompletedServer() throws Exception {
+    int numFutures = 10;
+    Map<ServerInstance, ServerResponseFuture<String>> futureMap = new HashMap<>();
+    for (int i = 0; i < numFutures; i++) {
+      ServerInstance key = new ServerInstance("localhost:" + i);
+      futureMap.put(key, new AsyncResponseFuture<String>(key, ""));
+    }
+    CompositeFuture<String> compositeFuture = new CompositeFuture<>("a", GatherModeOnError.AND);
+    compositeFuture.start(futureMap.values());
+    Assert.assertNull(compositeFuture.pollCompletedServer(10, TimeUnit.MILLISECONDS));
+
+    // Send responses for the even futures and errors for the odd futures
+    for (int i = 0; i < numFutures; i++) {
+      ServerInstance k = new ServerInstance("localhost:" + i);
+      AsyncResponseFuture<String> future = (AsyncResponseFuture<String>) futureMap.get(k);
+      if (i % 2 == 0) {
+        future.onSuccess("dummy Message_" + i);
+        Assert.assertEquals(compositeFuture.pollCompletedServer(0, TimeUnit.MILLISECONDS), k);
+        Assert.assertEquals(compositeFuture.getResponse(k), "dummy Message_" + i);
+      } else {
+        future.onError(new Exception("dummy error"));
+        Assert.assertNull(compositeFuture.pollCompletedServer(0, TimeUnit.MILLISECONDS));
+        Assert.assertNull(compositeFuture.getResponse(k));
+      }
+    }
+    Assert.assertTrue(compositeFuture.isDone());
+    Assert.assertNull(compositeFuture.pollCompletedServer(0, TimeUnit.MILLISECONDS));
+    Assert.assertEquals(compositeFuture.getError().size(), numFutures / 2);
+  }
+
   @Test
   /**
    * Tests Composite future with one underlying future.
@@ -403,6 +403,11 @@ public class ScatterGatherPerfClient implements Runnable {
       return _pgToServersMap;
     }
 
+    @Override
+    public String getAlternativeServer(String server, List<String> segments) {
+      return null;
+    }
+
     @Override
     public byte[] getRequestForService(List<String> segments) {
       return _brokerRequest;
@@ -19,6 +19,7 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.Uninterruptibles;
+import com.linkedin.pinot.common.metrics.BrokerMeter;
 import com.linkedin.pinot.common.metrics.BrokerMetrics;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.response.ServerInstance;
@@ -31,6 +32,8 @@ import com.linkedin.pinot.transport.netty.NettyServer.RequestHandlerFactory;
 import com.linkedin.pinot.transport.netty.NettyTCPServer;
 import com.linkedin.pinot.transport.netty.PooledNettyClientResourceManager;
 import com.linkedin.pinot.transport.pool.KeyedPoolImpl;
+import com.yammer.metrics.core.Meter;
+import com.yammer.metrics.core.MetricName;
 import com.yammer.metrics.core.MetricsRegistry;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
@@ -47,6 +50,8 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -240,6 +245,162 @@ public class ScatterGatherTest {
     }
   }
 
+  @Test
+  public void testHedge() throws Exception {
+    NettyServer[] nettyServers = new NettyServer[NUM_SERVERS];
+    String[] serverNames = new String[NUM_SERVERS];
+    ServerInstance[] serverInstances = new ServerInstance[NUM_SERVERS];
+    Map<String, List<String>> routingTable = new HashMap<>(NUM_SERVERS);
+    Map<String, String> alternativeServers = new HashMap<>();
+
+    for (int i = 0; i < NUM_SERVERS; i++) {
+      int serverPort = BASE_SERVER_PORT + i;
+
+      // Set first server as slow server
+      if (i == 0) {
+        nettyServers[i] = new NettyTCPServer(serverPort, new TestRequestHandlerFactory(5_000L, false), null);
+      } else {
+        nettyServers[i] = new NettyTCPServer(serverPort, new TestRequestHandlerFactory(0L, false), null);
+      }
+      new Thread(nettyServers[i]).start();
+
+      String serverName = CommonConstants.Helix.PREFIX_OF_SERVER_INSTANCE + LOCAL_HOST
+          + ServerInstance.NAME_PORT_DELIMITER_FOR_INSTANCE_NAME + serverPort;
+      serverNames[i] = serverName;
+      serverInstances[i] = ServerInstance.forInstanceName(serverName);
+    }
+
+    // Query the first 2 servers, the last server is the replica of the first server
+    routingTable.put(serverNames[0], Collections.singletonList("segment_0"));
+    routingTable.put(serverNames[1], Collections.singletonList("segment_1"));
+    alternativeServers.put(serverNames[0], serverNames[NUM_SERVERS - 1]);
+
+    // Setup client
+    MetricsRegistry metricsRegistry = new MetricsRegistry();
+    EventLoopGroup eventLoopGroup = new NioEventLoopGroup();
+    KeyedPoolImpl<PooledNettyClientResourceManager.PooledClientConnection> connectionPool =
+        setUpConnectionPool(metricsRegistry, eventLoopGroup);
+    ExecutorService executorService = Executors.newCachedThreadPool();
+    ScheduledExecutorService hedgeScheduler = new ScheduledThreadPoolExecutor(1);
+    Configuration hedgeConfig = new BaseConfiguration();
+    hedgeConfig.setProperty(ScatterGatherImpl.HEDGE_ENABLED_CONFIG, true);
+    hedgeConfig.setProperty(ScatterGatherImpl.HEDGE_MIN_DELAY_MS_CONFIG, 100L);
+    hedgeConfig.setProperty(ScatterGatherImpl.HEDGE_MIN_OBSERVATIONS_CONFIG, 0);
+    ScatterGather scatterGather = new ScatterGatherImpl(connectionPool, executorService, hedgeScheduler, hedgeConfig);
+    ScatterGatherStats scatterGatherStats = new ScatterGatherStats();
+    BrokerMetrics brokerMetrics = new BrokerMetrics(metricsRegistry);
+
+    // Send the request
+    ScatterGatherRequest scatterGatherRequest =
+        new TestScatterGatherRequest(routingTable, alternativeServers, 10_000L);
+    long startTimeMs = System.currentTimeMillis();
+    CompositeFuture<byte[]> future =
+        scatterGather.scatterGather(scatterGatherRequest, scatterGatherStats, brokerMetrics);
+
+    // Should have response from all servers queried, keyed by the original servers, without waiting for the slow server
+    Map<ServerInstance, byte[]> serverToResponseMap = future.get();
+    Assert.assertTrue(System.currentTimeMillis() - startTimeMs < 5_000L);
+    Assert.assertEquals(serverToResponseMap.size(), 2);
+    Assert.assertEquals(new String(serverToResponseMap.get(serverInstances[0])), "segment_0");
+    Assert.assertEquals(new String(serverToResponseMap.get(serverInstances[1])), "segment_1");
+    Assert.assertTrue(future.getError().isEmpty());
+
+    // Only the slow server should be hedged, and the hedged request should win
+    Assert.assertEquals(getMeterCount(metricsRegistry, BrokerMeter.HEDGED_REQUESTS), 1L);
+    Assert.assertEquals(getMeterCount(metricsRegistry, BrokerMeter.HEDGED_REQUEST_WINS), 1L);
+    Assert.assertEquals(future.getHedgedServers(), Collections.singleton(serverInstances[0]));
+
+    // The response time of the slow server should still be observed (censored) once its request gets cancelled
+    long deadlineMs = System.currentTimeMillis() + 1_000L;
+    while (((ScatterGatherImpl) scatterGather).getNumObservedResponseTimes() < 2
+        && System.currentTimeMillis() < deadlineMs) {
+      Thread.sleep(10L);
+    }
+    Assert.assertEquals(((ScatterGatherImpl) scatterGather).getNumObservedResponseTimes(), 2);
+
+    connectionPool.shutdown();
+    executorService.shutdown();
+    hedgeScheduler.shutdown();
+    eventLoopGroup.shutdownGracefully();
+
+    for (int i = 0; i < NUM_SERVERS; i++) {
+      nettyServers[i].shutdownGracefully();
+    }
+  }
+
+  @Test
+  public void testNoHedgeBeforeMinObservations() throws Exception {
+    NettyServer[] nettyServers = new NettyServer[NUM_SERVERS];
+    String[] serverNames = new String[NUM_SERVERS];
+    ServerInstance[] serverInstances = new ServerInstance[NUM_SERVERS];
+    Map<String, List<String>> routingTable = new HashMap<>(NUM_SERVERS);
+    Map<String, String> alternativeServers = new HashMap<>();
+
+    for (int i = 0; i < NUM_SERVERS; i++) {
+      int serverPort = BASE_SERVER_PORT + i;
+
+      // Set first server as slow server
+      if (i == 0) {
+        nettyServers[i] = new NettyTCPServer(serverPort, new TestRequestHandlerFactory(5_000L, false), null);
+      } else {
+        nettyServers[i] = new NettyTCPServer(serverPort, new TestRequestHandlerFactory(0L, false), null);
+      }
+      new Thread(nettyServers[i]).start();
+
+      String serverName = CommonConstants.Helix.PREFIX_OF_SERVER_INSTANCE + LOCAL_HOST
+          + ServerInstance.NAME_PORT_DELIMITER_FOR_INSTANCE_NAME + serverPort;
+      serverNames[i] = serverName;
+      serverInstances[i] = ServerInstance.forInstanceName(serverName);
+    }
+
+    // Query the first 2 servers, the last server is the replica of the first server
+    routingTable.put(serverNames[0], Collections.singletonList("segment_0"));
+    routingTable.put(serverNames[1], Collections.singletonList("segment_1"));
+    alternativeServers.put(serverNames[0], serverNames[NUM_SERVERS - 1]);
+
+    // Setup client with the default min observations
+    MetricsRegistry metricsRegistry = new MetricsRegistry();
+    EventLoopGroup eventLoopGroup = new NioEventLoopGroup();
+    KeyedPoolImpl<PooledNettyClientResourceManager.PooledClientConnection> connectionPool =
+        setUpConnectionPool(metricsRegistry, eventLoopGroup);
+    ExecutorService executorService = Executors.newCachedThreadPool();
+    ScheduledExecutorService hedgeScheduler = new ScheduledThreadPoolExecutor(1);
+    Configuration hedgeConfig = new BaseConfiguration();
+    hedgeConfig.setProperty(ScatterGatherImpl.HEDGE_ENABLED_CONFIG, true);
+    hedgeConfig.setProperty(ScatterGatherImpl.HEDGE_MIN_DELAY_MS_CONFIG, 100L);
+    ScatterGather scatterGather = new ScatterGatherImpl(connectionPool, executorService, hedgeScheduler, hedgeConfig);
+    ScatterGatherStats scatterGatherStats = new ScatterGatherStats();
+    BrokerMetrics brokerMetrics = new BrokerMetrics(metricsRegistry);
+
+    // Send the request
+    ScatterGatherRequest scatterGatherRequest = new TestScatterGatherRequest(routingTable, alternativeServers, 1000L);
+    CompositeFuture<byte[]> future =
+        scatterGather.scatterGather(scatterGatherRequest, scatterGatherStats, brokerMetrics);
+
+    // Without enough observed response times, the slow server should not be hedged and should time out
+    Map<ServerInstance, byte[]> serverToResponseMap = future.get();
+    Assert.assertEquals(serverToResponseMap.size(), 1);
+    Assert.assertEquals(new String(serverToResponseMap.get(serverInstances[1])), "segment_1");
+    Assert.assertTrue(future.getError().containsKey(serverInstances[0]));
+    Assert.assertEquals(getMeterCount(metricsRegistry, BrokerMeter.HEDGED_REQUESTS), 0L);
+    Assert.assertTrue(future.getHedgedServers().isEmpty());
+
+    connectionPool.shutdown();
+    executorService.shutdown();
+    hedgeScheduler.shutdown();
+    eventLoopGroup.shutdownGracefully();
+
+    for (int i = 0; i < NUM_SERVERS; i++) {
+      nettyServers[i].shutdownGracefully();
+    }
+  }
+
+  private static long getMeterCount(MetricsRegistry metricsRegistry, BrokerMeter brokerMeter) {
+    Meter meter = (Meter) metricsRegistry.allMetrics()
+        .get(new MetricName(BrokerMetrics.class, "pinot.broker." + brokerMeter.getMeterName()));
+    return meter == null ? 0L : meter.count();
+  }
+
   private KeyedPoolImpl<PooledNettyClientResourceManager.PooledClientConnection> setUpConnectionPool(
       MetricsRegistry metricsRegistry, EventLoopGroup eventLoopGroup) {
     ScheduledExecutorService timedExecutor = new ScheduledThreadPoolExecutor(1);
@@ -255,10 +416,17 @@ public class ScatterGatherTest {
 
   private static class TestScatterGatherRequest implements ScatterGatherRequest {
     private final Map<String, List<String>> _routingTable;
+    private final Map<String, String> _alternativeServers;
     private final long _timeoutMs;
 
     public TestScatterGatherRequest(Map<String, List<String>> routingTable, long timeoutMs) {
+      this(routingTable, Collections.<String, String>emptyMap(), timeoutMs);
+    }
+
+    public TestScatterGatherRequest(Map<String, List<String>> routingTable, Map<String, String> alternativeServers,
+        long timeoutMs) {
       _routingTable = routingTable;
+      _alternativeServers = alternativeServers;
       _timeoutMs = timeoutMs;
     }
 
@@ -267,6 +435,11 @@ public class ScatterGatherTest {
       return _routingTable;
     }
 
+    @Override
+    public String getAlternativeServer(String server, List<String> segments) {
+      return _alternativeServers.get(server);
+    }
+
     @Override
     public byte[] getRequestForService(List<String> segments) {
       return segments.get(0).getBytes();